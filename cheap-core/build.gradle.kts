@@ -4,6 +4,7 @@ plugins {
     id("io.freefair.lombok") version "8.14.2"
     idea
     id("org.sonarqube") version "7.0.0.6105"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "net.netbeing"
@@ -40,6 +41,10 @@ idea {
         isDownloadJavadoc = true
     }
 }
+jmh {
+    // Report bytes allocated per operation (gc.alloc.rate.norm) with each result
+    profilers.add("gc")
+}
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
@@ -17,8 +17,16 @@
 package net.netbeing.cheap.db;
 
 import net.netbeing.cheap.model.*;
+import net.netbeing.cheap.impl.basic.CatalogImpl;
 import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.HierarchyLoader;
+import net.netbeing.cheap.impl.basic.LazyAspectMapHierarchyImpl;
+import net.netbeing.cheap.impl.basic.LazyHierarchy;
+import net.netbeing.cheap.impl.basic.PagedAspectMapImpl;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,12 +39,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * Abstract base class providing common functionality for CheapDao implementations.
@@ -51,6 +67,8 @@ import java.util.UUID;
  * <ul>
  *   <li>Managing AspectTableMapping registration and lookup</li>
  *   <li>Orchestrating multistep save operations (catalog, hierarchies, aspects)</li>
+ *   <li>Writing only the {@linkplain Hierarchy#changes() changes} to a catalog, and
+ *       settling them once written</li>
  *   <li>Routing save/load operations to appropriate mapped or default table handlers</li>
  *   <li>Providing common type conversion utilities</li>
  * </ul>
@@ -87,6 +105,15 @@ public abstract class AbstractCheapDao implements CheapDao
      */
     protected final Map<String, AspectTableMapping> aspectTableMappings = new LinkedHashMap<>();
 
+    /** Whether loaded catalogs defer loading hierarchy content until first access. */
+    private volatile boolean lazyHierarchyLoading;
+
+    /** Executor that prefetches deferred hierarchies in the background, or null for none. */
+    private volatile Executor hierarchyPrefetchExecutor;
+
+    /** The connection of the save running on each thread, which deferred hierarchies load through. */
+    private final ThreadLocal<Connection> activeConnection = new ThreadLocal<>();
+
 
     /**
      * Constructs a new AbstractCheapDao with the given database adapter and logger.
@@ -112,6 +139,57 @@ public abstract class AbstractCheapDao implements CheapDao
         return aspectTableMappings.get(aspectDefName);
     }
 
+    /**
+     * Returns whether loaded catalogs defer loading hierarchy content until first access.
+     *
+     * @return true if hierarchies are loaded lazily
+     * @see #setLazyHierarchyLoading(boolean)
+     */
+    public boolean isLazyHierarchyLoading()
+    {
+        return lazyHierarchyLoading;
+    }
+
+    /**
+     * Sets whether loaded catalogs defer loading hierarchy content until first access.
+     *
+     * <p>When enabled, loading a catalog only reads its AspectDefs and the name, type,
+     * version and size of each hierarchy. Each hierarchy is registered as a
+     * {@link LazyHierarchy} that loads its content through a new connection from the
+     * adapter the first time it is needed, so reading one hierarchy of a large catalog
+     * costs about as much as loading that hierarchy alone. Lazy loading applies to
+     * catalogs that extend {@link CatalogImpl}; others are loaded eagerly.
+     *
+     * @param lazyHierarchyLoading true to load hierarchies lazily
+     */
+    public void setLazyHierarchyLoading(boolean lazyHierarchyLoading)
+    {
+        this.lazyHierarchyLoading = lazyHierarchyLoading;
+    }
+
+    /**
+     * Returns the executor that prefetches lazily loaded hierarchies.
+     *
+     * @return the prefetch executor, or null if hierarchies are not prefetched
+     */
+    public Executor getHierarchyPrefetchExecutor()
+    {
+        return hierarchyPrefetchExecutor;
+    }
+
+    /**
+     * Sets an executor that loads the hierarchies of a lazily loaded catalog in the
+     * background, one task per hierarchy, right after the catalog is loaded. A
+     * hierarchy accessed while it is being prefetched waits for that load rather
+     * than loading it again. Has no effect unless lazy hierarchy loading is enabled.
+     *
+     * @param hierarchyPrefetchExecutor the prefetch executor, or null to disable prefetching
+     */
+    public void setHierarchyPrefetchExecutor(Executor hierarchyPrefetchExecutor)
+    {
+        this.hierarchyPrefetchExecutor = hierarchyPrefetchExecutor;
+    }
+
     @Override
     public void saveCatalog(@NotNull Catalog catalog) throws SQLException
     {
@@ -119,6 +197,8 @@ public abstract class AbstractCheapDao implements CheapDao
             throw new IllegalArgumentException("Catalog cannot be null");
         }
 
+        // Everything is written, so any recorded changes are settled by the save
+        List<DrainedChanges<?>> drained = drainChanges(catalog);
         try (Connection conn = adapter.getConnection()) {
             conn.setAutoCommit(false);
             try {
@@ -128,30 +208,562 @@ public abstract class AbstractCheapDao implements CheapDao
                 conn.rollback();
                 throw e;
             }
+        } catch (SQLException | RuntimeException e) {
+            restoreChanges(drained);
+            throw e;
         }
+        unpinSavedAspects(catalog);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The catalog record, and any AspectDefs that have no AspectMap, are always
+     * written. AspectMaps with changes also rewrite their AspectDef, which costs one
+     * row per property. Hierarchies that must be
+     * written whole have their stored content deleted and written again, so entries
+     * removed in memory are removed from the database too.
+     */
     @Override
-    public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) throws SQLException
+    public void saveChanges(@NotNull Catalog catalog) throws SQLException
     {
-        // Save the Catalog entity itself first and foremost
-        //saveEntity(conn, catalog);
+        List<DrainedChanges<?>> drained = drainChanges(catalog);
+        try (Connection conn = adapter.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                withActiveConnection(conn, () -> {
+                    saveCatalogRecord(conn, catalog);
+                    for (AspectDef aspectDef : catalog.aspectDefs()) {
+                        // AspectDefs with an AspectMap are saved along with its changes
+                        if (catalog.aspects(aspectDef) == null) {
+                            saveAspectDef(conn, aspectDef);
+                            linkCatalogToAspectDef(conn, catalog, aspectDef);
+                        }
+                    }
+                    for (DrainedChanges<?> d : drained) {
+                        saveHierarchyChanges(conn, d.hierarchy(), d.changes());
+                    }
+                });
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            restoreChanges(drained);
+            throw e;
+        }
+        unpinSavedAspects(catalog);
+    }
 
-        // Save the Catalog table record (must be before linking aspect defs due to FK constraint)
-        saveCatalogRecord(conn, catalog);
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The given entities are recorded as changed in their AspectMaps, so aspects
+     * modified in place are written too, and then the catalog is saved with
+     * {@link #saveChanges(Catalog)}. Any other changes to the catalog are written
+     * along with them.
+     */
+    @Override
+    public void saveAspects(@NotNull Catalog catalog, @NotNull Map<AspectDef, ? extends Collection<Entity>> aspects) throws SQLException
+    {
+        for (Map.Entry<AspectDef, ? extends Collection<Entity>> entry : aspects.entrySet()) {
+            AspectMapHierarchy aspectMap = catalog.aspects(entry.getKey());
+            ChangeSet<Entity> changes = aspectMap != null ? aspectMap.changes() : null;
+            if (changes != null) {
+                for (Entity entity : entry.getValue()) {
+                    changes.update(entity);
+                }
+            }
+        }
+        saveChanges(catalog);
+    }
+
+    /**
+     * The changes taken from one hierarchy for a save, kept so that they can be put
+     * back if the save fails. Both change sets are null if the hierarchy does not
+     * track its changes.
+     */
+    private record DrainedChanges<K>(Hierarchy hierarchy, ChangeSet<K> live, ChangeSet<K> changes)
+    {
+        static <K> DrainedChanges<K> drain(Hierarchy hierarchy, ChangeSet<K> live)
+        {
+            return new DrainedChanges<>(hierarchy, live, live != null ? live.drain() : null);
+        }
+
+        void restore()
+        {
+            if (live != null) {
+                live.restore(changes);
+            }
+        }
+    }
+
+    private static List<DrainedChanges<?>> drainChanges(@NotNull Catalog catalog)
+    {
+        List<DrainedChanges<?>> drained = new ArrayList<>();
+        for (Hierarchy hierarchy : catalog.hierarchies()) {
+            drained.add(DrainedChanges.drain(hierarchy, hierarchy.changes()));
+        }
+        return drained;
+    }
 
-        // Save AspectDefs
-        for (AspectDef aspectDef : catalog.aspectDefs()) {
-            saveAspectDef(conn, aspectDef);
-            // Link the AspectDef to this Catalog
-            linkCatalogToAspectDef(conn, catalog, aspectDef);
+    private static void restoreChanges(List<DrainedChanges<?>> drained)
+    {
+        for (DrainedChanges<?> d : drained) {
+            d.restore();
         }
+    }
 
-        // Save all entities, aspects, and properties from hierarchies
+    /**
+     * Clears the changes of every hierarchy of a catalog that was just loaded, since
+     * its content matches the database. Deferred hierarchies clear their own when
+     * they are loaded.
+     *
+     * @param catalog the loaded catalog
+     */
+    protected static void settleChanges(@NotNull Catalog catalog)
+    {
         for (Hierarchy hierarchy : catalog.hierarchies()) {
+            ChangeSet<?> changes = hierarchy.changes();
+            if (changes != null) {
+                changes.clear();
+            }
+        }
+    }
+
+    /**
+     * Lets paged AspectMaps of a committed catalog evict the aspects that were
+     * pinned because they had not been saved.
+     *
+     * @param catalog the catalog that was saved
+     */
+    private static void unpinSavedAspects(@NotNull Catalog catalog)
+    {
+        for (Hierarchy hierarchy : catalog.hierarchies()) {
+            if (hierarchy instanceof LazyAspectMapHierarchyImpl lazy && lazy.isLoaded()) {
+                hierarchy = lazy.loaded();
+            }
+            if (hierarchy instanceof PagedAspectMapImpl paged && paged.source() != null) {
+                paged.unpin();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Deferred hierarchies of the catalog that are loaded during the save are
+     * read through the given connection, within its transaction.
+     */
+    @Override
+    public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) throws SQLException
+    {
+        withActiveConnection(conn, () -> {
+            // Save the Catalog entity itself first and foremost
+            //saveEntity(conn, catalog);
+
+            // Save the Catalog table record (must be before linking aspect defs due to FK constraint)
+            saveCatalogRecord(conn, catalog);
+
+            // Save AspectDefs
+            for (AspectDef aspectDef : catalog.aspectDefs()) {
+                saveAspectDef(conn, aspectDef);
+                // Link the AspectDef to this Catalog
+                linkCatalogToAspectDef(conn, catalog, aspectDef);
+            }
+
+            // Save all entities, aspects, and properties from hierarchies
+            for (Hierarchy hierarchy : catalog.hierarchies()) {
+                saveHierarchy(conn, hierarchy);
+                saveHierarchyContent(conn, hierarchy);
+            }
+        });
+    }
+
+    /**
+     * Database work that may fail with an SQLException.
+     */
+    @FunctionalInterface
+    private interface SqlWork
+    {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Runs some work of a save with the given connection as the one deferred
+     * hierarchies are loaded through on this thread, so that hierarchies touched by
+     * the save are read in its transaction rather than on a second connection, which
+     * could block on the save's own locks.
+     */
+    private void withActiveConnection(Connection conn, SqlWork work) throws SQLException
+    {
+        Connection outer = activeConnection.get();
+        activeConnection.set(conn);
+        try {
+            work.run();
+        } finally {
+            if (outer != null) {
+                activeConnection.set(outer);
+            } else {
+                activeConnection.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes the changes to one hierarchy. Nothing is written if there are none. A
+     * hierarchy that does not track its changes, or whose changes are whole, is saved
+     * and its stored content replaced; otherwise only the updated and removed entries
+     * are written.
+     *
+     * <p>Entries already stored keep their stored order when a delta rewrites them,
+     * and new entries are given orders after the highest stored one, so the stored
+     * order matches the order in memory. Removed entries leave gaps, which loading
+     * ignores.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy to save
+     * @param changes the changes to write, or null if the hierarchy is untracked
+     * @throws SQLException if database operation fails
+     */
+    @SuppressWarnings("unchecked")
+    protected void saveHierarchyChanges(@NotNull Connection conn, @NotNull Hierarchy hierarchy, @Nullable ChangeSet<?> changes) throws SQLException
+    {
+        if (changes != null && changes.isEmpty()) {
+            return;
+        }
+        if (hierarchy instanceof AspectMapHierarchy aspectMap) {
+            // The def may have been extended since it was saved
+            saveAspectDef(conn, aspectMap.aspectDef());
+            linkCatalogToAspectDef(conn, hierarchy.catalog(), aspectMap.aspectDef());
+        }
+        if (changes == null || changes.isWhole()) {
             saveHierarchy(conn, hierarchy);
+            deleteHierarchyContent(conn, hierarchy);
             saveHierarchyContent(conn, hierarchy);
+            return;
+        }
+        switch (hierarchy.type()) {
+            case ENTITY_SET -> saveEntitySetChanges(conn, (EntitySetHierarchy) hierarchy, (ChangeSet<Entity>) changes);
+            case ENTITY_DIR -> saveEntityDirectoryChanges(conn, (EntityDirectoryHierarchy) hierarchy, (ChangeSet<String>) changes);
+            case ASPECT_MAP -> saveAspectMapChanges(conn, (AspectMapHierarchy) hierarchy, (ChangeSet<Entity>) changes);
+            // Lists and trees only record whether they changed at all
+            default -> {
+                saveHierarchy(conn, hierarchy);
+                deleteHierarchyContent(conn, hierarchy);
+                saveHierarchyContent(conn, hierarchy);
+            }
+        }
+    }
+
+    /**
+     * Deletes the stored content of a hierarchy, ahead of saving it again. AspectMaps
+     * stored in mapped tables are left alone, since those are cleared when their
+     * content is saved, and so are paged AspectMaps loaded from this DAO, since
+     * saving their content deletes only the entries they no longer hold.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy whose content should be deleted
+     * @throws SQLException if database operation fails
+     */
+    protected void deleteHierarchyContent(@NotNull Connection conn, @NotNull Hierarchy hierarchy) throws SQLException
+    {
+        switch (hierarchy.type()) {
+            case ENTITY_LIST -> deleteHierarchyRows(conn, "hierarchy_entity_list", hierarchy);
+            case ENTITY_SET -> deleteHierarchyRows(conn, "hierarchy_entity_set", hierarchy);
+            case ENTITY_DIR -> deleteHierarchyRows(conn, "hierarchy_entity_directory", hierarchy);
+            case ENTITY_TREE -> deleteHierarchyRows(conn, "hierarchy_entity_tree_node", hierarchy);
+            case ASPECT_MAP -> {
+                AspectDef aspectDef = ((AspectMapHierarchy) hierarchy).aspectDef();
+                if (getAspectTableMapping(aspectDef.name()) == null && pagedFromHere(hierarchy) == null) {
+                    deleteAspectRows(conn, "property_value", aspectDef, hierarchy.catalog());
+                    deleteHierarchyRows(conn, "hierarchy_aspect_map", hierarchy);
+                    deleteAspectRows(conn, "aspect", aspectDef, hierarchy.catalog());
+                }
+            }
+        }
+    }
+
+    private void deleteHierarchyRows(Connection conn, String table, Hierarchy hierarchy) throws SQLException
+    {
+        String sql = "DELETE FROM " + table + " WHERE catalog_id = ? AND hierarchy_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setUuidParameter(stmt, 1, hierarchy.catalog().globalId());
+            stmt.setString(2, hierarchy.name());
+            stmt.executeUpdate();
+        }
+    }
+
+    private void deleteAspectRows(Connection conn, String table, AspectDef aspectDef, Catalog catalog) throws SQLException
+    {
+        String sql = "DELETE FROM " + table + " WHERE aspect_def_id = ? AND catalog_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setUuidParameter(stmt, 1, aspectDef.globalId());
+            setUuidParameter(stmt, 2, catalog.globalId());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Binds the parameters of a batched statement for one key.
+     */
+    @FunctionalInterface
+    private interface KeyBinder<K>
+    {
+        void bind(PreparedStatement stmt, K key) throws SQLException;
+    }
+
+    private static <K> void executeBatch(Connection conn, String sql, Collection<K> keys, KeyBinder<K> binder) throws SQLException
+    {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (K key : keys) {
+                binder.bind(stmt, key);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static <K> List<K> nonNull(Collection<K> keys)
+    {
+        List<K> list = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            if (key != null) {
+                list.add(key);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the order to give the first entry appended to a stored hierarchy, one
+     * past the highest order stored.
+     *
+     * @param conn the database connection to use
+     * @param table the hierarchy content table
+     * @param orderColumn the order column of the table
+     * @param hierarchy the hierarchy
+     * @return the next free order, or 0 if nothing is stored
+     * @throws SQLException if database operation fails
+     */
+    protected int nextOrder(@NotNull Connection conn, @NotNull String table, @NotNull String orderColumn, @NotNull Hierarchy hierarchy) throws SQLException
+    {
+        String sql = "SELECT MAX(" + orderColumn + ") FROM " + table + " WHERE catalog_id = ? AND hierarchy_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setUuidParameter(stmt, 1, hierarchy.catalog().globalId());
+            stmt.setString(2, hierarchy.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int max = rs.getInt(1);
+                    if (!rs.wasNull()) {
+                        return max + 1;
+                    }
+                }
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Writes the added and removed members of an EntitySetHierarchy.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy to save
+     * @param changes the changes to write
+     * @throws SQLException if database operation fails
+     */
+    protected void saveEntitySetChanges(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy, @NotNull ChangeSet<Entity> changes) throws SQLException
+    {
+        UUID catalogId = hierarchy.catalog().globalId();
+        executeBatch(conn, "DELETE FROM hierarchy_entity_set WHERE catalog_id = ? AND hierarchy_name = ? AND entity_id = ?",
+            nonNull(changes.removed()), (stmt, entity) -> {
+                setUuidParameter(stmt, 1, catalogId);
+                stmt.setString(2, hierarchy.name());
+                setUuidParameter(stmt, 3, entity.globalId());
+            });
+        saveOrderedEntries(conn, hierarchy, "hierarchy_entity_set", "entity_id", "set_order",
+            nonNull(changes.updated()), (stmt, index, entity) -> setUuidParameter(stmt, index, entity.globalId()),
+            (entities, firstOrder) -> saveEntitySetEntries(conn, hierarchy, entities, firstOrder));
+    }
+
+    /**
+     * Writes the changed and removed keys of an EntityDirectoryHierarchy. Keys that
+     * now map to null are removed, as a full save would not store them.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy to save
+     * @param changes the changes to write
+     * @throws SQLException if database operation fails
+     */
+    protected void saveEntityDirectoryChanges(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy, @NotNull ChangeSet<String> changes) throws SQLException
+    {
+        List<String> removed = nonNull(changes.removed());
+        List<String> updated = new ArrayList<>();
+        for (String key : nonNull(changes.updated())) {
+            (hierarchy.get(key) != null ? updated : removed).add(key);
+        }
+        UUID catalogId = hierarchy.catalog().globalId();
+        executeBatch(conn, "DELETE FROM hierarchy_entity_directory WHERE catalog_id = ? AND hierarchy_name = ? AND entity_key = ?",
+            removed, (stmt, key) -> {
+                setUuidParameter(stmt, 1, catalogId);
+                stmt.setString(2, hierarchy.name());
+                stmt.setString(3, key);
+            });
+        saveOrderedEntries(conn, hierarchy, "hierarchy_entity_directory", "entity_key", "dir_order",
+            updated, (stmt, index, key) -> stmt.setString(index, key),
+            (keys, firstOrder) -> saveEntityDirectoryEntries(conn, hierarchy, keys, firstOrder));
+    }
+
+    /**
+     * Writes the changed and removed aspects of an AspectMapHierarchy. Aspects in a
+     * mapped table without an entity id column cannot be told apart, so such tables
+     * are saved whole.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy to save
+     * @param changes the changes to write
+     * @throws SQLException if database operation fails
+     */
+    protected void saveAspectMapChanges(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy, @NotNull ChangeSet<Entity> changes) throws SQLException
+    {
+        AspectTableMapping mapping = getAspectTableMapping(hierarchy.aspectDef().name());
+        if (mapping != null && !mapping.hasEntityId()) {
+            saveAspectMapContentToMappedTable(conn, hierarchy, mapping);
+            return;
+        }
+
+        UUID catalogId = hierarchy.catalog().globalId();
+        List<Entity> removed = nonNull(changes.removed());
+        List<Entity> updated = nonNull(changes.updated());
+
+        if (mapping != null) {
+            String deleteSql = "DELETE FROM " + mapping.tableName() + " WHERE entity_id = ?" +
+                (mapping.hasCatalogId() ? " AND catalog_id = ?" : "");
+            executeBatch(conn, deleteSql, removed, (stmt, entity) -> {
+                setUuidParameter(stmt, 1, entity.globalId());
+                if (mapping.hasCatalogId()) {
+                    setUuidParameter(stmt, 2, catalogId);
+                }
+            });
+            try (PreparedStatement stmt = conn.prepareStatement(buildAspectMapSql(mapping).toString())) {
+                for (Entity entity : updated) {
+                    Aspect aspect = hierarchy.get(entity);
+                    if (aspect != null) {
+                        saveAspectToMappedTable(mapping, entity, aspect, stmt, catalogId);
+                    }
+                }
+            }
+            return;
+        }
+
+        deleteAspectMapEntries(conn, hierarchy, removed);
+        saveOrderedEntries(conn, hierarchy, "hierarchy_aspect_map", "entity_id", "map_order",
+            updated, (stmt, index, entity) -> setUuidParameter(stmt, index, entity.globalId()),
+            (entities, firstOrder) -> saveAspectMapEntriesToDefaultTables(conn, hierarchy, entities, firstOrder));
+    }
+
+    /**
+     * Binds a hierarchy key to one parameter of a statement.
+     */
+    @FunctionalInterface
+    private interface KeyParameter<K>
+    {
+        void set(PreparedStatement stmt, int index, K key) throws SQLException;
+    }
+
+    /**
+     * Writes some entries of a hierarchy, giving them consecutive orders.
+     */
+    @FunctionalInterface
+    private interface EntryWriter<K>
+    {
+        void write(Collection<K> keys, int firstOrder) throws SQLException;
+    }
+
+    /**
+     * Writes the updated entries of a stored hierarchy. The dialects' upserts
+     * overwrite the order of an entry, so entries that were already stored are put
+     * back at their stored order afterwards; only new entries keep the orders after
+     * the highest stored one.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the hierarchy the entries belong to
+     * @param table the hierarchy content table
+     * @param keyColumn the column holding the key of an entry
+     * @param orderColumn the order column of the table
+     * @param updated the keys of the entries to write
+     * @param keyParameter binds a key to a statement parameter
+     * @param writer writes entries with consecutive orders
+     * @throws SQLException if database operation fails
+     */
+    private <K> void saveOrderedEntries(Connection conn, Hierarchy hierarchy, String table, String keyColumn,
+        String orderColumn, List<K> updated, KeyParameter<K> keyParameter, EntryWriter<K> writer) throws SQLException
+    {
+        if (updated.isEmpty()) {
+            return;
+        }
+        UUID catalogId = hierarchy.catalog().globalId();
+        Map<K, Integer> stored = new LinkedHashMap<>();
+        String selectSql = "SELECT " + orderColumn + " FROM " + table +
+            " WHERE catalog_id = ? AND hierarchy_name = ? AND " + keyColumn + " = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            setUuidParameter(stmt, 1, catalogId);
+            stmt.setString(2, hierarchy.name());
+            for (K key : updated) {
+                keyParameter.set(stmt, 3, key);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        stored.put(key, rs.getInt(1));
+                    }
+                }
+            }
         }
+
+        List<K> ordered = new ArrayList<>(stored.keySet());
+        for (K key : updated) {
+            if (!stored.containsKey(key)) {
+                ordered.add(key);
+            }
+        }
+        writer.write(ordered, nextOrder(conn, table, orderColumn, hierarchy));
+
+        String updateSql = "UPDATE " + table + " SET " + orderColumn + " = ?" +
+            " WHERE catalog_id = ? AND hierarchy_name = ? AND " + keyColumn + " = ?";
+        executeBatch(conn, updateSql, stored.entrySet(), (stmt, entry) -> {
+            stmt.setInt(1, entry.getValue());
+            setUuidParameter(stmt, 2, catalogId);
+            stmt.setString(3, hierarchy.name());
+            keyParameter.set(stmt, 4, entry.getKey());
+        });
+    }
+
+    /**
+     * Deletes the stored aspects of some entities of an AspectMapHierarchy kept in
+     * the default tables, along with their map entries.
+     */
+    private void deleteAspectMapEntries(Connection conn, AspectMapHierarchy hierarchy, Collection<Entity> removed) throws SQLException
+    {
+        UUID catalogId = hierarchy.catalog().globalId();
+        UUID aspectDefId = hierarchy.aspectDef().globalId();
+        KeyBinder<Entity> aspectKey = (stmt, entity) -> {
+            setUuidParameter(stmt, 1, entity.globalId());
+            setUuidParameter(stmt, 2, aspectDefId);
+            setUuidParameter(stmt, 3, catalogId);
+        };
+        executeBatch(conn, "DELETE FROM property_value WHERE entity_id = ? AND aspect_def_id = ? AND catalog_id = ?",
+            removed, aspectKey);
+        executeBatch(conn, "DELETE FROM hierarchy_aspect_map WHERE entity_id = ? AND catalog_id = ? AND hierarchy_name = ?",
+            removed, (stmt, entity) -> {
+                setUuidParameter(stmt, 1, entity.globalId());
+                setUuidParameter(stmt, 2, catalogId);
+                stmt.setString(3, hierarchy.name());
+            });
+        executeBatch(conn, "DELETE FROM aspect WHERE entity_id = ? AND aspect_def_id = ? AND catalog_id = ?",
+            removed, aspectKey);
     }
 
     /**
@@ -207,24 +819,55 @@ public abstract class AbstractCheapDao implements CheapDao
     protected abstract void saveEntityListContent(@NotNull Connection conn, @NotNull EntityListHierarchy hierarchy) throws SQLException;
 
     /**
-     * Persists the content of an EntitySetHierarchy to the database.
-     * This typically involves saving entity references along with their set order (if ordered).
+     * Persists the content of an EntitySetHierarchy to the database, by saving all of
+     * its members with {@link #saveEntitySetEntries}.
      *
      * @param conn the database connection to use
      * @param hierarchy the EntitySetHierarchy to save
      * @throws SQLException if database operation fails
      */
-    protected abstract void saveEntitySetContent(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy) throws SQLException;
+    protected void saveEntitySetContent(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy) throws SQLException
+    {
+        saveEntitySetEntries(conn, hierarchy, hierarchy, 0);
+    }
 
     /**
-     * Persists the content of an EntityDirectoryHierarchy to the database.
-     * This typically involves saving string keys mapped to entity references.
+     * Inserts or updates members of an EntitySetHierarchy, giving them consecutive
+     * set orders starting at {@code firstOrder}.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the EntitySetHierarchy the members belong to
+     * @param entities the members to save
+     * @param firstOrder the set order of the first member
+     * @throws SQLException if database operation fails
+     */
+    protected abstract void saveEntitySetEntries(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException;
+
+    /**
+     * Persists the content of an EntityDirectoryHierarchy to the database, by saving
+     * all of its keys with {@link #saveEntityDirectoryEntries}.
      *
      * @param conn the database connection to use
      * @param hierarchy the EntityDirectoryHierarchy to save
      * @throws SQLException if database operation fails
      */
-    protected abstract void saveEntityDirectoryContent(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy) throws SQLException;
+    protected void saveEntityDirectoryContent(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy) throws SQLException
+    {
+        saveEntityDirectoryEntries(conn, hierarchy, hierarchy.keySet(), 0);
+    }
+
+    /**
+     * Inserts or updates keys of an EntityDirectoryHierarchy, giving them consecutive
+     * directory orders starting at {@code firstOrder}. Keys that map to null are
+     * skipped.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the EntityDirectoryHierarchy the keys belong to
+     * @param keys the keys to save
+     * @param firstOrder the directory order of the first key
+     * @throws SQLException if database operation fails
+     */
+    protected abstract void saveEntityDirectoryEntries(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy, @NotNull Collection<String> keys, int firstOrder) throws SQLException;
 
     /**
      * Persists the content of an EntityTreeHierarchy to the database.
@@ -249,13 +892,71 @@ public abstract class AbstractCheapDao implements CheapDao
         // Check if this AspectDef has a table mapping
         AspectTableMapping mapping = getAspectTableMapping(hierarchy.aspectDef().name());
 
+        PagedAspectMapImpl paged = pagedFromHere(hierarchy);
+
         if (mapping != null) {
             saveAspectMapContentToMappedTable(conn, hierarchy, mapping);
+        } else if (paged != null) {
+            saveAspectMapContentThroughSource(conn, paged, hierarchy);
         } else {
             saveAspectMapContentToDefaultTables(conn, hierarchy);
         }
     }
 
+    /**
+     * Returns the paged AspectMap behind a hierarchy if it loads its aspects on demand
+     * from this DAO's default tables for the same catalog, so that the aspects it has
+     * not changed are already stored.
+     *
+     * @param hierarchy the hierarchy to check
+     * @return the paged AspectMap, or null if the hierarchy is not one loaded from here
+     */
+    private PagedAspectMapImpl pagedFromHere(Hierarchy hierarchy)
+    {
+        if (hierarchy instanceof LazyAspectMapHierarchyImpl lazy && lazy.isLoaded()) {
+            hierarchy = lazy.loaded();
+        }
+        if (hierarchy instanceof PagedAspectMapImpl paged && paged.source() instanceof DaoAspectSource source
+            && source.loadsFrom(this, hierarchy.catalog())
+            && getAspectTableMapping(paged.aspectDef().name()) == null) {
+            return paged;
+        }
+        return null;
+    }
+
+    /**
+     * Saves the content of a paged AspectMap to the default tables it was loaded
+     * from, without loading the aspects that are already stored there. Only the
+     * entries it no longer holds are deleted, and only the aspects that were put
+     * or written since they were stored are saved.
+     *
+     * @param conn the database connection to use
+     * @param paged the paged AspectMap
+     * @param hierarchy the AspectMapHierarchy it belongs to
+     * @throws SQLException if database operation fails
+     */
+    private void saveAspectMapContentThroughSource(Connection conn, PagedAspectMapImpl paged, AspectMapHierarchy hierarchy) throws SQLException
+    {
+        Set<Entity> stored = new HashSet<>(loadAspectMapEntities(conn, hierarchy));
+        List<Entity> removed = new ArrayList<>();
+        for (Entity entity : stored) {
+            if (!paged.containsKey(entity)) {
+                removed.add(entity);
+            }
+        }
+        Set<Entity> unsaved = new LinkedHashSet<>(paged.pinnedEntities());
+        for (Entity entity : paged.keySet()) {
+            if (!stored.contains(entity)) {
+                unsaved.add(entity);
+            }
+        }
+        deleteAspectMapEntries(conn, hierarchy, removed);
+        if (!unsaved.isEmpty()) {
+            saveAspectMapEntriesToDefaultTables(conn, hierarchy, unsaved,
+                nextOrder(conn, "hierarchy_aspect_map", "map_order", hierarchy));
+        }
+    }
+
     /**
      * Persists the content of an AspectMapHierarchy to the default aspect/property_value tables.
      * This provides schema flexibility at the cost of some query performance.
@@ -264,7 +965,23 @@ public abstract class AbstractCheapDao implements CheapDao
      * @param hierarchy the AspectMapHierarchy to save
      * @throws SQLException if database operation fails
      */
-    protected abstract void saveAspectMapContentToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy) throws SQLException;
+    protected void saveAspectMapContentToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy) throws SQLException
+    {
+        saveAspectMapEntriesToDefaultTables(conn, hierarchy, hierarchy.keySet(), 0);
+    }
+
+    /**
+     * Inserts or updates the aspects of some entities of an AspectMapHierarchy in the
+     * default aspect/property_value tables, giving them consecutive map orders
+     * starting at {@code firstOrder}.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the AspectMapHierarchy the aspects belong to
+     * @param entities the entities whose aspects should be saved
+     * @param firstOrder the map order of the first entity
+     * @throws SQLException if database operation fails
+     */
+    protected abstract void saveAspectMapEntriesToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException;
 
     /**
      * Persists the content of an AspectMapHierarchy to a custom mapped table.
@@ -329,9 +1046,14 @@ public abstract class AbstractCheapDao implements CheapDao
     @Override
     public Catalog loadCatalog(@NotNull UUID catalogId) throws SQLException
     {
+        Catalog catalog;
         try (Connection conn = adapter.getConnection()) {
-            return loadCatalogWithConnection(conn, catalogId);
+            catalog = loadCatalogWithConnection(conn, catalogId);
+        }
+        if (catalog != null) {
+            settleChanges(catalog);
         }
+        return catalog;
     }
 
     @Override
@@ -356,7 +1078,7 @@ public abstract class AbstractCheapDao implements CheapDao
             }
             case ENTITY_TREE -> {
                 Entity rootEntity = factory.createEntity();
-                EntityTreeHierarchy hierarchy = factory.createEntityTreeHierarchy(catalog, hierarchyName, null, 0L);
+                EntityTreeHierarchy hierarchy = createEntityTreeForLoad(catalog, hierarchyName);
                 hierarchy.root().setValue(rootEntity);
                 loadEntityTreeContent(conn, hierarchy);
                 return hierarchy;
@@ -371,6 +1093,77 @@ public abstract class AbstractCheapDao implements CheapDao
         }
     }
 
+    /**
+     * Creates the EntityTreeHierarchy that a stored tree is loaded into. Unless the
+     * factory makes concurrent catalogs, this is a compact tree, whose nodes keep
+     * their subtree sizes so that trees can be counted and paged without walking them.
+     *
+     * @param catalog the catalog to add the hierarchy to
+     * @param hierarchyName the name of the hierarchy
+     * @return the new, empty hierarchy
+     */
+    protected EntityTreeHierarchy createEntityTreeForLoad(@NotNull Catalog catalog, @NotNull String hierarchyName)
+    {
+        CheapFactory factory = adapter.getFactory();
+        if (factory.getDefaultCatalogConcurrency() == CatalogConcurrency.CONCURRENT) {
+            return factory.createEntityTreeHierarchy(catalog, hierarchyName, null, 0L);
+        }
+        return factory.createCompactEntityTreeHierarchy(catalog, hierarchyName, 0L, false);
+    }
+
+    /**
+     * One stored node of an EntityTreeHierarchy, as read from the database.
+     *
+     * @param nodeId the ID of the node
+     * @param parentNodeId the ID of its parent, or null for the root
+     * @param nodeKey the name of the node in its parent
+     * @param entity the entity at the node, or null
+     */
+    public record TreeNodeRow(@NotNull Object nodeId, @Nullable Object parentNodeId, String nodeKey, @Nullable Entity entity)
+    {
+    }
+
+    /**
+     * Builds stored nodes into the tree under the root of a hierarchy. The tree is
+     * built from the root down, and each node is created by the factory to match
+     * its parent, so that compact nodes are attached as they are created and keep
+     * their subtree sizes. Nodes whose parent is not among the rows are dropped.
+     *
+     * @param hierarchy the EntityTreeHierarchy to populate
+     * @param rows the stored nodes, siblings in tree order
+     */
+    protected void populateEntityTree(@NotNull EntityTreeHierarchy hierarchy, @NotNull List<TreeNodeRow> rows)
+    {
+        Map<Object, List<TreeNodeRow>> children = new HashMap<>();
+        TreeNodeRow root = null;
+        for (TreeNodeRow row : rows) {
+            if (row.parentNodeId() == null) {
+                root = row;
+            } else {
+                children.computeIfAbsent(row.parentNodeId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        if (root == null) {
+            return;
+        }
+
+        CheapFactory factory = adapter.getFactory();
+        EntityTreeHierarchy.Node hierarchyRoot = hierarchy.root();
+        if (root.entity() != null) {
+            hierarchyRoot.setValue(root.entity());
+        }
+        Deque<Map.Entry<Object, EntityTreeHierarchy.Node>> pending = new ArrayDeque<>();
+        pending.push(Map.entry(root.nodeId(), hierarchyRoot));
+        while (!pending.isEmpty()) {
+            Map.Entry<Object, EntityTreeHierarchy.Node> parent = pending.pop();
+            for (TreeNodeRow row : children.getOrDefault(parent.getKey(), List.of())) {
+                EntityTreeHierarchy.Node node = factory.createTreeNode(row.entity(), parent.getValue());
+                parent.getValue().put(row.nodeKey(), node);
+                pending.push(Map.entry(row.nodeId(), node));
+            }
+        }
+    }
+
     /**
      * Loads the content of an EntityListHierarchy from the database.
      * This typically involves reading entity references and adding them to the hierarchy in list order.
@@ -415,6 +1208,10 @@ public abstract class AbstractCheapDao implements CheapDao
      * Loads the content of an AspectMapHierarchy, routing to either mapped table
      * or default table implementation based on whether a mapping is registered.
      *
+     * <p>A paged hierarchy (see {@link AspectMapStorage#PAGED}) stored in the default
+     * tables is not populated; only its entity ids are read, and a {@link DaoAspectSource}
+     * is attached to load its aspects on demand. Mapped tables are always loaded eagerly.
+     *
      * @param conn the database connection to use
      * @param hierarchy the AspectMapHierarchy to populate
      * @throws SQLException if database operation fails
@@ -426,11 +1223,42 @@ public abstract class AbstractCheapDao implements CheapDao
 
         if (mapping != null) {
             loadAspectMapContentFromMappedTable(conn, hierarchy, mapping);
+        } else if (hierarchy instanceof PagedAspectMapImpl paged && paged.source() == null) {
+            List<Entity> entities = loadAspectMapEntities(conn, hierarchy);
+            paged.attach(new DaoAspectSource(this, adapter, hierarchy.catalog(), hierarchy.aspectDef(), entities));
         } else {
             loadAspectMapContentFromDefaultTables(conn, hierarchy);
         }
     }
 
+    /**
+     * Loads the entities that have an aspect in an AspectMapHierarchy stored in the
+     * default tables, in map order, without loading the aspects themselves.
+     *
+     * @param conn the database connection to use
+     * @param hierarchy the AspectMapHierarchy whose entities to load
+     * @return the entities in the hierarchy
+     * @throws SQLException if database operation fails
+     */
+    protected List<Entity> loadAspectMapEntities(Connection conn, AspectMapHierarchy hierarchy) throws SQLException
+    {
+        String sql = "SELECT entity_id FROM hierarchy_aspect_map " +
+            "WHERE catalog_id = ? AND hierarchy_name = ? ORDER BY map_order";
+        List<Entity> entities = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setUuidParameter(stmt, 1, hierarchy.catalog().globalId());
+            stmt.setString(2, hierarchy.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Object id = rs.getObject("entity_id");
+                    UUID entityId = id instanceof UUID uuid ? uuid : UUID.fromString(id.toString());
+                    entities.add(adapter.getFactory().getOrRegisterNewEntity(entityId));
+                }
+            }
+        }
+        return entities;
+    }
+
     /**
      * Loads the content of an AspectMapHierarchy from the default aspect/property_value tables.
      * This reconstructs aspects by reading properties from the generic property_value table.
@@ -480,14 +1308,31 @@ public abstract class AbstractCheapDao implements CheapDao
             "JOIN aspect_def ad ON cad.aspect_def_id = ad.aspect_def_id " +
             "WHERE cad.catalog_id = ?";
 
+        List<AspectDef> aspectDefs = new ArrayList<>();
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             setUuidParameter(stmt, 1, catalog.globalId());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     String aspectDefName = rs.getString("name");
-                    AspectDef aspectDef = loadAspectDef(conn, aspectDefName);
+                    aspectDefs.add(loadAspectDef(conn, aspectDefName));
+                }
+            }
+        }
+
+        if (lazyHierarchyLoading && catalog instanceof CatalogImpl lazyCatalog) {
+            Map<String, Long> sizes = loadHierarchySizes(conn, catalog, "hierarchy_aspect_map");
+            for (AspectDef aspectDef : aspectDefs) {
+                if (catalog.aspects(aspectDef) != null) {
                     catalog.extend(aspectDef);
+                    continue;
                 }
+                // Mapped tables don't record their rows in hierarchy_aspect_map
+                long size = getAspectTableMapping(aspectDef.name()) != null ? -1L : sizes.getOrDefault(aspectDef.name(), 0L);
+                lazyCatalog.deferAspectMap(aspectDef, 0L, size, hierarchyLoader());
+            }
+        } else {
+            for (AspectDef aspectDef : aspectDefs) {
+                catalog.extend(aspectDef);
             }
         }
     }
@@ -502,6 +1347,11 @@ public abstract class AbstractCheapDao implements CheapDao
      */
     protected void loadHierarchies(Connection conn, Catalog catalog) throws SQLException
     {
+        if (lazyHierarchyLoading && catalog instanceof CatalogImpl lazyCatalog) {
+            deferHierarchies(conn, lazyCatalog);
+            return;
+        }
+
         String sql = "SELECT name, hierarchy_type, version_number FROM hierarchy WHERE catalog_id = ?";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -528,6 +1378,127 @@ public abstract class AbstractCheapDao implements CheapDao
         }
     }
 
+    /**
+     * Registers every hierarchy of a catalog as a {@link LazyHierarchy}, reading only
+     * their metadata, then submits them to the prefetch executor if one is set.
+     * AspectMaps deferred by {@link #loadAndExtendAspectDefs(Connection, Catalog)} are
+     * left as they are.
+     *
+     * @param conn the database connection to use
+     * @param catalog the Catalog to register hierarchies in
+     * @throws SQLException if database operation fails
+     */
+    protected void deferHierarchies(Connection conn, CatalogImpl catalog) throws SQLException
+    {
+        Map<String, Long> sizes = loadHierarchySizes(conn, catalog, "hierarchy_entity_list",
+            "hierarchy_entity_set", "hierarchy_entity_directory", "hierarchy_entity_tree_node");
+        String sql = "SELECT name, hierarchy_type, version_number FROM hierarchy WHERE catalog_id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setUuidParameter(stmt, 1, catalog.globalId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("name");
+                    HierarchyType type = HierarchyType.fromTypeCode(rs.getString("hierarchy_type"));
+                    long version = rs.getLong("version_number");
+
+                    Hierarchy existingHierarchy = catalog.hierarchy(name);
+                    if (existingHierarchy instanceof LazyHierarchy) {
+                        continue;
+                    }
+                    if (existingHierarchy != null) {
+                        loadExistingHierarchyContent(conn, existingHierarchy);
+                    } else if (type == HierarchyType.ASPECT_MAP) {
+                        AspectDef aspectDef = loadAspectDefForHierarchy(conn, catalog.globalId(), name);
+                        catalog.deferAspectMap(aspectDef, version, -1L, hierarchyLoader());
+                    } else {
+                        catalog.deferHierarchy(type, name, version, sizes.getOrDefault(name, 0L), hierarchyLoader());
+                    }
+                }
+            }
+        }
+
+        Executor prefetch = hierarchyPrefetchExecutor;
+        if (prefetch != null) {
+            for (Hierarchy hierarchy : catalog.hierarchies()) {
+                if (hierarchy instanceof LazyHierarchy lazy && !lazy.isLoaded()) {
+                    prefetch.execute(() -> prefetchHierarchy(lazy));
+                }
+            }
+        }
+    }
+
+    private void prefetchHierarchy(LazyHierarchy hierarchy)
+    {
+        try {
+            hierarchy.load();
+        } catch (RuntimeException e) {
+            // It will be loaded again, and the failure reported, on first access
+            logger.warn("Failed to prefetch hierarchy {}", hierarchy.name(), e);
+        }
+    }
+
+    /**
+     * Returns a loader that fills a deferred hierarchy from the database. A hierarchy
+     * loaded while this DAO is saving on the same thread is read through the save's
+     * connection; otherwise a new connection is taken from the adapter.
+     *
+     * @return the hierarchy loader
+     */
+    protected HierarchyLoader hierarchyLoader()
+    {
+        return target -> {
+            try {
+                Connection active = activeConnection.get();
+                if (active != null) {
+                    loadDeferredContent(active, target);
+                } else {
+                    try (Connection conn = adapter.getConnection()) {
+                        loadDeferredContent(conn, target);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new CheapException("Failed to load hierarchy " + target.name(), e);
+            }
+        };
+    }
+
+    private void loadDeferredContent(Connection conn, Hierarchy target) throws SQLException
+    {
+        if (target instanceof EntityTreeHierarchy tree) {
+            tree.root().setValue(adapter.getFactory().createEntity());
+        }
+        loadExistingHierarchyContent(conn, target);
+    }
+
+    /**
+     * Counts the rows of each hierarchy of a catalog in the given hierarchy content
+     * tables, without loading them.
+     *
+     * @param conn the database connection to use
+     * @param catalog the Catalog whose hierarchies to count
+     * @param tables the hierarchy content tables to count rows in
+     * @return the number of rows per hierarchy name
+     * @throws SQLException if database operation fails
+     */
+    protected Map<String, Long> loadHierarchySizes(Connection conn, Catalog catalog, String... tables) throws SQLException
+    {
+        Map<String, Long> sizes = new HashMap<>();
+        for (String table : tables) {
+            String sql = "SELECT hierarchy_name, COUNT(*) AS row_count FROM " + table +
+                " WHERE catalog_id = ? GROUP BY hierarchy_name";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                setUuidParameter(stmt, 1, catalog.globalId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        sizes.put(rs.getString("hierarchy_name"), rs.getLong("row_count"));
+                    }
+                }
+            }
+        }
+        return sizes;
+    }
+
     /**
      * Dispatches to type-specific load methods based on hierarchy type.
      * This method is common to all database implementations.
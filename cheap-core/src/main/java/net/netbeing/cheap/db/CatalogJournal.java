@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.db;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal, kept as a sequence of segment files in a directory.
+ *
+ * <p>Records are opaque byte arrays. Each is framed by its length and a CRC32C
+ * checksum, so a record torn by a crash is detected when the journal is opened, and
+ * cut off along with anything after it. {@link #append} writes a record and returns
+ * its end position; {@link #sync} makes everything up to a position durable.
+ * Concurrent callers of {@code sync} share fsyncs: one of them forces the segment
+ * while the others wait, and each force covers every record appended before it
+ * started, so a burst of writers costs a few fsyncs rather than one each.
+ *
+ * <p>A new segment is started when the current one would exceed the segment size, and
+ * at {@link #checkpoint()}. Once the records before a checkpoint are safely stored
+ * elsewhere, {@link #truncate(long)} deletes their segments. {@link #replay} maps the
+ * segments read-only and hands each record to a consumer, oldest first.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class CatalogJournal implements Closeable
+{
+    /** Default size at which a segment is closed and a new one started. */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    /** Largest allowed segment size, so that a segment can be mapped in one buffer. */
+    public static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    /** Record length and checksum. */
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signalled when a force finishes. */
+    private final Condition forced = lock.newCondition();
+
+    /** Sizes of the closed segments, by sequence number. */
+    private final TreeMap<Long, Long> closedSegments = new TreeMap<>();
+    private long closedBytes;
+    /** Sequence number and channel of the segment being appended to. */
+    private long currentSegment;
+    private FileChannel channel;
+
+    /** Bytes appended since the journal was opened, and how many of them are durable. */
+    private long appended;
+    private long durable;
+    private boolean forcing;
+    private long forces;
+    private boolean closed;
+    /** Set if a failed append could not be undone, leaving a partial record. */
+    private boolean broken;
+
+    private CatalogJournal(Path directory, long segmentSize)
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the journal in a directory, creating the directory if necessary. If the
+     * last segment ends with a torn or corrupt record, it is truncated to the last
+     * complete record.
+     *
+     * @param directory   the directory holding the segment files
+     * @param segmentSize the size at which a segment is closed and a new one started
+     * @return the open journal
+     * @throws IOException if the directory or a segment cannot be read or written
+     * @throws IllegalArgumentException if the segment size is not positive or exceeds {@link #MAX_SEGMENT_SIZE}
+     */
+    public static @NotNull CatalogJournal open(@NotNull Path directory, long segmentSize) throws IOException
+    {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be positive and at most " + MAX_SEGMENT_SIZE);
+        }
+        CatalogJournal journal = new CatalogJournal(directory, segmentSize);
+        Files.createDirectories(directory);
+        List<Long> sequences = listSegments(directory);
+        if (sequences.isEmpty()) {
+            journal.startSegment(1L);
+            return journal;
+        }
+        long last = sequences.removeLast();
+        for (long seq : sequences) {
+            long size = Files.size(journal.segmentPath(seq));
+            journal.closedSegments.put(seq, size);
+            journal.closedBytes += size;
+        }
+        FileChannel ch = FileChannel.open(journal.segmentPath(last), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long valid = scan(ch, null);
+            if (valid < ch.size()) {
+                logger.warn("Discarding {} bytes of torn or corrupt records at the end of {}",
+                    ch.size() - valid, journal.segmentPath(last));
+                ch.truncate(valid);
+                ch.force(false);
+            }
+            ch.position(valid);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        journal.currentSegment = last;
+        journal.channel = ch;
+        return journal;
+    }
+
+    /**
+     * Returns the directory holding the segment files.
+     *
+     * @return the journal directory
+     */
+    public @NotNull Path directory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the total size of the live segments, including record headers.
+     *
+     * @return the journal size in bytes
+     */
+    public long size()
+    {
+        lock.lock();
+        try {
+            return closed ? 0L : closedBytes + channel.position();
+        } catch (IOException e) {
+            return closedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times a segment has been forced to storage by
+     * {@link #sync}. With concurrent writers this is usually well below the number of
+     * records appended.
+     *
+     * @return the number of forces
+     */
+    public long forces()
+    {
+        lock.lock();
+        try {
+            return forces;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record. The record is not necessarily durable until {@link #sync} is
+     * called with the returned position.
+     *
+     * @param record the record content; must not be empty
+     * @return the position just after the record
+     * @throws IOException if the record cannot be written, or the journal is closed
+     */
+    public long append(byte @NotNull [] record) throws IOException
+    {
+        if (record.length == 0) {
+            throw new IllegalArgumentException("Journal records may not be empty");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(record.length).putInt((int) crc.getValue()).flip();
+        ByteBuffer body = ByteBuffer.wrap(record);
+        ByteBuffer[] frame = { header, body };
+
+        lock.lock();
+        try {
+            ensureWritable();
+            if (channel.position() > 0 && channel.position() + HEADER_SIZE + record.length > segmentSize) {
+                roll();
+            }
+            long start = channel.position();
+            try {
+                while (body.hasRemaining()) {
+                    channel.write(frame);
+                }
+            } catch (IOException e) {
+                try {
+                    channel.truncate(start);
+                    channel.position(start);
+                } catch (IOException undo) {
+                    broken = true;
+                    e.addSuppressed(undo);
+                }
+                throw e;
+            }
+            appended += HEADER_SIZE + record.length;
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every record up to the given position is durable. If another
+     * thread is already forcing the segment, waits for it, and forces again only if
+     * that did not cover the position.
+     *
+     * @param position a position returned by {@link #append}
+     * @throws IOException if the segment cannot be forced, or the wait is interrupted
+     */
+    public void sync(long position) throws IOException
+    {
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (forcing) {
+                    forced.await();
+                    continue;
+                }
+                ensureWritable();
+                forcing = true;
+                long target = appended;
+                FileChannel ch = channel;
+                IOException error = null;
+                lock.unlock();
+                try {
+                    ch.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                    forcing = false;
+                    forced.signalAll();
+                }
+                if (error != null) {
+                    throw error;
+                }
+                forces++;
+                durable = Math.max(durable, target);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while syncing journal");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment, so that every record appended so far is in a segment
+     * before the returned mark. Does nothing if the current segment is empty.
+     *
+     * @return the mark to pass to {@link #truncate} once the records before it are no longer needed
+     * @throws IOException if the current segment cannot be forced or the new one created
+     */
+    public long checkpoint() throws IOException
+    {
+        lock.lock();
+        try {
+            ensureWritable();
+            if (channel.position() > 0) {
+                roll();
+            }
+            return currentSegment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments before a mark returned by {@link #checkpoint()}. A segment
+     * that cannot be deleted is kept, and deleted by a later call; replaying it again
+     * is harmless as long as records are idempotent.
+     *
+     * @param mark the mark returned by checkpoint
+     */
+    public void truncate(long mark)
+    {
+        lock.lock();
+        try {
+            Map<Long, Long> expired = closedSegments.headMap(mark);
+            for (var it = expired.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Long> segment = it.next();
+                try {
+                    Files.deleteIfExists(segmentPath(segment.getKey()));
+                    closedBytes -= segment.getValue();
+                    it.remove();
+                } catch (IOException e) {
+                    logger.warn("Could not delete journal segment {}; will retry", segmentPath(segment.getKey()), e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every record in the journal to a consumer, oldest first. The buffers are
+     * read-only views of the mapped segments, valid only during the call.
+     *
+     * @param consumer receives each record
+     * @throws IOException if a segment cannot be read, or a segment other than the last is corrupt
+     */
+    public void replay(@NotNull Consumer<ByteBuffer> consumer) throws IOException
+    {
+        lock.lock();
+        try {
+            ensureWritable();
+            List<Long> sequences = new ArrayList<>(closedSegments.keySet());
+            sequences.add(currentSegment);
+            for (long seq : sequences) {
+                Path path = segmentPath(seq);
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long end = seq == currentSegment ? channel.position() : ch.size();
+                    if (scan(ch, end, consumer) < end) {
+                        throw new IOException("Corrupt record in journal segment " + path);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the journal. Records appended but not synced may not be durable.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            while (forcing) {
+                forced.awaitUninterruptibly();
+            }
+            closed = true;
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the journal and deletes its segments and directory.
+     *
+     * @throws IOException if a segment or the directory cannot be deleted
+     */
+    public void delete() throws IOException
+    {
+        lock.lock();
+        try {
+            close();
+            for (long seq : closedSegments.keySet()) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+            Files.deleteIfExists(segmentPath(currentSegment));
+            closedSegments.clear();
+            closedBytes = 0L;
+            Files.deleteIfExists(directory);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureWritable() throws IOException
+    {
+        if (closed) {
+            throw new IOException("Journal is closed: " + directory);
+        }
+        if (broken) {
+            throw new IOException("Journal is unusable after a failed write: " + directory);
+        }
+    }
+
+    /**
+     * Forces the current segment and starts the next one. Called with the lock held.
+     */
+    private void roll() throws IOException
+    {
+        try {
+            while (forcing) {
+                forced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rolling journal segment");
+        }
+        channel.force(false);
+        durable = appended;
+        long size = channel.position();
+        channel.close();
+        closedSegments.put(currentSegment, size);
+        closedBytes += size;
+        try {
+            startSegment(currentSegment + 1);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    private void startSegment(long seq) throws IOException
+    {
+        channel = FileChannel.open(segmentPath(seq),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        currentSegment = seq;
+        syncDirectory();
+    }
+
+    /**
+     * Makes a newly created segment's directory entry durable, where the platform allows it.
+     */
+    private void syncDirectory()
+    {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not every platform can open or force a directory
+        }
+    }
+
+    private Path segmentPath(long seq)
+    {
+        return directory.resolve(String.format("%020d%s", seq, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException
+    {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file in journal directory: {}", file);
+                }
+            }
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private static long scan(FileChannel ch, Consumer<ByteBuffer> consumer) throws IOException
+    {
+        return scan(ch, ch.size(), consumer);
+    }
+
+    /**
+     * Reads the records in the first {@code end} bytes of a segment, passing each to the
+     * consumer if there is one, and returns the length of the valid prefix.
+     */
+    private static long scan(FileChannel ch, long end, Consumer<ByteBuffer> consumer) throws IOException
+    {
+        if (end == 0) {
+            return 0L;
+        }
+        ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        int pos = 0;
+        CRC32C crc = new CRC32C();
+        while (end - pos >= HEADER_SIZE) {
+            int length = buf.getInt(pos);
+            if (length <= 0 || length > end - pos - HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer payload = buf.slice(pos + HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buf.getInt(pos + 4)) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(payload);
+            }
+            pos += HEADER_SIZE + length;
+        }
+        return pos;
+    }
+}
@@ -27,6 +27,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -130,6 +132,44 @@ public interface CheapDao extends AutoCloseable
      */
     void saveCatalog(@NotNull Catalog catalog) throws SQLException;
 
+    /**
+     * Saves the given aspects of a previously saved catalog. This lets callers that
+     * know exactly what they changed avoid rewriting the whole catalog.
+     *
+     * <p>The default implementation saves the complete catalog with
+     * {@link #saveCatalog(Catalog)}; implementations may override it to write only
+     * the given aspects.
+     *
+     * @param catalog the catalog containing the aspects
+     * @param aspects the entities whose aspects should be saved, by AspectDef
+     * @throws SQLException if database operation fails
+     */
+    default void saveAspects(@NotNull Catalog catalog, @NotNull Map<AspectDef, ? extends Collection<Entity>> aspects) throws SQLException
+    {
+        saveCatalog(catalog);
+    }
+
+    /**
+     * Saves the changes made to a previously saved catalog since it was last saved or
+     * loaded, in a single transaction. Hierarchies record their own
+     * {@linkplain Hierarchy#changes() changes}, so the cost of the save is
+     * proportional to what changed rather than to the size of the catalog.
+     * Hierarchies that do not track their changes are saved whole.
+     *
+     * <p>The changes are cleared once they are written; if the save fails they are
+     * kept, so that a later save writes them again.
+     *
+     * <p>The default implementation saves the complete catalog with
+     * {@link #saveCatalog(Catalog)}.
+     *
+     * @param catalog the catalog to save
+     * @throws SQLException if database operation fails
+     */
+    default void saveChanges(@NotNull Catalog catalog) throws SQLException
+    {
+        saveCatalog(catalog);
+    }
+
     /**
      * Saves a complete catalog using an existing database connection.
      * This variant is useful for integrating catalog saves into larger transactions.
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.impl.basic.AspectSource;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.util.CheapException;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AspectSource that loads the aspects of one AspectMap of a saved catalog
+ * through a CheapDao. A single load opens a connection from the adapter; a
+ * batch of loads shares one.
+ *
+ * @see net.netbeing.cheap.impl.basic.PagedAspectMapImpl
+ * @see AbstractCheapDao#loadAspectMapContent(Connection, net.netbeing.cheap.model.AspectMapHierarchy)
+ */
+public class DaoAspectSource implements AspectSource
+{
+    private final CheapDao dao;
+    private final CheapJdbcAdapter adapter;
+    private final Catalog catalog;
+    private final AspectDef aspectDef;
+    private final List<Entity> entities;
+
+    /**
+     * Creates a source for the aspects of the given entities.
+     *
+     * @param dao the DAO to load aspects with
+     * @param adapter the adapter to open connections with
+     * @param catalog the catalog the aspects belong to
+     * @param aspectDef the AspectDef of the aspects
+     * @param entities the entities that have an aspect in the database, in map order
+     */
+    public DaoAspectSource(@NotNull CheapDao dao, @NotNull CheapJdbcAdapter adapter, @NotNull Catalog catalog,
+                           @NotNull AspectDef aspectDef, @NotNull List<Entity> entities)
+    {
+        this.dao = dao;
+        this.adapter = adapter;
+        this.catalog = catalog;
+        this.aspectDef = aspectDef;
+        this.entities = entities;
+    }
+
+    @Override
+    public @NotNull Collection<Entity> entities()
+    {
+        return entities;
+    }
+
+    @Override
+    public Aspect loadAspect(@NotNull Entity entity)
+    {
+        try (Connection conn = adapter.getConnection()) {
+            return dao.loadAspect(conn, entity, aspectDef, catalog);
+        } catch (SQLException e) {
+            throw new CheapException("Failed to load " + aspectDef.name() + " aspect of entity " + entity.globalId(), e);
+        }
+    }
+
+    @Override
+    public @NotNull Map<Entity, Aspect> loadAspects(@NotNull Collection<Entity> entities)
+    {
+        Map<Entity, Aspect> aspects = new HashMap<>();
+        try (Connection conn = adapter.getConnection()) {
+            for (Entity entity : entities) {
+                Aspect aspect = dao.loadAspect(conn, entity, aspectDef, catalog);
+                if (aspect != null) {
+                    aspects.put(entity, aspect);
+                }
+            }
+        } catch (SQLException e) {
+            throw new CheapException("Failed to load " + entities.size() + " " + aspectDef.name() + " aspects", e);
+        }
+        return aspects;
+    }
+
+    /**
+     * Returns whether this source loads from the given DAO the stored aspects of
+     * the given catalog, so that aspects that were not changed need not be saved
+     * to it again.
+     *
+     * @param dao the DAO to check
+     * @param catalog the catalog to check
+     * @return true if both are the ones this source loads from
+     */
+    public boolean loadsFrom(@NotNull CheapDao dao, @NotNull Catalog catalog)
+    {
+        return this.dao == dao && this.catalog.globalId().equals(catalog.globalId());
+    }
+}
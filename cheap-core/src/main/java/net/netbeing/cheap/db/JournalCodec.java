@@ -0,0 +1,626 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Encodes the changes to a catalog as {@link CatalogJournal} records, and applies
+ * them to a catalog when the journal is replayed.
+ *
+ * <p>A record holds the current state of whatever changed, not the operations that
+ * changed it: hierarchies that changed as a whole are written in full, and the others
+ * as the current entries for the keys that were updated plus the keys that were
+ * removed. Applying a record sets those entries to the values they had when it was
+ * written, so replaying records over a catalog that already reflects some of them
+ * gives the same result as replaying them over the catalog they were written from.
+ */
+final class JournalCodec
+{
+    private static final byte FORMAT = 1;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte STRING = 6;
+    private static final byte BIG_INTEGER = 7;
+    private static final byte BIG_DECIMAL = 8;
+    private static final byte DATE_TIME = 9;
+    private static final byte URI_VALUE = 10;
+    private static final byte UUID_VALUE = 11;
+    private static final byte BYTES = 12;
+    private static final byte LIST = 13;
+
+    private JournalCodec()
+    {
+    }
+
+    /**
+     * The changes drained from one hierarchy. The change set is null if the hierarchy
+     * does not track its changes, in which case it is written whole.
+     */
+    record HierarchyChanges(@NotNull Hierarchy hierarchy, ChangeSet<?> changes)
+    {
+        boolean whole()
+        {
+            return changes == null || changes.isWhole()
+                || hierarchy.type() == HierarchyType.ENTITY_LIST || hierarchy.type() == HierarchyType.ENTITY_TREE;
+        }
+    }
+
+    // ===== Encoding =====
+
+    /**
+     * Encodes the changes to some of a catalog's hierarchies as one record.
+     *
+     * @param catalog the catalog that changed
+     * @param changes the changes to write
+     * @return the record
+     * @throws CheapException if a property value has a type that cannot be journaled
+     */
+    static byte @NotNull [] encode(@NotNull Catalog catalog, @NotNull List<HierarchyChanges> changes)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            writeUuid(out, catalog.globalId());
+            writeString(out, catalog.species().name());
+            writeNullableUuid(out, catalog.upstream());
+            out.writeInt(changes.size());
+            for (HierarchyChanges hc : changes) {
+                writeHierarchy(out, hc);
+            }
+        } catch (IOException e) {
+            throw new CheapException("Failed to encode journal record", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeHierarchy(DataOutputStream out, HierarchyChanges hc) throws IOException
+    {
+        Hierarchy hierarchy = hc.hierarchy();
+        boolean whole = hc.whole();
+        writeString(out, hierarchy.name());
+        writeString(out, hierarchy.type().typeCode());
+        out.writeLong(hierarchy.version());
+        out.writeBoolean(whole);
+        switch (hierarchy.type()) {
+            case ENTITY_LIST -> {
+                EntityListHierarchy list = (EntityListHierarchy) hierarchy;
+                out.writeInt(list.size());
+                for (Entity entity : list) {
+                    writeNullableUuid(out, entity != null ? entity.globalId() : null);
+                }
+            }
+            case ENTITY_SET -> {
+                EntitySetHierarchy set = (EntitySetHierarchy) hierarchy;
+                if (whole) {
+                    writeEntities(out, set);
+                } else {
+                    ChangeSet<Entity> changes = (ChangeSet<Entity>) hc.changes();
+                    List<Entity> removed = new ArrayList<>(changes.removed());
+                    List<Entity> added = new ArrayList<>();
+                    for (Entity entity : changes.updated()) {
+                        (set.contains(entity) ? added : removed).add(entity);
+                    }
+                    writeEntities(out, removed);
+                    writeEntities(out, added);
+                }
+            }
+            case ENTITY_DIR -> {
+                EntityDirectoryHierarchy dir = (EntityDirectoryHierarchy) hierarchy;
+                if (whole) {
+                    writeDirectoryEntries(out, dir, dir.keySet());
+                } else {
+                    ChangeSet<String> changes = (ChangeSet<String>) hc.changes();
+                    List<String> removed = new ArrayList<>(changes.removed());
+                    List<String> updated = new ArrayList<>();
+                    for (String key : changes.updated()) {
+                        (dir.containsKey(key) ? updated : removed).add(key);
+                    }
+                    out.writeInt(removed.size());
+                    for (String key : removed) {
+                        writeString(out, key);
+                    }
+                    writeDirectoryEntries(out, dir, updated);
+                }
+            }
+            case ENTITY_TREE -> writeNode(out, ((EntityTreeHierarchy) hierarchy).root());
+            case ASPECT_MAP -> {
+                AspectMapHierarchy map = (AspectMapHierarchy) hierarchy;
+                if (whole) {
+                    writeAspectDef(out, map.aspectDef());
+                    writeAspectEntries(out, map, map.keySet());
+                } else {
+                    ChangeSet<Entity> changes = (ChangeSet<Entity>) hc.changes();
+                    List<Entity> removed = new ArrayList<>(changes.removed());
+                    List<Entity> updated = new ArrayList<>();
+                    for (Entity entity : changes.updated()) {
+                        (map.containsKey(entity) ? updated : removed).add(entity);
+                    }
+                    writeEntities(out, removed);
+                    writeAspectEntries(out, map, updated);
+                }
+            }
+        }
+    }
+
+    private static void writeEntities(DataOutputStream out, Collection<Entity> entities) throws IOException
+    {
+        out.writeInt(entities.size());
+        for (Entity entity : entities) {
+            writeUuid(out, entity.globalId());
+        }
+    }
+
+    private static void writeDirectoryEntries(DataOutputStream out, EntityDirectoryHierarchy dir, Collection<String> keys) throws IOException
+    {
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            Entity entity = dir.get(key);
+            writeString(out, key);
+            writeNullableUuid(out, entity != null ? entity.globalId() : null);
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, EntityTreeHierarchy.Node node) throws IOException
+    {
+        writeNullableUuid(out, node.value() != null ? node.value().globalId() : null);
+        out.writeBoolean(node.isLeaf());
+        if (node.isLeaf()) {
+            return;
+        }
+        List<Map.Entry<String, EntityTreeHierarchy.Node>> children = new ArrayList<>();
+        for (Map.Entry<String, EntityTreeHierarchy.Node> child : node.entrySet()) {
+            if (child.getValue() != null) {
+                children.add(child);
+            }
+        }
+        out.writeInt(children.size());
+        for (Map.Entry<String, EntityTreeHierarchy.Node> child : children) {
+            writeString(out, child.getKey());
+            writeNode(out, child.getValue());
+        }
+    }
+
+    private static void writeAspectDef(DataOutputStream out, AspectDef def) throws IOException
+    {
+        writeString(out, def.name());
+        writeUuid(out, def.globalId());
+        out.writeBoolean(def.isReadable());
+        out.writeBoolean(def.isWritable());
+        out.writeBoolean(def.canAddProperties());
+        out.writeBoolean(def.canRemoveProperties());
+        Collection<? extends PropertyDef> propertyDefs = def.propertyDefs();
+        out.writeInt(propertyDefs.size());
+        for (PropertyDef pd : propertyDefs) {
+            writeString(out, pd.name());
+            writeString(out, pd.type().typeCode());
+            out.writeBoolean(pd.hasDefaultValue());
+            writeValue(out, pd.defaultValue());
+            out.writeBoolean(pd.isReadable());
+            out.writeBoolean(pd.isWritable());
+            out.writeBoolean(pd.isNullable());
+            out.writeBoolean(pd.isMultivalued());
+        }
+    }
+
+    private static void writeAspectEntries(DataOutputStream out, AspectMapHierarchy map, Collection<Entity> entities) throws IOException
+    {
+        AspectDef def = map.aspectDef();
+        out.writeInt(entities.size());
+        for (Entity entity : entities) {
+            Aspect aspect = map.get(entity);
+            writeUuid(out, entity.globalId());
+            out.writeBoolean(aspect != null);
+            if (aspect != null) {
+                out.writeInt(def.size());
+                for (PropertyDef pd : def.propertyDefs()) {
+                    writeString(out, pd.name());
+                    writeValue(out, aspect.unsafeReadObj(pd.name()));
+                }
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException
+    {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case Long l -> {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case Integer i -> {
+                out.writeByte(INT);
+                out.writeInt(i);
+            }
+            case Double d -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case Float f -> {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            }
+            case Boolean b -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(b);
+            }
+            case String s -> {
+                out.writeByte(STRING);
+                writeString(out, s);
+            }
+            case BigInteger bi -> {
+                out.writeByte(BIG_INTEGER);
+                writeBytes(out, bi.toByteArray());
+            }
+            case BigDecimal bd -> {
+                out.writeByte(BIG_DECIMAL);
+                out.writeInt(bd.scale());
+                writeBytes(out, bd.unscaledValue().toByteArray());
+            }
+            case ZonedDateTime dt -> {
+                out.writeByte(DATE_TIME);
+                out.writeLong(dt.toEpochSecond());
+                out.writeInt(dt.getNano());
+                writeString(out, dt.getZone().getId());
+            }
+            case URI uri -> {
+                out.writeByte(URI_VALUE);
+                writeString(out, uri.toString());
+            }
+            case UUID uuid -> {
+                out.writeByte(UUID_VALUE);
+                writeUuid(out, uuid);
+            }
+            case byte[] bytes -> {
+                out.writeByte(BYTES);
+                writeBytes(out, bytes);
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(out, element);
+                }
+            }
+            default -> throw new CheapException("Cannot journal a property value of type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException
+    {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void writeNullableUuid(DataOutputStream out, UUID uuid) throws IOException
+    {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            writeUuid(out, uuid);
+        }
+    }
+
+    // ===== Replay =====
+
+    /**
+     * Applies a record to a catalog, creating the catalog if it is null, and any
+     * hierarchies and AspectDefs that it does not have.
+     *
+     * @param in      the record
+     * @param catalog the catalog to apply it to, or null to create it from the record
+     * @param factory the factory used to create the catalog, hierarchies, entities and aspects
+     * @return the catalog
+     * @throws CheapException if the record is malformed or does not fit the catalog
+     */
+    static @NotNull Catalog apply(@NotNull ByteBuffer in, Catalog catalog, @NotNull CheapFactory factory)
+    {
+        try {
+            byte format = in.get();
+            if (format != FORMAT) {
+                throw new CheapException("Unsupported journal record format: " + format);
+            }
+            UUID catalogId = readUuid(in);
+            CatalogSpecies species = CatalogSpecies.valueOf(readString(in));
+            UUID upstream = readNullableUuid(in);
+            if (catalog == null) {
+                catalog = factory.createCatalog(catalogId, species, upstream);
+            } else if (!catalog.globalId().equals(catalogId)) {
+                throw new CheapException("Journal record for catalog " + catalogId + " applied to catalog " + catalog.globalId());
+            }
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                applyHierarchy(in, catalog, factory);
+            }
+            return catalog;
+        } catch (RuntimeException e) {
+            if (e instanceof CheapException) {
+                throw e;
+            }
+            throw new CheapException("Malformed journal record", e);
+        }
+    }
+
+    private static void applyHierarchy(ByteBuffer in, Catalog catalog, CheapFactory factory)
+    {
+        String name = readString(in);
+        HierarchyType type = HierarchyType.fromTypeCode(readString(in));
+        long version = in.getLong();
+        boolean whole = in.get() != 0;
+        switch (type) {
+            case ENTITY_LIST -> {
+                EntityListHierarchy list = (EntityListHierarchy) hierarchy(catalog, name, type,
+                    () -> catalog.createEntityList(name, version));
+                list.clear();
+                int n = in.getInt();
+                for (int i = 0; i < n; i++) {
+                    list.add(readNullableEntity(in, factory));
+                }
+            }
+            case ENTITY_SET -> {
+                EntitySetHierarchy set = (EntitySetHierarchy) hierarchy(catalog, name, type,
+                    () -> catalog.createEntitySet(name, version));
+                if (whole) {
+                    set.clear();
+                } else {
+                    int removed = in.getInt();
+                    for (int i = 0; i < removed; i++) {
+                        set.remove(readEntity(in, factory));
+                    }
+                }
+                int added = in.getInt();
+                for (int i = 0; i < added; i++) {
+                    set.add(readEntity(in, factory));
+                }
+            }
+            case ENTITY_DIR -> {
+                EntityDirectoryHierarchy dir = (EntityDirectoryHierarchy) hierarchy(catalog, name, type,
+                    () -> catalog.createEntityDirectory(name, version));
+                if (whole) {
+                    dir.clear();
+                } else {
+                    int removed = in.getInt();
+                    for (int i = 0; i < removed; i++) {
+                        dir.remove(readString(in));
+                    }
+                }
+                int updated = in.getInt();
+                for (int i = 0; i < updated; i++) {
+                    String key = readString(in);
+                    dir.put(key, readNullableEntity(in, factory));
+                }
+            }
+            case ENTITY_TREE -> {
+                EntityTreeHierarchy tree = (EntityTreeHierarchy) hierarchy(catalog, name, type,
+                    () -> catalog.createEntityTree(name, version));
+                EntityTreeHierarchy.Node root = tree.root();
+                root.clear();
+                root.setValue(readNullableEntity(in, factory));
+                if (in.get() == 0) {
+                    readChildren(in, root, factory);
+                }
+            }
+            case ASPECT_MAP -> {
+                AspectMapHierarchy map;
+                if (whole) {
+                    AspectDef def = readAspectDef(in, factory);
+                    map = (AspectMapHierarchy) hierarchy(catalog, name, type, () -> catalog.createAspectMap(def, version));
+                    map.clear();
+                } else {
+                    map = (AspectMapHierarchy) catalog.hierarchy(name);
+                    if (map == null) {
+                        throw new CheapException("Journal record changes unknown AspectMap " + name);
+                    }
+                    int removed = in.getInt();
+                    for (int i = 0; i < removed; i++) {
+                        map.remove(readEntity(in, factory));
+                    }
+                }
+                int updated = in.getInt();
+                for (int i = 0; i < updated; i++) {
+                    Entity entity = readEntity(in, factory);
+                    if (in.get() == 0) {
+                        map.remove(entity);
+                        continue;
+                    }
+                    Aspect aspect = factory.createObjectMapAspect(entity, map.aspectDef());
+                    int props = in.getInt();
+                    for (int p = 0; p < props; p++) {
+                        String propName = readString(in);
+                        aspect.unsafeWrite(propName, readValue(in));
+                    }
+                    map.put(entity, aspect);
+                }
+            }
+        }
+    }
+
+    private static Hierarchy hierarchy(Catalog catalog, String name, HierarchyType type, Supplier<Hierarchy> create)
+    {
+        Hierarchy hierarchy = catalog.hierarchy(name);
+        if (hierarchy == null) {
+            return create.get();
+        }
+        if (hierarchy.type() != type) {
+            throw new CheapException("Journal record for " + type + " " + name + " but the catalog's is a " + hierarchy.type());
+        }
+        return hierarchy;
+    }
+
+    private static void readChildren(ByteBuffer in, EntityTreeHierarchy.Node parent, CheapFactory factory)
+    {
+        int n = in.getInt();
+        for (int i = 0; i < n; i++) {
+            String key = readString(in);
+            Entity value = readNullableEntity(in, factory);
+            if (in.get() != 0) {
+                parent.put(key, factory.createTreeLeafNode(value, parent));
+            } else {
+                EntityTreeHierarchy.Node child = factory.createTreeNode(value, parent);
+                parent.put(key, child);
+                readChildren(in, child, factory);
+            }
+        }
+    }
+
+    private static AspectDef readAspectDef(ByteBuffer in, CheapFactory factory)
+    {
+        String name = readString(in);
+        UUID id = readUuid(in);
+        boolean isReadable = in.get() != 0;
+        boolean isWritable = in.get() != 0;
+        boolean canAddProperties = in.get() != 0;
+        boolean canRemoveProperties = in.get() != 0;
+        int n = in.getInt();
+        Map<String, PropertyDef> propertyDefs = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            String propName = readString(in);
+            PropertyType type = PropertyType.fromTypeCode(readString(in));
+            boolean hasDefaultValue = in.get() != 0;
+            Object defaultValue = readValue(in);
+            boolean propReadable = in.get() != 0;
+            boolean propWritable = in.get() != 0;
+            boolean isNullable = in.get() != 0;
+            boolean isMultivalued = in.get() != 0;
+            propertyDefs.put(propName, factory.createPropertyDef(propName, type, defaultValue, hasDefaultValue,
+                propReadable, propWritable, isNullable, isMultivalued));
+        }
+        return factory.createFullAspectDef(name, id, propertyDefs, isReadable, isWritable, canAddProperties,
+            canRemoveProperties);
+    }
+
+    private static Object readValue(ByteBuffer in)
+    {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case LONG -> in.getLong();
+            case INT -> in.getInt();
+            case DOUBLE -> in.getDouble();
+            case FLOAT -> in.getFloat();
+            case BOOLEAN -> in.get() != 0;
+            case STRING -> readString(in);
+            case BIG_INTEGER -> new BigInteger(readBytes(in));
+            case BIG_DECIMAL -> {
+                int scale = in.getInt();
+                yield new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case DATE_TIME -> {
+                Instant instant = Instant.ofEpochSecond(in.getLong(), in.getInt());
+                yield ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in)));
+            }
+            case URI_VALUE -> URI.create(readString(in));
+            case UUID_VALUE -> readUuid(in);
+            case BYTES -> readBytes(in);
+            case LIST -> {
+                int n = in.getInt();
+                List<Object> list = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            default -> throw new CheapException("Unknown value tag in journal record: " + tag);
+        };
+    }
+
+    private static String readString(ByteBuffer in)
+    {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in)
+    {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static UUID readUuid(ByteBuffer in)
+    {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static UUID readNullableUuid(ByteBuffer in)
+    {
+        return in.get() != 0 ? readUuid(in) : null;
+    }
+
+    private static Entity readEntity(ByteBuffer in, CheapFactory factory)
+    {
+        return factory.getOrRegisterNewEntity(readUuid(in));
+    }
+
+    private static Entity readNullableEntity(ByteBuffer in, CheapFactory factory)
+    {
+        UUID id = readNullableUuid(in);
+        return id != null ? factory.getOrRegisterNewEntity(id) : null;
+    }
+}
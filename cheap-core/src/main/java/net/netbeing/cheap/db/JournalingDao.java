@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.db.JournalCodec.HierarchyChanges;
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CheapDao decorator that gives each catalog a write-ahead journal, so that saves are
+ * acknowledged once appended to a local file rather than after a database transaction.
+ *
+ * <p>{@link #saveChanges} takes the changes recorded by the catalog's hierarchies,
+ * appends them to the catalog's {@link CatalogJournal} as one record, and returns once
+ * the record is durable; concurrent saves share fsyncs. The journaled changes are
+ * written to the delegate DAO at the next checkpoint: when the journal reaches the
+ * checkpoint size, when {@link #checkpoint} is called, or when the whole catalog is
+ * saved with {@link #saveCatalog}. A checkpoint starts a new journal segment, writes
+ * the changes with the delegate's {@code saveChanges}, and then deletes the older
+ * segments. If the delegate fails, the segments are kept and the changes are journaled
+ * again by the next save; a checkpoint triggered by size only logs the failure, since
+ * the save itself is already durable.
+ *
+ * <p>{@link #loadCatalog} loads the catalog from the delegate and replays its journal
+ * on top, so that changes acknowledged since the last checkpoint survive a crash. A
+ * record torn by the crash is discarded. A catalog that was never checkpointed is
+ * recreated from its journal alone.
+ *
+ * <p>Each catalog's journal is in a subdirectory named by its global id. Hierarchies
+ * that don't track their changes are journaled whole on every save. Removing a
+ * hierarchy is not journaled; save the whole catalog afterwards. Methods that take a
+ * Connection are passed straight to the delegate, since the caller manages that
+ * transaction.
+ *
+ * @see CatalogJournal
+ * @see CheapDao
+ */
+public class JournalingDao implements CheapDao
+{
+    /** Default journal size that triggers a checkpoint. */
+    public static final long DEFAULT_CHECKPOINT_SIZE = 256L << 20;
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalingDao.class);
+
+    private final CheapDao delegate;
+    private final Path directory;
+    private final CheapFactory factory;
+    private final long segmentSize;
+    private final long checkpointSize;
+
+    /** Open journals, by catalog id. Guarded by itself. */
+    private final Map<UUID, JournaledCatalog> journals = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a journaling DAO with the default segment and checkpoint sizes.
+     *
+     * @param delegate  the DAO that checkpoints are written to
+     * @param directory the directory holding the catalogs' journals
+     * @param factory   the factory used to create entities and hierarchies during replay
+     */
+    public JournalingDao(@NotNull CheapDao delegate, @NotNull Path directory, @NotNull CheapFactory factory)
+    {
+        this(delegate, directory, factory, CatalogJournal.DEFAULT_SEGMENT_SIZE, DEFAULT_CHECKPOINT_SIZE);
+    }
+
+    /**
+     * Creates a journaling DAO.
+     *
+     * @param delegate       the DAO that checkpoints are written to
+     * @param directory      the directory holding the catalogs' journals
+     * @param factory        the factory used to create entities and hierarchies during replay
+     * @param segmentSize    the size at which a journal segment is closed and a new one started
+     * @param checkpointSize the journal size that triggers a checkpoint
+     * @throws IllegalArgumentException if a size is not positive, or the segment size exceeds {@link CatalogJournal#MAX_SEGMENT_SIZE}
+     */
+    public JournalingDao(@NotNull CheapDao delegate, @NotNull Path directory, @NotNull CheapFactory factory,
+                         long segmentSize, long checkpointSize)
+    {
+        if (segmentSize <= 0 || segmentSize > CatalogJournal.MAX_SEGMENT_SIZE || checkpointSize <= 0) {
+            throw new IllegalArgumentException("Segment and checkpoint sizes must be positive, and segments at most "
+                + CatalogJournal.MAX_SEGMENT_SIZE + " bytes.");
+        }
+        this.delegate = delegate;
+        this.directory = directory;
+        this.factory = factory;
+        this.segmentSize = segmentSize;
+        this.checkpointSize = checkpointSize;
+    }
+
+    /**
+     * Returns the DAO that checkpoints are written to.
+     *
+     * @return the delegate DAO
+     */
+    public @NotNull CheapDao getDelegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Returns the directory holding the catalogs' journals.
+     *
+     * @return the journal directory
+     */
+    public @NotNull Path getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the size of a catalog's journal, which is the amount of journaled data
+     * not yet checkpointed plus any segments that could not be deleted.
+     *
+     * @param catalogId the global id of the catalog
+     * @return the journal size in bytes, or 0 if the catalog has no journal
+     * @throws SQLException if the journal cannot be opened
+     */
+    public long journalSize(@NotNull UUID catalogId) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalogId, false);
+        return jc != null ? jc.journal.size() : 0L;
+    }
+
+    // ===== Journaled writes =====
+
+    /**
+     * Appends the changes to the catalog to its journal, and returns once they are
+     * durable. Triggers a checkpoint if the journal has reached the checkpoint size.
+     *
+     * @param catalog the catalog to save
+     * @throws SQLException if the journal cannot be written
+     * @throws IllegalStateException if this DAO has been closed
+     */
+    @Override
+    public void saveChanges(@NotNull Catalog catalog) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalog.globalId(), true);
+        long position;
+        jc.lock.lock();
+        try {
+            List<HierarchyChanges> drained = new ArrayList<>();
+            for (Hierarchy hierarchy : catalog.hierarchies()) {
+                ChangeSet<?> live = hierarchy.changes();
+                if (live == null) {
+                    drained.add(new HierarchyChanges(hierarchy, null));
+                } else if (!live.isEmpty()) {
+                    drained.add(new HierarchyChanges(hierarchy, live.drain()));
+                }
+            }
+            // An empty journal gets a record even so, so that the catalog can be recreated
+            if (drained.isEmpty() && jc.journal.size() > 0) {
+                return;
+            }
+            try {
+                position = jc.journal.append(JournalCodec.encode(catalog, drained));
+            } catch (IOException | RuntimeException e) {
+                for (HierarchyChanges hc : drained) {
+                    if (hc.changes() != null) {
+                        merge(hc.hierarchy().changes(), hc.changes());
+                    }
+                }
+                if (e instanceof IOException) {
+                    throw new SQLException("Failed to append to journal " + jc.journal.directory(), e);
+                }
+                throw (RuntimeException) e;
+            }
+            for (HierarchyChanges hc : drained) {
+                if (hc.changes() != null) {
+                    jc.accumulate(hc.hierarchy().name(), hc.changes());
+                }
+            }
+        } finally {
+            jc.lock.unlock();
+        }
+
+        try {
+            jc.journal.sync(position);
+        } catch (IOException e) {
+            throw new SQLException("Failed to sync journal " + jc.journal.directory(), e);
+        }
+
+        if (jc.journal.size() >= jc.checkpointAt) {
+            try {
+                checkpoint(jc, catalog);
+            } catch (SQLException | RuntimeException e) {
+                logger.warn("Journal checkpoint of catalog {} failed; will retry", catalog.globalId(), e);
+            }
+        }
+    }
+
+    /**
+     * Records the given entities as changed in their AspectMaps, so aspects modified
+     * in place are journaled too, and then saves the catalog with
+     * {@link #saveChanges(Catalog)}.
+     *
+     * @param catalog the catalog containing the aspects
+     * @param aspects the entities whose aspects should be saved, by AspectDef
+     * @throws SQLException if the journal cannot be written
+     */
+    @Override
+    public void saveAspects(@NotNull Catalog catalog, @NotNull Map<AspectDef, ? extends Collection<Entity>> aspects) throws SQLException
+    {
+        for (Map.Entry<AspectDef, ? extends Collection<Entity>> entry : aspects.entrySet()) {
+            AspectMapHierarchy aspectMap = catalog.aspects(entry.getKey());
+            ChangeSet<Entity> changes = aspectMap != null ? aspectMap.changes() : null;
+            if (changes != null) {
+                for (Entity entity : entry.getValue()) {
+                    changes.update(entity);
+                }
+            }
+        }
+        saveChanges(catalog);
+    }
+
+    /**
+     * Saves the whole catalog to the delegate, and deletes the journal segments it
+     * supersedes.
+     *
+     * @param catalog the catalog to save
+     * @throws SQLException if the delegate fails, or the journal cannot be rolled
+     */
+    @Override
+    public void saveCatalog(@NotNull Catalog catalog) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalog.globalId(), false);
+        if (jc == null) {
+            delegate.saveCatalog(catalog);
+            return;
+        }
+        jc.lock.lock();
+        try {
+            long mark = jc.roll();
+            delegate.saveCatalog(catalog);
+            jc.unsaved.clear();
+            jc.journal.truncate(mark);
+            jc.checkpointAt = checkpointSize;
+        } finally {
+            jc.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the changes journaled for the catalog to the delegate, along with any
+     * changes not yet journaled, and deletes the journal segments they supersede.
+     *
+     * @param catalog the catalog to checkpoint
+     * @throws SQLException if the delegate fails, or the journal cannot be rolled
+     */
+    public void checkpoint(@NotNull Catalog catalog) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalog.globalId(), false);
+        if (jc == null) {
+            delegate.saveChanges(catalog);
+            return;
+        }
+        checkpoint(jc, catalog);
+    }
+
+    private void checkpoint(JournaledCatalog jc, Catalog catalog) throws SQLException
+    {
+        jc.lock.lock();
+        try {
+            long mark = jc.roll();
+            for (Map.Entry<String, ChangeSet<?>> entry : jc.unsaved.entrySet()) {
+                Hierarchy hierarchy = catalog.hierarchy(entry.getKey());
+                ChangeSet<?> live = hierarchy != null ? hierarchy.changes() : null;
+                if (live != null) {
+                    merge(live, entry.getValue());
+                }
+            }
+            // Changes the delegate fails to write are left in the hierarchies, and journaled by the next save
+            jc.unsaved.clear();
+            try {
+                delegate.saveChanges(catalog);
+            } catch (SQLException | RuntimeException e) {
+                jc.checkpointAt = jc.journal.size() + checkpointSize;
+                throw e;
+            }
+            jc.journal.truncate(mark);
+            jc.checkpointAt = checkpointSize;
+        } finally {
+            jc.lock.unlock();
+        }
+    }
+
+    // ===== Recovery =====
+
+    /**
+     * Loads the catalog from the delegate, then replays its journal on top.
+     */
+    @Override
+    public Catalog loadCatalog(@NotNull UUID catalogId) throws SQLException
+    {
+        return recover(catalogId, delegate.loadCatalog(catalogId));
+    }
+
+    /**
+     * Loads the catalog from the delegate, then replays its journal on top.
+     */
+    @Override
+    public Catalog loadCatalogWithConnection(@NotNull Connection conn, @NotNull UUID catalogId) throws SQLException
+    {
+        return recover(catalogId, delegate.loadCatalogWithConnection(conn, catalogId));
+    }
+
+    private Catalog recover(UUID catalogId, Catalog catalog) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalogId, false);
+        if (jc == null) {
+            return catalog;
+        }
+        jc.lock.lock();
+        try {
+            Catalog[] replayed = { catalog };
+            jc.journal.replay(record -> replayed[0] = JournalCodec.apply(record, replayed[0], factory));
+            catalog = replayed[0];
+            jc.unsaved.clear();
+            if (catalog != null) {
+                // Whatever replay changed is journaled but not checkpointed
+                for (Hierarchy hierarchy : catalog.hierarchies()) {
+                    ChangeSet<?> live = hierarchy.changes();
+                    if (live != null && !live.isEmpty()) {
+                        jc.unsaved.put(hierarchy.name(), live.drain());
+                    }
+                }
+            }
+            return catalog;
+        } catch (IOException e) {
+            throw new SQLException("Failed to replay journal " + jc.journal.directory(), e);
+        } finally {
+            jc.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean catalogExists(@NotNull UUID catalogId) throws SQLException
+    {
+        return delegate.catalogExists(catalogId) || journalSize(catalogId) > 0;
+    }
+
+    /**
+     * Deletes the catalog's journal, then the catalog.
+     */
+    @Override
+    public boolean deleteCatalog(@NotNull UUID catalogId) throws SQLException
+    {
+        JournaledCatalog jc = journalFor(catalogId, false);
+        boolean journaled = false;
+        if (jc != null) {
+            jc.lock.lock();
+            try {
+                journaled = jc.journal.size() > 0;
+                jc.journal.delete();
+            } catch (IOException e) {
+                throw new SQLException("Failed to delete journal " + jc.journal.directory(), e);
+            } finally {
+                synchronized (journals) {
+                    journals.remove(catalogId);
+                }
+                jc.lock.unlock();
+            }
+        }
+        return delegate.deleteCatalog(catalogId) || journaled;
+    }
+
+    /**
+     * Closes the journals and the delegate. Journals are not checkpointed; their
+     * changes are replayed when the catalogs are next loaded.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (journals) {
+            closed = true;
+            for (JournaledCatalog jc : journals.values()) {
+                try {
+                    jc.journal.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close journal {}", jc.journal.directory(), e);
+                }
+            }
+            journals.clear();
+        }
+        delegate.close();
+    }
+
+    private JournaledCatalog journalFor(UUID catalogId, boolean create) throws SQLException
+    {
+        synchronized (journals) {
+            if (closed) {
+                throw new IllegalStateException("Journaling DAO is closed");
+            }
+            JournaledCatalog jc = journals.get(catalogId);
+            if (jc == null) {
+                Path dir = directory.resolve(catalogId.toString());
+                if (!create && !Files.isDirectory(dir)) {
+                    return null;
+                }
+                try {
+                    jc = new JournaledCatalog(CatalogJournal.open(dir, segmentSize), checkpointSize);
+                } catch (IOException e) {
+                    throw new SQLException("Failed to open journal " + dir, e);
+                }
+                journals.put(catalogId, jc);
+            }
+            return jc;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> void merge(ChangeSet<K> into, ChangeSet<?> older)
+    {
+        into.restore((ChangeSet<K>) older);
+    }
+
+    /**
+     * A catalog's journal, and the changes journaled since its last checkpoint.
+     */
+    private static final class JournaledCatalog
+    {
+        private final CatalogJournal journal;
+        /** Serializes appends and checkpoints of the catalog; syncs happen outside it. */
+        private final ReentrantLock lock = new ReentrantLock();
+        /** Changes journaled but not checkpointed, by hierarchy name. */
+        private final Map<String, ChangeSet<?>> unsaved = new LinkedHashMap<>();
+        /** Journal size at which the next checkpoint is due. */
+        private long checkpointAt;
+
+        JournaledCatalog(CatalogJournal journal, long checkpointAt)
+        {
+            this.journal = journal;
+            this.checkpointAt = checkpointAt;
+        }
+
+        /** Merges newly journaled changes with older ones for the same hierarchy. */
+        void accumulate(String hierarchyName, ChangeSet<?> newer)
+        {
+            ChangeSet<?> older = unsaved.get(hierarchyName);
+            if (older != null) {
+                merge(newer, older);
+            }
+            unsaved.put(hierarchyName, newer);
+        }
+
+        /** Starts a new segment, returning the mark before which segments are superseded. */
+        long roll() throws SQLException
+        {
+            try {
+                return journal.checkpoint();
+            } catch (IOException e) {
+                throw new SQLException("Failed to roll journal " + journal.directory(), e);
+            }
+        }
+    }
+
+    // ===== Pass-through =====
+
+    @Override
+    public void addAspectTableMapping(@NotNull AspectTableMapping mapping)
+    {
+        delegate.addAspectTableMapping(mapping);
+    }
+
+    @Override
+    public AspectTableMapping getAspectTableMapping(@NotNull String aspectDefName)
+    {
+        return delegate.getAspectTableMapping(aspectDefName);
+    }
+
+    @Override
+    public void createTable(@NotNull AspectTableMapping mapping) throws SQLException
+    {
+        delegate.createTable(mapping);
+    }
+
+    @Override
+    public String mapPropertyTypeToSqlType(@NotNull PropertyType type)
+    {
+        return delegate.mapPropertyTypeToSqlType(type);
+    }
+
+    @Override
+    public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) throws SQLException
+    {
+        delegate.saveCatalog(conn, catalog);
+    }
+
+    @Override
+    public void saveAspectDef(@NotNull Connection conn, @NotNull AspectDef aspectDef) throws SQLException
+    {
+        delegate.saveAspectDef(conn, aspectDef);
+    }
+
+    @Override
+    public void saveHierarchy(@NotNull Connection conn, @NotNull Hierarchy hierarchy) throws SQLException
+    {
+        delegate.saveHierarchy(conn, hierarchy);
+    }
+
+    @Override
+    public Hierarchy createAndLoadHierarchy(@NotNull Connection conn, @NotNull Catalog catalog, @NotNull HierarchyType type, @NotNull String hierarchyName, long version) throws SQLException
+    {
+        return delegate.createAndLoadHierarchy(conn, catalog, type, hierarchyName, version);
+    }
+
+    @Override
+    public Aspect loadAspect(@NotNull Connection conn, @NotNull Entity entity, @NotNull AspectDef aspectDef, @NotNull Catalog catalog) throws SQLException
+    {
+        return delegate.loadAspect(conn, entity, aspectDef, catalog);
+    }
+
+    @Override
+    public AspectDef loadAspectDef(@NotNull Connection conn, @NotNull String aspectDefName) throws SQLException
+    {
+        return delegate.loadAspectDef(conn, aspectDefName);
+    }
+}
@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CheapDao decorator that makes {@link CatalogSpecies#CACHE} catalogs write-behind.
+ * Saves of CACHE catalogs return as soon as they are queued; the in-memory catalog
+ * is already up to date, and a background thread writes the queued changes to the
+ * delegate DAO in batches. Saves of all other species go straight to the delegate.
+ *
+ * <p>Queued writes are coalesced: repeated saves of the same catalog, or of the same
+ * (entity, AspectDef) through {@link #saveAspects}, are written once. Saves through
+ * {@link #saveChanges} are coalesced too; the hierarchies keep track of what changed,
+ * so the delegate writes everything changed since the last flush in one call. A batch is
+ * flushed when the number of distinct queued writes reaches the batch size, or when
+ * the oldest queued write reaches the maximum delay. Each catalog in a batch is
+ * written with one call to the delegate, so it costs one transaction however many
+ * times it was saved.
+ *
+ * <p>The queue is bounded: when it holds the maximum number of distinct writes,
+ * saves block until the flusher takes a batch. {@link #flush()} is a barrier that
+ * waits until every write queued before it has been written. Loading a catalog or
+ * checking whether it exists flushes first, so reads see earlier writes. If a batch
+ * fails, its writes are re-queued and retried after the maximum delay, and
+ * {@code flush()} reports the failure.
+ *
+ * <p>Methods that take a Connection are passed straight to the delegate, since the
+ * caller manages that transaction. {@link #close()} flushes and stops the flusher.
+ *
+ * @see CheapDao
+ */
+public class WriteBehindDao implements CheapDao
+{
+    /** Default number of distinct queued writes that triggers a flush. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Default maximum number of distinct queued writes before saves block. */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    /** Default maximum time a write stays queued before it is flushed. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindDao.class);
+
+    private final CheapDao delegate;
+    private final int batchSize;
+    private final int maxPending;
+    private final long maxDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signalled when there is work for the flusher. */
+    private final Condition workAvailable = lock.newCondition();
+    /** Signalled when the flusher takes or finishes a batch. */
+    private final Condition progress = lock.newCondition();
+
+    /** Queued writes, by catalog id. */
+    private Map<UUID, PendingCatalog> pending = new LinkedHashMap<>();
+    /** Number of distinct writes in {@link #pending}. */
+    private int pendingWrites;
+    /** When the oldest write in {@link #pending} was queued. */
+    private long oldestPendingNanos;
+    /** Sequence number of the last write queued. */
+    private long enqueued;
+    /** Sequence number of the last write known to be written. */
+    private long written;
+    private boolean flushRequested;
+    /** Whether the flusher is writing a batch. */
+    private boolean writing;
+    private boolean closed;
+    /** The most recent write failure, and the number of failures so far. */
+    private SQLException failure;
+    private long failures;
+
+    private final Thread flusher;
+
+    /**
+     * Creates a write-behind DAO with the default batch size, queue bound and delay.
+     *
+     * @param delegate the DAO to write to
+     */
+    public WriteBehindDao(@NotNull CheapDao delegate)
+    {
+        this(delegate, DEFAULT_BATCH_SIZE, DEFAULT_MAX_PENDING, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a write-behind DAO.
+     *
+     * @param delegate   the DAO to write to
+     * @param batchSize  number of distinct queued writes that triggers a flush
+     * @param maxPending maximum number of distinct queued writes before saves block
+     * @param maxDelay   maximum time a write stays queued before it is flushed
+     * @throws IllegalArgumentException if a size is not positive, or the batch size exceeds the queue bound
+     */
+    public WriteBehindDao(@NotNull CheapDao delegate, int batchSize, int maxPending, @NotNull Duration maxDelay)
+    {
+        if (batchSize <= 0 || maxPending < batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive and no larger than the queue bound.");
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.flusher = Thread.ofPlatform().name("cheap-write-behind").daemon().start(this::runFlusher);
+    }
+
+    /**
+     * Returns the DAO that this one writes to.
+     *
+     * @return the delegate DAO
+     */
+    public @NotNull CheapDao getDelegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of distinct writes currently queued, excluding any batch
+     * being written.
+     *
+     * @return the number of queued writes
+     */
+    public int pendingWrites()
+    {
+        lock.lock();
+        try {
+            return pendingWrites;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ===== Write-behind =====
+
+    /**
+     * Queues a CACHE catalog to be saved, or saves any other catalog immediately.
+     *
+     * @param catalog the catalog to save
+     * @throws SQLException if an immediate save fails, or the wait for queue space is interrupted
+     * @throws IllegalStateException if this DAO has been closed
+     */
+    @Override
+    public void saveCatalog(@NotNull Catalog catalog) throws SQLException
+    {
+        if (catalog.species() != CatalogSpecies.CACHE) {
+            delegate.saveCatalog(catalog);
+            return;
+        }
+        lock.lock();
+        try {
+            awaitRoom();
+            PendingCatalog pc = pendingFor(catalog);
+            if (!pc.whole) {
+                pendingWrites -= pc.size() - 1;
+                pc.aspects.clear();
+                pc.changes = false;
+                pc.whole = true;
+            }
+            enqueued++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues aspects of a CACHE catalog to be saved, or saves aspects of any other
+     * catalog immediately. Queued aspects are coalesced by (entity, AspectDef), and
+     * are subsumed by a queued save of the whole catalog.
+     *
+     * @param catalog the catalog containing the aspects
+     * @param aspects the entities whose aspects should be saved, by AspectDef
+     * @throws SQLException if an immediate save fails, or the wait for queue space is interrupted
+     * @throws IllegalStateException if this DAO has been closed
+     */
+    @Override
+    public void saveAspects(@NotNull Catalog catalog, @NotNull Map<AspectDef, ? extends Collection<Entity>> aspects) throws SQLException
+    {
+        if (catalog.species() != CatalogSpecies.CACHE) {
+            delegate.saveAspects(catalog, aspects);
+            return;
+        }
+        lock.lock();
+        try {
+            awaitRoom();
+            PendingCatalog pc = pendingFor(catalog);
+            if (!pc.whole) {
+                for (Map.Entry<AspectDef, ? extends Collection<Entity>> e : aspects.entrySet()) {
+                    Set<Entity> entities = pc.aspects.computeIfAbsent(e.getKey(), k -> new LinkedHashSet<>());
+                    for (Entity entity : e.getValue()) {
+                        if (entities.add(entity)) {
+                            pendingWrites++;
+                        }
+                    }
+                }
+            }
+            enqueued++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the changes to a CACHE catalog to be saved, or saves the changes to any
+     * other catalog immediately. Queued changes are subsumed by a queued save of the
+     * whole catalog.
+     *
+     * @param catalog the catalog to save
+     * @throws SQLException if an immediate save fails, or the wait for queue space is interrupted
+     * @throws IllegalStateException if this DAO has been closed
+     */
+    @Override
+    public void saveChanges(@NotNull Catalog catalog) throws SQLException
+    {
+        if (catalog.species() != CatalogSpecies.CACHE) {
+            delegate.saveChanges(catalog);
+            return;
+        }
+        lock.lock();
+        try {
+            awaitRoom();
+            PendingCatalog pc = pendingFor(catalog);
+            if (!pc.whole) {
+                pc.changes = true;
+            }
+            enqueued++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every write queued before this call has been written.
+     *
+     * @throws SQLException if writing failed, or the wait is interrupted
+     */
+    public void flush() throws SQLException
+    {
+        lock.lock();
+        try {
+            long target = enqueued;
+            if (written >= target) {
+                return;
+            }
+            long seenFailures = failures;
+            flushRequested = true;
+            workAvailable.signal();
+            while (written < target) {
+                if (failures != seenFailures) {
+                    throw new SQLException("Write-behind flush failed: " + failure.getMessage(), failure);
+                }
+                if (closed && !flusher.isAlive()) {
+                    throw new SQLException("Write-behind DAO closed with unwritten changes");
+                }
+                progress.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while flushing write-behind queue", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes all queued writes, stops the flusher, and closes the delegate.
+     * Failures are logged, since close cannot report them.
+     */
+    @Override
+    public void close()
+    {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    private void awaitRoom() throws SQLException
+    {
+        if (closed) {
+            throw new IllegalStateException("Write-behind DAO is closed");
+        }
+        try {
+            while (pendingWrites >= maxPending) {
+                workAvailable.signal();
+                progress.await();
+                if (closed) {
+                    throw new IllegalStateException("Write-behind DAO is closed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for write-behind queue space", e);
+        }
+    }
+
+    private PendingCatalog pendingFor(Catalog catalog)
+    {
+        if (pending.isEmpty()) {
+            oldestPendingNanos = System.nanoTime();
+            // Wake the flusher so that it starts timing the delay.
+            workAvailable.signal();
+        }
+        PendingCatalog pc = pending.get(catalog.globalId());
+        if (pc == null) {
+            pc = new PendingCatalog(catalog);
+            pending.put(catalog.globalId(), pc);
+            pendingWrites++;
+        }
+        if (pendingWrites >= batchSize) {
+            workAvailable.signal();
+        }
+        return pc;
+    }
+
+    private void runFlusher()
+    {
+        while (true) {
+            Map<UUID, PendingCatalog> batch;
+            long batchSeq;
+            lock.lock();
+            try {
+                if (!awaitBatch()) {
+                    return;
+                }
+                batch = pending;
+                batchSeq = enqueued;
+                pending = new LinkedHashMap<>();
+                pendingWrites = 0;
+                flushRequested = false;
+                writing = true;
+                progress.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            SQLException error = write(batch);
+
+            lock.lock();
+            try {
+                writing = false;
+                if (error == null) {
+                    written = Math.max(written, batchSeq);
+                } else {
+                    failure = error;
+                    failures++;
+                    if (closed) {
+                        logger.error("Discarding {} unwritten catalog(s) on close", batch.size(), error);
+                    } else {
+                        logger.warn("Write-behind flush failed; will retry", error);
+                        requeue(batch);
+                    }
+                }
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until a batch should be flushed. Returns false once closed with nothing queued.
+     */
+    private boolean awaitBatch() throws InterruptedException
+    {
+        while (true) {
+            if (pending.isEmpty()) {
+                if (closed) {
+                    return false;
+                }
+                workAvailable.await();
+                continue;
+            }
+            if (closed || flushRequested || pendingWrites >= batchSize) {
+                return true;
+            }
+            long wait = oldestPendingNanos + maxDelayNanos - System.nanoTime();
+            if (wait <= 0) {
+                return true;
+            }
+            workAvailable.awaitNanos(wait);
+        }
+    }
+
+    private SQLException write(Map<UUID, PendingCatalog> batch)
+    {
+        try {
+            for (PendingCatalog pc : batch.values()) {
+                if (pc.whole) {
+                    delegate.saveCatalog(pc.catalog);
+                    continue;
+                }
+                if (!pc.aspects.isEmpty()) {
+                    delegate.saveAspects(pc.catalog, pc.aspects);
+                }
+                if (pc.changes) {
+                    delegate.saveChanges(pc.catalog);
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            return e;
+        } catch (RuntimeException e) {
+            return new SQLException("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * Puts a failed batch back ahead of anything queued since, merging duplicates.
+     */
+    private void requeue(Map<UUID, PendingCatalog> batch)
+    {
+        Map<UUID, PendingCatalog> merged = new LinkedHashMap<>(batch);
+        for (PendingCatalog newer : pending.values()) {
+            PendingCatalog older = merged.get(newer.catalog.globalId());
+            if (older == null) {
+                merged.put(newer.catalog.globalId(), newer);
+            } else if (newer.whole) {
+                older.whole = true;
+                older.aspects.clear();
+                older.changes = false;
+            } else if (!older.whole) {
+                newer.aspects.forEach((def, entities) ->
+                    older.aspects.computeIfAbsent(def, k -> new LinkedHashSet<>()).addAll(entities));
+                older.changes |= newer.changes;
+            }
+        }
+        pending = merged;
+        pendingWrites = 0;
+        for (PendingCatalog pc : merged.values()) {
+            pendingWrites += pc.size();
+        }
+        oldestPendingNanos = System.nanoTime();
+    }
+
+    /**
+     * The queued writes for one catalog: either the whole catalog, or a set of aspects
+     * and possibly its recorded changes.
+     */
+    private static final class PendingCatalog
+    {
+        private final Catalog catalog;
+        private final Map<AspectDef, Set<Entity>> aspects = new LinkedHashMap<>();
+        private boolean whole;
+        private boolean changes;
+
+        PendingCatalog(Catalog catalog)
+        {
+            this.catalog = catalog;
+        }
+
+        /** Number of distinct writes, counting the catalog itself as one. */
+        int size()
+        {
+            int n = 1;
+            if (!whole) {
+                for (Set<Entity> entities : aspects.values()) {
+                    n += entities.size();
+                }
+            }
+            return n;
+        }
+    }
+
+    // ===== Reads: flush first so queued writes are visible =====
+
+    @Override
+    public boolean catalogExists(@NotNull UUID catalogId) throws SQLException
+    {
+        flush();
+        return delegate.catalogExists(catalogId);
+    }
+
+    @Override
+    public Catalog loadCatalog(@NotNull UUID catalogId) throws SQLException
+    {
+        flush();
+        return delegate.loadCatalog(catalogId);
+    }
+
+    @Override
+    public Catalog loadCatalogWithConnection(@NotNull Connection conn, @NotNull UUID catalogId) throws SQLException
+    {
+        flush();
+        return delegate.loadCatalogWithConnection(conn, catalogId);
+    }
+
+    /**
+     * Discards any queued writes for the catalog, waits for a batch being written to
+     * land so that it cannot recreate the catalog afterwards, then deletes it. The
+     * discarded writes count as written, so {@link #flush()} does not wait for them.
+     */
+    @Override
+    public boolean deleteCatalog(@NotNull UUID catalogId) throws SQLException
+    {
+        lock.lock();
+        try {
+            while (writing) {
+                progress.await();
+            }
+            PendingCatalog pc = pending.remove(catalogId);
+            if (pc != null) {
+                pendingWrites -= pc.size();
+            }
+            if (pending.isEmpty()) {
+                written = enqueued;
+            }
+            progress.signalAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for write-behind batch", e);
+        } finally {
+            lock.unlock();
+        }
+        return delegate.deleteCatalog(catalogId);
+    }
+
+    // ===== Pass-through =====
+
+    @Override
+    public void addAspectTableMapping(@NotNull AspectTableMapping mapping)
+    {
+        delegate.addAspectTableMapping(mapping);
+    }
+
+    @Override
+    public AspectTableMapping getAspectTableMapping(@NotNull String aspectDefName)
+    {
+        return delegate.getAspectTableMapping(aspectDefName);
+    }
+
+    @Override
+    public void createTable(@NotNull AspectTableMapping mapping) throws SQLException
+    {
+        delegate.createTable(mapping);
+    }
+
+    @Override
+    public String mapPropertyTypeToSqlType(@NotNull PropertyType type)
+    {
+        return delegate.mapPropertyTypeToSqlType(type);
+    }
+
+    @Override
+    public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) throws SQLException
+    {
+        delegate.saveCatalog(conn, catalog);
+    }
+
+    @Override
+    public void saveAspectDef(@NotNull Connection conn, @NotNull AspectDef aspectDef) throws SQLException
+    {
+        delegate.saveAspectDef(conn, aspectDef);
+    }
+
+    @Override
+    public void saveHierarchy(@NotNull Connection conn, @NotNull Hierarchy hierarchy) throws SQLException
+    {
+        delegate.saveHierarchy(conn, hierarchy);
+    }
+
+    @Override
+    public Hierarchy createAndLoadHierarchy(@NotNull Connection conn, @NotNull Catalog catalog, @NotNull HierarchyType type, @NotNull String hierarchyName, long version) throws SQLException
+    {
+        return delegate.createAndLoadHierarchy(conn, catalog, type, hierarchyName, version);
+    }
+
+    @Override
+    public Aspect loadAspect(@NotNull Connection conn, @NotNull Entity entity, @NotNull AspectDef aspectDef, @NotNull Catalog catalog) throws SQLException
+    {
+        return delegate.loadAspect(conn, entity, aspectDef, catalog);
+    }
+
+    @Override
+    public AspectDef loadAspectDef(@NotNull Connection conn, @NotNull String aspectDefName) throws SQLException
+    {
+        return delegate.loadAspectDef(conn, aspectDefName);
+    }
+}
@@ -19,9 +19,11 @@ package net.netbeing.cheap.impl.basic;
 import net.netbeing.cheap.model.Aspect;
 import net.netbeing.cheap.model.AspectDef;
 import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Abstract base class for Aspect implementations providing common functionality.
@@ -43,6 +45,9 @@ public abstract class AspectBaseImpl implements Aspect
     /** The aspect definition describing this aspect's structure. */
     protected final AspectDef def;
 
+    /** Notified after each in-place change to this aspect, or null. */
+    private Consumer<Aspect> watcher;
+
     /**
      * Creates a new AspectBaseImpl with the specified entity and aspect definition.
      *
@@ -94,4 +99,65 @@ public abstract class AspectBaseImpl implements Aspect
     {
         return def;
     }
+
+    /**
+     * Registers the one watcher to be notified after each in-place change to this
+     * aspect. Used by maps that keep hashes of their aspects current.
+     *
+     * @param watcher the watcher to register
+     * @return true if the watcher is now registered, false if another one already is
+     */
+    boolean watch(@NotNull Consumer<Aspect> watcher)
+    {
+        if (this.watcher != null && this.watcher != watcher) {
+            return false;
+        }
+        this.watcher = watcher;
+        return true;
+    }
+
+    /**
+     * Unregisters the given watcher, if it is the one registered.
+     *
+     * @param watcher the watcher to unregister
+     */
+    void unwatch(@NotNull Consumer<Aspect> watcher)
+    {
+        if (this.watcher == watcher) {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * Notifies the registered watcher, if any, that this aspect has changed. Every
+     * subclass method that changes a property value calls this afterwards.
+     */
+    protected final void changed()
+    {
+        if (watcher != null) {
+            watcher.accept(this);
+        }
+    }
+
+    /**
+     * Returns the value of a property for a primitive read, falling back to the
+     * property's default value if none is stored.
+     *
+     * @param propName the name of the property
+     * @param value the stored value, or null if none is stored
+     * @param stored whether a value, possibly null, is stored for the property
+     * @return the stored or default value
+     * @throws NullPointerException if that value is null
+     */
+    protected final Object nonNull(@NotNull String propName, Object value, boolean stored)
+    {
+        if (!stored) {
+            PropertyDef propDef = def.propertyDef(propName);
+            value = propDef != null && propDef.hasDefaultValue() ? propDef.defaultValue() : null;
+        }
+        if (value == null) {
+            throw new NullPointerException("Property '" + propName + "' in Aspect '" + def.name() + "' is null.");
+        }
+        return value;
+    }
 }
@@ -0,0 +1,661 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Storage for the values of a single property across all rows of a
+ * {@link ColumnarAspectMapImpl}. Each subclass stores values in the most compact
+ * form available for its property type.
+ * <p>
+ * Every column tracks which rows have been explicitly assigned a value (which may
+ * be null), so that unassigned rows can fall back to the property's default value,
+ * matching the behavior of {@link AspectObjectMapImpl}.
+ *
+ * @see ColumnarAspectMapImpl
+ */
+abstract class AspectColumn
+{
+    /** The definition of the property stored in this column. */
+    final PropertyDef def;
+
+    /** Rows that have been explicitly assigned a value. */
+    final BitSet present = new BitSet();
+
+    /**
+     * Creates a new column for the given property definition.
+     *
+     * @param def the property definition
+     */
+    AspectColumn(@NotNull PropertyDef def)
+    {
+        this.def = def;
+    }
+
+    /**
+     * Creates the most compact column type for the given property definition.
+     * Multivalued properties are always stored as objects.
+     *
+     * @param def the property definition
+     * @param capacity the initial row capacity
+     * @return a new, empty column
+     */
+    static AspectColumn forDef(@NotNull PropertyDef def, int capacity)
+    {
+        if (def.isMultivalued()) {
+            return new ObjectColumn(def, capacity);
+        }
+        return switch (def.type()) {
+            case Integer -> new LongColumn(def, capacity);
+            case Float -> new DoubleColumn(def, capacity);
+            case Boolean -> new BooleanColumn(def, capacity);
+            case String -> new DictionaryColumn(def, capacity);
+            default -> new ObjectColumn(def, capacity);
+        };
+    }
+
+    /**
+     * Returns whether the given row has been explicitly assigned a value.
+     *
+     * @param row the row index
+     * @return true if a value (possibly null) has been assigned
+     */
+    final boolean isSet(int row)
+    {
+        return present.get(row);
+    }
+
+    /**
+     * Reads the value of the given row, falling back to the property's default
+     * value if the row has not been assigned.
+     *
+     * @param row the row index
+     * @return the value, possibly null
+     */
+    final Object read(int row)
+    {
+        if (!present.get(row)) {
+            return def.hasDefaultValue() ? def.defaultValue() : null;
+        }
+        return value(row);
+    }
+
+    /**
+     * Assigns a value to the given row.
+     *
+     * @param row the row index
+     * @param value the value, possibly null
+     */
+    final void write(int row, Object value)
+    {
+        store(row, value);
+        present.set(row);
+    }
+
+    /**
+     * Clears the given row, so that it reads as unassigned.
+     *
+     * @param row the row index
+     */
+    final void unset(int row)
+    {
+        if (present.get(row)) {
+            store(row, null);
+            present.clear(row);
+        }
+    }
+
+    /**
+     * Moves the value of one row to another row during compaction. The source
+     * row is left unassigned.
+     *
+     * @param from the source row
+     * @param to the destination row, which must be lower than the source row
+     */
+    final void move(int from, int to)
+    {
+        if (present.get(from)) {
+            store(to, value(from));
+            present.set(to);
+            unset(from);
+        } else {
+            unset(to);
+        }
+    }
+
+    /**
+     * Resets this column to contain no rows.
+     */
+    void clear()
+    {
+        present.clear();
+    }
+
+    /**
+     * Called after compaction; gives columns an opportunity to release storage.
+     *
+     * @param rowCount the number of rows remaining
+     */
+    void compacted(int rowCount)
+    {
+    }
+
+    /**
+     * Returns the stored value of an assigned row.
+     *
+     * @param row the row index
+     * @return the value, possibly null
+     */
+    abstract Object value(int row);
+
+    /**
+     * Stores a value (possibly null) in the given row.
+     *
+     * @param row the row index
+     * @param value the value to store
+     */
+    abstract void store(int row, Object value);
+
+    /**
+     * Grows this column to hold at least the given number of rows.
+     *
+     * @param capacity the new row capacity
+     */
+    abstract void grow(int capacity);
+
+    /**
+     * Fills a bitmap of the first {@code rows} rows, one word of 64 rows at a
+     * time, using the given word function, then masks out rows that hold no
+     * value. Words are independent, so they may be computed in parallel.
+     *
+     * @param rows the number of rows to scan
+     * @param parallel whether to compute words in parallel
+     * @param word computes the match bits of the word with the given index
+     * @param nulls rows holding null
+     * @return the rows holding a matching, non-null value
+     */
+    final BitSet matchWords(int rows, boolean parallel, IntToLongFunction word, BitSet nulls)
+    {
+        long[] words = new long[(rows + 63) >>> 6];
+        if (parallel) {
+            IntStream.range(0, words.length).parallel().forEach(w -> words[w] = word.applyAsLong(w));
+        } else {
+            for (int w = 0; w < words.length; w++) {
+                words[w] = word.applyAsLong(w);
+            }
+        }
+        BitSet matches = BitSet.valueOf(words);
+        matches.and(present);
+        matches.andNot(nulls);
+        return matches;
+    }
+
+    /**
+     * Builds the exception thrown when a value of the wrong type is stored.
+     */
+    final IllegalArgumentException wrongType(Object value)
+    {
+        return new IllegalArgumentException("Property '" + def.name() + "' of type " + def.type()
+            + " cannot hold a value of type " + value.getClass().getSimpleName() + ".");
+    }
+
+    /**
+     * Column of 64-bit integers, stored in a {@code long[]} with a null bitmap.
+     */
+    static final class LongColumn extends AspectColumn
+    {
+        private long[] values;
+        private final BitSet nulls = new BitSet();
+
+        LongColumn(PropertyDef def, int capacity)
+        {
+            super(def);
+            values = new long[capacity];
+        }
+
+        /**
+         * Returns whether the given row holds a non-null value.
+         *
+         * @param row the row index
+         * @return true if the row has been assigned a non-null value
+         */
+        boolean hasValue(int row)
+        {
+            return present.get(row) && !nulls.get(row);
+        }
+
+        long getLong(int row)
+        {
+            return values[row];
+        }
+
+        /**
+         * Returns the rows, among the first {@code rows}, that hold a value
+         * between min and max inclusive. The comparison is branch-free over the
+         * backing array so that the JIT can vectorize it.
+         *
+         * @param min the lowest matching value
+         * @param max the highest matching value
+         * @param rows the number of rows to scan
+         * @param parallel whether to scan in parallel
+         * @return the matching rows
+         */
+        BitSet matchRange(long min, long max, int rows, boolean parallel)
+        {
+            long[] v = values;
+            return matchWords(rows, parallel, w -> {
+                int base = w << 6;
+                int end = Math.min(base + 64, rows);
+                long bits = 0L;
+                for (int i = base; i < end; i++) {
+                    long x = v[i];
+                    bits |= (x >= min & x <= max ? 1L : 0L) << (i - base);
+                }
+                return bits;
+            }, nulls);
+        }
+
+        /**
+         * Assigns a primitive value to the given row without boxing.
+         *
+         * @param row the row index
+         * @param value the value
+         */
+        void setLong(int row, long value)
+        {
+            values[row] = value;
+            nulls.clear(row);
+            present.set(row);
+        }
+
+        @Override
+        Object value(int row)
+        {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void store(int row, Object value)
+        {
+            if (value == null) {
+                nulls.set(row);
+                values[row] = 0L;
+            } else if (value instanceof Number n) {
+                nulls.clear(row);
+                values[row] = n.longValue();
+            } else {
+                throw wrongType(value);
+            }
+        }
+
+        @Override
+        void grow(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear()
+        {
+            super.clear();
+            nulls.clear();
+            Arrays.fill(values, 0L);
+        }
+    }
+
+    /**
+     * Column of 64-bit floating point values, stored in a {@code double[]} with
+     * a null bitmap.
+     */
+    static final class DoubleColumn extends AspectColumn
+    {
+        private double[] values;
+        private final BitSet nulls = new BitSet();
+
+        DoubleColumn(PropertyDef def, int capacity)
+        {
+            super(def);
+            values = new double[capacity];
+        }
+
+        /**
+         * Returns whether the given row holds a non-null value.
+         *
+         * @param row the row index
+         * @return true if the row has been assigned a non-null value
+         */
+        boolean hasValue(int row)
+        {
+            return present.get(row) && !nulls.get(row);
+        }
+
+        double getDouble(int row)
+        {
+            return values[row];
+        }
+
+        /**
+         * Returns the rows, among the first {@code rows}, that hold a value
+         * between min and max inclusive. NaN never matches. The comparison is
+         * branch-free over the backing array so that the JIT can vectorize it.
+         *
+         * @param min the lowest matching value
+         * @param max the highest matching value
+         * @param rows the number of rows to scan
+         * @param parallel whether to scan in parallel
+         * @return the matching rows
+         */
+        BitSet matchRange(double min, double max, int rows, boolean parallel)
+        {
+            double[] v = values;
+            return matchWords(rows, parallel, w -> {
+                int base = w << 6;
+                int end = Math.min(base + 64, rows);
+                long bits = 0L;
+                for (int i = base; i < end; i++) {
+                    double x = v[i];
+                    bits |= (x >= min & x <= max ? 1L : 0L) << (i - base);
+                }
+                return bits;
+            }, nulls);
+        }
+
+        /**
+         * Assigns a primitive value to the given row without boxing.
+         *
+         * @param row the row index
+         * @param value the value
+         */
+        void setDouble(int row, double value)
+        {
+            values[row] = value;
+            nulls.clear(row);
+            present.set(row);
+        }
+
+        @Override
+        Object value(int row)
+        {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void store(int row, Object value)
+        {
+            if (value == null) {
+                nulls.set(row);
+                values[row] = 0.0;
+            } else if (value instanceof Number n) {
+                nulls.clear(row);
+                values[row] = n.doubleValue();
+            } else {
+                throw wrongType(value);
+            }
+        }
+
+        @Override
+        void grow(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear()
+        {
+            super.clear();
+            nulls.clear();
+            Arrays.fill(values, 0.0);
+        }
+    }
+
+    /**
+     * Column of booleans, stored as a pair of bitmaps (values and nulls).
+     */
+    static final class BooleanColumn extends AspectColumn
+    {
+        private final BitSet values = new BitSet();
+        private final BitSet nulls = new BitSet();
+
+        BooleanColumn(PropertyDef def, int capacity)
+        {
+            super(def);
+        }
+
+        /**
+         * Returns whether the given row holds a non-null value.
+         *
+         * @param row the row index
+         * @return true if the row has been assigned a non-null value
+         */
+        boolean hasValue(int row)
+        {
+            return present.get(row) && !nulls.get(row);
+        }
+
+        boolean getBoolean(int row)
+        {
+            return values.get(row);
+        }
+
+        /**
+         * Assigns a primitive value to the given row without boxing.
+         *
+         * @param row the row index
+         * @param value the value
+         */
+        void setBoolean(int row, boolean value)
+        {
+            values.set(row, value);
+            nulls.clear(row);
+            present.set(row);
+        }
+
+        @Override
+        Object value(int row)
+        {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        void store(int row, Object value)
+        {
+            if (value == null) {
+                nulls.set(row);
+                values.clear(row);
+            } else if (value instanceof Boolean b) {
+                nulls.clear(row);
+                values.set(row, b);
+            } else {
+                throw wrongType(value);
+            }
+        }
+
+        @Override
+        void grow(int capacity)
+        {
+            // BitSets grow on demand
+        }
+
+        @Override
+        void clear()
+        {
+            super.clear();
+            values.clear();
+            nulls.clear();
+        }
+    }
+
+    /**
+     * Column of strings, dictionary-encoded as an {@code int[]} of codes into a
+     * list of distinct values. Repeated values are stored only once, which makes
+     * this very compact for low-cardinality properties. Unused dictionary entries
+     * are dropped when the owning map is compacted.
+     */
+    static final class DictionaryColumn extends AspectColumn
+    {
+        private static final int NULL_CODE = -1;
+
+        private int[] codes;
+        private List<Object> dictionary = new ArrayList<>();
+        private Map<Object, Integer> lookup = new HashMap<>();
+
+        DictionaryColumn(PropertyDef def, int capacity)
+        {
+            super(def);
+            codes = new int[capacity];
+            Arrays.fill(codes, NULL_CODE);
+        }
+
+        /**
+         * Returns the dictionary code of the given row, or -1 for null.
+         *
+         * @param row the row index
+         * @return the dictionary code
+         */
+        int code(int row)
+        {
+            return codes[row];
+        }
+
+        /**
+         * Returns the number of distinct values in the dictionary.
+         *
+         * @return the dictionary size
+         */
+        int dictionarySize()
+        {
+            return dictionary.size();
+        }
+
+        @Override
+        Object value(int row)
+        {
+            int code = codes[row];
+            return code == NULL_CODE ? null : dictionary.get(code);
+        }
+
+        @Override
+        void store(int row, Object value)
+        {
+            if (value == null) {
+                codes[row] = NULL_CODE;
+                return;
+            }
+            if (!(value instanceof String)) {
+                throw wrongType(value);
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                lookup.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        void grow(int capacity)
+        {
+            int oldCapacity = codes.length;
+            codes = Arrays.copyOf(codes, capacity);
+            Arrays.fill(codes, oldCapacity, capacity, NULL_CODE);
+        }
+
+        @Override
+        void clear()
+        {
+            super.clear();
+            Arrays.fill(codes, NULL_CODE);
+            dictionary = new ArrayList<>();
+            lookup = new HashMap<>();
+        }
+
+        @Override
+        void compacted(int rowCount)
+        {
+            List<Object> newDictionary = new ArrayList<>();
+            Map<Object, Integer> newLookup = new HashMap<>();
+            for (int row = 0; row < rowCount; row++) {
+                int code = codes[row];
+                if (code != NULL_CODE) {
+                    Object value = dictionary.get(code);
+                    Integer newCode = newLookup.get(value);
+                    if (newCode == null) {
+                        newCode = newDictionary.size();
+                        newDictionary.add(value);
+                        newLookup.put(value, newCode);
+                    }
+                    codes[row] = newCode;
+                }
+            }
+            dictionary = newDictionary;
+            lookup = newLookup;
+        }
+    }
+
+    /**
+     * Column of arbitrary values, stored in an {@code Object[]}. Used for all
+     * types without a more compact representation, and for multivalued properties.
+     */
+    static final class ObjectColumn extends AspectColumn
+    {
+        private Object[] values;
+
+        ObjectColumn(PropertyDef def, int capacity)
+        {
+            super(def);
+            values = new Object[capacity];
+        }
+
+        @Override
+        Object value(int row)
+        {
+            return values[row];
+        }
+
+        @Override
+        void store(int row, Object value)
+        {
+            values[row] = value;
+        }
+
+        @Override
+        void grow(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear()
+        {
+            super.clear();
+            Arrays.fill(values, null);
+        }
+    }
+}
@@ -17,10 +17,14 @@
 package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.PropertyAccessor;
 import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -47,6 +51,15 @@ public abstract class AspectDefBase extends EntityImpl implements AspectDef
     /** Map of property names to property definitions. */
     final Map<String, PropertyDef> propertyDefs;
 
+    /** Map of present property names to their slot indexes; slots are never reused. */
+    private final Map<String, Integer> slots;
+
+    /** Property definitions by slot index; null for slots whose property was removed. */
+    private PropertyDef[] slotDefs;
+
+    /** Number of slots assigned so far, including released ones. */
+    private int slotCount;
+
     /** Cached hash value (0 means not yet computed). */
     private volatile long cachedHash = 0;
 
@@ -57,7 +70,7 @@ public abstract class AspectDefBase extends EntityImpl implements AspectDef
      */
     protected AspectDefBase(@NotNull String name)
     {
-        this(name, UUID.randomUUID(), new LinkedHashMap<>());
+        this(name, IdGenerator.timeOrdered().newId(), new LinkedHashMap<>());
     }
 
     /**
@@ -78,7 +91,7 @@ public abstract class AspectDefBase extends EntityImpl implements AspectDef
      */
     protected AspectDefBase(@NotNull String name, @NotNull Map<String, PropertyDef> propertyDefs)
     {
-        this(name, UUID.randomUUID(), propertyDefs);
+        this(name, IdGenerator.timeOrdered().newId(), propertyDefs);
     }
 
     /**
@@ -92,6 +105,11 @@ public abstract class AspectDefBase extends EntityImpl implements AspectDef
         super(globalId);
         this.name = Objects.requireNonNull(name, "AspectDefs must have a non-null name.");
         this.propertyDefs = Objects.requireNonNull(propertyDefs, "Provided property defs cannot be null.");
+        this.slots = HashMap.newHashMap(propertyDefs.size());
+        this.slotDefs = new PropertyDef[propertyDefs.size()];
+        for (PropertyDef propDef : propertyDefs.values()) {
+            assignSlot(propDef);
+        }
     }
 
     /**
@@ -130,6 +148,90 @@ public abstract class AspectDefBase extends EntityImpl implements AspectDef
         return propertyDefs.get(propName);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Slots are assigned in insertion order. The slot of a removed property is
+     * never reused; if the property is re-added it receives a fresh slot, so that
+     * values stored by slot while it was present are not seen again.
+     */
+    @Override
+    public int slotOf(@NotNull String propName)
+    {
+        Integer slot = slots.get(propName);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int slotCount()
+    {
+        return slotCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PropertyDef slotPropertyDef(int slot)
+    {
+        PropertyDef[] defs = slotDefs;
+        return (slot >= 0 && slot < defs.length) ? defs[slot] : null;
+    }
+
+    /**
+     * Assigns a slot to the given property definition, keeping the slot of a
+     * present property of the same name that it replaces, and otherwise taking the
+     * next unused slot. Mutable subclasses must call this whenever a property
+     * definition is added.
+     *
+     * @param propDef the property definition being added
+     */
+    protected void assignSlot(@NotNull PropertyDef propDef)
+    {
+        Integer slot = slots.get(propDef.name());
+        if (slot == null) {
+            slot = slotCount++;
+            slots.put(propDef.name(), slot);
+            if (slot >= slotDefs.length) {
+                slotDefs = Arrays.copyOf(slotDefs, Math.max(4, slotDefs.length * 2));
+            }
+        }
+        slotDefs[slot] = propDef;
+    }
+
+    /**
+     * Releases the slot of the named property, without making it available to
+     * any property, including this one if it is re-added. Mutable subclasses must
+     * call this whenever a property definition is removed.
+     *
+     * @param propName the name of the property being removed
+     */
+    protected void releaseSlot(@NotNull String propName)
+    {
+        Integer slot = slots.remove(propName);
+        if (slot != null) {
+            slotDefs[slot] = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation returns a {@link PropertyAccessorImpl}.
+     */
+    @Override
+    public @NotNull PropertyAccessor accessor(@NotNull String propName)
+    {
+        PropertyDef propDef = propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + name() + "' does not contain prop named '" + propName + "'.");
+        }
+        return new PropertyAccessorImpl(this, propDef);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
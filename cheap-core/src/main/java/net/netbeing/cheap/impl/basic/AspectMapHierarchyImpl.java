@@ -16,24 +16,52 @@
 
 package net.netbeing.cheap.impl.basic;
 
+import net.netbeing.cheap.model.Aspect;
 import net.netbeing.cheap.model.AspectDef;
 import net.netbeing.cheap.model.AspectMapHierarchy;
 import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.Hierarchy;
 import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Basic implementation of an AspectMapHierarchy that maps entities to aspects.
  * This hierarchy type stores a mapping from entity IDs to aspects of a single type.
  * <p>
- * This class uses composition with an internal LinkedHashMap to provide efficient
+ * This class uses composition with an internal {@link EntityIndex} to provide efficient
  * entity-to-aspect lookups while implementing the {@link AspectMapHierarchy} interface.
+ * <p>
+ * The first call to {@link #hashTree()} builds a hash tree over the aspects, which the
+ * index then keeps current as aspects are put and removed, so later calls and
+ * {@link #contentHash()} cost only the rehashing of aspects changed since. Aspects
+ * derived from {@link AspectBaseImpl} report their in-place changes to the index;
+ * other aspects are rehashed on every call. Subclasses that supply their own map
+ * build a new tree on every call instead.
+ * <p>
+ * Once its tree is built, the index also reports each change to the catalog, so that
+ * it can keep its root hash current; see {@link #reportsChanges()}.
+ * <p>
+ * Likewise, from the first call to {@link #changes()} on, the index records which
+ * entities were given new aspects, had their aspects changed in place, or were
+ * removed, so that a DAO can save only those. Subclasses that supply their own map
+ * do not track changes, and are saved whole.
  *
  * @see AspectMapHierarchy
  * @see Hierarchy
  */
-public class AspectMapHierarchyImpl extends AspectMapImpl implements AspectMapHierarchy
+public class AspectMapHierarchyImpl extends AspectMapImpl implements AspectMapHierarchy, ReportingHierarchy
 {
     /** The catalog containing this hierarchy. */
     private final Catalog catalog;
@@ -44,6 +72,9 @@ public class AspectMapHierarchyImpl extends AspectMapImpl implements AspectMapHi
     /** The version number of this hierarchy. */
     private final long version;
 
+    /** The backing index if it maintains a hash tree, or null. */
+    private final HashedIndex hashedIndex;
+
     /**
      * Creates a new AspectMapHierarchyImpl to contain the given AspectDef.
      * Package-private for use by CatalogImpl factory methods.
@@ -64,10 +95,29 @@ public class AspectMapHierarchyImpl extends AspectMapImpl implements AspectMapHi
      */
     protected AspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version)
     {
-        super(aspectDef);
+        this(catalog, aspectDef, version, new HashedIndex());
+    }
+
+    /**
+     * Creates a new AspectMapHierarchyImpl to contain the given AspectDef with version,
+     * storing its aspects in the given (empty) map. For use by subclasses.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param aspects the map to hold entity-to-aspect mappings
+     */
+    protected AspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version,
+                                     @NotNull Map<Entity, Aspect> aspects)
+    {
+        super(aspectDef, aspects);
         this.catalog = catalog;
         this.version = version;
         this.name = aspectDef.name();
+        this.hashedIndex = aspects instanceof HashedIndex h ? h : null;
+        if (hashedIndex != null) {
+            hashedIndex.changed = this::contentChanged;
+        }
     }
 
     /**
@@ -111,4 +161,225 @@ public class AspectMapHierarchyImpl extends AspectMapImpl implements AspectMapHi
     {
         return version;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Unless a subclass supplied its own map, the tree is built on the first call and
+     * then kept current by the map.
+     */
+    @Override
+    public @NotNull EntityHashTree hashTree()
+    {
+        return hashedIndex != null ? hashedIndex.tree() : AspectMapHierarchy.super.hashTree();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Unless a subclass supplied its own map, changes are recorded from the first
+     * call on; until then the hierarchy is whole.
+     */
+    @Override
+    public @Nullable ChangeSet<Entity> changes()
+    {
+        return hashedIndex != null ? hashedIndex.trackChanges() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True once the tree is built, unless a subclass supplied its own map, the map
+     * holds aspects it cannot watch, or the AspectDef may gain or lose properties,
+     * which changes the hash of this hierarchy without passing through the map.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        AspectDef def = aspectDef();
+        return hashedIndex != null && hashedIndex.watchesAll() && !def.canAddProperties() && !def.canRemoveProperties();
+    }
+
+    /**
+     * Called after each change to the aspects of the index.
+     */
+    private void contentChanged()
+    {
+        CatalogImpl.hierarchyChanged(catalog, name);
+    }
+
+    /**
+     * Entity index that keeps a hash tree over its aspects once one is requested,
+     * tagging each entry with the content hash it was added to the tree with.
+     * <p>
+     * Once a tree is requested or changes are tracked, the index also watches the
+     * aspects put into it for in-place changes, which are rehashed the next time the
+     * tree is read and recorded as changes. Aspects it cannot watch (those not derived
+     * from {@link AspectBaseImpl}, already watched by another map, or whose entity is
+     * not their key) are rehashed every time the tree is read.
+     */
+    private static final class HashedIndex extends EntityIndex<Aspect>
+    {
+        private final Consumer<Aspect> watcher = this::changedInPlace;
+        private EntityHashTree tree;
+        private boolean watching;
+
+        /** Run after each change to the aspects of the index, once set by the hierarchy. */
+        private Runnable changed = () -> { };
+
+        /** Keys of watched aspects changed in place since the tree was last read. */
+        private final Set<Entity> dirty = new HashSet<>();
+
+        /** Keys of aspects that cannot be watched. */
+        private final Set<Entity> unwatched = new HashSet<>();
+
+        private static long hashOf(Aspect aspect)
+        {
+            return aspect == null ? CheapHasher.hashNull() : aspect.hash();
+        }
+
+        private static UUID idOf(Entity entity)
+        {
+            return entity == null ? null : entity.globalId();
+        }
+
+        EntityHashTree tree()
+        {
+            if (tree == null) {
+                EntityHashTree built = new EntityHashTree();
+                enableTags();
+                forEach((entity, aspect) -> {
+                    long hash = hashOf(aspect);
+                    setTagAt(slotOf(entity), hash);
+                    built.add(idOf(entity), hash);
+                });
+                tree = built;
+                startWatching();
+            } else {
+                for (Entity key : dirty) {
+                    rehash(key);
+                }
+                dirty.clear();
+                for (Entity key : unwatched) {
+                    rehash(key);
+                }
+            }
+            return tree;
+        }
+
+        @Override
+        ChangeSet<Entity> trackChanges()
+        {
+            startWatching();
+            return super.trackChanges();
+        }
+
+        /**
+         * Returns whether the tree is built and every aspect in the index is watched,
+         * so that every change to the aspects runs the changed callback.
+         */
+        boolean watchesAll()
+        {
+            return tree != null && unwatched.isEmpty();
+        }
+
+        private void startWatching()
+        {
+            if (!watching) {
+                watching = true;
+                forEach(this::watch);
+            }
+        }
+
+        private void watch(Entity key, Aspect aspect)
+        {
+            if (aspect == null) {
+                return;
+            }
+            if (!(aspect instanceof AspectBaseImpl base) || !Objects.equals(idOf(key), idOf(base.entity()))
+                || !base.watch(watcher)) {
+                unwatched.add(key);
+            }
+        }
+
+        private void unwatch(Entity key, Aspect aspect)
+        {
+            if (aspect instanceof AspectBaseImpl base) {
+                base.unwatch(watcher);
+            }
+            unwatched.remove(key);
+            dirty.remove(key);
+        }
+
+        private void changedInPlace(Aspect aspect)
+        {
+            Entity key = aspect.entity();
+            if (get(key) == aspect) {
+                if (tree != null) {
+                    dirty.add(key);
+                }
+                touched(key);
+                changed.run();
+            }
+        }
+
+        private void rehash(Entity key)
+        {
+            int slot = slotOf(key);
+            if (slot >= 0) {
+                long hash = hashOf(get(key));
+                tree.replace(idOf(key), tagAt(slot), hash);
+                setTagAt(slot, hash);
+            }
+        }
+
+        @Override
+        void stored(int slot, Entity key, Aspect old, Aspect value, boolean added)
+        {
+            if (watching && old != value) {
+                unwatch(key, old);
+                watch(key, value);
+            }
+            if (tree != null) {
+                long hash = hashOf(value);
+                if (added) {
+                    tree.add(idOf(key), hash);
+                } else {
+                    tree.replace(idOf(key), tagAt(slot), hash);
+                }
+                setTagAt(slot, hash);
+            }
+            changed.run();
+        }
+
+        @Override
+        void removing(int slot, Entity key, Aspect value)
+        {
+            if (watching) {
+                unwatch(key, value);
+            }
+            if (tree != null) {
+                tree.remove(idOf(key), tagAt(slot));
+            }
+            changed.run();
+        }
+
+        @Override
+        public void clear()
+        {
+            if (watching) {
+                forEach(this::unwatch);
+            }
+            super.clear();
+        }
+
+        @Override
+        void cleared()
+        {
+            if (tree != null) {
+                tree.clear();
+            }
+            changed.run();
+        }
+    }
 }
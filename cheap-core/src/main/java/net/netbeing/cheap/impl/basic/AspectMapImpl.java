@@ -23,9 +23,9 @@ import net.netbeing.cheap.model.Entity;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -33,8 +33,9 @@ import java.util.function.Function;
 /**
  * Basic implementation of an AspectMap that maps entities to aspects of a single type.
  * <p>
- * This class uses composition with an internal LinkedHashMap to provide efficient
- * entity-to-aspect lookups while implementing the {@link AspectMap} interface.
+ * This class uses composition with an internal {@link EntityIndex} to provide efficient,
+ * insertion-ordered entity-to-aspect lookups keyed on entity global ids, while
+ * implementing the {@link AspectMap} interface.
  *
  * @see AspectMap
  */
@@ -52,9 +53,22 @@ public class AspectMapImpl implements AspectMap
      * @param aspectDef the aspect definition for aspects in this map
      */
     protected AspectMapImpl(@NotNull AspectDef aspectDef)
+    {
+        this(aspectDef, new EntityIndex<>());
+    }
+
+    /**
+     * Creates a new AspectMapImpl to contain the given AspectDef, storing its
+     * aspects in the given (empty) map. For use by subclasses that need a
+     * different map implementation.
+     *
+     * @param aspectDef the aspect definition for aspects in this map
+     * @param aspects the map to hold entity-to-aspect mappings
+     */
+    protected AspectMapImpl(@NotNull AspectDef aspectDef, @NotNull Map<Entity, Aspect> aspects)
     {
         this.aspectDef = aspectDef;
-        this.aspects = new LinkedHashMap<>();
+        this.aspects = aspects;
     }
 
     /**
@@ -68,6 +82,22 @@ public class AspectMapImpl implements AspectMap
         return aspectDef;
     }
 
+    /**
+     * Returns the aspect for the entity with the given global id, without
+     * allocating an Entity to probe the map when it is an {@link EntityIndex}.
+     *
+     * @param entityId the entity global id
+     * @return the aspect, or null if none
+     */
+    @Override
+    public Aspect aspect(@NotNull UUID entityId)
+    {
+        if (aspects instanceof EntityIndex<Aspect> index) {
+            return index.getById(entityId);
+        }
+        return AspectMap.super.aspect(entityId);
+    }
+
     // Map interface delegation methods
 
     @Override
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implementation of an Aspect that stores property values in a flat array indexed
+ * by the slot numbers assigned by its {@link AspectDef}.
+ * <p>
+ * The name-to-slot lookup is held once by the AspectDef and shared by every aspect
+ * of that type, so each aspect carries only a single array sized to the def. This
+ * makes it considerably smaller than {@link AspectObjectMapImpl} and avoids per-aspect
+ * hashing on reads and writes. Callers that already know a property's slot can use
+ * {@link #unsafeReadSlot(int)} and {@link #unsafeWriteSlot(int, Object)} to skip
+ * the name lookup entirely.
+ * <p>
+ * Properties added to an individual aspect that are not part of its AspectDef are
+ * kept in a small overflow map, which is only allocated when needed.
+ *
+ * @see AspectBaseImpl
+ * @see AspectObjectMapImpl
+ * @see AspectDef#slotOf(String)
+ */
+public class AspectObjectArrayImpl extends AspectBaseImpl
+{
+    /** Marker for slots that have not been assigned a value. */
+    private static final Object UNSET = new Object();
+
+    /** Property values indexed by slot. */
+    protected Object[] values;
+
+    /** Properties not present in the AspectDef; null until first needed. */
+    protected Map<String, Object> extraProps;
+
+    /**
+     * Creates a new AspectObjectArrayImpl with no properties assigned.
+     *
+     * @param entity the entity this aspect is attached to
+     * @param def the aspect definition describing this aspect's structure
+     */
+    public AspectObjectArrayImpl(Entity entity, @NotNull AspectDef def)
+    {
+        super(entity, def);
+        this.values = new Object[def.slotCount()];
+        Arrays.fill(values, UNSET);
+    }
+
+    /**
+     * Checks if this aspect contains a property with the given name.
+     *
+     * @param propName the name of the property to check for
+     * @return {@code true} if the property has a value or a default value, {@code false} otherwise
+     */
+    @Override
+    public boolean contains(@NotNull String propName)
+    {
+        int slot = def.slotOf(propName);
+        if (slot < 0) {
+            return extraProps != null && extraProps.containsKey(propName);
+        }
+        if (slot < values.length && values[slot] != UNSET) {
+            return true;
+        }
+        return def.slotPropertyDef(slot).hasDefaultValue();
+    }
+
+    /**
+     * Reads a property value without type safety checks.
+     *
+     * @param propName the name of the property to read
+     * @return the property value, or {@code null} if not found
+     */
+    @Override
+    public Object unsafeReadObj(@NotNull String propName)
+    {
+        int slot = def.slotOf(propName);
+        if (slot < 0) {
+            return extraProps != null ? extraProps.get(propName) : null;
+        }
+        return unsafeReadSlot(slot);
+    }
+
+    /**
+     * Reads the value in the given slot without any checks, falling back to
+     * the property's default value if the slot has not been assigned.
+     *
+     * @param slot the slot index, as returned by {@link AspectDef#slotOf(String)}
+     * @return the property value, or {@code null} if not assigned and without default
+     */
+    public Object unsafeReadSlot(int slot)
+    {
+        if (slot < values.length) {
+            Object value = values[slot];
+            if (value != UNSET) {
+                return value;
+            }
+        }
+        PropertyDef propDef = def.slotPropertyDef(slot);
+        return (propDef != null && propDef.hasDefaultValue()) ? propDef.defaultValue() : null;
+    }
+
+    /**
+     * Adds a property to this aspect without validation.
+     *
+     * @param prop the property to add
+     */
+    @Override
+    public void unsafeAdd(@NotNull Property prop)
+    {
+        String propName = prop.def().name();
+        int slot = def.slotOf(propName);
+        if (slot >= 0) {
+            unsafeWriteSlot(slot, prop.unsafeRead());
+        } else {
+            if (extraProps == null) {
+                extraProps = new LinkedHashMap<>();
+            }
+            extraProps.put(propName, prop.unsafeRead());
+            changed();
+        }
+    }
+
+    /**
+     * Writes a property value without type safety checks.
+     *
+     * @param propName the name of the property to write
+     * @param value the value to write
+     * @throws IllegalArgumentException if the property name is not defined in this aspect
+     */
+    @Override
+    public void unsafeWrite(@NotNull String propName, Object value)
+    {
+        int slot = def.slotOf(propName);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Aspect '" + def.name() + "' does not contain prop named '" + propName + "'");
+        }
+        unsafeWriteSlot(slot, value);
+    }
+
+    /**
+     * Writes the value in the given slot without any checks.
+     *
+     * @param slot the slot index, as returned by {@link AspectDef#slotOf(String)}
+     * @param value the value to write
+     */
+    public void unsafeWriteSlot(int slot, Object value)
+    {
+        if (slot >= values.length) {
+            grow();
+        }
+        values[slot] = value;
+        changed();
+    }
+
+    /**
+     * Removes a property from this aspect without validation.
+     *
+     * @param propName the name of the property to remove
+     */
+    @Override
+    public void unsafeRemove(@NotNull String propName)
+    {
+        int slot = def.slotOf(propName);
+        if (slot >= 0) {
+            if (slot < values.length) {
+                values[slot] = UNSET;
+            }
+        } else if (extraProps != null) {
+            extraProps.remove(propName);
+        }
+        changed();
+    }
+
+    /**
+     * Grows the value array to match the slot count of a mutable AspectDef
+     * that has gained properties since this aspect was created.
+     */
+    private void grow()
+    {
+        int oldLength = values.length;
+        values = Arrays.copyOf(values, def.slotCount());
+        Arrays.fill(values, oldLength, values.length, UNSET);
+    }
+}
@@ -110,6 +110,51 @@ public class AspectObjectMapImpl extends AspectBaseImpl
         return (propDef != null && propDef.hasDefaultValue()) ? propDef.defaultValue() : null;
     }
 
+    /**
+     * Reads an Integer property value as a primitive long, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return ((Number) storedOrDefault(propName)).longValue();
+    }
+
+    /**
+     * Reads a Float property value as a primitive double, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return ((Number) storedOrDefault(propName)).doubleValue();
+    }
+
+    /**
+     * Reads a Boolean property value as a primitive boolean, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return (Boolean) storedOrDefault(propName);
+    }
+
+    private Object storedOrDefault(String propName)
+    {
+        Object value = props.get(propName);
+        return nonNull(propName, value, value != null || props.containsKey(propName));
+    }
+
     /**
      * Adds a property to this aspect without validation.
      * 
@@ -119,6 +164,7 @@ public class AspectObjectMapImpl extends AspectBaseImpl
     public void unsafeAdd(@NotNull Property prop)
     {
         props.put(prop.def().name(), prop.unsafeRead());
+        changed();
     }
 
     /**
@@ -137,6 +183,7 @@ public class AspectObjectMapImpl extends AspectBaseImpl
             throw new IllegalArgumentException("Aspect '" + def().name() + "' does not contain prop named '" + propName + "'");
         }
         props.put(propName, value);
+        changed();
     }
 
     /**
@@ -148,5 +195,6 @@ public class AspectObjectMapImpl extends AspectBaseImpl
     public void unsafeRemove(@NotNull String propName)
     {
         props.remove(propName);
+        changed();
     }
 }
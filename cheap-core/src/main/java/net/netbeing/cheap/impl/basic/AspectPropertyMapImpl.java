@@ -115,6 +115,51 @@ public class AspectPropertyMapImpl extends AspectBaseImpl
         return (propDef != null && propDef.hasDefaultValue()) ? propDef.defaultValue() : null;
     }
 
+    /**
+     * Reads an Integer property value as a primitive long, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return ((Number) storedOrDefault(propName)).longValue();
+    }
+
+    /**
+     * Reads a Float property value as a primitive double, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return ((Number) storedOrDefault(propName)).doubleValue();
+    }
+
+    /**
+     * Reads a Boolean property value as a primitive boolean, without validation.
+     *
+     * @param propName the name of the property to read
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return (Boolean) storedOrDefault(propName);
+    }
+
+    private Object storedOrDefault(String propName)
+    {
+        Property prop = props.get(propName);
+        return prop != null ? nonNull(propName, prop.unsafeRead(), true) : nonNull(propName, null, false);
+    }
+
     /**
      * Retrieves a property by name with full validation and access control.
      * 
@@ -179,6 +224,7 @@ public class AspectPropertyMapImpl extends AspectBaseImpl
             }
         }
         props.put(propName, prop);
+        changed();
     }
 
     /**
@@ -190,6 +236,7 @@ public class AspectPropertyMapImpl extends AspectBaseImpl
     public void unsafeAdd(@NotNull Property prop)
     {
         props.put(prop.def().name(), prop);
+        changed();
     }
 
     /**
@@ -214,6 +261,7 @@ public class AspectPropertyMapImpl extends AspectBaseImpl
             }
             props.put(propName, new PropertyImpl(prop.def(), value));
         }
+        changed();
     }
 
     /**
@@ -225,5 +273,6 @@ public class AspectPropertyMapImpl extends AspectBaseImpl
     public void unsafeRemove(@NotNull String propName)
     {
         props.remove(propName);
+        changed();
     }
 }
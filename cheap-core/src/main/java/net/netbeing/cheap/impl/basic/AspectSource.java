@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Backing store from which a paged AspectMap loads its aspects on demand.
+ *
+ * @see PagedAspectMapImpl
+ */
+public interface AspectSource
+{
+    /**
+     * Returns every entity that has an aspect in this source, in map order.
+     * This is read once, when the source is attached to a map.
+     *
+     * @return the entities whose aspects this source can load
+     */
+    @NotNull Collection<Entity> entities();
+
+    /**
+     * Loads the aspect of the given entity. Implementations should wrap
+     * checked failures in a {@link net.netbeing.cheap.util.CheapException}.
+     *
+     * @param entity one of the entities returned by {@link #entities()}
+     * @return the aspect, or null if the source no longer has one
+     */
+    Aspect loadAspect(@NotNull Entity entity);
+
+    /**
+     * Loads the aspects of several entities at once. Sources that pay a fixed cost
+     * per load, such as opening a connection, should override this to pay it once.
+     * By default the aspects are loaded one at a time.
+     *
+     * @param entities some of the entities returned by {@link #entities()}
+     * @return the loaded aspects by entity, omitting those the source no longer has
+     */
+    default @NotNull Map<Entity, Aspect> loadAspects(@NotNull Collection<Entity> entities)
+    {
+        Map<Entity, Aspect> aspects = new HashMap<>();
+        for (Entity entity : entities) {
+            Aspect aspect = loadAspect(entity);
+            if (aspect != null) {
+                aspects.put(entity, aspect);
+            }
+        }
+        return aspects;
+    }
+}
@@ -18,6 +18,7 @@ package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.AspectDef;
 import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
 import net.netbeing.cheap.model.Catalog;
 import net.netbeing.cheap.model.CatalogDef;
 import net.netbeing.cheap.model.CatalogSpecies;
@@ -26,19 +27,32 @@ import net.netbeing.cheap.model.EntityListHierarchy;
 import net.netbeing.cheap.model.EntitySetHierarchy;
 import net.netbeing.cheap.model.EntityTreeHierarchy;
 import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
 import net.netbeing.cheap.model.LocalEntity;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Full implementation of a Catalog in the Cheap architecture. A catalog represents
  * either an external data source or a mirror/clone/fork of another catalog. A catalog
  * contains hierarchies of entities and their aspects.
+ * <p>
+ * The catalog keeps its {@link #hash() root hash} as it changes. Hierarchies added
+ * since the last call are hashed and counted in; removed ones are subtracted out.
+ * Hierarchies that {@link ReportingHierarchy report their changes} are rehashed only
+ * after reporting one, and others on every call.
  *
  * @see Catalog
  * @see CatalogDef
@@ -65,13 +79,31 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
     /** Directory of aspect definitions available in this catalog. */
     private final Map<String, AspectDef> aspectage;
 
+    /** The storage layout used for new AspectMapHierarchies. */
+    private AspectMapStorage aspectMapStorage = AspectMapStorage.OBJECT;
+
+    /** Dense local ids for the entities of this catalog; created on first use. */
+    private EntityDictionary entityDictionary;
+
+    /** The sum of the hashes in hierarchyHashes. */
+    private long rootHash;
+
+    /** The hash each hierarchy was last counted in the root hash with, by name. */
+    private final Map<String, Long> hierarchyHashes = new HashMap<>();
+
+    /** Names of hierarchies added or reported changed since they were last counted. */
+    private final Set<String> staleHashes = ConcurrentHashMap.newKeySet();
+
+    /** Names of counted hierarchies that do not report their changes. */
+    private final Set<String> unreportedHashes = new HashSet<>();
+
     /**
      * Creates a new non-strict SINK catalog with a wrapper CatalogDef that
      * fully delegates to this catalog.
      */
     public CatalogImpl()
     {
-        this(UUID.randomUUID(), CatalogSpecies.SINK, null, 0L);
+        this(IdGenerator.timeOrdered().newId(), CatalogSpecies.SINK, null, 0L);
     }
 
     /**
@@ -91,7 +123,7 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
      */
     public CatalogImpl(CatalogSpecies species, UUID upstream)
     {
-        this(UUID.randomUUID(), species, upstream, 0L);
+        this(IdGenerator.timeOrdered().newId(), species, upstream, 0L);
     }
 
     /**
@@ -102,6 +134,23 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
      * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
      */
     public CatalogImpl(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream, long version)
+    {
+        this(globalId, species, upstream, version, new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    /**
+     * Creates a new catalog with the specified definition and upstream catalog, storing
+     * its hierarchy and aspect definition directories in the given (empty) maps.
+     * For use by subclasses that need different directory implementations.
+     *
+     * @param upstream the upstream catalog to mirror, or null for root catalogs
+     * @param version the version number of this catalog
+     * @param hierarchies the map to hold hierarchies by name
+     * @param aspectage the map to hold aspect definitions by name
+     * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
+     */
+    protected CatalogImpl(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream, long version,
+                          @NotNull Map<String, Hierarchy> hierarchies, @NotNull Map<String, AspectDef> aspectage)
     {
         super(globalId, null);
         this.catalog = this;
@@ -123,8 +172,8 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
         this.upstream = upstream;
         this.version = version;
 
-        this.hierarchies = new LinkedHashMap<>();
-        this.aspectage = new LinkedHashMap<>();
+        this.hierarchies = hierarchies;
+        this.aspectage = aspectage;
     }
 
     /**
@@ -230,7 +279,113 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
             AspectDef aspectDef = amh.aspectDef();
             aspectage.put(aspectDef.name(), aspectDef);
         }
-        return hierarchies.put(hName, hierarchy);
+        Hierarchy previous = hierarchies.put(hName, hierarchy);
+        uncount(hName);
+        staleHashes.add(hName);
+        return previous;
+    }
+
+    /**
+     * Removes the hierarchy with the given name from this catalog, along with its
+     * AspectDef if it is an AspectMapHierarchy.
+     *
+     * @param name the name of the hierarchy to remove
+     * @return the removed hierarchy, or {@code null} if there was none
+     */
+    public Hierarchy removeHierarchy(@NotNull String name)
+    {
+        Hierarchy removed = hierarchies.remove(name);
+        if (removed instanceof AspectMapHierarchy) {
+            aspectage.remove(name);
+        }
+        if (removed != null) {
+            uncount(name);
+            staleHashes.remove(name);
+        }
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The root hash is kept between calls. Each call hashes only the hierarchies
+     * added or reported changed since the last one, and those that do not report
+     * their changes. A deferred hierarchy is therefore loaded by the first call
+     * after it is added, and not again.
+     */
+    @Override
+    public long hash()
+    {
+        if (!keepsRootHash()) {
+            return Catalog.super.hash();
+        }
+        staleHashes.addAll(unreportedHashes);
+        for (Iterator<String> it = staleHashes.iterator(); it.hasNext(); ) {
+            String name = it.next();
+            // Removed before hashing, so that a change reported meanwhile is not lost
+            it.remove();
+            count(name);
+        }
+        return rootHash;
+    }
+
+    /**
+     * Returns whether {@link #hash()} keeps the root hash between calls. Subclasses
+     * whose hierarchies do not all pass through {@link #addHierarchy(Hierarchy)} and
+     * {@link #removeHierarchy(String)} return false, and are hashed whole on every
+     * call.
+     *
+     * @return true if the root hash is kept
+     */
+    protected boolean keepsRootHash()
+    {
+        return true;
+    }
+
+    /**
+     * Notes that the content of the named hierarchy of the given catalog has
+     * changed, if the catalog keeps its root hash. Called by
+     * {@link ReportingHierarchy reporting hierarchies} after each change.
+     *
+     * @param catalog the catalog owning the hierarchy
+     * @param name the name of the hierarchy
+     */
+    static void hierarchyChanged(@NotNull Catalog catalog, @NotNull String name)
+    {
+        if (catalog instanceof CatalogImpl impl) {
+            impl.staleHashes.add(name);
+        }
+    }
+
+    /**
+     * Hashes the named hierarchy, if it is still in this catalog, and counts it in
+     * the root hash in place of its last hash.
+     */
+    private void count(String name)
+    {
+        uncount(name);
+        Hierarchy hierarchy = hierarchies.get(name);
+        if (hierarchy == null) {
+            return;
+        }
+        long hash = hierarchy.hash();
+        rootHash += hash;
+        hierarchyHashes.put(name, hash);
+        if (!(hierarchy instanceof ReportingHierarchy reporting && reporting.reportsChanges())) {
+            unreportedHashes.add(name);
+        }
+    }
+
+    /**
+     * Takes the last hash of the named hierarchy, if counted, out of the root hash.
+     */
+    private void uncount(String name)
+    {
+        Long hash = hierarchyHashes.remove(name);
+        if (hash != null) {
+            rootHash -= hash;
+        }
+        unreportedHashes.remove(name);
     }
 
     @Override
@@ -318,8 +473,157 @@ public class CatalogImpl extends LocalEntityOneCatalogImpl implements Catalog
     @Override
     public AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version)
     {
-        AspectMapHierarchy hierarchy = new AspectMapHierarchyImpl(this, aspectDef);
+        return createAspectMap(aspectDef, version, aspectMapStorage);
+    }
+
+    /**
+     * Creates a new AspectMapHierarchy for the specified AspectDef, using the given
+     * storage layout, and adds it to this catalog.
+     *
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param storage the storage layout for the aspects in this hierarchy
+     * @return the newly created AspectMapHierarchy
+     */
+    @Override
+    public AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version, @NotNull AspectMapStorage storage)
+    {
+        AspectMapHierarchy hierarchy = switch (storage) {
+            case OBJECT -> new AspectMapHierarchyImpl(this, aspectDef, version);
+            case COLUMNAR -> new ColumnarAspectMapHierarchyImpl(this, aspectDef, version);
+            case PAGED -> new PagedAspectMapHierarchyImpl(this, aspectDef, version);
+        };
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Registers a hierarchy whose content is loaded on first access. The hierarchy
+     * is added to this catalog immediately, and its name, type, version and
+     * expected size can be read without loading it; the first call that needs its
+     * content fills an empty hierarchy created by {@link #newHierarchy(HierarchyType, String, long)}
+     * using the given loader.
+     *
+     * @param type the type of the hierarchy, which may not be ASPECT_MAP
+     * @param name the name of the hierarchy
+     * @param version the version number of the hierarchy
+     * @param expectedSize the number of elements (or tree nodes) in the hierarchy, or -1 if unknown
+     * @param loader fills in the content of the hierarchy
+     * @return the deferred hierarchy, which implements {@link LazyHierarchy}
+     * @see #deferAspectMap(AspectDef, long, long, HierarchyLoader)
+     */
+    public Hierarchy deferHierarchy(@NotNull HierarchyType type, @NotNull String name, long version, long expectedSize,
+                                    @NotNull HierarchyLoader loader)
+    {
+        Hierarchy hierarchy = switch (type) {
+            case ENTITY_LIST -> new LazyEntityListHierarchyImpl(this, name, version, expectedSize,
+                () -> (EntityListHierarchy) newHierarchy(type, name, version), loader);
+            case ENTITY_SET -> new LazyEntitySetHierarchyImpl(this, name, version, expectedSize,
+                () -> (EntitySetHierarchy) newHierarchy(type, name, version), loader);
+            case ENTITY_DIR -> new LazyEntityDirectoryHierarchyImpl(this, name, version, expectedSize,
+                () -> (EntityDirectoryHierarchy) newHierarchy(type, name, version), loader);
+            case ENTITY_TREE -> new LazyEntityTreeHierarchyImpl(this, name, version, expectedSize,
+                () -> (EntityTreeHierarchy) newHierarchy(type, name, version), loader);
+            case ASPECT_MAP -> throw new IllegalArgumentException("AspectMap hierarchies must be deferred with deferAspectMap.");
+        };
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Registers an AspectMapHierarchy whose aspects are loaded on first access,
+     * into an AspectMap of this catalog's default storage layout.
+     *
+     * @param aspectDef the aspect definition for aspects in the hierarchy
+     * @param version the version number of the hierarchy
+     * @param expectedSize the number of aspects in the hierarchy, or -1 if unknown
+     * @param loader fills in the aspects
+     * @return the deferred hierarchy, which implements {@link LazyHierarchy}
+     * @see #deferHierarchy(HierarchyType, String, long, long, HierarchyLoader)
+     */
+    public AspectMapHierarchy deferAspectMap(@NotNull AspectDef aspectDef, long version, long expectedSize,
+                                             @NotNull HierarchyLoader loader)
+    {
+        AspectMapHierarchy hierarchy = new LazyAspectMapHierarchyImpl(this, aspectDef, version, expectedSize,
+            () -> newAspectMap(aspectDef, version), loader);
         addHierarchy(hierarchy);
         return hierarchy;
     }
+
+    /**
+     * Creates an empty hierarchy of the given type that is owned by, but not
+     * added to, this catalog. Used to hold the content of deferred hierarchies;
+     * subclasses that create their own hierarchy implementations override this.
+     *
+     * @param type the type of the hierarchy, which may not be ASPECT_MAP
+     * @param name the name of the hierarchy
+     * @param version the version number of the hierarchy
+     * @return the new hierarchy
+     */
+    protected @NotNull Hierarchy newHierarchy(@NotNull HierarchyType type, @NotNull String name, long version)
+    {
+        return switch (type) {
+            case ENTITY_LIST -> new EntityListHierarchyImpl(this, name, version);
+            case ENTITY_SET -> new EntitySetHierarchyImpl(this, name, version);
+            case ENTITY_DIR -> new EntityDirectoryHierarchyImpl(this, name, version);
+            case ENTITY_TREE -> new EntityTreeHierarchyImpl(this, name, new EntityTreeHierarchyImpl.NodeImpl(null), version);
+            case ASPECT_MAP -> throw new IllegalArgumentException("AspectMap hierarchies must be created with newAspectMap.");
+        };
+    }
+
+    /**
+     * Creates an empty AspectMapHierarchy, in this catalog's default storage
+     * layout, that is owned by, but not added to, this catalog.
+     *
+     * @param aspectDef the aspect definition for aspects in the hierarchy
+     * @param version the version number of the hierarchy
+     * @return the new hierarchy
+     */
+    protected @NotNull AspectMapHierarchy newAspectMap(@NotNull AspectDef aspectDef, long version)
+    {
+        return switch (aspectMapStorage) {
+            case OBJECT -> new AspectMapHierarchyImpl(this, aspectDef, version);
+            case COLUMNAR -> new ColumnarAspectMapHierarchyImpl(this, aspectDef, version);
+            case PAGED -> new PagedAspectMapHierarchyImpl(this, aspectDef, version);
+        };
+    }
+
+    /**
+     * Returns the storage layout used for AspectMapHierarchies created in this
+     * catalog when no layout is specified.
+     *
+     * @return the default AspectMap storage layout
+     */
+    public @NotNull AspectMapStorage aspectMapStorage()
+    {
+        return aspectMapStorage;
+    }
+
+    /**
+     * Sets the storage layout used for AspectMapHierarchies created in this
+     * catalog when no layout is specified. Existing hierarchies are not affected.
+     *
+     * @param aspectMapStorage the default AspectMap storage layout
+     */
+    public void aspectMapStorage(@NotNull AspectMapStorage aspectMapStorage)
+    {
+        this.aspectMapStorage = Objects.requireNonNull(aspectMapStorage, "AspectMap storage may not be null.");
+    }
+
+    /**
+     * Returns the dictionary assigning dense local ids to the entities of this
+     * catalog, creating it on first use. Dense list and set hierarchies created in
+     * this catalog store these ids rather than Entity references.
+     *
+     * @return the entity dictionary of this catalog
+     * @see DenseEntityListHierarchyImpl
+     * @see DenseEntitySetHierarchyImpl
+     */
+    public @NotNull EntityDictionary entityDictionary()
+    {
+        if (entityDictionary == null) {
+            entityDictionary = new EntityDictionary();
+        }
+        return entityDictionary;
+    }
 }
@@ -17,12 +17,15 @@
 package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.*;
+import net.netbeing.cheap.util.IdGenerator;
 import net.netbeing.cheap.util.PropertyValueAdapter;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -50,10 +53,13 @@ public class CheapFactory
     private final Class<? extends AspectBuilder> aspectBuilderClass;
     private final Map<String, AspectDef> aspectDefs = new HashMap<>();
     private final Map<String, HierarchyDef> hierarchyDefs = new HashMap<>();
-    private final Map<UUID, Entity> entities = new HashMap<>();
+    private final EntityRegistry entities = new EntityRegistry();
     private final PropertyValueAdapter propertyAdapter = new PropertyValueAdapter();
     private Catalog catalog = null;
     private TimeZone timeZone;
+    private AspectMapStorage defaultAspectMapStorage = AspectMapStorage.OBJECT;
+    private CatalogConcurrency defaultCatalogConcurrency = CatalogConcurrency.UNSYNCHRONIZED;
+    private IdGenerator idGenerator = IdGenerator.timeOrdered();
 
     /**
      * Creates a new CheapFactory with the defaults of LocalEntityType.SINGLE_CATALOG
@@ -90,6 +96,74 @@ public class CheapFactory
         propertyAdapter.setTimeZone(timeZone);
     }
 
+    /**
+     * Returns the storage layout used for AspectMaps and AspectMapHierarchies created
+     * by this factory, and by catalogs created by this factory, when not explicitly specified.
+     *
+     * @return the default AspectMap storage layout
+     */
+    public @NotNull AspectMapStorage getDefaultAspectMapStorage()
+    {
+        return defaultAspectMapStorage;
+    }
+
+    /**
+     * Sets the storage layout used for AspectMaps and AspectMapHierarchies created
+     * by this factory, and by catalogs created by this factory, when not explicitly specified.
+     *
+     * @param defaultAspectMapStorage the default AspectMap storage layout
+     */
+    public void setDefaultAspectMapStorage(@NotNull AspectMapStorage defaultAspectMapStorage)
+    {
+        this.defaultAspectMapStorage = Objects.requireNonNull(defaultAspectMapStorage, "AspectMap storage may not be null.");
+    }
+
+    /**
+     * Returns the thread-safety of catalogs created by this factory, and of tree
+     * nodes created without a parent.
+     *
+     * @return the default catalog concurrency
+     */
+    public @NotNull CatalogConcurrency getDefaultCatalogConcurrency()
+    {
+        return defaultCatalogConcurrency;
+    }
+
+    /**
+     * Sets the thread-safety of catalogs created by this factory, and of tree
+     * nodes created without a parent. Use {@link CatalogConcurrency#CONCURRENT}
+     * for catalogs that will be shared between threads.
+     *
+     * @param defaultCatalogConcurrency the default catalog concurrency
+     */
+    public void setDefaultCatalogConcurrency(@NotNull CatalogConcurrency defaultCatalogConcurrency)
+    {
+        this.defaultCatalogConcurrency = Objects.requireNonNull(defaultCatalogConcurrency, "Catalog concurrency may not be null.");
+    }
+
+    /**
+     * Returns the generator of the global ids of entities, catalogs and aspect
+     * definitions created by this factory without an explicit id.
+     *
+     * @return the id generator
+     */
+    public @NotNull IdGenerator getIdGenerator()
+    {
+        return idGenerator;
+    }
+
+    /**
+     * Sets the generator of the global ids of entities, catalogs and aspect
+     * definitions created by this factory without an explicit id. The default is
+     * {@link IdGenerator#timeOrdered()}.
+     *
+     * @param idGenerator the id generator
+     */
+    public void setIdGenerator(@NotNull IdGenerator idGenerator)
+    {
+        this.idGenerator = Objects.requireNonNull(idGenerator, "Id generator may not be null.");
+    }
+
     /**
      * Returns the default LocalEntity type configured for this factory.
      *
@@ -203,7 +277,30 @@ public class CheapFactory
      */
     public Entity registerEntity(Entity entity)
     {
-        return entities.put(entity.globalId(), entity);
+        return entities.register(entity);
+    }
+
+    /**
+     * Return the Entities registered in this factory under each of the given ids.
+     * Ids with no registered Entity are omitted from the result.
+     *
+     * @param ids entity ids
+     * @return the registered entities keyed by id, in the iteration order of {@code ids}
+     */
+    public @NotNull Map<UUID, Entity> resolveAll(@NotNull Collection<UUID> ids)
+    {
+        return entities.resolveAll(ids);
+    }
+
+    /**
+     * Returns the registry of Entities known to this factory. Entities are held
+     * weakly, so those no longer referenced by any catalog may be collected.
+     *
+     * @return the entity registry
+     */
+    public @NotNull EntityRegistry getEntityRegistry()
+    {
+        return entities;
     }
 
     // ===== Catalog Factory Methods =====
@@ -215,7 +312,7 @@ public class CheapFactory
      */
     public @NotNull Catalog createCatalog()
     {
-        return new CatalogImpl();
+        return newCatalog(idGenerator.newId(), CatalogSpecies.SINK, null, 0L);
     }
 
     /**
@@ -227,7 +324,7 @@ public class CheapFactory
      */
     public @NotNull Catalog createCatalog(@NotNull CatalogSpecies species, UUID upstream)
     {
-        return new CatalogImpl(species, upstream);
+        return newCatalog(idGenerator.newId(), species, upstream, 0L);
     }
 
     /**
@@ -240,7 +337,7 @@ public class CheapFactory
      */
     public @NotNull Catalog createCatalog(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream)
     {
-        return new CatalogImpl(globalId, species, upstream, 0L);
+        return newCatalog(globalId, species, upstream, 0L);
     }
 
     /**
@@ -255,11 +352,59 @@ public class CheapFactory
     public @NotNull Catalog createCatalog(@NotNull UUID globalId, @NotNull CatalogSpecies species, URI uri,
                                           UUID upstream, long version)
     {
-        CatalogImpl cat = new CatalogImpl(globalId, species, upstream, version);
+        CatalogImpl cat = newCatalog(globalId, species, upstream, version);
         cat.uri(uri);
         return cat;
     }
 
+    /**
+     * Creates a catalog of this factory's default concurrency and applies this
+     * factory's other defaults to it.
+     */
+    private CatalogImpl newCatalog(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream, long version)
+    {
+        CatalogImpl cat = switch (defaultCatalogConcurrency) {
+            case UNSYNCHRONIZED -> new CatalogImpl(globalId, species, upstream, version);
+            case CONCURRENT -> new ConcurrentCatalogImpl(globalId, species, upstream, version);
+        };
+        // Columnar storage is single-threaded, so concurrent catalogs keep their default.
+        if (defaultCatalogConcurrency == CatalogConcurrency.UNSYNCHRONIZED) {
+            cat.aspectMapStorage(defaultAspectMapStorage);
+        }
+        return cat;
+    }
+
+    /**
+     * Creates a new forkable catalog of the given species with the same contents
+     * as the source, sharing structure with it where possible. Use FORK or CLONE
+     * for a downstream copy, or SOURCE or SINK for an independent "Save As..." copy.
+     * Deriving from a catalog that is not itself forkable, such as one loaded by a
+     * DAO, copies its contents once; later derivations share structure.
+     *
+     * @param source  the catalog to copy
+     * @param species the species of the new catalog
+     * @return a new Catalog instance
+     * @see ForkableCatalogImpl#derive(Catalog, CatalogSpecies)
+     */
+    public @NotNull Catalog deriveCatalog(@NotNull Catalog source, @NotNull CatalogSpecies species)
+    {
+        return ForkableCatalogImpl.derive(source, species);
+    }
+
+    /**
+     * Creates a new catalog of the given species that holds only local changes over
+     * the upstream catalog and reads through to it for everything else.
+     *
+     * @param upstream the catalog to read through to
+     * @param species  the species of the new catalog; not SOURCE or SINK
+     * @return a new Catalog instance
+     * @see OverlayCatalogImpl
+     */
+    public @NotNull Catalog createOverlayCatalog(@NotNull Catalog upstream, @NotNull CatalogSpecies species)
+    {
+        return new OverlayCatalogImpl(upstream, species);
+    }
+
     /**
      * Creates a new catalog definition.
      *
@@ -296,24 +441,24 @@ public class CheapFactory
     // ===== Entity Factory Methods =====
 
     /**
-     * Creates a new entity with a random UUID.
+     * Creates a new entity with an id from this factory's id generator.
      *
      * @return a new Entity instance
      */
     public @NotNull Entity createEntity()
     {
-        return new EntityImpl();
+        return new EntityImpl(idGenerator.newId());
     }
 
     /**
-     * Creates a new entity with a random UUID.
+     * Creates and registers a new entity with an id from this factory's id generator.
      *
      * @return a new Entity instance
      */
     public @NotNull Entity createAndRegisterEntity()
     {
-        Entity e = new EntityImpl();
-        entities.put(e.globalId(), e);
+        Entity e = new EntityImpl(idGenerator.newId());
+        entities.register(e);
         return e;
     }
 
@@ -337,13 +482,7 @@ public class CheapFactory
      */
     public @NotNull Entity getOrRegisterNewEntity(@NotNull UUID globalId)
     {
-        Entity e = entities.get(globalId);
-        if (e != null) {
-            return e;
-        }
-        e = new EntityImpl(globalId);
-        entities.put(e.globalId(), e);
-        return e;
+        return entities.getOrRegister(globalId, EntityImpl::new);
     }
 
     /**
@@ -370,7 +509,7 @@ public class CheapFactory
     /**
      * Creates a new local entity associated with a catalog with optional UUID using the configured LocalEntityType.
      *
-     * @param globalId the UUID for the entity, or null for random UUID
+     * @param globalId the UUID for the entity, or null for a generated UUID
      * @param catalog  the catalog this entity belongs to
      * @return a new LocalEntity instance of the configured type
      */
@@ -395,26 +534,19 @@ public class CheapFactory
      * Creates a new local entity of the specified type associated with a catalog with optional UUID.
      *
      * @param type     the type of LocalEntity to create
-     * @param globalId the UUID for the entity, or null for random UUID
+     * @param globalId the UUID for the entity, or null for a generated UUID
      * @param catalog  the catalog this entity belongs to
      * @return a new LocalEntity instance
      */
     public @NotNull LocalEntity createLocalEntity(@NotNull LocalEntityType type, UUID globalId,
                                                   @NotNull Catalog catalog)
     {
+        UUID id = globalId != null ? globalId : idGenerator.newId();
         return switch (type) {
-            case SINGLE_CATALOG ->
-                globalId != null ? new LocalEntityOneCatalogImpl(globalId, catalog) :
-                    new LocalEntityOneCatalogImpl(catalog);
-            case MULTI_CATALOG ->
-                globalId != null ? new LocalEntityMultiCatalogImpl(globalId, catalog) :
-                    new LocalEntityMultiCatalogImpl(catalog);
-            case CACHING_SINGLE_CATALOG ->
-                globalId != null ? new CachingEntityOneCatalogImpl(globalId, catalog) :
-                    new CachingEntityOneCatalogImpl(catalog);
-            case CACHING_MULTI_CATALOG ->
-                globalId != null ? new CachingEntityMultiCatalogImpl(globalId, catalog) :
-                    new CachingEntityMultiCatalogImpl(catalog);
+            case SINGLE_CATALOG -> new LocalEntityOneCatalogImpl(id, catalog);
+            case MULTI_CATALOG -> new LocalEntityMultiCatalogImpl(id, catalog);
+            case CACHING_SINGLE_CATALOG -> new CachingEntityOneCatalogImpl(id, catalog);
+            case CACHING_MULTI_CATALOG -> new CachingEntityMultiCatalogImpl(id, catalog);
         };
     }
 
@@ -431,14 +563,14 @@ public class CheapFactory
     }
 
     /**
-     * Creates a new single-catalog local entity with random global ID.
+     * Creates a new single-catalog local entity with a generated global ID.
      *
      * @param catalog the catalog this entity belongs to
      * @return a new LocalEntity instance (single-catalog type)
      */
     public @NotNull LocalEntity createSingleCatalogEntity(@NotNull Catalog catalog)
     {
-        return new LocalEntityOneCatalogImpl(catalog);
+        return new LocalEntityOneCatalogImpl(idGenerator.newId(), catalog);
     }
 
     /**
@@ -449,7 +581,7 @@ public class CheapFactory
      */
     public @NotNull LocalEntity createMultiCatalogEntity(@NotNull Catalog catalog)
     {
-        return new LocalEntityMultiCatalogImpl(catalog);
+        return new LocalEntityMultiCatalogImpl(idGenerator.newId(), catalog);
     }
 
     /**
@@ -472,7 +604,7 @@ public class CheapFactory
      */
     public @NotNull LocalEntity createCachingEntity(@NotNull Catalog catalog)
     {
-        return new CachingEntityOneCatalogImpl(catalog);
+        return new CachingEntityOneCatalogImpl(idGenerator.newId(), catalog);
     }
 
     /**
@@ -495,7 +627,7 @@ public class CheapFactory
      */
     public @NotNull LocalEntity createCachingMultiCatalogEntity(@NotNull Catalog catalog)
     {
-        return new CachingEntityMultiCatalogImpl(catalog);
+        return new CachingEntityMultiCatalogImpl(idGenerator.newId(), catalog);
     }
 
     /**
@@ -780,9 +912,6 @@ public class CheapFactory
     public @NotNull EntityTreeHierarchy createEntityTreeHierarchy(@NotNull Catalog catalog, @NotNull String name,
                                                                   EntityTreeHierarchy.Node rootNode, long version)
     {
-        if (rootNode == null) {
-            rootNode = new EntityTreeHierarchyImpl.NodeImpl(null);
-        }
         EntityTreeHierarchy hierarchy = catalog.createEntityTree(name, rootNode, version);
         catalog.addHierarchy(hierarchy);
         return hierarchy;
@@ -797,7 +926,7 @@ public class CheapFactory
      */
     public @NotNull AspectMapHierarchy createAspectMapHierarchy(@NotNull Catalog catalog, @NotNull AspectDef aspectDef)
     {
-        return catalog.createAspectMap(aspectDef, 0L);
+        return createAspectMapHierarchy(catalog, aspectDef, 0L);
     }
 
     /**
@@ -834,7 +963,122 @@ public class CheapFactory
     public @NotNull AspectMapHierarchy createAspectMapHierarchy(@NotNull Catalog catalog,
                                                                 @NotNull AspectDef aspectDef, long version)
     {
-        AspectMapHierarchy hierarchy = catalog.createAspectMap(aspectDef, version);
+        return createAspectMapHierarchy(catalog, aspectDef, version, defaultAspectMapStorage);
+    }
+
+    /**
+     * Creates a new aspect map hierarchy with version and the given storage layout.
+     *
+     * @param catalog   the owning catalog
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version   the version number of this hierarchy
+     * @param storage   the storage layout for aspects in this hierarchy
+     * @return a new AspectMapHierarchy instance
+     */
+    public @NotNull AspectMapHierarchy createAspectMapHierarchy(@NotNull Catalog catalog,
+                                                                @NotNull AspectDef aspectDef, long version,
+                                                                @NotNull AspectMapStorage storage)
+    {
+        AspectMapHierarchy hierarchy = catalog.createAspectMap(aspectDef, version, storage);
+        catalog.addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new aspect map hierarchy that can maintain secondary indexes
+     * over the properties of its aspects.
+     *
+     * @param catalog   the owning catalog
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version   the version number of this hierarchy
+     * @return a new IndexedAspectMapHierarchyImpl instance, with no indexes declared
+     */
+    public @NotNull IndexedAspectMapHierarchyImpl createIndexedAspectMapHierarchy(@NotNull Catalog catalog,
+                                                                                 @NotNull AspectDef aspectDef,
+                                                                                 long version)
+    {
+        IndexedAspectMapHierarchyImpl hierarchy = new IndexedAspectMapHierarchyImpl(catalog, aspectDef, version);
+        catalog.addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new entity list hierarchy that stores the local ids of its entities,
+     * assigned by the catalog's entity dictionary, rather than Entity references.
+     *
+     * @param catalog the owning catalog
+     * @param name    the name of the hierarchy
+     * @param version the version number of this hierarchy
+     * @return a new, empty DenseEntityListHierarchyImpl instance
+     * @throws UnsupportedOperationException if the catalog does not support entity dictionaries
+     */
+    public @NotNull DenseEntityListHierarchyImpl createDenseEntityListHierarchy(@NotNull CatalogImpl catalog,
+                                                                               @NotNull String name, long version)
+    {
+        DenseEntityListHierarchyImpl hierarchy = new DenseEntityListHierarchyImpl(catalog, name, version, 0,
+            catalog.entityDictionary());
+        catalog.addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new entity set hierarchy that stores its members as a bitmap over the
+     * local ids assigned by the catalog's entity dictionary.
+     *
+     * @param catalog the owning catalog
+     * @param name    the name of the hierarchy
+     * @param version the version number of this hierarchy
+     * @return a new, empty DenseEntitySetHierarchyImpl instance
+     * @throws UnsupportedOperationException if the catalog does not support entity dictionaries
+     */
+    public @NotNull DenseEntitySetHierarchyImpl createDenseEntitySetHierarchy(@NotNull CatalogImpl catalog,
+                                                                             @NotNull String name, long version)
+    {
+        DenseEntitySetHierarchyImpl hierarchy = new DenseEntitySetHierarchyImpl(catalog, name, version,
+            catalog.entityDictionary());
+        catalog.addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new dense entity set hierarchy whose members are the entities with the
+     * local ids in the given bitmap, such as the result of
+     * {@link DenseEntitySetHierarchyImpl#intersection(DenseEntitySetHierarchyImpl)}.
+     * The bitmap is copied.
+     *
+     * @param catalog the owning catalog
+     * @param name    the name of the hierarchy
+     * @param version the version number of this hierarchy
+     * @param members the local ids, assigned by the catalog's entity dictionary, of the members
+     * @return a new DenseEntitySetHierarchyImpl instance
+     * @throws UnsupportedOperationException if the catalog does not support entity dictionaries
+     * @throws IllegalArgumentException if the bitmap holds an id the dictionary has not assigned
+     */
+    public @NotNull DenseEntitySetHierarchyImpl createDenseEntitySetHierarchy(@NotNull CatalogImpl catalog,
+                                                                             @NotNull String name, long version,
+                                                                             @NotNull EntityBitmap members)
+    {
+        DenseEntitySetHierarchyImpl hierarchy = new DenseEntitySetHierarchyImpl(catalog, name, version,
+            catalog.entityDictionary(), members.copy());
+        catalog.addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new entity tree hierarchy whose nodes store their children compactly,
+     * for large trees in which most nodes have few or no children.
+     *
+     * @param catalog    the owning catalog
+     * @param name       the name of the hierarchy
+     * @param version    the version number of this hierarchy
+     * @param indexPaths whether to maintain an index of the full paths of the nodes
+     * @return a new CompactEntityTreeHierarchyImpl instance, with an empty compact root
+     */
+    public @NotNull CompactEntityTreeHierarchyImpl createCompactEntityTreeHierarchy(@NotNull Catalog catalog,
+                                                                                   @NotNull String name,
+                                                                                   long version, boolean indexPaths)
+    {
+        CompactEntityTreeHierarchyImpl hierarchy = new CompactEntityTreeHierarchyImpl(catalog, name, version, indexPaths);
         catalog.addHierarchy(hierarchy);
         return hierarchy;
     }
@@ -847,7 +1091,23 @@ public class CheapFactory
      */
     public @NotNull AspectMap createAspectMap(@NotNull AspectDef aspectDef)
     {
-        return new AspectMapImpl(aspectDef);
+        return createAspectMap(aspectDef, defaultAspectMapStorage);
+    }
+
+    /**
+     * Creates a new aspect map with the given storage layout.
+     *
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param storage   the storage layout for aspects in this map
+     * @return a new AspectMap instance
+     */
+    public @NotNull AspectMap createAspectMap(@NotNull AspectDef aspectDef, @NotNull AspectMapStorage storage)
+    {
+        return switch (storage) {
+            case OBJECT -> new AspectMapImpl(aspectDef);
+            case COLUMNAR -> new ColumnarAspectMapImpl(aspectDef);
+            case PAGED -> new PagedAspectMapImpl(aspectDef);
+        };
     }
 
     // ===== Aspect Definition Factory Methods =====
@@ -860,7 +1120,7 @@ public class CheapFactory
      */
     public @NotNull MutableAspectDef createMutableAspectDef(@NotNull String name)
     {
-        return new MutableAspectDefImpl(name);
+        return new MutableAspectDefImpl(name, idGenerator.newId());
     }
 
     /**
@@ -873,7 +1133,7 @@ public class CheapFactory
     public @NotNull MutableAspectDef createMutableAspectDef(@NotNull String name,
                                                             @NotNull Map<String, PropertyDef> propertyDefs)
     {
-        return new MutableAspectDefImpl(name, propertyDefs);
+        return new MutableAspectDefImpl(name, idGenerator.newId(), propertyDefs);
     }
 
     /**
@@ -912,7 +1172,7 @@ public class CheapFactory
     public @NotNull AspectDef createImmutableAspectDef(@NotNull String name, @NotNull Map<String, ?
         extends PropertyDef> propertyDefs)
     {
-        return new ImmutableAspectDefImpl(name, propertyDefs);
+        return new ImmutableAspectDefImpl(name, idGenerator.newId(), propertyDefs);
     }
 
     /**
@@ -1063,17 +1323,36 @@ public class CheapFactory
 
     /**
      * Creates a new non-leaf EntityTreeHierarchy.Node that can have children.
+     * The node is thread-safe if this factory's default catalog concurrency is CONCURRENT.
      *
      * @param value the entity value to store at this node
      * @return a new non-leaf Node instance
      */
     public @NotNull EntityTreeHierarchy.Node createTreeNode(Entity value)
     {
-        return new EntityTreeHierarchyImpl.NodeImpl(value);
+        return switch (defaultCatalogConcurrency) {
+            case UNSYNCHRONIZED -> new EntityTreeHierarchyImpl.NodeImpl(value);
+            case CONCURRENT -> new ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl(value);
+        };
+    }
+
+    /**
+     * Creates a new non-leaf EntityTreeHierarchy.Node that stores its children
+     * compactly. The node is not thread-safe.
+     *
+     * @param value the entity value to store at this node
+     * @return a new compact Node instance
+     */
+    public @NotNull EntityTreeHierarchy.Node createCompactTreeNode(Entity value)
+    {
+        return new CompactEntityTreeHierarchyImpl.CompactNodeImpl(value);
     }
 
     /**
      * Creates a new non-leaf EntityTreeHierarchy.Node with the specified parent.
+     * The node is thread-safe if its parent is or, when there is no parent, if this
+     * factory's default catalog concurrency is CONCURRENT. It stores its children
+     * compactly if its parent does.
      *
      * @param value  the entity value to store at this node
      * @param parent the parent node
@@ -1081,6 +1360,15 @@ public class CheapFactory
      */
     public @NotNull EntityTreeHierarchy.Node createTreeNode(Entity value, EntityTreeHierarchy.Node parent)
     {
+        if (parent == null) {
+            return createTreeNode(value);
+        }
+        if (parent instanceof ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl) {
+            return new ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl(value, parent);
+        }
+        if (parent instanceof CompactEntityTreeHierarchyImpl.CompactNodeImpl) {
+            return new CompactEntityTreeHierarchyImpl.CompactNodeImpl(value, parent);
+        }
         return new EntityTreeHierarchyImpl.NodeImpl(value, parent);
     }
 
@@ -1149,6 +1437,18 @@ public class CheapFactory
         return new AspectObjectMapImpl(entity, def, initialCapacity, loadFactor);
     }
 
+    /**
+     * Creates a new aspect with slot-indexed array property storage.
+     *
+     * @param entity the entity this aspect is attached to
+     * @param def    the aspect definition describing this aspect's structure
+     * @return a new Aspect instance
+     */
+    public @NotNull Aspect createObjectArrayAspect(Entity entity, @NotNull AspectDef def)
+    {
+        return new AspectObjectArrayImpl(entity, def);
+    }
+
     /**
      * Creates a new aspect with Property-based storage.
      *
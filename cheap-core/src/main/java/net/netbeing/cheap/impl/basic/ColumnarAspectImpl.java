@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight Aspect view onto a single row of a {@link ColumnarAspectMapImpl}.
+ * The view holds no property values itself; every read and write goes to the
+ * columns of the owning map.
+ * <p>
+ * Views remain valid while their entity stays in the map, including across
+ * compaction of the map. Using a view after its entity has been removed from
+ * the map throws an {@link IllegalStateException}.
+ *
+ * @see ColumnarAspectMapImpl
+ */
+public class ColumnarAspectImpl extends AspectBaseImpl
+{
+    /** The map holding this aspect's values. */
+    private final ColumnarAspectMapImpl map;
+
+    /** The row this aspect was last seen at in the map. */
+    private int row;
+
+    /**
+     * Creates a new view onto a row of a columnar aspect map.
+     *
+     * @param map the map holding the values
+     * @param entity the entity owning the row
+     * @param row the current row of the entity
+     */
+    ColumnarAspectImpl(@NotNull ColumnarAspectMapImpl map, @NotNull Entity entity, int row)
+    {
+        super(entity, map.aspectDef());
+        this.map = map;
+        this.row = row;
+    }
+
+    /**
+     * Returns the map holding this aspect's values.
+     *
+     * @return the owning map
+     */
+    ColumnarAspectMapImpl map()
+    {
+        return map;
+    }
+
+    /**
+     * Checks if this aspect contains a property with the given name.
+     *
+     * @param propName the name of the property to check for
+     * @return {@code true} if the property has a value or a default value, {@code false} otherwise
+     */
+    @Override
+    public boolean contains(@NotNull String propName)
+    {
+        AspectColumn column = map.column(propName);
+        if (column != null && column.isSet(row())) {
+            return true;
+        }
+        PropertyDef propDef = def.propertyDef(propName);
+        return propDef != null && propDef.hasDefaultValue();
+    }
+
+    /**
+     * Reads a property value without type safety checks.
+     *
+     * @param propName the name of the property to read
+     * @return the property value, or {@code null} if not found
+     */
+    @Override
+    public Object unsafeReadObj(@NotNull String propName)
+    {
+        return readObj(map.column(propName), propName);
+    }
+
+    /**
+     * Reads the value of the property in the given slot of the AspectDef, finding
+     * its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @return the property value, or {@code null} if not found
+     */
+    Object unsafeReadSlot(int slot, @NotNull String propName)
+    {
+        return readObj(map.column(slot, propName), propName);
+    }
+
+    private Object readObj(AspectColumn column, String propName)
+    {
+        if (column != null) {
+            return column.read(row());
+        }
+        PropertyDef propDef = def.propertyDef(propName);
+        return (propDef != null && propDef.hasDefaultValue()) ? propDef.defaultValue() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values in Integer columns are read without boxing.</p>
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return readLong(map.column(propName), propName);
+    }
+
+    /**
+     * Reads the value of the property in the given slot of the AspectDef as a
+     * primitive long, finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @return the property value
+     */
+    long unsafeReadLongSlot(int slot, @NotNull String propName)
+    {
+        return readLong(map.column(slot, propName), propName);
+    }
+
+    private long readLong(AspectColumn c, String propName)
+    {
+        if (c instanceof AspectColumn.LongColumn column) {
+            int r = row();
+            if (column.hasValue(r)) {
+                return column.getLong(r);
+            }
+        }
+        return super.unsafeReadLong(propName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values in Float columns are read without boxing.</p>
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return readDouble(map.column(propName), propName);
+    }
+
+    /**
+     * Reads the value of the property in the given slot of the AspectDef as a
+     * primitive double, finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @return the property value
+     */
+    double unsafeReadDoubleSlot(int slot, @NotNull String propName)
+    {
+        return readDouble(map.column(slot, propName), propName);
+    }
+
+    private double readDouble(AspectColumn c, String propName)
+    {
+        if (c instanceof AspectColumn.DoubleColumn column) {
+            int r = row();
+            if (column.hasValue(r)) {
+                return column.getDouble(r);
+            }
+        }
+        return super.unsafeReadDouble(propName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values in Boolean columns are read without boxing.</p>
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return readBoolean(map.column(propName), propName);
+    }
+
+    /**
+     * Reads the value of the property in the given slot of the AspectDef as a
+     * primitive boolean, finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @return the property value
+     */
+    boolean unsafeReadBooleanSlot(int slot, @NotNull String propName)
+    {
+        return readBoolean(map.column(slot, propName), propName);
+    }
+
+    private boolean readBoolean(AspectColumn c, String propName)
+    {
+        if (c instanceof AspectColumn.BooleanColumn column) {
+            int r = row();
+            if (column.hasValue(r)) {
+                return column.getBoolean(r);
+            }
+        }
+        return super.unsafeReadBoolean(propName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values are written to Integer columns without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteLong(@NotNull String propName, long value)
+    {
+        writeLong(map.column(propName), propName, value);
+    }
+
+    /**
+     * Writes a primitive long to the property in the given slot of the AspectDef,
+     * finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @param value the value to write
+     */
+    void unsafeWriteLongSlot(int slot, @NotNull String propName, long value)
+    {
+        writeLong(map.column(slot, propName), propName, value);
+    }
+
+    private void writeLong(AspectColumn c, String propName, long value)
+    {
+        if (c instanceof AspectColumn.LongColumn column) {
+            column.setLong(row(), value);
+        } else {
+            super.unsafeWriteLong(propName, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values are written to Float columns without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteDouble(@NotNull String propName, double value)
+    {
+        writeDouble(map.column(propName), propName, value);
+    }
+
+    /**
+     * Writes a primitive double to the property in the given slot of the AspectDef,
+     * finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @param value the value to write
+     */
+    void unsafeWriteDoubleSlot(int slot, @NotNull String propName, double value)
+    {
+        writeDouble(map.column(slot, propName), propName, value);
+    }
+
+    private void writeDouble(AspectColumn c, String propName, double value)
+    {
+        if (c instanceof AspectColumn.DoubleColumn column) {
+            column.setDouble(row(), value);
+        } else {
+            super.unsafeWriteDouble(propName, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Values are written to Boolean columns without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteBoolean(@NotNull String propName, boolean value)
+    {
+        writeBoolean(map.column(propName), propName, value);
+    }
+
+    /**
+     * Writes a primitive boolean to the property in the given slot of the AspectDef,
+     * finding its column by slot rather than by name.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @param value the value to write
+     */
+    void unsafeWriteBooleanSlot(int slot, @NotNull String propName, boolean value)
+    {
+        writeBoolean(map.column(slot, propName), propName, value);
+    }
+
+    private void writeBoolean(AspectColumn c, String propName, boolean value)
+    {
+        if (c instanceof AspectColumn.BooleanColumn column) {
+            column.setBoolean(row(), value);
+        } else {
+            super.unsafeWriteBoolean(propName, value);
+        }
+    }
+
+    /**
+     * Adds a property to this aspect without validation.
+     *
+     * @param prop the property to add
+     * @throws IllegalArgumentException if the value cannot be stored in the column for its type
+     */
+    @Override
+    public void unsafeAdd(@NotNull Property prop)
+    {
+        map.columnFor(prop.def()).write(row(), prop.unsafeRead());
+    }
+
+    /**
+     * Writes a property value without type safety checks.
+     *
+     * @param propName the name of the property to write
+     * @param value the value to write
+     * @throws IllegalArgumentException if the property name is not defined in this aspect,
+     *     or the value cannot be stored in the column for its type
+     */
+    @Override
+    public void unsafeWrite(@NotNull String propName, Object value)
+    {
+        AspectColumn column = map.column(propName);
+        if (column == null) {
+            AspectDef def = def();
+            PropertyDef stdPropDef = def.propertyDef(propName);
+            if (stdPropDef == null) {
+                throw new IllegalArgumentException("Aspect '" + def.name() + "' does not contain prop named '" + propName + "'");
+            }
+            column = map.columnFor(stdPropDef);
+        }
+        column.write(row(), value);
+    }
+
+    /**
+     * Removes a property from this aspect without validation.
+     *
+     * @param propName the name of the property to remove
+     */
+    @Override
+    public void unsafeRemove(@NotNull String propName)
+    {
+        AspectColumn column = map.column(propName);
+        if (column != null) {
+            column.unset(row());
+        }
+    }
+
+    /**
+     * Views of a row cannot be watched, since the row can be changed through any
+     * other view of it.
+     */
+    @Override
+    boolean watch(@NotNull Consumer<Aspect> watcher)
+    {
+        return false;
+    }
+
+    /**
+     * Two views are equal if they refer to the same entity in the same map.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ColumnarAspectImpl other && map == other.map && entity.equals(other.entity);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(System.identityHashCode(map), entity);
+    }
+
+    /**
+     * Returns the current row of this aspect's entity, following it across compaction.
+     */
+    private int row()
+    {
+        int current = map.rowOf(entity, row);
+        if (current < 0) {
+            throw new IllegalStateException("Entity " + entity.globalId() + " is no longer present in AspectMap '" + def.name() + "'.");
+        }
+        row = current;
+        return current;
+    }
+}
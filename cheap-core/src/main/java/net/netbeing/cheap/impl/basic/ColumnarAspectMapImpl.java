@@ -0,0 +1,818 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Columnar implementation of an AspectMap that maps entities to aspects of a single type.
+ * <p>
+ * Rather than storing a separate aspect object per entity, this class copies the
+ * property values of each aspect into one column per property. Integer, Float and
+ * Boolean properties are stored in primitive arrays and bitmaps, and String
+ * properties are dictionary-encoded. Aspects returned from this map are lightweight
+ * views onto a row of the columns; reads and writes through a view go directly to
+ * the columns.
+ * <p>
+ * Because values are copied, an aspect passed to {@link #put(Entity, Aspect)} is not
+ * retained, and later changes to it are not reflected in this map. Values written to
+ * primitive columns are normalized to the Java class of their property type, so for
+ * example an {@code Integer} written to an Integer property is read back as a
+ * {@code Long}. Writing a value that cannot be stored in the column for its property
+ * type throws an {@link IllegalArgumentException}.
+ * <p>
+ * Entities are kept in insertion order. The row of an entity is its slot in an
+ * {@link EntityIndex}, so no row numbers or entities are stored apart from the
+ * index. Removed rows are left as tombstones and reclaimed in bulk once they make
+ * up more than half of the rows, or when the index needs room for another row.
+ *
+ * @see AspectMap
+ * @see AspectMapImpl
+ */
+public class ColumnarAspectMapImpl extends AbstractMap<Entity, Aspect> implements AspectMap
+{
+    /** Initial number of rows allocated in each column. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Minimum number of removed rows before compaction is considered. */
+    private static final int COMPACTION_THRESHOLD = 16;
+
+    /** The aspect definition for the aspects stored in this map. */
+    private final AspectDef aspectDef;
+
+    /** The property columns, keyed by property name. */
+    private final Map<String, AspectColumn> columns = new LinkedHashMap<>();
+
+    /** The columns found so far, indexed by the slot of their property in the AspectDef. */
+    private AspectColumn[] slotColumns = new AspectColumn[0];
+
+    /** Index from entity to its row, keyed on entity global ids. */
+    private final RowIndex rowIndex = new RowIndex();
+
+    /** Rows currently holding an entity. */
+    private final BitSet live = new BitSet();
+
+    /** Number of rows allocated in each column. */
+    private int capacity = INITIAL_CAPACITY;
+
+    /** Incremented on every structural change, to detect concurrent modification. */
+    private int modCount;
+
+    /** Cached entry set view. */
+    private Set<Entry<Entity, Aspect>> entrySet;
+
+    /** Cached key set view. */
+    private Set<Entity> keySet;
+
+    /** Cached values view. */
+    private Collection<Aspect> values;
+
+    /**
+     * Creates a new ColumnarAspectMapImpl to contain the given AspectDef.
+     *
+     * @param aspectDef the aspect definition for aspects in this map
+     */
+    protected ColumnarAspectMapImpl(@NotNull AspectDef aspectDef)
+    {
+        this.aspectDef = aspectDef;
+        for (PropertyDef propDef : aspectDef.propertyDefs()) {
+            columns.put(propDef.name(), AspectColumn.forDef(propDef, INITIAL_CAPACITY));
+        }
+    }
+
+    /**
+     * Returns the aspect definition for aspects stored in this map.
+     *
+     * @return the aspect definition
+     */
+    @Override
+    public AspectDef aspectDef()
+    {
+        return aspectDef;
+    }
+
+    @Override
+    public int size()
+    {
+        return rowIndex.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return rowIndex.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return rowIndex.containsKey(key);
+    }
+
+    /**
+     * Checks whether the given aspect is a live view onto a row of this map.
+     * Aspects stored in this map are copied into columns, so only the views
+     * returned by this map are ever contained in it.
+     *
+     * @param value the aspect to check for
+     * @return true if the value is a view onto an entity in this map
+     */
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return value instanceof ColumnarAspectImpl view && view.map() == this && rowIndex.containsKey(view.entity());
+    }
+
+    /**
+     * Returns a view of the aspect stored for the given entity.
+     *
+     * @param key the entity whose aspect is requested
+     * @return a view onto the entity's row, or null if the entity is not in this map
+     */
+    @Override
+    public Aspect get(Object key)
+    {
+        int row = rowIndex.slotOf(key);
+        return row < 0 ? null : new ColumnarAspectImpl(this, rowIndex.keyAt(row), row);
+    }
+
+    /**
+     * Returns a view of the aspect stored for the entity with the given global id,
+     * without creating an Entity to probe the index.
+     *
+     * @param entityId the global id of the entity
+     * @return a view onto the entity's row, or null if the entity is not in this map
+     */
+    @Override
+    public Aspect aspect(@NotNull UUID entityId)
+    {
+        int row = rowIndex.slotOfId(entityId);
+        return row < 0 ? null : new ColumnarAspectImpl(this, rowIndex.keyAt(row), row);
+    }
+
+    /**
+     * Copies the properties of the given aspect into the row for the given entity,
+     * adding a row if the entity is not already present. Properties that the aspect
+     * does not contain are cleared, so that they read as their default value.
+     *
+     * @param key the entity to store the aspect for
+     * @param value the aspect whose values are to be copied
+     * @return a detached copy of the previous values for the entity, or null if the entity was not present
+     */
+    @Override
+    public Aspect put(Entity key, Aspect value)
+    {
+        Objects.requireNonNull(key, "AspectMap keys may not be null.");
+        Objects.requireNonNull(value, "AspectMap values may not be null.");
+        int existing = rowIndex.slotOf(key);
+        if (existing >= 0 && value instanceof ColumnarAspectImpl view && view.map() == this && key.equals(view.entity())) {
+            return view;
+        }
+        Aspect previous = null;
+        int row;
+        if (existing >= 0) {
+            row = existing;
+            previous = snapshot(row);
+        } else {
+            row = addRow(key);
+        }
+        for (AspectColumn column : columns.values()) {
+            String propName = column.def.name();
+            if (value.contains(propName)) {
+                column.write(row, value.unsafeReadObj(propName));
+            } else {
+                column.unset(row);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the given entity from this map.
+     *
+     * @param key the entity to remove
+     * @return a detached copy of the removed values, or null if the entity was not present
+     */
+    @Override
+    public Aspect remove(Object key)
+    {
+        int row = rowIndex.slotOf(key);
+        if (row < 0) {
+            return null;
+        }
+        Aspect previous = snapshot(row);
+        removeRow(row);
+        compactIfNeeded();
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        for (AspectColumn column : columns.values()) {
+            column.clear();
+        }
+        rowIndex.clear();
+        live.clear();
+        modCount++;
+    }
+
+    @Override
+    public @NotNull Set<Entry<Entity, Aspect>> entrySet()
+    {
+        Set<Entry<Entity, Aspect>> es = entrySet;
+        if (es == null) {
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    @Override
+    public @NotNull Set<Entity> keySet()
+    {
+        Set<Entity> ks = keySet;
+        if (ks == null) {
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    @Override
+    public @NotNull Collection<Aspect> values()
+    {
+        Collection<Aspect> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * Returns the entities whose value of the given Integer property lies
+     * between min and max inclusive, in insertion order, by scanning the
+     * property's column rather than reading each aspect. Null values never
+     * match; entities that were never assigned a value match if the property's
+     * default value does.
+     *
+     * @param propName the name of a single-valued Integer property
+     * @param min the lowest matching value
+     * @param max the highest matching value
+     * @param parallel whether to scan the column in parallel
+     * @return the matching entities
+     * @throws IllegalArgumentException if the property is not stored in an Integer column
+     */
+    public @NotNull List<Entity> scanRange(@NotNull String propName, long min, long max, boolean parallel)
+    {
+        if (!(columns.get(propName) instanceof AspectColumn.LongColumn column)) {
+            throw new IllegalArgumentException("Property '" + propName + "' is not stored in an Integer column.");
+        }
+        boolean defaultMatches = column.def.hasDefaultValue() && column.def.defaultValue() instanceof Number n
+            && n.longValue() >= min && n.longValue() <= max;
+        return entitiesOf(column.matchRange(min, max, rowIndex.slotsUsed(), parallel), column, defaultMatches);
+    }
+
+    /**
+     * Returns the entities whose value of the given Float property lies
+     * between min and max inclusive, in insertion order, by scanning the
+     * property's column rather than reading each aspect. Null and NaN values
+     * never match; entities that were never assigned a value match if the
+     * property's default value does.
+     *
+     * @param propName the name of a single-valued Float property
+     * @param min the lowest matching value
+     * @param max the highest matching value
+     * @param parallel whether to scan the column in parallel
+     * @return the matching entities
+     * @throws IllegalArgumentException if the property is not stored in a Float column
+     */
+    public @NotNull List<Entity> scanRange(@NotNull String propName, double min, double max, boolean parallel)
+    {
+        if (!(columns.get(propName) instanceof AspectColumn.DoubleColumn column)) {
+            throw new IllegalArgumentException("Property '" + propName + "' is not stored in a Float column.");
+        }
+        boolean defaultMatches = column.def.hasDefaultValue() && column.def.defaultValue() instanceof Number n
+            && n.doubleValue() >= min && n.doubleValue() <= max;
+        return entitiesOf(column.matchRange(min, max, rowIndex.slotsUsed(), parallel), column, defaultMatches);
+    }
+
+    private List<Entity> entitiesOf(BitSet matches, AspectColumn column, boolean defaultMatches)
+    {
+        if (defaultMatches) {
+            BitSet unassigned = (BitSet) live.clone();
+            unassigned.andNot(column.present);
+            matches.or(unassigned);
+        }
+        matches.and(live);
+        List<Entity> result = new ArrayList<>(matches.cardinality());
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            result.add(rowIndex.keyAt(row));
+        }
+        return result;
+    }
+
+    // Row access for ColumnarAspectImpl
+
+    /**
+     * Returns the current row of the given entity.
+     *
+     * @param entity the entity to look up
+     * @param hint the row the entity was last seen at
+     * @return the entity's row, or -1 if it is no longer in this map
+     */
+    int rowOf(Entity entity, int hint)
+    {
+        if (live.get(hint) && rowIndex.keyAt(hint) == entity) {
+            return hint;
+        }
+        return rowIndex.slotOf(entity);
+    }
+
+    /**
+     * Returns the column for the given property name.
+     *
+     * @param propName the name of the property
+     * @return the column, or null if no value has been stored for that property
+     */
+    AspectColumn column(String propName)
+    {
+        return columns.get(propName);
+    }
+
+    /**
+     * Returns the column for the property in the given slot of the AspectDef,
+     * looking it up by name only the first time. Columns are never replaced, so
+     * once found, a column stays valid for the slot.
+     *
+     * @param slot the slot of the property
+     * @param propName the name of the property
+     * @return the column, or null if no value has been stored for that property
+     */
+    AspectColumn column(int slot, String propName)
+    {
+        AspectColumn[] bySlot = slotColumns;
+        if (slot < bySlot.length && bySlot[slot] != null) {
+            return bySlot[slot];
+        }
+        AspectColumn column = columns.get(propName);
+        if (column != null) {
+            if (slot >= bySlot.length) {
+                bySlot = Arrays.copyOf(bySlot, Math.max(slot + 1, aspectDef.slotCount()));
+                slotColumns = bySlot;
+            }
+            bySlot[slot] = column;
+        }
+        return column;
+    }
+
+    /**
+     * Returns the column for the given property, creating it if necessary. New
+     * columns are needed for properties added to individual aspects, or added
+     * to a mutable AspectDef after this map was created.
+     *
+     * @param propDef the property definition
+     * @return the column for the property
+     */
+    AspectColumn columnFor(PropertyDef propDef)
+    {
+        return columns.computeIfAbsent(propDef.name(), n -> AspectColumn.forDef(propDef, capacity));
+    }
+
+    // Internal row management
+
+    private int addRow(Entity entity)
+    {
+        rowIndex.put(entity, null);
+        // A new entry always takes the last slot in use
+        int row = rowIndex.slotsUsed() - 1;
+        live.set(row);
+        modCount++;
+        return row;
+    }
+
+    private void removeRow(int row)
+    {
+        for (AspectColumn column : columns.values()) {
+            column.unset(row);
+        }
+        rowIndex.remove(rowIndex.keyAt(row));
+        live.clear(row);
+        modCount++;
+    }
+
+    private Aspect snapshot(int row)
+    {
+        AspectObjectMapImpl copy = new AspectObjectMapImpl(rowIndex.keyAt(row), aspectDef, columns.size());
+        for (AspectColumn column : columns.values()) {
+            if (column.isSet(row)) {
+                copy.props.put(column.def.name(), column.value(row));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Copies every aspect in this map into the target as a detached snapshot,
+     * so the copies are unaffected by later changes to this map.
+     *
+     * @param target the map to copy into
+     */
+    void copySnapshotsTo(@NotNull Map<Entity, Aspect> target)
+    {
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            target.put(rowIndex.keyAt(row), snapshot(row));
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        int rowCount = rowIndex.slotsUsed();
+        int dead = rowCount - rowIndex.size();
+        if (dead > COMPACTION_THRESHOLD && dead > rowCount / 2) {
+            rowIndex.compact();
+        }
+    }
+
+    /**
+     * Index from entity to row, where the row of an entity is its dense slot in the
+     * index. The columns follow the rows when the index moves its live entries down
+     * over removed ones, and grow along with it.
+     */
+    private final class RowIndex extends EntityIndex<Void>
+    {
+        RowIndex()
+        {
+            super(INITIAL_CAPACITY);
+        }
+
+        @Override
+        void relocated(int from, int to)
+        {
+            for (AspectColumn column : columns.values()) {
+                column.move(from, to);
+            }
+        }
+
+        @Override
+        void rebuilt(int newCapacity)
+        {
+            int rowCount = slotsUsed();
+            live.clear();
+            live.set(0, rowCount);
+            for (AspectColumn column : columns.values()) {
+                column.compacted(rowCount);
+                if (newCapacity > capacity) {
+                    column.grow(newCapacity);
+                }
+            }
+            capacity = Math.max(capacity, newCapacity);
+            modCount++;
+        }
+    }
+
+    /**
+     * Entry set view over the live rows of this map, in insertion order.
+     */
+    private final class EntrySet extends AbstractSet<Entry<Entity, Aspect>>
+    {
+        @Override
+        public @NotNull Iterator<Entry<Entity, Aspect>> iterator()
+        {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return ColumnarAspectMapImpl.this.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            ColumnarAspectMapImpl.this.clear();
+        }
+
+        @Override
+        public Spliterator<Entry<Entity, Aspect>> spliterator()
+        {
+            return new RowSpliterator<>(0, -1, 0, Spliterator.DISTINCT)
+            {
+                @Override
+                Entry<Entity, Aspect> element(int row)
+                {
+                    Entity entity = rowIndex.keyAt(row);
+                    return new SimpleImmutableEntry<>(entity, new ColumnarAspectImpl(ColumnarAspectMapImpl.this, entity, row));
+                }
+            };
+        }
+    }
+
+    /**
+     * Key set view over the live rows of this map, in insertion order.
+     */
+    private final class KeySet extends AbstractSet<Entity>
+    {
+        @Override
+        public @NotNull Iterator<Entity> iterator()
+        {
+            Iterator<Entry<Entity, Aspect>> it = new EntryIterator();
+            return new Iterator<>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Entity next()
+                {
+                    return it.next().getKey();
+                }
+
+                @Override
+                public void remove()
+                {
+                    it.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return ColumnarAspectMapImpl.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return containsKey(o);
+        }
+
+        @Override
+        public void clear()
+        {
+            ColumnarAspectMapImpl.this.clear();
+        }
+
+        @Override
+        public Spliterator<Entity> spliterator()
+        {
+            return new RowSpliterator<>(0, -1, 0, Spliterator.DISTINCT)
+            {
+                @Override
+                Entity element(int row)
+                {
+                    return rowIndex.keyAt(row);
+                }
+            };
+        }
+    }
+
+    /**
+     * Values view over the live rows of this map, in insertion order.
+     */
+    private final class Values extends AbstractCollection<Aspect>
+    {
+        @Override
+        public @NotNull Iterator<Aspect> iterator()
+        {
+            Iterator<Entry<Entity, Aspect>> it = new EntryIterator();
+            return new Iterator<>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Aspect next()
+                {
+                    return it.next().getValue();
+                }
+
+                @Override
+                public void remove()
+                {
+                    it.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return ColumnarAspectMapImpl.this.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            ColumnarAspectMapImpl.this.clear();
+        }
+
+        @Override
+        public Spliterator<Aspect> spliterator()
+        {
+            return new RowSpliterator<>(0, -1, 0, 0)
+            {
+                @Override
+                Aspect element(int row)
+                {
+                    return new ColumnarAspectImpl(ColumnarAspectMapImpl.this, rowIndex.keyAt(row), row);
+                }
+            };
+        }
+    }
+
+    /**
+     * Splits the live rows of this map by halving row ranges, so parallel streams
+     * over the views divide the work evenly. The range is bound to the rows in use
+     * at the first traversal, split or size query. Estimates are exact, and the
+     * spliterator reports SIZED and SUBSIZED, while there are no removed rows
+     * awaiting compaction.
+     */
+    private abstract class RowSpliterator<T> implements Spliterator<T>
+    {
+        private int row;
+        private int fence;
+        private int expectedModCount;
+        private final int characteristics;
+
+        RowSpliterator(int origin, int fence, int expectedModCount, int characteristics)
+        {
+            this.row = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+            this.characteristics = characteristics;
+        }
+
+        abstract T element(int row);
+
+        private int fence()
+        {
+            if (fence < 0) {
+                expectedModCount = modCount;
+                fence = rowIndex.slotsUsed();
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            int hi = fence();
+            int lo = row;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            row = mid;
+            RowSpliterator<T> outer = this;
+            return new RowSpliterator<>(lo, mid, expectedModCount, characteristics)
+            {
+                @Override
+                T element(int row)
+                {
+                    return outer.element(row);
+                }
+            };
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            int next = row < hi ? live.nextSetBit(row) : -1;
+            if (next < 0 || next >= hi) {
+                row = hi;
+                return false;
+            }
+            row = next + 1;
+            action.accept(element(next));
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            int next = row < hi ? live.nextSetBit(row) : -1;
+            row = hi;
+            for (; next >= 0 && next < hi; next = live.nextSetBit(next + 1)) {
+                action.accept(element(next));
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return fence() - row;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            int c = Spliterator.ORDERED | Spliterator.NONNULL | characteristics;
+            return rowIndex.slotsUsed() == size() ? c | Spliterator.SIZED | Spliterator.SUBSIZED : c;
+        }
+    }
+
+    /**
+     * Iterator over the live rows of this map. Rows removed through the iterator
+     * are not compacted until a later removal from the map itself.
+     */
+    private final class EntryIterator implements Iterator<Entry<Entity, Aspect>>
+    {
+        private int next = live.nextSetBit(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext()
+        {
+            return next >= 0;
+        }
+
+        @Override
+        public Entry<Entity, Aspect> next()
+        {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = live.nextSetBit(next + 1);
+            Entity entity = rowIndex.keyAt(last);
+            return new SimpleImmutableEntry<>(entity, new ColumnarAspectImpl(ColumnarAspectMapImpl.this, entity, last));
+        }
+
+        @Override
+        public void remove()
+        {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeRow(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
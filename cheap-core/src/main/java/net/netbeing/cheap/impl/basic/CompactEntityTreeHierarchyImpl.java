@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * EntityTreeHierarchy for large trees, such as file manifests, whose nodes mostly
+ * have few or no children. Nodes created through this class keep up to
+ * {@value CompactNodeImpl#INLINE_CHILDREN} children in a pair of small arrays
+ * rather than a map, allocate nothing for children until the first one is added,
+ * and only switch to a map for wider fan-out.
+ * <p>
+ * The tree can optionally maintain an index from the full path of every node to
+ * the node, so that {@link #resolve(String)} is a single hash lookup rather than
+ * a walk from the root. The index is kept up to date by changes made through the
+ * compact nodes of this tree; nodes of other types grafted into the tree are
+ * indexed when they are added, but changes made directly to their children are
+ * not seen until {@link #enablePathIndex()} is called again. Likewise, the
+ * {@linkplain #changes() change set} is marked whole by changes made through the
+ * compact nodes of this tree, but not by changes made directly to nodes of other
+ * types.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see EntityTreeHierarchyImpl
+ */
+public class CompactEntityTreeHierarchyImpl extends EntityTreeHierarchyImpl
+{
+    /**
+     * Creates a new CompactEntityTreeHierarchyImpl with an empty compact root.
+     *
+     * @param catalog    the catalog containing this hierarchy
+     * @param name       the name of this hierarchy in the catalog
+     * @param version    the version number of this hierarchy
+     * @param indexPaths whether to maintain an index of the full paths of the nodes
+     */
+    protected CompactEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, boolean indexPaths)
+    {
+        super(catalog, name, new CompactNodeImpl(null), version);
+        ((CompactNodeImpl) root()).tree = this;
+        if (indexPaths) {
+            enablePathIndex();
+        }
+    }
+
+    /**
+     * Returns whether this tree maintains an index of the full paths of its nodes.
+     *
+     * @return true if paths are indexed
+     */
+    public boolean isPathIndexed()
+    {
+        return root() instanceof CompactNodeImpl c && c.paths != null;
+    }
+
+    /**
+     * Builds, or rebuilds, the index of the full paths of the nodes in this tree,
+     * and maintains it from then on.
+     *
+     * @throws IllegalStateException if the root is not a compact node
+     */
+    public void enablePathIndex()
+    {
+        if (!(root() instanceof CompactNodeImpl c)) {
+            throw new IllegalStateException("Paths can only be indexed under a compact root node.");
+        }
+        c.paths = new HashMap<>();
+        c.index("", c);
+    }
+
+    /**
+     * Discards the index of the full paths of the nodes in this tree.
+     */
+    public void disablePathIndex()
+    {
+        if (root() instanceof CompactNodeImpl c) {
+            c.paths = null;
+        }
+    }
+
+    /**
+     * Sets a new root node, moving the path index to it if this tree is indexed.
+     *
+     * @param newRoot the new root
+     * @throws IllegalStateException if paths are indexed and the new root is not a compact node
+     */
+    @Override
+    public void setRoot(@NotNull Node newRoot)
+    {
+        boolean indexed = isPathIndexed();
+        if (indexed && !(newRoot instanceof CompactNodeImpl)) {
+            throw new IllegalStateException("Paths can only be indexed under a compact root node.");
+        }
+        disablePathIndex();
+        if (root() instanceof CompactNodeImpl c && c.tree == this) {
+            c.tree = null;
+        }
+        super.setRoot(newRoot);
+        if (newRoot instanceof CompactNodeImpl c) {
+            c.tree = this;
+        }
+        if (indexed) {
+            enablePathIndex();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Uses the path index when it is enabled.
+     */
+    @Override
+    public Node resolve(@NotNull String path)
+    {
+        if (root() instanceof CompactNodeImpl c && c.paths != null) {
+            return c.paths.get(path);
+        }
+        return super.resolve(path);
+    }
+
+    /**
+     * Returns a stream over the node at the given path and all of its descendants,
+     * or an empty stream if there is no node at that path.
+     *
+     * @param path     the path of the subtree root; see {@link #resolve(String)}
+     * @param parallel whether to return a parallel stream
+     * @return a stream over every node in the subtree
+     */
+    public @NotNull Stream<Node> subtree(@NotNull String path, boolean parallel)
+    {
+        Node node = resolve(path);
+        return node == null ? Stream.empty() : nodes(node, parallel);
+    }
+
+    /**
+     * Tree node that stores a small number of children inline in parallel arrays,
+     * in insertion order, and switches to a linked hash map once it has more than
+     * {@value #INLINE_CHILDREN} children. Child names may not be null.
+     * <p>
+     * Each node maintains the size of its subtree, adjusting it and the sizes of its
+     * compact ancestors as children are added and removed, so that
+     * {@link #subtreeSize()} is constant time and {@link #subtreePage(long, int)}
+     * skips whole subtrees. The size of a child of another node type is taken when
+     * it is added; later changes made directly to that child are not counted.
+     */
+    public static class CompactNodeImpl extends AbstractMap<String, Node> implements Node
+    {
+        /** Maximum number of children held in the inline arrays. */
+        static final int INLINE_CHILDREN = 8;
+
+        private final Node parent;
+        private Entity value;
+
+        /** The name of this node in its parent, or null for a root. */
+        private String name;
+
+        /** Inline child names and nodes; null until the first child is added. */
+        private String[] keys;
+        private Node[] nodes;
+        private int count;
+
+        /** Children, once there are too many to keep inline. */
+        private LinkedHashMap<String, Node> map;
+
+        /** Index of the full paths of the tree, on the root of an indexed tree only. */
+        private HashMap<String, Node> paths;
+
+        /** The tree this node is the root of, or null. */
+        private CompactEntityTreeHierarchyImpl tree;
+
+        /** Number of nodes in the subtree rooted at this node, including itself. */
+        private long subtreeSize = 1;
+
+        private int modCount;
+
+        /**
+         * Creates a new CompactNodeImpl with the specified entity value and no parent.
+         *
+         * @param value the entity value to store at this node
+         */
+        public CompactNodeImpl(Entity value)
+        {
+            this(value, null);
+        }
+
+        /**
+         * Creates a new CompactNodeImpl with the specified entity value and parent.
+         *
+         * @param value  the entity value to store at this node
+         * @param parent the parent node, or null for root nodes
+         */
+        public CompactNodeImpl(Entity value, Node parent)
+        {
+            this.value = value;
+            this.parent = parent;
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return size() == 0;
+        }
+
+        @Override
+        public Node getParent()
+        {
+            return parent;
+        }
+
+        @Override
+        public Entity value()
+        {
+            return value;
+        }
+
+        @Override
+        public void setValue(Entity entity)
+        {
+            value = entity;
+            changed();
+        }
+
+        @Override
+        public int size()
+        {
+            return map != null ? map.size() : count;
+        }
+
+        @Override
+        public long subtreeSize()
+        {
+            return subtreeSize;
+        }
+
+        private static long sizeOf(Node node)
+        {
+            return node == null ? 0 : node.subtreeSize();
+        }
+
+        /**
+         * Returns the parent of this node if it is a compact node and this node is
+         * currently one of its children, or null otherwise. A node created with a
+         * parent is not part of the tree until it is added to that parent.
+         */
+        private CompactNodeImpl attachedParent()
+        {
+            return parent instanceof CompactNodeImpl p && name != null && p.get(name) == this ? p : null;
+        }
+
+        /**
+         * Adds the given delta to the subtree sizes of this node and its attached ancestors.
+         */
+        private void adjustSize(long delta)
+        {
+            if (delta == 0) {
+                return;
+            }
+            for (CompactNodeImpl c = this; c != null; c = c.attachedParent()) {
+                c.subtreeSize += delta;
+            }
+        }
+
+        private int slot(Object key)
+        {
+            for (int i = 0; i < count; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return map != null ? map.containsKey(key) : slot(key) >= 0;
+        }
+
+        @Override
+        public Node get(Object key)
+        {
+            if (map != null) {
+                return map.get(key);
+            }
+            int i = slot(key);
+            return i < 0 ? null : nodes[i];
+        }
+
+        @Override
+        public Node put(String key, Node node)
+        {
+            Objects.requireNonNull(key, "Child names may not be null.");
+            Node previous;
+            if (map != null) {
+                previous = map.put(key, node);
+            } else {
+                int i = slot(key);
+                if (i >= 0) {
+                    previous = nodes[i];
+                    nodes[i] = node;
+                } else {
+                    previous = null;
+                    append(key, node);
+                }
+            }
+            if (previous == null) {
+                modCount++;
+            }
+            adjustSize(sizeOf(node) - sizeOf(previous));
+            if (node instanceof CompactNodeImpl c) {
+                c.name = key;
+            }
+            CompactNodeImpl root = indexedRoot();
+            if (root != null) {
+                String path = childPath(key);
+                if (previous != null) {
+                    root.unindex(path, previous);
+                }
+                root.index(path, node);
+            }
+            changed();
+            return previous;
+        }
+
+        private void append(String key, Node node)
+        {
+            if (keys == null) {
+                keys = new String[2];
+                nodes = new Node[2];
+            } else if (count == keys.length) {
+                if (count == INLINE_CHILDREN) {
+                    map = LinkedHashMap.newLinkedHashMap(INLINE_CHILDREN * 2);
+                    for (int i = 0; i < count; i++) {
+                        map.put(keys[i], nodes[i]);
+                    }
+                    map.put(key, node);
+                    keys = null;
+                    nodes = null;
+                    count = 0;
+                    return;
+                }
+                keys = Arrays.copyOf(keys, count * 2);
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+            keys[count] = key;
+            nodes[count] = node;
+            count++;
+        }
+
+        @Override
+        public Node remove(Object key)
+        {
+            Node removed;
+            if (map != null) {
+                if (!map.containsKey(key)) {
+                    return null;
+                }
+                removed = map.remove(key);
+            } else {
+                int i = slot(key);
+                if (i < 0) {
+                    return null;
+                }
+                removed = nodes[i];
+                removeSlot(i);
+            }
+            modCount++;
+            adjustSize(-sizeOf(removed));
+            unindexChild((String) key, removed);
+            changed();
+            return removed;
+        }
+
+        private void removeSlot(int i)
+        {
+            int tail = count - i - 1;
+            System.arraycopy(keys, i + 1, keys, i, tail);
+            System.arraycopy(nodes, i + 1, nodes, i, tail);
+            count--;
+            keys[count] = null;
+            nodes[count] = null;
+            if (count == 0) {
+                keys = null;
+                nodes = null;
+            }
+        }
+
+        @Override
+        public void clear()
+        {
+            if (indexedRoot() != null) {
+                for (Entry<String, Node> e : entrySet()) {
+                    unindexChild(e.getKey(), e.getValue());
+                }
+            }
+            keys = null;
+            nodes = null;
+            count = 0;
+            map = null;
+            modCount++;
+            adjustSize(1 - subtreeSize);
+            changed();
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Node>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<Entry<String, Node>> iterator()
+                {
+                    return map != null ? new MapIterator() : new InlineIterator();
+                }
+
+                @Override
+                public int size()
+                {
+                    return CompactNodeImpl.this.size();
+                }
+
+                @Override
+                public void clear()
+                {
+                    CompactNodeImpl.this.clear();
+                }
+            };
+        }
+
+        /**
+         * Returns the root of this node's tree if this node is attached to it through
+         * compact nodes and the tree maintains a path index, or null otherwise.
+         */
+        private CompactNodeImpl indexedRoot()
+        {
+            CompactNodeImpl top = top();
+            return top != null && top.paths != null ? top : null;
+        }
+
+        /**
+         * Returns the root of this node's tree if this node is attached to it through
+         * compact nodes, or null otherwise.
+         */
+        private CompactNodeImpl top()
+        {
+            CompactNodeImpl top = this;
+            while (top.parent != null) {
+                top = top.attachedParent();
+                if (top == null) {
+                    return null;
+                }
+            }
+            return top;
+        }
+
+        /**
+         * Notes a change to this node, in the change set of the tree it is attached to.
+         */
+        private void changed()
+        {
+            CompactNodeImpl top = top();
+            if (top != null && top.tree != null) {
+                top.tree.written();
+            }
+        }
+
+        /**
+         * Returns the full path of the child of this node with the given name. Only
+         * valid while this node is attached to an indexed root.
+         */
+        private String childPath(String key)
+        {
+            StringBuilder path = new StringBuilder(key);
+            for (CompactNodeImpl c = this; c.parent != null; c = (CompactNodeImpl) c.parent) {
+                path.insert(0, PATH_SEPARATOR).insert(0, c.name);
+            }
+            return path.toString();
+        }
+
+        /**
+         * Adds the given node, and all of its descendants, to the path index.
+         */
+        private void index(String path, Node node)
+        {
+            forEachPath(path, node, paths::put);
+        }
+
+        /**
+         * Removes the given node, and all of its descendants, from the path index.
+         */
+        private void unindex(String path, Node node)
+        {
+            forEachPath(path, node, paths::remove);
+        }
+
+        private void unindexChild(String key, Node removed)
+        {
+            CompactNodeImpl root = indexedRoot();
+            if (root != null) {
+                root.unindex(childPath(key), removed);
+            }
+        }
+
+        private static void forEachPath(String path, Node node, BiConsumer<String, Node> action)
+        {
+            ArrayDeque<Map.Entry<String, Node>> pending = new ArrayDeque<>();
+            pending.push(new SimpleImmutableEntry<>(path, node));
+            while (!pending.isEmpty()) {
+                Map.Entry<String, Node> next = pending.pop();
+                String prefix = next.getKey();
+                action.accept(prefix, next.getValue());
+                if (next.getValue() != null && !next.getValue().isLeaf()) {
+                    for (Entry<String, Node> child : next.getValue().entrySet()) {
+                        String childPath = prefix.isEmpty() ? child.getKey() : prefix + PATH_SEPARATOR + child.getKey();
+                        pending.push(new SimpleImmutableEntry<>(childPath, child.getValue()));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return this == o || o instanceof CompactNodeImpl && super.equals(o);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return super.hashCode();
+        }
+
+        /**
+         * Entry for a child; setting its value replaces the child in this node.
+         */
+        private final class ChildEntry implements Entry<String, Node>
+        {
+            private final String key;
+            private Node node;
+
+            private ChildEntry(String key, Node node)
+            {
+                this.key = key;
+                this.node = node;
+            }
+
+            @Override
+            public String getKey()
+            {
+                return key;
+            }
+
+            @Override
+            public Node getValue()
+            {
+                return node;
+            }
+
+            @Override
+            public Node setValue(Node value)
+            {
+                Node old = node;
+                put(key, value);
+                node = value;
+                return old;
+            }
+
+            @Override
+            public boolean equals(Object o)
+            {
+                return o instanceof Entry<?, ?> e && key.equals(e.getKey()) && Objects.equals(node, e.getValue());
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return key.hashCode() ^ Objects.hashCode(node);
+            }
+        }
+
+        private final class InlineIterator implements Iterator<Entry<String, Node>>
+        {
+            private int next;
+            private int last = -1;
+            private int expected = modCount;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < count;
+            }
+
+            @Override
+            public Entry<String, Node> next()
+            {
+                if (modCount != expected || map != null) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return new ChildEntry(keys[last], nodes[last]);
+            }
+
+            @Override
+            public void remove()
+            {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                String key = keys[last];
+                Node removed = nodes[last];
+                removeSlot(last);
+                modCount++;
+                adjustSize(-sizeOf(removed));
+                unindexChild(key, removed);
+                changed();
+                next = last;
+                last = -1;
+                expected = modCount;
+            }
+        }
+
+        private final class MapIterator implements Iterator<Entry<String, Node>>
+        {
+            private final Iterator<Entry<String, Node>> it = map.entrySet().iterator();
+            private Entry<String, Node> last;
+
+            @Override
+            public boolean hasNext()
+            {
+                return it.hasNext();
+            }
+
+            @Override
+            public Entry<String, Node> next()
+            {
+                last = it.next();
+                return new ChildEntry(last.getKey(), last.getValue());
+            }
+
+            @Override
+            public void remove()
+            {
+                it.remove();
+                modCount++;
+                adjustSize(-sizeOf(last.getValue()));
+                unindexChild(last.getKey(), last.getValue());
+                changed();
+                last = null;
+            }
+        }
+    }
+}
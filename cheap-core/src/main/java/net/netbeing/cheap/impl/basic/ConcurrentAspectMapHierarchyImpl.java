@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe implementation of an AspectMapHierarchy, backed by a
+ * ConcurrentHashMap. Lookups never lock and updates to different entities
+ * proceed in parallel; each single-entity operation is linearizable. Iteration
+ * is weakly consistent and not in insertion order. Null entities and aspects
+ * are not permitted.
+ *
+ * @see ConcurrentCatalogImpl
+ * @see AspectMapHierarchyImpl
+ */
+public class ConcurrentAspectMapHierarchyImpl extends AspectMapHierarchyImpl
+{
+    /**
+     * Creates a new ConcurrentAspectMapHierarchyImpl to contain the given AspectDef with version.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     */
+    protected ConcurrentAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version)
+    {
+        super(catalog, aspectDef, version, new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.CatalogConcurrency;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.IdGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Thread-safe implementation of a Catalog, for catalogs shared between threads
+ * such as those held by a server. See {@link CatalogConcurrency#CONCURRENT} for
+ * the guarantees provided.
+ * <p>
+ * The hierarchy and aspect definition directories are copy-on-write: lookups and
+ * iteration never lock and see an immutable snapshot, while adding a hierarchy is
+ * serialized. Adding a hierarchy publishes its AspectDef (if any) before the
+ * hierarchy itself. All hierarchies created by this catalog are the concurrent
+ * implementations.
+ *
+ * @see CatalogConcurrency
+ * @see CatalogImpl
+ */
+public class ConcurrentCatalogImpl extends CatalogImpl
+{
+    /**
+     * Creates a new non-strict concurrent SINK catalog.
+     */
+    public ConcurrentCatalogImpl()
+    {
+        this(IdGenerator.timeOrdered().newId(), CatalogSpecies.SINK, null, 0L);
+    }
+
+    /**
+     * Creates a new non-strict concurrent SINK catalog with the given global id.
+     *
+     * @param globalId the global identifier for the catalog
+     */
+    public ConcurrentCatalogImpl(UUID globalId)
+    {
+        this(globalId, CatalogSpecies.SINK, null, 0L);
+    }
+
+    /**
+     * Creates a new non-strict concurrent catalog with the specified species and upstream.
+     *
+     * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
+     */
+    public ConcurrentCatalogImpl(CatalogSpecies species, UUID upstream)
+    {
+        this(IdGenerator.timeOrdered().newId(), species, upstream, 0L);
+    }
+
+    /**
+     * Creates a new concurrent catalog with the specified definition and upstream catalog.
+     *
+     * @param upstream the upstream catalog to mirror, or null for root catalogs
+     * @param version the version number of this catalog
+     * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
+     */
+    public ConcurrentCatalogImpl(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream, long version)
+    {
+        super(globalId, species, upstream, version, new CopyOnWriteMap<>(), new CopyOnWriteMap<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Additions are serialized, so the check for an existing hierarchy of the
+     * same name and the addition itself are atomic.
+     */
+    @Override
+    public synchronized Hierarchy addHierarchy(@NotNull Hierarchy hierarchy)
+    {
+        return super.addHierarchy(hierarchy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Serialized with additions, so the hierarchy and aspect maps are updated
+     * together and never seen out of step.
+     */
+    @Override
+    public synchronized Hierarchy removeHierarchy(@NotNull String name)
+    {
+        return super.removeHierarchy(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Serialized with additions, so the root hash is updated by one thread at a
+     * time. Changes may be reported by any thread meanwhile.
+     */
+    @Override
+    public synchronized long hash()
+    {
+        return super.hash();
+    }
+
+    /**
+     * Creates a new concurrent EntityListHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityListHierarchy
+     */
+    @Override
+    public EntityListHierarchy createEntityList(@NotNull String name, long version, int initialCapacity)
+    {
+        EntityListHierarchy hierarchy = new ConcurrentEntityListHierarchyImpl(this, name, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new concurrent EntitySetHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntitySetHierarchy
+     */
+    @Override
+    public EntitySetHierarchy createEntitySet(@NotNull String name, long version, int initialCapacity)
+    {
+        EntitySetHierarchy hierarchy = new ConcurrentEntitySetHierarchyImpl(this, name, version, initialCapacity);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new concurrent EntityDirectoryHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityDirectoryHierarchy
+     */
+    @Override
+    public EntityDirectoryHierarchy createEntityDirectory(@NotNull String name, long version, int initialCapacity)
+    {
+        EntityDirectoryHierarchy hierarchy = new ConcurrentEntityDirectoryHierarchyImpl(this, name, version, initialCapacity);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new concurrent EntityTreeHierarchy with the specified name and adds it to this catalog.
+     * If no root is given, the root is a concurrent node with a null entity.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityTreeHierarchy
+     */
+    @Override
+    public EntityTreeHierarchy createEntityTree(@NotNull String name, EntityTreeHierarchy.Node root, long version)
+    {
+        if (root == null) {
+            root = new ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl(null);
+        }
+        EntityTreeHierarchy hierarchy = new ConcurrentEntityTreeHierarchyImpl(this, name, root, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new concurrent AspectMapHierarchy for the specified AspectDef and adds
+     * it to this catalog. Only {@link AspectMapStorage#OBJECT} storage is supported.
+     *
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param storage the storage layout for the aspects in this hierarchy
+     * @return the newly created AspectMapHierarchy
+     * @throws UnsupportedOperationException if the storage layout is not OBJECT
+     */
+    @Override
+    public AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version, @NotNull AspectMapStorage storage)
+    {
+        if (storage != AspectMapStorage.OBJECT) {
+            throw new UnsupportedOperationException("AspectMap storage " + storage + " is not supported by concurrent catalogs.");
+        }
+        AspectMapHierarchy hierarchy = new ConcurrentAspectMapHierarchyImpl(this, aspectDef, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates an empty concurrent hierarchy of the given type that is owned by,
+     * but not added to, this catalog.
+     *
+     * @param type the type of the hierarchy, which may not be ASPECT_MAP
+     * @param name the name of the hierarchy
+     * @param version the version number of the hierarchy
+     * @return the new hierarchy
+     */
+    @Override
+    protected @NotNull Hierarchy newHierarchy(@NotNull HierarchyType type, @NotNull String name, long version)
+    {
+        return switch (type) {
+            case ENTITY_LIST -> new ConcurrentEntityListHierarchyImpl(this, name, version);
+            case ENTITY_SET -> new ConcurrentEntitySetHierarchyImpl(this, name, version, DEFAULT_HIERARCHY_COLLECTION_SIZE);
+            case ENTITY_DIR -> new ConcurrentEntityDirectoryHierarchyImpl(this, name, version, DEFAULT_HIERARCHY_COLLECTION_SIZE);
+            case ENTITY_TREE -> new ConcurrentEntityTreeHierarchyImpl(this, name,
+                new ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl(null), version);
+            case ASPECT_MAP -> throw new IllegalArgumentException("AspectMap hierarchies must be created with newAspectMap.");
+        };
+    }
+
+    /**
+     * Creates an empty concurrent AspectMapHierarchy that is owned by, but not
+     * added to, this catalog.
+     *
+     * @param aspectDef the aspect definition for aspects in the hierarchy
+     * @param version the version number of the hierarchy
+     * @return the new hierarchy
+     */
+    @Override
+    protected @NotNull AspectMapHierarchy newAspectMap(@NotNull AspectDef aspectDef, long version)
+    {
+        return new ConcurrentAspectMapHierarchyImpl(this, aspectDef, version);
+    }
+
+    /**
+     * Not supported, as entity dictionaries are not thread-safe.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public @NotNull EntityDictionary entityDictionary()
+    {
+        throw new UnsupportedOperationException("Entity dictionaries are not supported by concurrent catalogs.");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thread-safe implementation of an EntityListHierarchy, backed by a
+ * {@link ConcurrentVectorList}. Reads and iteration never lock and iterate an
+ * immutable snapshot, while mutations are serialized and share all unchanged
+ * structure with the previous contents, so appending takes O(log32 n) rather than
+ * copying the list. Each mutation is linearizable. Iterators do not support
+ * removal.
+ *
+ * @see ConcurrentCatalogImpl
+ * @see EntityListHierarchyImpl
+ */
+public class ConcurrentEntityListHierarchyImpl extends EntityListHierarchyImpl
+{
+    /**
+     * Creates a new ConcurrentEntityListHierarchyImpl with the specified hierarchy definition and version.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     */
+    protected ConcurrentEntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version)
+    {
+        super(catalog, name, version, new ConcurrentVectorList<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Always false, since the list may be changed while its hash is computed.
+     */
+    @Override
+    protected boolean cachesContentHash()
+    {
+        return false;
+    }
+}
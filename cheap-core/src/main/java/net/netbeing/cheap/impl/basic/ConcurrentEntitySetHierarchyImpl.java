@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe implementation of an EntitySetHierarchy, backed by a concurrent
+ * hash set. Membership tests never lock and each add or remove is linearizable.
+ * Iteration is weakly consistent and not in insertion order. Null entities are
+ * not permitted.
+ *
+ * @see ConcurrentCatalogImpl
+ * @see EntitySetHierarchyImpl
+ */
+public class ConcurrentEntitySetHierarchyImpl extends EntitySetHierarchyImpl
+{
+    /**
+     * Creates a new ConcurrentEntitySetHierarchyImpl with the specified hierarchy
+     * definition, version and initial capacity.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param initialCapacity initial capacity of set
+     */
+    protected ConcurrentEntitySetHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, int initialCapacity)
+    {
+        super(catalog, name, version, ConcurrentHashMap.newKeySet(initialCapacity));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thread-safe implementation of an EntityTreeHierarchy. The root may be replaced
+ * safely from any thread, and nodes created through this class (or by
+ * {@link ConcurrentCatalogImpl}) keep their children in a copy-on-write map, so
+ * that navigating the tree never locks and sees a consistent snapshot of each
+ * node's children, while each change to a node is linearizable.
+ *
+ * @see ConcurrentCatalogImpl
+ * @see EntityTreeHierarchyImpl
+ */
+public class ConcurrentEntityTreeHierarchyImpl extends EntityTreeHierarchyImpl
+{
+    /**
+     * Creates a new ConcurrentEntityTreeHierarchyImpl with the specified hierarchy
+     * definition, root node, and version.
+     *
+     * @param catalog  the catalog containing this hierarchy
+     * @param name     the name of this hierarchy in the catalog
+     * @param rootNode the node to use as the root of the tree
+     * @param version  the version number of this hierarchy
+     */
+    protected ConcurrentEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, Node rootNode, long version)
+    {
+        super(catalog, name, rootNode, version);
+    }
+
+    /**
+     * Thread-safe tree node whose children are held in a copy-on-write map.
+     * Child views and iterators are read-only snapshots.
+     */
+    public static class ConcurrentNodeImpl extends NodeImpl
+    {
+        /**
+         * Creates a new ConcurrentNodeImpl with the specified entity value and no parent.
+         *
+         * @param value the entity value to store at this node
+         */
+        public ConcurrentNodeImpl(Entity value)
+        {
+            this(value, null);
+        }
+
+        /**
+         * Creates a new ConcurrentNodeImpl with the specified entity value and parent.
+         *
+         * @param value  the entity value to store at this node
+         * @param parent the parent node, or null for root nodes
+         */
+        public ConcurrentNodeImpl(Entity value, Node parent)
+        {
+            super(value, parent, new CopyOnWriteMap<>());
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Always false, since the children may change while the subtree is hashed.
+         */
+        @Override
+        protected boolean cachesSubtreeHash()
+        {
+            return false;
+        }
+    }
+}
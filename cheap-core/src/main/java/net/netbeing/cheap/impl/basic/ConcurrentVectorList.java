@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe List for lists shared between threads, backed by a
+ * {@link PersistentVector}.
+ * <p>
+ * Reads go to an immutable vector published through a volatile field and never
+ * lock. Every write forks the vector under a lock, applies the change to the fork
+ * as a {@link ForkableList} and publishes the result, so each operation (including
+ * the bulk ones) is atomic and linearizable. Since the fork shares all unchanged
+ * structure, appending, {@code set} and removing the last element take O(log32 n);
+ * inserting or removing elsewhere rebuilds the part of the list after the affected
+ * index. Iterators, list iterators and spliterators are read-only snapshots.
+ *
+ * @param <E> the type of elements
+ * @see CopyOnWriteMap
+ */
+class ConcurrentVectorList<E> extends AbstractList<E> implements RandomAccess
+{
+    private volatile PersistentVector<E> vector = PersistentVector.empty();
+
+    /**
+     * Fork the current vector, apply the given change to the fork and publish it.
+     * Structural changes invalidate sublists.
+     */
+    private synchronized <R> R mutate(boolean structural, Function<List<E>, R> change)
+    {
+        ForkableList<E> fork = new ForkableList<>(vector);
+        R result = change.apply(fork);
+        vector = fork.vector();
+        if (structural) {
+            modCount++;
+        }
+        return result;
+    }
+
+    @Override
+    public int size()
+    {
+        return vector.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return vector.isEmpty();
+    }
+
+    @Override
+    public E get(int index)
+    {
+        return vector.get(index);
+    }
+
+    @Override
+    public @NotNull Iterator<E> iterator()
+    {
+        return vector.iterator();
+    }
+
+    @Override
+    public @NotNull ListIterator<E> listIterator(int index)
+    {
+        return vector.listIterator(index);
+    }
+
+    @Override
+    public @NotNull Spliterator<E> spliterator()
+    {
+        return vector.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action)
+    {
+        vector.forEach(action);
+    }
+
+    @Override
+    public Object @NotNull [] toArray()
+    {
+        return vector.toArray();
+    }
+
+    @Override
+    public <T> T @NotNull [] toArray(T @NotNull [] a)
+    {
+        return vector.toArray(a);
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        return mutate(true, l -> l.add(e));
+    }
+
+    @Override
+    public void add(int index, E element)
+    {
+        mutate(true, l -> {
+            l.add(index, element);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends E> c)
+    {
+        return mutate(true, l -> l.addAll(c));
+    }
+
+    @Override
+    public boolean addAll(int index, @NotNull Collection<? extends E> c)
+    {
+        return mutate(true, l -> l.addAll(index, c));
+    }
+
+    @Override
+    public E set(int index, E element)
+    {
+        return mutate(false, l -> l.set(index, element));
+    }
+
+    @Override
+    public E remove(int index)
+    {
+        return mutate(true, l -> l.remove(index));
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (!vector.contains(o)) {
+            return false;
+        }
+        return mutate(true, l -> l.remove(o));
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c)
+    {
+        return mutate(true, l -> l.removeAll(c));
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c)
+    {
+        return mutate(true, l -> l.retainAll(c));
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter)
+    {
+        return mutate(true, l -> l.removeIf(filter));
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator)
+    {
+        mutate(false, l -> {
+            l.replaceAll(operator);
+            return null;
+        });
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c)
+    {
+        mutate(false, l -> {
+            l.sort(c);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        vector = PersistentVector.empty();
+        modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+        mutate(true, l -> {
+            l.subList(fromIndex, toIndex).clear();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * An aspect that reads through to an aspect shared with other catalogs, and makes a
+ * private copy on its first write. The copy is handed to the hierarchy that gave out
+ * this aspect, which stores it in place of the shared one, so the write and any later
+ * ones are seen only through that hierarchy.
+ * <p>
+ * Used by forked and overlay hierarchies, which share aspects by reference with their
+ * sources until they change them. Not thread-safe.
+ */
+final class CopyOnWriteAspect implements Aspect
+{
+    private final Aspect shared;
+    private final Consumer<Aspect> install;
+    private Aspect copy;
+
+    /**
+     * Creates a copy-on-write view of a shared aspect.
+     *
+     * @param shared  the shared aspect
+     * @param install receives the private copy when it is made
+     */
+    CopyOnWriteAspect(@NotNull Aspect shared, @NotNull Consumer<Aspect> install)
+    {
+        this.shared = shared;
+        this.install = install;
+    }
+
+    /**
+     * Returns an independent copy of an aspect, holding the same values for the
+     * properties of its AspectDef.
+     *
+     * @param aspect the aspect to copy
+     * @return the copy
+     */
+    static @NotNull Aspect copyOf(@NotNull Aspect aspect)
+    {
+        AspectObjectMapImpl copy = new AspectObjectMapImpl(aspect.entity(), aspect.def());
+        for (PropertyDef propDef : aspect.def().propertyDefs()) {
+            Object value = aspect.unsafeReadObj(propDef.name());
+            if (value != null) {
+                copy.unsafeWrite(propDef.name(), value);
+            }
+        }
+        return copy;
+    }
+
+    private Aspect target()
+    {
+        return copy != null ? copy : shared;
+    }
+
+    private Aspect writable()
+    {
+        if (copy == null) {
+            copy = copyOf(shared);
+            install.accept(copy);
+        }
+        return copy;
+    }
+
+    @Override
+    public AspectDef def()
+    {
+        return shared.def();
+    }
+
+    @Override
+    public Entity entity()
+    {
+        return target().entity();
+    }
+
+    @Override
+    public void setEntity(@NotNull Entity entity)
+    {
+        writable().setEntity(entity);
+    }
+
+    @Override
+    public boolean isTransferable()
+    {
+        return target().isTransferable();
+    }
+
+    @Override
+    public Object unsafeReadObj(@NotNull String propName)
+    {
+        return target().unsafeReadObj(propName);
+    }
+
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return target().unsafeReadLong(propName);
+    }
+
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return target().unsafeReadDouble(propName);
+    }
+
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return target().unsafeReadBoolean(propName);
+    }
+
+    @Override
+    public void unsafeWrite(@NotNull String propName, Object value)
+    {
+        writable().unsafeWrite(propName, value);
+    }
+
+    @Override
+    public void unsafeWriteLong(@NotNull String propName, long value)
+    {
+        writable().unsafeWriteLong(propName, value);
+    }
+
+    @Override
+    public void unsafeWriteDouble(@NotNull String propName, double value)
+    {
+        writable().unsafeWriteDouble(propName, value);
+    }
+
+    @Override
+    public void unsafeWriteBoolean(@NotNull String propName, boolean value)
+    {
+        writable().unsafeWriteBoolean(propName, value);
+    }
+
+    @Override
+    public void unsafeAdd(@NotNull Property prop)
+    {
+        writable().unsafeAdd(prop);
+    }
+
+    @Override
+    public void unsafeRemove(@NotNull String propName)
+    {
+        writable().unsafeRemove(propName);
+    }
+
+    @Override
+    public long hash()
+    {
+        return target().hash();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Insertion-ordered, thread-safe Map for small, read-mostly data such as a
+ * catalog's hierarchy directory or the children of a tree node.
+ * <p>
+ * Reads go to an immutable snapshot published through a volatile field and never
+ * lock. Every write copies the snapshot under a lock, applies the change and
+ * publishes the copy, so each operation (including the compute/merge family) is
+ * atomic and linearizable. Views and iterators are read-only snapshots.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+class CopyOnWriteMap<K, V> extends AbstractMap<K, V>
+{
+    private volatile Map<K, V> snapshot = Collections.emptyMap();
+
+    /**
+     * Copy the current snapshot, apply the given change to the copy and publish it.
+     */
+    private synchronized <R> R mutate(Function<Map<K, V>, R> change)
+    {
+        Map<K, V> copy = new LinkedHashMap<>(snapshot);
+        R result = change.apply(copy);
+        snapshot = Collections.unmodifiableMap(copy);
+        return result;
+    }
+
+    @Override
+    public int size()
+    {
+        return snapshot.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return snapshot.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return snapshot.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return snapshot.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        return snapshot.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue)
+    {
+        return snapshot.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet()
+    {
+        return snapshot.entrySet();
+    }
+
+    @Override
+    public @NotNull Set<K> keySet()
+    {
+        return snapshot.keySet();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action)
+    {
+        snapshot.forEach(action);
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        return mutate(m -> m.put(key, value));
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        if (!snapshot.containsKey(key)) {
+            return null;
+        }
+        return mutate(m -> m.remove(key));
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends K, ? extends V> map)
+    {
+        mutate(m -> {
+            m.putAll(map);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        snapshot = Collections.emptyMap();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function)
+    {
+        mutate(m -> {
+            m.replaceAll(function);
+            return null;
+        });
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value)
+    {
+        return mutate(m -> m.putIfAbsent(key, value));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value)
+    {
+        return mutate(m -> m.remove(key, value));
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue)
+    {
+        return mutate(m -> m.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public V replace(K key, V value)
+    {
+        return mutate(m -> m.replace(key, value));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, @NotNull Function<? super K, ? extends V> mappingFunction)
+    {
+        V existing = snapshot.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return mutate(m -> m.computeIfAbsent(key, mappingFunction));
+    }
+
+    @Override
+    public V computeIfPresent(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+    {
+        return mutate(m -> m.computeIfPresent(key, remappingFunction));
+    }
+
+    @Override
+    public V compute(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+    {
+        return mutate(m -> m.compute(key, remappingFunction));
+    }
+
+    @Override
+    public V merge(K key, @NotNull V value, @NotNull BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+    {
+        return mutate(m -> m.merge(key, value, remappingFunction));
+    }
+}
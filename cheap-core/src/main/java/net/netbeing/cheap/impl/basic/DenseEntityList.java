@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * List of entities stored as an array of the local ids assigned by an
+ * {@link EntityDictionary}, rather than as Entity references. Entities added to the
+ * list are interned in the dictionary; null elements are allowed and stored as -1.
+ * Reading an element returns the dictionary's instance of that entity.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see DenseEntityListHierarchyImpl
+ */
+final class DenseEntityList extends AbstractList<Entity> implements RandomAccess
+{
+    private static final int NULL_ID = -1;
+
+    private final EntityDictionary dictionary;
+    private int[] ids;
+    private int size;
+
+    /**
+     * Creates an empty list over the given dictionary.
+     *
+     * @param dictionary the dictionary assigning local ids
+     * @param initialCapacity the number of elements to allocate room for
+     */
+    DenseEntityList(@NotNull EntityDictionary dictionary, int initialCapacity)
+    {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        this.dictionary = dictionary;
+        this.ids = new int[Math.max(initialCapacity, 8)];
+    }
+
+    private int idFor(Entity entity)
+    {
+        return entity == null ? NULL_ID : dictionary.intern(entity);
+    }
+
+    private Entity entityFor(int id)
+    {
+        return id == NULL_ID ? null : dictionary.entity(id);
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(capacity, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    /**
+     * Returns the local id stored at the given position, or -1 for a null element.
+     *
+     * @param index the position in the list
+     * @return the local id at that position
+     */
+    int idAt(int index)
+    {
+        Objects.checkIndex(index, size);
+        return ids[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public Entity get(int index)
+    {
+        return entityFor(idAt(index));
+    }
+
+    @Override
+    public Entity set(int index, Entity element)
+    {
+        Entity old = get(index);
+        ids[index] = idFor(element);
+        return old;
+    }
+
+    @Override
+    public boolean add(Entity element)
+    {
+        int id = idFor(element);
+        ensureCapacity(size + 1);
+        ids[size++] = id;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Entity element)
+    {
+        Objects.checkIndex(index, size + 1);
+        int id = idFor(element);
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Entity remove(int index)
+    {
+        Entity old = get(index);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+        System.arraycopy(ids, toIndex, ids, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the local id to search for, -2 if the object cannot be in the list.
+     */
+    private int searchId(Object o)
+    {
+        if (o == null) {
+            return NULL_ID;
+        }
+        int id = dictionary.idOf(o);
+        return id < 0 ? -2 : id;
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        int id = searchId(o);
+        if (id != -2) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o)
+    {
+        int id = searchId(o);
+        if (id != -2) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return indexOf(o) >= 0;
+    }
+}
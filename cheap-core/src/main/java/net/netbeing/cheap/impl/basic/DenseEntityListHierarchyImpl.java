@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implementation of an EntityListHierarchy that stores the local ids assigned by
+ * an {@link EntityDictionary} in an {@code int} array, rather than a list of Entity
+ * references. Not thread-safe.
+ *
+ * @see CatalogImpl#entityDictionary()
+ * @see EntityListHierarchyImpl
+ */
+public class DenseEntityListHierarchyImpl extends EntityListHierarchyImpl
+{
+    private final EntityDictionary dictionary;
+
+    /**
+     * Creates a new, empty DenseEntityListHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param initialCapacity initial capacity of the list
+     * @param dictionary the dictionary assigning local ids to the entities
+     */
+    protected DenseEntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version,
+                                           int initialCapacity, @NotNull EntityDictionary dictionary)
+    {
+        super(catalog, name, version, new DenseEntityList(dictionary, initialCapacity));
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the dictionary assigning local ids to the entities of this list.
+     *
+     * @return the entity dictionary
+     */
+    public @NotNull EntityDictionary dictionary()
+    {
+        return dictionary;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Set of entities stored as a compressed {@link EntityBitmap} over the local ids
+ * assigned by an {@link EntityDictionary}. Entities added to the set are interned in the
+ * dictionary; null elements are not allowed. Iteration is in local id order,
+ * which is the order in which the entities were first interned.
+ * <p>
+ * Bulk operations between two sets over the same dictionary work a word of the
+ * bitmap at a time rather than an entity at a time.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see DenseEntitySetHierarchyImpl
+ */
+final class DenseEntitySet extends AbstractSet<Entity>
+{
+    private final EntityDictionary dictionary;
+    private final EntityBitmap bits;
+    private int modCount;
+
+    /**
+     * Creates an empty set over the given dictionary.
+     *
+     * @param dictionary the dictionary assigning local ids
+     */
+    DenseEntitySet(@NotNull EntityDictionary dictionary)
+    {
+        this(dictionary, new EntityBitmap());
+    }
+
+    /**
+     * Creates a set over the given dictionary whose members are the entities with
+     * the ids in the given bitmap. The set takes ownership of the bitmap.
+     *
+     * @param dictionary the dictionary assigning local ids
+     * @param bits the local ids of the members
+     * @throws IllegalArgumentException if the bitmap holds an id the dictionary has not assigned
+     */
+    DenseEntitySet(@NotNull EntityDictionary dictionary, @NotNull EntityBitmap bits)
+    {
+        if (bits.last() >= dictionary.size()) {
+            throw new IllegalArgumentException("Bitmap holds local id " + bits.last()
+                + ", but the dictionary has only assigned " + dictionary.size() + " ids.");
+        }
+        this.dictionary = dictionary;
+        this.bits = bits;
+    }
+
+    /**
+     * Returns the bitmap holding the local ids of the members. Callers must not
+     * modify it.
+     */
+    EntityBitmap bits()
+    {
+        return bits;
+    }
+
+    /**
+     * Returns whether the other set assigns local ids with the same dictionary.
+     */
+    boolean sameDictionary(@NotNull DenseEntitySet other)
+    {
+        return other.dictionary == dictionary;
+    }
+
+    /**
+     * Returns the other collection, or the set behind it if it is a dense set
+     * hierarchy, as a set over the same dictionary, or null.
+     */
+    private DenseEntitySet sameDictionary(Collection<?> c)
+    {
+        if (c instanceof DenseEntitySetHierarchyImpl h) {
+            c = h.entities();
+        }
+        return c instanceof DenseEntitySet d && d.dictionary == dictionary ? d : null;
+    }
+
+    /**
+     * Returns whether the entity with the given global id is in this set.
+     *
+     * @param entityId the global id of the entity
+     * @return true if present
+     */
+    boolean containsId(@NotNull UUID entityId)
+    {
+        int id = dictionary.idOf(entityId);
+        return id >= 0 && bits.contains(id);
+    }
+
+    @Override
+    public int size()
+    {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        int id = dictionary.idOf(o);
+        return id >= 0 && bits.contains(id);
+    }
+
+    @Override
+    public boolean add(Entity entity)
+    {
+        Objects.requireNonNull(entity, "Entity sets may not contain null.");
+        if (!bits.add(dictionary.intern(entity))) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (!bits.remove(dictionary.idOf(o))) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        bits.clear();
+        modCount++;
+    }
+
+    /**
+     * Returns whether a bulk operation on the bitmap changed the set.
+     */
+    private boolean changed(int oldSize)
+    {
+        if (bits.cardinality() != oldSize) {
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c)
+    {
+        DenseEntitySet other = sameDictionary(c);
+        if (other == null) {
+            return super.containsAll(c);
+        }
+        return bits.containsAll(other.bits);
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends Entity> c)
+    {
+        DenseEntitySet other = sameDictionary(c);
+        if (other == null) {
+            return super.addAll(c);
+        }
+        int oldSize = bits.cardinality();
+        bits.or(other.bits);
+        return changed(oldSize);
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c)
+    {
+        DenseEntitySet other = sameDictionary(c);
+        if (other == null) {
+            return super.retainAll(c);
+        }
+        int oldSize = bits.cardinality();
+        bits.and(other.bits);
+        return changed(oldSize);
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c)
+    {
+        DenseEntitySet other = sameDictionary(c);
+        if (other == null) {
+            return super.removeAll(c);
+        }
+        int oldSize = bits.cardinality();
+        bits.andNot(other.bits);
+        return changed(oldSize);
+    }
+
+    @Override
+    public @NotNull Iterator<Entity> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+            private int expected = modCount;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next >= 0;
+            }
+
+            @Override
+            public Entity next()
+            {
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = next == Integer.MAX_VALUE ? -1 : bits.nextSetBit(next + 1);
+                return dictionary.entity(last);
+            }
+
+            @Override
+            public void remove()
+            {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                bits.remove(last);
+                last = -1;
+                expected = ++modCount;
+            }
+        };
+    }
+}
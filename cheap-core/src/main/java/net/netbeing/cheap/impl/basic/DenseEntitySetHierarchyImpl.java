@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Implementation of an EntitySetHierarchy that stores its members as a compressed
+ * {@link EntityBitmap} over the local ids assigned by an {@link EntityDictionary},
+ * rather than as a hash set of Entity references. Iteration is in local id order.
+ * Bulk operations with another such set over the same dictionary work on whole
+ * words of the bitmap, and {@link #union}, {@link #intersection} and
+ * {@link #difference} compute results as bitmaps that
+ * {@link CheapFactory#createDenseEntitySetHierarchy(CatalogImpl, String, long, EntityBitmap)}
+ * turns into new hierarchies. Not thread-safe.
+ *
+ * @see CatalogImpl#entityDictionary()
+ * @see EntitySetHierarchyImpl
+ */
+public class DenseEntitySetHierarchyImpl extends EntitySetHierarchyImpl
+{
+    private final EntityDictionary dictionary;
+    private final DenseEntitySet entities;
+
+    /**
+     * Creates a new, empty DenseEntitySetHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param dictionary the dictionary assigning local ids to the entities
+     */
+    protected DenseEntitySetHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version,
+                                          @NotNull EntityDictionary dictionary)
+    {
+        this(catalog, name, version, dictionary, new DenseEntitySet(dictionary));
+    }
+
+    /**
+     * Creates a new DenseEntitySetHierarchyImpl whose members are the entities with
+     * the local ids in the given bitmap. The hierarchy takes ownership of the bitmap.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param dictionary the dictionary assigning local ids to the entities
+     * @param members the local ids of the members
+     * @throws IllegalArgumentException if the bitmap holds an id the dictionary has not assigned
+     */
+    protected DenseEntitySetHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version,
+                                          @NotNull EntityDictionary dictionary, @NotNull EntityBitmap members)
+    {
+        this(catalog, name, version, dictionary, new DenseEntitySet(dictionary, members));
+    }
+
+    private DenseEntitySetHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version,
+                                        @NotNull EntityDictionary dictionary, @NotNull DenseEntitySet entities)
+    {
+        super(catalog, name, version, entities);
+        this.dictionary = dictionary;
+        this.entities = entities;
+    }
+
+    /**
+     * Returns the dictionary assigning local ids to the entities of this set.
+     *
+     * @return the entity dictionary
+     */
+    public @NotNull EntityDictionary dictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Returns the bitmap set holding the members of this hierarchy.
+     */
+    DenseEntitySet entities()
+    {
+        return entities;
+    }
+
+    /**
+     * Returns a copy of the local ids of the members of this set.
+     *
+     * @return a new bitmap
+     */
+    public @NotNull EntityBitmap bitmap()
+    {
+        return entities.bits().copy();
+    }
+
+    private EntityBitmap bitsOf(DenseEntitySetHierarchyImpl other)
+    {
+        if (!entities.sameDictionary(other.entities)) {
+            throw new IllegalArgumentException("Hierarchy '" + other.name()
+                + "' does not share an entity dictionary with '" + name() + "'.");
+        }
+        return other.entities.bits();
+    }
+
+    /**
+     * Returns the local ids of the entities in this set or the other.
+     *
+     * @param other a set over the same dictionary
+     * @return a new bitmap holding the union
+     * @throws IllegalArgumentException if the other set uses a different dictionary
+     */
+    public @NotNull EntityBitmap union(@NotNull DenseEntitySetHierarchyImpl other)
+    {
+        return EntityBitmap.or(entities.bits(), bitsOf(other));
+    }
+
+    /**
+     * Returns the local ids of the entities in both this set and the other.
+     *
+     * @param other a set over the same dictionary
+     * @return a new bitmap holding the intersection
+     * @throws IllegalArgumentException if the other set uses a different dictionary
+     */
+    public @NotNull EntityBitmap intersection(@NotNull DenseEntitySetHierarchyImpl other)
+    {
+        return EntityBitmap.and(entities.bits(), bitsOf(other));
+    }
+
+    /**
+     * Returns the local ids of the entities in this set that are not in the other.
+     *
+     * @param other a set over the same dictionary
+     * @return a new bitmap holding the difference
+     * @throws IllegalArgumentException if the other set uses a different dictionary
+     */
+    public @NotNull EntityBitmap difference(@NotNull DenseEntitySetHierarchyImpl other)
+    {
+        return EntityBitmap.andNot(entities.bits(), bitsOf(other));
+    }
+
+    /**
+     * Returns the number of entities in both this set and the other, without
+     * building the intersection.
+     *
+     * @param other a set over the same dictionary
+     * @return the cardinality of the intersection
+     * @throws IllegalArgumentException if the other set uses a different dictionary
+     */
+    public int intersectionSize(@NotNull DenseEntitySetHierarchyImpl other)
+    {
+        return EntityBitmap.andCardinality(entities.bits(), bitsOf(other));
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends Entity> c)
+    {
+        return entities.addAll(c);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation looks the id up in the dictionary and does not allocate.
+     */
+    @Override
+    public boolean containsEntity(@NotNull UUID entityId)
+    {
+        return entities.containsId(entityId);
+    }
+}
@@ -0,0 +1,861 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative {@code int}s, used to hold sets of local entity
+ * ids assigned by an {@link EntityDictionary}. The id space is split into chunks of
+ * 65536 ids keyed by their high 16 bits, and only chunks with members are stored.
+ * A chunk with few members is stored as a sorted array of its low 16 bits, and a
+ * denser chunk as a 1024-word bitmap, so memory stays proportional to the number of
+ * members for sparse sets and to one bit per id for dense ones.
+ * <p>
+ * Union, intersection and difference combine two bitmaps chunk by chunk, merging
+ * arrays or working a 64-bit word at a time as the chunk layouts allow, and skip
+ * chunks that cannot contribute to the result. The cardinality is maintained as the
+ * bitmap changes, and {@link #andCardinality(EntityBitmap, EntityBitmap)} counts an
+ * intersection without building it.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see DenseEntitySetHierarchyImpl
+ */
+public final class EntityBitmap
+{
+    /** The largest number of members a chunk stores as an array. */
+    static final int ARRAY_MAX = 4096;
+
+    private static final int WORDS = 1024;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Chunk[] NO_CHUNKS = new Chunk[0];
+
+    /** High 16 bits of each stored chunk, in ascending order. */
+    private char[] keys;
+    private Chunk[] chunks;
+    private int count;
+    private int cardinality;
+
+    /**
+     * Creates an empty bitmap.
+     */
+    public EntityBitmap()
+    {
+        keys = NO_KEYS;
+        chunks = NO_CHUNKS;
+    }
+
+    private EntityBitmap(int capacity)
+    {
+        keys = capacity == 0 ? NO_KEYS : new char[capacity];
+        chunks = capacity == 0 ? NO_CHUNKS : new Chunk[capacity];
+    }
+
+    /**
+     * Creates a bitmap holding the given ids.
+     *
+     * @param ids the ids to add
+     * @return a new bitmap
+     * @throws IllegalArgumentException if any id is negative
+     */
+    public static @NotNull EntityBitmap of(int... ids)
+    {
+        EntityBitmap bitmap = new EntityBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns the number of ids in this bitmap.
+     *
+     * @return the cardinality
+     */
+    public int cardinality()
+    {
+        return cardinality;
+    }
+
+    /**
+     * Returns whether this bitmap holds no ids.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty()
+    {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns whether the given id is in this bitmap.
+     *
+     * @param id the id to test
+     * @return true if present
+     */
+    public boolean contains(int id)
+    {
+        if (id < 0) {
+            return false;
+        }
+        int i = find((char) (id >>> 16));
+        return i >= 0 && chunks[i].contains((char) id);
+    }
+
+    /**
+     * Adds the given id to this bitmap.
+     *
+     * @param id the id to add
+     * @return true if the id was not already present
+     * @throws IllegalArgumentException if the id is negative
+     */
+    public boolean add(int id)
+    {
+        if (id < 0) {
+            throw new IllegalArgumentException("Bitmap ids may not be negative: " + id);
+        }
+        char key = (char) (id >>> 16);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new ArrayChunk());
+        }
+        Chunk chunk = chunks[i];
+        int before = chunk.cardinality;
+        chunks[i] = chunk.add((char) id);
+        if (chunks[i].cardinality == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Removes the given id from this bitmap.
+     *
+     * @param id the id to remove
+     * @return true if the id was present
+     */
+    public boolean remove(int id)
+    {
+        if (id < 0) {
+            return false;
+        }
+        int i = find((char) (id >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        Chunk chunk = chunks[i];
+        int before = chunk.cardinality;
+        Chunk after = chunk.remove((char) id);
+        if (after.cardinality == before) {
+            return false;
+        }
+        cardinality--;
+        if (after.cardinality == 0) {
+            removeChunk(i);
+        } else {
+            chunks[i] = after;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all ids from this bitmap.
+     */
+    public void clear()
+    {
+        keys = NO_KEYS;
+        chunks = NO_CHUNKS;
+        count = 0;
+        cardinality = 0;
+    }
+
+    /**
+     * Returns the smallest id in this bitmap that is greater than or equal to the
+     * given id, or -1 if there is none.
+     *
+     * @param from the id to start from
+     * @return the next id, or -1
+     * @throws IndexOutOfBoundsException if {@code from} is negative
+     */
+    public int nextSetBit(int from)
+    {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("from < 0: " + from);
+        }
+        char key = (char) (from >>> 16);
+        int i = find(key);
+        if (i >= 0) {
+            int low = chunks[i].next(from & 0xFFFF);
+            if (low >= 0) {
+                return key << 16 | low;
+            }
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return i < count ? keys[i] << 16 | chunks[i].next(0) : -1;
+    }
+
+    /**
+     * Returns the largest id in this bitmap, or -1 if it is empty.
+     *
+     * @return the last id, or -1
+     */
+    public int last()
+    {
+        return count == 0 ? -1 : keys[count - 1] << 16 | chunks[count - 1].last();
+    }
+
+    /**
+     * Passes each id in this bitmap to the given action, in ascending order.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(@NotNull IntConsumer action)
+    {
+        for (int i = 0; i < count; i++) {
+            chunks[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns whether every id in the given bitmap is also in this one.
+     *
+     * @param other the bitmap to test
+     * @return true if this bitmap is a superset of the other
+     */
+    public boolean containsAll(@NotNull EntityBitmap other)
+    {
+        return other.cardinality <= cardinality && andCardinality(this, other) == other.cardinality;
+    }
+
+    /**
+     * Returns a copy of this bitmap.
+     *
+     * @return a new bitmap with the same ids
+     */
+    public @NotNull EntityBitmap copy()
+    {
+        EntityBitmap copy = new EntityBitmap(count);
+        for (int i = 0; i < count; i++) {
+            copy.append(keys[i], chunks[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Adds every id of the given bitmap to this one.
+     *
+     * @param other the bitmap to union with
+     */
+    public void or(@NotNull EntityBitmap other)
+    {
+        replaceWith(combine(this, other, OR, true));
+    }
+
+    /**
+     * Removes every id from this bitmap that is not also in the given one.
+     *
+     * @param other the bitmap to intersect with
+     */
+    public void and(@NotNull EntityBitmap other)
+    {
+        replaceWith(combine(this, other, AND, true));
+    }
+
+    /**
+     * Removes every id of the given bitmap from this one.
+     *
+     * @param other the bitmap to subtract
+     */
+    public void andNot(@NotNull EntityBitmap other)
+    {
+        replaceWith(combine(this, other, AND_NOT, true));
+    }
+
+    /**
+     * Returns a new bitmap holding the ids that are in either of the given bitmaps.
+     *
+     * @param a the first bitmap
+     * @param b the second bitmap
+     * @return the union
+     */
+    public static @NotNull EntityBitmap or(@NotNull EntityBitmap a, @NotNull EntityBitmap b)
+    {
+        return combine(a, b, OR, false);
+    }
+
+    /**
+     * Returns a new bitmap holding the ids that are in both of the given bitmaps.
+     *
+     * @param a the first bitmap
+     * @param b the second bitmap
+     * @return the intersection
+     */
+    public static @NotNull EntityBitmap and(@NotNull EntityBitmap a, @NotNull EntityBitmap b)
+    {
+        return combine(a, b, AND, false);
+    }
+
+    /**
+     * Returns a new bitmap holding the ids of the first bitmap that are not in the
+     * second.
+     *
+     * @param a the bitmap to subtract from
+     * @param b the bitmap to subtract
+     * @return the difference
+     */
+    public static @NotNull EntityBitmap andNot(@NotNull EntityBitmap a, @NotNull EntityBitmap b)
+    {
+        return combine(a, b, AND_NOT, false);
+    }
+
+    /**
+     * Returns the number of ids that are in both of the given bitmaps, without
+     * building their intersection.
+     *
+     * @param a the first bitmap
+     * @param b the second bitmap
+     * @return the cardinality of the intersection
+     */
+    public static int andCardinality(@NotNull EntityBitmap a, @NotNull EntityBitmap b)
+    {
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.count && j < b.count) {
+            char ka = a.keys[i];
+            char kb = b.keys[j];
+            if (ka < kb) {
+                i++;
+            } else if (ka > kb) {
+                j++;
+            } else {
+                n += andCardinality(a.chunks[i++], b.chunks[j++]);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityBitmap other) || other.cardinality != cardinality || other.count != count) {
+            return false;
+        }
+        return Arrays.equals(keys, 0, count, other.keys, 0, count) && andCardinality(this, other) == cardinality;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int[] h = {0};
+        forEach(id -> h[0] = 31 * h[0] + id);
+        return h[0];
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(id -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(id);
+        });
+        return sb.append('}').toString();
+    }
+
+    // ----- Chunk directory -----
+
+    private int find(char key)
+    {
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void ensureCapacity(int n)
+    {
+        if (n > keys.length) {
+            int capacity = Math.max(n, Math.max(4, keys.length * 2));
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+    }
+
+    private void insertChunk(int i, char key, Chunk chunk)
+    {
+        ensureCapacity(count + 1);
+        System.arraycopy(keys, i, keys, i + 1, count - i);
+        System.arraycopy(chunks, i, chunks, i + 1, count - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        count++;
+    }
+
+    private void removeChunk(int i)
+    {
+        System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+        System.arraycopy(chunks, i + 1, chunks, i, count - i - 1);
+        chunks[--count] = null;
+    }
+
+    /**
+     * Appends a chunk with a key greater than any present, ignoring empty chunks.
+     */
+    private void append(char key, Chunk chunk)
+    {
+        if (chunk == null || chunk.cardinality == 0) {
+            return;
+        }
+        ensureCapacity(count + 1);
+        keys[count] = key;
+        chunks[count++] = chunk;
+        cardinality += chunk.cardinality;
+    }
+
+    private void replaceWith(EntityBitmap result)
+    {
+        keys = result.keys;
+        chunks = result.chunks;
+        count = result.count;
+        cardinality = result.cardinality;
+    }
+
+    // ----- Set algebra -----
+
+    private static final int OR = 0;
+    private static final int AND = 1;
+    private static final int AND_NOT = 2;
+
+    /**
+     * Merges the chunk directories of two bitmaps. Chunks of {@code a} that pass
+     * through unchanged are shared with the result if {@code reuseA} is set, and
+     * copied otherwise; chunks of {@code b} are always copied.
+     */
+    private static EntityBitmap combine(EntityBitmap a, EntityBitmap b, int op, boolean reuseA)
+    {
+        EntityBitmap result = new EntityBitmap(op == AND ? Math.min(a.count, b.count)
+                                                   : op == OR ? a.count + b.count : a.count);
+        int i = 0;
+        int j = 0;
+        while (i < a.count && j < b.count) {
+            char ka = a.keys[i];
+            char kb = b.keys[j];
+            if (ka < kb) {
+                if (op != AND) {
+                    result.append(ka, reuseA ? a.chunks[i] : a.chunks[i].copy());
+                }
+                i++;
+            } else if (ka > kb) {
+                if (op == OR) {
+                    result.append(kb, b.chunks[j].copy());
+                }
+                j++;
+            } else {
+                Chunk x = a.chunks[i++];
+                Chunk y = b.chunks[j++];
+                result.append(ka, switch (op) {
+                    case OR -> or(x, y);
+                    case AND -> and(x, y);
+                    default -> andNot(x, y);
+                });
+            }
+        }
+        if (op != AND) {
+            for (; i < a.count; i++) {
+                result.append(a.keys[i], reuseA ? a.chunks[i] : a.chunks[i].copy());
+            }
+        }
+        if (op == OR) {
+            for (; j < b.count; j++) {
+                result.append(b.keys[j], b.chunks[j].copy());
+            }
+        }
+        return result;
+    }
+
+    private static Chunk or(Chunk x, Chunk y)
+    {
+        if (x instanceof BitmapChunk bx) {
+            return bx.copy().orWith(y);
+        }
+        if (y instanceof BitmapChunk by) {
+            return by.copy().orWith(x);
+        }
+        ArrayChunk ax = (ArrayChunk) x;
+        ArrayChunk ay = (ArrayChunk) y;
+        char[] merged = new char[ax.cardinality + ay.cardinality];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ax.cardinality && j < ay.cardinality) {
+            char u = ax.values[i];
+            char v = ay.values[j];
+            if (u <= v) {
+                merged[n++] = u;
+                i++;
+                if (u == v) {
+                    j++;
+                }
+            } else {
+                merged[n++] = v;
+                j++;
+            }
+        }
+        while (i < ax.cardinality) {
+            merged[n++] = ax.values[i++];
+        }
+        while (j < ay.cardinality) {
+            merged[n++] = ay.values[j++];
+        }
+        ArrayChunk result = new ArrayChunk(merged, n);
+        return n > ARRAY_MAX ? result.toBitmap() : result;
+    }
+
+    private static Chunk and(Chunk x, Chunk y)
+    {
+        if (x instanceof ArrayChunk ax) {
+            return ax.filter(y, true);
+        }
+        if (y instanceof ArrayChunk ay) {
+            return ay.filter(x, true);
+        }
+        long[] wx = ((BitmapChunk) x).words;
+        long[] wy = ((BitmapChunk) y).words;
+        BitmapChunk result = new BitmapChunk();
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = wx[w] & wy[w];
+            result.words[w] = word;
+            n += Long.bitCount(word);
+        }
+        result.cardinality = n;
+        return result.compact();
+    }
+
+    private static Chunk andNot(Chunk x, Chunk y)
+    {
+        if (x instanceof ArrayChunk ax) {
+            return ax.filter(y, false);
+        }
+        BitmapChunk result = ((BitmapChunk) x).copy();
+        if (y instanceof BitmapChunk by) {
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = result.words[w] & ~by.words[w];
+                result.words[w] = word;
+                n += Long.bitCount(word);
+            }
+            result.cardinality = n;
+        } else {
+            ArrayChunk ay = (ArrayChunk) y;
+            for (int i = 0; i < ay.cardinality; i++) {
+                result.clear(ay.values[i]);
+            }
+        }
+        return result.compact();
+    }
+
+    private static int andCardinality(Chunk x, Chunk y)
+    {
+        if (x instanceof BitmapChunk bx && y instanceof BitmapChunk by) {
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                n += Long.bitCount(bx.words[w] & by.words[w]);
+            }
+            return n;
+        }
+        ArrayChunk small = (ArrayChunk) (x instanceof ArrayChunk ? x : y);
+        Chunk other = small == x ? y : x;
+        int n = 0;
+        for (int i = 0; i < small.cardinality; i++) {
+            if (other.contains(small.values[i])) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // ----- Chunks -----
+
+    /**
+     * The members of one 65536-id chunk, as their low 16 bits. Mutators return the
+     * chunk that now holds the members, which differs from the receiver when the
+     * chunk changes layout.
+     */
+    private abstract static class Chunk
+    {
+        int cardinality;
+
+        abstract boolean contains(char value);
+
+        abstract Chunk add(char value);
+
+        abstract Chunk remove(char value);
+
+        /** Returns the smallest member greater than or equal to {@code from}, or -1. */
+        abstract int next(int from);
+
+        abstract int last();
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract Chunk copy();
+    }
+
+    private static final class ArrayChunk extends Chunk
+    {
+        private char[] values;
+
+        ArrayChunk()
+        {
+            values = new char[4];
+        }
+
+        ArrayChunk(char[] values, int cardinality)
+        {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(char value)
+        {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Chunk add(char value)
+        {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value)
+        {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from)
+        {
+            int i = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return i < cardinality ? values[i] : -1;
+        }
+
+        @Override
+        int last()
+        {
+            return values[cardinality - 1];
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action)
+        {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        ArrayChunk copy()
+        {
+            return new ArrayChunk(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        /**
+         * Returns the members that are (or, if {@code keep} is false, are not) also
+         * members of the other chunk.
+         */
+        ArrayChunk filter(Chunk other, boolean keep)
+        {
+            char[] kept = new char[cardinality];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    kept[n++] = values[i];
+                }
+            }
+            return new ArrayChunk(kept, n);
+        }
+
+        BitmapChunk toBitmap()
+        {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapChunk extends Chunk
+    {
+        private final long[] words = new long[WORDS];
+
+        @Override
+        boolean contains(char value)
+        {
+            return (words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        Chunk add(char value)
+        {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk remove(char value)
+        {
+            clear(value);
+            return compact();
+        }
+
+        void clear(char value)
+        {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+        }
+
+        @Override
+        int next(int from)
+        {
+            int w = from >>> 6;
+            long word = words[w] & -1L << from;
+            while (word == 0) {
+                if (++w == WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return w << 6 | Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        int last()
+        {
+            int w = WORDS - 1;
+            while (words[w] == 0) {
+                w--;
+            }
+            return w << 6 | 63 - Long.numberOfLeadingZeros(words[w]);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action)
+        {
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(base | w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        BitmapChunk copy()
+        {
+            BitmapChunk copy = new BitmapChunk();
+            System.arraycopy(words, 0, copy.words, 0, WORDS);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        BitmapChunk orWith(Chunk other)
+        {
+            if (other instanceof BitmapChunk b) {
+                int n = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w] | b.words[w];
+                    words[w] = word;
+                    n += Long.bitCount(word);
+                }
+                cardinality = n;
+            } else {
+                ArrayChunk a = (ArrayChunk) other;
+                for (int i = 0; i < a.cardinality; i++) {
+                    add(a.values[i]);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Returns this chunk, or an array chunk with the same members if it has
+         * become sparse enough for one.
+         */
+        Chunk compact()
+        {
+            if (cardinality > ARRAY_MAX) {
+                return this;
+            }
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayChunk(values, n);
+        }
+    }
+}
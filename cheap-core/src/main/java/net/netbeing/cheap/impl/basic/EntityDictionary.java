@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Dictionary that assigns dense, non-negative {@code int} local ids to entities, in
+ * the order they are first interned. Hierarchies built over a dictionary store these
+ * ids rather than Entity references, and can represent sets of entities as bitmaps.
+ * <p>
+ * Ids are never reused: once interned, an entity keeps its id, and the dictionary
+ * holds on to it, for the lifetime of the dictionary. Entities are identified by
+ * global id, so equal entities share one local id, and {@link #entity(int)} always
+ * returns the instance that was interned first.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see CatalogImpl#entityDictionary()
+ */
+public class EntityDictionary
+{
+    /** Entities by global id; the dense slot of each entity is its local id. */
+    private final EntityIndex<Object> index = new EntityIndex<>();
+
+    /**
+     * Returns the local id of the given entity, assigning the next id if it has none.
+     *
+     * @param entity the entity to intern
+     * @return the local id of the entity
+     */
+    public int intern(@NotNull Entity entity)
+    {
+        Objects.requireNonNull(entity, "Cannot intern a null entity.");
+        int id = index.slotOf(entity);
+        if (id < 0) {
+            // Nothing is ever removed, so the new entry takes the next dense slot.
+            id = index.size();
+            index.put(entity, null);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the local id of the given entity, or -1 if it has not been interned
+     * (or is not an Entity).
+     *
+     * @param entity the entity to look up
+     * @return the local id, or -1
+     */
+    public int idOf(Object entity)
+    {
+        return entity == null ? -1 : index.slotOf(entity);
+    }
+
+    /**
+     * Returns the local id of the entity with the given global id, or -1 if it has
+     * not been interned. This does not allocate.
+     *
+     * @param entityId the global id of the entity
+     * @return the local id, or -1
+     */
+    public int idOf(@NotNull UUID entityId)
+    {
+        return index.slotOfId(entityId);
+    }
+
+    /**
+     * Returns the entity with the given local id.
+     *
+     * @param id the local id
+     * @return the interned entity
+     * @throws IndexOutOfBoundsException if no entity has that id
+     */
+    public @NotNull Entity entity(int id)
+    {
+        Objects.checkIndex(id, index.size());
+        return index.keyAt(id);
+    }
+
+    /**
+     * Returns the number of entities interned, which is also the next id to be assigned.
+     *
+     * @return the number of entities in this dictionary
+     */
+    public int size()
+    {
+        return index.size();
+    }
+}
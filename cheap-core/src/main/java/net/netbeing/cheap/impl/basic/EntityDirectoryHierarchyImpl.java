@@ -21,15 +21,23 @@ import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.EntityDirectoryHierarchy;
 import net.netbeing.cheap.model.HierarchyDef;
 import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
 import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.function.Consumer;
 
 /**
  * Basic implementation of an EntityDirectoryHierarchy using a LinkedHashMap.
@@ -38,14 +46,24 @@ import java.util.function.Function;
  * <p>
  * This implementation uses composition with an internal LinkedHashMap to provide
  * efficient name-based entity lookup while implementing the EntityDirectoryHierarchy
- * interface.
+ * interface. A reverse {@link EntityIndex} counting the names mapped to each entity
+ * makes value lookups ({@link #containsValue(Object)}, {@link #containsEntity(UUID)})
+ * constant-time rather than a scan of the directory.
+ * <p>
+ * The first call to {@link #hashTree()} builds a hash tree over the entries, which
+ * is then kept current as names are mapped and removed, so that later hashes cost
+ * nothing. Each change is also reported to the catalog, so that it can keep its
+ * root hash current.
+ * <p>
+ * From the first call to {@link #changes()} on, the names that are mapped anew or
+ * removed are recorded, so that a DAO can save only those.
  *
  * @see EntityDirectoryHierarchy
  * @see Entity
  * @see HierarchyDef
  */
 @SuppressWarnings("unused")
-public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy
+public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy, ReportingHierarchy
 {
     /** The catalog containing this hierarchy. */
     private final Catalog catalog;
@@ -59,6 +77,19 @@ public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy
     /** The internal map storing string-to-entity mappings. */
     private final Map<String, Entity> entities;
 
+    /** Reverse index from each entity to the number of names mapped to it. */
+    private final EntityIndex<Integer> reverse;
+
+    /** Names changed since last cleared; null until first requested. */
+    private ChangeSet<String> changes;
+
+    /** Hash tree over the entries, kept current once first requested; null until then. */
+    private EntityHashTree hashTree;
+
+    private Set<String> keySet;
+    private Collection<Entity> values;
+    private Set<Entry<String, Entity>> entrySet;
+
     /**
      * Creates a new EntityDirectoryHierarchyImpl with the specified hierarchy definition and version.
      * Public for use by CheapFactory.
@@ -73,6 +104,7 @@ public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy
         this.name = name;
         this.version = version;
         this.entities = new LinkedHashMap<>();
+        this.reverse = new EntityIndex<>();
     }
 
     /**
@@ -89,6 +121,7 @@ public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy
         this.name = name;
         this.version = version;
         this.entities = LinkedHashMap.newLinkedHashMap(initialCapacity);
+        this.reverse = new EntityIndex<>(initialCapacity);
     }
 
     /**
@@ -133,145 +166,554 @@ public class EntityDirectoryHierarchyImpl implements EntityDirectoryHierarchy
         return version;
     }
 
-    // Map interface delegation methods
-
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation uses a reverse index and does not allocate.
+     */
     @Override
-    public int size()
+    public boolean containsEntity(@NotNull UUID entityId)
     {
-        return entities.size();
+        return reverse.containsId(entityId);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes are recorded from the first call on; until then the hierarchy is whole.
+     */
     @Override
-    public boolean isEmpty()
+    public @NotNull ChangeSet<String> changes()
     {
-        return entities.isEmpty();
+        if (changes == null) {
+            changes = new ChangeSet<>();
+            changes.markWhole();
+        }
+        return changes;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The tree is built on the first call and then kept current as names are mapped
+     * and removed.
+     */
     @Override
-    public boolean containsKey(Object key)
+    public @NotNull EntityHashTree hashTree()
     {
-        return entities.containsKey(key);
+        if (hashTree == null) {
+            hashTree = EntityDirectoryHierarchy.super.hashTree();
+        }
+        return hashTree;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Always true, since every change, including those made through the views,
+     * updates the reverse index here and is reported with it.
+     */
     @Override
-    public boolean containsValue(Object value)
+    public boolean reportsChanges()
     {
-        return entities.containsValue(value);
+        return true;
     }
 
-    @Override
-    public Entity get(Object key)
+    private static UUID idOf(Entity entity)
     {
-        return entities.get(key);
+        return entity == null ? null : entity.globalId();
     }
 
-    @Override
-    public Entity put(String key, Entity value)
+    /**
+     * Record one more name mapped to the given entity in the reverse index and
+     * the hash tree.
+     */
+    private void link(String name, Entity entity)
     {
-        return entities.put(key, value);
+        Integer count = reverse.get(entity);
+        reverse.put(entity, count == null ? 1 : count + 1);
+        if (hashTree != null) {
+            hashTree.add(idOf(entity), CheapHasher.hash(name));
+        }
+        CatalogImpl.hierarchyChanged(catalog, this.name);
     }
 
-    @Override
-    public Entity remove(Object key)
+    /**
+     * Record one fewer name mapped to the given entity in the reverse index and
+     * the hash tree.
+     */
+    private void unlink(String name, Entity entity)
     {
-        return entities.remove(key);
+        Integer count = reverse.get(entity);
+        if (count == null || count <= 1) {
+            reverse.remove(entity);
+        } else {
+            reverse.put(entity, count - 1);
+        }
+        if (hashTree != null) {
+            hashTree.remove(idOf(entity), CheapHasher.hash(name));
+        }
+        CatalogImpl.hierarchyChanged(catalog, this.name);
     }
 
+    // Map interface delegation methods. The compute/merge/replace family is
+    // inherited from Map, so that every mutation goes through put/remove or
+    // Entry.setValue and keeps the reverse index in step.
+
     @Override
-    public void putAll(@NotNull Map<? extends String, ? extends Entity> m)
+    public int size()
     {
-        entities.putAll(m);
+        return entities.size();
     }
 
     @Override
-    public void clear()
+    public boolean isEmpty()
     {
-        entities.clear();
+        return entities.isEmpty();
     }
 
     @Override
-    public @NotNull Set<String> keySet()
+    public boolean containsKey(Object key)
     {
-        return entities.keySet();
+        return entities.containsKey(key);
     }
 
     @Override
-    public @NotNull Collection<Entity> values()
+    public boolean containsValue(Object value)
     {
-        return entities.values();
+        return reverse.containsKey(value);
     }
 
     @Override
-    public @NotNull Set<Entry<String, Entity>> entrySet()
+    public Entity get(Object key)
     {
-        return entities.entrySet();
+        return entities.get(key);
     }
 
-    @SuppressWarnings("SuspiciousMethodCalls")
     @Override
-    public Entity getOrDefault(Object key, Entity defaultValue)
+    public Entity put(String key, Entity value)
     {
-        return entities.getOrDefault(key, defaultValue);
+        boolean existed = entities.containsKey(key);
+        Entity old = entities.put(key, value);
+        if (existed) {
+            unlink(key, old);
+        }
+        link(key, value);
+        if (changes != null) {
+            changes.update(key);
+        }
+        return old;
     }
 
     @Override
-    public void forEach(BiConsumer<? super String, ? super Entity> action)
+    public Entity remove(Object key)
     {
-        entities.forEach(action);
+        if (!entities.containsKey(key)) {
+            return null;
+        }
+        Entity old = entities.remove(key);
+        unlink((String) key, old);
+        if (changes != null) {
+            changes.remove((String) key);
+        }
+        return old;
     }
 
     @Override
-    public void replaceAll(BiFunction<? super String, ? super Entity, ? extends Entity> function)
+    public void putAll(@NotNull Map<? extends String, ? extends Entity> m)
     {
-        entities.replaceAll(function);
+        m.forEach(this::put);
     }
 
     @Override
-    public Entity putIfAbsent(String key, Entity value)
+    public void clear()
     {
-        return entities.putIfAbsent(key, value);
+        entities.clear();
+        reverse.clear();
+        if (hashTree != null) {
+            hashTree.clear();
+        }
+        if (changes != null) {
+            changes.markWhole();
+        }
+        CatalogImpl.hierarchyChanged(catalog, name);
     }
 
     @Override
-    public boolean remove(Object key, Object value)
+    public @NotNull Set<String> keySet()
     {
-        return entities.remove(key, value);
+        if (keySet == null) {
+            keySet = new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<String> iterator()
+                {
+                    Iterator<Entry<String, Entity>> it = entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public String next()
+                        {
+                            return it.next().getKey();
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            it.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return entities.size();
+                }
+
+                @Override
+                public boolean contains(Object o)
+                {
+                    return entities.containsKey(o);
+                }
+
+                @Override
+                public boolean remove(Object o)
+                {
+                    if (!entities.containsKey(o)) {
+                        return false;
+                    }
+                    EntityDirectoryHierarchyImpl.this.remove(o);
+                    return true;
+                }
+
+                @Override
+                public void clear()
+                {
+                    EntityDirectoryHierarchyImpl.this.clear();
+                }
+
+                @Override
+                public Spliterator<String> spliterator()
+                {
+                    return viewSpliterator(this, Spliterator.DISTINCT);
+                }
+            };
+        }
+        return keySet;
     }
 
     @Override
-    public boolean replace(String key, Entity oldValue, Entity newValue)
+    public @NotNull Collection<Entity> values()
     {
-        return entities.replace(key, oldValue, newValue);
+        if (values == null) {
+            values = new AbstractCollection<>()
+            {
+                @Override
+                public @NotNull Iterator<Entity> iterator()
+                {
+                    Iterator<Entry<String, Entity>> it = entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entity next()
+                        {
+                            return it.next().getValue();
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            it.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return entities.size();
+                }
+
+                @Override
+                public boolean contains(Object o)
+                {
+                    return reverse.containsKey(o);
+                }
+
+                @Override
+                public void clear()
+                {
+                    EntityDirectoryHierarchyImpl.this.clear();
+                }
+
+                @Override
+                public Spliterator<Entity> spliterator()
+                {
+                    return viewSpliterator(this, 0);
+                }
+            };
+        }
+        return values;
     }
 
     @Override
-    public Entity replace(String key, Entity value)
+    public @NotNull Set<Entry<String, Entity>> entrySet()
     {
-        return entities.replace(key, value);
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<Entry<String, Entity>> iterator()
+                {
+                    Iterator<Entry<String, Entity>> it = entities.entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        private Entry<String, Entity> current;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Entity> next()
+                        {
+                            current = it.next();
+                            return new DirectoryEntry(current);
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            it.remove();
+                            unlink(current.getKey(), current.getValue());
+                            if (changes != null) {
+                                changes.remove(current.getKey());
+                            }
+                            current = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return entities.size();
+                }
+
+                @Override
+                public boolean contains(Object o)
+                {
+                    return entities.entrySet().contains(o);
+                }
+
+                @Override
+                public boolean remove(Object o)
+                {
+                    if (!contains(o)) {
+                        return false;
+                    }
+                    EntityDirectoryHierarchyImpl.this.remove(((Entry<?, ?>) o).getKey());
+                    return true;
+                }
+
+                @Override
+                public void clear()
+                {
+                    EntityDirectoryHierarchyImpl.this.clear();
+                }
+
+                @Override
+                public Spliterator<Entry<String, Entity>> spliterator()
+                {
+                    return viewSpliterator(this, Spliterator.DISTINCT);
+                }
+            };
+        }
+        return entrySet;
     }
 
-    @Override
-    public Entity computeIfAbsent(String key, @NotNull Function<? super String, ? extends Entity> mappingFunction)
+    /**
+     * Returns a late-binding spliterator over the given view. The linked hash map
+     * behind this directory can only be split by copying batches off its iterator,
+     * which leaves most of the work in one thread. Sequential traversal therefore
+     * walks the view's iterator directly, and only the first split copies the
+     * remaining references, so that parallel streams can split them evenly by
+     * index range.
+     */
+    private static <T> Spliterator<T> viewSpliterator(Collection<T> view, int characteristics)
     {
-        return entities.computeIfAbsent(key, mappingFunction);
+        return new ViewSpliterator<>(view, characteristics | Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED);
     }
 
-    @Override
-    public Entity computeIfPresent(String key, @NotNull BiFunction<? super String, ? super Entity, ? extends Entity> remappingFunction)
+    /**
+     * Spliterator that binds to its view on first use and copies the elements it
+     * has not reached into an array only when it is first split.
+     */
+    private static final class ViewSpliterator<T> implements Spliterator<T>
     {
-        return entities.computeIfPresent(key, remappingFunction);
+        private final Collection<T> view;
+        private final int characteristics;
+        private Iterator<T> it;
+        private long remaining;
+        private Spliterator<T> array;
+
+        ViewSpliterator(Collection<T> view, int characteristics)
+        {
+            this.view = view;
+            this.characteristics = characteristics;
+        }
+
+        private Iterator<T> bind()
+        {
+            if (it == null) {
+                remaining = view.size();
+                it = view.iterator();
+            }
+            return it;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (array != null) {
+                return array.tryAdvance(action);
+            }
+            Iterator<T> iterator = bind();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            remaining--;
+            action.accept(iterator.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            if (array != null) {
+                array.forEachRemaining(action);
+            } else {
+                bind().forEachRemaining(action);
+                remaining = 0;
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            if (array == null) {
+                if (estimateSize() < 2) {
+                    return null;
+                }
+                Object[] rest = new Object[(int) estimateSize()];
+                Iterator<T> iterator = bind();
+                int n = 0;
+                while (n < rest.length && iterator.hasNext()) {
+                    rest[n++] = iterator.next();
+                }
+                remaining = 0;
+                array = Spliterators.spliterator(rest, 0, n, characteristics);
+            }
+            return array.trySplit();
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            if (array != null) {
+                return array.estimateSize();
+            }
+            return it == null ? view.size() : remaining;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return characteristics;
+        }
     }
 
+    @SuppressWarnings("SuspiciousMethodCalls")
     @Override
-    public Entity compute(String key, @NotNull BiFunction<? super String, ? super Entity, ? extends Entity> remappingFunction)
+    public Entity getOrDefault(Object key, Entity defaultValue)
     {
-        return entities.compute(key, remappingFunction);
+        return entities.getOrDefault(key, defaultValue);
     }
 
     @Override
-    public Entity merge(String key, @NotNull Entity value, @NotNull BiFunction<? super Entity, ? super Entity, ? extends Entity> remappingFunction)
+    public void forEach(BiConsumer<? super String, ? super Entity> action)
+    {
+        entities.forEach(action);
+    }
+
+    /**
+     * Entry wrapper whose setValue keeps the reverse index in step.
+     */
+    private final class DirectoryEntry implements Entry<String, Entity>
     {
-        return entities.merge(key, value, remappingFunction);
+        private final Entry<String, Entity> entry;
+
+        private DirectoryEntry(Entry<String, Entity> entry)
+        {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getKey()
+        {
+            return entry.getKey();
+        }
+
+        @Override
+        public Entity getValue()
+        {
+            return entry.getValue();
+        }
+
+        @Override
+        public Entity setValue(Entity value)
+        {
+            Entity old = entry.setValue(value);
+            unlink(entry.getKey(), old);
+            link(entry.getKey(), value);
+            if (changes != null) {
+                changes.update(entry.getKey());
+            }
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return entry.equals(o);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return entry.toString();
+        }
     }
 
     @Override
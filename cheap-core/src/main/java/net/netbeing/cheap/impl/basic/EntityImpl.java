@@ -17,6 +17,7 @@
 package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
@@ -34,11 +35,11 @@ public class EntityImpl implements Entity
     private final UUID globalId;
 
     /**
-     * Creates a new EntityBasicImpl with a randomly generated UUID.
+     * Creates a new EntityBasicImpl with a new time-ordered UUID.
      */
     public EntityImpl()
     {
-        this(UUID.randomUUID());
+        this(IdGenerator.timeOrdered().newId());
     }
 
     /**
@@ -0,0 +1,1063 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Insertion-ordered map from Entity to value, indexed by the two longs of each
+ * Entity's global id rather than by {@link Entity#hashCode()}/{@link Entity#equals(Object)}.
+ * <p>
+ * Entries are stored densely, in insertion order, in parallel arrays (ids, keys and
+ * values); a separate open-addressing table of entry indexes, probed linearly, provides
+ * lookup. No per-entry node objects are allocated, and lookups by UUID via
+ * {@link #getById(UUID)} and {@link #containsId(UUID)} allocate nothing.
+ * <p>
+ * Removed entries leave a hole in the dense arrays that is reclaimed the next time
+ * the arrays would need to grow. A single {@code null} key is supported, kept in
+ * insertion order like any other key but outside the hash table.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <V> the type of mapped values
+ */
+public class EntityIndex<V> extends AbstractMap<Entity, V>
+{
+    /** Marks a removed entry in the dense key array. */
+    private static final Object DELETED = new Object();
+
+    private static final int MIN_CAPACITY = 8;
+
+    /** Global ids of the entries, two longs (msb, lsb) per entry. */
+    private long[] ids;
+
+    /** Keys of the entries; DELETED for removed entries. */
+    private Object[] keys;
+
+    /** Values of the entries. */
+    private Object[] vals;
+
+    /** Open-addressing table of entry index + 1; 0 marks an empty slot. */
+    private int[] table;
+
+    /** Number of dense entries in use, including removed ones. */
+    private int used;
+
+    /** Number of live entries. */
+    private int size;
+
+    /** Entry index of the null key, or -1 if there is none. */
+    private int nullIndex = -1;
+
+    private int modCount;
+
+    /** Per-entry values kept by subclasses, parallel to keys; null unless enabled. */
+    private long[] tags;
+
+    /** Changes made since last cleared; null unless tracked. */
+    private ChangeSet<Entity> changes;
+
+    private Set<Entity> keySet;
+    private Collection<V> values;
+    private Set<Map.Entry<Entity, V>> entrySet;
+
+    /**
+     * Creates a new, empty EntityIndex.
+     */
+    public EntityIndex()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty EntityIndex able to hold the given number of entries
+     * without resizing.
+     *
+     * @param initialCapacity the expected number of entries
+     */
+    public EntityIndex(int initialCapacity)
+    {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        allocate(Math.max(MIN_CAPACITY, initialCapacity));
+    }
+
+    private void allocate(int capacity)
+    {
+        ids = new long[capacity * 2];
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        if (tags != null) {
+            tags = new long[capacity];
+        }
+        // Keep the table at most half full.
+        table = new int[Integer.highestOneBit(capacity * 4 - 1)];
+    }
+
+    private static int hash(long msb, long lsb)
+    {
+        // Murmur3 fmix64, so time-ordered ids spread as well as random ones.
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Return the entry index for the given id, or -1.
+     */
+    private int find(long msb, long lsb)
+    {
+        int mask = table.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        int e;
+        while ((e = table[slot]) != 0) {
+            int i = e - 1;
+            if (ids[2 * i] == msb && ids[2 * i + 1] == lsb) {
+                return i;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int indexOf(Object key)
+    {
+        if (key == null) {
+            return nullIndex;
+        }
+        if (!(key instanceof Entity entity)) {
+            return -1;
+        }
+        UUID id = entity.globalId();
+        return find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    private void insertSlot(int entry)
+    {
+        int mask = table.length - 1;
+        int slot = hash(ids[2 * entry], ids[2 * entry + 1]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    /**
+     * Remove the table slot pointing at the given entry, shifting later members of
+     * its probe run back so that no tombstones are needed in the table.
+     */
+    private void deleteSlot(int entry)
+    {
+        int mask = table.length - 1;
+        int slot = hash(ids[2 * entry], ids[2 * entry + 1]) & mask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        int e;
+        while ((e = table[next]) != 0) {
+            int home = hash(ids[2 * (e - 1)], ids[2 * (e - 1) + 1]) & mask;
+            // Move the entry back if its home slot is not cyclically within (hole, next].
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = e;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    /**
+     * Make room for one more dense entry, reclaiming removed entries if that frees
+     * enough space and growing the arrays otherwise.
+     */
+    private void ensureRoom()
+    {
+        if (used < keys.length) {
+            return;
+        }
+        rebuild(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+    }
+
+    /**
+     * Move the live entries down over removed entries, preserving their order,
+     * without growing the arrays.
+     */
+    void compact()
+    {
+        if (used > size) {
+            rebuild(keys.length);
+            modCount++;
+        }
+    }
+
+    /**
+     * Copy the live entries into new arrays of the given capacity, dropping removed
+     * entries.
+     */
+    private void rebuild(int capacity)
+    {
+        long[] oldIds = ids;
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        long[] oldTags = tags;
+        int oldUsed = used;
+        allocate(capacity);
+        used = 0;
+        nullIndex = -1;
+        for (int i = 0; i < oldUsed; i++) {
+            Object k = oldKeys[i];
+            if (k == DELETED) {
+                continue;
+            }
+            ids[2 * used] = oldIds[2 * i];
+            ids[2 * used + 1] = oldIds[2 * i + 1];
+            keys[used] = k;
+            vals[used] = oldVals[i];
+            if (oldTags != null) {
+                tags[used] = oldTags[i];
+            }
+            if (k == null) {
+                nullIndex = used;
+            } else {
+                insertSlot(used);
+            }
+            if (i != used) {
+                relocated(i, used);
+            }
+            used++;
+        }
+        rebuilt(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int i)
+    {
+        return (V) vals[i];
+    }
+
+    private V removeAt(int i)
+    {
+        V old = valueAt(i);
+        if (changes != null) {
+            changes.remove((Entity) keys[i]);
+        }
+        removing(i, (Entity) keys[i], old);
+        if (keys[i] == null) {
+            nullIndex = -1;
+        } else {
+            deleteSlot(i);
+        }
+        keys[i] = DELETED;
+        vals[i] = null;
+        size--;
+        modCount++;
+        if (size == 0) {
+            // Nothing live left; reset so the dense arrays are reused from the start.
+            Arrays.fill(keys, 0, used, null);
+            used = 0;
+        }
+        return old;
+    }
+
+    /**
+     * Return the value mapped to the Entity with the given global id, or null.
+     * This does not allocate.
+     *
+     * @param id the entity global id
+     * @return the mapped value, or null if none
+     */
+    public V getById(@NotNull UUID id)
+    {
+        int i = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    /**
+     * Return the key Entity stored for the given global id, or null.
+     * This does not allocate.
+     *
+     * @param id the entity global id
+     * @return the stored Entity, or null if none
+     */
+    public Entity entityById(@NotNull UUID id)
+    {
+        int i = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return i >= 0 ? (Entity) keys[i] : null;
+    }
+
+    /**
+     * Return whether an Entity with the given global id is a key in this index.
+     * This does not allocate.
+     *
+     * @param id the entity global id
+     * @return true if present
+     */
+    public boolean containsId(@NotNull UUID id)
+    {
+        return find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Remove the mapping for the Entity with the given global id.
+     *
+     * @param id the entity global id
+     * @return the previously mapped value, or null if none
+     */
+    public V removeById(@NotNull UUID id)
+    {
+        int i = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return i >= 0 ? removeAt(i) : null;
+    }
+
+    /**
+     * Return the dense slot holding the given key, or -1 if it is not a key. Slots are
+     * assigned in insertion order and stay fixed until an entry is removed, since
+     * removals may later be compacted away.
+     *
+     * @param key the key to look up
+     * @return the slot of the key, or -1
+     */
+    int slotOf(Object key)
+    {
+        return indexOf(key);
+    }
+
+    /**
+     * Return the dense slot holding the Entity with the given global id, or -1.
+     * This does not allocate.
+     *
+     * @param id the entity global id
+     * @return the slot of the entity, or -1
+     * @see #slotOf(Object)
+     */
+    int slotOfId(@NotNull UUID id)
+    {
+        return find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Return the number of dense slots in use, including those of removed entries
+     * not yet compacted away. Every live slot is below this.
+     *
+     * @return the number of slots in use
+     */
+    int slotsUsed()
+    {
+        return used;
+    }
+
+    /**
+     * Return the number of dense slots allocated.
+     *
+     * @return the capacity of the dense arrays
+     */
+    int slotCapacity()
+    {
+        return keys.length;
+    }
+
+    /**
+     * Return the key held in the given dense slot.
+     *
+     * @param slot a slot returned by {@link #slotOf(Object)}
+     * @return the key in that slot
+     * @see #slotOf(Object)
+     */
+    Entity keyAt(int slot)
+    {
+        return (Entity) keys[slot];
+    }
+
+    /**
+     * Allocate a {@code long} tag for every entry, initially 0, which subclasses can
+     * use to keep per-entry state alongside the index. Tags follow their entries when
+     * removed entries are compacted away.
+     */
+    void enableTags()
+    {
+        if (tags == null) {
+            tags = new long[keys.length];
+        }
+    }
+
+    /**
+     * Return the tag of the entry in the given dense slot. Tags must be enabled.
+     *
+     * @param slot the slot of a live entry
+     * @return the tag
+     */
+    long tagAt(int slot)
+    {
+        return tags[slot];
+    }
+
+    /**
+     * Set the tag of the entry in the given dense slot. Tags must be enabled.
+     *
+     * @param slot the slot of a live entry
+     * @param tag the new tag
+     */
+    void setTagAt(int slot, long tag)
+    {
+        tags[slot] = tag;
+    }
+
+    /**
+     * Start recording the keys of entries stored and removed, and return the change
+     * set they are recorded in. The change set starts out whole, as nothing has been
+     * saved. Clearing the index marks it whole.
+     *
+     * @return the change set of this index
+     */
+    ChangeSet<Entity> trackChanges()
+    {
+        if (changes == null) {
+            changes = new ChangeSet<>();
+            changes.markWhole();
+        }
+        return changes;
+    }
+
+    /**
+     * Record that the value of the entry with the given key was changed in place,
+     * if changes are being tracked and the key is present.
+     *
+     * @param key the key of the entry
+     */
+    void touched(Entity key)
+    {
+        if (changes != null && containsKey(key)) {
+            changes.update(key);
+        }
+    }
+
+    /**
+     * Called after a value is stored in the given slot, by {@link #put} or through an
+     * entry view. Does nothing by default.
+     *
+     * @param slot the slot of the entry
+     * @param key the key of the entry
+     * @param old the value replaced, or null if the entry is new
+     * @param value the value stored
+     * @param added true if the entry is new, false if its value was replaced
+     */
+    void stored(int slot, Entity key, V old, V value, boolean added)
+    {
+    }
+
+    /**
+     * Called before the entry in the given slot is removed, by any means other than
+     * {@link #clear()}. Does nothing by default.
+     *
+     * @param slot the slot of the entry
+     * @param key the key of the entry
+     * @param value the value being removed
+     */
+    void removing(int slot, Entity key, V value)
+    {
+    }
+
+    /**
+     * Called for each live entry whose slot changes while removed entries are
+     * compacted away. Entries only ever move to lower slots, in ascending order.
+     * Does nothing by default.
+     *
+     * @param from the old slot of the entry
+     * @param to the new slot of the entry
+     */
+    void relocated(int from, int to)
+    {
+    }
+
+    /**
+     * Called after removed entries have been compacted away, and the dense arrays
+     * possibly grown. Does nothing by default.
+     *
+     * @param capacity the new number of dense slots allocated
+     */
+    void rebuilt(int capacity)
+    {
+    }
+
+    /**
+     * Called after {@link #clear()} removes all entries. Does nothing by default.
+     */
+    void cleared()
+    {
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        for (int i = 0; i < used; i++) {
+            if (keys[i] != DELETED && Objects.equals(vals[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        int i = indexOf(key);
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    @Override
+    public V put(Entity key, V value)
+    {
+        int i = indexOf(key);
+        if (i >= 0) {
+            V old = valueAt(i);
+            vals[i] = value;
+            if (changes != null) {
+                changes.update(key);
+            }
+            stored(i, key, old, value, false);
+            return old;
+        }
+        ensureRoom();
+        i = used++;
+        keys[i] = key;
+        vals[i] = value;
+        if (key == null) {
+            nullIndex = i;
+        } else {
+            UUID id = key.globalId();
+            ids[2 * i] = id.getMostSignificantBits();
+            ids[2 * i + 1] = id.getLeastSignificantBits();
+            insertSlot(i);
+        }
+        size++;
+        modCount++;
+        if (changes != null) {
+            changes.update(key);
+        }
+        stored(i, key, null, value, true);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        int i = indexOf(key);
+        return i >= 0 ? removeAt(i) : null;
+    }
+
+    @Override
+    public void clear()
+    {
+        if (used > 0) {
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(vals, 0, used, null);
+            Arrays.fill(table, 0);
+        }
+        used = 0;
+        size = 0;
+        nullIndex = -1;
+        modCount++;
+        if (changes != null) {
+            changes.markWhole();
+        }
+        cleared();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super Entity, ? super V> action)
+    {
+        Objects.requireNonNull(action);
+        int expected = modCount;
+        for (int i = 0; i < used; i++) {
+            Object k = keys[i];
+            if (k != DELETED) {
+                action.accept((Entity) k, (V) vals[i]);
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public @NotNull Set<Entity> keySet()
+    {
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    @Override
+    public @NotNull Collection<V> values()
+    {
+        if (values == null) {
+            values = new Values();
+        }
+        return values;
+    }
+
+    @Override
+    public @NotNull Set<Map.Entry<Entity, V>> entrySet()
+    {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Iterates live dense entries in insertion order.
+     */
+    private abstract class IndexIterator<T> implements Iterator<T>
+    {
+        private int next;
+        private int current = -1;
+        private int expected = modCount;
+
+        IndexIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            while (next < used && keys[next] == DELETED) {
+                next++;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next < used;
+        }
+
+        int nextIndex()
+        {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            advance();
+            return current;
+        }
+
+        @Override
+        public void remove()
+        {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            boolean last = size == 1;
+            removeAt(current);
+            if (last) {
+                // removeAt reset the dense arrays
+                next = 0;
+            }
+            current = -1;
+            expected = modCount;
+        }
+    }
+
+    /**
+     * Splits the live dense entries by halving ranges of slots, so parallel streams
+     * over the views divide the work evenly. The range is bound to the slots in use
+     * at the first traversal, split or size query. While the index has no holes the
+     * estimates are exact and the spliterator reports SIZED and SUBSIZED; otherwise
+     * each range estimates its size by its slot count. Fails fast if the index is
+     * modified during traversal.
+     */
+    private abstract class IndexSpliterator<T> implements Spliterator<T>
+    {
+        private int index;
+        private int fence;
+        private int expected;
+        private final int characteristics;
+
+        IndexSpliterator(int origin, int fence, int expected, int characteristics)
+        {
+            this.index = origin;
+            this.fence = fence;
+            this.expected = expected;
+            this.characteristics = characteristics;
+        }
+
+        abstract T element(int i);
+
+        private int fence()
+        {
+            if (fence < 0) {
+                expected = modCount;
+                fence = used;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit()
+        {
+            int hi = fence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            IndexSpliterator<T> outer = this;
+            return new IndexSpliterator<>(lo, mid, expected, characteristics)
+            {
+                @Override
+                T element(int i)
+                {
+                    return outer.element(i);
+                }
+            };
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            while (index < hi) {
+                int i = index++;
+                if (keys[i] != DELETED) {
+                    action.accept(element(i));
+                    if (modCount != expected) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action)
+        {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                if (keys[i] != DELETED) {
+                    action.accept(element(i));
+                    if (modCount != expected) {
+                        throw new ConcurrentModificationException();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return fence() - index;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            int c = Spliterator.ORDERED | characteristics;
+            return size == used ? c | Spliterator.SIZED | Spliterator.SUBSIZED : c;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<Entity>
+    {
+        @Override
+        public @NotNull Iterator<Entity> iterator()
+        {
+            return new IndexIterator<>()
+            {
+                @Override
+                public Entity next()
+                {
+                    return (Entity) keys[nextIndex()];
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            int i = indexOf(o);
+            if (i < 0) {
+                return false;
+            }
+            removeAt(i);
+            return true;
+        }
+
+        @Override
+        public void clear()
+        {
+            EntityIndex.this.clear();
+        }
+
+        @Override
+        public Spliterator<Entity> spliterator()
+        {
+            return new IndexSpliterator<>(0, -1, 0, Spliterator.DISTINCT)
+            {
+                @Override
+                Entity element(int i)
+                {
+                    return (Entity) keys[i];
+                }
+            };
+        }
+    }
+
+    private final class Values extends AbstractCollection<V>
+    {
+        @Override
+        public @NotNull Iterator<V> iterator()
+        {
+            return new IndexIterator<>()
+            {
+                @Override
+                public V next()
+                {
+                    return valueAt(nextIndex());
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear()
+        {
+            EntityIndex.this.clear();
+        }
+
+        @Override
+        public Spliterator<V> spliterator()
+        {
+            return new IndexSpliterator<>(0, -1, 0, 0)
+            {
+                @Override
+                V element(int i)
+                {
+                    return valueAt(i);
+                }
+            };
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<Entity, V>>
+    {
+        @Override
+        public @NotNull Iterator<Map.Entry<Entity, V>> iterator()
+        {
+            return new IndexIterator<>()
+            {
+                @Override
+                public Map.Entry<Entity, V> next()
+                {
+                    return new IndexEntry(nextIndex());
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            if (!(o instanceof Map.Entry<?, ?> e)) {
+                return false;
+            }
+            int i = indexOf(e.getKey());
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if (!contains(o)) {
+                return false;
+            }
+            removeAt(indexOf(((Map.Entry<?, ?>) o).getKey()));
+            return true;
+        }
+
+        @Override
+        public void clear()
+        {
+            EntityIndex.this.clear();
+        }
+
+        @Override
+        public Spliterator<Map.Entry<Entity, V>> spliterator()
+        {
+            return new IndexSpliterator<>(0, -1, 0, Spliterator.DISTINCT)
+            {
+                @Override
+                Map.Entry<Entity, V> element(int i)
+                {
+                    return new IndexEntry(i);
+                }
+            };
+        }
+    }
+
+    /**
+     * Entry view over a dense slot. Reads and writes go to the index while the
+     * key is still mapped at that slot.
+     */
+    private final class IndexEntry implements Map.Entry<Entity, V>
+    {
+        private final int index;
+        private final Entity key;
+
+        private IndexEntry(int index)
+        {
+            this.index = index;
+            this.key = (Entity) keys[index];
+        }
+
+        private boolean live()
+        {
+            return index < used && keys[index] == key;
+        }
+
+        @Override
+        public Entity getKey()
+        {
+            return key;
+        }
+
+        @Override
+        public V getValue()
+        {
+            return live() ? valueAt(index) : get(key);
+        }
+
+        @Override
+        public V setValue(V value)
+        {
+            if (!live()) {
+                throw new IllegalStateException("Entry no longer in index");
+            }
+            V old = valueAt(index);
+            vals[index] = value;
+            if (changes != null) {
+                changes.update(key);
+            }
+            stored(index, key, old, value, false);
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Map.Entry<?, ?> e && Objects.equals(key, e.getKey()) &&
+                Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString()
+        {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
@@ -44,7 +45,7 @@ public class EntityLazyIdImpl implements Entity
         if (globalId == null) {
             synchronized (this) {
                 if (globalId == null) {
-                    globalId = UUID.randomUUID();
+                    globalId = IdGenerator.timeOrdered().newId();
                 }
             }
         }
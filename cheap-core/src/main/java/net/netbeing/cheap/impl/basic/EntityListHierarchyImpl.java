@@ -21,8 +21,10 @@ import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.EntityListHierarchy;
 import net.netbeing.cheap.model.HierarchyDef;
 import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -30,6 +32,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.IntFunction;
@@ -45,13 +48,21 @@ import java.util.stream.Stream;
  * This implementation uses composition with an internal ArrayList to provide
  * indexed access and maintain insertion order while implementing the
  * EntityListHierarchy interface.
+ * <p>
+ * Changes are not recorded by entry, since an insertion or removal moves every later
+ * entry: any change made through this hierarchy, its iterators or its sublists marks
+ * the {@link #changes() change set} whole, and a changed list is saved whole.
+ * <p>
+ * The content hash is computed when first requested and kept until the list is
+ * next changed through this hierarchy, its iterators or its sublists. Each such
+ * change is also reported to the catalog, so that it can keep its root hash current.
  *
  * @see EntityListHierarchy
  * @see Entity
  * @see HierarchyDef
  */
 @SuppressWarnings("unused")
-public class EntityListHierarchyImpl implements EntityListHierarchy
+public class EntityListHierarchyImpl implements EntityListHierarchy, ReportingHierarchy
 {
     /** The catalog containing this hierarchy. */
     private final Catalog catalog;
@@ -65,6 +76,15 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     /** The internal list storing entities. */
     private final List<Entity> entities;
 
+    /** Changes since last cleared; null until first requested. */
+    private ChangeSet<Entity> changes;
+
+    /** The content hash as of the last change, if hashValid is set. */
+    private long contentHash;
+
+    /** Whether contentHash is current. */
+    private boolean hashValid;
+
     /**
      * Creates a new EntityListHierarchyImpl with the specified hierarchy definition.
      * Package-private for use by CatalogImpl factory methods.
@@ -110,6 +130,24 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
         this.entities = new ArrayList<>(initialCapacity);
     }
 
+    /**
+     * Creates a new EntityListHierarchyImpl with the specified hierarchy definition and
+     * version, storing its entities in the given (empty) list. For use by subclasses
+     * that need a different list implementation.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param entities the list to hold the entities
+     */
+    protected EntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, @NotNull List<Entity> entities)
+    {
+        this.catalog = catalog;
+        this.name = name;
+        this.version = version;
+        this.entities = entities;
+    }
+
     /**
      * Returns the Catalog that owns this hierarchy.
      *
@@ -152,6 +190,88 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
         return version;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned change set never records individual entries; it is whole until
+     * first cleared, and again after any change to the list.
+     */
+    @Override
+    public @NotNull ChangeSet<Entity> changes()
+    {
+        if (changes == null) {
+            changes = new ChangeSet<>();
+            changes.markWhole();
+        }
+        return changes;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The hash is kept until the list is changed, unless
+     * {@link #cachesContentHash()} is false.
+     */
+    @Override
+    public long contentHash()
+    {
+        if (!cachesContentHash()) {
+            return EntityListHierarchy.super.contentHash();
+        }
+        if (!hashValid) {
+            contentHash = EntityListHierarchy.super.contentHash();
+            hashValid = true;
+        }
+        return contentHash;
+    }
+
+    /**
+     * Returns whether the content hash may be kept between changes. This is false
+     * while the list can change other than through this hierarchy, as an
+     * {@link OverlayList} does until it is first written to.
+     *
+     * @return true if the content hash may be kept
+     */
+    protected boolean cachesContentHash()
+    {
+        return !(entities instanceof OverlayList<?> overlay) || overlay.isDetached();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * False while the list can change other than through this hierarchy, as an
+     * {@link OverlayList} does until it is first written to.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return !(entities instanceof OverlayList<?> overlay) || overlay.isDetached();
+    }
+
+    /**
+     * Called after each change to the list.
+     */
+    private void written()
+    {
+        hashValid = false;
+        if (changes != null) {
+            changes.markWhole();
+        }
+        CatalogImpl.hierarchyChanged(catalog, name);
+    }
+
+    /**
+     * Returns the result of a bulk operation, noting a change if it made one.
+     */
+    private boolean written(boolean modified)
+    {
+        if (modified) {
+            written();
+        }
+        return modified;
+    }
+
     // List interface delegation methods
 
     @Override
@@ -175,7 +295,7 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public @NotNull Iterator<Entity> iterator()
     {
-        return entities.iterator();
+        return new WritingIterator(entities.listIterator());
     }
 
     @Override
@@ -193,13 +313,13 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public boolean add(Entity entity)
     {
-        return entities.add(entity);
+        return written(entities.add(entity));
     }
 
     @Override
     public boolean remove(Object o)
     {
-        return entities.remove(o);
+        return written(entities.remove(o));
     }
 
     @Override
@@ -211,31 +331,32 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public boolean addAll(@NotNull Collection<? extends Entity> c)
     {
-        return entities.addAll(c);
+        return written(entities.addAll(c));
     }
 
     @Override
     public boolean addAll(int index, @NotNull Collection<? extends Entity> c)
     {
-        return entities.addAll(index, c);
+        return written(entities.addAll(index, c));
     }
 
     @Override
     public boolean removeAll(@NotNull Collection<?> c)
     {
-        return entities.removeAll(c);
+        return written(entities.removeAll(c));
     }
 
     @Override
     public boolean retainAll(@NotNull Collection<?> c)
     {
-        return entities.retainAll(c);
+        return written(entities.retainAll(c));
     }
 
     @Override
     public void clear()
     {
         entities.clear();
+        written();
     }
 
     @Override
@@ -247,19 +368,24 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public Entity set(int index, Entity element)
     {
-        return entities.set(index, element);
+        Entity old = entities.set(index, element);
+        written();
+        return old;
     }
 
     @Override
     public void add(int index, Entity element)
     {
         entities.add(index, element);
+        written();
     }
 
     @Override
     public Entity remove(int index)
     {
-        return entities.remove(index);
+        Entity old = entities.remove(index);
+        written();
+        return old;
     }
 
     @Override
@@ -277,31 +403,33 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public @NotNull ListIterator<Entity> listIterator()
     {
-        return entities.listIterator();
+        return new WritingIterator(entities.listIterator());
     }
 
     @Override
     public @NotNull ListIterator<Entity> listIterator(int index)
     {
-        return entities.listIterator(index);
+        return new WritingIterator(entities.listIterator(index));
     }
 
     @Override
     public @NotNull List<Entity> subList(int fromIndex, int toIndex)
     {
-        return entities.subList(fromIndex, toIndex);
+        return new WritingSubList(entities.subList(fromIndex, toIndex));
     }
 
     @Override
     public void replaceAll(@NotNull UnaryOperator<Entity> operator)
     {
         entities.replaceAll(operator);
+        written();
     }
 
     @Override
     public void sort(Comparator<? super Entity> c)
     {
         entities.sort(c);
+        written();
     }
 
     @Override
@@ -319,7 +447,7 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     @Override
     public boolean removeIf(@NotNull Predicate<? super Entity> filter)
     {
-        return entities.removeIf(filter);
+        return written(entities.removeIf(filter));
     }
 
     @Override
@@ -339,4 +467,145 @@ public class EntityListHierarchyImpl implements EntityListHierarchy
     {
         entities.forEach(action);
     }
+
+    /**
+     * List iterator that notes the changes made through it.
+     */
+    private final class WritingIterator implements ListIterator<Entity>
+    {
+        private final ListIterator<Entity> it;
+
+        private WritingIterator(ListIterator<Entity> it)
+        {
+            this.it = it;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return it.hasNext();
+        }
+
+        @Override
+        public Entity next()
+        {
+            return it.next();
+        }
+
+        @Override
+        public boolean hasPrevious()
+        {
+            return it.hasPrevious();
+        }
+
+        @Override
+        public Entity previous()
+        {
+            return it.previous();
+        }
+
+        @Override
+        public int nextIndex()
+        {
+            return it.nextIndex();
+        }
+
+        @Override
+        public int previousIndex()
+        {
+            return it.previousIndex();
+        }
+
+        @Override
+        public void remove()
+        {
+            it.remove();
+            written();
+        }
+
+        @Override
+        public void set(Entity entity)
+        {
+            it.set(entity);
+            written();
+        }
+
+        @Override
+        public void add(Entity entity)
+        {
+            it.add(entity);
+            written();
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entity> action)
+        {
+            it.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * Sublist view that notes the changes made through it. Its iterators and
+     * sublists go through the methods below.
+     */
+    private final class WritingSubList extends AbstractList<Entity> implements RandomAccess
+    {
+        private final List<Entity> range;
+
+        private WritingSubList(List<Entity> range)
+        {
+            this.range = range;
+        }
+
+        @Override
+        public int size()
+        {
+            return range.size();
+        }
+
+        @Override
+        public Entity get(int index)
+        {
+            return range.get(index);
+        }
+
+        @Override
+        public Entity set(int index, Entity element)
+        {
+            Entity old = range.set(index, element);
+            written();
+            return old;
+        }
+
+        @Override
+        public void add(int index, Entity element)
+        {
+            range.add(index, element);
+            modCount++;
+            written();
+        }
+
+        @Override
+        public Entity remove(int index)
+        {
+            Entity old = range.remove(index);
+            modCount++;
+            written();
+            return old;
+        }
+
+        @Override
+        public void clear()
+        {
+            range.clear();
+            modCount++;
+            written();
+        }
+
+        @Override
+        public @NotNull List<Entity> subList(int fromIndex, int toIndex)
+        {
+            return new WritingSubList(range.subList(fromIndex, toIndex));
+        }
+    }
 }
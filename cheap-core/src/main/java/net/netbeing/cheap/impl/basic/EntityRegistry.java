@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Thread-safe registry of Entities keyed by global id.
+ * <p>
+ * Entities are held weakly, so an Entity that is no longer referenced from
+ * anywhere else (typically, no longer present in any catalog) may be garbage
+ * collected, after which its id is no longer registered. Cleared entries are
+ * purged lazily on subsequent writes.
+ * <p>
+ * All operations are safe for concurrent use; registration of a given id is
+ * atomic, so concurrent callers of {@link #getOrRegister(UUID, Function)} for
+ * the same id all receive the same Entity.
+ */
+public class EntityRegistry
+{
+    private final ConcurrentHashMap<UUID, EntityRef> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Entity> cleared = new ReferenceQueue<>();
+
+    /**
+     * Weak reference to a registered Entity that remembers its key, so the
+     * entry can be removed once the referent has been collected.
+     */
+    private static final class EntityRef extends WeakReference<Entity>
+    {
+        private final UUID id;
+
+        private EntityRef(UUID id, Entity entity, ReferenceQueue<Entity> queue)
+        {
+            super(entity, queue);
+            this.id = id;
+        }
+    }
+
+    /**
+     * Return the Entity registered under the given id, or null if none is
+     * registered or it has been collected.
+     *
+     * @param id the entity id
+     * @return the registered entity, or null
+     */
+    public Entity get(@NotNull UUID id)
+    {
+        EntityRef ref = entries.get(id);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Register an Entity under its global id, replacing any existing registration.
+     *
+     * @param entity the Entity to register
+     * @return the Entity previously registered under that id, if any
+     */
+    public Entity register(@NotNull Entity entity)
+    {
+        purge();
+        UUID id = Objects.requireNonNull(entity.globalId(), "Entity global id may not be null.");
+        EntityRef previous = entries.put(id, new EntityRef(id, entity, cleared));
+        return previous != null ? previous.get() : null;
+    }
+
+    /**
+     * Return the Entity registered under the given id, atomically creating and
+     * registering one with the supplied constructor if none is registered.
+     *
+     * @param id      the entity id
+     * @param creator creates a new Entity for the id if needed
+     * @return the registered entity
+     */
+    public @NotNull Entity getOrRegister(@NotNull UUID id, @NotNull Function<UUID, ? extends Entity> creator)
+    {
+        Entity existing = get(id);
+        if (existing != null) {
+            return existing;
+        }
+        purge();
+        // Hold the result strongly until we return, so it can't be collected in between.
+        Entity[] result = new Entity[1];
+        entries.compute(id, (key, ref) -> {
+            Entity e = ref != null ? ref.get() : null;
+            if (e != null) {
+                result[0] = e;
+                return ref;
+            }
+            result[0] = creator.apply(key);
+            return new EntityRef(key, result[0], cleared);
+        });
+        return result[0];
+    }
+
+    /**
+     * Look up the Entities registered under each of the given ids. Ids that are
+     * not registered are omitted from the result.
+     *
+     * @param ids the entity ids to look up
+     * @return the registered entities, keyed by id, in the iteration order of {@code ids}
+     */
+    public @NotNull Map<UUID, Entity> resolveAll(@NotNull Collection<UUID> ids)
+    {
+        Map<UUID, Entity> result = LinkedHashMap.newLinkedHashMap(ids.size());
+        for (UUID id : ids) {
+            Entity e = get(id);
+            if (e != null) {
+                result.put(id, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove the registration for the given id.
+     *
+     * @param id the entity id
+     * @return the Entity that was registered under that id, if any
+     */
+    public Entity unregister(@NotNull UUID id)
+    {
+        EntityRef ref = entries.remove(id);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Return the number of registrations, after discarding any whose Entity
+     * has been collected.
+     *
+     * @return the number of registered entities
+     */
+    public int size()
+    {
+        purge();
+        return entries.size();
+    }
+
+    /**
+     * Returns the weak reference held for the given id, so that tests can clear
+     * and enqueue it to simulate collection of its Entity without relying on GC.
+     *
+     * @param id the entity id
+     * @return the reference, or null if the id is not registered
+     */
+    WeakReference<Entity> reference(@NotNull UUID id)
+    {
+        return entries.get(id);
+    }
+
+    /**
+     * Discard registrations whose Entity has been garbage collected.
+     */
+    void purge()
+    {
+        EntityRef ref;
+        while ((ref = (EntityRef) cleared.poll()) != null) {
+            // Only remove the entry if it hasn't since been replaced by a live registration.
+            entries.remove(ref.id, ref);
+        }
+    }
+}
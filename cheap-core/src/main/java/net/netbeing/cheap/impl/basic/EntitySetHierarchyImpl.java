@@ -21,33 +21,40 @@ import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.EntitySetHierarchy;
 import net.netbeing.cheap.model.HierarchyDef;
 import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.EntityHashTree;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
- * Basic implementation of an EntitySetHierarchy using a LinkedHashSet.
+ * Basic implementation of an EntitySetHierarchy using an {@link EntityIndex}.
  * This hierarchy type represents a possibly-ordered collection of unique entities
  * corresponding to the ENTITY_SET (ES) hierarchy type in Cheap.
  * <p>
- * This implementation uses composition with an internal LinkedHashSet to provide
- * efficient entity membership testing and duplicate prevention while implementing
- * the EntitySetHierarchy interface.
+ * This implementation uses composition with the key set of an internal EntityIndex
+ * to provide efficient, insertion-ordered entity membership testing and duplicate
+ * prevention, keyed on entity global ids, while implementing the EntitySetHierarchy
+ * interface. The index also records the entities added and removed once
+ * {@link #changes()} has been called, and keeps a hash tree over them current once
+ * {@link #hashTree()} has been called, so that later hashes cost nothing, and
+ * reports each change to the catalog so that it can keep its root hash current.
  *
  * @see EntitySetHierarchy
  * @see Entity
  * @see HierarchyDef
  */
 @SuppressWarnings("unused")
-public class EntitySetHierarchyImpl implements EntitySetHierarchy
+public class EntitySetHierarchyImpl implements EntitySetHierarchy, ReportingHierarchy
 {
     /** The catalog containing this hierarchy. */
     private final Catalog catalog;
@@ -58,7 +65,10 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
     /** The version number of this hierarchy. */
     private final long version;
 
-    /** The internal set storing unique entities. */
+    /** The internal index whose keys are the member entities, or null if another set is used. */
+    private final HashedIndex index;
+
+    /** The member entities; the key set view of the index, if there is one. */
     private final Set<Entity> entities;
 
     /**
@@ -99,7 +109,8 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
         this.catalog = catalog;
         this.name = name;
         this.version = version;
-        this.entities = new LinkedHashSet<>();
+        this.index = new HashedIndex(0, this::contentChanged);
+        this.entities = index.keySet();
     }
 
     /**
@@ -116,7 +127,27 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
         this.catalog = catalog;
         this.name = name;
         this.version = version;
-        this.entities = LinkedHashSet.newLinkedHashSet(initialCapacity);
+        this.index = new HashedIndex(initialCapacity, this::contentChanged);
+        this.entities = index.keySet();
+    }
+
+    /**
+     * Creates a new EntitySetHierarchyImpl with the specified hierarchy definition and
+     * version, storing its entities in the given (empty) set. For use by subclasses
+     * that need a different set implementation.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param entities the set to hold the member entities
+     */
+    protected EntitySetHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, @NotNull Set<Entity> entities)
+    {
+        this.catalog = catalog;
+        this.name = name;
+        this.version = version;
+        this.index = null;
+        this.entities = entities;
     }
 
     /**
@@ -161,6 +192,65 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
         return version;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation does not allocate when backed by an {@link EntityIndex}.
+     */
+    @Override
+    public boolean containsEntity(@NotNull UUID entityId)
+    {
+        if (index != null) {
+            return index.containsId(entityId);
+        }
+        return EntitySetHierarchy.super.containsEntity(entityId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When backed by an {@link EntityIndex}, the tree is built on the first call and
+     * then kept current by the index. Subclasses that supply their own set build a
+     * new tree on every call.
+     */
+    @Override
+    public @NotNull EntityHashTree hashTree()
+    {
+        return index != null ? index.tree() : EntitySetHierarchy.super.hashTree();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When backed by an {@link EntityIndex}, changes are recorded from the first call
+     * on; until then the hierarchy is whole. Subclasses that supply their own set do
+     * not track changes.
+     */
+    @Override
+    public @Nullable ChangeSet<Entity> changes()
+    {
+        return index != null ? index.trackChanges() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True when backed by an {@link EntityIndex}, through which every change passes.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return index != null;
+    }
+
+    /**
+     * Called after each change to the members of the index.
+     */
+    private void contentChanged()
+    {
+        CatalogImpl.hierarchyChanged(catalog, name);
+    }
+
     // Set interface delegation methods
 
     @Override
@@ -202,6 +292,10 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
     @Override
     public boolean add(Entity entity)
     {
+        if (index != null) {
+            // Adding a member again must not record a change
+            return index.putIfAbsent(entity, Boolean.TRUE) == null;
+        }
         return entities.add(entity);
     }
 
@@ -220,7 +314,11 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
     @Override
     public boolean addAll(@NotNull Collection<? extends Entity> c)
     {
-        return entities.addAll(c);
+        boolean modified = false;
+        for (Entity e : c) {
+            modified |= add(e);
+        }
+        return modified;
     }
 
     @Override
@@ -290,4 +388,66 @@ public class EntitySetHierarchyImpl implements EntitySetHierarchy
     {
         return entities.hashCode();
     }
+
+    /**
+     * Entity index that keeps a hash tree over its keys once one is requested, and
+     * runs a callback after each change to its keys.
+     */
+    private static final class HashedIndex extends EntityIndex<Boolean>
+    {
+        private final Runnable changed;
+        private EntityHashTree tree;
+
+        HashedIndex(int initialCapacity, Runnable changed)
+        {
+            super(initialCapacity);
+            this.changed = changed;
+        }
+
+        private static UUID idOf(Entity entity)
+        {
+            return entity == null ? null : entity.globalId();
+        }
+
+        EntityHashTree tree()
+        {
+            if (tree == null) {
+                EntityHashTree built = new EntityHashTree();
+                for (Entity entity : keySet()) {
+                    built.add(idOf(entity), 0L);
+                }
+                tree = built;
+            }
+            return tree;
+        }
+
+        @Override
+        void stored(int slot, Entity key, Boolean old, Boolean value, boolean added)
+        {
+            if (added) {
+                if (tree != null) {
+                    tree.add(idOf(key), 0L);
+                }
+                changed.run();
+            }
+        }
+
+        @Override
+        void removing(int slot, Entity key, Boolean value)
+        {
+            if (tree != null) {
+                tree.remove(idOf(key), 0L);
+            }
+            changed.run();
+        }
+
+        @Override
+        void cleared()
+        {
+            if (tree != null) {
+                tree.clear();
+            }
+            changed.run();
+        }
+    }
 }
@@ -21,11 +21,15 @@ import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.EntityTreeHierarchy;
 import net.netbeing.cheap.model.HierarchyDef;
 import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -33,6 +37,8 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Basic implementation of an EntityTreeHierarchy that represents a tree structure
@@ -41,14 +47,29 @@ import java.util.function.Function;
  * <p>
  * This implementation provides both regular nodes (which can have children) and
  * leaf nodes (which cannot have children) to build tree structures.
+ * <p>
+ * Nodes can be changed without going through the hierarchy, so {@link NodeImpl
+ * nodes} pass each change up through the nodes holding them to the hierarchy, which
+ * marks its {@link #changes() change set} whole; a changed tree is saved whole. Nodes
+ * keep their subtree hashes until they or a node below them change, so hashing the
+ * tree again rehashes only the nodes on the paths to the changes made since. The
+ * hierarchy also reports each change to the catalog, so that it can keep its root
+ * hash current.
  *
  * @see EntityTreeHierarchy
  * @see Entity
  * @see HierarchyDef
  */
 @SuppressWarnings("unused")
-public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
+public class EntityTreeHierarchyImpl implements EntityTreeHierarchy, ReportingHierarchy
 {
+    /**
+     * Separates the names of the nodes in a path.
+     *
+     * @see #resolve(String)
+     */
+    public static final char PATH_SEPARATOR = '/';
+
     /**
      * The catalog containing this hierarchy.
      */
@@ -64,7 +85,11 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
     /**
      * The root node of this tree hierarchy.
      */
-    private Node root;
+    private volatile Node root;
+    /**
+     * Changes since last cleared; null until first requested.
+     */
+    private ChangeSet<String> changes;
 
     /**
      * Creates a new EntityTreeHierarchyImpl with the specified hierarchy definition and a root with a null entity.
@@ -106,6 +131,7 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         this.name = name;
         this.version = version;
         this.root = rootNode;
+        hold(rootNode, this);
     }
 
     /**
@@ -161,6 +187,51 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         return version;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned change set never records individual nodes; it is whole until
+     * first cleared, and again after any change to the tree. Changes are noticed when
+     * made through {@link NodeImpl} and {@link LeafNodeImpl} nodes; subclasses using
+     * other nodes call {@link #written()} themselves.
+     */
+    @Override
+    public @NotNull ChangeSet<String> changes()
+    {
+        if (changes == null) {
+            changes = new ChangeSet<>();
+            changes.markWhole();
+        }
+        return changes;
+    }
+
+    /**
+     * Notes a change to the tree, marking the change set whole and reporting the
+     * change to the catalog.
+     */
+    protected void written()
+    {
+        ChangeSet<String> c = changes;
+        if (c != null) {
+            c.markWhole();
+        }
+        CatalogImpl.hierarchyChanged(catalog, name);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True while the root is a {@link NodeImpl} whose subtree hash is kept, or a
+     * {@link LeafNodeImpl}, held by this hierarchy: every change below such a root
+     * is passed up to {@link #written()}.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        Node r = root;
+        return holderOf(r) == this && (!(r instanceof NodeImpl node) || node.hashed);
+    }
+
     /**
      * Set a new root node.
      *
@@ -168,12 +239,123 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
      */
     public void setRoot(@NotNull Node newRoot)
     {
+        release(root, this);
         this.root = newRoot;
+        hold(newRoot, this);
+        written();
+    }
+
+    /**
+     * Returns the node at the given path, or null if there is none. A path is the
+     * names of the nodes from the root down to the node, separated by
+     * {@link #PATH_SEPARATOR}; the empty path is the root. Nodes whose names contain
+     * the separator cannot be resolved by path.
+     *
+     * @param path the path of the node
+     * @return the node at that path, or null
+     */
+    public Node resolve(@NotNull String path)
+    {
+        Node node = root;
+        int start = 0;
+        while (node != null && start < path.length()) {
+            int end = path.indexOf(PATH_SEPARATOR, start);
+            if (end < 0) {
+                end = path.length();
+            }
+            node = node.get(path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Returns a stream over the nodes of this tree, starting with the root. A
+     * sequential stream visits the nodes in depth-first pre-order; a parallel stream
+     * splits the traversal along subtree boundaries, so that separate subtrees are
+     * processed on separate threads.
+     *
+     * @param parallel whether to return a parallel stream
+     * @return a stream over every node in this tree
+     */
+    public @NotNull Stream<Node> nodes(boolean parallel)
+    {
+        return nodes(root, parallel);
+    }
+
+    /**
+     * Returns a stream over the nodes of the given subtree, starting with its root.
+     * Works over any Node implementation; see {@link #nodes(boolean)}.
+     *
+     * @param subtree the root of the subtree to traverse
+     * @param parallel whether to return a parallel stream
+     * @return a stream over every node in the subtree
+     */
+    public static @NotNull Stream<Node> nodes(@NotNull Node subtree, boolean parallel)
+    {
+        return StreamSupport.stream(new NodeSpliterator(subtree), parallel);
+    }
+
+    /**
+     * Returns the node holding the given node as a child, or the hierarchy holding
+     * it as its root, if it is one of ours.
+     */
+    private static Object holderOf(Object node)
+    {
+        if (node instanceof NodeImpl n) {
+            return n.holder;
+        }
+        return node instanceof LeafNodeImpl leaf ? leaf.holder : null;
+    }
+
+    /**
+     * Records that the given node, if it is one of ours, is held by the given parent
+     * node or hierarchy.
+     */
+    private static void hold(Object node, Object holder)
+    {
+        if (node instanceof NodeImpl n) {
+            n.holder = holder;
+        } else if (node instanceof LeafNodeImpl leaf) {
+            leaf.holder = holder;
+        }
+    }
+
+    /**
+     * Records that the given node is no longer held by the given parent.
+     */
+    private static void release(Object node, Object holder)
+    {
+        if (holderOf(node) == holder) {
+            hold(node, null);
+        }
+    }
+
+    /**
+     * Notes a change at or below the given node or hierarchy, so that the nodes
+     * holding it no longer keep their subtree hashes and the hierarchy holding the
+     * root, if any, records the change.
+     */
+    private static void changedBelow(Object holder)
+    {
+        while (holder instanceof NodeImpl node) {
+            node.hashed = false;
+            holder = node.holder;
+        }
+        if (holder instanceof EntityTreeHierarchyImpl tree) {
+            tree.written();
+        }
     }
 
     /**
      * Implementation of a tree node that can have child nodes.
      * This node type uses composition with an internal map to provide string-to-node mappings.
+     * <p>
+     * The node keeps its {@link #subtreeHash() subtree hash} until it or a node below
+     * it changes. Changes are noticed when made through this class, its views, or
+     * the nodes of this class and {@link LeafNodeImpl} held as children; a subtree
+     * that holds other nodes is hashed on every call. A node held by two parents
+     * notifies only the last one it was added to.
      */
     protected static class NodeImpl implements Node
     {
@@ -188,7 +370,24 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         /**
          * The entity value stored at this node.
          */
-        private Entity value;
+        private volatile Entity value;
+        /**
+         * The node holding this one as a child, the hierarchy holding it as its
+         * root, or null.
+         */
+        private Object holder;
+        /**
+         * The subtree hash as of the last change, if hashed is set.
+         */
+        private long subtreeHash;
+        /**
+         * Whether subtreeHash is current.
+         */
+        private boolean hashed;
+
+        private Set<String> keySet;
+        private Collection<Node> values;
+        private Set<Entry<String, Node>> entrySet;
 
         /**
          * Creates a new NodeImpl with the specified entity value and no parent.
@@ -207,10 +406,83 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
          * @param parent the parent node, or null for root nodes
          */
         public NodeImpl(Entity value, Node parent)
+        {
+            this(value, parent, new LinkedHashMap<>());
+        }
+
+        /**
+         * Creates a new NodeImpl with the specified entity value and parent, storing
+         * its children in the given (empty) map. For use by subclasses that need a
+         * different map implementation.
+         *
+         * @param value    the entity value to store at this node
+         * @param parent   the parent node, or null for root nodes
+         * @param children the map to hold child nodes
+         */
+        protected NodeImpl(Entity value, Node parent, @NotNull Map<String, Node> children)
         {
             this.value = value;
             this.parent = parent;
-            this.children = new LinkedHashMap<>();
+            this.children = children;
+        }
+
+        /**
+         * Returns whether this node may keep its subtree hash between changes.
+         * Subclasses whose nodes may change while they are hashed return false.
+         *
+         * @return true if the subtree hash may be kept
+         */
+        protected boolean cachesSubtreeHash()
+        {
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The hash is kept until this node or a node below it changes, unless
+         * {@link #cachesSubtreeHash()} is false.
+         */
+        @Override
+        public long subtreeHash()
+        {
+            if (hashed) {
+                return subtreeHash;
+            }
+            long hash = Node.super.subtreeHash();
+            if (cachesSubtreeHash()) {
+                boolean watched = true;
+                for (Node child : children.values()) {
+                    if (child != null && (holderOf(child) != this || child instanceof NodeImpl n && !n.hashed)) {
+                        watched = false;
+                        break;
+                    }
+                }
+                subtreeHash = hash;
+                hashed = watched;
+            }
+            return hash;
+        }
+
+        /**
+         * Notes a change to this node's value or children.
+         */
+        private void changed()
+        {
+            changedBelow(this);
+        }
+
+        /**
+         * Notes that the child mapped to a key went from one node to another.
+         */
+        private Node replaced(Node before, Node after)
+        {
+            if (before != after) {
+                release(before, this);
+                hold(after, this);
+                changed();
+            }
+            return after;
         }
 
         /**
@@ -253,9 +525,11 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         public void setValue(Entity entity)
         {
             value = entity;
+            changed();
         }
 
-        // Map interface delegation methods
+        // Map interface delegation methods. Each change to the children is noted,
+        // and the nodes added and removed are told who holds them.
 
         @Override
         public int size()
@@ -290,43 +564,161 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         @Override
         public Node put(String key, Node value)
         {
-            return children.put(key, value);
+            Node old = children.put(key, value);
+            if (old != value || value == null) {
+                release(old, this);
+                hold(value, this);
+                changed();
+            }
+            return old;
         }
 
         @Override
         public Node remove(Object key)
         {
-            return children.remove(key);
+            if (!children.containsKey(key)) {
+                return null;
+            }
+            Node old = children.remove(key);
+            release(old, this);
+            changed();
+            return old;
         }
 
         @Override
         public void putAll(@NotNull Map<? extends String, ? extends Node> m)
         {
-            children.putAll(m);
+            m.forEach(this::put);
         }
 
         @Override
         public void clear()
         {
-            children.clear();
+            if (!children.isEmpty()) {
+                for (Node child : children.values()) {
+                    release(child, this);
+                }
+                children.clear();
+                changed();
+            }
         }
 
         @Override
         public @NotNull Set<String> keySet()
         {
-            return children.keySet();
+            if (keySet == null) {
+                keySet = new AbstractSet<>()
+                {
+                    @Override
+                    public @NotNull Iterator<String> iterator()
+                    {
+                        return new ChildIterator<>(Entry::getKey);
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return children.size();
+                    }
+
+                    @Override
+                    public boolean contains(Object o)
+                    {
+                        return children.containsKey(o);
+                    }
+
+                    @Override
+                    public boolean remove(Object o)
+                    {
+                        if (!children.containsKey(o)) {
+                            return false;
+                        }
+                        NodeImpl.this.remove(o);
+                        return true;
+                    }
+
+                    @Override
+                    public void clear()
+                    {
+                        NodeImpl.this.clear();
+                    }
+                };
+            }
+            return keySet;
         }
 
         @Override
         public @NotNull Collection<Node> values()
         {
-            return children.values();
+            if (values == null) {
+                values = new AbstractCollection<>()
+                {
+                    @Override
+                    public @NotNull Iterator<Node> iterator()
+                    {
+                        return new ChildIterator<>(Entry::getValue);
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return children.size();
+                    }
+
+                    @Override
+                    public boolean contains(Object o)
+                    {
+                        return children.containsValue(o);
+                    }
+
+                    @Override
+                    public void clear()
+                    {
+                        NodeImpl.this.clear();
+                    }
+                };
+            }
+            return values;
         }
 
         @Override
         public @NotNull Set<Entry<String, Node>> entrySet()
         {
-            return children.entrySet();
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>()
+                {
+                    @Override
+                    public @NotNull Iterator<Entry<String, Node>> iterator()
+                    {
+                        return new ChildIterator<>(ChildEntry::new);
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return children.size();
+                    }
+
+                    @Override
+                    public boolean contains(Object o)
+                    {
+                        return children.entrySet().contains(o);
+                    }
+
+                    @Override
+                    public boolean remove(Object o)
+                    {
+                        return o instanceof Entry<?, ?> e && NodeImpl.this.remove(e.getKey(), e.getValue());
+                    }
+
+                    @Override
+                    public void clear()
+                    {
+                        NodeImpl.this.clear();
+                    }
+                };
+            }
+            return entrySet;
         }
 
         @SuppressWarnings("SuspiciousMethodCalls")
@@ -345,56 +737,86 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         @Override
         public void replaceAll(BiFunction<? super String, ? super Node, ? extends Node> function)
         {
-            children.replaceAll(function);
+            children.replaceAll((key, before) -> {
+                Node after = function.apply(key, before);
+                if (before != after) {
+                    release(before, this);
+                    hold(after, this);
+                }
+                return after;
+            });
+            changed();
         }
 
         @Override
         public Node putIfAbsent(String key, Node value)
         {
-            return children.putIfAbsent(key, value);
+            Node old = children.putIfAbsent(key, value);
+            if (old == null) {
+                replaced(null, value);
+            }
+            return old;
         }
 
         @Override
         public boolean remove(Object key, Object value)
         {
-            return children.remove(key, value);
+            if (!children.remove(key, value)) {
+                return false;
+            }
+            release(value, this);
+            changed();
+            return true;
         }
 
         @Override
         public boolean replace(String key, Node oldValue, Node newValue)
         {
-            return children.replace(key, oldValue, newValue);
+            if (!children.replace(key, oldValue, newValue)) {
+                return false;
+            }
+            replaced(oldValue, newValue);
+            return true;
         }
 
         @Override
         public Node replace(String key, Node value)
         {
-            return children.replace(key, value);
+            if (!children.containsKey(key)) {
+                return null;
+            }
+            Node old = children.replace(key, value);
+            replaced(old, value);
+            return old;
         }
 
         @Override
         public Node computeIfAbsent(String key, @NotNull Function<? super String, ? extends Node> mappingFunction)
         {
-            return children.computeIfAbsent(key, mappingFunction);
+            Node before = children.get(key);
+            return replaced(before, children.computeIfAbsent(key, mappingFunction));
         }
 
         @Override
         public Node computeIfPresent(String key, @NotNull BiFunction<? super String, ? super Node, ? extends Node> remappingFunction)
         {
-            return children.computeIfPresent(key, remappingFunction);
+            Node before = children.get(key);
+            return replaced(before, children.computeIfPresent(key, remappingFunction));
         }
 
         @Override
         public Node compute(String key, @NotNull BiFunction<? super String, ? super Node, ? extends Node> remappingFunction)
         {
-            return children.compute(key, remappingFunction);
+            Node before = children.get(key);
+            return replaced(before, children.compute(key, remappingFunction));
         }
 
         @Override
         public Node merge(String key, @NotNull Node value,
                           @NotNull BiFunction<? super Node, ? super Node, ? extends Node> remappingFunction)
         {
-            return children.merge(key, value, remappingFunction);
+            Node before = children.get(key);
+            return replaced(before, children.merge(key, value, remappingFunction));
         }
 
         @Override
@@ -410,6 +832,95 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         {
             return children.hashCode();
         }
+
+        /**
+         * Iterator over the children whose removals are noted.
+         */
+        private final class ChildIterator<T> implements Iterator<T>
+        {
+            private final Iterator<Entry<String, Node>> it = children.entrySet().iterator();
+            private final Function<Entry<String, Node>, T> view;
+            private Entry<String, Node> current;
+
+            private ChildIterator(Function<Entry<String, Node>, T> view)
+            {
+                this.view = view;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next()
+            {
+                current = it.next();
+                return view.apply(current);
+            }
+
+            @Override
+            public void remove()
+            {
+                Node old = current == null ? null : current.getValue();
+                it.remove();
+                release(old, NodeImpl.this);
+                changed();
+                current = null;
+            }
+        }
+
+        /**
+         * Child entry whose setValue is noted.
+         */
+        private final class ChildEntry implements Entry<String, Node>
+        {
+            private final Entry<String, Node> entry;
+
+            private ChildEntry(Entry<String, Node> entry)
+            {
+                this.entry = entry;
+            }
+
+            @Override
+            public String getKey()
+            {
+                return entry.getKey();
+            }
+
+            @Override
+            public Node getValue()
+            {
+                return entry.getValue();
+            }
+
+            @Override
+            public Node setValue(Node value)
+            {
+                Node old = entry.setValue(value);
+                replaced(old, value);
+                return old;
+            }
+
+            @Override
+            public boolean equals(Object o)
+            {
+                return entry.equals(o);
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return entry.hashCode();
+            }
+
+            @Override
+            public String toString()
+            {
+                return entry.toString();
+            }
+        }
     }
 
     /**
@@ -427,6 +938,11 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
          * The entity value stored at this leaf node.
          */
         private Entity value;
+        /**
+         * The node holding this one as a child, the hierarchy holding it as its
+         * root, or null.
+         */
+        private Object holder;
 
         /**
          * Creates a new LeafNodeImpl with the specified entity value and no parent.
@@ -491,6 +1007,7 @@ public class EntityTreeHierarchyImpl implements EntityTreeHierarchy
         public void setValue(Entity entity)
         {
             value = entity;
+            changedBelow(holder);
         }
 
         /**
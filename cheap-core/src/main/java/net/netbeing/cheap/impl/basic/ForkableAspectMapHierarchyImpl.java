@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Implementation of an AspectMapHierarchy backed by a {@link ForkableMap}, so that
+ * it can be forked in O(1). Iteration is not in insertion order. Not thread-safe.
+ * <p>
+ * Once forked, the hierarchy and its fork share their aspects. Aspects read from
+ * either are copy-on-write: the first write to one makes a private copy in the
+ * hierarchy it was read from, so the other never sees it. Aspects put after the fork
+ * belong to the hierarchy they were put in, and are returned as they are.
+ *
+ * @see ForkableCatalogImpl
+ * @see AspectMapHierarchyImpl
+ */
+public class ForkableAspectMapHierarchyImpl extends AspectMapHierarchyImpl implements ForkableHierarchy
+{
+    private final SharingMap aspects;
+
+    /**
+     * Creates a new ForkableAspectMapHierarchyImpl to contain the given AspectDef with version.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     */
+    protected ForkableAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version)
+    {
+        this(catalog, aspectDef, version, new SharingMap(new ForkableMap<>(), null));
+    }
+
+    private ForkableAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version,
+                                           @NotNull SharingMap aspects)
+    {
+        super(catalog, aspectDef, version, aspects);
+        this.aspects = aspects;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ForkableAspectMapHierarchyImpl fork(@NotNull Catalog catalog)
+    {
+        return new ForkableAspectMapHierarchyImpl(catalog, aspectDef(), version(), aspects.fork());
+    }
+
+    /**
+     * Map that hands out copy-on-write views of the aspects it shares with its forks.
+     */
+    private static final class SharingMap extends AbstractMap<Entity, Aspect>
+    {
+        private final ForkableMap<Entity, Aspect> map;
+        /** Entities whose aspects are not shared; null if never forked, when none are. */
+        private Set<Entity> owned;
+
+        SharingMap(ForkableMap<Entity, Aspect> map, Set<Entity> owned)
+        {
+            this.map = map;
+            this.owned = owned;
+        }
+
+        SharingMap fork()
+        {
+            owned = new HashSet<>();
+            return new SharingMap(map.fork(), new HashSet<>());
+        }
+
+        private Aspect guard(Entity entity, Aspect aspect)
+        {
+            if (aspect == null || owned == null || owned.contains(entity)) {
+                return aspect;
+            }
+            return new CopyOnWriteAspect(aspect, copy -> {
+                if (map.get(entity) == aspect) {
+                    map.put(entity, copy);
+                    owned.add(entity);
+                }
+            });
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public Aspect get(Object key)
+        {
+            Aspect aspect = map.get(key);
+            return aspect != null ? guard((Entity) key, aspect) : null;
+        }
+
+        @Override
+        public Aspect put(Entity key, Aspect value)
+        {
+            if (owned != null) {
+                owned.add(key);
+            }
+            return map.put(key, value);
+        }
+
+        @Override
+        public Aspect remove(Object key)
+        {
+            if (owned != null) {
+                owned.remove(key);
+            }
+            return map.remove(key);
+        }
+
+        @Override
+        public void clear()
+        {
+            map.clear();
+            if (owned != null) {
+                owned = new HashSet<>();
+            }
+        }
+
+        @Override
+        public @NotNull Set<Entry<Entity, Aspect>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<Entry<Entity, Aspect>> iterator()
+                {
+                    Iterator<Entry<Entity, Aspect>> it = map.entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Entity, Aspect> next()
+                        {
+                            Entry<Entity, Aspect> e = it.next();
+                            return new SimpleEntry<>(e.getKey(), guard(e.getKey(), e.getValue()))
+                            {
+                                @Override
+                                public Aspect setValue(Aspect value)
+                                {
+                                    put(getKey(), value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            it.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return map.size();
+                }
+
+                @Override
+                public void clear()
+                {
+                    SharingMap.this.clear();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.util.IdGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Implementation of a Catalog whose hierarchies are all built on persistent
+ * (structurally shared) collections, so that the whole catalog can be copied
+ * with {@link #derive(CatalogSpecies)} in time proportional to the number of
+ * hierarchies, independent of how much data they hold. The derived catalog and
+ * this one share all structure until either is modified, and each then pays
+ * only for its own changes. This is what makes FORK, CLONE and "Save As..."
+ * (a new SOURCE or SINK) cheap on large catalogs.
+ * <p>
+ * Entities are shared by reference between derived catalogs. Aspects are shared
+ * until one of the catalogs writes to them, when it makes a private copy; see
+ * {@link ForkableHierarchy}. Not thread-safe.
+ * <p>
+ * Only a catalog whose hierarchies are already forkable derives in O(1). Deriving
+ * from any other catalog, such as a plain {@link CatalogImpl} loaded by a DAO,
+ * copies its hierarchies and aspects once, in time proportional to their size; the
+ * result, and anything derived from it, then derives in O(1).
+ *
+ * @see ForkableHierarchy
+ * @see CatalogImpl
+ */
+public class ForkableCatalogImpl extends CatalogImpl
+{
+    /**
+     * Creates a new non-strict forkable SINK catalog.
+     */
+    public ForkableCatalogImpl()
+    {
+        this(IdGenerator.timeOrdered().newId(), CatalogSpecies.SINK, null, 0L);
+    }
+
+    /**
+     * Creates a new non-strict forkable SINK catalog with the given global id.
+     *
+     * @param globalId the global identifier for the catalog
+     */
+    public ForkableCatalogImpl(UUID globalId)
+    {
+        this(globalId, CatalogSpecies.SINK, null, 0L);
+    }
+
+    /**
+     * Creates a new non-strict forkable catalog with the specified species and upstream.
+     *
+     * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
+     */
+    public ForkableCatalogImpl(CatalogSpecies species, UUID upstream)
+    {
+        this(IdGenerator.timeOrdered().newId(), species, upstream, 0L);
+    }
+
+    /**
+     * Creates a new forkable catalog with the specified definition and upstream catalog.
+     *
+     * @param upstream the upstream catalog to mirror, or null for root catalogs
+     * @param version the version number of this catalog
+     * @throws IllegalArgumentException if a SOURCE/SINK catalog has an upstream; or for other species, if it lacks one
+     */
+    public ForkableCatalogImpl(@NotNull UUID globalId, @NotNull CatalogSpecies species, UUID upstream, long version)
+    {
+        super(globalId, species, upstream, version);
+    }
+
+    /**
+     * Creates a new catalog of the given species with the same contents as this one.
+     * See {@link #derive(Catalog, CatalogSpecies)}.
+     *
+     * @param species the species of the new catalog
+     * @return the new catalog
+     */
+    public @NotNull ForkableCatalogImpl derive(@NotNull CatalogSpecies species)
+    {
+        return derive(this, species);
+    }
+
+    /**
+     * Creates a new forkable catalog of the given species with the same hierarchies,
+     * URI and version as the source. SOURCE and SINK catalogs are independent
+     * copies with no upstream; all other species have the source as their upstream.
+     * <p>
+     * Hierarchies that are already {@link ForkableHierarchy forkable} are forked in
+     * O(1). Any others, including every hierarchy of a plain {@link CatalogImpl}, are
+     * copied in time proportional to their size, aspects included, after which the
+     * new catalog can itself be derived cheaply.
+     *
+     * @param source the catalog to copy
+     * @param species the species of the new catalog
+     * @return the new catalog
+     */
+    public static @NotNull ForkableCatalogImpl derive(@NotNull Catalog source, @NotNull CatalogSpecies species)
+    {
+        UUID upstream = switch (species) {
+            case SOURCE, SINK -> null;
+            default -> source.globalId();
+        };
+        ForkableCatalogImpl derived = new ForkableCatalogImpl(IdGenerator.timeOrdered().newId(), species, upstream, source.version());
+        if (source.uri() != null) {
+            derived.uri(source.uri());
+        }
+        for (Hierarchy hierarchy : source.hierarchies()) {
+            derived.addHierarchy(fork(hierarchy, derived));
+        }
+        return derived;
+    }
+
+    private static Hierarchy fork(Hierarchy hierarchy, ForkableCatalogImpl catalog)
+    {
+        if (hierarchy instanceof ForkableHierarchy forkable) {
+            return forkable.fork(catalog);
+        }
+        long version = hierarchy.version();
+        return switch (hierarchy) {
+            case AspectMapHierarchy aMap -> {
+                ForkableAspectMapHierarchyImpl copy = new ForkableAspectMapHierarchyImpl(catalog, aMap.aspectDef(), version);
+                if (aMap instanceof ColumnarAspectMapImpl columnar) {
+                    columnar.copySnapshotsTo(copy);
+                } else {
+                    // The source doesn't copy on write, so the copy can't share its aspects
+                    aMap.forEach((entity, aspect) ->
+                        copy.put(entity, aspect != null ? CopyOnWriteAspect.copyOf(aspect) : null));
+                }
+                yield copy;
+            }
+            case EntityListHierarchy list -> {
+                ForkableEntityListHierarchyImpl copy = new ForkableEntityListHierarchyImpl(catalog, list.name(), version);
+                copy.addAll(list);
+                yield copy;
+            }
+            case EntitySetHierarchy set -> {
+                ForkableEntitySetHierarchyImpl copy = new ForkableEntitySetHierarchyImpl(catalog, set.name(), version);
+                copy.addAll(set);
+                yield copy;
+            }
+            case EntityDirectoryHierarchy dir -> {
+                ForkableEntityDirectoryHierarchyImpl copy = new ForkableEntityDirectoryHierarchyImpl(catalog, dir.name(), version);
+                copy.putAll(dir);
+                yield copy;
+            }
+            case EntityTreeHierarchy tree -> new ForkableEntityTreeHierarchyImpl(catalog, tree.name(), tree.root(), version);
+            default -> throw new UnsupportedOperationException("Cannot fork hierarchy of type " + hierarchy.type());
+        };
+    }
+
+    /**
+     * Creates a new forkable EntityListHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityListHierarchy
+     */
+    @Override
+    public EntityListHierarchy createEntityList(@NotNull String name, long version, int initialCapacity)
+    {
+        EntityListHierarchy hierarchy = new ForkableEntityListHierarchyImpl(this, name, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new forkable EntitySetHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntitySetHierarchy
+     */
+    @Override
+    public EntitySetHierarchy createEntitySet(@NotNull String name, long version, int initialCapacity)
+    {
+        EntitySetHierarchy hierarchy = new ForkableEntitySetHierarchyImpl(this, name, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new forkable EntityDirectoryHierarchy with the specified name and adds it to this catalog.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityDirectoryHierarchy
+     */
+    @Override
+    public EntityDirectoryHierarchy createEntityDirectory(@NotNull String name, long version, int initialCapacity)
+    {
+        EntityDirectoryHierarchy hierarchy = new ForkableEntityDirectoryHierarchyImpl(this, name, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new forkable EntityTreeHierarchy with the specified name and adds it to this catalog.
+     * The given root, if any, is copied into the tree.
+     *
+     * @param name the name of the hierarchy to create
+     * @return the newly created EntityTreeHierarchy
+     */
+    @Override
+    public EntityTreeHierarchy createEntityTree(@NotNull String name, EntityTreeHierarchy.Node root, long version)
+    {
+        EntityTreeHierarchy hierarchy = new ForkableEntityTreeHierarchyImpl(this, name, root, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new forkable AspectMapHierarchy for the specified AspectDef and adds
+     * it to this catalog. Only {@link AspectMapStorage#OBJECT} storage is supported.
+     *
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param storage the storage layout for the aspects in this hierarchy
+     * @return the newly created AspectMapHierarchy
+     * @throws UnsupportedOperationException if the storage layout is not OBJECT
+     */
+    @Override
+    public AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version, @NotNull AspectMapStorage storage)
+    {
+        if (storage != AspectMapStorage.OBJECT) {
+            throw new UnsupportedOperationException("AspectMap storage " + storage + " is not supported by forkable catalogs.");
+        }
+        AspectMapHierarchy hierarchy = new ForkableAspectMapHierarchyImpl(this, aspectDef, version);
+        addHierarchy(hierarchy);
+        return hierarchy;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implementation of an EntityListHierarchy backed by a {@link ForkableList}, so that
+ * it can be forked in O(1). Not thread-safe.
+ *
+ * @see ForkableCatalogImpl
+ * @see EntityListHierarchyImpl
+ */
+public class ForkableEntityListHierarchyImpl extends EntityListHierarchyImpl implements ForkableHierarchy
+{
+    private final ForkableList<Entity> entities;
+
+    /**
+     * Creates a new ForkableEntityListHierarchyImpl with the specified hierarchy definition and version.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     */
+    protected ForkableEntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version)
+    {
+        this(catalog, name, version, new ForkableList<>());
+    }
+
+    private ForkableEntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version,
+                                            @NotNull ForkableList<Entity> entities)
+    {
+        super(catalog, name, version, entities);
+        this.entities = entities;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ForkableEntityListHierarchyImpl fork(@NotNull Catalog catalog)
+    {
+        return new ForkableEntityListHierarchyImpl(catalog, name(), version(), entities.fork());
+    }
+}
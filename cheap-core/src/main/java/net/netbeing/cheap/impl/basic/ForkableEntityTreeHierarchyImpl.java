@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Implementation of an EntityTreeHierarchy that can be forked in O(1). The tree is
+ * held as immutable node records, and every change copies only the path from the
+ * changed node up to the root, so a fork shares every subtree that neither copy
+ * has modified.
+ * <p>
+ * The {@link Node} objects returned by {@link #root()} and by navigation are
+ * handles that name a path from the root; they always reflect the current tree.
+ * A handle whose path has been removed throws IllegalStateException when used.
+ * Nodes passed to {@link Node#put} or {@link #setRoot} are copied into the tree,
+ * so later changes must be made through handles obtained from the tree. Nodes
+ * returned by {@code put} and {@code remove} are detached copies of the replaced
+ * subtree. Children are not kept in insertion order. Not thread-safe.
+ *
+ * @see ForkableCatalogImpl
+ * @see EntityTreeHierarchyImpl
+ */
+public class ForkableEntityTreeHierarchyImpl extends EntityTreeHierarchyImpl implements ForkableHierarchy
+{
+    private final Holder holder;
+    private final PathNode rootNode;
+
+    /**
+     * Creates a new ForkableEntityTreeHierarchyImpl with the specified hierarchy
+     * definition, root node, and version.
+     *
+     * @param catalog  the catalog containing this hierarchy
+     * @param name     the name of this hierarchy in the catalog
+     * @param rootNode the node to copy as the root of the tree, or null for a root with a null entity
+     * @param version  the version number of this hierarchy
+     */
+    protected ForkableEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, Node rootNode, long version)
+    {
+        this(catalog, name, version, new Holder(rootNode == null ? NodeRecord.EMPTY : NodeRecord.of(rootNode)));
+    }
+
+    private ForkableEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, @NotNull Holder holder)
+    {
+        super(catalog, name, null, version);
+        this.holder = holder;
+        this.rootNode = new PathNode(holder, null, null);
+        holder.tree = this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ForkableEntityTreeHierarchyImpl fork(@NotNull Catalog catalog)
+    {
+        return new ForkableEntityTreeHierarchyImpl(catalog, name(), version(), new Holder(holder.root));
+    }
+
+    /**
+     * Returns a handle on the root node of this tree hierarchy.
+     *
+     * @return the root node of the tree
+     */
+    @Override
+    public @NotNull Node root()
+    {
+        return rootNode;
+    }
+
+    /**
+     * Replaces the tree with a copy of the given node and its descendants.
+     *
+     * @param newRoot the new root
+     */
+    @Override
+    public void setRoot(@NotNull Node newRoot)
+    {
+        holder.root = NodeRecord.of(newRoot);
+        holder.changed();
+    }
+
+    /**
+     * Immutable contents of a tree node.
+     */
+    private record NodeRecord(Entity value, boolean leaf, PersistentHashMap<String, NodeRecord> children)
+    {
+        static final NodeRecord EMPTY = new NodeRecord(null, false, PersistentHashMap.empty());
+
+        static NodeRecord of(@NotNull Node node)
+        {
+            if (node instanceof PathNode handle) {
+                return handle.record();
+            }
+            PersistentHashMap<String, NodeRecord> children = PersistentHashMap.empty();
+            for (Map.Entry<String, Node> e : node.entrySet()) {
+                children = children.with(e.getKey(), of(Objects.requireNonNull(e.getValue())));
+            }
+            return new NodeRecord(node.value(), node instanceof LeafNodeImpl, children);
+        }
+    }
+
+    /**
+     * The current root record of a tree, shared by all handles on that tree.
+     */
+    private static final class Holder
+    {
+        private NodeRecord root;
+        /** Incremented on every change, to invalidate the records cached by handles. */
+        private int modCount;
+        /** The tree whose root this is, or null for a detached copy. */
+        private ForkableEntityTreeHierarchyImpl tree;
+
+        Holder(NodeRecord root)
+        {
+            this.root = root;
+        }
+
+        /**
+         * Notes a change to the tree.
+         */
+        void changed()
+        {
+            modCount++;
+            if (tree != null) {
+                tree.written();
+            }
+        }
+    }
+
+    /**
+     * Handle on the node reached by following a path of child names from the root.
+     */
+    private static final class PathNode extends AbstractMap<String, Node> implements Node
+    {
+        private final Holder holder;
+        private final PathNode parent;
+        private final String key;
+
+        private NodeRecord resolved;
+        private int resolvedAt = -1;
+
+        PathNode(Holder holder, PathNode parent, String key)
+        {
+            this.holder = holder;
+            this.parent = parent;
+            this.key = key;
+        }
+
+        private static PathNode detached(NodeRecord record)
+        {
+            return new PathNode(new Holder(record), null, null);
+        }
+
+        NodeRecord record()
+        {
+            if (resolvedAt != holder.modCount) {
+                NodeRecord r = holder.root;
+                if (parent != null) {
+                    r = parent.record().children().get(key);
+                    if (r == null) {
+                        throw new IllegalStateException("Node '" + key + "' is no longer in the tree");
+                    }
+                }
+                resolved = r;
+                resolvedAt = holder.modCount;
+            }
+            return resolved;
+        }
+
+        private void update(NodeRecord record)
+        {
+            replace(record);
+            holder.changed();
+        }
+
+        private void replace(NodeRecord record)
+        {
+            if (parent == null) {
+                holder.root = record;
+            } else {
+                NodeRecord p = parent.record();
+                parent.replace(new NodeRecord(p.value(), p.leaf(), p.children().with(key, record)));
+            }
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            NodeRecord r = record();
+            return r.leaf() || r.children().isEmpty();
+        }
+
+        @Override
+        public Node getParent()
+        {
+            return parent;
+        }
+
+        @Override
+        public Entity value()
+        {
+            return record().value();
+        }
+
+        @Override
+        public void setValue(Entity entity)
+        {
+            NodeRecord r = record();
+            update(new NodeRecord(entity, r.leaf(), r.children()));
+        }
+
+        @Override
+        public int size()
+        {
+            return record().children().size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return record().children().containsKey(key);
+        }
+
+        @Override
+        public Node get(Object key)
+        {
+            return record().children().containsKey(key) ? new PathNode(holder, this, (String) key) : null;
+        }
+
+        @Override
+        public Node put(String key, Node value)
+        {
+            NodeRecord r = record();
+            if (r.leaf()) {
+                throw new UnsupportedOperationException("Leaf nodes cannot have children");
+            }
+            NodeRecord old = r.children().get(key);
+            update(new NodeRecord(r.value(), false, r.children().with(key, NodeRecord.of(Objects.requireNonNull(value)))));
+            return old == null ? null : detached(old);
+        }
+
+        @Override
+        public Node remove(Object key)
+        {
+            NodeRecord r = record();
+            NodeRecord old = r.children().get(key);
+            if (old == null) {
+                return null;
+            }
+            update(new NodeRecord(r.value(), r.leaf(), r.children().without(key)));
+            return detached(old);
+        }
+
+        @Override
+        public void clear()
+        {
+            NodeRecord r = record();
+            if (!r.children().isEmpty()) {
+                update(new NodeRecord(r.value(), r.leaf(), PersistentHashMap.empty()));
+            }
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Node>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<Entry<String, Node>> iterator()
+                {
+                    Iterator<String> keys = record().children().keySet().iterator();
+                    return new Iterator<>()
+                    {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Node> next()
+                        {
+                            last = keys.next();
+                            return new SimpleImmutableEntry<>(last, new PathNode(holder, PathNode.this, last));
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            PathNode.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return PathNode.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Hierarchy;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A hierarchy built on persistent (structurally shared) collections, which can
+ * therefore be copied in O(1). The copy and the original share all structure
+ * until one of them is modified; each then pays only for what it changes.
+ * <p>
+ * Entities are shared by reference between a hierarchy and its forks. Aspects
+ * are shared until written: an aspect read from a forked AspectMap is copied on
+ * its first write, so the write is seen only by the hierarchy it was read from.
+ *
+ * @see ForkableCatalogImpl
+ */
+public interface ForkableHierarchy extends Hierarchy
+{
+    /**
+     * Returns an independent copy of this hierarchy, owned by the given catalog,
+     * with the same name, version and contents.
+     *
+     * @param catalog the catalog that will contain the copy
+     * @return the copy
+     */
+    @NotNull ForkableHierarchy fork(@NotNull Catalog catalog);
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Mutable list backed by a {@link PersistentVector}, which can be forked in O(1).
+ * A fork starts out sharing all structure with this list; afterwards each copy
+ * pays only for the elements it changes, and neither sees the other's changes.
+ * <p>
+ * Indexed reads, {@code set}, appending and removing the last element take
+ * O(log32 n). Inserting or removing elsewhere rebuilds the part of the list
+ * after the affected index. Not thread-safe.
+ *
+ * @param <E> the type of elements
+ */
+public class ForkableList<E> extends AbstractList<E> implements RandomAccess
+{
+    private PersistentVector<E> vector;
+
+    /**
+     * Creates an empty ForkableList.
+     */
+    public ForkableList()
+    {
+        this(PersistentVector.empty());
+    }
+
+    /**
+     * Creates a ForkableList that starts out with the contents of the given vector.
+     *
+     * @param vector the initial contents
+     */
+    ForkableList(PersistentVector<E> vector)
+    {
+        this.vector = vector;
+    }
+
+    /**
+     * Returns the current contents of this list, which later changes to the list
+     * do not affect.
+     *
+     * @return the immutable contents
+     */
+    PersistentVector<E> vector()
+    {
+        return vector;
+    }
+
+    /**
+     * Returns an independent copy of this list that shares its current structure.
+     *
+     * @return a new ForkableList with the same contents
+     */
+    public ForkableList<E> fork()
+    {
+        return new ForkableList<>(vector);
+    }
+
+    @Override
+    public int size()
+    {
+        return vector.size();
+    }
+
+    @Override
+    public E get(int index)
+    {
+        return vector.get(index);
+    }
+
+    @Override
+    public E set(int index, E element)
+    {
+        E old = vector.get(index);
+        vector = vector.withSet(index, element);
+        return old;
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        vector = vector.plus(e);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element)
+    {
+        Objects.checkIndex(index, vector.size() + 1);
+        Object[] suffix = truncate(index);
+        PersistentVector<E> v = vector.plus(element);
+        vector = append(v, suffix);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index)
+    {
+        E old = vector.get(index);
+        Object[] suffix = truncate(index + 1);
+        vector = append(vector.minus(), suffix);
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear()
+    {
+        vector = PersistentVector.empty();
+        modCount++;
+    }
+
+    /**
+     * Pops every element from {@code index} on and returns them in order.
+     */
+    private Object[] truncate(int index)
+    {
+        Object[] suffix = new Object[vector.size() - index];
+        PersistentVector<E> v = vector;
+        for (int i = suffix.length - 1; i >= 0; i--) {
+            suffix[i] = v.get(index + i);
+            v = v.minus();
+        }
+        vector = v;
+        return suffix;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> PersistentVector<E> append(PersistentVector<E> v, Object[] elements)
+    {
+        for (Object e : elements) {
+            v = v.plus((E) e);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mutable map backed by a {@link PersistentHashMap}, which can be forked in O(1).
+ * A fork starts out sharing all structure with this map; afterwards each copy
+ * pays only for the entries it changes, and neither sees the other's changes.
+ * <p>
+ * Iterators run over the snapshot taken when they were created and never throw
+ * ConcurrentModificationException; removal through an iterator and
+ * {@link Map.Entry#setValue} write through to this map. Iteration order is
+ * unspecified. Not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+public class ForkableMap<K, V> extends AbstractMap<K, V>
+{
+    private PersistentHashMap<K, V> map;
+
+    /**
+     * Creates an empty ForkableMap.
+     */
+    public ForkableMap()
+    {
+        this(PersistentHashMap.empty());
+    }
+
+    private ForkableMap(PersistentHashMap<K, V> map)
+    {
+        this.map = map;
+    }
+
+    /**
+     * Returns an independent copy of this map that shares its current structure.
+     *
+     * @return a new ForkableMap with the same contents
+     */
+    public ForkableMap<K, V> fork()
+    {
+        return new ForkableMap<>(map);
+    }
+
+    @Override
+    public int size()
+    {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        V old = map.get(key);
+        map = map.with(key, value);
+        return old;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        V old = map.get(key);
+        map = map.without(key);
+        return old;
+    }
+
+    @Override
+    public void clear()
+    {
+        map = PersistentHashMap.empty();
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator()
+            {
+                Iterator<Entry<K, V>> it = map.entrySet().iterator();
+                return new Iterator<>()
+                {
+                    private K lastKey;
+                    private boolean canRemove;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next()
+                    {
+                        Entry<K, V> e = it.next();
+                        lastKey = e.getKey();
+                        canRemove = true;
+                        return new SimpleEntry<>(e)
+                        {
+                            @Override
+                            public V setValue(V value)
+                            {
+                                put(getKey(), value);
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        if (!canRemove) {
+                            throw new IllegalStateException();
+                        }
+                        canRemove = false;
+                        ForkableMap.this.remove(lastKey);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return map.size();
+            }
+
+            @Override
+            public void clear()
+            {
+                ForkableMap.this.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * Mutable set backed by a {@link PersistentHashMap}, which can be forked in O(1).
+ * A fork starts out sharing all structure with this set; afterwards each copy
+ * pays only for the elements it changes, and neither sees the other's changes.
+ * <p>
+ * Iterators run over the snapshot taken when they were created and never throw
+ * ConcurrentModificationException; removal through an iterator writes through
+ * to this set. Iteration order is unspecified. Not thread-safe.
+ *
+ * @param <E> the type of elements
+ */
+public class ForkableSet<E> extends AbstractSet<E>
+{
+    private PersistentHashMap<E, Boolean> map;
+
+    /**
+     * Creates an empty ForkableSet.
+     */
+    public ForkableSet()
+    {
+        this(PersistentHashMap.empty());
+    }
+
+    private ForkableSet(PersistentHashMap<E, Boolean> map)
+    {
+        this.map = map;
+    }
+
+    /**
+     * Returns an independent copy of this set that shares its current structure.
+     *
+     * @return a new ForkableSet with the same contents
+     */
+    public ForkableSet<E> fork()
+    {
+        return new ForkableSet<>(map);
+    }
+
+    @Override
+    public int size()
+    {
+        return map.size();
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        int before = map.size();
+        map = map.with(e, Boolean.TRUE);
+        return map.size() != before;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        int before = map.size();
+        map = map.without(o);
+        return map.size() != before;
+    }
+
+    @Override
+    public void clear()
+    {
+        map = PersistentHashMap.empty();
+    }
+
+    @Override
+    public @NotNull Iterator<E> iterator()
+    {
+        Iterator<E> it = map.keySet().iterator();
+        return new Iterator<>()
+        {
+            private E last;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext()
+            {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                last = it.next();
+                canRemove = true;
+                return last;
+            }
+
+            @Override
+            public void remove()
+            {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                ForkableSet.this.remove(last);
+            }
+        };
+    }
+}
@@ -138,6 +138,7 @@ public class FullAspectDefImpl extends AspectDefBase implements MutableAspectDef
                 "Cannot add properties to AspectDef '" + name + "' (canAddProperties=false).");
         }
         invalidateHashCache();
+        assignSlot(prop);
         return propertyDefs.put(prop.name(), prop);
     }
 
@@ -157,6 +158,10 @@ public class FullAspectDefImpl extends AspectDefBase implements MutableAspectDef
                 "Cannot remove properties from AspectDef '" + name + "' (canRemoveProperties=false).");
         }
         invalidateHashCache();
-        return propertyDefs.remove(prop.name());
+        PropertyDef removed = propertyDefs.remove(prop.name());
+        if (removed != null) {
+            releaseSlot(prop.name());
+        }
+        return removed;
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Hierarchy;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Fills in the content of a deferred hierarchy on first access.
+ *
+ * @see CatalogImpl#deferHierarchy(net.netbeing.cheap.model.HierarchyType, String, long, long, HierarchyLoader)
+ * @see LazyHierarchy
+ */
+@FunctionalInterface
+public interface HierarchyLoader
+{
+    /**
+     * Loads the content of a hierarchy into an empty hierarchy of the same
+     * name, type and catalog. Implementations should wrap checked failures
+     * in a {@link net.netbeing.cheap.util.CheapException}; if loading fails,
+     * it is retried on the next access.
+     *
+     * @param target the empty hierarchy to fill
+     */
+    void load(@NotNull Hierarchy target);
+}
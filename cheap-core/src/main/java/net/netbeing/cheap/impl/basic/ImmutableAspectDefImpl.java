@@ -18,6 +18,7 @@ package net.netbeing.cheap.impl.basic;
 
 import com.google.common.collect.ImmutableMap;
 import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Map;
@@ -47,7 +48,7 @@ public class ImmutableAspectDefImpl extends AspectDefBase
      */
     public ImmutableAspectDefImpl(@NotNull String name, @NotNull Map<String, ? extends PropertyDef> propertyDefs)
     {
-        this(name, UUID.randomUUID(), ImmutableMap.copyOf(propertyDefs));
+        this(name, IdGenerator.timeOrdered().newId(), ImmutableMap.copyOf(propertyDefs));
     }
 
     /**
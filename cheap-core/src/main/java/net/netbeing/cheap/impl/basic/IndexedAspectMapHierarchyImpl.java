@@ -0,0 +1,546 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * AspectMapHierarchy that maintains secondary indexes over selected properties
+ * of its aspects, so that entities can be found by property value without
+ * scanning the map. Each index is either a HASH index, for equality lookups, or
+ * a SORTED index, which also answers range queries such as "all files modified
+ * after X".
+ * <p>
+ * Indexes are kept current as aspects are put into and removed from the map.
+ * To catch in-place writes, the map hands out views over the aspects put into
+ * it, as COLUMNAR storage does; writes made through a view, including the
+ * unsafe write methods, update the indexes. Writes made through the original
+ * aspect reference bypass the indexes, and leave them stale until the aspect is
+ * put again or {@link #reindex()} is called. Writes to properties that are not
+ * indexed go straight to the underlying aspect. Writes made through a view are
+ * also recorded in the {@link #changes() change set}.
+ * <p>
+ * Not thread-safe.
+ *
+ * @see PropertyIndexType
+ */
+public class IndexedAspectMapHierarchyImpl extends AspectMapHierarchyImpl
+{
+    /** The index-maintaining map holding this hierarchy's aspects. */
+    private final IndexedAspects aspects;
+
+    /**
+     * Creates a new, empty IndexedAspectMapHierarchyImpl with no indexes.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     */
+    protected IndexedAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef)
+    {
+        this(catalog, aspectDef, 0L);
+    }
+
+    /**
+     * Creates a new, empty IndexedAspectMapHierarchyImpl with no indexes.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     */
+    protected IndexedAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version)
+    {
+        this(catalog, aspectDef, version, new IndexedAspects());
+    }
+
+    private IndexedAspectMapHierarchyImpl(Catalog catalog, AspectDef aspectDef, long version, IndexedAspects aspects)
+    {
+        super(catalog, aspectDef, version, aspects);
+        this.aspects = aspects;
+    }
+
+    /**
+     * Declares an index on the given property and builds it from the aspects
+     * already in the map. Declaring an index that already exists with the same
+     * type has no effect.
+     *
+     * @param propName the name of the property to index
+     * @param type the kind of index
+     * @throws IllegalArgumentException if the aspect definition has no such
+     *     property, or the property is a BLOB
+     * @throws IllegalStateException if the property already has an index of a
+     *     different type
+     */
+    public void createIndex(@NotNull String propName, @NotNull PropertyIndexType type)
+    {
+        PropertyDef propDef = aspectDef().propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + name() + "' has no property '" + propName + "'.");
+        }
+        if (propDef.type() == PropertyType.BLOB) {
+            throw new IllegalArgumentException("BLOB property '" + propName + "' cannot be indexed.");
+        }
+        PropertyIndex existing = aspects.indexes.get(propName);
+        if (existing != null) {
+            if (existing.type() != type) {
+                throw new IllegalStateException("Property '" + propName + "' already has a " + existing.type() + " index.");
+            }
+            return;
+        }
+        PropertyIndex index = new PropertyIndex(propDef, type);
+        aspects.store.forEach((entity, view) -> index.add(entity, view.delegate.unsafeReadObj(propName)));
+        aspects.indexes.put(propName, index);
+    }
+
+    /**
+     * Removes the index on the given property, if any.
+     *
+     * @param propName the name of the indexed property
+     * @return true if an index was removed
+     */
+    public boolean dropIndex(@NotNull String propName)
+    {
+        return aspects.indexes.remove(propName) != null;
+    }
+
+    /**
+     * Returns the type of the index on the given property.
+     *
+     * @param propName the name of the property
+     * @return the index type, or null if the property is not indexed
+     */
+    public PropertyIndexType indexType(@NotNull String propName)
+    {
+        PropertyIndex index = aspects.indexes.get(propName);
+        return index != null ? index.type() : null;
+    }
+
+    /**
+     * Returns the names of the indexed properties.
+     *
+     * @return an unmodifiable view of the indexed property names
+     */
+    public @NotNull Set<String> indexedProperties()
+    {
+        return Collections.unmodifiableSet(aspects.indexes.keySet());
+    }
+
+    /**
+     * Returns the entities whose aspects hold the given value in an indexed
+     * property. For a multivalued property, this is the entities holding the
+     * value as one of their elements.
+     *
+     * @param propName the name of the indexed property
+     * @param value the value to look up
+     * @return the matching entities, in the order they were indexed; empty if
+     *     the value is null or not present
+     * @throws IllegalStateException if the property is not indexed
+     */
+    public @NotNull Set<Entity> findEqual(@NotNull String propName, Object value)
+    {
+        return index(propName).find(value);
+    }
+
+    /**
+     * Returns the entities whose aspects hold a value between the given bounds
+     * in a property with a SORTED index. A null bound leaves that end of the
+     * range open.
+     *
+     * @param propName the name of the indexed property
+     * @param from the lower bound, or null for none
+     * @param fromInclusive whether the lower bound itself matches
+     * @param to the upper bound, or null for none
+     * @param toInclusive whether the upper bound itself matches
+     * @return the matching entities, in ascending order of value
+     * @throws IllegalStateException if the property is not indexed
+     * @throws UnsupportedOperationException if the property's index is not SORTED
+     * @throws IllegalArgumentException if a bound cannot be compared with the
+     *     property's values
+     */
+    public @NotNull Set<Entity> findRange(@NotNull String propName, Object from, boolean fromInclusive,
+                                          Object to, boolean toInclusive)
+    {
+        return index(propName).findRange(from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * Rebuilds every index from the current contents of the map. Needed only
+     * after aspects in the map were written through references other than the
+     * ones handed out by the map.
+     */
+    public void reindex()
+    {
+        for (PropertyIndex index : aspects.indexes.values()) {
+            index.clear();
+            String propName = index.propertyDef().name();
+            aspects.store.forEach((entity, view) -> index.add(entity, view.delegate.unsafeReadObj(propName)));
+        }
+    }
+
+    @Override
+    public Aspect aspect(@NotNull UUID entityId)
+    {
+        return aspects.store.getById(entityId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Writes made through the views handed out by the map are recorded as changes,
+     * like puts, from the first call on.
+     */
+    @Override
+    public @NotNull ChangeSet<Entity> changes()
+    {
+        return aspects.store.trackChanges();
+    }
+
+    private PropertyIndex index(String propName)
+    {
+        PropertyIndex index = aspects.indexes.get(propName);
+        if (index == null) {
+            throw new IllegalStateException("Property '" + propName + "' of aspect '" + name() + "' is not indexed.");
+        }
+        return index;
+    }
+
+    /**
+     * Entity-to-aspect map that wraps each aspect put into it in an
+     * index-maintaining view, and keeps the indexes current as entries are
+     * added, replaced and removed.
+     */
+    private static final class IndexedAspects extends AbstractMap<Entity, Aspect>
+    {
+        private final EntityIndex<View> store = new EntityIndex<>();
+        private final Map<String, PropertyIndex> indexes = new HashMap<>();
+        private Set<Entry<Entity, Aspect>> entrySet;
+
+        private void index(View view)
+        {
+            for (PropertyIndex index : indexes.values()) {
+                index.add(view.key, view.delegate.unsafeReadObj(index.propertyDef().name()));
+            }
+        }
+
+        private void unindex(View view)
+        {
+            view.attached = false;
+            for (PropertyIndex index : indexes.values()) {
+                index.remove(view.key, view.delegate.unsafeReadObj(index.propertyDef().name()));
+            }
+        }
+
+        @Override
+        public int size()
+        {
+            return store.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return store.containsKey(key);
+        }
+
+        @Override
+        public Aspect get(Object key)
+        {
+            return store.get(key);
+        }
+
+        @Override
+        public Aspect put(Entity key, Aspect value)
+        {
+            Aspect aspect = value instanceof View v && v.owner() == this ? v.delegate : value;
+            View view = new View(key, aspect);
+            View old = store.put(key, view);
+            if (old != null) {
+                unindex(old);
+            }
+            index(view);
+            return old;
+        }
+
+        @Override
+        public Aspect remove(Object key)
+        {
+            View old = store.remove(key);
+            if (old != null) {
+                unindex(old);
+            }
+            return old;
+        }
+
+        @Override
+        public void clear()
+        {
+            store.forEach((entity, view) -> view.attached = false);
+            store.clear();
+            for (PropertyIndex index : indexes.values()) {
+                index.clear();
+            }
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super Entity, ? super Aspect> action)
+        {
+            store.forEach(action);
+        }
+
+        @Override
+        public @NotNull Set<Entry<Entity, Aspect>> entrySet()
+        {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>()
+                {
+                    @Override
+                    public @NotNull Iterator<Entry<Entity, Aspect>> iterator()
+                    {
+                        Iterator<Entry<Entity, View>> it = store.entrySet().iterator();
+                        return new Iterator<>()
+                        {
+                            private View current;
+
+                            @Override
+                            public boolean hasNext()
+                            {
+                                return it.hasNext();
+                            }
+
+                            @Override
+                            public Entry<Entity, Aspect> next()
+                            {
+                                Entry<Entity, View> e = it.next();
+                                current = e.getValue();
+                                return new SimpleEntry<>(e.getKey(), current)
+                                {
+                                    @Override
+                                    public Aspect setValue(Aspect value)
+                                    {
+                                        Aspect old = put(getKey(), value);
+                                        super.setValue(get(getKey()));
+                                        return old;
+                                    }
+                                };
+                            }
+
+                            @Override
+                            public void remove()
+                            {
+                                it.remove();
+                                unindex(current);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return store.size();
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        /**
+         * View over an aspect in the map that updates the indexes when an
+         * indexed property is written, for as long as the aspect stays in the map.
+         */
+        private final class View implements Aspect
+        {
+            private final Entity key;
+            private final Aspect delegate;
+            private boolean attached = true;
+
+            View(Entity key, Aspect delegate)
+            {
+                this.key = key;
+                this.delegate = delegate;
+            }
+
+            IndexedAspects owner()
+            {
+                return IndexedAspects.this;
+            }
+
+            /**
+             * Called before each write: records the change, and returns the index
+             * to update, if the property is indexed.
+             */
+            private PropertyIndex indexFor(String propName)
+            {
+                if (!attached) {
+                    return null;
+                }
+                store.touched(key);
+                return indexes.get(propName);
+            }
+
+            @Override
+            public AspectDef def()
+            {
+                return delegate.def();
+            }
+
+            @Override
+            public Entity entity()
+            {
+                return delegate.entity();
+            }
+
+            @Override
+            public void setEntity(@NotNull Entity entity)
+            {
+                delegate.setEntity(entity);
+            }
+
+            @Override
+            public boolean isTransferable()
+            {
+                return delegate.isTransferable();
+            }
+
+            @Override
+            public Object unsafeReadObj(@NotNull String propName)
+            {
+                return delegate.unsafeReadObj(propName);
+            }
+
+            @Override
+            public long unsafeReadLong(@NotNull String propName)
+            {
+                return delegate.unsafeReadLong(propName);
+            }
+
+            @Override
+            public double unsafeReadDouble(@NotNull String propName)
+            {
+                return delegate.unsafeReadDouble(propName);
+            }
+
+            @Override
+            public boolean unsafeReadBoolean(@NotNull String propName)
+            {
+                return delegate.unsafeReadBoolean(propName);
+            }
+
+            @Override
+            public void unsafeWrite(@NotNull String propName, Object value)
+            {
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeWrite(propName, value);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeWrite(propName, value);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public void unsafeWriteLong(@NotNull String propName, long value)
+            {
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeWriteLong(propName, value);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeWriteLong(propName, value);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public void unsafeWriteDouble(@NotNull String propName, double value)
+            {
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeWriteDouble(propName, value);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeWriteDouble(propName, value);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public void unsafeWriteBoolean(@NotNull String propName, boolean value)
+            {
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeWriteBoolean(propName, value);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeWriteBoolean(propName, value);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public void unsafeAdd(@NotNull Property prop)
+            {
+                String propName = prop.def().name();
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeAdd(prop);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeAdd(prop);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public void unsafeRemove(@NotNull String propName)
+            {
+                PropertyIndex index = indexFor(propName);
+                if (index == null) {
+                    delegate.unsafeRemove(propName);
+                    return;
+                }
+                Object old = delegate.unsafeReadObj(propName);
+                delegate.unsafeRemove(propName);
+                index.update(key, old, delegate.unsafeReadObj(propName));
+            }
+
+            @Override
+            public String toString()
+            {
+                return delegate.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * AspectMapHierarchy whose aspects are loaded on first access and then held in
+ * an AspectMap created by the owning catalog, in the catalog's storage layout.
+ * Until then, only its AspectDef, version and expected size are known.
+ *
+ * @see LazyHierarchy
+ * @see CatalogImpl#deferAspectMap(AspectDef, long, long, HierarchyLoader)
+ */
+public class LazyAspectMapHierarchyImpl extends AbstractMap<Entity, Aspect> implements AspectMapHierarchy, LazyHierarchy, ReportingHierarchy
+{
+    private final Catalog catalog;
+    private final AspectDef aspectDef;
+    private final long version;
+    private final long expectedSize;
+    private final LazyContent<AspectMapHierarchy> content;
+
+    /**
+     * Creates a new, unloaded LazyAspectMapHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param expectedSize the number of aspects in the map, or -1 if unknown
+     * @param target creates the empty map to load aspects into
+     * @param loader loads the aspects
+     */
+    protected LazyAspectMapHierarchyImpl(@NotNull Catalog catalog, @NotNull AspectDef aspectDef, long version, long expectedSize,
+                                         @NotNull Supplier<AspectMapHierarchy> target, @NotNull HierarchyLoader loader)
+    {
+        this.catalog = catalog;
+        this.aspectDef = aspectDef;
+        this.version = version;
+        this.expectedSize = expectedSize;
+        this.content = new LazyContent<>(target, loader);
+    }
+
+    @Override
+    public @NotNull Catalog catalog()
+    {
+        return catalog;
+    }
+
+    @Override
+    public @NotNull String name()
+    {
+        return aspectDef.name();
+    }
+
+    @Override
+    public @NotNull HierarchyType type()
+    {
+        return HierarchyType.ASPECT_MAP;
+    }
+
+    @Override
+    public long version()
+    {
+        return version;
+    }
+
+    @Override
+    public AspectDef aspectDef()
+    {
+        return aspectDef;
+    }
+
+    @Override
+    public boolean isLoaded()
+    {
+        return content.isLoaded();
+    }
+
+    @Override
+    public void load()
+    {
+        content.get();
+    }
+
+    @Override
+    public long expectedSize()
+    {
+        return expectedSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Loads the content if necessary, and returns its hash, which it may keep
+     * between changes.
+     */
+    @Override
+    public long contentHash()
+    {
+        return content.get().contentHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True once loaded, if the loaded content reports its changes; it does so
+     * under the same name, to the same catalog.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return content.reportsChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content that has not been loaded has not changed, so until it is loaded this
+     * returns an empty change set, without loading.
+     */
+    @Override
+    public @Nullable ChangeSet<Entity> changes()
+    {
+        return content.isLoaded() ? content.get().changes() : new ChangeSet<>();
+    }
+
+    /**
+     * Returns the loaded AspectMap, for callers that need to reach its
+     * storage-specific features, such as a paged map's counters.
+     *
+     * @return the loaded content of this hierarchy
+     */
+    public @NotNull AspectMapHierarchy loaded()
+    {
+        return content.get();
+    }
+
+    @Override
+    public int size()
+    {
+        return content.size(expectedSize, AspectMapHierarchy::size);
+    }
+
+    @Override
+    public Aspect aspect(@NotNull UUID entityId)
+    {
+        return content.get().aspect(entityId);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return content.get().containsKey(key);
+    }
+
+    @Override
+    public Aspect get(Object key)
+    {
+        return content.get().get(key);
+    }
+
+    @Override
+    public Aspect put(Entity key, Aspect value)
+    {
+        return content.get().put(key, value);
+    }
+
+    @Override
+    public Aspect remove(Object key)
+    {
+        return content.get().remove(key);
+    }
+
+    @Override
+    public void clear()
+    {
+        content.get().clear();
+    }
+
+    @Override
+    public @NotNull Set<Entity> keySet()
+    {
+        return content.get().keySet();
+    }
+
+    @Override
+    public @NotNull Collection<Aspect> values()
+    {
+        return content.get().values();
+    }
+
+    @Override
+    public @NotNull Set<Entry<Entity, Aspect>> entrySet()
+    {
+        return content.get().entrySet();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * The load-once content of a {@link LazyHierarchy}: an empty target hierarchy
+ * filled by a {@link HierarchyLoader} the first time it is needed. Loading is
+ * guarded by this object's monitor and published through a volatile field, so
+ * loaded content is read without locking. Freshly loaded content matches the
+ * store it was loaded from, so its {@linkplain Hierarchy#changes() changes} are
+ * cleared.
+ *
+ * @param <H> the type of the target hierarchy
+ */
+final class LazyContent<H extends Hierarchy>
+{
+    private final Supplier<H> targetFactory;
+    private HierarchyLoader loader;
+    private volatile H content;
+
+    LazyContent(@NotNull Supplier<H> targetFactory, @NotNull HierarchyLoader loader)
+    {
+        this.targetFactory = targetFactory;
+        this.loader = loader;
+    }
+
+    boolean isLoaded()
+    {
+        return content != null;
+    }
+
+    @NotNull H get()
+    {
+        H h = content;
+        if (h != null) {
+            return h;
+        }
+        synchronized (this) {
+            if (content == null) {
+                H target = targetFactory.get();
+                loader.load(target);
+                ChangeSet<?> changes = target.changes();
+                if (changes != null) {
+                    changes.clear();
+                }
+                loader = null;
+                content = target;
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Returns whether the content is loaded and reports its changes to its catalog.
+     */
+    boolean reportsChanges()
+    {
+        return content instanceof ReportingHierarchy reporting && reporting.reportsChanges();
+    }
+
+    /**
+     * Returns the loaded size if loaded, otherwise the expected size if it is
+     * known, loading only when it is not.
+     */
+    int size(long expectedSize, @NotNull ToIntFunction<H> size)
+    {
+        H h = content;
+        if (h == null && expectedSize >= 0) {
+            return (int) Math.min(expectedSize, Integer.MAX_VALUE);
+        }
+        return size.applyAsInt(h != null ? h : get());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * EntityDirectoryHierarchy whose entries are loaded on first access and then
+ * held in a directory created by the owning catalog. Until then, only its name,
+ * version and expected size are known.
+ *
+ * @see LazyHierarchy
+ * @see CatalogImpl#deferHierarchy(HierarchyType, String, long, long, HierarchyLoader)
+ */
+public class LazyEntityDirectoryHierarchyImpl extends AbstractMap<String, Entity> implements EntityDirectoryHierarchy, LazyHierarchy, ReportingHierarchy
+{
+    private final Catalog catalog;
+    private final String name;
+    private final long version;
+    private final long expectedSize;
+    private final LazyContent<EntityDirectoryHierarchy> content;
+
+    /**
+     * Creates a new, unloaded LazyEntityDirectoryHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param expectedSize the number of entries in the directory, or -1 if unknown
+     * @param target creates the empty directory to load entries into
+     * @param loader loads the entries
+     */
+    protected LazyEntityDirectoryHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, long expectedSize,
+                                               @NotNull Supplier<EntityDirectoryHierarchy> target, @NotNull HierarchyLoader loader)
+    {
+        this.catalog = catalog;
+        this.name = name;
+        this.version = version;
+        this.expectedSize = expectedSize;
+        this.content = new LazyContent<>(target, loader);
+    }
+
+    @Override
+    public @NotNull Catalog catalog()
+    {
+        return catalog;
+    }
+
+    @Override
+    public @NotNull String name()
+    {
+        return name;
+    }
+
+    @Override
+    public @NotNull HierarchyType type()
+    {
+        return HierarchyType.ENTITY_DIR;
+    }
+
+    @Override
+    public long version()
+    {
+        return version;
+    }
+
+    @Override
+    public boolean isLoaded()
+    {
+        return content.isLoaded();
+    }
+
+    @Override
+    public void load()
+    {
+        content.get();
+    }
+
+    @Override
+    public long expectedSize()
+    {
+        return expectedSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Loads the content if necessary, and returns its hash, which it may keep
+     * between changes.
+     */
+    @Override
+    public long contentHash()
+    {
+        return content.get().contentHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True once loaded, if the loaded content reports its changes; it does so
+     * under the same name, to the same catalog.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return content.reportsChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content that has not been loaded has not changed, so until it is loaded this
+     * returns an empty change set, without loading.
+     */
+    @Override
+    public @Nullable ChangeSet<String> changes()
+    {
+        return content.isLoaded() ? content.get().changes() : new ChangeSet<>();
+    }
+
+    @Override
+    public int size()
+    {
+        return content.size(expectedSize, EntityDirectoryHierarchy::size);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return content.get().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return content.get().containsValue(value);
+    }
+
+    @Override
+    public boolean containsEntity(@NotNull UUID entityId)
+    {
+        return content.get().containsEntity(entityId);
+    }
+
+    @Override
+    public Entity get(Object key)
+    {
+        return content.get().get(key);
+    }
+
+    @Override
+    public Entity put(String key, Entity value)
+    {
+        return content.get().put(key, value);
+    }
+
+    @Override
+    public Entity remove(Object key)
+    {
+        return content.get().remove(key);
+    }
+
+    @Override
+    public void clear()
+    {
+        content.get().clear();
+    }
+
+    @Override
+    public @NotNull Set<String> keySet()
+    {
+        return content.get().keySet();
+    }
+
+    @Override
+    public @NotNull Collection<Entity> values()
+    {
+        return content.get().values();
+    }
+
+    @Override
+    public @NotNull Set<Entry<String, Entity>> entrySet()
+    {
+        return content.get().entrySet();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.function.Supplier;
+
+/**
+ * EntityListHierarchy whose entities are loaded on first access and then held
+ * in a list created by the owning catalog. Until then, only its name, version
+ * and expected size are known.
+ *
+ * @see LazyHierarchy
+ * @see CatalogImpl#deferHierarchy(HierarchyType, String, long, long, HierarchyLoader)
+ */
+public class LazyEntityListHierarchyImpl extends AbstractList<Entity> implements EntityListHierarchy, LazyHierarchy, ReportingHierarchy
+{
+    private final Catalog catalog;
+    private final String name;
+    private final long version;
+    private final long expectedSize;
+    private final LazyContent<EntityListHierarchy> content;
+
+    /**
+     * Creates a new, unloaded LazyEntityListHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param expectedSize the number of entities in the list, or -1 if unknown
+     * @param target creates the empty list to load entities into
+     * @param loader loads the entities
+     */
+    protected LazyEntityListHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, long expectedSize,
+                                          @NotNull Supplier<EntityListHierarchy> target, @NotNull HierarchyLoader loader)
+    {
+        this.catalog = catalog;
+        this.name = name;
+        this.version = version;
+        this.expectedSize = expectedSize;
+        this.content = new LazyContent<>(target, loader);
+    }
+
+    @Override
+    public @NotNull Catalog catalog()
+    {
+        return catalog;
+    }
+
+    @Override
+    public @NotNull String name()
+    {
+        return name;
+    }
+
+    @Override
+    public @NotNull HierarchyType type()
+    {
+        return HierarchyType.ENTITY_LIST;
+    }
+
+    @Override
+    public long version()
+    {
+        return version;
+    }
+
+    @Override
+    public boolean isLoaded()
+    {
+        return content.isLoaded();
+    }
+
+    @Override
+    public void load()
+    {
+        content.get();
+    }
+
+    @Override
+    public long expectedSize()
+    {
+        return expectedSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Loads the content if necessary, and returns its hash, which it may keep
+     * between changes.
+     */
+    @Override
+    public long contentHash()
+    {
+        return content.get().contentHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True once loaded, if the loaded content reports its changes; it does so
+     * under the same name, to the same catalog.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return content.reportsChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content that has not been loaded has not changed, so until it is loaded this
+     * returns an empty change set, without loading.
+     */
+    @Override
+    public @Nullable ChangeSet<?> changes()
+    {
+        return content.isLoaded() ? content.get().changes() : new ChangeSet<>();
+    }
+
+    @Override
+    public int size()
+    {
+        return content.size(expectedSize, EntityListHierarchy::size);
+    }
+
+    @Override
+    public Entity get(int index)
+    {
+        return content.get().get(index);
+    }
+
+    @Override
+    public Entity set(int index, Entity element)
+    {
+        return content.get().set(index, element);
+    }
+
+    @Override
+    public boolean add(Entity entity)
+    {
+        return content.get().add(entity);
+    }
+
+    @Override
+    public void add(int index, Entity element)
+    {
+        content.get().add(index, element);
+    }
+
+    @Override
+    public Entity remove(int index)
+    {
+        return content.get().remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        return content.get().remove(o);
+    }
+
+    @Override
+    public void clear()
+    {
+        content.get().clear();
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return content.get().contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        return content.get().indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o)
+    {
+        return content.get().lastIndexOf(o);
+    }
+
+    @Override
+    public @NotNull Iterator<Entity> iterator()
+    {
+        return content.get().iterator();
+    }
+
+    @Override
+    public @NotNull ListIterator<Entity> listIterator(int index)
+    {
+        return content.get().listIterator(index);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * EntityTreeHierarchy whose nodes are loaded the first time its root is
+ * requested, into a tree created by the owning catalog. Until then, only its
+ * name, version and expected node count are known.
+ *
+ * @see LazyHierarchy
+ * @see CatalogImpl#deferHierarchy(HierarchyType, String, long, long, HierarchyLoader)
+ */
+public class LazyEntityTreeHierarchyImpl implements EntityTreeHierarchy, LazyHierarchy, ReportingHierarchy
+{
+    private final Catalog catalog;
+    private final String name;
+    private final long version;
+    private final long expectedSize;
+    private final LazyContent<EntityTreeHierarchy> content;
+
+    /**
+     * Creates a new, unloaded LazyEntityTreeHierarchyImpl.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param name the name of this hierarchy in the catalog
+     * @param version the version number of this hierarchy
+     * @param expectedSize the number of nodes in the tree, or -1 if unknown
+     * @param target creates the empty tree to load nodes into
+     * @param loader loads the nodes
+     */
+    protected LazyEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull String name, long version, long expectedSize,
+                                          @NotNull Supplier<EntityTreeHierarchy> target, @NotNull HierarchyLoader loader)
+    {
+        this.catalog = catalog;
+        this.name = name;
+        this.version = version;
+        this.expectedSize = expectedSize;
+        this.content = new LazyContent<>(target, loader);
+    }
+
+    @Override
+    public @NotNull Catalog catalog()
+    {
+        return catalog;
+    }
+
+    @Override
+    public @NotNull String name()
+    {
+        return name;
+    }
+
+    @Override
+    public @NotNull HierarchyType type()
+    {
+        return HierarchyType.ENTITY_TREE;
+    }
+
+    @Override
+    public long version()
+    {
+        return version;
+    }
+
+    @Override
+    public boolean isLoaded()
+    {
+        return content.isLoaded();
+    }
+
+    @Override
+    public void load()
+    {
+        content.get();
+    }
+
+    @Override
+    public long expectedSize()
+    {
+        return expectedSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Loads the content if necessary, and returns its hash, which it may keep
+     * between changes.
+     */
+    @Override
+    public long contentHash()
+    {
+        return content.get().contentHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * True once loaded, if the loaded content reports its changes; it does so
+     * under the same name, to the same catalog.
+     */
+    @Override
+    public boolean reportsChanges()
+    {
+        return content.reportsChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content that has not been loaded has not changed, so until it is loaded this
+     * returns an empty change set, without loading.
+     */
+    @Override
+    public @Nullable ChangeSet<?> changes()
+    {
+        return content.isLoaded() ? content.get().changes() : new ChangeSet<>();
+    }
+
+    @Override
+    public @NotNull Node root()
+    {
+        return content.get().root();
+    }
+
+    /**
+     * Returns a stream over the nodes of this tree, loading it if necessary.
+     *
+     * @param parallel whether to return a parallel stream
+     * @return a stream over every node in this tree
+     * @see EntityTreeHierarchyImpl#nodes(boolean)
+     */
+    public @NotNull Stream<Node> nodes(boolean parallel)
+    {
+        return EntityTreeHierarchyImpl.nodes(root(), parallel);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Hierarchy;
+
+/**
+ * A hierarchy whose content is loaded on first access. Its name, type and
+ * version, and the size it is expected to have once loaded, are available
+ * without loading it. Loading happens at most once, and is safe to trigger
+ * from a background thread.
+ *
+ * @see CatalogImpl#deferHierarchy(net.netbeing.cheap.model.HierarchyType, String, long, long, HierarchyLoader)
+ * @see CatalogImpl#deferAspectMap(net.netbeing.cheap.model.AspectDef, long, long, HierarchyLoader)
+ */
+public interface LazyHierarchy extends Hierarchy
+{
+    /**
+     * Returns whether the content of this hierarchy has been loaded.
+     *
+     * @return true if loaded
+     */
+    boolean isLoaded();
+
+    /**
+     * Loads the content of this hierarchy if it has not been loaded yet,
+     * blocking until it is.
+     */
+    void load();
+
+    /**
+     * Returns the number of elements (or tree nodes) this hierarchy was
+     * registered with, which is its size until it is loaded and changed.
+     *
+     * @return the expected size, or -1 if unknown
+     */
+    long expectedSize();
+}
@@ -18,6 +18,7 @@ package net.netbeing.cheap.impl.basic;
 
 import net.netbeing.cheap.model.MutableAspectDef;
 import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Map;
@@ -69,7 +70,7 @@ public class MutableAspectDefImpl extends AspectDefBase implements MutableAspect
      */
     public MutableAspectDefImpl(@NotNull String name, @NotNull Map<String, PropertyDef> propertyDefs)
     {
-        this(name, UUID.randomUUID(), propertyDefs);
+        this(name, IdGenerator.timeOrdered().newId(), propertyDefs);
     }
 
     /**
@@ -117,6 +118,7 @@ public class MutableAspectDefImpl extends AspectDefBase implements MutableAspect
     public PropertyDef add(@NotNull PropertyDef prop)
     {
         invalidateHashCache();
+        assignSlot(prop);
         return propertyDefs.put(prop.name(), prop);
     }
 
@@ -130,7 +132,11 @@ public class MutableAspectDefImpl extends AspectDefBase implements MutableAspect
     public PropertyDef remove(@NotNull PropertyDef prop)
     {
         invalidateHashCache();
-        return propertyDefs.remove(prop.name());
+        PropertyDef removed = propertyDefs.remove(prop.name());
+        if (removed != null) {
+            releaseSlot(prop.name());
+        }
+        return removed;
     }
 
 }
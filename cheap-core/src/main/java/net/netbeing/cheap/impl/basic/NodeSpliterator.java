@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the nodes of a subtree, in depth-first pre-order when traversed
+ * sequentially. Each spliterator holds a stack of pending subtrees; splitting hands
+ * half of them to the new spliterator, and when only one subtree is pending it is
+ * first expanded into its children, so the work divides along subtree boundaries
+ * however deep or unbalanced the tree is. The size of a subtree is not known
+ * without walking it, so the spliterator does not report SIZED.
+ */
+final class NodeSpliterator implements Spliterator<Node>
+{
+    /** Subtrees still to traverse; the next one is at the head. */
+    private final ArrayDeque<Node> pending;
+
+    /** A node already expanded by a split, to be visited without its children. */
+    private Node expanded;
+
+    /**
+     * Creates a spliterator over the given subtree.
+     *
+     * @param subtree the root of the subtree to traverse
+     */
+    NodeSpliterator(@NotNull Node subtree)
+    {
+        this.pending = new ArrayDeque<>();
+        pending.push(subtree);
+    }
+
+    private NodeSpliterator(ArrayDeque<Node> pending)
+    {
+        this.pending = pending;
+    }
+
+    /**
+     * Visits the given node and schedules its children ahead of the remaining
+     * pending subtrees, in their own order.
+     */
+    private void visit(Node node, Consumer<? super Node> action)
+    {
+        if (!node.isLeaf()) {
+            pushChildren(node);
+        }
+        action.accept(node);
+    }
+
+    private void pushChildren(Node node)
+    {
+        Node[] children = node.values().toArray(new Node[0]);
+        for (int i = children.length - 1; i >= 0; i--) {
+            pending.push(children[i]);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Node> action)
+    {
+        Objects.requireNonNull(action);
+        if (expanded != null) {
+            Node node = expanded;
+            expanded = null;
+            action.accept(node);
+            return true;
+        }
+        Node node = pending.poll();
+        if (node == null) {
+            return false;
+        }
+        visit(node, action);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Node> action)
+    {
+        Objects.requireNonNull(action);
+        if (expanded != null) {
+            Node node = expanded;
+            expanded = null;
+            action.accept(node);
+        }
+        Node node;
+        while ((node = pending.poll()) != null) {
+            visit(node, action);
+        }
+    }
+
+    @Override
+    public Spliterator<Node> trySplit()
+    {
+        if (pending.size() == 1 && expanded == null) {
+            Node node = pending.peek();
+            if (node.isLeaf() || node.isEmpty()) {
+                return null;
+            }
+            pending.pop();
+            expanded = node;
+            pushChildren(node);
+        }
+        int n = pending.size();
+        if (n == 0 || (n == 1 && expanded == null)) {
+            return null;
+        }
+        // Hand off the subtrees that would be visited last, keeping pre-order
+        // within each half.
+        ArrayDeque<Node> split = new ArrayDeque<>();
+        for (int i = (n + 1) / 2; i > 0; i--) {
+            split.addFirst(pending.pollLast());
+        }
+        return new NodeSpliterator(split);
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return pending.isEmpty() ? (expanded == null ? 0 : 1) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return Spliterator.NONNULL;
+    }
+}
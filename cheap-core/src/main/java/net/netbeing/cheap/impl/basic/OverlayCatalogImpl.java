@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.util.IdGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of a Catalog that holds only local changes over an upstream
+ * catalog, for MIRROR, CACHE, CLONE and FORK species. Creating one costs O(1)
+ * regardless of the size of the upstream catalog.
+ * <p>
+ * Each upstream hierarchy is wrapped in an overlay hierarchy the first time it is
+ * reached. The overlay records local changes, including tombstones for removals,
+ * and reads through to the upstream hierarchy for everything else, so lookups
+ * cost one lookup per layer and iteration merges the layers lazily. Lists are the
+ * exception: an overlay list reads through until its first change and then keeps
+ * a private copy. The upstream catalog is never modified, but its later changes
+ * remain visible where they are not shadowed.
+ * <p>
+ * Aspects read through from upstream are copy-on-write: the first write to one puts
+ * a local copy in the overlay, so the upstream aspect is unchanged. Removing a
+ * hierarchy that exists upstream leaves a tombstone, so the upstream hierarchy no
+ * longer shows through. Not thread-safe.
+ *
+ * @see OverlayMap
+ * @see CatalogImpl
+ */
+public class OverlayCatalogImpl extends CatalogImpl
+{
+    /** The catalog this one overlays. */
+    private final Catalog upstreamCatalog;
+
+    /** Local hierarchies, including overlays of upstream hierarchies already reached. */
+    private final Map<String, Hierarchy> local;
+
+    /** Aspect definitions of local AspectMapHierarchies. */
+    private final Map<String, AspectDef> localAspectage;
+
+    /** Names of upstream hierarchies removed from this catalog. */
+    private final Set<String> tombstones = new HashSet<>();
+
+    /**
+     * Creates a new overlay catalog of the given species over the upstream catalog,
+     * with the same version.
+     *
+     * @param upstream the catalog to read through to
+     * @param species  the species of the new catalog
+     * @throws IllegalArgumentException if the species is SOURCE or SINK
+     */
+    public OverlayCatalogImpl(@NotNull Catalog upstream, @NotNull CatalogSpecies species)
+    {
+        this(IdGenerator.timeOrdered().newId(), species, upstream, new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    private OverlayCatalogImpl(@NotNull UUID globalId, @NotNull CatalogSpecies species, @NotNull Catalog upstream,
+                               @NotNull Map<String, Hierarchy> local, @NotNull Map<String, AspectDef> localAspectage)
+    {
+        super(globalId, species, upstream.globalId(), upstream.version(), local, localAspectage);
+        this.upstreamCatalog = upstream;
+        this.local = local;
+        this.localAspectage = localAspectage;
+    }
+
+    /**
+     * Returns the catalog this one overlays.
+     *
+     * @return the upstream catalog
+     */
+    public @NotNull Catalog upstreamCatalog()
+    {
+        return upstreamCatalog;
+    }
+
+    /**
+     * Retrieves a hierarchy by name, wrapping the upstream hierarchy of that name
+     * in an overlay if it has not been reached before.
+     *
+     * @param name the name of the hierarchy to retrieve
+     * @return the hierarchy with the given name, or {@code null} if not found
+     */
+    @Override
+    public Hierarchy hierarchy(@NotNull String name)
+    {
+        Hierarchy hierarchy = local.get(name);
+        if (hierarchy == null && !tombstones.contains(name)) {
+            Hierarchy upstream = upstreamCatalog.hierarchy(name);
+            if (upstream != null) {
+                hierarchy = overlay(upstream);
+                local.put(name, hierarchy);
+            }
+        }
+        return hierarchy;
+    }
+
+    private Hierarchy overlay(Hierarchy upstream)
+    {
+        return switch (upstream) {
+            case AspectMapHierarchy aMap ->
+                new AspectMapHierarchyImpl(this, aMap.aspectDef(), aMap.version(), new OverlayAspectMap(aMap));
+            case EntityListHierarchy list ->
+                new EntityListHierarchyImpl(this, list.name(), list.version(), new OverlayList<>(list));
+            case EntitySetHierarchy set ->
+                new EntitySetHierarchyImpl(this, set.name(), set.version(), new OverlaySet<>(set));
+            case EntityDirectoryHierarchy dir -> new OverlayEntityDirectoryHierarchyImpl(this, dir);
+            case EntityTreeHierarchy tree -> new OverlayEntityTreeHierarchyImpl(this, tree);
+            default -> throw new UnsupportedOperationException("Cannot overlay hierarchy of type " + upstream.type());
+        };
+    }
+
+    /**
+     * Adds a hierarchy to this catalog, replacing any upstream hierarchy of the same
+     * name that was removed.
+     *
+     * @param hierarchy the hierarchy to add
+     */
+    @Override
+    public Hierarchy addHierarchy(@NotNull Hierarchy hierarchy)
+    {
+        Hierarchy previous = super.addHierarchy(hierarchy);
+        tombstones.remove(hierarchy.name());
+        return previous;
+    }
+
+    /**
+     * Removes a hierarchy from this catalog. If the upstream catalog has a hierarchy
+     * of that name, it is hidden by a tombstone; the upstream catalog is not changed.
+     *
+     * @param name the name of the hierarchy to remove
+     * @return the removed hierarchy, or {@code null} if there was none
+     */
+    @Override
+    public Hierarchy removeHierarchy(@NotNull String name)
+    {
+        Hierarchy removed = hierarchy(name);
+        super.removeHierarchy(name);
+        if (upstreamCatalog.hierarchy(name) != null) {
+            tombstones.add(name);
+        }
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Always false, since upstream hierarchies show through without being added.
+     */
+    @Override
+    protected boolean keepsRootHash()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the hierarchies of the upstream catalog, as overlays, followed by
+     * those that exist only locally.
+     *
+     * @return the hierarchy collection for this catalog, never null
+     */
+    @Override
+    public @NotNull Iterable<Hierarchy> hierarchies()
+    {
+        return () -> concat(
+            upstreamCatalog.hierarchies().iterator(), h -> hierarchy(h.name()),
+            local.values(), h -> upstreamCatalog.hierarchy(h.name()) == null);
+    }
+
+    /**
+     * Returns the AspectDefs of this catalog: those of local AspectMapHierarchies,
+     * followed by the upstream ones that they do not replace.
+     *
+     * @return the AspectDef collection for this catalog, never null
+     */
+    @Override
+    public @NotNull Iterable<AspectDef> aspectDefs()
+    {
+        return () -> concat(
+            localAspectage.values().iterator(), Function.identity(),
+            upstreamCatalog.aspectDefs(), d -> !localAspectage.containsKey(d.name()) && !tombstones.contains(d.name()));
+    }
+
+    @Override
+    public boolean containsAspects(@NotNull String name)
+    {
+        return hierarchy(name) instanceof AspectMapHierarchy;
+    }
+
+    /**
+     * Lazily iterates the mapped elements of the first iterator, skipping those
+     * mapped to null, then the elements of the second iterable that pass the
+     * filter. The second iterable is not opened until the first iterator is
+     * exhausted.
+     */
+    private static <T> Iterator<T> concat(Iterator<T> first, Function<T, T> mapping,
+                                          Iterable<T> second, Predicate<T> filter)
+    {
+        return new Iterator<>()
+        {
+            private Iterator<T> secondIt;
+            private T next;
+
+            {
+                advance();
+            }
+
+            private void advance()
+            {
+                next = null;
+                while (first.hasNext()) {
+                    next = mapping.apply(first.next());
+                    if (next != null) {
+                        return;
+                    }
+                }
+                if (secondIt == null) {
+                    secondIt = second.iterator();
+                }
+                while (secondIt.hasNext()) {
+                    T t = secondIt.next();
+                    if (filter.test(t)) {
+                        next = t;
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+
+            @Override
+            public T next()
+            {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T result = next;
+                advance();
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Overlay of an upstream AspectMap that hands out the upstream aspects
+     * copy-on-write, so that writing to one keeps a local copy instead.
+     */
+    private static final class OverlayAspectMap extends OverlayMap<Entity, Aspect>
+    {
+        OverlayAspectMap(@NotNull Map<Entity, Aspect> upstream)
+        {
+            super(upstream);
+        }
+
+        @Override
+        protected Aspect readThrough(Entity entity, Aspect aspect)
+        {
+            if (aspect == null) {
+                return null;
+            }
+            return new CopyOnWriteAspect(aspect, copy -> {
+                if (!isShadowed(entity)) {
+                    put(entity, copy);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of an EntityTreeHierarchy that holds only local changes over a
+ * tree in an upstream catalog. Each node is an {@link OverlayNodeImpl} that wraps
+ * the corresponding upstream node, created when the node is first reached, and
+ * keeps its child changes in an {@link OverlayMap}. Upstream nodes are never
+ * modified. The {@linkplain #changes() change set} is marked whole by changes made
+ * through the overlay nodes, but not by changes made directly to nodes of other
+ * types put in the tree. Not thread-safe.
+ *
+ * @see OverlayCatalogImpl
+ * @see EntityTreeHierarchyImpl
+ */
+public class OverlayEntityTreeHierarchyImpl extends EntityTreeHierarchyImpl
+{
+    /**
+     * Creates a new OverlayEntityTreeHierarchyImpl over the given upstream tree,
+     * with the same name and version.
+     *
+     * @param catalog the catalog containing this hierarchy
+     * @param upstream the tree to read through to
+     */
+    protected OverlayEntityTreeHierarchyImpl(@NotNull Catalog catalog, @NotNull EntityTreeHierarchy upstream)
+    {
+        super(catalog, upstream.name(), new OverlayNodeImpl(upstream.root(), null), upstream.version());
+        ((OverlayNodeImpl) root()).tree = this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRoot(@NotNull Node newRoot)
+    {
+        if (root() instanceof OverlayNodeImpl o && o.tree == this) {
+            o.tree = null;
+        }
+        super.setRoot(newRoot);
+        if (newRoot instanceof OverlayNodeImpl o) {
+            o.tree = this;
+        }
+    }
+
+    /**
+     * Tree node that overlays local changes on an upstream node. The entity and
+     * children read through to the upstream node until changed locally.
+     */
+    public static class OverlayNodeImpl extends AbstractMap<String, Node> implements Node
+    {
+        /** The upstream node this node overlays. */
+        private final Node upstream;
+        /** The parent node, or null for the root. */
+        private final Node parent;
+        /** Local child changes over the (wrapped) upstream children. */
+        private final OverlayMap<String, Node> children;
+        /** The local entity, if {@link #valueSet}. */
+        private Entity value;
+        private boolean valueSet;
+        /** The tree this node is the root of, or null. */
+        private OverlayEntityTreeHierarchyImpl tree;
+
+        /**
+         * Creates a new OverlayNodeImpl over the given upstream node.
+         *
+         * @param upstream the node to read through to
+         * @param parent   the parent node, or null for the root
+         */
+        protected OverlayNodeImpl(@NotNull Node upstream, Node parent)
+        {
+            this.upstream = upstream;
+            this.parent = parent;
+            this.children = new Children();
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return children.isEmpty();
+        }
+
+        @Override
+        public Node getParent()
+        {
+            return parent;
+        }
+
+        @Override
+        public Entity value()
+        {
+            return valueSet ? value : upstream.value();
+        }
+
+        @Override
+        public void setValue(Entity entity)
+        {
+            this.value = entity;
+            this.valueSet = true;
+            changed();
+        }
+
+        /**
+         * Notes a change to this node, in the change set of the tree it is in.
+         */
+        private void changed()
+        {
+            OverlayNodeImpl top = this;
+            while (top.parent instanceof OverlayNodeImpl p) {
+                top = p;
+            }
+            if (top.tree != null) {
+                top.tree.written();
+            }
+        }
+
+        @Override
+        public int size()
+        {
+            return children.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return children.containsKey(key);
+        }
+
+        @Override
+        public Node get(Object key)
+        {
+            return children.get(key);
+        }
+
+        @Override
+        public Node put(String key, Node node)
+        {
+            if (upstream instanceof LeafNodeImpl) {
+                throw new UnsupportedOperationException("Leaf nodes cannot have children");
+            }
+            return children.put(key, node);
+        }
+
+        @Override
+        public Node remove(Object key)
+        {
+            return children.remove(key);
+        }
+
+        @Override
+        public void clear()
+        {
+            children.clear();
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Node>> entrySet()
+        {
+            return children.entrySet();
+        }
+
+        /**
+         * Local child changes, noted as changes to this node. Entry and iterator
+         * changes go through put and remove.
+         */
+        private final class Children extends OverlayMap<String, Node>
+        {
+            Children()
+            {
+                super(new UpstreamChildren());
+            }
+
+            @Override
+            public Node put(String key, Node node)
+            {
+                Node previous = super.put(key, node);
+                changed();
+                return previous;
+            }
+
+            @Override
+            public Node remove(Object key)
+            {
+                Node previous = super.remove(key);
+                if (previous != null) {
+                    changed();
+                }
+                return previous;
+            }
+
+            @Override
+            public void clear()
+            {
+                super.clear();
+                changed();
+            }
+        }
+
+        /**
+         * Read-only view of the upstream node's children, each wrapped (once) in
+         * an OverlayNodeImpl so that changes below it are kept.
+         */
+        private final class UpstreamChildren extends AbstractMap<String, Node>
+        {
+            private final Map<String, OverlayNodeImpl> wrappers = new HashMap<>();
+
+            @Override
+            public int size()
+            {
+                return upstream.size();
+            }
+
+            @Override
+            public boolean containsKey(Object key)
+            {
+                return upstream.containsKey(key);
+            }
+
+            @Override
+            public Node get(Object key)
+            {
+                Node child = upstream.get(key);
+                if (child == null) {
+                    return null;
+                }
+                OverlayNodeImpl wrapper = wrappers.get(key);
+                if (wrapper == null || wrapper.upstream != child) {
+                    wrapper = new OverlayNodeImpl(child, OverlayNodeImpl.this);
+                    wrappers.put((String) key, wrapper);
+                }
+                return wrapper;
+            }
+
+            @Override
+            public @NotNull Set<Entry<String, Node>> entrySet()
+            {
+                return new AbstractSet<>()
+                {
+                    @Override
+                    public @NotNull Iterator<Entry<String, Node>> iterator()
+                    {
+                        Iterator<String> keys = upstream.keySet().iterator();
+                        return new Iterator<>()
+                        {
+                            @Override
+                            public boolean hasNext()
+                            {
+                                return keys.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Node> next()
+                            {
+                                String key = keys.next();
+                                return new SimpleImmutableEntry<>(key, get(key));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size()
+                    {
+                        return upstream.size();
+                    }
+                };
+            }
+        }
+    }
+}
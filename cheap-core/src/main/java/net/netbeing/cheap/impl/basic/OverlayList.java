@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List that reads through to an upstream list until it is first modified, and
+ * then switches to a private copy. Unlike {@link OverlayMap} and {@link OverlaySet},
+ * positional changes cannot be layered cheaply over a list, so the first write
+ * pays once for the copy. Before that, changes to the upstream list are visible.
+ * Not thread-safe.
+ *
+ * @param <E> the type of elements
+ * @see OverlayCatalogImpl
+ */
+public class OverlayList<E> extends AbstractList<E> implements RandomAccess
+{
+    private final List<E> upstream;
+    private List<E> local;
+
+    /**
+     * Creates an overlay with no local changes over the given list.
+     *
+     * @param upstream the list to read through to
+     */
+    public OverlayList(@NotNull List<E> upstream)
+    {
+        this.upstream = upstream;
+    }
+
+    /**
+     * Returns whether this list has been modified and no longer reads through.
+     *
+     * @return true if this list holds its own copy
+     */
+    public boolean isDetached()
+    {
+        return local != null;
+    }
+
+    private List<E> current()
+    {
+        return local != null ? local : upstream;
+    }
+
+    private List<E> writable()
+    {
+        if (local == null) {
+            local = new ArrayList<>(upstream);
+        }
+        return local;
+    }
+
+    @Override
+    public int size()
+    {
+        return current().size();
+    }
+
+    @Override
+    public E get(int index)
+    {
+        return current().get(index);
+    }
+
+    @Override
+    public E set(int index, E element)
+    {
+        return writable().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element)
+    {
+        writable().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index)
+    {
+        E removed = writable().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear()
+    {
+        local = new ArrayList<>();
+        modCount++;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map that layers local changes over an upstream map, which it never modifies.
+ * Reads check the local entries, then the tombstones of removed keys, then fall
+ * through to the upstream map, so each lookup costs one local lookup plus one
+ * upstream lookup. Changes to the upstream map remain visible unless shadowed
+ * by a local change.
+ * <p>
+ * Memory and {@link #size()} are proportional to the number of local changes.
+ * Iteration visits the local entries and then streams the upstream entries that
+ * are not shadowed, without copying the upstream map. {@link #clear()} hides the upstream map
+ * entirely. Not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ * @see OverlayCatalogImpl
+ */
+public class OverlayMap<K, V> extends AbstractMap<K, V>
+{
+    private final Map<K, V> upstream;
+    private final Map<K, V> local = new LinkedHashMap<>();
+    private final Set<Object> tombstones = new HashSet<>();
+    private boolean cleared;
+
+    /**
+     * Creates an overlay with no local changes over the given map.
+     *
+     * @param upstream the map to read through to
+     */
+    public OverlayMap(@NotNull Map<K, V> upstream)
+    {
+        this.upstream = upstream;
+    }
+
+    /**
+     * Returns the number of local entries and tombstones held by this overlay.
+     *
+     * @return the number of local changes
+     */
+    public int localChanges()
+    {
+        return local.size() + tombstones.size();
+    }
+
+    /**
+     * Returns the value to hand out for an upstream entry that is not shadowed
+     * locally. Subclasses may wrap it, e.g. so that changes to a mutable value are
+     * kept in this overlay. Returns the value itself by default.
+     *
+     * @param key   the key of the entry
+     * @param value the upstream value
+     * @return the value to return from reads
+     */
+    protected V readThrough(K key, V value)
+    {
+        return value;
+    }
+
+    /**
+     * Returns whether a key is shadowed locally, by a local entry, a tombstone, or
+     * {@link #clear()}, so that the upstream entry is no longer visible.
+     *
+     * @param key the key to check
+     * @return true if reads of the key do not reach the upstream map
+     */
+    protected boolean isShadowed(Object key)
+    {
+        return cleared || local.containsKey(key) || tombstones.contains(key);
+    }
+
+    private boolean visibleUpstream(Object key)
+    {
+        return !cleared && !tombstones.contains(key) && upstream.containsKey(key);
+    }
+
+    @Override
+    public int size()
+    {
+        int n = local.size();
+        if (!cleared) {
+            n += upstream.size();
+            for (Object key : tombstones) {
+                if (upstream.containsKey(key)) {
+                    n--;
+                }
+            }
+            for (K key : local.keySet()) {
+                if (upstream.containsKey(key)) {
+                    n--;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return local.containsKey(key) || visibleUpstream(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key)
+    {
+        V v = local.get(key);
+        if (v != null || local.containsKey(key)) {
+            return v;
+        }
+        return visibleUpstream(key) ? readThrough((K) key, upstream.get(key)) : null;
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        V previous = get(key);
+        tombstones.remove(key);
+        local.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        V previous = get(key);
+        local.remove(key);
+        if (!cleared && upstream.containsKey(key)) {
+            tombstones.add(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        local.clear();
+        tombstones.clear();
+        cleared = true;
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator()
+            {
+                return new MergingIterator();
+            }
+
+            @Override
+            public int size()
+            {
+                return OverlayMap.this.size();
+            }
+
+            @Override
+            public void clear()
+            {
+                OverlayMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Iterates a snapshot of the local keys, then the upstream entries that are
+     * not shadowed locally. Removal and setValue write through to this overlay.
+     */
+    private final class MergingIterator implements Iterator<Entry<K, V>>
+    {
+        private final Iterator<K> localKeys = new ArrayList<>(local.keySet()).iterator();
+        private Iterator<Entry<K, V>> upstreamIt;
+        private Entry<K, V> next;
+        private K lastKey;
+        private boolean canRemove;
+
+        MergingIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            next = null;
+            while (localKeys.hasNext()) {
+                K key = localKeys.next();
+                if (local.containsKey(key)) {
+                    next = new OverlayEntry(key, local.get(key));
+                    return;
+                }
+            }
+            if (upstreamIt == null) {
+                upstreamIt = cleared ? Collections.emptyIterator() : upstream.entrySet().iterator();
+            }
+            while (upstreamIt.hasNext()) {
+                Entry<K, V> e = upstreamIt.next();
+                if (!local.containsKey(e.getKey()) && !tombstones.contains(e.getKey())) {
+                    next = new OverlayEntry(e.getKey(), readThrough(e.getKey(), e.getValue()));
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next()
+        {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            lastKey = result.getKey();
+            canRemove = true;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove()
+        {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            OverlayMap.this.remove(lastKey);
+        }
+    }
+
+    private final class OverlayEntry extends SimpleEntry<K, V>
+    {
+        OverlayEntry(K key, V value)
+        {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value)
+        {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set that layers local changes over an upstream set, which it never modifies.
+ * Membership tests check the local additions, then the tombstones of removed
+ * elements, then fall through to the upstream set. Memory and {@link #size()}
+ * are proportional to the number of local changes, and iteration streams the
+ * upstream set rather than copying it. {@link #clear()} hides the upstream set
+ * entirely. Not thread-safe.
+ *
+ * @param <E> the type of elements
+ * @see OverlayMap
+ * @see OverlayCatalogImpl
+ */
+public class OverlaySet<E> extends AbstractSet<E>
+{
+    private final Set<E> upstream;
+    private final Set<E> local = new LinkedHashSet<>();
+    private final Set<Object> tombstones = new HashSet<>();
+    private boolean cleared;
+
+    /**
+     * Creates an overlay with no local changes over the given set.
+     *
+     * @param upstream the set to read through to
+     */
+    public OverlaySet(@NotNull Set<E> upstream)
+    {
+        this.upstream = upstream;
+    }
+
+    /**
+     * Returns the number of local additions and tombstones held by this overlay.
+     *
+     * @return the number of local changes
+     */
+    public int localChanges()
+    {
+        return local.size() + tombstones.size();
+    }
+
+    private boolean visibleUpstream(Object o)
+    {
+        return !cleared && !tombstones.contains(o) && upstream.contains(o);
+    }
+
+    @Override
+    public int size()
+    {
+        int n = local.size();
+        if (!cleared) {
+            n += upstream.size();
+            for (Object o : tombstones) {
+                if (upstream.contains(o)) {
+                    n--;
+                }
+            }
+            for (E e : local) {
+                if (upstream.contains(e)) {
+                    n--;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return local.contains(o) || visibleUpstream(o);
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        if (contains(e)) {
+            return false;
+        }
+        tombstones.remove(e);
+        if (!visibleUpstream(e)) {
+            local.add(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (!contains(o)) {
+            return false;
+        }
+        local.remove(o);
+        if (!cleared && upstream.contains(o)) {
+            tombstones.add(o);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        local.clear();
+        tombstones.clear();
+        cleared = true;
+    }
+
+    @Override
+    public @NotNull Iterator<E> iterator()
+    {
+        return new Iterator<>()
+        {
+            private final Iterator<E> localIt = new ArrayList<>(local).iterator();
+            private Iterator<E> upstreamIt;
+            private E next;
+            private boolean hasNext;
+            private E last;
+            private boolean canRemove;
+
+            {
+                advance();
+            }
+
+            private void advance()
+            {
+                hasNext = false;
+                while (localIt.hasNext()) {
+                    E e = localIt.next();
+                    if (local.contains(e)) {
+                        next = e;
+                        hasNext = true;
+                        return;
+                    }
+                }
+                if (upstreamIt == null) {
+                    upstreamIt = cleared ? Collections.emptyIterator() : upstream.iterator();
+                }
+                while (upstreamIt.hasNext()) {
+                    E e = upstreamIt.next();
+                    if (!local.contains(e) && !tombstones.contains(e)) {
+                        next = e;
+                        hasNext = true;
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return hasNext;
+            }
+
+            @Override
+            public E next()
+            {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                canRemove = true;
+                advance();
+                return last;
+            }
+
+            @Override
+            public void remove()
+            {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                OverlaySet.this.remove(last);
+            }
+        };
+    }
+}
@@ -0,0 +1,692 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * AspectMap that keeps its keys resident but loads its aspects on demand from an
+ * {@link AspectSource}, holding only a bounded working set of them in memory.
+ * <p>
+ * Aspects read from the source are cached with a W-TinyLFU policy, bounded by
+ * total weight; by default an aspect weighs as much as the number of properties
+ * in its AspectDef. Aspects put into the map are pinned in memory, since the
+ * source does not have them yet, until {@link #unpin()} is called after they
+ * have been saved. Aspects read from the working set are handed out through a
+ * view that pins them on their first write, so an aspect changed in place is
+ * neither evicted nor lost before it is saved. Removing an entity only removes
+ * it from this map; the source is never modified.
+ * <p>
+ * Iteration visits a snapshot of the keys in map order and loads each aspect as
+ * it is reached, asking the source for the aspects of the next
+ * {@value #LOAD_BATCH_SIZE} entries at once, so a full scan stays within the
+ * working set bound without paying for a load per entry.
+ * {@link #put(Entity, Aspect)} and {@link #remove(Object)} return the previous
+ * aspect only if it was in memory, rather than loading it just to return it.
+ * <p>
+ * From the first call to {@link #changes()} on, the entities put, removed and
+ * written in place are recorded, so that the map can be saved without loading
+ * the aspects that did not change.
+ * <p>
+ * Until a source is attached, this map simply holds everything put into it.
+ * This class is not thread-safe, and that includes reads: {@link #get(Object)}
+ * updates the access statistics of the working set and may load and evict
+ * aspects. Confine a paged map to one thread, or guard every access with a lock.
+ *
+ * @see AspectSource
+ * @see net.netbeing.cheap.model.AspectMapStorage#PAGED
+ */
+public class PagedAspectMapImpl extends AbstractMap<Entity, Aspect> implements AspectMap
+{
+    /** The default maximum weight of the working set, in properties. */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 1_000_000L;
+
+    /** The number of aspects an iteration asks the source for at a time. */
+    public static final int LOAD_BATCH_SIZE = 64;
+
+    /** The aspect definition for the aspects stored in this map. */
+    private final AspectDef aspectDef;
+
+    /** Every entity in the map, in map order. */
+    private final Set<Entity> keys = new LinkedHashSet<>();
+
+    /** Aspects put into the map that have not been saved to the source. */
+    private final Map<Entity, Aspect> pinned = new HashMap<>();
+
+    /** The evictable working set of aspects. */
+    private final TinyLfuCache<Entity, Aspect> cache;
+
+    private AspectSource source;
+
+    /** Entities changed since last cleared; null until first requested. */
+    private ChangeSet<Entity> changes;
+
+    /**
+     * Creates a new, empty PagedAspectMapImpl with the default maximum weight.
+     *
+     * @param aspectDef the aspect definition for aspects in this map
+     */
+    protected PagedAspectMapImpl(@NotNull AspectDef aspectDef)
+    {
+        this(aspectDef, DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    /**
+     * Creates a new, empty PagedAspectMapImpl whose working set weighs each
+     * aspect by the number of properties in the AspectDef.
+     *
+     * @param aspectDef the aspect definition for aspects in this map
+     * @param maximumWeight the maximum total weight of the working set
+     */
+    protected PagedAspectMapImpl(@NotNull AspectDef aspectDef, long maximumWeight)
+    {
+        this(aspectDef, maximumWeight, fixedWeigher(aspectDef));
+    }
+
+    /**
+     * Creates a new, empty PagedAspectMapImpl with the given working set weigher.
+     *
+     * @param aspectDef the aspect definition for aspects in this map
+     * @param maximumWeight the maximum total weight of the working set
+     * @param weigher computes the weight of an aspect in the working set
+     */
+    protected PagedAspectMapImpl(@NotNull AspectDef aspectDef, long maximumWeight, @NotNull ToIntFunction<? super Aspect> weigher)
+    {
+        this.aspectDef = aspectDef;
+        this.cache = new TinyLfuCache<>(maximumWeight, weigher);
+    }
+
+    private static ToIntFunction<Aspect> fixedWeigher(AspectDef aspectDef)
+    {
+        int weight = Math.max(1, aspectDef.propertyDefs().size());
+        return aspect -> weight;
+    }
+
+    @Override
+    public AspectDef aspectDef()
+    {
+        return aspectDef;
+    }
+
+    /**
+     * Attaches the source that aspects are loaded from, adding all of its
+     * entities to this map. Aspects already put into the map stay pinned and
+     * take precedence over the source.
+     *
+     * @param source the backing source
+     * @throws IllegalStateException if a source is already attached
+     */
+    public void attach(@NotNull AspectSource source)
+    {
+        if (this.source != null) {
+            throw new IllegalStateException("AspectMap " + aspectDef.name() + " already has an AspectSource.");
+        }
+        this.source = source;
+        keys.addAll(source.entities());
+    }
+
+    /**
+     * Returns the source that aspects are loaded from.
+     *
+     * @return the backing source, or null if none is attached
+     */
+    public AspectSource source()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the entities whose aspects were put into this map and have not
+     * been saved yet.
+     *
+     * @return an unmodifiable view of the pinned entities
+     */
+    public @NotNull Set<Entity> pinnedEntities()
+    {
+        return Collections.unmodifiableSet(pinned.keySet());
+    }
+
+    /**
+     * Moves the pinned aspects into the evictable working set, once they have
+     * been saved to the source.
+     *
+     * @throws IllegalStateException if no source is attached, since evicted
+     *     aspects could not be loaded again
+     */
+    public void unpin()
+    {
+        if (source == null) {
+            throw new IllegalStateException("AspectMap " + aspectDef.name() + " has no AspectSource to reload aspects from.");
+        }
+        pinned.forEach(cache::put);
+        pinned.clear();
+    }
+
+    /**
+     * Returns the entities put into and removed from this map since the change set
+     * was last cleared. Changes are recorded from the first call on; until then the
+     * map is whole.
+     *
+     * @return the live change set of this map
+     */
+    public @NotNull ChangeSet<Entity> changes()
+    {
+        if (changes == null) {
+            changes = new ChangeSet<>();
+            changes.markWhole();
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the maximum total weight of the working set.
+     *
+     * @return the maximum weight
+     */
+    public long maximumWeight()
+    {
+        return cache.maximumWeight();
+    }
+
+    /**
+     * Changes the maximum total weight of the working set, evicting aspects if
+     * it is now over weight.
+     *
+     * @param maximumWeight the new maximum weight
+     */
+    public void maximumWeight(long maximumWeight)
+    {
+        cache.maximumWeight(maximumWeight);
+    }
+
+    /**
+     * Returns the total weight of the aspects in the working set, not counting
+     * pinned aspects.
+     *
+     * @return the resident weight
+     */
+    public long residentWeight()
+    {
+        return cache.weight();
+    }
+
+    /**
+     * Returns the number of reads that found their aspect in the working set.
+     *
+     * @return the hit count
+     */
+    public long hitCount()
+    {
+        return cache.hitCount();
+    }
+
+    /**
+     * Returns the number of reads that had to load their aspect from the source.
+     *
+     * @return the miss count
+     */
+    public long missCount()
+    {
+        return cache.missCount();
+    }
+
+    /**
+     * Returns the number of aspects evicted from the working set.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount()
+    {
+        return cache.evictionCount();
+    }
+
+    @Override
+    public int size()
+    {
+        return keys.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return keys.contains(key);
+    }
+
+    @Override
+    public Aspect get(Object key)
+    {
+        return keys.contains(key) ? lookup((Entity) key, null) : null;
+    }
+
+    /**
+     * Returns the aspect of an entity in this map, taking it from the pinned
+     * aspects, the working set, the given prefetched aspects, or else the source.
+     * Aspects from the working set are wrapped so that writing to one pins it.
+     */
+    private Aspect lookup(Entity entity, Map<Entity, Aspect> prefetched)
+    {
+        Aspect aspect = pinned.get(entity);
+        if (aspect != null) {
+            return aspect;
+        }
+        aspect = cache.get(entity);
+        if (aspect == null && source != null) {
+            aspect = prefetched != null ? prefetched.remove(entity) : null;
+            if (aspect == null) {
+                aspect = source.loadAspect(entity);
+            }
+            if (aspect != null) {
+                cache.put(entity, aspect);
+            }
+        }
+        return aspect != null ? new PinOnWriteAspect(entity, aspect) : null;
+    }
+
+    /**
+     * Pins an aspect from the working set that is about to be written in place,
+     * unless the map no longer holds the entity or already pins an aspect for it.
+     */
+    private void written(Entity entity, Aspect aspect)
+    {
+        if (keys.contains(entity) && !pinned.containsKey(entity)) {
+            cache.remove(entity);
+            pinned.put(entity, aspect);
+            if (changes != null) {
+                changes.update(entity);
+            }
+        }
+    }
+
+    /**
+     * Loads the aspects of those of the given entities that are still in this map
+     * and not in memory, in one request to the source.
+     */
+    private Map<Entity, Aspect> prefetch(Entity[] entities, int from)
+    {
+        List<Entity> missing = new ArrayList<>();
+        for (int i = from; i < entities.length && i < from + LOAD_BATCH_SIZE; i++) {
+            Entity entity = entities[i];
+            if (keys.contains(entity) && !pinned.containsKey(entity) && cache.peek(entity) == null) {
+                missing.add(entity);
+            }
+        }
+        return missing.isEmpty() ? new HashMap<>() : new HashMap<>(source.loadAspects(missing));
+    }
+
+    @Override
+    public Aspect put(Entity key, Aspect value)
+    {
+        keys.add(key);
+        if (changes != null) {
+            changes.update(key);
+        }
+        Aspect previous = pinned.put(key, value);
+        Aspect cached = cache.remove(key);
+        return previous != null ? previous : cached;
+    }
+
+    @Override
+    public Aspect remove(Object key)
+    {
+        if (!keys.remove(key)) {
+            return null;
+        }
+        if (changes != null) {
+            changes.remove((Entity) key);
+        }
+        Aspect previous = pinned.remove(key);
+        Aspect cached = cache.remove(key);
+        return previous != null ? previous : cached;
+    }
+
+    @Override
+    public void clear()
+    {
+        keys.clear();
+        pinned.clear();
+        cache.clear();
+        if (changes != null) {
+            changes.markWhole();
+        }
+    }
+
+    @Override
+    public @NotNull Set<Entity> keySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public @NotNull Iterator<Entity> iterator()
+            {
+                Iterator<Entity> it = keys.iterator();
+                return new Iterator<>()
+                {
+                    private Entity last;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entity next()
+                    {
+                        last = it.next();
+                        return last;
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        it.remove();
+                        forget(last);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return keys.size();
+            }
+
+            @Override
+            public boolean contains(Object o)
+            {
+                return keys.contains(o);
+            }
+
+            @Override
+            public boolean remove(Object o)
+            {
+                boolean present = keys.contains(o);
+                PagedAspectMapImpl.this.remove(o);
+                return present;
+            }
+        };
+    }
+
+    @Override
+    public @NotNull Set<Entry<Entity, Aspect>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public @NotNull Iterator<Entry<Entity, Aspect>> iterator()
+            {
+                Entity[] snapshot = keys.toArray(new Entity[0]);
+                return new Iterator<>()
+                {
+                    private int next;
+                    private int prefetchedFrom;
+                    private int prefetchedTo;
+                    private Map<Entity, Aspect> prefetched;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return next < snapshot.length;
+                    }
+
+                    @Override
+                    public Entry<Entity, Aspect> next()
+                    {
+                        if (next >= snapshot.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new PagedEntry(snapshot[index], entity -> load(index));
+                    }
+
+                    private Aspect load(int index)
+                    {
+                        Entity entity = snapshot[index];
+                        if (!keys.contains(entity)) {
+                            return null;
+                        }
+                        if (source != null && (index < prefetchedFrom || index >= prefetchedTo)) {
+                            prefetched = prefetch(snapshot, index);
+                            prefetchedFrom = index;
+                            prefetchedTo = index + LOAD_BATCH_SIZE;
+                        }
+                        return lookup(entity, prefetched);
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        if (next == 0) {
+                            throw new IllegalStateException();
+                        }
+                        PagedAspectMapImpl.this.remove(snapshot[next - 1]);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return keys.size();
+            }
+        };
+    }
+
+    /**
+     * Drops the in-memory state of an entity whose key was just removed.
+     */
+    private void forget(Entity entity)
+    {
+        pinned.remove(entity);
+        cache.remove(entity);
+        if (changes != null) {
+            changes.remove(entity);
+        }
+    }
+
+    /**
+     * Entry whose aspect is loaded when it is first read, so that iterating
+     * over keys alone does not touch the source.
+     */
+    private final class PagedEntry implements Entry<Entity, Aspect>
+    {
+        private final Entity key;
+        private final Function<Entity, Aspect> loader;
+        private Aspect value;
+
+        PagedEntry(Entity key, Function<Entity, Aspect> loader)
+        {
+            this.key = key;
+            this.loader = loader;
+        }
+
+        @Override
+        public Entity getKey()
+        {
+            return key;
+        }
+
+        @Override
+        public Aspect getValue()
+        {
+            if (value == null) {
+                value = loader.apply(key);
+            }
+            return value;
+        }
+
+        @Override
+        public Aspect setValue(Aspect value)
+        {
+            Aspect previous = getValue();
+            put(key, value);
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Entry<?, ?> e && key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString()
+        {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * View of an aspect from the working set that pins it in this map before its
+     * first write, and before every write after it was unpinned again.
+     */
+    private final class PinOnWriteAspect implements Aspect
+    {
+        private final Entity key;
+        private final Aspect aspect;
+
+        PinOnWriteAspect(Entity key, Aspect aspect)
+        {
+            this.key = key;
+            this.aspect = aspect;
+        }
+
+        private Aspect writable()
+        {
+            written(key, aspect);
+            return aspect;
+        }
+
+        @Override
+        public AspectDef def()
+        {
+            return aspect.def();
+        }
+
+        @Override
+        public Entity entity()
+        {
+            return aspect.entity();
+        }
+
+        @Override
+        public void setEntity(@NotNull Entity entity)
+        {
+            writable().setEntity(entity);
+        }
+
+        @Override
+        public boolean isTransferable()
+        {
+            return aspect.isTransferable();
+        }
+
+        @Override
+        public Object unsafeReadObj(@NotNull String propName)
+        {
+            return aspect.unsafeReadObj(propName);
+        }
+
+        @Override
+        public long unsafeReadLong(@NotNull String propName)
+        {
+            return aspect.unsafeReadLong(propName);
+        }
+
+        @Override
+        public double unsafeReadDouble(@NotNull String propName)
+        {
+            return aspect.unsafeReadDouble(propName);
+        }
+
+        @Override
+        public boolean unsafeReadBoolean(@NotNull String propName)
+        {
+            return aspect.unsafeReadBoolean(propName);
+        }
+
+        @Override
+        public void unsafeWrite(@NotNull String propName, Object value)
+        {
+            writable().unsafeWrite(propName, value);
+        }
+
+        @Override
+        public void unsafeWriteLong(@NotNull String propName, long value)
+        {
+            writable().unsafeWriteLong(propName, value);
+        }
+
+        @Override
+        public void unsafeWriteDouble(@NotNull String propName, double value)
+        {
+            writable().unsafeWriteDouble(propName, value);
+        }
+
+        @Override
+        public void unsafeWriteBoolean(@NotNull String propName, boolean value)
+        {
+            writable().unsafeWriteBoolean(propName, value);
+        }
+
+        @Override
+        public void unsafeAdd(@NotNull Property prop)
+        {
+            writable().unsafeAdd(prop);
+        }
+
+        @Override
+        public void unsafeRemove(@NotNull String propName)
+        {
+            writable().unsafeRemove(propName);
+        }
+
+        @Override
+        public long hash()
+        {
+            return aspect.hash();
+        }
+    }
+}
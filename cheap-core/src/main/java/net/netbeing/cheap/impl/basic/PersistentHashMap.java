@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie (HAMT). Updates return a new map that shares
+ * all unchanged structure with the original, copying only the O(log32 n) nodes on
+ * the path to the changed entry, so old versions remain valid and cheap to keep.
+ * <p>
+ * This is a read-only {@link Map}: the mutating Map methods throw
+ * UnsupportedOperationException, and {@link #with(Object, Object)} and
+ * {@link #without(Object)} are used instead. Iteration order is unspecified.
+ * A single null key is supported.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ * @see ForkableMap
+ */
+final class PersistentHashMap<K, V> extends AbstractMap<K, V>
+{
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0, false, null);
+
+    /** Placeholder returned by lookups that find nothing, since null is a valid value. */
+    private static final Object NOT_FOUND = new Object();
+
+    private final Node root;
+    private final int size;
+    private final boolean hasNull;
+    private final V nullValue;
+
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentHashMap(Node root, int size, boolean hasNull, V nullValue)
+    {
+        this.root = root;
+        this.size = size;
+        this.hasNull = hasNull;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @return an empty PersistentHashMap
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty()
+    {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    private static int hash(Object key)
+    {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Object find(Object key)
+    {
+        if (key == null) {
+            return hasNull ? nullValue : NOT_FOUND;
+        }
+        return root == null ? NOT_FOUND : root.find(0, hash(key), key);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return find(key) != NOT_FOUND;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key)
+    {
+        Object v = find(key);
+        return v == NOT_FOUND ? null : (V) v;
+    }
+
+    /**
+     * Returns a map with the given key mapped to the given value. This map is unchanged.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the updated map, or this map if the key is already mapped to that value
+     */
+    PersistentHashMap<K, V> with(K key, V value)
+    {
+        if (key == null) {
+            if (hasNull && nullValue == value) {
+                return this;
+            }
+            return new PersistentHashMap<>(root, hasNull ? size : size + 1, true, value);
+        }
+        boolean[] added = new boolean[1];
+        Node start = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = start.assoc(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size, hasNull, nullValue);
+    }
+
+    /**
+     * Returns a map without a mapping for the given key. This map is unchanged.
+     *
+     * @param key the key
+     * @return the updated map, or this map if the key is not present
+     */
+    PersistentHashMap<K, V> without(Object key)
+    {
+        if (key == null) {
+            return hasNull ? new PersistentHashMap<>(root, size - 1, false, null) : this;
+        }
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, size - 1, hasNull, nullValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action)
+    {
+        if (hasNull) {
+            action.accept(null, nullValue);
+        }
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet()
+    {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>()
+            {
+                @Override
+                public @NotNull Iterator<Entry<K, V>> iterator()
+                {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o)
+                {
+                    if (!(o instanceof Map.Entry<?, ?> e)) {
+                        return false;
+                    }
+                    Object v = find(e.getKey());
+                    return v != NOT_FOUND && Objects.equals(v, e.getValue());
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Depth-first iterator over the entries of the trie.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>>
+    {
+        /** Arrays of key/value pairs still being walked, with the next pair index for each. */
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<int[]> positions = new ArrayDeque<>();
+        private boolean nullPending = hasNull;
+        private Entry<K, V> next;
+
+        EntryIterator()
+        {
+            if (root != null) {
+                arrays.push(root.array());
+                positions.push(new int[1]);
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance()
+        {
+            next = null;
+            if (nullPending) {
+                nullPending = false;
+                next = new SimpleImmutableEntry<>(null, nullValue);
+                return;
+            }
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int[] pos = positions.peek();
+                if (pos[0] >= array.length) {
+                    arrays.pop();
+                    positions.pop();
+                    continue;
+                }
+                Object k = array[pos[0]];
+                Object v = array[pos[0] + 1];
+                pos[0] += 2;
+                if (k == null) {
+                    arrays.push(((Node) v).array());
+                    positions.push(new int[1]);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) k, (V) v);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next()
+        {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+
+    // Trie nodes. Each holds an array of key/value pairs; a null key marks a pair whose
+    // value is a sub-node. Nodes are never modified once published.
+
+    private abstract static class Node
+    {
+        abstract Object[] array();
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        abstract Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action)
+        {
+            Object[] array = array();
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+    }
+
+    private static final class BitmapNode extends Node
+    {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array)
+        {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array()
+        {
+            return array;
+        }
+
+        private int index(int bit)
+        {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key)
+        {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + 5, hash, key);
+            }
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added)
+        {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * idx];
+                Object v = array[2 * idx + 1];
+                if (k == null) {
+                    Node n = ((Node) v).assoc(shift + 5, hash, key, value, added);
+                    return n == v ? this : new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, n));
+                }
+                if (key.equals(k)) {
+                    return v == value ? this : new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, value));
+                }
+                added[0] = true;
+                Object[] copy = array.clone();
+                copy[2 * idx] = null;
+                copy[2 * idx + 1] = createNode(shift + 5, k, v, hash, key, value);
+                return new BitmapNode(bitmap, copy);
+            }
+            added[0] = true;
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, 2 * idx);
+            copy[2 * idx] = key;
+            copy[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, copy, 2 * idx + 2, array.length - 2 * idx);
+            return new BitmapNode(bitmap | bit, copy);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key)
+        {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node n = ((Node) v).without(shift + 5, hash, key);
+                if (n == v) {
+                    return this;
+                }
+                if (n != null) {
+                    return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, n));
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapNode(bitmap ^ bit, removePair(array, idx));
+        }
+    }
+
+    /**
+     * Node for keys whose full hashes collide.
+     */
+    private static final class CollisionNode extends Node
+    {
+        private final int hash;
+        private final Object[] array;
+
+        CollisionNode(int hash, Object[] array)
+        {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array()
+        {
+            return array;
+        }
+
+        private int indexOf(Object key)
+        {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key)
+        {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added)
+        {
+            if (hash == this.hash) {
+                int i = indexOf(key);
+                if (i >= 0) {
+                    return array[i + 1] == value ? this : new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+                }
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, array.length);
+                copy[array.length] = key;
+                copy[array.length + 1] = value;
+                added[0] = true;
+                return new CollisionNode(hash, copy);
+            }
+            // Different hash: push this node down under a bitmap node.
+            return new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this})
+                .assoc(shift, hash, key, value, added);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key)
+        {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            return new CollisionNode(this.hash, removePair(array, i / 2));
+        }
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2)
+    {
+        int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY
+            .assoc(shift, hash1, key1, value1, added)
+            .assoc(shift, hash2, key2, value2, added);
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int i, Object value)
+    {
+        Object[] copy = array.clone();
+        copy[i] = value;
+        return copy;
+    }
+
+    private static Object[] removePair(Object[] array, int pair)
+    {
+        Object[] copy = new Object[array.length - 2];
+        System.arraycopy(array, 0, copy, 0, 2 * pair);
+        System.arraycopy(array, 2 * (pair + 1), copy, 2 * pair, copy.length - 2 * pair);
+        return copy;
+    }
+}
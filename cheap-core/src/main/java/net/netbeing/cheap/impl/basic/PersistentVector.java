@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable vector implemented as a 32-way trie with a tail buffer. Updates return
+ * a new vector that shares all unchanged structure with the original; indexed
+ * reads and replacing, appending or removing the last element take O(log32 n).
+ * <p>
+ * This is a read-only {@link java.util.List}: the mutating List methods throw
+ * UnsupportedOperationException, and {@link #withSet(int, Object)},
+ * {@link #plus(Object)} and {@link #minus()} are used instead.
+ *
+ * @param <E> the type of elements
+ * @see ForkableList
+ */
+final class PersistentVector<E> extends AbstractList<E> implements RandomAccess
+{
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail)
+    {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @return an empty PersistentVector
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentVector<E> empty()
+    {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    private int tailOffset()
+    {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int i)
+    {
+        if (i >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(i >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E get(int index)
+    {
+        Objects.checkIndex(index, size);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns a vector with the element at the given index replaced. This vector is unchanged.
+     *
+     * @param index the index to replace
+     * @param element the new element
+     * @return the updated vector
+     */
+    PersistentVector<E> withSet(int index, E element)
+    {
+        Objects.checkIndex(index, size);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object element)
+    {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int sub = (index >>> level) & MASK;
+            copy[sub] = assoc(level - BITS, (Object[]) node[sub], index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a vector with the given element appended. This vector is unchanged.
+     *
+     * @param element the element to append
+     * @return the updated vector
+     */
+    PersistentVector<E> plus(E element)
+    {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full: push it into the trie and start a new one.
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode)
+    {
+        int sub = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        Object[] insert;
+        if (level == BITS) {
+            insert = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[sub];
+            insert = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        copy[sub] = insert;
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] node)
+    {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Returns a vector without its last element. This vector is unchanged.
+     *
+     * @return the updated vector
+     * @throws NoSuchElementException if this vector is empty
+     */
+    PersistentVector<E> minus()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException("Vector is empty");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail has one element: the last leaf of the trie becomes the new tail.
+        Object[] newTail = arrayFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Object[] popTail(int level, Object[] node)
+    {
+        int sub = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = popTail(level - BITS, (Object[]) node[sub]);
+            if (child == null && sub == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[sub] = child;
+            return copy;
+        }
+        if (sub == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[sub] = null;
+        return copy;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.PropertyAccessor;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Basic implementation of a PropertyAccessor. Permission and nullability checks
+ * are resolved when the accessor is created.
+ * <p>
+ * Aspects stored in slot-indexed form ({@link AspectObjectArrayImpl}) are read
+ * and written directly by slot, and views onto a columnar map
+ * ({@link ColumnarAspectImpl}) find their column by slot; all other aspects are
+ * accessed through their unsafe string-keyed methods. Subclasses can override {@link #unsafeRead(Aspect)}
+ * and {@link #unsafeWrite(Aspect, Object)} to add specialized access paths.
+ *
+ * @see PropertyAccessor
+ * @see AspectDef#accessor(String)
+ */
+public class PropertyAccessorImpl implements PropertyAccessor
+{
+    /** The AspectDef this accessor was resolved from. */
+    protected final AspectDef aspectDef;
+
+    /** The definition of the accessed property. */
+    protected final PropertyDef propDef;
+
+    /** The name of the accessed property. */
+    protected final String propName;
+
+    /** The slot of the property in the AspectDef. */
+    protected final int slot;
+
+    private final boolean readable;
+    private final boolean writable;
+    private final boolean nullable;
+
+    /**
+     * Creates a new accessor for the given property of the given AspectDef.
+     *
+     * @param aspectDef the aspect definition
+     * @param propDef the property definition, which must belong to the aspect definition
+     */
+    public PropertyAccessorImpl(@NotNull AspectDef aspectDef, @NotNull PropertyDef propDef)
+    {
+        this.aspectDef = aspectDef;
+        this.propDef = propDef;
+        this.propName = propDef.name();
+        this.slot = aspectDef.slotOf(propName);
+        this.readable = aspectDef.isReadable() && propDef.isReadable();
+        this.writable = aspectDef.isWritable() && propDef.isWritable();
+        this.nullable = propDef.isNullable();
+    }
+
+    @Override
+    public @NotNull AspectDef aspectDef()
+    {
+        return aspectDef;
+    }
+
+    @Override
+    public @NotNull PropertyDef propertyDef()
+    {
+        return propDef;
+    }
+
+    @Override
+    public boolean isReadable()
+    {
+        return readable;
+    }
+
+    @Override
+    public boolean isWritable()
+    {
+        return writable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object read(@NotNull Aspect aspect)
+    {
+        checkReadable();
+        return unsafeRead(aspect);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(@NotNull Aspect aspect, Object value)
+    {
+        checkWritable();
+        if (value == null && !nullable) {
+            throw new NullPointerException("Property '" + propName + "' in Aspect '" + aspectDef.name() + "' is not nullable.");
+        }
+        unsafeWrite(aspect, value);
+    }
+
+    @Override
+    public long readLong(@NotNull Aspect aspect)
+    {
+        checkReadable();
+        return unsafeReadLong(aspect);
+    }
+
+    @Override
+    public double readDouble(@NotNull Aspect aspect)
+    {
+        checkReadable();
+        return unsafeReadDouble(aspect);
+    }
+
+    @Override
+    public boolean readBoolean(@NotNull Aspect aspect)
+    {
+        checkReadable();
+        return unsafeReadBoolean(aspect);
+    }
+
+    @Override
+    public void writeLong(@NotNull Aspect aspect, long value)
+    {
+        checkWritable();
+        unsafeWriteLong(aspect, value);
+    }
+
+    @Override
+    public void writeDouble(@NotNull Aspect aspect, double value)
+    {
+        checkWritable();
+        unsafeWriteDouble(aspect, value);
+    }
+
+    @Override
+    public void writeBoolean(@NotNull Aspect aspect, boolean value)
+    {
+        checkWritable();
+        unsafeWriteBoolean(aspect, value);
+    }
+
+    /**
+     * Reads the property value from the given aspect without permission checks.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value, possibly null
+     */
+    protected Object unsafeRead(@NotNull Aspect aspect)
+    {
+        if (slot >= 0 && aspect instanceof AspectObjectArrayImpl array && array.def() == aspectDef) {
+            return array.unsafeReadSlot(slot);
+        }
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            return view.unsafeReadSlot(slot, propName);
+        }
+        return aspect.unsafeReadObj(propName);
+    }
+
+    /**
+     * Writes the property value to the given aspect without permission checks.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     */
+    protected void unsafeWrite(@NotNull Aspect aspect, Object value)
+    {
+        if (slot >= 0 && aspect instanceof AspectObjectArrayImpl array && array.def() == aspectDef) {
+            array.unsafeWriteSlot(slot, value);
+        } else {
+            aspect.unsafeWrite(propName, value);
+        }
+    }
+
+    /**
+     * Reads the property value from the given aspect as a primitive long without
+     * permission checks.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     */
+    protected long unsafeReadLong(@NotNull Aspect aspect)
+    {
+        if (slot >= 0 && aspect instanceof AspectObjectArrayImpl) {
+            return ((Number) nonNull(unsafeRead(aspect))).longValue();
+        }
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            return view.unsafeReadLongSlot(slot, propName);
+        }
+        return aspect.unsafeReadLong(propName);
+    }
+
+    /**
+     * Reads the property value from the given aspect as a primitive double without
+     * permission checks.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     */
+    protected double unsafeReadDouble(@NotNull Aspect aspect)
+    {
+        if (slot >= 0 && aspect instanceof AspectObjectArrayImpl) {
+            return ((Number) nonNull(unsafeRead(aspect))).doubleValue();
+        }
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            return view.unsafeReadDoubleSlot(slot, propName);
+        }
+        return aspect.unsafeReadDouble(propName);
+    }
+
+    /**
+     * Reads the property value from the given aspect as a primitive boolean without
+     * permission checks.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     */
+    protected boolean unsafeReadBoolean(@NotNull Aspect aspect)
+    {
+        if (slot >= 0 && aspect instanceof AspectObjectArrayImpl) {
+            return (Boolean) nonNull(unsafeRead(aspect));
+        }
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            return view.unsafeReadBooleanSlot(slot, propName);
+        }
+        return aspect.unsafeReadBoolean(propName);
+    }
+
+    /**
+     * Writes a primitive long to the given aspect without permission checks.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     */
+    protected void unsafeWriteLong(@NotNull Aspect aspect, long value)
+    {
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            view.unsafeWriteLongSlot(slot, propName, value);
+        } else {
+            aspect.unsafeWriteLong(propName, value);
+        }
+    }
+
+    /**
+     * Writes a primitive double to the given aspect without permission checks.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     */
+    protected void unsafeWriteDouble(@NotNull Aspect aspect, double value)
+    {
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            view.unsafeWriteDoubleSlot(slot, propName, value);
+        } else {
+            aspect.unsafeWriteDouble(propName, value);
+        }
+    }
+
+    /**
+     * Writes a primitive boolean to the given aspect without permission checks.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     */
+    protected void unsafeWriteBoolean(@NotNull Aspect aspect, boolean value)
+    {
+        if (slot >= 0 && aspect instanceof ColumnarAspectImpl view && view.def() == aspectDef) {
+            view.unsafeWriteBooleanSlot(slot, propName, value);
+        } else {
+            aspect.unsafeWriteBoolean(propName, value);
+        }
+    }
+
+    private void checkReadable()
+    {
+        if (!readable) {
+            throw new UnsupportedOperationException("Property '" + propName + "' in Aspect '" + aspectDef.name() + "' is not readable.");
+        }
+    }
+
+    private void checkWritable()
+    {
+        if (!writable) {
+            throw new UnsupportedOperationException("Property '" + propName + "' in Aspect '" + aspectDef.name() + "' is not writable.");
+        }
+    }
+
+    private Object nonNull(Object value)
+    {
+        if (value == null) {
+            throw new NullPointerException("Property '" + propName + "' in Aspect '" + aspectDef.name() + "' is null.");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Secondary index from the values of one property to the entities whose
+ * aspects hold them. A HASH index keeps its values in a HashMap; a SORTED
+ * index keeps them in a TreeMap so that range queries walk only the matching
+ * part of the tree. Each value maps to a single Entity, or to a set of them
+ * once more than one entity holds it, so that an index over a mostly unique
+ * property costs one map entry per aspect. Elements of multivalued properties
+ * are indexed individually and null values are not indexed. Not thread-safe.
+ *
+ * @see IndexedAspectMapHierarchyImpl
+ */
+final class PropertyIndex
+{
+    private final PropertyDef propDef;
+    private final PropertyIndexType type;
+    private final Map<Object, Object> postings;
+    private int size;
+
+    PropertyIndex(@NotNull PropertyDef propDef, @NotNull PropertyIndexType type)
+    {
+        this.propDef = propDef;
+        this.type = type;
+        this.postings = type == PropertyIndexType.SORTED ? new TreeMap<>() : new HashMap<>();
+    }
+
+    PropertyDef propertyDef()
+    {
+        return propDef;
+    }
+
+    PropertyIndexType type()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the number of (value, entity) pairs in this index.
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values in this index.
+     */
+    int distinctValues()
+    {
+        return postings.size();
+    }
+
+    void clear()
+    {
+        postings.clear();
+        size = 0;
+    }
+
+    /**
+     * Indexes the given property value, or each of its elements if the property
+     * is multivalued, for the given entity.
+     */
+    void add(@NotNull Entity entity, Object value)
+    {
+        if (propDef.isMultivalued() && value instanceof Collection<?> values) {
+            for (Object v : values) {
+                addOne(entity, v);
+            }
+        } else {
+            addOne(entity, value);
+        }
+    }
+
+    /**
+     * Removes the given property value, or each of its elements if the property
+     * is multivalued, for the given entity.
+     */
+    void remove(@NotNull Entity entity, Object value)
+    {
+        if (propDef.isMultivalued() && value instanceof Collection<?> values) {
+            for (Object v : values) {
+                removeOne(entity, v);
+            }
+        } else {
+            removeOne(entity, value);
+        }
+    }
+
+    /**
+     * Moves the given entity from its old value to its new one.
+     */
+    void update(@NotNull Entity entity, Object oldValue, Object newValue)
+    {
+        if (!Objects.equals(oldValue, newValue)) {
+            remove(entity, oldValue);
+            add(entity, newValue);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addOne(Entity entity, Object value)
+    {
+        if (value == null) {
+            return;
+        }
+        Object posting = postings.get(value);
+        if (posting == null) {
+            postings.put(value, entity);
+        } else if (posting instanceof Set<?> set) {
+            if (!((Set<Entity>) set).add(entity)) {
+                return;
+            }
+        } else if (posting.equals(entity)) {
+            return;
+        } else {
+            Set<Entity> set = new LinkedHashSet<>(4);
+            set.add((Entity) posting);
+            set.add(entity);
+            postings.put(value, set);
+        }
+        size++;
+    }
+
+    private void removeOne(Entity entity, Object value)
+    {
+        if (value == null) {
+            return;
+        }
+        Object posting = postings.get(value);
+        if (posting instanceof Set<?> set) {
+            if (set.remove(entity)) {
+                size--;
+                if (set.size() == 1) {
+                    postings.put(value, set.iterator().next());
+                }
+            }
+        } else if (posting != null && posting.equals(entity)) {
+            postings.remove(value);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the entities holding the given value, in the order they were indexed.
+     */
+    @NotNull Set<Entity> find(Object value)
+    {
+        Set<Entity> result = new LinkedHashSet<>();
+        if (value != null) {
+            try {
+                collect(postings.get(value), result);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Value " + value + " cannot be compared with the values of property '" + propDef.name() + "'.", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entities holding values between the given bounds, in value
+     * order. A null bound leaves that end of the range open. Only supported by
+     * SORTED indexes.
+     */
+    @NotNull Set<Entity> findRange(Object from, boolean fromInclusive, Object to, boolean toInclusive)
+    {
+        if (type != PropertyIndexType.SORTED) {
+            throw new UnsupportedOperationException("Property '" + propDef.name() + "' does not have a sorted index.");
+        }
+        @SuppressWarnings("unchecked")
+        NavigableMap<Object, Object> range = (NavigableMap<Object, Object>) postings;
+        Set<Entity> result = new LinkedHashSet<>();
+        try {
+            if (from != null && to != null) {
+                int cmp = compare(from, to);
+                if (cmp > 0 || (cmp == 0 && !(fromInclusive && toInclusive))) {
+                    return result;
+                }
+            }
+            if (from != null) {
+                range = range.tailMap(from, fromInclusive);
+            }
+            if (to != null) {
+                range = range.headMap(to, toInclusive);
+            }
+            for (Object posting : range.values()) {
+                collect(posting, result);
+            }
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Range bounds cannot be compared with the values of property '" + propDef.name() + "'.", e);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b)
+    {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collect(Object posting, Set<Entity> result)
+    {
+        if (posting instanceof Set<?> set) {
+            result.addAll((Set<Entity>) set);
+        } else if (posting != null) {
+            result.add((Entity) posting);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Hierarchy;
+
+/**
+ * A hierarchy that tells the {@link CatalogImpl} holding it of each change to its
+ * content, through {@link CatalogImpl#hierarchyChanged(net.netbeing.cheap.model.Catalog, String)},
+ * so that the catalog can keep its root hash current without rehashing the
+ * hierarchy on every call.
+ *
+ * @see CatalogImpl#hash()
+ */
+interface ReportingHierarchy extends Hierarchy
+{
+    /**
+     * Returns whether every change to the content of this hierarchy is reported
+     * from now on. The catalog asks after each time it hashes the hierarchy, and
+     * rehashes those that answer false on every call instead.
+     *
+     * @return true if changes are reported
+     */
+    boolean reportsChanges();
+}
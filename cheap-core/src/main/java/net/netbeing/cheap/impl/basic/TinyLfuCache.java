@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.impl.basic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Weight-bounded cache with a W-TinyLFU eviction policy.
+ * <p>
+ * New entries enter a small LRU admission window (1% of the maximum weight).
+ * Entries that overflow the window become candidates for the main space, which
+ * is a segmented LRU split into a probation segment and a protected segment
+ * (80% of the main space); entries are promoted to the protected segment when
+ * they are read while on probation. When the cache is over weight, each
+ * candidate competes with the least recently used entry on probation, and
+ * whichever has been accessed less often, according to a count-min sketch of
+ * recent access frequencies, is evicted. This keeps one-off scans from
+ * flushing a frequently used working set, while still letting new popular
+ * entries in quickly.
+ * <p>
+ * The sketch counts accesses to keys whether or not they are resident, and is
+ * periodically halved so that old popularity fades. Entries heavier than the
+ * maximum weight are not cached at all.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ */
+final class TinyLfuCache<K, V>
+{
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final class Node<K, V>
+    {
+        final K key;
+        V value;
+        int weight;
+        int segment;
+
+        Node(K key, V value, int weight)
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final ToIntFunction<? super V> weigher;
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+    private FrequencySketch sketch;
+
+    private long maximumWeight;
+    private long windowMaximum;
+    private long protectedMaximum;
+    private long weight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumWeight the maximum total weight of the cached values
+     * @param weigher computes the weight of a value, which must not be negative
+     */
+    TinyLfuCache(long maximumWeight, @NotNull ToIntFunction<? super V> weigher)
+    {
+        this.weigher = weigher;
+        maximumWeight(maximumWeight);
+    }
+
+    long maximumWeight()
+    {
+        return maximumWeight;
+    }
+
+    /**
+     * Changes the maximum weight of the cache, evicting entries if the cache
+     * is now over weight.
+     *
+     * @param maximumWeight the new maximum weight
+     */
+    void maximumWeight(long maximumWeight)
+    {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight may not be negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1L, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumWeight);
+        evict(new ArrayDeque<>());
+    }
+
+    long weight()
+    {
+        return weight;
+    }
+
+    int size()
+    {
+        return data.size();
+    }
+
+    long hitCount()
+    {
+        return hits;
+    }
+
+    long missCount()
+    {
+        return misses;
+    }
+
+    long evictionCount()
+    {
+        return evictions;
+    }
+
+    /**
+     * Returns the cached value for a key, recording the access.
+     *
+     * @param key the key
+     * @return the cached value, or null if it is not resident
+     */
+    V get(Object key)
+    {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value for a key without recording an access.
+     *
+     * @param key the key
+     * @return the cached value, or null if it is not resident
+     */
+    V peek(Object key)
+    {
+        Node<K, V> node = data.get(key);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Caches a value, replacing any value already cached for the key, and
+     * evicts entries as needed to stay within the maximum weight.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void put(@NotNull K key, @NotNull V value)
+    {
+        remove(key);
+        int w = weigher.applyAsInt(value);
+        if (w < 0) {
+            throw new IllegalArgumentException("Weight may not be negative: " + w);
+        }
+        if (w > maximumWeight) {
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, w);
+        node.segment = WINDOW;
+        data.put(key, node);
+        window.put(key, node);
+        windowWeight += w;
+        weight += w;
+        evict(new ArrayDeque<>());
+    }
+
+    /**
+     * Removes a key from the cache. This is not counted as an eviction.
+     *
+     * @param key the key
+     * @return the value that was cached, or null if it was not resident
+     */
+    V remove(Object key)
+    {
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    void clear()
+    {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        weight = 0;
+        windowWeight = 0;
+        protectedWeight = 0;
+    }
+
+    private void onAccess(Node<K, V> node)
+    {
+        switch (node.segment) {
+            case WINDOW -> window.putLast(node.key, node);
+            case PROBATION -> {
+                probation.remove(node.key);
+                node.segment = PROTECTED;
+                protectedSegment.putLast(node.key, node);
+                protectedWeight += node.weight;
+                demoteProtected();
+            }
+            default -> protectedSegment.putLast(node.key, node);
+        }
+    }
+
+    /** Moves the least recently used protected entries to probation while the protected segment is too heavy. */
+    private void demoteProtected()
+    {
+        while (protectedWeight > protectedMaximum && !protectedSegment.isEmpty()) {
+            Node<K, V> lru = protectedSegment.pollFirstEntry().getValue();
+            protectedWeight -= lru.weight;
+            lru.segment = PROBATION;
+            probation.putLast(lru.key, lru);
+        }
+    }
+
+    private void unlink(Node<K, V> node)
+    {
+        weight -= node.weight;
+        switch (node.segment) {
+            case WINDOW -> {
+                window.remove(node.key);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> probation.remove(node.key);
+            default -> {
+                protectedSegment.remove(node.key);
+                protectedWeight -= node.weight;
+            }
+        }
+    }
+
+    private void evictNode(Node<K, V> node)
+    {
+        data.remove(node.key);
+        unlink(node);
+        evictions++;
+    }
+
+    /**
+     * Moves entries that overflow the window onto probation as candidates, then
+     * evicts until the cache is within its maximum weight, letting each candidate
+     * compete with the probation LRU victim on access frequency.
+     */
+    private void evict(Deque<Node<K, V>> candidates)
+    {
+        while (windowWeight > windowMaximum && !window.isEmpty()) {
+            Node<K, V> node = window.pollFirstEntry().getValue();
+            windowWeight -= node.weight;
+            node.segment = PROBATION;
+            probation.putLast(node.key, node);
+            candidates.addLast(node);
+        }
+        while (weight > maximumWeight) {
+            Node<K, V> victim = probation.isEmpty() ? null : probation.firstEntry().getValue();
+            Node<K, V> candidate = candidates.peekFirst();
+            if (victim == null) {
+                Map.Entry<K, Node<K, V>> first = protectedSegment.isEmpty() ? window.firstEntry() : protectedSegment.firstEntry();
+                evictNode(first.getValue());
+            } else if (candidate == null || candidate == victim) {
+                candidates.remove(victim);
+                evictNode(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+            } else {
+                candidates.pollFirst();
+                evictNode(candidate);
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch of four-bit-saturating access counters, four rows deep,
+     * that halves every counter after a sample period to age out old accesses.
+     */
+    private static final class FrequencySketch
+    {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] table;
+        private final int mask;
+        private final int samplePeriod;
+        private int additions;
+
+        FrequencySketch(long expectedWeight)
+        {
+            int width = Integer.highestOneBit((int) Math.clamp(expectedWeight, 64L, 1L << 18) - 1) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.samplePeriod = 10 * width;
+        }
+
+        private static int spread(int h)
+        {
+            h ^= h >>> 16;
+            h *= 0x45d9f3b;
+            h ^= h >>> 16;
+            return h;
+        }
+
+        void increment(Object key)
+        {
+            int h1 = spread(key != null ? key.hashCode() : 0);
+            int h2 = spread(h1 ^ 0x85ebca6b) | 1;
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                byte[] row = table[i];
+                int index = (h1 + i * h2) & mask;
+                if (row[index] < MAX_COUNT) {
+                    row[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= samplePeriod) {
+                reset();
+            }
+        }
+
+        int frequency(Object key)
+        {
+            int h1 = spread(key != null ? key.hashCode() : 0);
+            int h2 = spread(h1 ^ 0x85ebca6b) | 1;
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, table[i][(h1 + i * h2) & mask]);
+            }
+            return min;
+        }
+
+        private void reset()
+        {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
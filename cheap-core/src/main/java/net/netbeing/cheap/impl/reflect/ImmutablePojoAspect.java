@@ -181,11 +181,37 @@ public class ImmutablePojoAspect<P> implements Aspect
     @Override
     public Object unsafeReadObj(@NotNull String propName)
     {
-        GenericGetterSetter getter = def.getter(propName);
-        if (getter == null) {
-            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
-        }
-        return getter.get(object);
+        return requireGetter(propName).get(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return requireGetter(propName).getLong(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return requireGetter(propName).getDouble(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return requireGetter(propName).getBoolean(object);
     }
 
     /**
@@ -233,4 +259,13 @@ public class ImmutablePojoAspect<P> implements Aspect
     {
         throw new UnsupportedOperationException("Property '" + propName + "' cannot be removed from Java class with AspectDef '" + def.name() + "'.");
     }
+
+    private GenericGetterSetter requireGetter(@NotNull String propName)
+    {
+        GenericGetterSetter getter = def.getter(propName);
+        if (getter == null) {
+            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
+        }
+        return getter;
+    }
 }
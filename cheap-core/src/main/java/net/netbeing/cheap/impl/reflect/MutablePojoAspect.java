@@ -195,11 +195,37 @@ public class MutablePojoAspect<P> implements Aspect
     @Override
     public Object unsafeReadObj(@NotNull String propName)
     {
-        GenericGetterSetter getter = def.getter(propName);
-        if (getter == null) {
-            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
-        }
-        return getter.get(object);
+        return requireGetter(propName).get(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return requireGetter(propName).getLong(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return requireGetter(propName).getDouble(object);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return requireGetter(propName).getBoolean(object);
     }
 
     /**
@@ -223,27 +249,67 @@ public class MutablePojoAspect<P> implements Aspect
     @Override
     public void unsafeWrite(@NotNull String propName, Object value)
     {
-        GenericGetterSetter setter = def.setter(propName);
-        if (setter == null) {
-            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
-        }
-        PojoPropertyDef propDef = (PojoPropertyDef) def.propertyDef(propName);
+        writeValue(requireSetter(propName), (PojoPropertyDef) def.propertyDef(propName), object, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive setters are called without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteLong(@NotNull String propName, long value)
+    {
+        requireSetter(propName).setLong(object, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive setters are called without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteDouble(@NotNull String propName, double value)
+    {
+        requireSetter(propName).setDouble(object, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive setters are called without boxing.</p>
+     */
+    @Override
+    public void unsafeWriteBoolean(@NotNull String propName, boolean value)
+    {
+        requireSetter(propName).setBoolean(object, value);
+    }
+
+    /**
+     * Writes a value to a POJO through the given setter, unboxing values of
+     * properties marked as Java primitives so that the primitive setter is called.
+     *
+     * @param setter the setter wrapper for the property
+     * @param propDef the definition of the property
+     * @param target the POJO to write to
+     * @param value the value to write
+     * @throws IllegalStateException if a property is marked as primitive but the value is not a recognized primitive type
+     */
+    static void writeValue(@NotNull GenericGetterSetter setter, @NotNull PojoPropertyDef propDef, @NotNull Object target, Object value)
+    {
         if (propDef.isJavaPrimitive()) {
             // Handle primitive types by calling the appropriate setter method
             switch (value) {
-                case Integer _ -> setter.set(object, (int) value);
-                case Long _ -> setter.set(object, (long) value);
-                case Double _ -> setter.set(object, (double) value);
-                case Float _ -> setter.set(object, (float) value);
-                case Boolean _ -> setter.set(object, (boolean) value);
-                case Byte _ -> setter.set(object, (byte) value);
-                case Short _ -> setter.set(object, (short) value);
-                case Character _ -> setter.set(object, (char) value);
-                default -> throw new IllegalStateException("Property '" + propName + "' is flagged as primitive but is not of a primitive type.");
+                case Integer _ -> setter.set(target, (int) value);
+                case Long _ -> setter.set(target, (long) value);
+                case Double _ -> setter.set(target, (double) value);
+                case Float _ -> setter.set(target, (float) value);
+                case Boolean _ -> setter.set(target, (boolean) value);
+                case Byte _ -> setter.set(target, (byte) value);
+                case Short _ -> setter.set(target, (short) value);
+                case Character _ -> setter.set(target, (char) value);
+                default -> throw new IllegalStateException("Property '" + propDef.name() + "' is flagged as primitive but is not of a primitive type.");
             }
         } else {
             // For non-primitive types and null values
-            setter.set(object, value);
+            setter.set(target, value);
         }
     }
 
@@ -276,4 +342,22 @@ public class MutablePojoAspect<P> implements Aspect
     {
         throw new UnsupportedOperationException("Property '" + propName + "' cannot be removed from Java class with AspectDef '" + def.name() + "'.");
     }
+
+    private GenericGetterSetter requireGetter(@NotNull String propName)
+    {
+        GenericGetterSetter getter = def.getter(propName);
+        if (getter == null) {
+            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
+        }
+        return getter;
+    }
+
+    private GenericGetterSetter requireSetter(@NotNull String propName)
+    {
+        GenericGetterSetter setter = def.setter(propName);
+        if (setter == null) {
+            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
+        }
+        return setter;
+    }
 }
@@ -18,6 +18,7 @@ package net.netbeing.cheap.impl.reflect;
 
 import com.google.common.collect.ImmutableMap;
 import net.netbeing.cheap.impl.basic.MutableAspectDefImpl;
+import net.netbeing.cheap.model.PropertyAccessor;
 import net.netbeing.cheap.model.PropertyDef;
 import net.netbeing.cheap.util.reflect.GenericGetterSetter;
 import net.netbeing.cheap.util.reflect.ReflectionWrapper;
@@ -219,6 +220,21 @@ public class MutablePojoAspectDef extends MutableAspectDefImpl
         return getters.get(propName);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned accessor calls the cached reflection wrappers directly.
+     */
+    @Override
+    public @NotNull PropertyAccessor accessor(@NotNull String propName)
+    {
+        PropertyDef propDef = propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + name() + "' does not contain prop named '" + propName + "'.");
+        }
+        return new ReflectionPropertyAccessor(this, propDef, getter(propName), setter(propName));
+    }
+
     /**
      * Retrieves the reflection wrapper for the setter method of the specified property.
      * 
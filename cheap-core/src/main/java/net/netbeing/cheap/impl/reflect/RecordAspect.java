@@ -176,11 +176,37 @@ public class RecordAspect<R extends Record> implements Aspect
     @Override
     public Object unsafeReadObj(@NotNull String propName)
     {
-        GenericGetterSetter getter = def.getter(propName);
-        if (getter == null) {
-            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
-        }
-        return getter.get(record);
+        return requireGetter(propName).get(record);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public long unsafeReadLong(@NotNull String propName)
+    {
+        return requireGetter(propName).getLong(record);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public double unsafeReadDouble(@NotNull String propName)
+    {
+        return requireGetter(propName).getDouble(record);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Primitive getters are called without boxing.</p>
+     */
+    @Override
+    public boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return requireGetter(propName).getBoolean(record);
     }
 
     /**
@@ -228,4 +254,13 @@ public class RecordAspect<R extends Record> implements Aspect
     {
         throw new UnsupportedOperationException("Property '" + propName + "' cannot be removed in Record class with immutable AspectDef '" + def.name() + "'.");
     }
+
+    private GenericGetterSetter requireGetter(@NotNull String propName)
+    {
+        GenericGetterSetter getter = def.getter(propName);
+        if (getter == null) {
+            throw new IllegalArgumentException("Class " + def.name() + " does not contain field '" + propName + "'.");
+        }
+        return getter;
+    }
 }
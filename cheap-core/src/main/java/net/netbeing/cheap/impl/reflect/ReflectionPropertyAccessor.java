@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.impl.reflect;
+
+import net.netbeing.cheap.impl.basic.PropertyAccessorImpl;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.util.reflect.GenericGetterSetter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * PropertyAccessor for the reflection-based aspect families ({@link RecordAspect},
+ * {@link MutablePojoAspect} and {@link ImmutablePojoAspect}). The getter and setter
+ * wrappers are looked up once when the accessor is resolved, so reads and writes
+ * call straight through to the underlying record or POJO.
+ * <p>
+ * Aspects of other implementations, or of a different AspectDef, are accessed
+ * through their string-keyed unsafe methods.
+ */
+class ReflectionPropertyAccessor extends PropertyAccessorImpl
+{
+    /** The getter wrapper, or null if the property cannot be read. */
+    private final GenericGetterSetter getter;
+
+    /** The setter wrapper, or null if the property cannot be written. */
+    private final GenericGetterSetter setter;
+
+    /**
+     * Creates a new accessor using the given getter and setter wrappers.
+     *
+     * @param aspectDef the aspect definition
+     * @param propDef the property definition
+     * @param getter the getter wrapper, or null
+     * @param setter the setter wrapper, or null
+     */
+    ReflectionPropertyAccessor(@NotNull AspectDef aspectDef, @NotNull PropertyDef propDef,
+                               GenericGetterSetter getter, GenericGetterSetter setter)
+    {
+        super(aspectDef, propDef);
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    @Override
+    protected Object unsafeRead(@NotNull Aspect aspect)
+    {
+        Object target = readTarget(aspect);
+        return target != null ? getter.get(target) : super.unsafeRead(aspect);
+    }
+
+    @Override
+    protected long unsafeReadLong(@NotNull Aspect aspect)
+    {
+        Object target = readTarget(aspect);
+        return target != null ? getter.getLong(target) : super.unsafeReadLong(aspect);
+    }
+
+    @Override
+    protected double unsafeReadDouble(@NotNull Aspect aspect)
+    {
+        Object target = readTarget(aspect);
+        return target != null ? getter.getDouble(target) : super.unsafeReadDouble(aspect);
+    }
+
+    @Override
+    protected boolean unsafeReadBoolean(@NotNull Aspect aspect)
+    {
+        Object target = readTarget(aspect);
+        return target != null ? getter.getBoolean(target) : super.unsafeReadBoolean(aspect);
+    }
+
+    @Override
+    protected void unsafeWrite(@NotNull Aspect aspect, Object value)
+    {
+        Object target = writeTarget(aspect);
+        if (target != null) {
+            MutablePojoAspect.writeValue(setter, (PojoPropertyDef) propDef, target, value);
+        } else {
+            super.unsafeWrite(aspect, value);
+        }
+    }
+
+    @Override
+    protected void unsafeWriteLong(@NotNull Aspect aspect, long value)
+    {
+        Object target = writeTarget(aspect);
+        if (target != null) {
+            setter.setLong(target, value);
+        } else {
+            super.unsafeWriteLong(aspect, value);
+        }
+    }
+
+    @Override
+    protected void unsafeWriteDouble(@NotNull Aspect aspect, double value)
+    {
+        Object target = writeTarget(aspect);
+        if (target != null) {
+            setter.setDouble(target, value);
+        } else {
+            super.unsafeWriteDouble(aspect, value);
+        }
+    }
+
+    @Override
+    protected void unsafeWriteBoolean(@NotNull Aspect aspect, boolean value)
+    {
+        Object target = writeTarget(aspect);
+        if (target != null) {
+            setter.setBoolean(target, value);
+        } else {
+            super.unsafeWriteBoolean(aspect, value);
+        }
+    }
+
+    /**
+     * Returns the record or POJO underlying the given aspect if it can be read
+     * directly through this accessor's getter, or null otherwise.
+     */
+    private Object readTarget(Aspect aspect)
+    {
+        if (getter == null || aspect.def() != aspectDef) {
+            return null;
+        }
+        return switch (aspect) {
+            case RecordAspect<?> rec -> rec.record();
+            case MutablePojoAspect<?> pojo -> pojo.object();
+            case ImmutablePojoAspect<?> pojo -> pojo.object();
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the POJO underlying the given aspect if it can be written directly
+     * through this accessor's setter, or null otherwise.
+     */
+    private Object writeTarget(Aspect aspect)
+    {
+        if (setter != null && aspect instanceof MutablePojoAspect<?> pojo && pojo.def() == aspectDef) {
+            return pojo.object();
+        }
+        return null;
+    }
+}
@@ -17,6 +17,7 @@
 package net.netbeing.cheap.model;
 
 import net.netbeing.cheap.impl.basic.PropertyImpl;
+import net.netbeing.cheap.util.CheapHasher;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -305,6 +306,222 @@ public interface Aspect
         unsafeWrite(propName, value);
     }
 
+    /**
+     * Reads an Integer property value as a primitive long, without validation
+     * against the aspect definition. Implementations that store or expose
+     * primitive values override this to avoid boxing.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a number
+     */
+    default long unsafeReadLong(@NotNull String propName)
+    {
+        return ((Number) nonNullValue(propName)).longValue();
+    }
+
+    /**
+     * Reads a Float property value as a primitive double, without validation
+     * against the aspect definition. Implementations that store or expose
+     * primitive values override this to avoid boxing.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a number
+     */
+    default double unsafeReadDouble(@NotNull String propName)
+    {
+        return ((Number) nonNullValue(propName)).doubleValue();
+    }
+
+    /**
+     * Reads a Boolean property value as a primitive boolean, without validation
+     * against the aspect definition. Implementations that store or expose
+     * primitive values override this to avoid boxing.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a boolean
+     */
+    default boolean unsafeReadBoolean(@NotNull String propName)
+    {
+        return (Boolean) nonNullValue(propName);
+    }
+
+    /**
+     * Writes a primitive long to an Integer property, without validation against
+     * the aspect definition. Implementations that store primitive values override
+     * this to avoid boxing.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     */
+    default void unsafeWriteLong(@NotNull String propName, long value)
+    {
+        unsafeWrite(propName, value);
+    }
+
+    /**
+     * Writes a primitive double to a Float property, without validation against
+     * the aspect definition. Implementations that store primitive values override
+     * this to avoid boxing.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     */
+    default void unsafeWriteDouble(@NotNull String propName, double value)
+    {
+        unsafeWrite(propName, value);
+    }
+
+    /**
+     * Writes a primitive boolean to a Boolean property, without validation against
+     * the aspect definition. Implementations that store primitive values override
+     * this to avoid boxing.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     */
+    default void unsafeWriteBoolean(@NotNull String propName, boolean value)
+    {
+        unsafeWrite(propName, value);
+    }
+
+    /**
+     * Reads an Integer property value as a primitive long, with the same validation
+     * as {@link #readObj(String)}.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws UnsupportedOperationException if the aspect or property is not readable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     * @throws NullPointerException if the property value is null
+     */
+    default long readLong(@NotNull String propName)
+    {
+        checkReadable(propName);
+        return unsafeReadLong(propName);
+    }
+
+    /**
+     * Reads a Float property value as a primitive double, with the same validation
+     * as {@link #readObj(String)}.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws UnsupportedOperationException if the aspect or property is not readable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     * @throws NullPointerException if the property value is null
+     */
+    default double readDouble(@NotNull String propName)
+    {
+        checkReadable(propName);
+        return unsafeReadDouble(propName);
+    }
+
+    /**
+     * Reads a Boolean property value as a primitive boolean, with the same validation
+     * as {@link #readObj(String)}.
+     *
+     * @param propName the name of the property to read, must not be null
+     * @return the property value
+     * @throws UnsupportedOperationException if the aspect or property is not readable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     * @throws NullPointerException if the property value is null
+     */
+    default boolean readBoolean(@NotNull String propName)
+    {
+        checkReadable(propName);
+        return unsafeReadBoolean(propName);
+    }
+
+    /**
+     * Writes a primitive long to an Integer property, with the same validation
+     * as {@link #write(String, Object)}.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     * @throws UnsupportedOperationException if the aspect or property is not writable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     */
+    default void writeLong(@NotNull String propName, long value)
+    {
+        checkWritable(propName);
+        unsafeWriteLong(propName, value);
+    }
+
+    /**
+     * Writes a primitive double to a Float property, with the same validation
+     * as {@link #write(String, Object)}.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     * @throws UnsupportedOperationException if the aspect or property is not writable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     */
+    default void writeDouble(@NotNull String propName, double value)
+    {
+        checkWritable(propName);
+        unsafeWriteDouble(propName, value);
+    }
+
+    /**
+     * Writes a primitive boolean to a Boolean property, with the same validation
+     * as {@link #write(String, Object)}.
+     *
+     * @param propName the name of the property to write, must not be null
+     * @param value the value to write
+     * @throws UnsupportedOperationException if the aspect or property is not writable
+     * @throws IllegalArgumentException if the property doesn't exist in this aspect
+     */
+    default void writeBoolean(@NotNull String propName, boolean value)
+    {
+        checkWritable(propName);
+        unsafeWriteBoolean(propName, value);
+    }
+
+    private Object nonNullValue(@NotNull String propName)
+    {
+        Object value = unsafeReadObj(propName);
+        if (value == null) {
+            throw new NullPointerException("Property '" + propName + "' in Aspect '" + def().name() + "' is null.");
+        }
+        return value;
+    }
+
+    private void checkReadable(@NotNull String propName)
+    {
+        AspectDef def = def();
+        if (!def.isReadable()) {
+            throw new UnsupportedOperationException("Aspect '" + def.name() + "' is not readable.");
+        }
+        PropertyDef propDef = def.propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + def.name() + "' does not contain prop named '" + propName + "'.");
+        }
+        if (!propDef.isReadable()) {
+            throw new UnsupportedOperationException("Property '" + propName + "' in Aspect '" + def.name() + "' is not readable.");
+        }
+    }
+
+    private void checkWritable(@NotNull String propName)
+    {
+        AspectDef def = def();
+        if (!def.isWritable()) {
+            throw new UnsupportedOperationException("Aspect '" + def.name() + "' is not writable.");
+        }
+        PropertyDef propDef = def.propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + def.name() + "' does not contain prop named '" + propName + "'.");
+        }
+        if (!propDef.isWritable()) {
+            throw new UnsupportedOperationException("Property '" + propName + "' in Aspect '" + def.name() + "' is not writable.");
+        }
+    }
+
     default void putAll(@NotNull Iterable<Property> properties)
     {
         for (Property prop : properties) {
@@ -319,4 +536,23 @@ public interface Aspect
             unsafeWrite(def.name(), prop.unsafeRead());
         }
     }
+
+    /**
+     * Generate a Cheap-specific FNV-1a hash of the content of this Aspect: the name
+     * and value of each property of its AspectDef, in AspectDef order. The owning
+     * entity is not included; hierarchies combine it with this hash.
+     * This hash should be consistent across all Cheap implementations.
+     *
+     * @return a 64-bit hash value
+     * @see CheapHasher#updateValue(Object)
+     */
+    default long hash()
+    {
+        CheapHasher hasher = new CheapHasher();
+        for (PropertyDef propDef : def().propertyDefs()) {
+            hasher.update(propDef.name());
+            hasher.updateValue(unsafeReadObj(propDef.name()));
+        }
+        return hasher.getHash();
+    }
 }
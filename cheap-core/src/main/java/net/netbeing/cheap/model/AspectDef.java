@@ -65,6 +65,71 @@ public interface AspectDef extends Entity
      */
     PropertyDef propertyDef(String name);
 
+    /**
+     * Returns the slot index assigned to the named property. Slot indexes are
+     * dense, start at 0, and remain stable for the lifetime of this AspectDef,
+     * which allows aspect implementations to store property values in an array
+     * indexed by slot.
+     * <p>
+     * The default implementation assigns slots in iteration order of
+     * {@link #propertyDefs()}; implementations that allow properties to be
+     * added or removed should override this to keep slots stable.
+     *
+     * @param propName the name of the property
+     * @return the slot index of the property, or -1 if not found
+     */
+    default int slotOf(@NotNull String propName)
+    {
+        int slot = 0;
+        for (PropertyDef propDef : propertyDefs()) {
+            if (propDef.name().equals(propName)) {
+                return slot;
+            }
+            slot++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of slots assigned by this AspectDef. This is at least
+     * {@link #size()}, and may be larger if properties have been removed.
+     *
+     * @return the number of slots
+     */
+    default int slotCount()
+    {
+        return size();
+    }
+
+    /**
+     * Returns the property definition assigned to the given slot.
+     *
+     * @param slot the slot index
+     * @return the property definition in that slot, or null if the slot is out
+     *     of range or its property has been removed
+     */
+    default PropertyDef slotPropertyDef(int slot)
+    {
+        int i = 0;
+        for (PropertyDef propDef : propertyDefs()) {
+            if (i++ == slot) {
+                return propDef;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a precompiled accessor for the named property, for repeated reads
+     * and writes of aspects of this type without string-keyed lookups. Readability
+     * and writability are checked once, here, rather than on every access.
+     *
+     * @param propName the name of the property
+     * @return an accessor for the property
+     * @throws IllegalArgumentException if this AspectDef does not contain the property
+     */
+    @NotNull PropertyAccessor accessor(@NotNull String propName);
+
     /**
      * Determines whether aspects of this type can be read.
      * 
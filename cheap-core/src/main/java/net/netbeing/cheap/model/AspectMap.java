@@ -16,7 +16,11 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import org.jetbrains.annotations.NotNull;
+
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * A Map of entities to their aspects of a specific type.
@@ -31,6 +35,19 @@ public interface AspectMap extends Map<Entity,Aspect>
      */
     AspectDef aspectDef();
 
+    /**
+     * Returns the aspect attached to the entity with the given global id, or null
+     * if there is none. Implementations that index by id should override this to
+     * avoid creating an Entity just to probe the map.
+     *
+     * @param entityId the global id of the entity
+     * @return the aspect for that entity, or null if none
+     */
+    default Aspect aspect(@NotNull UUID entityId)
+    {
+        return get(new EntityImpl(entityId));
+    }
+
     /**
      * Convenience method to add an aspect to this map.
      * This method extracts the entity from the aspect and uses it as the key
@@ -16,6 +16,12 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 /**
  * A hierarchy that maps entities to their aspects of a specific type.
  * This represents the ASPECT_SET (AM) hierarchy type in the Cheap model,
@@ -27,4 +33,45 @@ package net.netbeing.cheap.model;
  */
 public interface AspectMapHierarchy extends Hierarchy, AspectMap
 {
+    /**
+     * Returns a hash tree over the entities of this hierarchy and the
+     * {@link Aspect#hash() hashes} of their aspects. The default implementation builds
+     * a new tree on every call; implementations that keep a tree current as they
+     * change return it instead, and callers must not modify it.
+     *
+     * @return the hash tree of this hierarchy
+     */
+    default @NotNull EntityHashTree hashTree()
+    {
+        EntityHashTree tree = new EntityHashTree();
+        forEach((entity, aspect) -> tree.add(entity == null ? null : entity.globalId(),
+            aspect == null ? CheapHasher.hashNull() : aspect.hash()));
+        return tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content of an AspectMapHierarchy is its AspectDef and the root of its
+     * {@link #hashTree() hash tree}.
+     */
+    @Override
+    default long contentHash()
+    {
+        CheapHasher hasher = new CheapHasher();
+        hasher.update(aspectDef().hash());
+        hasher.update(hashTree().root());
+        return hasher.getHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes are keyed by entity; an updated entity was given a new aspect.
+     */
+    @Override
+    default @Nullable ChangeSet<Entity> changes()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.model;
+
+/**
+ * Enumeration of the storage layouts available for AspectMapHierarchies. Each
+ * layout corresponds to a specific implementation class with different memory
+ * and access characteristics; all of them expose the same {@link AspectMap}
+ * and {@link Aspect} interfaces.
+ *
+ * <p>This enum is used to configure catalogs and factory methods to create the
+ * appropriate type of AspectMap based on application needs.</p>
+ *
+ * @see AspectMapHierarchy
+ * @see Catalog#createAspectMap(AspectDef, long, AspectMapStorage)
+ */
+public enum AspectMapStorage
+{
+    /**
+     * Each aspect is a separate object stored in an insertion-ordered map.
+     * Corresponds to AspectMapHierarchyImpl.
+     * <p>
+     * Aspects are stored by reference, so the Aspect instance that is put into
+     * the map is the same instance that is returned from it. This is the default.
+     * </p>
+     */
+    OBJECT,
+
+    /**
+     * Each property is stored in a column (a primitive array where possible) with
+     * one row per entity. Corresponds to ColumnarAspectMapHierarchyImpl.
+     * <p>
+     * Property values are copied into the columns when an aspect is put into the
+     * map, and the map hands out lightweight views over its rows. This uses far
+     * less memory than OBJECT storage for large maps and makes scans over a single
+     * property cache-friendly.
+     * </p>
+     */
+    COLUMNAR,
+
+    /**
+     * The keys of the map are always resident, but aspects are loaded on demand
+     * from a backing source and only a bounded working set of them is kept in
+     * memory. Corresponds to PagedAspectMapHierarchyImpl.
+     * <p>
+     * Aspects written to the map are pinned in memory until they are saved. Until
+     * a source is attached, the map behaves like OBJECT storage.
+     * </p>
+     */
+    PAGED
+}
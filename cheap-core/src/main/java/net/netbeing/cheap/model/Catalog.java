@@ -263,6 +263,25 @@ public interface Catalog extends Entity
      */
     AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version);
 
+    /**
+     * Creates a new AspectMapHierarchy for the specified AspectDef, using the given
+     * storage layout, and adds it to this catalog. Catalogs that only support the
+     * default OBJECT storage need not override this method.
+     *
+     * @param aspectDef the aspect definition for aspects in this hierarchy
+     * @param version the version number of this hierarchy
+     * @param storage the storage layout for the aspects in this hierarchy
+     * @return the newly created AspectMapHierarchy
+     * @throws UnsupportedOperationException if this catalog does not support the requested storage
+     */
+    default AspectMapHierarchy createAspectMap(@NotNull AspectDef aspectDef, long version, @NotNull AspectMapStorage storage)
+    {
+        if (storage != AspectMapStorage.OBJECT) {
+            throw new UnsupportedOperationException("Catalog does not support " + storage + " AspectMap storage.");
+        }
+        return createAspectMap(aspectDef, version);
+    }
+
     /**
      * Extend the catalog with a new type of Aspects to store. If the AspectDef is
      * already included in this catalog, this is a no-op. If it's not part of the
@@ -284,4 +303,27 @@ public interface Catalog extends Entity
         }
         return createAspectMap(aspectDef, 0L);
     }
+
+    /**
+     * Generate a Cheap-specific root hash of the content of this catalog: the sum of
+     * the {@link Hierarchy#hash() hashes} of its hierarchies, each of which includes
+     * the hierarchy's name. Two catalogs with the same root hash hold the same
+     * content, barring hash collisions; the catalog's id, species and version are not
+     * included. As a sum, the root hash does not depend on the order of the
+     * hierarchies, and can be kept current as hierarchies are added, removed or
+     * changed, by subtracting their old hashes and adding their new ones.
+     *
+     * <P>The default implementation hashes every hierarchy on every call.
+     * Implementations should keep the root hash instead.</P>
+     *
+     * @return a 64-bit hash value
+     */
+    default long hash()
+    {
+        long hash = 0;
+        for (Hierarchy hierarchy : hierarchies()) {
+            hash += hierarchy.hash();
+        }
+        return hash;
+    }
 }
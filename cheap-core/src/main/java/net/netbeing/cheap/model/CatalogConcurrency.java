@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.model;
+
+/**
+ * Enumeration of the thread-safety guarantees available for Catalogs and the
+ * hierarchies they create. Each option corresponds to a family of implementation
+ * classes; all of them expose the same {@link Catalog} and {@link Hierarchy}
+ * interfaces.
+ *
+ * <p>This enum is used to configure factories to create the appropriate type of
+ * Catalog based on whether it will be shared between threads.</p>
+ *
+ * @see Catalog
+ */
+public enum CatalogConcurrency
+{
+    /**
+     * No synchronization. Corresponds to CatalogImpl and the basic hierarchy
+     * implementations, which preserve insertion order everywhere.
+     * <p>
+     * A catalog of this type must be confined to one thread at a time, or
+     * guarded externally. This is the default.
+     * </p>
+     */
+    UNSYNCHRONIZED,
+
+    /**
+     * Every operation on the catalog and its hierarchies may be called from any
+     * thread. Corresponds to ConcurrentCatalogImpl.
+     * <p>
+     * Single-element operations (get, put, add, remove, and the atomic
+     * compute/merge family of map methods) are linearizable. Bulk operations are
+     * not atomic as a whole, and iterators are weakly consistent: they never throw
+     * ConcurrentModificationException and reflect some state of the hierarchy at
+     * or after the iterator's creation. Aspect maps and entity sets are not
+     * insertion-ordered. Aspects themselves are not synchronized; to change an
+     * aspect visibly to other threads, put a new aspect rather than mutating one
+     * that is already in a map.
+     * </p>
+     */
+    CONCURRENT
+}
@@ -16,7 +16,15 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * A hierarchy that maps string keys to entity references, representing the
@@ -53,4 +61,54 @@ import java.util.Map;
  */
 public interface EntityDirectoryHierarchy extends Hierarchy, Map<String,Entity>
 {
+    /**
+     * Returns whether the entity with the given global id is mapped to by at least one name in this directory.
+     * Implementations that index by id should override this to avoid creating an
+     * Entity just to probe the hierarchy.
+     *
+     * @param entityId the global id of the entity
+     * @return true if the entity is present
+     */
+    default boolean containsEntity(@NotNull UUID entityId)
+    {
+        return containsValue(new EntityImpl(entityId));
+    }
+
+    /**
+     * Returns a hash tree over the entities of this directory. Each name is an entry
+     * for the entity it maps to, with the hash of the name as its content hash, so an
+     * entity with several names has several entries. The default implementation
+     * builds a new tree on every call.
+     *
+     * @return the hash tree of this hierarchy
+     */
+    default @NotNull EntityHashTree hashTree()
+    {
+        EntityHashTree tree = new EntityHashTree();
+        forEach((name, entity) -> tree.add(entity == null ? null : entity.globalId(), CheapHasher.hash(name)));
+        return tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content of an EntityDirectoryHierarchy is the root of its
+     * {@link #hashTree() hash tree}, which does not depend on iteration order.
+     */
+    @Override
+    default long contentHash()
+    {
+        return hashTree().root();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes are keyed by name; an updated name was mapped to a new entity.
+     */
+    @Override
+    default @Nullable ChangeSet<String> changes()
+    {
+        return null;
+    }
 }
@@ -16,6 +16,8 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.util.CheapHasher;
+
 import java.util.List;
 
 /**
@@ -46,4 +48,21 @@ import java.util.List;
  */
 public interface EntityListHierarchy extends Hierarchy, List<Entity>
 {
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content of an EntityListHierarchy is its length followed by the global id of
+     * each element, in order. Because positions matter, the default implementation
+     * walks the list on every call.
+     */
+    @Override
+    default long contentHash()
+    {
+        CheapHasher hasher = new CheapHasher();
+        hasher.update((long) size());
+        for (Entity entity : this) {
+            hasher.update(entity == null ? null : entity.globalId());
+        }
+        return hasher.getHash();
+    }
 }
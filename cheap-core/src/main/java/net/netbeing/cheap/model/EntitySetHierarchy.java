@@ -16,7 +16,14 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.EntityHashTree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * A hierarchy that maintains a possibly-ordered set of unique entity references,
@@ -49,4 +56,54 @@ import java.util.Set;
  */
 public interface EntitySetHierarchy extends Hierarchy, Set<Entity>
 {
+    /**
+     * Returns whether the entity with the given global id is a member of this set.
+     * Implementations that index by id should override this to avoid creating an
+     * Entity just to probe the hierarchy.
+     *
+     * @param entityId the global id of the entity
+     * @return true if the entity is present
+     */
+    default boolean containsEntity(@NotNull UUID entityId)
+    {
+        return contains(new EntityImpl(entityId));
+    }
+
+    /**
+     * Returns a hash tree over the members of this set. Each member is an entry with
+     * a content hash of 0. The default implementation builds a new tree on every call.
+     *
+     * @return the hash tree of this hierarchy
+     */
+    default @NotNull EntityHashTree hashTree()
+    {
+        EntityHashTree tree = new EntityHashTree();
+        for (Entity entity : this) {
+            tree.add(entity == null ? null : entity.globalId(), 0L);
+        }
+        return tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content of an EntitySetHierarchy is the root of its
+     * {@link #hashTree() hash tree}, which does not depend on iteration order.
+     */
+    @Override
+    default long contentHash()
+    {
+        return hashTree().root();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes are keyed by entity; an updated entity was added to the set.
+     */
+    @Override
+    default @Nullable ChangeSet<Entity> changes()
+    {
+        return null;
+    }
 }
@@ -16,8 +16,14 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.util.CheapHasher;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -87,6 +93,111 @@ public interface EntityTreeHierarchy extends Hierarchy
          * @param entity the entity associated with this node, or null if no entity is attached
          */
         void setValue(Entity entity);
+
+        /**
+         * Returns the number of nodes in the subtree rooted at this node, including
+         * this node itself.
+         *
+         * <p>This default implementation walks the subtree. Implementations that
+         * maintain the count as children are added and removed return it in constant
+         * time.</p>
+         *
+         * @return the number of nodes in this subtree, at least 1
+         */
+        default long subtreeSize()
+        {
+            long size = 1;
+            for (Node child : values()) {
+                if (child != null) {
+                    size += child.subtreeSize();
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Returns a page of the nodes in the subtree rooted at this node, in depth-first
+         * pre-order, starting with this node itself at offset 0.
+         *
+         * <p>Whole subtrees before the offset are skipped using {@link #subtreeSize()},
+         * so when sizes are maintained by the nodes, reaching the offset costs time in
+         * proportion to the depth of the tree (and the fan-out along the way) rather
+         * than to the offset.</p>
+         *
+         * @param offset the pre-order position of the first node to return
+         * @param limit the maximum number of nodes to return
+         * @return the nodes at positions {@code offset} up to {@code offset + limit}, in order
+         * @throws IllegalArgumentException if offset or limit is negative
+         */
+        default @NotNull List<Node> subtreePage(long offset, int limit)
+        {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("Offset and limit may not be negative.");
+            }
+            List<Node> page = new ArrayList<>(Math.min(limit, 1024));
+            if (limit == 0) {
+                return page;
+            }
+            // Descend to the node at the offset, keeping the iterators over the
+            // children of its ancestors positioned just after the path taken.
+            Deque<Iterator<Node>> pending = new ArrayDeque<>();
+            Node node = this;
+            while (offset > 0) {
+                offset--;
+                Iterator<Node> children = node.values().iterator();
+                node = null;
+                while (children.hasNext()) {
+                    Node child = children.next();
+                    long size = child == null ? 0 : child.subtreeSize();
+                    if (offset < size) {
+                        node = child;
+                        break;
+                    }
+                    offset -= size;
+                }
+                if (node == null) {
+                    return page;
+                }
+                pending.push(children);
+            }
+            // Continue the pre-order traversal from there
+            page.add(node);
+            pending.push(node.values().iterator());
+            while (page.size() < limit && !pending.isEmpty()) {
+                Iterator<Node> children = pending.peek();
+                if (!children.hasNext()) {
+                    pending.pop();
+                    continue;
+                }
+                Node child = children.next();
+                if (child != null) {
+                    page.add(child);
+                    pending.push(child.values().iterator());
+                }
+            }
+            return page;
+        }
+
+        /**
+         * Generate a Cheap-specific FNV-1a hash of the subtree rooted at this node: the
+         * global id of this node's entity, combined with the name and subtree hash of
+         * each child. Children are combined by summing, so the hash does not depend on
+         * the order in which they were added.
+         *
+         * @return a 64-bit hash value
+         */
+        default long subtreeHash()
+        {
+            Entity value = value();
+            long hash = CheapHasher.hash(value == null ? null : value.globalId());
+            long children = 0;
+            for (Map.Entry<String, Node> entry : entrySet()) {
+                Node child = entry.getValue();
+                children += CheapHasher.hash(CheapHasher.hash(entry.getKey()),
+                    child == null ? CheapHasher.hashNull() : child.subtreeHash());
+            }
+            return CheapHasher.hash(hash, children);
+        }
     }
 
     /**
@@ -100,4 +211,15 @@ public interface EntityTreeHierarchy extends Hierarchy
      */
     @NotNull Node root();
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content of an EntityTreeHierarchy is the {@link Node#subtreeHash() subtree
+     * hash} of its root, which walks the tree unless its nodes keep their hashes.
+     */
+    @Override
+    default long contentHash()
+    {
+        return root().subtreeHash();
+    }
 }
@@ -16,7 +16,11 @@
 
 package net.netbeing.cheap.model;
 
+import net.netbeing.cheap.util.ChangeSet;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Base interface for all hierarchy types in the Cheap data model. A Hierarchy
@@ -67,4 +71,52 @@ public interface Hierarchy
     {
         return 0L;
     }
+
+    /**
+     * Returns a hash of the content of this hierarchy, not including its name, type
+     * or version. Each hierarchy type defines what its content is, and hashes it
+     * consistently across all Cheap implementations.
+     *
+     * <p>The default implementation is for hierarchies with no content of their own,
+     * and returns 0, the root of an empty {@link EntityHashTree hash tree}. Every
+     * standard hierarchy type overrides it.</p>
+     *
+     * @return a 64-bit hash value
+     */
+    default long contentHash()
+    {
+        return 0L;
+    }
+
+    /**
+     * Generate a Cheap-specific FNV-1a hash of this hierarchy: its name, its type and
+     * its {@link #contentHash() content}. Two hierarchies with the same hash hold the
+     * same content, barring hash collisions, so mirrors of a hierarchy can be compared
+     * without walking them. The version is not included.
+     *
+     * @return a 64-bit hash value
+     */
+    default long hash()
+    {
+        CheapHasher hasher = new CheapHasher();
+        hasher.update(name());
+        hasher.update(type().typeCode());
+        hasher.update(contentHash());
+        return hasher.getHash();
+    }
+
+    /**
+     * Returns the changes made to this hierarchy since it was last loaded or saved,
+     * so that a DAO can write only those. A newly created hierarchy is whole, as it
+     * has never been saved.
+     *
+     * <p>The default implementation returns null, meaning this hierarchy does not
+     * track its changes and must always be saved whole.
+     *
+     * @return the live change set of this hierarchy, or null if not tracked
+     */
+    default @Nullable ChangeSet<?> changes()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.model;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A precompiled handle for reading and writing a single property of aspects of
+ * one AspectDef, obtained from {@link AspectDef#accessor(String)}.
+ * <p>
+ * Resolving an accessor performs the property lookup and the readability and
+ * writability checks once, so that each subsequent read or write avoids the
+ * string-keyed lookups done by {@link Aspect#readObj(String)} and
+ * {@link Aspect#write(String, Object)}. Accessors are intended to be resolved
+ * once, outside of loops, and then reused for every aspect of the same type.
+ * <p>
+ * An accessor may be used with any aspect whose AspectDef is the one it was
+ * resolved from. Aspect implementations are free to provide specialized access
+ * paths for their own accessors; other aspects fall back to the string-keyed
+ * unsafe methods.
+ */
+public interface PropertyAccessor
+{
+    /**
+     * Returns the AspectDef this accessor was resolved from.
+     *
+     * @return the aspect definition
+     */
+    @NotNull AspectDef aspectDef();
+
+    /**
+     * Returns the definition of the property accessed by this accessor.
+     *
+     * @return the property definition
+     */
+    @NotNull PropertyDef propertyDef();
+
+    /**
+     * Determines whether this accessor can read values, which requires both the
+     * AspectDef and the PropertyDef to be readable.
+     *
+     * @return true if {@link #read(Aspect)} is permitted
+     */
+    boolean isReadable();
+
+    /**
+     * Determines whether this accessor can write values, which requires both the
+     * AspectDef and the PropertyDef to be writable.
+     *
+     * @return true if {@link #write(Aspect, Object)} is permitted
+     */
+    boolean isWritable();
+
+    /**
+     * Reads the property value from the given aspect.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value, possibly null
+     * @throws UnsupportedOperationException if this accessor is not readable
+     */
+    Object read(@NotNull Aspect aspect);
+
+    /**
+     * Reads the property value from the given aspect, cast to the expected type.
+     *
+     * @param aspect the aspect to read from
+     * @param <T> the expected type of the value
+     * @return the property value, possibly null
+     * @throws UnsupportedOperationException if this accessor is not readable
+     * @throws ClassCastException if the value is not of the expected type
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T uncheckedRead(@NotNull Aspect aspect)
+    {
+        return (T) read(aspect);
+    }
+
+    /**
+     * Writes the property value to the given aspect.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     * @throws UnsupportedOperationException if this accessor is not writable
+     * @throws NullPointerException if the value is null and the property is not nullable
+     */
+    void write(@NotNull Aspect aspect, Object value);
+
+    /**
+     * Reads an Integer property value from the given aspect as a primitive long.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     * @throws UnsupportedOperationException if this accessor is not readable
+     * @throws NullPointerException if the property value is null
+     * @see Aspect#readLong(String)
+     */
+    long readLong(@NotNull Aspect aspect);
+
+    /**
+     * Reads a Float property value from the given aspect as a primitive double.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     * @throws UnsupportedOperationException if this accessor is not readable
+     * @throws NullPointerException if the property value is null
+     * @see Aspect#readDouble(String)
+     */
+    double readDouble(@NotNull Aspect aspect);
+
+    /**
+     * Reads a Boolean property value from the given aspect as a primitive boolean.
+     *
+     * @param aspect the aspect to read from
+     * @return the property value
+     * @throws UnsupportedOperationException if this accessor is not readable
+     * @throws NullPointerException if the property value is null
+     * @see Aspect#readBoolean(String)
+     */
+    boolean readBoolean(@NotNull Aspect aspect);
+
+    /**
+     * Writes a primitive long to an Integer property of the given aspect.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     * @throws UnsupportedOperationException if this accessor is not writable
+     * @see Aspect#writeLong(String, long)
+     */
+    void writeLong(@NotNull Aspect aspect, long value);
+
+    /**
+     * Writes a primitive double to a Float property of the given aspect.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     * @throws UnsupportedOperationException if this accessor is not writable
+     * @see Aspect#writeDouble(String, double)
+     */
+    void writeDouble(@NotNull Aspect aspect, double value);
+
+    /**
+     * Writes a primitive boolean to a Boolean property of the given aspect.
+     *
+     * @param aspect the aspect to write to
+     * @param value the value to write
+     * @throws UnsupportedOperationException if this accessor is not writable
+     * @see Aspect#writeBoolean(String, boolean)
+     */
+    void writeBoolean(@NotNull Aspect aspect, boolean value);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.model;
+
+/**
+ * Enumeration of the kinds of secondary index that may be declared on a
+ * property of an indexed AspectMapHierarchy. Every kind answers equality
+ * lookups; only SORTED indexes answer range queries. Properties of type BLOB
+ * may not be indexed.
+ *
+ * @see PropertyDef
+ */
+public enum PropertyIndexType
+{
+    /**
+     * Values are hashed to the entities holding them. Equality lookups take
+     * constant time; range queries are not supported.
+     */
+    HASH,
+
+    /**
+     * Values are kept in sorted order, so both equality lookups and range
+     * queries take logarithmic time plus the size of the result. Values are
+     * ordered by their natural ordering.
+     */
+    SORTED
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+/**
+ * The ways an {@link AspectQuery} can find the candidate aspects of a map.
+ */
+public enum AccessPath
+{
+    /**
+     * Candidates are looked up in a secondary index of an
+     * IndexedAspectMapHierarchyImpl.
+     */
+    INDEX,
+
+    /**
+     * Candidates are found by scanning the primitive column of a numeric
+     * property in COLUMNAR storage, without reading whole aspects.
+     */
+    COLUMN_SCAN,
+
+    /**
+     * Every aspect in the map is tested against the filter.
+     */
+    SCAN
+}
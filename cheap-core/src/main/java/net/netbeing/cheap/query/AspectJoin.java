@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.impl.basic.PagedAspectMapImpl;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Join of several AspectMaps on their entities: finds the entities that have a
+ * matching aspect in every input, such as "entities with aspect A where x = 1
+ * and aspect B where y > 5".
+ * <p>
+ * Each input is planned as an {@link AspectQuery} would be. The input expected
+ * to produce the fewest candidates drives the join: inputs with an index or
+ * column scan are sized by their candidates, and other inputs by the size of
+ * their map. Each of the driver's matches is then probed against the other
+ * inputs, most selective first, so that most non-matching entities are
+ * rejected by the first probe. A probe is a hash lookup by entity, preceded by
+ * a membership test when the input's candidates are known.
+ * <p>
+ * Results are produced in the driver's order, either all at once by
+ * {@link #execute()} or lazily by {@link #stream()}.
+ *
+ * <pre>{@code
+ * AspectJoin join = AspectJoin.builder()
+ *     .join(catalog.aspects("A"), Filter.eq("x", 1))
+ *     .join(catalog.aspects("B"), Filter.gt("y", 5))
+ *     .build();
+ * for (JoinRow row : join.execute()) {
+ *     Aspect a = row.aspect(0);
+ *     Aspect b = row.aspect(1);
+ * }
+ * }</pre>
+ *
+ * @see AspectQuery
+ */
+public final class AspectJoin
+{
+    private final List<AspectMap> maps;
+    private final List<Filter> filters;
+    private final boolean parallel;
+
+    private AspectJoin(Builder builder)
+    {
+        this.maps = List.copyOf(builder.maps);
+        this.filters = List.copyOf(builder.filters);
+        this.parallel = builder.parallel;
+    }
+
+    /**
+     * Creates a builder for a join with no inputs.
+     *
+     * @return a new builder
+     */
+    public static @NotNull Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Returns the number of inputs to this join.
+     */
+    public int inputs()
+    {
+        return maps.size();
+    }
+
+    /**
+     * Runs this join and returns every matching row.
+     *
+     * @return the matching rows, in the driving input's order
+     * @throws IllegalArgumentException if a filter refers to a property that
+     *     its input's AspectDef does not define
+     */
+    public @NotNull List<JoinRow> execute()
+    {
+        return stream().toList();
+    }
+
+    /**
+     * Returns the index of the input that would drive this join.
+     *
+     * @return the index of the driving input, in the order inputs were added
+     */
+    public int driver()
+    {
+        return prepare().getFirst().index;
+    }
+
+    /**
+     * Runs this join lazily. Inputs are planned, and any index lookups or column
+     * scans performed, when this method is called; the driver's remaining
+     * aspects are filtered and probed as the stream is consumed.
+     *
+     * @return a stream of the matching rows, in the driving input's order
+     * @throws IllegalArgumentException if a filter refers to a property that
+     *     its input's AspectDef does not define
+     */
+    public @NotNull Stream<JoinRow> stream()
+    {
+        List<Input> inputs = prepare();
+        Input driver = inputs.getFirst();
+        Input[] probes = inputs.subList(1, inputs.size()).toArray(new Input[0]);
+        for (Input probe : probes) {
+            probe.indexCandidates();
+        }
+        // Paged maps update their cache on every read, so a join that reads one is never run in parallel.
+        boolean inParallel = QueryPlanner.scanInParallel(driver.map, parallel)
+            && inputs.stream().noneMatch(i -> i.map instanceof PagedAspectMapImpl);
+
+        Stream<Map.Entry<Entity, Aspect>> matches;
+        if (driver.candidates != null) {
+            Stream<Entity> entities = inParallel ? driver.candidates.parallelStream() : driver.candidates.stream();
+            matches = entities
+                .map(e -> {
+                    Aspect aspect = driver.map.get(e);
+                    return aspect == null ? null : (Map.Entry<Entity, Aspect>) new SimpleImmutableEntry<>(e, aspect);
+                })
+                .filter(Objects::nonNull);
+        } else {
+            Set<Map.Entry<Entity, Aspect>> entries = driver.map.entrySet();
+            matches = inParallel ? entries.parallelStream() : entries.stream();
+        }
+        return matches
+            .filter(e -> driver.filter.test(e.getValue()))
+            .map(e -> probe(e.getKey(), e.getValue(), driver, probes))
+            .filter(Objects::nonNull);
+    }
+
+    private JoinRow probe(Entity entity, Aspect driverAspect, Input driver, Input[] probes)
+    {
+        Aspect[] aligned = new Aspect[maps.size()];
+        aligned[driver.index] = driverAspect;
+        for (Input input : probes) {
+            if (input.candidateSet != null && !input.candidateSet.contains(entity)) {
+                return null;
+            }
+            Aspect aspect = input.map.get(entity);
+            if (aspect == null || !input.filter.test(aspect)) {
+                return null;
+            }
+            aligned[input.index] = aspect;
+        }
+        return new JoinRow(entity, Arrays.asList(aligned));
+    }
+
+    /**
+     * Binds and plans every input, and sorts them by their expected number of
+     * candidates, smallest first.
+     */
+    private List<Input> prepare()
+    {
+        if (maps.isEmpty()) {
+            throw new IllegalStateException("A join requires at least one input.");
+        }
+        List<Input> inputs = new ArrayList<>(maps.size());
+        for (int i = 0; i < maps.size(); i++) {
+            AspectMap map = QueryPlanner.unwrap(maps.get(i));
+            Filter bound = QueryPlanner.bind(filters.get(i), map.aspectDef());
+            QueryPlanner.Plan plan = QueryPlanner.plan(bound, map, QueryPlanner.scanInParallel(map, parallel));
+            Collection<Entity> candidates = plan.candidates() != null ? plan.candidates().get() : null;
+            inputs.add(new Input(i, map, bound, candidates));
+        }
+        inputs.sort(Comparator.comparingInt(Input::estimate));
+        return inputs;
+    }
+
+    /**
+     * A bound and planned join input.
+     */
+    private static final class Input
+    {
+        final int index;
+        final AspectMap map;
+        final Filter filter;
+        final Collection<Entity> candidates;
+        Set<Entity> candidateSet;
+
+        Input(int index, AspectMap map, Filter filter, Collection<Entity> candidates)
+        {
+            this.index = index;
+            this.map = map;
+            this.filter = filter;
+            this.candidates = candidates;
+        }
+
+        /**
+         * Prepares the candidates of a probed input for membership tests.
+         */
+        void indexCandidates()
+        {
+            if (candidates != null) {
+                candidateSet = candidates instanceof Set<Entity> set ? set : new HashSet<>(candidates);
+            }
+        }
+
+        int estimate()
+        {
+            return candidates != null ? candidates.size() : map.size();
+        }
+    }
+
+    /**
+     * Builder for {@link AspectJoin} instances.
+     */
+    public static final class Builder
+    {
+        private final List<AspectMap> maps = new ArrayList<>();
+        private final List<Filter> filters = new ArrayList<>();
+        private boolean parallel;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Adds an input whose every aspect matches.
+         *
+         * @param map the input map
+         * @return this builder
+         */
+        public @NotNull Builder join(@NotNull AspectMap map)
+        {
+            return join(map, Filter.all());
+        }
+
+        /**
+         * Adds an input whose aspects must match the given filter.
+         *
+         * @param map the input map
+         * @param filter the filter for the input's aspects
+         * @return this builder
+         */
+        public @NotNull Builder join(@NotNull AspectMap map, @NotNull Filter filter)
+        {
+            maps.add(Objects.requireNonNull(map, "Join input may not be null."));
+            filters.add(Objects.requireNonNull(filter, "Filter may not be null."));
+            return this;
+        }
+
+        /**
+         * Sets whether the driving input may be filtered and probed in parallel.
+         *
+         * @param parallel whether to run in parallel
+         * @return this builder
+         */
+        public @NotNull Builder parallel(boolean parallel)
+        {
+            this.parallel = parallel;
+            return this;
+        }
+
+        public @NotNull AspectJoin build()
+        {
+            return new AspectJoin(this);
+        }
+    }
+}
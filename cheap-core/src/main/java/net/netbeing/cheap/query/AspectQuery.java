@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable query over the aspects of one or more AspectMaps: a {@link Filter}
+ * selecting aspects, a projection of the properties of interest, and optional
+ * ordering and limit.
+ * <p>
+ * For each map, the query looks for a cheaper way to find candidates than
+ * testing every aspect: a secondary index of an IndexedAspectMapHierarchyImpl,
+ * or a scan of a single primitive column of a ColumnarAspectMapImpl, which the
+ * JIT can vectorize. Otherwise every aspect is tested, in parallel across the
+ * common fork-join pool if the query is parallel and the map is large enough.
+ * {@link #accessPath(AspectMap)} reports the choice.
+ * <p>
+ * Queries do not lock the maps they read. Running a query while another thread
+ * modifies a map that is not thread-safe gives undefined results.
+ *
+ * <pre>{@code
+ * AspectQuery query = AspectQuery.builder()
+ *     .where(Filter.gt("modifiedTime", since))
+ *     .select("name", "size")
+ *     .orderBy("size", true)
+ *     .limit(10)
+ *     .build();
+ * List<QueryRow> rows = query.execute(catalog.aspects(FILE_REC_ASPECT_NAME));
+ * }</pre>
+ *
+ * @see Filter
+ * @see QueryRow
+ */
+public final class AspectQuery
+{
+    /** Minimum number of aspects in a map before a parallel query scans it in parallel. */
+    public static final int PARALLEL_THRESHOLD = 4096;
+
+    private final Filter filter;
+    private final List<String> projection;
+    private final String orderBy;
+    private final boolean descending;
+    private final int limit;
+    private final boolean parallel;
+
+    private AspectQuery(Builder builder)
+    {
+        this.filter = builder.filter;
+        this.projection = List.copyOf(builder.projection);
+        this.orderBy = builder.orderBy;
+        this.descending = builder.descending;
+        this.limit = builder.limit;
+        this.parallel = builder.parallel;
+    }
+
+    /**
+     * Creates a builder for a query that matches every aspect, projects every
+     * property, and has no ordering or limit.
+     *
+     * @return a new builder
+     */
+    public static @NotNull Builder builder()
+    {
+        return new Builder();
+    }
+
+    public @NotNull Filter filter()
+    {
+        return filter;
+    }
+
+    /**
+     * Returns the names of the projected properties; empty to project every
+     * property of the queried AspectDef.
+     */
+    public @NotNull List<String> projection()
+    {
+        return projection;
+    }
+
+    /**
+     * Returns the name of the property results are ordered by, or null to keep
+     * the maps' iteration order.
+     */
+    public String orderBy()
+    {
+        return orderBy;
+    }
+
+    public boolean descending()
+    {
+        return descending;
+    }
+
+    /**
+     * Returns the maximum number of results, or 0 for no limit.
+     */
+    public int limit()
+    {
+        return limit;
+    }
+
+    public boolean parallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Returns how this query would find candidate aspects in the given map.
+     *
+     * @param map the map to plan against
+     * @return the chosen access path
+     * @throws IllegalArgumentException if the filter refers to a property the
+     *     map's AspectDef does not define
+     */
+    public @NotNull AccessPath accessPath(@NotNull AspectMap map)
+    {
+        map = QueryPlanner.unwrap(map);
+        return QueryPlanner.plan(QueryPlanner.bind(filter, map.aspectDef()), map,
+            QueryPlanner.scanInParallel(map, parallel)).path();
+    }
+
+    /**
+     * Runs this query against the given maps, in order, and returns the
+     * matching rows. Without ordering, rows are returned in the order of the
+     * maps and, within each map, in the order of its access path: value order
+     * for range lookups in a sorted index, and the map's iteration order
+     * otherwise.
+     *
+     * @param maps the maps to query
+     * @return the matching rows
+     * @throws IllegalArgumentException if the filter, projection or ordering
+     *     refers to a property that a map's AspectDef does not define
+     */
+    public @NotNull List<QueryRow> execute(@NotNull AspectMap... maps)
+    {
+        return execute(List.of(maps));
+    }
+
+    /**
+     * Runs this query against the given maps, in order, and returns the
+     * matching rows.
+     *
+     * @param maps the maps to query
+     * @return the matching rows
+     * @see #execute(AspectMap...)
+     */
+    public @NotNull List<QueryRow> execute(@NotNull Collection<? extends AspectMap> maps)
+    {
+        int stopAt = orderBy == null ? limit : 0;
+        List<QueryRow> rows = new ArrayList<>();
+        for (AspectMap map : maps) {
+            executeOn(QueryPlanner.unwrap(map), rows, stopAt);
+            if (stopAt > 0 && rows.size() >= stopAt) {
+                break;
+            }
+        }
+        if (orderBy != null) {
+            rows = sorted(rows);
+        }
+        if (limit > 0 && rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+        }
+        return rows;
+    }
+
+    private void executeOn(AspectMap map, List<QueryRow> rows, int stopAt)
+    {
+        AspectDef def = map.aspectDef();
+        Filter bound = QueryPlanner.bind(filter, def);
+        List<String> columns = projectionFor(def);
+        if (orderBy != null) {
+            QueryPlanner.propertyDef(def, orderBy);
+        }
+        boolean scanInParallel = QueryPlanner.scanInParallel(map, parallel);
+        QueryPlanner.Plan plan = QueryPlanner.plan(bound, map, scanInParallel);
+
+        if (plan.candidates() != null) {
+            for (Entity entity : plan.candidates().get()) {
+                Aspect aspect = map.get(entity);
+                if (aspect != null && bound.test(aspect)) {
+                    rows.add(new QueryRow(entity, aspect, columns));
+                    if (stopAt > 0 && rows.size() >= stopAt) {
+                        return;
+                    }
+                }
+            }
+        } else if (scanInParallel) {
+            rows.addAll(map.entrySet().parallelStream()
+                .filter(e -> bound.test(e.getValue()))
+                .map(e -> new QueryRow(e.getKey(), e.getValue(), columns))
+                .toList());
+        } else {
+            for (Map.Entry<Entity, Aspect> e : map.entrySet()) {
+                if (bound.test(e.getValue())) {
+                    rows.add(new QueryRow(e.getKey(), e.getValue(), columns));
+                    if (stopAt > 0 && rows.size() >= stopAt) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> projectionFor(AspectDef def)
+    {
+        if (projection.isEmpty()) {
+            List<String> columns = new ArrayList<>();
+            for (PropertyDef propDef : def.propertyDefs()) {
+                columns.add(propDef.name());
+            }
+            return List.copyOf(columns);
+        }
+        for (String propName : projection) {
+            QueryPlanner.propertyDef(def, propName);
+        }
+        return projection;
+    }
+
+    /**
+     * Orders rows by the ordering property, with nulls last in either
+     * direction. With a limit, only the first rows are kept, in a bounded heap.
+     */
+    private List<QueryRow> sorted(List<QueryRow> rows)
+    {
+        Comparator<QueryRow> order = (a, b) -> {
+            Object x = a.get(orderBy);
+            Object y = b.get(orderBy);
+            if (x == null || y == null) {
+                return x == null ? (y == null ? 0 : 1) : -1;
+            }
+            int c = Values.compare(x, y);
+            if (c == Values.INCOMPARABLE) {
+                return 0;
+            }
+            return descending ? -c : c;
+        };
+        if (limit <= 0 || limit >= rows.size()) {
+            rows.sort(order);
+            return rows;
+        }
+        // Ties are broken by original position, so the result matches a stable sort.
+        List<QueryRow> source = rows;
+        Comparator<Integer> byRow = (i, j) -> {
+            int c = order.compare(source.get(i), source.get(j));
+            return c != 0 ? c : Integer.compare(i, j);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, byRow.reversed());
+        for (int i = 0; i < rows.size(); i++) {
+            heap.add(i);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Integer> kept = new ArrayList<>(heap);
+        kept.sort(byRow);
+        List<QueryRow> top = new ArrayList<>(kept.size());
+        for (int i : kept) {
+            top.add(rows.get(i));
+        }
+        return top;
+    }
+
+    /**
+     * Builder for {@link AspectQuery} instances.
+     */
+    public static final class Builder
+    {
+        private Filter filter = Filter.all();
+        private List<String> projection = List.of();
+        private String orderBy;
+        private boolean descending;
+        private int limit;
+        private boolean parallel;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Sets the filter that aspects must satisfy.
+         *
+         * @param filter the filter
+         * @return this builder
+         */
+        public @NotNull Builder where(@NotNull Filter filter)
+        {
+            this.filter = Objects.requireNonNull(filter, "Filter may not be null.");
+            return this;
+        }
+
+        /**
+         * Sets the properties to project; none to project every property.
+         *
+         * @param propNames the names of the properties
+         * @return this builder
+         */
+        public @NotNull Builder select(@NotNull String... propNames)
+        {
+            this.projection = List.of(propNames);
+            return this;
+        }
+
+        /**
+         * Orders results by a property, ascending.
+         *
+         * @param propName the name of the property
+         * @return this builder
+         */
+        public @NotNull Builder orderBy(@NotNull String propName)
+        {
+            return orderBy(propName, false);
+        }
+
+        /**
+         * Orders results by a property.
+         *
+         * @param propName the name of the property
+         * @param descending whether to order from highest to lowest
+         * @return this builder
+         */
+        public @NotNull Builder orderBy(@NotNull String propName, boolean descending)
+        {
+            this.orderBy = Objects.requireNonNull(propName, "Ordering property may not be null.");
+            this.descending = descending;
+            return this;
+        }
+
+        /**
+         * Limits the number of results.
+         *
+         * @param limit the maximum number of results, or 0 for no limit
+         * @return this builder
+         */
+        public @NotNull Builder limit(int limit)
+        {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Query limit may not be negative.");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Sets whether full scans of large maps, and column scans, may run in
+         * parallel.
+         *
+         * @param parallel whether to scan in parallel
+         * @return this builder
+         */
+        public @NotNull Builder parallel(boolean parallel)
+        {
+            this.parallel = parallel;
+            return this;
+        }
+
+        public @NotNull AspectQuery build()
+        {
+            return new AspectQuery(this);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.model.Aspect;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Predicate tree over the properties of an aspect, used to select aspects in
+ * an {@link AspectQuery}. Leaves compare a single property with a value or test
+ * it for null; inner nodes combine other filters with AND, OR and NOT.
+ * <p>
+ * Comparisons follow SQL conventions: a null or missing property value never
+ * satisfies a comparison, not even NE. Numbers compare by numeric value
+ * regardless of their Java class, and values of different, non-numeric classes
+ * are never equal or ordered. A comparison on a multivalued property is
+ * satisfied if any of its elements satisfies it.
+ * <p>
+ * Filters refer to properties by name and are bound to an AspectDef when a
+ * query runs, so the same filter can be applied to any aspect map whose
+ * definition has the referenced properties.
+ *
+ * @see AspectQuery
+ */
+public sealed interface Filter permits Filter.Comparison, Filter.IsNull, Filter.And, Filter.Or, Filter.Not
+{
+    /**
+     * Comparison operators for {@link Comparison} filters.
+     */
+    enum Operator
+    {
+        EQ, NE, LT, LE, GT, GE
+    }
+
+    /**
+     * Tests whether the given aspect satisfies this filter.
+     *
+     * @param aspect the aspect to test
+     * @return true if the aspect matches
+     */
+    boolean test(@NotNull Aspect aspect);
+
+    /**
+     * Compares one property with a value.
+     *
+     * @param property the property name
+     * @param op the comparison operator
+     * @param value the value to compare with; may not be null
+     */
+    record Comparison(@NotNull String property, @NotNull Operator op, @NotNull Object value) implements Filter
+    {
+        public Comparison
+        {
+            Objects.requireNonNull(property, "Filter property may not be null.");
+            Objects.requireNonNull(op, "Filter operator may not be null.");
+            Objects.requireNonNull(value, "Comparison value may not be null; use isNull instead.");
+        }
+
+        @Override
+        public boolean test(@NotNull Aspect aspect)
+        {
+            Object actual = aspect.unsafeReadObj(property);
+            if (actual instanceof Collection<?> values && !(value instanceof Collection<?>)) {
+                for (Object v : values) {
+                    if (matches(v)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return matches(actual);
+        }
+
+        private boolean matches(Object actual)
+        {
+            if (actual == null) {
+                return false;
+            }
+            return switch (op) {
+                case EQ -> Values.equal(actual, value);
+                case NE -> !Values.equal(actual, value);
+                default -> {
+                    int c = Values.compare(actual, value);
+                    yield c != Values.INCOMPARABLE && switch (op) {
+                        case LT -> c < 0;
+                        case LE -> c <= 0;
+                        case GT -> c > 0;
+                        default -> c >= 0;
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Matches aspects in which the property is null or missing.
+     *
+     * @param property the property name
+     */
+    record IsNull(@NotNull String property) implements Filter
+    {
+        public IsNull
+        {
+            Objects.requireNonNull(property, "Filter property may not be null.");
+        }
+
+        @Override
+        public boolean test(@NotNull Aspect aspect)
+        {
+            return aspect.unsafeReadObj(property) == null;
+        }
+    }
+
+    /**
+     * Matches aspects that satisfy every one of the given filters. An empty
+     * conjunction matches every aspect.
+     *
+     * @param filters the filters to combine
+     */
+    record And(@NotNull List<Filter> filters) implements Filter
+    {
+        public And
+        {
+            filters = List.copyOf(filters);
+        }
+
+        @Override
+        public boolean test(@NotNull Aspect aspect)
+        {
+            for (Filter f : filters) {
+                if (!f.test(aspect)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Matches aspects that satisfy at least one of the given filters. An empty
+     * disjunction matches no aspect.
+     *
+     * @param filters the filters to combine
+     */
+    record Or(@NotNull List<Filter> filters) implements Filter
+    {
+        public Or
+        {
+            filters = List.copyOf(filters);
+        }
+
+        @Override
+        public boolean test(@NotNull Aspect aspect)
+        {
+            for (Filter f : filters) {
+                if (f.test(aspect)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Matches aspects that do not satisfy the given filter.
+     *
+     * @param filter the filter to negate
+     */
+    record Not(@NotNull Filter filter) implements Filter
+    {
+        public Not
+        {
+            Objects.requireNonNull(filter, "Negated filter may not be null.");
+        }
+
+        @Override
+        public boolean test(@NotNull Aspect aspect)
+        {
+            return !filter.test(aspect);
+        }
+    }
+
+    /**
+     * Returns a filter that matches every aspect.
+     */
+    static @NotNull Filter all()
+    {
+        return new And(List.of());
+    }
+
+    static @NotNull Filter eq(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.EQ, value);
+    }
+
+    static @NotNull Filter ne(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.NE, value);
+    }
+
+    static @NotNull Filter lt(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.LT, value);
+    }
+
+    static @NotNull Filter le(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.LE, value);
+    }
+
+    static @NotNull Filter gt(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.GT, value);
+    }
+
+    static @NotNull Filter ge(@NotNull String property, @NotNull Object value)
+    {
+        return new Comparison(property, Operator.GE, value);
+    }
+
+    /**
+     * Returns a filter matching aspects whose property lies between the given
+     * bounds, inclusive.
+     */
+    static @NotNull Filter between(@NotNull String property, @NotNull Object min, @NotNull Object max)
+    {
+        return new And(List.of(ge(property, min), le(property, max)));
+    }
+
+    static @NotNull Filter isNull(@NotNull String property)
+    {
+        return new IsNull(property);
+    }
+
+    static @NotNull Filter notNull(@NotNull String property)
+    {
+        return new Not(new IsNull(property));
+    }
+
+    static @NotNull Filter and(@NotNull Filter... filters)
+    {
+        return new And(List.of(filters));
+    }
+
+    static @NotNull Filter or(@NotNull Filter... filters)
+    {
+        return new Or(List.of(filters));
+    }
+
+    static @NotNull Filter not(@NotNull Filter filter)
+    {
+        return new Not(filter);
+    }
+}
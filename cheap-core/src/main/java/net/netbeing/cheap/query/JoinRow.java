@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * One result of an {@link AspectJoin}: an entity and its aspects from each
+ * input of the join, in the order the inputs were added.
+ *
+ * @param entity the matching entity
+ * @param aspects the entity's aspects, one per join input
+ */
+public record JoinRow(@NotNull Entity entity, @NotNull List<Aspect> aspects)
+{
+    /**
+     * Returns the entity's aspect from the given join input.
+     *
+     * @param input the index of the input, in the order inputs were added
+     * @return the aspect
+     */
+    public @NotNull Aspect aspect(int input)
+    {
+        return aspects.get(input);
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.impl.basic.ColumnarAspectMapImpl;
+import net.netbeing.cheap.impl.basic.IndexedAspectMapHierarchyImpl;
+import net.netbeing.cheap.impl.basic.LazyAspectMapHierarchyImpl;
+import net.netbeing.cheap.impl.basic.PagedAspectMapImpl;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.query.Filter.And;
+import net.netbeing.cheap.query.Filter.Comparison;
+import net.netbeing.cheap.query.Filter.IsNull;
+import net.netbeing.cheap.query.Filter.Not;
+import net.netbeing.cheap.query.Filter.Operator;
+import net.netbeing.cheap.query.Filter.Or;
+import net.netbeing.cheap.util.PropertyValueAdapter;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Binds filters to an AspectDef and chooses how a query finds its candidate
+ * aspects in a particular map.
+ * <p>
+ * Only the top-level conjuncts of a filter are considered. An equality on an
+ * indexed property is preferred, then a range on a property with a SORTED
+ * index, then a range over the primitive column of a numeric property in
+ * COLUMNAR storage; otherwise every aspect is scanned. Candidates are always a
+ * superset of the matches, and are tested against the whole filter.
+ */
+final class QueryPlanner
+{
+    private static final PropertyValueAdapter ADAPTER = new PropertyValueAdapter();
+
+    /**
+     * The chosen access path, and a supplier of its candidate entities (null for
+     * a full scan).
+     */
+    record Plan(@NotNull AccessPath path, Supplier<Collection<Entity>> candidates)
+    {
+    }
+
+    private QueryPlanner()
+    {
+    }
+
+    /**
+     * Returns the loaded map behind a lazily loaded hierarchy, so that its
+     * indexes or columns can be planned against; other maps are returned as is.
+     */
+    static @NotNull AspectMap unwrap(@NotNull AspectMap map)
+    {
+        return map instanceof LazyAspectMapHierarchyImpl lazy ? lazy.loaded() : map;
+    }
+
+    /**
+     * Returns whether a parallel query should scan the given map in parallel.
+     * Paged maps update their cache on every read, so they are never scanned in
+     * parallel.
+     */
+    static boolean scanInParallel(@NotNull AspectMap map, boolean parallel)
+    {
+        return parallel && map.size() >= AspectQuery.PARALLEL_THRESHOLD && !(map instanceof PagedAspectMapImpl);
+    }
+
+    /**
+     * Checks that every property named by the filter is defined by the given
+     * AspectDef, and coerces comparison values to the properties' types where
+     * they are not already comparable with them, e.g. ISO-8601 strings for
+     * DateTime properties. Numbers are left alone, since they compare by value.
+     *
+     * @throws IllegalArgumentException if a property is undefined or a value
+     *     cannot be coerced
+     */
+    static @NotNull Filter bind(@NotNull Filter filter, @NotNull AspectDef def)
+    {
+        return switch (filter) {
+            case Comparison c -> new Comparison(c.property(), c.op(), coerce(propertyDef(def, c.property()), c.value()));
+            case IsNull n -> {
+                propertyDef(def, n.property());
+                yield n;
+            }
+            case And a -> new And(a.filters().stream().map(f -> bind(f, def)).toList());
+            case Or o -> new Or(o.filters().stream().map(f -> bind(f, def)).toList());
+            case Not n -> new Not(bind(n.filter(), def));
+        };
+    }
+
+    static @NotNull PropertyDef propertyDef(@NotNull AspectDef def, @NotNull String propName)
+    {
+        PropertyDef propDef = def.propertyDef(propName);
+        if (propDef == null) {
+            throw new IllegalArgumentException("Aspect '" + def.name() + "' has no property '" + propName + "'.");
+        }
+        return propDef;
+    }
+
+    private static Object coerce(PropertyDef propDef, Object value)
+    {
+        PropertyType type = propDef.type();
+        boolean numeric = type == PropertyType.Integer || type == PropertyType.Float
+            || type == PropertyType.BigInteger || type == PropertyType.BigDecimal;
+        if ((numeric && value instanceof Number) || type.getJavaClass().isInstance(value)) {
+            return value;
+        }
+        if (propDef.isMultivalued()) {
+            return ((List<?>) ADAPTER.coerce(propDef, List.of(value))).getFirst();
+        }
+        return ADAPTER.coerce(propDef, value);
+    }
+
+    /**
+     * Chooses the access path for a bound filter over the given map.
+     */
+    static @NotNull Plan plan(@NotNull Filter bound, @NotNull AspectMap map, boolean parallel)
+    {
+        List<Filter> conjuncts = new ArrayList<>();
+        flatten(bound, conjuncts);
+        AspectDef def = map.aspectDef();
+        if (map instanceof IndexedAspectMapHierarchyImpl indexed) {
+            Plan plan = indexPlan(conjuncts, indexed, def);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        if (map instanceof ColumnarAspectMapImpl columnar) {
+            Plan plan = columnPlan(conjuncts, columnar, def, parallel);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        return new Plan(AccessPath.SCAN, null);
+    }
+
+    private static void flatten(Filter filter, List<Filter> conjuncts)
+    {
+        if (filter instanceof And and) {
+            for (Filter f : and.filters()) {
+                flatten(f, conjuncts);
+            }
+        } else {
+            conjuncts.add(filter);
+        }
+    }
+
+    private static boolean isRange(Operator op)
+    {
+        return op == Operator.LT || op == Operator.LE || op == Operator.GT || op == Operator.GE;
+    }
+
+    // Index lookups
+
+    private static Plan indexPlan(List<Filter> conjuncts, IndexedAspectMapHierarchyImpl indexed, AspectDef def)
+    {
+        for (Filter f : conjuncts) {
+            if (f instanceof Comparison c && c.op() == Operator.EQ && indexed.indexType(c.property()) != null) {
+                Object key = indexKey(def.propertyDef(c.property()), c.value());
+                if (key != null) {
+                    return new Plan(AccessPath.INDEX, () -> indexed.findEqual(c.property(), key));
+                }
+            }
+        }
+        for (Filter f : conjuncts) {
+            if (f instanceof Comparison c && isRange(c.op()) && indexed.indexType(c.property()) == PropertyIndexType.SORTED) {
+                PropertyDef propDef = def.propertyDef(c.property());
+                Object key = indexKey(propDef, c.value());
+                if (key == null) {
+                    continue;
+                }
+                Range range = new Range();
+                range.add(c.op(), key);
+                // Bounds on a multivalued property may be met by different elements, so only
+                // one of them can be used to narrow the candidates.
+                if (!propDef.isMultivalued()) {
+                    for (Filter g : conjuncts) {
+                        if (g != f && g instanceof Comparison d && isRange(d.op()) && d.property().equals(c.property())) {
+                            Object other = indexKey(propDef, d.value());
+                            if (other != null) {
+                                range.add(d.op(), other);
+                            }
+                        }
+                    }
+                }
+                return new Plan(AccessPath.INDEX,
+                    () -> indexed.findRange(c.property(), range.lo, range.loInclusive, range.hi, range.hiInclusive));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts a comparison value to the class stored in an index of the given
+     * property, or returns null if it has no exact equivalent of that class.
+     */
+    private static Object indexKey(PropertyDef propDef, Object value)
+    {
+        return switch (propDef.type()) {
+            case Integer -> value instanceof Number n && Values.isIntegral(n) ? (Object) n.longValue() : null;
+            case Float -> value instanceof Number n && !(n instanceof BigDecimal) && !(n instanceof BigInteger)
+                && !Double.isNaN(n.doubleValue()) ? (Object) n.doubleValue() : null;
+            default -> propDef.type().getJavaClass().isInstance(value) ? value : null;
+        };
+    }
+
+    /**
+     * Bounds of a range query on a sorted index, tightened as comparisons are added.
+     */
+    private static final class Range
+    {
+        Object lo;
+        boolean loInclusive;
+        Object hi;
+        boolean hiInclusive;
+
+        void add(Operator op, Object key)
+        {
+            boolean inclusive = op == Operator.LE || op == Operator.GE;
+            if (op == Operator.GT || op == Operator.GE) {
+                int c = lo == null ? 1 : Values.compare(key, lo);
+                if (c > 0 || (c == 0 && !inclusive)) {
+                    lo = key;
+                    loInclusive = inclusive;
+                }
+            } else {
+                int c = hi == null ? -1 : Values.compare(key, hi);
+                if ((c < 0 && c != Values.INCOMPARABLE) || (c == 0 && !inclusive)) {
+                    hi = key;
+                    hiInclusive = inclusive;
+                }
+            }
+        }
+    }
+
+    // Column scans
+
+    private static Plan columnPlan(List<Filter> conjuncts, ColumnarAspectMapImpl columnar, AspectDef def, boolean parallel)
+    {
+        for (Filter f : conjuncts) {
+            if (!(f instanceof Comparison c) || !(c.op() == Operator.EQ || isRange(c.op()))) {
+                continue;
+            }
+            PropertyDef propDef = def.propertyDef(c.property());
+            if (propDef.isMultivalued()) {
+                continue;
+            }
+            if (propDef.type() == PropertyType.Integer) {
+                long[] bounds = longBounds(conjuncts, c.property());
+                if (bounds != null) {
+                    long lo = bounds[0];
+                    long hi = bounds[1];
+                    return new Plan(AccessPath.COLUMN_SCAN,
+                        () -> lo > hi ? List.of() : columnar.scanRange(c.property(), lo, hi, parallel));
+                }
+            } else if (propDef.type() == PropertyType.Float) {
+                double[] bounds = doubleBounds(conjuncts, c.property());
+                if (bounds != null) {
+                    double lo = bounds[0];
+                    double hi = bounds[1];
+                    return new Plan(AccessPath.COLUMN_SCAN,
+                        () -> lo > hi ? List.of() : columnar.scanRange(c.property(), lo, hi, parallel));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Intersects every comparison on the given Integer property into one
+     * inclusive range, or returns null if a comparison value is not a plain
+     * number. An empty range has lo greater than hi.
+     */
+    private static long[] longBounds(List<Filter> conjuncts, String propName)
+    {
+        long lo = Long.MIN_VALUE;
+        long hi = Long.MAX_VALUE;
+        for (Filter f : conjuncts) {
+            if (!(f instanceof Comparison c) || !c.property().equals(propName) || c.op() == Operator.NE) {
+                continue;
+            }
+            if (!(c.value() instanceof Number n) || n instanceof BigDecimal || n instanceof BigInteger) {
+                return null;
+            }
+            double d = n.doubleValue();
+            if (Double.isNaN(d)) {
+                return new long[] {1, 0};
+            }
+            boolean integral = Values.isIntegral(n);
+            long floor = integral ? n.longValue() : (long) Math.floor(d);
+            long ceil = integral ? n.longValue() : (long) Math.ceil(d);
+            switch (c.op()) {
+                case EQ -> {
+                    lo = Math.max(lo, ceil);
+                    hi = Math.min(hi, floor);
+                }
+                case GT -> {
+                    if (floor == Long.MAX_VALUE) {
+                        return new long[] {1, 0};
+                    }
+                    lo = Math.max(lo, floor + 1);
+                }
+                case GE -> lo = Math.max(lo, ceil);
+                case LT -> {
+                    if (ceil == Long.MIN_VALUE) {
+                        return new long[] {1, 0};
+                    }
+                    hi = Math.min(hi, ceil - 1);
+                }
+                case LE -> hi = Math.min(hi, floor);
+                default -> {
+                }
+            }
+        }
+        return new long[] {lo, hi};
+    }
+
+    /**
+     * Intersects every comparison on the given Float property into one
+     * inclusive range, or returns null if a comparison value is not a plain
+     * number. An empty range has lo greater than hi.
+     */
+    private static double[] doubleBounds(List<Filter> conjuncts, String propName)
+    {
+        double lo = Double.NEGATIVE_INFINITY;
+        double hi = Double.POSITIVE_INFINITY;
+        for (Filter f : conjuncts) {
+            if (!(f instanceof Comparison c) || !c.property().equals(propName) || c.op() == Operator.NE) {
+                continue;
+            }
+            if (!(c.value() instanceof Number n) || n instanceof BigDecimal || n instanceof BigInteger) {
+                return null;
+            }
+            double d = n.doubleValue();
+            if (Double.isNaN(d)) {
+                return new double[] {1, 0};
+            }
+            switch (c.op()) {
+                case EQ -> {
+                    lo = Math.max(lo, d);
+                    hi = Math.min(hi, d);
+                }
+                case GT -> lo = Math.max(lo, Math.nextUp(d));
+                case GE -> lo = Math.max(lo, d);
+                case LT -> hi = Math.min(hi, Math.nextDown(d));
+                case LE -> hi = Math.min(hi, d);
+                default -> {
+                }
+            }
+        }
+        return new double[] {lo, hi};
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One result of an {@link AspectQuery}: a matching entity, its aspect, and the
+ * names of the properties projected by the query. Projected values are read
+ * from the aspect on demand rather than copied.
+ *
+ * @param entity the matching entity
+ * @param aspect the entity's aspect
+ * @param projection the names of the projected properties
+ */
+public record QueryRow(@NotNull Entity entity, @NotNull Aspect aspect, @NotNull List<String> projection)
+{
+    /**
+     * Returns the value of a property of the aspect.
+     *
+     * @param propName the property name
+     * @return the value, possibly null
+     */
+    public Object get(@NotNull String propName)
+    {
+        return aspect.unsafeReadObj(propName);
+    }
+
+    /**
+     * Returns the values of the projected properties, in projection order.
+     *
+     * @return a new map of property name to value
+     */
+    public @NotNull Map<String, Object> values()
+    {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String propName : projection) {
+            values.put(propName, aspect.unsafeReadObj(propName));
+        }
+        return values;
+    }
+}
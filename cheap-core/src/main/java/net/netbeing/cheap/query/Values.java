@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Value comparison rules shared by filters, ordering and query planning.
+ * Numbers compare by numeric value whatever their class, NaN is neither equal
+ * to nor ordered with anything, and other values are only ordered against
+ * values of the same class.
+ */
+final class Values
+{
+    /** Result of {@link #compare} for values that cannot be ordered. */
+    static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private Values()
+    {
+    }
+
+    static boolean equal(@NotNull Object a, @NotNull Object b)
+    {
+        if (a instanceof Number x && b instanceof Number y) {
+            return compareNumbers(x, y) == 0;
+        }
+        if (a instanceof byte[] x && b instanceof byte[] y) {
+            return Arrays.equals(x, y);
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * Compares two non-null values.
+     *
+     * @return a negative number, zero or a positive number, or
+     *     {@link #INCOMPARABLE} if the values cannot be ordered
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(@NotNull Object a, @NotNull Object b)
+    {
+        if (a instanceof Number x && b instanceof Number y) {
+            return compareNumbers(x, y);
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable<?> c) {
+            return Integer.signum(((Comparable<Object>) c).compareTo(b));
+        }
+        return INCOMPARABLE;
+    }
+
+    static boolean isIntegral(Number n)
+    {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
+    private static int compareNumbers(Number x, Number y)
+    {
+        if (isIntegral(x) && isIntegral(y)) {
+            return Long.compare(x.longValue(), y.longValue());
+        }
+        double dx = x.doubleValue();
+        double dy = y.doubleValue();
+        if (Double.isNaN(dx) || Double.isNaN(dy)) {
+            return INCOMPARABLE;
+        }
+        boolean big = x instanceof BigDecimal || x instanceof BigInteger || y instanceof BigDecimal || y instanceof BigInteger;
+        if (big && !Double.isInfinite(dx) && !Double.isInfinite(dy)) {
+            return toBigDecimal(x).compareTo(toBigDecimal(y));
+        }
+        return dx < dy ? -1 : (dx > dy ? 1 : 0);
+    }
+
+    private static BigDecimal toBigDecimal(Number n)
+    {
+        if (n instanceof BigDecimal d) {
+            return d;
+        }
+        if (n instanceof BigInteger i) {
+            return new BigDecimal(i);
+        }
+        if (isIntegral(n)) {
+            return BigDecimal.valueOf(n.longValue());
+        }
+        return BigDecimal.valueOf(n.doubleValue());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The changes made to a hierarchy since it was last loaded or saved, so that it can
+ * be saved by writing only what changed.
+ * <p>
+ * A change set either records individual entries, by key, or knows only that the
+ * hierarchy must be written whole. Recorded entries are {@linkplain #updated()
+ * updated} (added, or given a new value) or {@linkplain #removed() removed}; a key is
+ * in at most one of the two, whichever happened last. Removals are kept as tombstones
+ * even if the entry was added since the last save, since the store may hold it.
+ * Once the change set is {@linkplain #isWhole() whole}, entries are no longer
+ * recorded.
+ * Hierarchies whose changes can't be keyed, such as lists, where an insertion moves
+ * every later entry, mark their change sets whole on every change.
+ * <p>
+ * Savers call {@link #drain()} before writing the changes and {@link #restore} if the
+ * write fails, so that changes made while writing are not lost, and failed writes are
+ * retried by the next save.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <K> the type of entry keys
+ */
+public final class ChangeSet<K>
+{
+    private Set<K> updated = new LinkedHashSet<>();
+    private Set<K> removed = new LinkedHashSet<>();
+    private boolean whole;
+
+    /**
+     * Creates an empty change set that records changes by key.
+     */
+    public ChangeSet()
+    {
+    }
+
+    /**
+     * Records that the entry with the given key was added or given a new value.
+     *
+     * @param key the key of the entry
+     */
+    public void update(K key)
+    {
+        if (!whole) {
+            removed.remove(key);
+            updated.add(key);
+        }
+    }
+
+    /**
+     * Records that the entry with the given key was removed.
+     *
+     * @param key the key of the entry
+     */
+    public void remove(K key)
+    {
+        if (!whole) {
+            updated.remove(key);
+            removed.add(key);
+        }
+    }
+
+    /**
+     * Records that the hierarchy must be written whole, e.g. because it was cleared
+     * or has never been saved.
+     */
+    public void markWhole()
+    {
+        whole = true;
+        updated.clear();
+        removed.clear();
+    }
+
+    /**
+     * Returns whether the hierarchy must be written whole.
+     *
+     * @return true if individual changes are not known
+     */
+    public boolean isWhole()
+    {
+        return whole;
+    }
+
+    /**
+     * Returns whether nothing has changed.
+     *
+     * @return true if there is nothing to write
+     */
+    public boolean isEmpty()
+    {
+        return !isWhole() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Returns the keys of the entries added or given a new value, in the order they
+     * were first recorded. Empty if this change set is whole.
+     *
+     * @return unmodifiable view of the updated keys
+     */
+    public @NotNull Set<K> updated()
+    {
+        return Collections.unmodifiableSet(updated);
+    }
+
+    /**
+     * Returns the keys of the entries removed. Empty if this change set is whole.
+     *
+     * @return unmodifiable view of the removed keys
+     */
+    public @NotNull Set<K> removed()
+    {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Forgets all changes, once they have been written or the hierarchy has been
+     * loaded.
+     */
+    public void clear()
+    {
+        drain();
+    }
+
+    /**
+     * Moves the changes recorded so far into a new change set, which is returned,
+     * leaving this one empty.
+     *
+     * @return the changes that were recorded
+     */
+    public @NotNull ChangeSet<K> drain()
+    {
+        ChangeSet<K> drained = new ChangeSet<>();
+        drained.whole = whole;
+        if (!drained.whole) {
+            drained.updated = updated;
+            drained.removed = removed;
+            updated = new LinkedHashSet<>();
+            removed = new LinkedHashSet<>();
+        }
+        whole = false;
+        updated.clear();
+        removed.clear();
+        return drained;
+    }
+
+    /**
+     * Puts back changes taken by {@link #drain()} that could not be written. Changes
+     * recorded since take precedence over restored ones for the same key.
+     *
+     * @param drained the change set returned by drain
+     */
+    public void restore(@NotNull ChangeSet<K> drained)
+    {
+        if (drained.whole) {
+            markWhole();
+            return;
+        }
+        if (whole) {
+            return;
+        }
+        for (K key : drained.updated) {
+            if (!removed.contains(key)) {
+                updated.add(key);
+            }
+        }
+        for (K key : drained.removed) {
+            if (!updated.contains(key)) {
+                removed.add(key);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        if (isWhole()) {
+            return "ChangeSet{whole}";
+        }
+        return "ChangeSet{updated=" + updated + ", removed=" + removed + '}';
+    }
+}
@@ -18,6 +18,7 @@ package net.netbeing.cheap.util;
 
 import lombok.experimental.UtilityClass;
 import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.ConcurrentCatalogImpl;
 import net.netbeing.cheap.impl.basic.EntityImpl;
 import net.netbeing.cheap.impl.basic.LocalEntityOneCatalogImpl;
 import net.netbeing.cheap.impl.reflect.RecordAspect;
@@ -25,6 +26,7 @@ import net.netbeing.cheap.impl.reflect.RecordAspectDef;
 import net.netbeing.cheap.model.Aspect;
 import net.netbeing.cheap.model.AspectMapHierarchy;
 import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogConcurrency;
 import net.netbeing.cheap.model.EntityTreeHierarchy;
 import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
 import net.netbeing.cheap.model.HierarchyDef;
@@ -240,7 +242,11 @@ public class CheapFileUtil
 
                 // Create the hierarchy and root entity the first time through
                 if (walkState.hierarchy == null) {
-                    walkState.hierarchy = catalog.createEntityTree(hierarchyDef.name(), 0L);
+                    // Unsynchronized trees use compact nodes, as most directories hold few entries
+                    boolean compact = !(catalog instanceof ConcurrentCatalogImpl) &&
+                        factory.getDefaultCatalogConcurrency() == CatalogConcurrency.UNSYNCHRONIZED;
+                    Node rootNode = compact ? factory.createCompactTreeNode(null) : null;
+                    walkState.hierarchy = catalog.createEntityTree(hierarchyDef.name(), rootNode, 0L);
                     walkState.root = walkState.hierarchy.root();
                     walkState.root.setValue(nodeEntity);
                     walkState.currentNode = walkState.root;
@@ -19,11 +19,20 @@ package net.netbeing.cheap.util;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -51,36 +60,117 @@ import java.util.UUID;
  *   <li>UUID (UUID type)</li>
  *   <li>byte[] (BLOB type)</li>
  * </ul>
+ *
+ * <p>Instances can instead use the {@link Algorithm#WORDWISE} algorithm, which
+ * consumes input eight bytes at a time and hashes strings by their chars rather
+ * than their UTF-8 encoding. It is several times faster on long inputs, but its
+ * values differ from FNV-1a, so it must not be used for hashes that are compared
+ * with persisted ones, such as {@code hash_version}. The static methods always
+ * use FNV-1a.</p>
+ *
+ * <p>Instances can also hash the content of a {@link ByteBuffer},
+ * {@link InputStream} or {@link MemorySegment} incrementally, without copying it
+ * into an array first.</p>
  */
 public class CheapHasher
 {
+    /**
+     * The hash algorithms supported by CheapHasher instances.
+     */
+    public enum Algorithm
+    {
+        /**
+         * 64-bit FNV-1a over the bytes of each input, one byte per step. This is
+         * the default, and the algorithm of all persisted hash values.
+         */
+        FNV1A,
+
+        /**
+         * A multiply-rotate hash that consumes eight bytes per step and ends each
+         * input with an avalanche step, in the style of xxHash64. Strings are hashed
+         * as UTF-16 chars. Updating with an array, buffer, stream or segment gives the
+         * same result for the same bytes, however they are split into reads.
+         */
+        WORDWISE
+    }
+
     // FNV-1a 64-bit constants
     private static final long FNV_OFFSET_BASIS_64 = 0xcbf29ce484222325L;
     private static final long FNV_PRIME_64 = 0x100000001b3L;
 
+    // WORDWISE constants
+    private static final long WORDWISE_BASIS_64 = 0x27d4eb2f165667c5L;
+    private static final long PRIME_1 = 0x9e3779b185ebca87L;
+    private static final long PRIME_2 = 0xc2b2ae3d27d4eb4fL;
+    private static final long PRIME_3 = 0x165667b19e3779f9L;
+
+    private static final VarHandle LONGS_LE = MethodHandles.byteArrayViewVarHandle(long[].class,
+        ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private final Algorithm algorithm;
+
     /**
      * The current rolling hash value maintained by this instance.
      */
     private long hash;
 
     /**
-     * Creates a new CheapHasher with the default FNV-1a offset basis.
+     * Creates a new FNV-1a CheapHasher with the default offset basis.
      */
     public CheapHasher()
     {
-        this.hash = FNV_OFFSET_BASIS_64;
+        this(Algorithm.FNV1A);
     }
 
     /**
-     * Creates a new CheapHasher with a custom seed value.
+     * Creates a new FNV-1a CheapHasher with a custom seed value.
      *
      * @param seed the initial hash value
      */
     public CheapHasher(long seed)
     {
+        this(Algorithm.FNV1A, seed);
+    }
+
+    /**
+     * Creates a new CheapHasher using the given algorithm, with its default seed.
+     *
+     * @param algorithm the hash algorithm
+     */
+    public CheapHasher(@NotNull Algorithm algorithm)
+    {
+        this(algorithm, basis(algorithm));
+    }
+
+    /**
+     * Creates a new CheapHasher using the given algorithm, with a custom seed value.
+     *
+     * @param algorithm the hash algorithm
+     * @param seed the initial hash value
+     */
+    public CheapHasher(@NotNull Algorithm algorithm, long seed)
+    {
+        this.algorithm = Objects.requireNonNull(algorithm, "Hash algorithm may not be null.");
         this.hash = seed;
     }
 
+    private static long basis(Algorithm algorithm)
+    {
+        return algorithm == Algorithm.FNV1A ? FNV_OFFSET_BASIS_64 : WORDWISE_BASIS_64;
+    }
+
+    /**
+     * Returns the algorithm used by this instance.
+     *
+     * @return the hash algorithm
+     */
+    public @NotNull Algorithm getAlgorithm()
+    {
+        return algorithm;
+    }
+
     /**
      * Returns the current rolling hash value.
      *
@@ -92,11 +182,11 @@ public class CheapHasher
     }
 
     /**
-     * Resets the rolling hash to the default FNV-1a offset basis.
+     * Resets the rolling hash to the default seed of this instance's algorithm.
      */
     public void reset()
     {
-        this.hash = FNV_OFFSET_BASIS_64;
+        this.hash = basis(algorithm);
     }
 
     /**
@@ -156,6 +246,8 @@ public class CheapHasher
 
     /**
      * Computes the FNV-1a hash of a String converted to UTF-8 bytes using the specified seed.
+     * The string is encoded as it is hashed, without allocating; unpaired surrogates are
+     * hashed as '?', as {@link String#getBytes(java.nio.charset.Charset)} encodes them.
      *
      * @param seed the initial hash value (seed)
      * @param value the string to hash
@@ -166,7 +258,90 @@ public class CheapHasher
         if (value == null) {
             return hashNull(seed);
         }
-        return hash(seed, value.getBytes(StandardCharsets.UTF_8));
+
+        long hash = seed;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                hash = fnv(hash, c);
+            } else if (c < 0x800) {
+                hash = fnv(fnv(hash, 0xc0 | c >> 6), 0x80 | c & 0x3f);
+            } else if (!Character.isSurrogate(c)) {
+                hash = fnv(fnv(fnv(hash, 0xe0 | c >> 12), 0x80 | c >> 6 & 0x3f), 0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                hash = fnv(fnv(hash, 0xf0 | cp >> 18), 0x80 | cp >> 12 & 0x3f);
+                hash = fnv(fnv(hash, 0x80 | cp >> 6 & 0x3f), 0x80 | cp & 0x3f);
+            } else {
+                hash = fnv(hash, '?');
+            }
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int b)
+    {
+        return (hash ^ b) * FNV_PRIME_64;
+    }
+
+    /**
+     * Computes the FNV-1a hash of the remaining bytes of a buffer using the specified
+     * seed. The buffer's position is advanced to its limit.
+     *
+     * @param seed the initial hash value (seed)
+     * @param buffer the buffer to hash
+     * @return the 64-bit hash value
+     */
+    public static long hash(long seed, @NotNull ByteBuffer buffer)
+    {
+        long hash = seed;
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            hash = fnv(hash, buffer.get(i) & 0xff);
+        }
+        buffer.position(limit);
+        return hash;
+    }
+
+    /**
+     * Computes the FNV-1a hash of the remaining content of a stream using the specified
+     * seed. The stream is read to its end but not closed.
+     *
+     * @param seed the initial hash value (seed)
+     * @param in the stream to hash
+     * @return the 64-bit hash value
+     * @throws IOException if reading the stream fails
+     */
+    public static long hash(long seed, @NotNull InputStream in) throws IOException
+    {
+        long hash = seed;
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            for (int i = 0; i < n; i++) {
+                hash = fnv(hash, buffer[i] & 0xff);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the FNV-1a hash of the content of a memory segment using the specified seed.
+     *
+     * @param seed the initial hash value (seed)
+     * @param segment the segment to hash
+     * @return the 64-bit hash value
+     */
+    public static long hash(long seed, @NotNull MemorySegment segment)
+    {
+        long hash = seed;
+        long size = segment.byteSize();
+        for (long i = 0; i < size; i++) {
+            hash = fnv(hash, segment.get(ValueLayout.JAVA_BYTE, i) & 0xff);
+        }
+        return hash;
     }
 
     /**
@@ -249,7 +424,7 @@ public class CheapHasher
     }
 
     /**
-     * Computes the FNV-1a hash of a BigInteger by hashing its string representation using the default offset basis.
+     * Computes the FNV-1a hash of a BigInteger by hashing the 64-bit words of its two's-complement form using the default offset basis.
      *
      * @param value the BigInteger to hash
      * @return the 64-bit hash value
@@ -260,7 +435,8 @@ public class CheapHasher
     }
 
     /**
-     * Computes the FNV-1a hash of a BigInteger by hashing its string representation using the specified seed.
+     * Computes the FNV-1a hash of a BigInteger by hashing the 64-bit words of its two's-complement form,
+     * lowest first, using the specified seed.
      *
      * @param seed the initial hash value (seed)
      * @param value the BigInteger to hash
@@ -271,11 +447,15 @@ public class CheapHasher
         if (value == null) {
             return hashNull(seed);
         }
-        return hash(seed, value.toString());
+        long hash = seed;
+        for (int i = 0, n = words(value); i < n; i++) {
+            hash = hash(hash, word(value, i));
+        }
+        return hash;
     }
 
     /**
-     * Computes the FNV-1a hash of a BigDecimal by hashing its string representation using the default offset basis.
+     * Computes the FNV-1a hash of a BigDecimal by hashing its unscaled value and scale using the default offset basis.
      *
      * @param value the BigDecimal to hash
      * @return the 64-bit hash value
@@ -286,7 +466,10 @@ public class CheapHasher
     }
 
     /**
-     * Computes the FNV-1a hash of a BigDecimal by hashing its string representation using the specified seed.
+     * Computes the FNV-1a hash of a BigDecimal by hashing its unscaled value and then its scale, using the
+     * specified seed. Values that differ only in scale, such as 1.0 and 1.00, hash differently.
+     * No string is built, but a value small enough to be stored compactly has its unscaled
+     * value copied into a new BigInteger, as BigDecimal offers no other way to read it.
      *
      * @param seed the initial hash value (seed)
      * @param value the BigDecimal to hash
@@ -297,11 +480,11 @@ public class CheapHasher
         if (value == null) {
             return hashNull(seed);
         }
-        return hash(seed, value.toString());
+        return hash(hash(seed, value.unscaledValue()), (long) value.scale());
     }
 
     /**
-     * Computes the FNV-1a hash of a ZonedDateTime by hashing its ISO-8601 string representation using the default offset basis.
+     * Computes the FNV-1a hash of a ZonedDateTime by hashing its instant and zone id using the default offset basis.
      *
      * @param value the ZonedDateTime to hash
      * @return the 64-bit hash value
@@ -312,7 +495,8 @@ public class CheapHasher
     }
 
     /**
-     * Computes the FNV-1a hash of a ZonedDateTime by hashing its ISO-8601 string representation using the specified seed.
+     * Computes the FNV-1a hash of a ZonedDateTime by hashing its epoch second, nano-of-second and zone id,
+     * using the specified seed. The offset follows from the instant and zone, so it is not hashed.
      *
      * @param seed the initial hash value (seed)
      * @param value the ZonedDateTime to hash
@@ -323,11 +507,11 @@ public class CheapHasher
         if (value == null) {
             return hashNull(seed);
         }
-        return hash(seed, value.toString());
+        return hash(hash(hash(seed, value.toEpochSecond()), (long) value.getNano()), value.getZone().getId());
     }
 
     /**
-     * Computes the FNV-1a hash of a URI by hashing its string representation using the default offset basis.
+     * Computes the FNV-1a hash of a URI by hashing its scheme, scheme-specific part and fragment using the default offset basis.
      *
      * @param value the URI to hash
      * @return the 64-bit hash value
@@ -338,7 +522,8 @@ public class CheapHasher
     }
 
     /**
-     * Computes the FNV-1a hash of a URI by hashing its string representation using the specified seed.
+     * Computes the FNV-1a hash of a URI by hashing its scheme, raw scheme-specific part and raw fragment,
+     * using the specified seed. The URI caches these strings, so no new ones are built after the first call.
      *
      * @param seed the initial hash value (seed)
      * @param value the URI to hash
@@ -349,7 +534,28 @@ public class CheapHasher
         if (value == null) {
             return hashNull(seed);
         }
-        return hash(seed, value.toString());
+        return hash(hash(hash(seed, value.getScheme()), value.getRawSchemeSpecificPart()), value.getRawFragment());
+    }
+
+    /** Returns the number of 64-bit words in the two's-complement form of a BigInteger, including its sign. */
+    private static int words(BigInteger value)
+    {
+        return (value.bitLength() >> 6) + 1;
+    }
+
+    /** Returns the given 64-bit word of the two's-complement form of a BigInteger, without allocating. */
+    private static long word(BigInteger value, int index)
+    {
+        if (index == 0) {
+            return value.longValue();
+        }
+        long word = 0;
+        for (int bit = 0, base = index << 6; bit < 64; bit++) {
+            if (value.testBit(base + bit)) {
+                word |= 1L << bit;
+            }
+        }
+        return word;
     }
 
     /**
@@ -423,6 +629,177 @@ public class CheapHasher
         return hash;
     }
 
+    // ===== WORDWISE Algorithm =====
+
+    private static long round(long hash, long word)
+    {
+        hash ^= Long.rotateLeft(word * PRIME_2, 31) * PRIME_1;
+        return Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_3;
+    }
+
+    /**
+     * Ends one input: mixes in the bytes left over after its last full word and its
+     * length in bytes, then avalanches the state.
+     */
+    private static long finish(long hash, long tail, long length)
+    {
+        hash = round(hash, tail) ^ length;
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        return hash ^ hash >>> 32;
+    }
+
+    /** Mixes in the full words of a range whose length is a multiple of 8. */
+    private static long absorb(long hash, byte[] bytes, int offset, int length)
+    {
+        for (int end = offset + length; offset < end; offset += 8) {
+            hash = round(hash, (long) LONGS_LE.get(bytes, offset));
+        }
+        return hash;
+    }
+
+    private static long tail(byte[] bytes, int offset, int end)
+    {
+        long tail = 0;
+        for (int shift = 0; offset < end; offset++, shift += 8) {
+            tail |= (bytes[offset] & 0xffL) << shift;
+        }
+        return tail;
+    }
+
+    private static long wordwiseNull(long hash)
+    {
+        // No input has a negative length, so this differs from every non-null value
+        return finish(hash, 0, -1);
+    }
+
+    private static long wordwise(long hash, byte[] bytes)
+    {
+        if (bytes == null) {
+            return wordwiseNull(hash);
+        }
+        int full = bytes.length & ~7;
+        return finish(absorb(hash, bytes, 0, full), tail(bytes, full, bytes.length), bytes.length);
+    }
+
+    private static long wordwise(long hash, String value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        int length = value.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            hash = round(hash, value.charAt(i) | (long) value.charAt(i + 1) << 16
+                | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) value.charAt(i) << shift;
+        }
+        return finish(hash, tail, 2L * length);
+    }
+
+    private static long wordwise(long hash, BigInteger value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        int words = words(value);
+        for (int i = 0; i < words; i++) {
+            hash = round(hash, word(value, i));
+        }
+        return finish(hash, 0, 8L * words);
+    }
+
+    private static long wordwise(long hash, BigDecimal value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        return finish(wordwise(hash, value.unscaledValue()), value.scale(), 4);
+    }
+
+    private static long wordwise(long hash, ZonedDateTime value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        hash = finish(round(hash, value.toEpochSecond()), value.getNano(), 12);
+        return wordwise(hash, value.getZone().getId());
+    }
+
+    private static long wordwise(long hash, URI value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        hash = wordwise(wordwise(hash, value.getScheme()), value.getRawSchemeSpecificPart());
+        return wordwise(hash, value.getRawFragment());
+    }
+
+    private static long wordwise(long hash, ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int i = position;
+            for (; i + 8 <= limit; i += 8) {
+                hash = round(hash, buffer.getLong(i));
+            }
+            long tail = 0;
+            for (int shift = 0; i < limit; i++, shift += 8) {
+                tail |= (buffer.get(i) & 0xffL) << shift;
+            }
+            buffer.position(limit);
+            return finish(hash, tail, limit - position);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    private static long wordwise(long hash, InputStream in) throws IOException
+    {
+        // Every read but the last fills the buffer, so words never straddle reads
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long length = 0;
+        while (true) {
+            int n = in.readNBytes(buffer, 0, buffer.length);
+            length += n;
+            int full = n & ~7;
+            hash = absorb(hash, buffer, 0, full);
+            if (n < buffer.length) {
+                return finish(hash, tail(buffer, full, n), length);
+            }
+        }
+    }
+
+    private static long wordwise(long hash, MemorySegment segment)
+    {
+        long size = segment.byteSize();
+        long i = 0;
+        for (; i + 8 <= size; i += 8) {
+            hash = round(hash, segment.get(LONG_LE, i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < size; i++, shift += 8) {
+            tail |= (segment.get(ValueLayout.JAVA_BYTE, i) & 0xffL) << shift;
+        }
+        return finish(hash, tail, size);
+    }
+
+    private static long wordwise(long hash, UUID value)
+    {
+        if (value == null) {
+            return wordwiseNull(hash);
+        }
+        return finish(round(round(hash, value.getMostSignificantBits()), value.getLeastSignificantBits()), 0, 16);
+    }
+
     // ===== Instance Update Methods =====
 
     /**
@@ -433,7 +810,7 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(byte[] bytes)
     {
-        hash = hash(hash, bytes);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, bytes) : wordwise(hash, bytes);
         return this;
     }
 
@@ -445,7 +822,7 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(@Nullable String value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
         return this;
     }
 
@@ -457,7 +834,7 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(long value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : finish(round(hash, value), 0, 8);
         return this;
     }
 
@@ -469,7 +846,7 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(double value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : finish(round(hash, Double.doubleToRawLongBits(value)), 0, 8);
         return this;
     }
 
@@ -481,55 +858,55 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(boolean value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : finish(hash, value ? 1 : 0, 1);
         return this;
     }
 
     /**
-     * Updates the rolling hash with a BigInteger by hashing its string representation.
+     * Updates the rolling hash with a BigInteger by hashing its two's-complement words.
      *
      * @param value the BigInteger to hash
      * @return this CheapHasher instance for method chaining
      */
     public @NotNull CheapHasher update(@Nullable BigInteger value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
         return this;
     }
 
     /**
-     * Updates the rolling hash with a BigDecimal by hashing its string representation.
+     * Updates the rolling hash with a BigDecimal by hashing its unscaled value and scale.
      *
      * @param value the BigDecimal to hash
      * @return this CheapHasher instance for method chaining
      */
     public @NotNull CheapHasher update(@Nullable BigDecimal value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
         return this;
     }
 
     /**
-     * Updates the rolling hash with a ZonedDateTime by hashing its ISO-8601 string representation.
+     * Updates the rolling hash with a ZonedDateTime by hashing its instant and zone id.
      *
      * @param value the ZonedDateTime to hash
      * @return this CheapHasher instance for method chaining
      */
     public @NotNull CheapHasher update(@Nullable ZonedDateTime value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
         return this;
     }
 
     /**
-     * Updates the rolling hash with a URI by hashing its string representation.
+     * Updates the rolling hash with a URI by hashing its scheme, scheme-specific part and fragment.
      *
      * @param value the URI to hash
      * @return this CheapHasher instance for method chaining
      */
     public @NotNull CheapHasher update(@Nullable URI value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
         return this;
     }
 
@@ -541,7 +918,85 @@ public class CheapHasher
      */
     public @NotNull CheapHasher update(@Nullable UUID value)
     {
-        hash = hash(hash, value);
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, value) : wordwise(hash, value);
+        return this;
+    }
+
+    /**
+     * Updates the rolling hash with the remaining bytes of a buffer, advancing its
+     * position to its limit.
+     *
+     * @param buffer the buffer to hash
+     * @return this CheapHasher instance for method chaining
+     */
+    public @NotNull CheapHasher update(@NotNull ByteBuffer buffer)
+    {
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, buffer) : wordwise(hash, buffer);
+        return this;
+    }
+
+    /**
+     * Updates the rolling hash with the remaining content of a stream, reading it
+     * to its end without closing it.
+     *
+     * @param in the stream to hash
+     * @return this CheapHasher instance for method chaining
+     * @throws IOException if reading the stream fails
+     */
+    public @NotNull CheapHasher update(@NotNull InputStream in) throws IOException
+    {
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, in) : wordwise(hash, in);
+        return this;
+    }
+
+    /**
+     * Updates the rolling hash with the content of a memory segment.
+     *
+     * @param segment the segment to hash
+     * @return this CheapHasher instance for method chaining
+     */
+    public @NotNull CheapHasher update(@NotNull MemorySegment segment)
+    {
+        hash = algorithm == Algorithm.FNV1A ? hash(hash, segment) : wordwise(hash, segment);
+        return this;
+    }
+
+    /**
+     * Updates the rolling hash with a property value of any supported type, as
+     * listed in the class description. Integers are hashed as longs, and floats as
+     * doubles. A List, as held by multivalued properties, is hashed as its size
+     * followed by each of its elements. Values of other types are hashed by their
+     * string representation.
+     *
+     * @param value the value to hash
+     * @return this CheapHasher instance for method chaining
+     */
+    public @NotNull CheapHasher updateValue(@Nullable Object value)
+    {
+        switch (value) {
+            case null -> hash = algorithm == Algorithm.FNV1A ? hashNull(hash) : wordwiseNull(hash);
+            case String v -> update(v);
+            case Long v -> update((long) v);
+            case Integer v -> update((long) v);
+            case Short v -> update((long) v);
+            case Byte v -> update((long) v);
+            case Double v -> update((double) v);
+            case Float v -> update((double) v);
+            case Boolean v -> update((boolean) v);
+            case BigInteger v -> update(v);
+            case BigDecimal v -> update(v);
+            case ZonedDateTime v -> update(v);
+            case URI v -> update(v);
+            case UUID v -> update(v);
+            case byte[] v -> update(v);
+            case List<?> v -> {
+                update((long) v.size());
+                for (Object element : v) {
+                    updateValue(element);
+                }
+            }
+            default -> update(value.toString());
+        }
         return this;
     }
 }
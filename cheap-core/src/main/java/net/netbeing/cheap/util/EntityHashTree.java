@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Merkle-style hash tree over a collection of entities and the content hashes of
+ * whatever each entity maps to, used to compare and diff large hierarchies without
+ * walking them.
+ * <p>
+ * Entities are spread over {@value #BUCKETS} leaf buckets by a prefix of the random
+ * bits of their global id, and each interior node covers {@value #FANOUT} nodes of
+ * the level below. The hash of every node is the sum of the hashes of the entries
+ * beneath it, where an entry's hash mixes its entity id with its content hash. Sums
+ * do not depend on the order entries were added in, and adding, removing or
+ * replacing an entry updates one node per level, so a tree can be kept current as
+ * its hierarchy changes rather than rebuilt.
+ * <p>
+ * Two trees built over the same entries have the same {@link #root()}.
+ * {@link #diff(EntityHashTree)} descends only into nodes whose hashes differ, so the
+ * work of finding the buckets that hold changed entries is proportional to the
+ * number of changes.
+ * <p>
+ * Entries for a null entity are accepted, and are filed under the nil UUID.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class EntityHashTree
+{
+    /** The number of children of each interior node. */
+    public static final int FANOUT = 16;
+
+    /** The number of levels below the root. */
+    public static final int DEPTH = 3;
+
+    /** The number of leaf buckets. */
+    public static final int BUCKETS = 4096;
+
+    private static final int FANOUT_BITS = 4;
+
+    private static final UUID NIL = new UUID(0L, 0L);
+
+    /** Node hashes by level; level 0 holds the root and level DEPTH the leaves. */
+    private final long[][] levels = new long[DEPTH + 1][];
+
+    private int size;
+
+    /**
+     * Creates an empty tree.
+     */
+    public EntityHashTree()
+    {
+        for (int level = 0, width = 1; level <= DEPTH; level++, width *= FANOUT) {
+            levels[level] = new long[width];
+        }
+    }
+
+    /**
+     * Returns the leaf bucket of the entity with the given global id. Buckets are
+     * taken from the top of the least significant half of the id, which is random in
+     * both random (version 4) and time-ordered (version 7) UUIDs, so entities spread
+     * evenly however their ids were minted.
+     *
+     * @param entityId the global id of the entity
+     * @return the bucket index, from 0 to {@value #BUCKETS} - 1
+     */
+    public static int bucketOf(@Nullable UUID entityId)
+    {
+        if (entityId == null) {
+            return 0;
+        }
+        // The top two bits of the least significant half are the UUID variant
+        return (int) (entityId.getLeastSignificantBits() >>> 50) & (BUCKETS - 1);
+    }
+
+    /**
+     * Returns the hash that an entry contributes to the tree.
+     *
+     * @param entityId the global id of the entity
+     * @param contentHash the hash of the entity's content
+     * @return the entry hash
+     */
+    public static long entryHash(@Nullable UUID entityId, long contentHash)
+    {
+        return CheapHasher.hash(CheapHasher.hash(entityId == null ? NIL : entityId), contentHash);
+    }
+
+    private void adjust(UUID entityId, long delta)
+    {
+        int index = bucketOf(entityId);
+        for (int level = DEPTH; level >= 0; level--) {
+            levels[level][index] += delta;
+            index >>>= FANOUT_BITS;
+        }
+    }
+
+    /**
+     * Adds an entry to the tree.
+     *
+     * @param entityId the global id of the entity
+     * @param contentHash the hash of the entity's content
+     */
+    public void add(@Nullable UUID entityId, long contentHash)
+    {
+        adjust(entityId, entryHash(entityId, contentHash));
+        size++;
+    }
+
+    /**
+     * Removes an entry from the tree. The content hash must be the one the entry was
+     * added with.
+     *
+     * @param entityId the global id of the entity
+     * @param contentHash the hash the entry was added with
+     */
+    public void remove(@Nullable UUID entityId, long contentHash)
+    {
+        adjust(entityId, -entryHash(entityId, contentHash));
+        size--;
+    }
+
+    /**
+     * Replaces the content hash of an entry.
+     *
+     * @param entityId the global id of the entity
+     * @param oldContentHash the hash the entry was added with
+     * @param newContentHash the new hash of the entity's content
+     */
+    public void replace(@Nullable UUID entityId, long oldContentHash, long newContentHash)
+    {
+        if (oldContentHash != newContentHash) {
+            adjust(entityId, entryHash(entityId, newContentHash) - entryHash(entityId, oldContentHash));
+        }
+    }
+
+    /**
+     * Removes all entries from the tree.
+     */
+    public void clear()
+    {
+        for (long[] level : levels) {
+            Arrays.fill(level, 0L);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of entries in the tree.
+     *
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the root hash of the tree, which covers every entry. The root of an
+     * empty tree is 0.
+     *
+     * @return the root hash
+     */
+    public long root()
+    {
+        return levels[0][0];
+    }
+
+    /**
+     * Returns the hash of a leaf bucket.
+     *
+     * @param bucket the bucket index
+     * @return the hash of the entries in the bucket
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long bucketHash(int bucket)
+    {
+        return levels[DEPTH][bucket];
+    }
+
+    /**
+     * Returns the indexes, in ascending order, of the leaf buckets whose hashes
+     * differ between this tree and another. Entries in other buckets are the same in
+     * both trees, barring hash collisions.
+     *
+     * @param other the tree to compare with
+     * @return the differing bucket indexes
+     */
+    public int @NotNull [] diff(@NotNull EntityHashTree other)
+    {
+        if (root() == other.root()) {
+            return new int[0];
+        }
+        int[] buckets = new int[8];
+        int n = 0;
+        // Depth-first over differing nodes; the stack holds (level, index) pairs
+        int[] stack = new int[2 * (DEPTH * FANOUT + 1)];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int index = stack[--top];
+            int level = stack[--top];
+            if (level == DEPTH) {
+                if (n == buckets.length) {
+                    buckets = Arrays.copyOf(buckets, n * 2);
+                }
+                buckets[n++] = index;
+                continue;
+            }
+            // Push children in reverse so that buckets come out in ascending order
+            for (int child = (index + 1) * FANOUT - 1; child >= index * FANOUT; child--) {
+                if (levels[level + 1][child] != other.levels[level + 1][child]) {
+                    stack[top++] = level + 1;
+                    stack[top++] = child;
+                }
+            }
+        }
+        return Arrays.copyOf(buckets, n);
+    }
+}
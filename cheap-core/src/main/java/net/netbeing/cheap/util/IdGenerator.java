@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Source of new global ids for entities, catalogs and aspect definitions.
+ * {@link net.netbeing.cheap.impl.basic.CheapFactory CheapFactory} mints ids through
+ * a configurable generator, and objects constructed without a factory use
+ * {@link #timeOrdered()}.
+ * <p>
+ * Implementations must be thread-safe and must not return the same id twice.
+ */
+@FunctionalInterface
+public interface IdGenerator
+{
+    /**
+     * Returns a new, unique id.
+     *
+     * @return a new UUID
+     */
+    @NotNull UUID newId();
+
+    /**
+     * Returns the shared generator of time-ordered (version 7) UUIDs. This is the
+     * default generator.
+     *
+     * @return the time-ordered generator
+     * @see TimeOrderedIdGenerator
+     */
+    static @NotNull IdGenerator timeOrdered()
+    {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    /**
+     * Returns a generator of random (version 4) UUIDs from {@link UUID#randomUUID()},
+     * which draws on a shared SecureRandom.
+     *
+     * @return the random generator
+     */
+    static @NotNull IdGenerator random()
+    {
+        return UUID::randomUUID;
+    }
+}
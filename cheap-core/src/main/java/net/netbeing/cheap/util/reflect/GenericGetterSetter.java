@@ -153,4 +153,102 @@ public interface GenericGetterSetter
      * @throws RuntimeException if the underlying setter method throws an exception
      */
     void set(Object target, char arg0);
+
+    /**
+     * Retrieves an integral property value from the target object as a long.
+     * <p>
+     * The default implementation unboxes the result of {@link #get(Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for getters returning a
+     * primitive integral type override this to avoid boxing.
+     *
+     * @param target the object from which to retrieve the property value
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a number
+     */
+    default long getLong(Object target)
+    {
+        return ((Number) get(target)).longValue();
+    }
+
+    /**
+     * Retrieves a floating point property value from the target object as a double.
+     * <p>
+     * The default implementation unboxes the result of {@link #get(Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for getters returning a
+     * primitive float or double override this to avoid boxing.
+     *
+     * @param target the object from which to retrieve the property value
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a number
+     */
+    default double getDouble(Object target)
+    {
+        return ((Number) get(target)).doubleValue();
+    }
+
+    /**
+     * Retrieves a boolean property value from the target object.
+     * <p>
+     * The default implementation unboxes the result of {@link #get(Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for getters returning a
+     * primitive boolean override this to avoid boxing.
+     *
+     * @param target the object from which to retrieve the property value
+     * @return the property value
+     * @throws NullPointerException if the property value is null
+     * @throws ClassCastException if the property value is not a boolean
+     */
+    default boolean getBoolean(Object target)
+    {
+        return (Boolean) get(target);
+    }
+
+    /**
+     * Sets an integral property value on the target object, converting it to the
+     * setter's parameter type.
+     * <p>
+     * The default implementation boxes the value and calls {@link #set(Object, Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for setters taking a primitive
+     * parameter override this to call the matching primitive setter.
+     *
+     * @param target the object on which to set the property value
+     * @param value the value to set
+     */
+    default void setLong(Object target, long value)
+    {
+        set(target, (Object) value);
+    }
+
+    /**
+     * Sets a floating point property value on the target object, converting it to
+     * the setter's parameter type.
+     * <p>
+     * The default implementation boxes the value and calls {@link #set(Object, Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for setters taking a primitive
+     * parameter override this to call the matching primitive setter.
+     *
+     * @param target the object on which to set the property value
+     * @param value the value to set
+     */
+    default void setDouble(Object target, double value)
+    {
+        set(target, (Object) value);
+    }
+
+    /**
+     * Sets a boolean property value on the target object.
+     * <p>
+     * The default implementation boxes the value and calls {@link #set(Object, Object)}.
+     * Wrappers created by {@link ReflectionWrapper} for setters taking a primitive
+     * boolean override this to call the primitive setter.
+     *
+     * @param target the object on which to set the property value
+     * @param value the value to set
+     */
+    default void setBoolean(Object target, boolean value)
+    {
+        set(target, (Object) value);
+    }
 }
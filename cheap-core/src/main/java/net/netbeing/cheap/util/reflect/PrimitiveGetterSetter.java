@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package net.netbeing.cheap.util.reflect;
+
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link GenericGetterSetter} decorator that adds boxing-free primitive access
+ * for getters returning, or setters taking, a primitive value.
+ * <p>
+ * All generic operations are delegated to the wrapped lambda. For getters, the
+ * {@code getLong}/{@code getDouble}/{@code getBoolean} methods call a second,
+ * primitive-returning lambda generated for the same method. For setters, the
+ * {@code setLong}/{@code setDouble}/{@code setBoolean} methods narrow the value
+ * to the setter's parameter type and call the matching primitive overload.
+ *
+ * @see ReflectionWrapper#createWrapper(java.lang.reflect.Method)
+ */
+final class PrimitiveGetterSetter implements GenericGetterSetter
+{
+    /** The generic wrapper for the target method. */
+    private final GenericGetterSetter delegate;
+
+    /** The primitive return type of the getter, or parameter type of the setter. */
+    private final Class<?> type;
+
+    private final ToLongFunction<Object> longGetter;
+    private final ToDoubleFunction<Object> doubleGetter;
+    private final Predicate<Object> booleanGetter;
+
+    PrimitiveGetterSetter(GenericGetterSetter delegate, Class<?> type)
+    {
+        this(delegate, type, null, null, null);
+    }
+
+    PrimitiveGetterSetter(GenericGetterSetter delegate, Class<?> type, ToLongFunction<Object> longGetter)
+    {
+        this(delegate, type, longGetter, null, null);
+    }
+
+    PrimitiveGetterSetter(GenericGetterSetter delegate, Class<?> type, ToDoubleFunction<Object> doubleGetter)
+    {
+        this(delegate, type, null, doubleGetter, null);
+    }
+
+    PrimitiveGetterSetter(GenericGetterSetter delegate, Class<?> type, Predicate<Object> booleanGetter)
+    {
+        this(delegate, type, null, null, booleanGetter);
+    }
+
+    private PrimitiveGetterSetter(GenericGetterSetter delegate, Class<?> type, ToLongFunction<Object> longGetter,
+                                  ToDoubleFunction<Object> doubleGetter, Predicate<Object> booleanGetter)
+    {
+        this.delegate = delegate;
+        this.type = type;
+        this.longGetter = longGetter;
+        this.doubleGetter = doubleGetter;
+        this.booleanGetter = booleanGetter;
+    }
+
+    @Override
+    public <T> T get(Object target)
+    {
+        return delegate.get(target);
+    }
+
+    @Override
+    public long getLong(Object target)
+    {
+        if (longGetter != null) {
+            return longGetter.applyAsLong(target);
+        }
+        if (doubleGetter != null) {
+            return (long) doubleGetter.applyAsDouble(target);
+        }
+        return GenericGetterSetter.super.getLong(target);
+    }
+
+    @Override
+    public double getDouble(Object target)
+    {
+        if (doubleGetter != null) {
+            return doubleGetter.applyAsDouble(target);
+        }
+        if (longGetter != null) {
+            return longGetter.applyAsLong(target);
+        }
+        return GenericGetterSetter.super.getDouble(target);
+    }
+
+    @Override
+    public boolean getBoolean(Object target)
+    {
+        if (booleanGetter != null) {
+            return booleanGetter.test(target);
+        }
+        return GenericGetterSetter.super.getBoolean(target);
+    }
+
+    @Override
+    public void setLong(Object target, long value)
+    {
+        if (type == long.class) {
+            delegate.set(target, value);
+        } else if (type == int.class) {
+            delegate.set(target, (int) value);
+        } else if (type == short.class) {
+            delegate.set(target, (short) value);
+        } else if (type == byte.class) {
+            delegate.set(target, (byte) value);
+        } else if (type == double.class) {
+            delegate.set(target, (double) value);
+        } else if (type == float.class) {
+            delegate.set(target, (float) value);
+        } else {
+            GenericGetterSetter.super.setLong(target, value);
+        }
+    }
+
+    @Override
+    public void setDouble(Object target, double value)
+    {
+        if (type == double.class) {
+            delegate.set(target, value);
+        } else if (type == float.class) {
+            delegate.set(target, (float) value);
+        } else {
+            GenericGetterSetter.super.setDouble(target, value);
+        }
+    }
+
+    @Override
+    public void setBoolean(Object target, boolean value)
+    {
+        if (type == boolean.class) {
+            delegate.set(target, value);
+        } else {
+            GenericGetterSetter.super.setBoolean(target, value);
+        }
+    }
+
+    @Override
+    public void set(Object target, Object arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, int arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, long arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, double arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, float arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, boolean arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, byte arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, short arg0)
+    {
+        delegate.set(target, arg0);
+    }
+
+    @Override
+    public void set(Object target, char arg0)
+    {
+        delegate.set(target, arg0);
+    }
+}
@@ -24,9 +24,13 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Factory for creating optimized lambda-based implementations of reflection operations.
@@ -91,11 +95,13 @@ public final class ReflectionWrapper
 
     // Static initialization: build the signature mapping for all GenericGetterSetter methods
     static {
-        Arrays.stream(GenericGetterSetter.class.getDeclaredMethods()).forEach(method -> {
-            GetterSetterSignature methodSignature = GetterSetterSignature.fromWrapper(method);
-            MethodDef metadata = new MethodDef(method);
-            genericMethods.put(methodSignature, metadata);
-        });
+        Arrays.stream(GenericGetterSetter.class.getDeclaredMethods())
+            .filter(method -> Modifier.isAbstract(method.getModifiers()))
+            .forEach(method -> {
+                GetterSetterSignature methodSignature = GetterSetterSignature.fromWrapper(method);
+                MethodDef metadata = new MethodDef(method);
+                genericMethods.put(methodSignature, metadata);
+            });
     }
 
     /**
@@ -142,12 +148,63 @@ public final class ReflectionWrapper
     public static <F> F createWrapper(Method method)
     {
         try {
-            return getNoCheckedExceptions(() -> (F) createCallSite(method).getTarget().invoke());
+            GenericGetterSetter generic = getNoCheckedExceptions(() -> (GenericGetterSetter) createCallSite(method).getTarget().invoke());
+            return (F) withPrimitiveAccess(method, generic);
         } catch (Throwable throwable) {
             throw new CheapException(throwable);
         }
     }
 
+    /**
+     * Adds boxing-free primitive access to a wrapper if the target method is a
+     * getter returning, or a setter taking, a primitive value.
+     * <p>
+     * For getters, an additional lambda is generated that implements the matching
+     * {@code java.util.function} primitive functional interface, so that
+     * {@link GenericGetterSetter#getLong(Object)} and its siblings never box.
+     * For setters, the primitive {@code set} overload of the wrapper is already
+     * boxing-free and only needs to be selected by parameter type.
+     *
+     * @param method the target method
+     * @param generic the generic wrapper for the target method
+     * @return the wrapper, possibly decorated with primitive access
+     */
+    @SuppressWarnings("unchecked")
+    private static GenericGetterSetter withPrimitiveAccess(Method method, GenericGetterSetter generic) throws Throwable // NOSONAR
+    {
+        if (method.getParameterCount() == 0) {
+            Class<?> type = method.getReturnType();
+            if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+                return new PrimitiveGetterSetter(generic, type, (ToLongFunction<Object>) createPrimitiveGetter(method, ToLongFunction.class, "applyAsLong", long.class));
+            } else if (type == double.class || type == float.class) {
+                return new PrimitiveGetterSetter(generic, type, (ToDoubleFunction<Object>) createPrimitiveGetter(method, ToDoubleFunction.class, "applyAsDouble", double.class));
+            } else if (type == boolean.class) {
+                return new PrimitiveGetterSetter(generic, type, (Predicate<Object>) createPrimitiveGetter(method, Predicate.class, "test", boolean.class));
+            }
+        } else if (method.getParameterCount() == 1 && method.getParameterTypes()[0].isPrimitive()) {
+            return new PrimitiveGetterSetter(generic, method.getParameterTypes()[0]);
+        }
+        return generic;
+    }
+
+    /**
+     * Generates a lambda implementing a primitive-returning functional interface
+     * for the given getter method.
+     *
+     * @param method the getter method
+     * @param iface the functional interface to implement
+     * @param methodName the name of the interface's abstract method
+     * @param returnType the primitive return type of the interface's abstract method
+     * @return the lambda instance
+     */
+    private static Object createPrimitiveGetter(Method method, Class<?> iface, String methodName, Class<?> returnType) throws Throwable // NOSONAR
+    {
+        MethodHandle methodHandle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(iface),
+            MethodType.methodType(returnType, Object.class), methodHandle, MethodType.methodType(returnType, method.getDeclaringClass()));
+        return site.getTarget().invoke();
+    }
+
     /**
      * Creates a lambda metafactory call site for the specified method.
      * <p>
@@ -0,0 +1,188 @@
+package net.netbeing.cheap.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogJournalTest
+{
+    private Path dir;
+    private CatalogJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("cheap-journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (journal != null) {
+            journal.close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static byte[] record(String s)
+    {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> records(CatalogJournal journal) throws IOException
+    {
+        List<String> records = new ArrayList<>();
+        journal.replay(buf -> {
+            byte[] bytes = new byte[buf.remaining()];
+            buf.get(bytes);
+            records.add(new String(bytes, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+
+    private List<Path> segments() throws IOException
+    {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void appendAndReplay_SurvivesReopen() throws IOException
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        journal.sync(journal.append(record("one")));
+        journal.sync(journal.append(record("two")));
+        journal.close();
+
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        assertEquals(List.of("one", "two"), records(journal));
+
+        journal.append(record("three"));
+        assertEquals(List.of("one", "two", "three"), records(journal));
+    }
+
+    @Test
+    void open_TornTail_TruncatedToLastCompleteRecord() throws IOException
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        journal.sync(journal.append(record("kept")));
+        journal.sync(journal.append(record("torn")));
+        journal.close();
+
+        Path segment = segments().getLast();
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 2);
+        }
+
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        assertEquals(List.of("kept"), records(journal));
+        journal.sync(journal.append(record("after")));
+        assertEquals(List.of("kept", "after"), records(journal));
+    }
+
+    @Test
+    void open_CorruptChecksum_RecordDiscarded() throws IOException
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        journal.sync(journal.append(record("good")));
+        journal.sync(journal.append(record("flipped")));
+        journal.close();
+
+        Path segment = segments().getLast();
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[] { 'X' }), ch.size() - 1);
+        }
+
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        assertEquals(List.of("good"), records(journal));
+    }
+
+    @Test
+    void append_FullSegment_RollsToNewSegment() throws IOException
+    {
+        journal = CatalogJournal.open(dir, 20);
+        for (int i = 0; i < 5; i++) {
+            journal.append(record("record-" + i));
+        }
+
+        assertEquals(5, segments().size());
+        assertEquals(List.of("record-0", "record-1", "record-2", "record-3", "record-4"), records(journal));
+    }
+
+    @Test
+    void checkpointAndTruncate_DeletesOlderSegments() throws IOException
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        journal.append(record("old"));
+        long mark = journal.checkpoint();
+        journal.append(record("new"));
+
+        journal.truncate(mark);
+
+        assertEquals(1, segments().size());
+        assertEquals(List.of("new"), records(journal));
+        assertEquals(journal.checkpoint(), journal.checkpoint());
+    }
+
+    @Test
+    void sync_CoveredPosition_DoesNotForceAgain() throws IOException
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        long first = journal.append(record("a"));
+        long second = journal.append(record("b"));
+
+        journal.sync(second);
+        journal.sync(first);
+
+        assertEquals(1, journal.forces());
+    }
+
+    @Test
+    void sync_ConcurrentWriters_AllRecordsDurable() throws Exception
+    {
+        journal = CatalogJournal.open(dir, CatalogJournal.DEFAULT_SEGMENT_SIZE);
+        int threads = 8;
+        int perThread = 50;
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            writers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.sync(journal.append(record(id + ":" + i)));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(threads * perThread, records(journal).size());
+        assertTrue(journal.forces() <= threads * perThread);
+    }
+}
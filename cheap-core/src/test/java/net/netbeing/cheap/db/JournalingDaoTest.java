@@ -0,0 +1,369 @@
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.impl.basic.AspectObjectMapImpl;
+import net.netbeing.cheap.impl.basic.CatalogImpl;
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.impl.basic.MutableAspectDefImpl;
+import net.netbeing.cheap.impl.basic.PropertyDefBuilder;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalingDaoTest
+{
+    /**
+     * Stands in for a database: takes the recorded changes on each save, and loads
+     * whatever catalog it is given.
+     */
+    private static class StoreDao implements CheapDao
+    {
+        final List<UUID> catalogSaves = new CopyOnWriteArrayList<>();
+        final List<Map<String, ChangeSet<?>>> changeSaves = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        volatile Catalog stored;
+
+        @Override
+        public void saveCatalog(@NotNull Catalog catalog) throws SQLException
+        {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new SQLException("boom");
+            }
+            drain(catalog);
+            catalogSaves.add(catalog.globalId());
+        }
+
+        @Override
+        public void saveChanges(@NotNull Catalog catalog) throws SQLException
+        {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new SQLException("boom");
+            }
+            changeSaves.add(drain(catalog));
+        }
+
+        private static Map<String, ChangeSet<?>> drain(Catalog catalog)
+        {
+            Map<String, ChangeSet<?>> drained = new LinkedHashMap<>();
+            for (Hierarchy hierarchy : catalog.hierarchies()) {
+                if (hierarchy.changes() != null) {
+                    drained.put(hierarchy.name(), hierarchy.changes().drain());
+                }
+            }
+            return drained;
+        }
+
+        @Override public Catalog loadCatalog(@NotNull UUID catalogId) { return stored; }
+        @Override public boolean catalogExists(@NotNull UUID catalogId) { return stored != null; }
+        @Override public boolean deleteCatalog(@NotNull UUID catalogId) { return false; }
+        @Override public void addAspectTableMapping(@NotNull AspectTableMapping mapping) { }
+        @Override public AspectTableMapping getAspectTableMapping(@NotNull String aspectDefName) { return null; }
+        @Override public void createTable(@NotNull AspectTableMapping mapping) { }
+        @Override public String mapPropertyTypeToSqlType(@NotNull PropertyType type) { return null; }
+        @Override public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) { }
+        @Override public void saveAspectDef(@NotNull Connection conn, @NotNull AspectDef aspectDef) { }
+        @Override public void saveHierarchy(@NotNull Connection conn, @NotNull Hierarchy hierarchy) { }
+        @Override public Catalog loadCatalogWithConnection(@NotNull Connection conn, @NotNull UUID catalogId) { return stored; }
+        @Override public Hierarchy createAndLoadHierarchy(@NotNull Connection conn, @NotNull Catalog catalog, @NotNull HierarchyType type, @NotNull String hierarchyName, long version) { return null; }
+        @Override public Aspect loadAspect(@NotNull Connection conn, @NotNull Entity entity, @NotNull AspectDef aspectDef, @NotNull Catalog catalog) { return null; }
+        @Override public AspectDef loadAspectDef(@NotNull Connection conn, @NotNull String aspectDefName) { return null; }
+    }
+
+    private final StoreDao delegate = new StoreDao();
+    private final List<JournalingDao> daos = new ArrayList<>();
+    private Path dir;
+
+    private final MutableAspectDefImpl def = new MutableAspectDefImpl("person", new UUID(5, 5));
+    private final Entity a = new EntityImpl();
+    private final Entity b = new EntityImpl();
+    private final Entity c = new EntityImpl();
+    private Catalog catalog;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("cheap-journaling");
+        def.add(new PropertyDefBuilder().setName("name").setType(PropertyType.String).build());
+        def.add(new PropertyDefBuilder().setName("age").setType(PropertyType.Integer).setIsNullable(true).build());
+        def.add(new PropertyDefBuilder().setName("balance").setType(PropertyType.BigDecimal).build());
+        def.add(new PropertyDefBuilder().setName("born").setType(PropertyType.DateTime).build());
+        def.add(new PropertyDefBuilder().setName("photo").setType(PropertyType.BLOB).build());
+        catalog = new CatalogImpl();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        for (JournalingDao dao : daos) {
+            dao.close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private JournalingDao open()
+    {
+        return open(JournalingDao.DEFAULT_CHECKPOINT_SIZE);
+    }
+
+    private JournalingDao open(long checkpointSize)
+    {
+        JournalingDao dao = new JournalingDao(delegate, dir, new CheapFactory(), CatalogJournal.DEFAULT_SEGMENT_SIZE, checkpointSize);
+        daos.add(dao);
+        return dao;
+    }
+
+    private Aspect person(Entity entity, String name, Long age)
+    {
+        Aspect aspect = new AspectObjectMapImpl(entity, def);
+        aspect.unsafeWrite("name", name);
+        aspect.unsafeWrite("age", age);
+        aspect.unsafeWrite("balance", new BigDecimal("1234.5600"));
+        aspect.unsafeWrite("born", ZonedDateTime.of(1990, 4, 1, 12, 30, 0, 500, ZoneId.of("Europe/Paris")));
+        aspect.unsafeWrite("photo", new byte[] { 1, 2, 3 });
+        return aspect;
+    }
+
+    private static List<UUID> ids(Iterable<Entity> entities)
+    {
+        List<UUID> ids = new ArrayList<>();
+        for (Entity entity : entities) {
+            ids.add(entity.globalId());
+        }
+        return ids;
+    }
+
+    @Test
+    void saveChanges_Reopened_ReplaysEveryHierarchyType() throws SQLException
+    {
+        EntityListHierarchy list = catalog.createEntityList("list", 0L);
+        list.addAll(List.of(a, b, a));
+        catalog.createEntitySet("set", 0L).addAll(Set.of(a, b));
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        dir.put("x", a);
+        dir.put("y", b);
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", 0L);
+        CheapFactory factory = new CheapFactory();
+        EntityTreeHierarchy.Node node = factory.createTreeNode(a, tree.root());
+        tree.root().put("n", node);
+        node.put("leaf", factory.createTreeLeafNode(b, node));
+        catalog.createAspectMap(def, 0L).put(a, person(a, "Ann", 42L));
+
+        open().saveChanges(catalog);
+        Catalog recovered = open().loadCatalog(catalog.globalId());
+
+        assertNotNull(recovered);
+        assertNotSame(catalog, recovered);
+        assertEquals(catalog.globalId(), recovered.globalId());
+        assertEquals(ids(list), ids((EntityListHierarchy) recovered.hierarchy("list")));
+        assertEquals(Set.of(a, b), recovered.hierarchy("set"));
+        assertEquals(Map.of("x", a, "y", b), recovered.hierarchy("dir"));
+
+        EntityTreeHierarchy.Node recoveredNode = ((EntityTreeHierarchy) recovered.hierarchy("tree")).root().get("n");
+        assertEquals(a, recoveredNode.value());
+        assertTrue(recoveredNode.get("leaf").isLeaf());
+        assertEquals(b, recoveredNode.get("leaf").value());
+
+        AspectMapHierarchy people = recovered.aspects("person");
+        assertEquals(def.globalId(), people.aspectDef().globalId());
+        assertEquals(5, people.aspectDef().size());
+        Aspect ann = people.get(a);
+        assertEquals("Ann", ann.unsafeReadObj("name"));
+        assertEquals(42L, ann.unsafeReadObj("age"));
+        assertEquals(new BigDecimal("1234.5600"), ann.unsafeReadObj("balance"));
+        assertEquals(person(a, "Ann", 42L).unsafeReadObj("born"), ann.unsafeReadObj("born"));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) ann.unsafeReadObj("photo"));
+    }
+
+    @Test
+    void saveChanges_Deltas_ReplayedInOrder() throws SQLException
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.addAll(Set.of(a, b));
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        dir.put("x", a);
+        AspectMapHierarchy people = catalog.createAspectMap(def, 0L);
+        people.put(a, person(a, "Ann", 42L));
+        JournalingDao dao = open();
+        dao.saveChanges(catalog);
+
+        set.remove(b);
+        set.add(c);
+        dir.remove("x");
+        dir.put("z", c);
+        people.remove(a);
+        people.put(b, person(b, "Bob", null));
+        dao.saveChanges(catalog);
+
+        Catalog recovered = open().loadCatalog(catalog.globalId());
+        assertEquals(Set.of(a, c), recovered.hierarchy("set"));
+        assertEquals(Map.of("z", c), recovered.hierarchy("dir"));
+        AspectMapHierarchy recoveredPeople = recovered.aspects("person");
+        assertEquals(Set.of(b), recoveredPeople.keySet());
+        assertEquals("Bob", recoveredPeople.get(b).unsafeReadObj("name"));
+        assertNull(recoveredPeople.get(b).unsafeReadObj("age"));
+    }
+
+    @Test
+    void checkpoint_WritesAccumulatedChangesAndTruncates() throws SQLException
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.changes().clear();
+        JournalingDao dao = open();
+        set.add(a);
+        dao.saveChanges(catalog);
+        set.add(b);
+        dao.saveChanges(catalog);
+        assertTrue(delegate.changeSaves.isEmpty());
+        assertTrue(set.changes().isEmpty());
+
+        dao.checkpoint(catalog);
+
+        assertEquals(1, delegate.changeSaves.size());
+        assertEquals(Set.of(a, b), delegate.changeSaves.getFirst().get("set").updated());
+        assertEquals(0L, dao.journalSize(catalog.globalId()));
+        assertNull(open().loadCatalog(catalog.globalId()));
+    }
+
+    @Test
+    void saveChanges_PastCheckpointSize_CheckpointsAutomatically() throws SQLException
+    {
+        catalog.createEntitySet("set", 0L).add(a);
+        JournalingDao dao = open(1L);
+
+        dao.saveChanges(catalog);
+
+        assertEquals(1, delegate.changeSaves.size());
+        assertEquals(0L, dao.journalSize(catalog.globalId()));
+    }
+
+    @Test
+    void checkpoint_DelegateFails_JournalKeptAndChangesJournaledAgain() throws SQLException
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.changes().clear();
+        JournalingDao dao = open();
+        set.add(a);
+        dao.saveChanges(catalog);
+        delegate.failuresLeft.set(1);
+
+        assertThrows(SQLException.class, () -> dao.checkpoint(catalog));
+        assertTrue(dao.journalSize(catalog.globalId()) > 0);
+        assertEquals(Set.of(a), set.changes().updated());
+
+        set.add(b);
+        dao.saveChanges(catalog);
+        dao.checkpoint(catalog);
+
+        assertEquals(Set.of(a, b), delegate.changeSaves.getFirst().get("set").updated());
+        assertEquals(0L, dao.journalSize(catalog.globalId()));
+    }
+
+    @Test
+    void loadCatalog_DelegateAlreadyHasChanges_ReplayIsIdempotent() throws SQLException
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.add(a);
+        JournalingDao dao = open();
+        dao.saveChanges(catalog);
+        set.add(b);
+        dao.saveChanges(catalog);
+        delegate.stored = catalog;
+
+        Catalog recovered = open().loadCatalog(catalog.globalId());
+
+        assertSame(catalog, recovered);
+        assertEquals(Set.of(a, b), set);
+        assertTrue(set.changes().isEmpty());
+    }
+
+    @Test
+    void loadCatalog_TornRecord_Discarded() throws SQLException, IOException
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.add(a);
+        JournalingDao dao = open();
+        dao.saveChanges(catalog);
+        set.add(b);
+        dao.saveChanges(catalog);
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir.resolve(catalog.globalId().toString()))) {
+            segment = files.sorted().toList().getLast();
+        }
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        Catalog recovered = open().loadCatalog(catalog.globalId());
+        assertEquals(Set.of(a), recovered.hierarchy("set"));
+    }
+
+    @Test
+    void saveCatalog_TruncatesJournal() throws SQLException
+    {
+        catalog.createEntitySet("set", 0L).add(a);
+        JournalingDao dao = open();
+        dao.saveChanges(catalog);
+        assertTrue(dao.catalogExists(catalog.globalId()));
+
+        dao.saveCatalog(catalog);
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+        assertEquals(0L, dao.journalSize(catalog.globalId()));
+        assertFalse(dao.catalogExists(catalog.globalId()));
+    }
+
+    @Test
+    void deleteCatalog_RemovesJournal() throws SQLException
+    {
+        catalog.createEntitySet("set", 0L).add(a);
+        JournalingDao dao = open();
+        dao.saveChanges(catalog);
+
+        assertTrue(dao.deleteCatalog(catalog.globalId()));
+
+        assertFalse(Files.exists(dir.resolve(catalog.globalId().toString())));
+        assertNull(dao.loadCatalog(catalog.globalId()));
+    }
+}
@@ -0,0 +1,398 @@
+package net.netbeing.cheap.db;
+
+import net.netbeing.cheap.impl.basic.CatalogImpl;
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.impl.basic.MutableAspectDefImpl;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindDaoTest
+{
+    /**
+     * Records the saves it receives; optionally fails or blocks.
+     */
+    private static class RecordingDao implements CheapDao
+    {
+        final List<UUID> catalogSaves = new CopyOnWriteArrayList<>();
+        final List<Map<AspectDef, Set<Entity>>> aspectSaves = new CopyOnWriteArrayList<>();
+        final List<UUID> changeSaves = new CopyOnWriteArrayList<>();
+        /** Number of catalog saves that had landed at each delete. */
+        final List<Integer> deletes = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        volatile CountDownLatch gate;
+
+        private void maybeFailOrBlock() throws SQLException
+        {
+            CountDownLatch g = gate;
+            if (g != null) {
+                try {
+                    g.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new SQLException("boom");
+            }
+        }
+
+        @Override
+        public void saveCatalog(@NotNull Catalog catalog) throws SQLException
+        {
+            maybeFailOrBlock();
+            catalogSaves.add(catalog.globalId());
+        }
+
+        @Override
+        public void saveAspects(@NotNull Catalog catalog, @NotNull Map<AspectDef, ? extends Collection<Entity>> aspects) throws SQLException
+        {
+            maybeFailOrBlock();
+            Map<AspectDef, Set<Entity>> copy = new LinkedHashMap<>();
+            aspects.forEach((def, entities) -> copy.put(def, Set.copyOf(entities)));
+            aspectSaves.add(copy);
+        }
+
+        @Override
+        public void saveChanges(@NotNull Catalog catalog) throws SQLException
+        {
+            maybeFailOrBlock();
+            changeSaves.add(catalog.globalId());
+        }
+
+        @Override public boolean catalogExists(@NotNull UUID catalogId) { return catalogSaves.contains(catalogId); }
+        @Override public void addAspectTableMapping(@NotNull AspectTableMapping mapping) { }
+        @Override public AspectTableMapping getAspectTableMapping(@NotNull String aspectDefName) { return null; }
+        @Override public void createTable(@NotNull AspectTableMapping mapping) { }
+        @Override public String mapPropertyTypeToSqlType(@NotNull PropertyType type) { return null; }
+        @Override public void saveCatalog(@NotNull Connection conn, @NotNull Catalog catalog) { }
+        @Override public void saveAspectDef(@NotNull Connection conn, @NotNull AspectDef aspectDef) { }
+        @Override public void saveHierarchy(@NotNull Connection conn, @NotNull Hierarchy hierarchy) { }
+        @Override public Catalog loadCatalog(@NotNull UUID catalogId) { return null; }
+        @Override public Catalog loadCatalogWithConnection(@NotNull Connection conn, @NotNull UUID catalogId) { return null; }
+        @Override public Hierarchy createAndLoadHierarchy(@NotNull Connection conn, @NotNull Catalog catalog, @NotNull HierarchyType type, @NotNull String hierarchyName, long version) { return null; }
+        @Override public Aspect loadAspect(@NotNull Connection conn, @NotNull Entity entity, @NotNull AspectDef aspectDef, @NotNull Catalog catalog) { return null; }
+        @Override public AspectDef loadAspectDef(@NotNull Connection conn, @NotNull String aspectDefName) { return null; }
+        @Override
+        public boolean deleteCatalog(@NotNull UUID catalogId)
+        {
+            deletes.add(catalogSaves.size());
+            return false;
+        }
+    }
+
+    private final RecordingDao delegate = new RecordingDao();
+    private WriteBehindDao dao;
+
+    private final AspectDef def = new MutableAspectDefImpl("person");
+    private final Entity a = new EntityImpl();
+    private final Entity b = new EntityImpl();
+
+    @AfterEach
+    void tearDown()
+    {
+        if (dao != null) {
+            dao.close();
+        }
+    }
+
+    private static Catalog cacheCatalog()
+    {
+        return new CatalogImpl(CatalogSpecies.CACHE, UUID.randomUUID());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void saveCatalog_NotCache_WritesImmediately() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog sink = new CatalogImpl();
+
+        dao.saveCatalog(sink);
+
+        assertEquals(List.of(sink.globalId()), delegate.catalogSaves);
+        assertEquals(0, dao.pendingWrites());
+    }
+
+    @Test
+    void saveCatalog_CacheRepeated_CoalescesIntoOneWrite() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        for (int i = 0; i < 100; i++) {
+            dao.saveCatalog(catalog);
+        }
+        assertEquals(1, dao.pendingWrites());
+        assertTrue(delegate.catalogSaves.isEmpty());
+
+        dao.flush();
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+        assertEquals(0, dao.pendingWrites());
+    }
+
+    @Test
+    void saveAspects_SameEntityAndDef_Coalesced() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        dao.saveAspects(catalog, Map.of(def, List.of(a)));
+        dao.saveAspects(catalog, Map.of(def, List.of(a, b)));
+        dao.saveAspects(catalog, Map.of(def, List.of(b)));
+        assertEquals(3, dao.pendingWrites());
+
+        dao.flush();
+
+        assertTrue(delegate.catalogSaves.isEmpty());
+        assertEquals(List.of(Map.of(def, Set.of(a, b))), delegate.aspectSaves);
+    }
+
+    @Test
+    void saveCatalog_AfterAspects_SubsumesThem() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        dao.saveAspects(catalog, Map.of(def, List.of(a, b)));
+        dao.saveCatalog(catalog);
+        dao.saveAspects(catalog, Map.of(def, List.of(a)));
+        assertEquals(1, dao.pendingWrites());
+
+        dao.flush();
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+        assertTrue(delegate.aspectSaves.isEmpty());
+    }
+
+    @Test
+    void saveChanges_Repeated_CoalescedWithAspects() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        dao.saveChanges(catalog);
+        dao.saveAspects(catalog, Map.of(def, List.of(a)));
+        dao.saveChanges(catalog);
+        assertEquals(2, dao.pendingWrites());
+
+        dao.flush();
+
+        assertTrue(delegate.catalogSaves.isEmpty());
+        assertEquals(List.of(Map.of(def, Set.of(a))), delegate.aspectSaves);
+        assertEquals(List.of(catalog.globalId()), delegate.changeSaves);
+    }
+
+    @Test
+    void saveChanges_NotCache_WritesImmediately() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog sink = new CatalogImpl();
+
+        dao.saveChanges(sink);
+
+        assertEquals(List.of(sink.globalId()), delegate.changeSaves);
+        assertEquals(0, dao.pendingWrites());
+    }
+
+    @Test
+    void saveCatalog_AfterChanges_SubsumesThem() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        dao.saveChanges(catalog);
+        dao.saveCatalog(catalog);
+        dao.saveChanges(catalog);
+
+        dao.flush();
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+        assertTrue(delegate.changeSaves.isEmpty());
+    }
+
+    @Test
+    void flush_ChangesFail_RetriedAfterRequeue() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+        delegate.failuresLeft.set(1);
+
+        dao.saveChanges(catalog);
+        assertThrows(SQLException.class, dao::flush);
+        dao.flush();
+
+        assertEquals(List.of(catalog.globalId()), delegate.changeSaves);
+    }
+
+    @Test
+    void saveCatalog_BatchSizeReached_FlushesWithoutBarrier() throws Exception
+    {
+        dao = new WriteBehindDao(delegate, 2, 100, Duration.ofMinutes(1));
+
+        dao.saveCatalog(cacheCatalog());
+        dao.saveCatalog(cacheCatalog());
+
+        awaitTrue(() -> delegate.catalogSaves.size() == 2);
+    }
+
+    @Test
+    void saveCatalog_MaxDelayElapsed_Flushes() throws Exception
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMillis(20));
+
+        dao.saveCatalog(cacheCatalog());
+
+        awaitTrue(() -> delegate.catalogSaves.size() == 1);
+    }
+
+    @Test
+    void flush_DelegateFails_ThrowsThenRetries() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+        delegate.failuresLeft.set(1);
+
+        dao.saveCatalog(catalog);
+        assertThrows(SQLException.class, dao::flush);
+        dao.flush();
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+    }
+
+    @Test
+    void saveCatalog_QueueFull_BlocksUntilRoom() throws Exception
+    {
+        dao = new WriteBehindDao(delegate, 1, 1, Duration.ofMinutes(1));
+        delegate.gate = new CountDownLatch(1);
+
+        dao.saveCatalog(cacheCatalog());
+        awaitTrue(() -> dao.pendingWrites() == 0);
+        dao.saveCatalog(cacheCatalog());
+        Thread producer = new Thread(() -> {
+            try {
+                dao.saveCatalog(cacheCatalog());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+        awaitTrue(() -> producer.getState() == Thread.State.WAITING);
+        assertTrue(producer.isAlive());
+
+        delegate.gate.countDown();
+        producer.join(10_000);
+
+        assertFalse(producer.isAlive());
+        dao.flush();
+        assertEquals(3, delegate.catalogSaves.size());
+    }
+
+    @Test
+    void loadCatalog_PendingWrites_FlushesFirst() throws SQLException
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        dao.saveCatalog(catalog);
+
+        assertTrue(dao.catalogExists(catalog.globalId()));
+    }
+
+    @Test
+    void close_PendingWrites_Flushes()
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+
+        assertDoesNotThrow(() -> dao.saveCatalog(catalog));
+        dao.close();
+
+        assertEquals(List.of(catalog.globalId()), delegate.catalogSaves);
+        assertThrows(IllegalStateException.class, () -> dao.saveCatalog(catalog));
+    }
+
+    @Test
+    void deleteCatalog_PendingWrites_FlushAndLoadReturn() throws Exception
+    {
+        dao = new WriteBehindDao(delegate, 10, 100, Duration.ofMinutes(1));
+        Catalog catalog = cacheCatalog();
+        dao.saveCatalog(catalog);
+
+        dao.deleteCatalog(catalog.globalId());
+
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try {
+                dao.flush();
+                dao.loadCatalog(catalog.globalId());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.join(10_000);
+        assertFalse(reader.isAlive());
+        assertTrue(delegate.catalogSaves.isEmpty());
+        assertEquals(0, dao.pendingWrites());
+    }
+
+    @Test
+    void deleteCatalog_BatchInFlight_DeletesAfterItLands() throws Exception
+    {
+        dao = new WriteBehindDao(delegate, 1, 100, Duration.ofMinutes(1));
+        delegate.gate = new CountDownLatch(1);
+        Catalog catalog = cacheCatalog();
+        dao.saveCatalog(catalog);
+        awaitTrue(() -> dao.pendingWrites() == 0);
+
+        Thread deleter = Thread.ofPlatform().start(() -> {
+            try {
+                dao.deleteCatalog(catalog.globalId());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitTrue(() -> deleter.getState() == Thread.State.WAITING);
+        assertTrue(delegate.deletes.isEmpty());
+
+        delegate.gate.countDown();
+        deleter.join(10_000);
+
+        assertFalse(deleter.isAlive());
+        assertEquals(List.of(1), delegate.deletes);
+        dao.flush();
+    }
+}
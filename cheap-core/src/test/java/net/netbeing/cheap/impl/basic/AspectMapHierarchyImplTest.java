@@ -114,4 +114,13 @@ class AspectMapHierarchyImplTest
         assertTrue(values.contains(aspect1));
         assertTrue(values.contains(aspect2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void aspect_ByEntityId_ReturnsAspect()
+    {
+        hierarchy.put(entity1, aspect1);
+
+        assertSame(aspect1, hierarchy.aspect(entity1.globalId()));
+        assertNull(hierarchy.aspect(entity2.globalId()));
+    }
+}
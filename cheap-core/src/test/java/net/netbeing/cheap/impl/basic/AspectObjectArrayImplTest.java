@@ -0,0 +1,166 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AspectObjectArrayImplTest
+{
+    private Entity entity;
+    private MutableAspectDefImpl aspectDef;
+    private PropertyDef propDef1;
+    private PropertyDef propDef2;
+    private PropertyDef defaultedDef;
+    private AspectObjectArrayImpl aspect;
+
+    @BeforeEach
+    void setUp()
+    {
+        entity = new EntityImpl();
+        propDef1 = new PropertyDefBuilder().setName("prop1").setType(PropertyType.String).build();
+        propDef2 = new PropertyDefBuilder().setName("prop2").setType(PropertyType.Integer).build();
+        defaultedDef = new PropertyDefBuilder().setName("defaulted").setType(PropertyType.Integer)
+            .setDefaultValue(5L).setHasDefaultValue(true).build();
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("prop1", propDef1);
+        props.put("prop2", propDef2);
+        props.put("defaulted", defaultedDef);
+        aspectDef = new MutableAspectDefImpl("testAspect", props);
+        aspect = new AspectObjectArrayImpl(entity, aspectDef);
+    }
+
+    @Test
+    void constructor_NewAspect_SizesArrayToDef()
+    {
+        assertSame(entity, aspect.entity());
+        assertSame(aspectDef, aspect.def());
+        assertEquals(3, aspect.values.length);
+        assertNull(aspect.extraProps);
+        assertFalse(aspect.contains("prop1"));
+    }
+
+    @Test
+    void unsafeWrite_DefinedProperty_StoresInSlot()
+    {
+        aspect.unsafeWrite("prop1", "value");
+        aspect.unsafeWrite("prop2", 42L);
+
+        assertEquals("value", aspect.unsafeReadObj("prop1"));
+        assertEquals(42L, aspect.unsafeReadObj("prop2"));
+        assertEquals("value", aspect.unsafeReadSlot(aspectDef.slotOf("prop1")));
+        assertTrue(aspect.contains("prop1"));
+    }
+
+    @Test
+    void unsafeWrite_NullValue_IsContained()
+    {
+        aspect.unsafeWrite("prop1", null);
+
+        assertTrue(aspect.contains("prop1"));
+        assertNull(aspect.unsafeReadObj("prop1"));
+    }
+
+    @Test
+    void unsafeWrite_UndefinedProperty_ThrowsException()
+    {
+        assertThrows(IllegalArgumentException.class, () -> aspect.unsafeWrite("missing", "x"));
+    }
+
+    @Test
+    void unsafeReadObj_UnassignedWithDefault_ReturnsDefault()
+    {
+        assertTrue(aspect.contains("defaulted"));
+        assertEquals(5L, aspect.unsafeReadObj("defaulted"));
+
+        aspect.unsafeWrite("defaulted", 9L);
+        assertEquals(9L, aspect.unsafeReadObj("defaulted"));
+
+        aspect.unsafeRemove("defaulted");
+        assertEquals(5L, aspect.unsafeReadObj("defaulted"));
+    }
+
+    @Test
+    void unsafeRemove_AssignedProperty_ClearsSlot()
+    {
+        aspect.unsafeWrite("prop1", "value");
+
+        aspect.unsafeRemove("prop1");
+
+        assertFalse(aspect.contains("prop1"));
+        assertNull(aspect.unsafeReadObj("prop1"));
+    }
+
+    @Test
+    void unsafeAdd_PropertyNotInDef_StoresInExtraProps()
+    {
+        PropertyDef extraDef = new PropertyDefBuilder().setName("extra").setType(PropertyType.String).build();
+
+        aspect.unsafeAdd(new PropertyImpl(extraDef, "added"));
+
+        assertTrue(aspect.contains("extra"));
+        assertEquals("added", aspect.unsafeReadObj("extra"));
+        aspect.unsafeRemove("extra");
+        assertFalse(aspect.contains("extra"));
+    }
+
+    @Test
+    void unsafeAdd_PropertyInDef_StoresInSlot()
+    {
+        aspect.unsafeAdd(new PropertyImpl(propDef2, 7L));
+
+        assertEquals(7L, aspect.unsafeReadSlot(aspectDef.slotOf("prop2")));
+        assertNull(aspect.extraProps);
+    }
+
+    @Test
+    void unsafeWrite_PropertyAddedToDefLater_GrowsArray()
+    {
+        PropertyDef laterDef = new PropertyDefBuilder().setName("later").setType(PropertyType.String).build();
+        aspectDef.add(laterDef);
+
+        assertFalse(aspect.contains("later"));
+        aspect.unsafeWrite("later", "grown");
+
+        assertEquals("grown", aspect.unsafeReadObj("later"));
+        assertEquals(4, aspect.values.length);
+    }
+
+    @Test
+    void readObj_ViaAspectInterface_Works()
+    {
+        aspect.write("prop1", "checked");
+
+        assertEquals("checked", aspect.readObj("prop1"));
+        assertEquals("checked", aspect.get("prop1").unsafeRead());
+    }
+
+    @Test
+    void unsafeReadObj_PropertyRemovedFromDefAndReAdded_DoesNotShowOldValue()
+    {
+        AspectObjectArrayImpl other = new AspectObjectArrayImpl(new EntityImpl(), aspectDef);
+        aspect.unsafeWrite("prop1", "stale");
+        aspect.unsafeWrite("defaulted", 9L);
+        other.unsafeWrite("prop1", "kept");
+
+        aspectDef.remove(propDef1);
+        aspectDef.remove(defaultedDef);
+        aspect.unsafeWrite("prop2", 1L);
+        aspectDef.add(propDef1);
+        aspectDef.add(defaultedDef);
+
+        assertFalse(aspect.contains("prop1"));
+        assertNull(aspect.unsafeReadObj("prop1"));
+        assertEquals(5L, aspect.unsafeReadObj("defaulted"));
+        assertEquals(1L, aspect.unsafeReadObj("prop2"));
+        assertNull(other.unsafeReadSlot(aspectDef.slotOf("prop1")));
+        other.unsafeWrite("prop1", "fresh");
+        assertEquals("fresh", other.unsafeReadObj("prop1"));
+    }
+}
@@ -174,4 +174,46 @@ class AspectObjectMapImplTest
     {
         assertDoesNotThrow(() -> aspect.unsafeRemove("nonexistent"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void readLong_BoxedValue_Unboxes()
+    {
+        aspectDef.add(propDef2);
+        aspect.writeLong("prop2", 42L);
+
+        assertEquals(42L, aspect.readLong("prop2"));
+        assertEquals(42L, aspect.unsafeReadObj("prop2"));
+        assertEquals(42.0, aspect.readDouble("prop2"));
+    }
+
+    @Test
+    void readLong_NullValue_ThrowsException()
+    {
+        aspectDef.add(propDef2);
+        aspect.unsafeWrite("prop2", null);
+
+        assertThrows(NullPointerException.class, () -> aspect.readLong("prop2"));
+    }
+
+    @Test
+    void readLong_UnknownProperty_ThrowsException()
+    {
+        assertThrows(IllegalArgumentException.class, () -> aspect.readLong("missing"));
+    }
+
+    @Test
+    void unsafeReadPrimitives_StoredAndDefaultValues_ReadWithoutBoxing()
+    {
+        aspectDef.add(propDef2);
+        aspectDef.add(new PropertyDefBuilder().setName("ratio").setType(PropertyType.Float).setDefaultValue(0.5).setHasDefaultValue(true).build());
+        aspectDef.add(new PropertyDefBuilder().setName("flag").setType(PropertyType.Boolean).build());
+        aspect.unsafeWrite("prop2", 7L);
+        aspect.unsafeWrite("flag", true);
+
+        assertEquals(7L, aspect.unsafeReadLong("prop2"));
+        assertEquals(0.5, aspect.unsafeReadDouble("ratio"));
+        assertTrue(aspect.unsafeReadBoolean("flag"));
+        aspect.unsafeWrite("flag", null);
+        assertThrows(NullPointerException.class, () -> aspect.unsafeReadBoolean("flag"));
+    }
+}
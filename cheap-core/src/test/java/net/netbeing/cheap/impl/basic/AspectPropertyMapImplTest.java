@@ -329,4 +329,20 @@ class AspectPropertyMapImplTest
     {
         assertDoesNotThrow(() -> aspect.unsafeRemove("nonexistent"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void unsafeReadPrimitives_StoredAndDefaultValues_ReadWithoutBoxing()
+    {
+        aspectDef.add(propDef2);
+        aspectDef.add(new PropertyDefBuilder().setName("ratio").setType(PropertyType.Float).setDefaultValue(0.5).setHasDefaultValue(true).build());
+        aspectDef.add(new PropertyDefBuilder().setName("flag").setType(PropertyType.Boolean).build());
+        aspect.unsafeWrite("prop2", 7L);
+        aspect.unsafeWrite("flag", true);
+
+        assertEquals(7L, aspect.unsafeReadLong("prop2"));
+        assertEquals(0.5, aspect.unsafeReadDouble("ratio"));
+        assertTrue(aspect.unsafeReadBoolean("flag"));
+        aspect.unsafeWrite("flag", null);
+        assertThrows(NullPointerException.class, () -> aspect.unsafeReadBoolean("flag"));
+    }
+}
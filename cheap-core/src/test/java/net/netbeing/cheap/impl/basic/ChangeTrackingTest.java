@@ -0,0 +1,258 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.ChangeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeTrackingTest
+{
+    private CatalogImpl catalog;
+    private MutableAspectDefImpl aspectDef;
+    private Entity e1;
+    private Entity e2;
+    private Entity e3;
+
+    @BeforeEach
+    void setUp()
+    {
+        catalog = new CatalogImpl();
+        aspectDef = new MutableAspectDefImpl("tracked", new UUID(2, 2));
+        aspectDef.add(new PropertyDefBuilder().setName("name").setType(PropertyType.String).build());
+        e1 = new EntityImpl();
+        e2 = new EntityImpl();
+        e3 = new EntityImpl();
+    }
+
+    private Aspect aspect(Entity entity, String name)
+    {
+        Aspect aspect = new AspectObjectMapImpl(entity, aspectDef);
+        aspect.unsafeWrite("name", name);
+        return aspect;
+    }
+
+    @Test
+    void changes_NeverSaved_Whole()
+    {
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L);
+        map.put(e1, aspect(e1, "a"));
+
+        ChangeSet<Entity> changes = map.changes();
+        assertNotNull(changes);
+        assertTrue(changes.isWhole());
+        assertSame(changes, map.changes());
+    }
+
+    @Test
+    void aspectMap_RecordsPutsAndRemovals()
+    {
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L);
+        map.put(e1, aspect(e1, "a"));
+        map.put(e2, aspect(e2, "b"));
+        map.changes().clear();
+
+        map.put(e3, aspect(e3, "c"));
+        map.put(e1, aspect(e1, "a2"));
+        map.remove(e2);
+
+        assertEquals(Set.of(e3, e1), map.changes().updated());
+        assertEquals(Set.of(e2), map.changes().removed());
+
+        map.clear();
+        assertTrue(map.changes().isWhole());
+    }
+
+    @Test
+    void aspectMap_EntryIteratorRemove_Recorded()
+    {
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L);
+        map.put(e1, aspect(e1, "a"));
+        map.put(e2, aspect(e2, "b"));
+        map.changes().clear();
+
+        Iterator<?> it = map.entrySet().iterator();
+        it.next();
+        it.remove();
+
+        assertEquals(Set.of(e1), map.changes().removed());
+    }
+
+    @Test
+    void indexedAspectMap_WriteThroughView_Recorded()
+    {
+        AspectMapHierarchy map = new CheapFactory().createIndexedAspectMapHierarchy(catalog, aspectDef, 0L);
+        map.put(e1, aspect(e1, "a"));
+        map.put(e2, aspect(e2, "b"));
+        map.changes().clear();
+
+        map.get(e2).unsafeWrite("name", "b2");
+
+        assertEquals(Set.of(e2), map.changes().updated());
+        assertTrue(map.changes().removed().isEmpty());
+    }
+
+    @Test
+    void pagedAspectMap_RecordsPutsAndRemovals()
+    {
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L, AspectMapStorage.PAGED);
+        map.put(e1, aspect(e1, "a"));
+        map.put(e2, aspect(e2, "b"));
+        map.changes().clear();
+
+        map.put(e1, aspect(e1, "a2"));
+        map.remove(e2);
+
+        assertEquals(Set.of(e1), map.changes().updated());
+        assertEquals(Set.of(e2), map.changes().removed());
+    }
+
+    @Test
+    void columnarAspectMap_Untracked()
+    {
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L, AspectMapStorage.COLUMNAR);
+        assertNull(map.changes());
+    }
+
+    @Test
+    void entitySet_ReAddingMember_NotRecorded()
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.add(e1);
+        set.add(e2);
+        set.changes().clear();
+
+        set.add(e1);
+        assertTrue(set.changes().isEmpty());
+
+        set.add(e3);
+        set.remove(e2);
+        assertEquals(Set.of(e3), set.changes().updated());
+        assertEquals(Set.of(e2), set.changes().removed());
+    }
+
+    @Test
+    void entityDirectory_RecordsKeys()
+    {
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        dir.put("a", e1);
+        dir.put("b", e2);
+        dir.changes().clear();
+
+        dir.put("c", e3);
+        dir.put("a", e2);
+        dir.remove("b");
+
+        assertEquals(Set.of("c", "a"), dir.changes().updated());
+        assertEquals(Set.of("b"), dir.changes().removed());
+
+        dir.clear();
+        assertTrue(dir.changes().isWhole());
+    }
+
+    @Test
+    void entityList_WholeWhenChanged()
+    {
+        EntityListHierarchy list = catalog.createEntityList("list", 0L);
+        list.add(e1);
+        list.add(e2);
+        list.changes().clear();
+        assertTrue(list.changes().isEmpty());
+
+        list.set(0, e3);
+        assertTrue(list.changes().isWhole());
+
+        list.set(0, e1);
+        assertTrue(list.changes().isWhole());
+        list.changes().clear();
+        list.subList(0, 1).clear();
+        assertTrue(list.changes().isWhole());
+    }
+
+    @Test
+    void entityTree_WholeWhenNodesChange()
+    {
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", new EntityTreeHierarchyImpl.NodeImpl(null), 0L);
+        tree.root().put("a", new EntityTreeHierarchyImpl.NodeImpl(e1));
+        tree.root().get("a").put("b", new EntityTreeHierarchyImpl.LeafNodeImpl(e2));
+        tree.changes().clear();
+        assertTrue(tree.changes().isEmpty());
+
+        tree.root().get("a").get("b").setValue(e3);
+        assertTrue(tree.changes().isWhole());
+
+        tree.changes().clear();
+        tree.root().get("a").remove("b");
+        assertTrue(tree.changes().isWhole());
+    }
+
+    @Test
+    void entityTree_NodeRemovedFromTree_ChangesNotRecorded()
+    {
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", new EntityTreeHierarchyImpl.NodeImpl(null), 0L);
+        tree.root().put("a", new EntityTreeHierarchyImpl.NodeImpl(e1));
+        Node removed = tree.root().remove("a");
+        tree.changes().clear();
+
+        removed.setValue(e2);
+
+        assertTrue(tree.changes().isEmpty());
+    }
+
+    @Test
+    void entityTree_CompactForkableAndOverlay_WholeWhenNodesChange()
+    {
+        CompactEntityTreeHierarchyImpl compact = new CompactEntityTreeHierarchyImpl(catalog, "compact", 0L, false);
+        compact.root().put("a", new CompactEntityTreeHierarchyImpl.CompactNodeImpl(e1, compact.root()));
+        EntityTreeHierarchy forkable = new ForkableCatalogImpl().createEntityTree("forkable", null, 0L);
+        forkable.root().put("a", new EntityTreeHierarchyImpl.NodeImpl(e1));
+        EntityTreeHierarchy upstream = catalog.createEntityTree("upstream", new EntityTreeHierarchyImpl.NodeImpl(null), 0L);
+        upstream.root().put("a", new EntityTreeHierarchyImpl.NodeImpl(e1));
+        EntityTreeHierarchy overlay =
+            (EntityTreeHierarchy) new OverlayCatalogImpl(catalog, CatalogSpecies.FORK).hierarchy("upstream");
+
+        for (EntityTreeHierarchy tree : List.of(compact, forkable, overlay)) {
+            tree.changes().clear();
+            assertTrue(tree.changes().isEmpty());
+
+            tree.root().get("a").setValue(e2);
+            assertTrue(tree.changes().isWhole(), tree.name());
+
+            tree.changes().clear();
+            tree.root().entrySet().iterator().next().getValue().put("b", new EntityTreeHierarchyImpl.NodeImpl(e3));
+            assertTrue(tree.changes().isWhole(), tree.name());
+        }
+        assertEquals(e1, upstream.root().get("a").value());
+    }
+
+    @Test
+    void lazyHierarchy_EmptyUntilLoaded_ThenSettledByLoad()
+    {
+        EntitySetHierarchy set = (EntitySetHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_SET, "set", 0L, 1L,
+            target -> ((EntitySetHierarchy) target).add(e1));
+
+        assertTrue(set.changes().isEmpty());
+        assertFalse(((LazyHierarchy) set).isLoaded());
+
+        set.add(e2);
+        assertTrue(((LazyHierarchy) set).isLoaded());
+        assertEquals(Set.of(e2), set.changes().updated());
+    }
+}
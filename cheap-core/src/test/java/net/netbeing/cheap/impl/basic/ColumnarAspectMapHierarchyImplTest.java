@@ -0,0 +1,531 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyAccessor;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ColumnarAspectMapHierarchyImplTest
+{
+    private AspectDef aspectDef;
+    private CatalogImpl catalog;
+    private ColumnarAspectMapHierarchyImpl hierarchy;
+    private Entity entity1;
+    private Entity entity2;
+
+    @BeforeEach
+    void setUp()
+    {
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("count", new PropertyDefImpl("count", PropertyType.Integer, 7L, true, true, true, true, false));
+        props.put("ratio", new PropertyDefImpl("ratio", PropertyType.Float, null, false, true, true, true, false));
+        props.put("flag", new PropertyDefImpl("flag", PropertyType.Boolean, null, false, true, true, true, false));
+        props.put("label", new PropertyDefImpl("label", PropertyType.String, null, false, true, true, true, false));
+        props.put("tags", new PropertyDefImpl("tags", PropertyType.String, null, false, true, true, true, true));
+        aspectDef = new ImmutableAspectDefImpl("columnar" + System.nanoTime(), props);
+
+        catalog = new CatalogImpl();
+        hierarchy = (ColumnarAspectMapHierarchyImpl) catalog.createAspectMap(aspectDef, 3L, AspectMapStorage.COLUMNAR);
+
+        entity1 = new EntityImpl();
+        entity2 = new EntityImpl();
+    }
+
+    private Aspect aspect(Entity entity, Long count, Double ratio, Boolean flag, String label)
+    {
+        AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+        aspect.unsafeWrite("count", count);
+        aspect.unsafeWrite("ratio", ratio);
+        aspect.unsafeWrite("flag", flag);
+        aspect.unsafeWrite("label", label);
+        return aspect;
+    }
+
+    @Test
+    void createAspectMap_Columnar_CreatesColumnarHierarchy()
+    {
+        assertEquals(aspectDef.name(), hierarchy.name());
+        assertEquals(HierarchyType.ASPECT_MAP, hierarchy.type());
+        assertEquals(3L, hierarchy.version());
+        assertSame(catalog, hierarchy.catalog());
+        assertSame(hierarchy, catalog.aspects(aspectDef));
+        assertTrue(hierarchy.isEmpty());
+    }
+
+    @Test
+    void createAspectMap_ObjectStorage_KeepsVersion()
+    {
+        AspectMapHierarchy created = new CatalogImpl().createAspectMap(aspectDef, 5L, AspectMapStorage.OBJECT);
+
+        assertInstanceOf(AspectMapHierarchyImpl.class, created);
+        assertEquals(5L, created.version());
+    }
+
+    @Test
+    void createAspectMap_CatalogDefaultStorage_UsesConfiguredStorage()
+    {
+        CatalogImpl other = new CatalogImpl();
+        assertEquals(AspectMapStorage.OBJECT, other.aspectMapStorage());
+        other.aspectMapStorage(AspectMapStorage.COLUMNAR);
+
+        AspectMapHierarchy created = other.createAspectMap(aspectDef, 0L);
+
+        assertInstanceOf(ColumnarAspectMapHierarchyImpl.class, created);
+    }
+
+    @Test
+    void createAspectMap_FactoryDefaultStorage_UsesConfiguredStorage()
+    {
+        CheapFactory factory = new CheapFactory();
+        factory.setDefaultAspectMapStorage(AspectMapStorage.COLUMNAR);
+
+        assertInstanceOf(ColumnarAspectMapImpl.class, factory.createAspectMap(aspectDef));
+        assertInstanceOf(ColumnarAspectMapHierarchyImpl.class, factory.createCatalog().createAspectMap(aspectDef, 0L));
+        assertInstanceOf(AspectMapImpl.class, factory.createAspectMap(aspectDef, AspectMapStorage.OBJECT));
+    }
+
+    @Test
+    void put_NewEntity_CopiesValuesIntoColumns()
+    {
+        Aspect source = aspect(entity1, 42L, 1.5, true, "hello");
+
+        Aspect result = hierarchy.put(entity1, source);
+
+        assertNull(result);
+        assertEquals(1, hierarchy.size());
+        assertTrue(hierarchy.containsKey(entity1));
+        Aspect stored = hierarchy.get(entity1);
+        assertNotSame(source, stored);
+        assertSame(entity1, stored.entity());
+        assertSame(aspectDef, stored.def());
+        assertEquals(42L, stored.readObj("count"));
+        assertEquals(1.5, stored.readObj("ratio"));
+        assertEquals(true, stored.readObj("flag"));
+        assertEquals("hello", stored.readObj("label"));
+        assertTrue(hierarchy.containsValue(stored));
+        assertFalse(hierarchy.containsValue(source));
+    }
+
+    @Test
+    void put_IntegerValue_NormalizedToLong()
+    {
+        AspectObjectMapImpl source = new AspectObjectMapImpl(entity1, aspectDef);
+        source.unsafeWrite("count", 5);
+
+        hierarchy.put(entity1, source);
+
+        assertEquals(5L, hierarchy.get(entity1).readObj("count"));
+    }
+
+    @Test
+    void put_NullValues_ReadBackAsNull()
+    {
+        hierarchy.put(entity1, aspect(entity1, null, null, null, null));
+
+        Aspect stored = hierarchy.get(entity1);
+        assertTrue(stored.contains("count"));
+        assertNull(stored.readObj("count"));
+        assertNull(stored.readObj("ratio"));
+        assertNull(stored.readObj("flag"));
+        assertNull(stored.readObj("label"));
+    }
+
+    @Test
+    void get_UnassignedProperty_ReturnsDefault()
+    {
+        hierarchy.put(entity1, new AspectObjectMapImpl(entity1, aspectDef));
+
+        Aspect stored = hierarchy.get(entity1);
+        assertEquals(7L, stored.readObj("count"));
+        assertTrue(stored.contains("count"));
+        assertFalse(stored.contains("label"));
+        assertNull(stored.readObj("label"));
+    }
+
+    @Test
+    void get_MissingEntity_ReturnsNull()
+    {
+        assertNull(hierarchy.get(entity1));
+    }
+
+    @Test
+    void put_ExistingEntity_ReturnsPreviousValues()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+
+        Aspect previous = hierarchy.put(entity1, aspect(entity1, 2L, 2.0, true, "two"));
+
+        assertEquals(1, hierarchy.size());
+        assertEquals(1L, previous.readObj("count"));
+        assertEquals("one", previous.readObj("label"));
+        assertEquals(2L, hierarchy.get(entity1).readObj("count"));
+        assertEquals("two", hierarchy.get(entity1).readObj("label"));
+    }
+
+    @Test
+    void put_OwnView_IsNoOp()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        assertSame(view, hierarchy.put(entity1, view));
+        assertEquals(1L, hierarchy.get(entity1).readObj("count"));
+    }
+
+    @Test
+    void write_ThroughView_UpdatesColumns()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        view.unsafeWrite("count", 99L);
+        view.unsafeWrite("flag", true);
+        view.unsafeWrite("label", "changed");
+
+        Aspect reread = hierarchy.get(entity1);
+        assertEquals(99L, reread.readObj("count"));
+        assertEquals(true, reread.readObj("flag"));
+        assertEquals("changed", reread.readObj("label"));
+    }
+
+    @Test
+    void unsafeWrite_UnknownProperty_ThrowsException()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        assertThrows(IllegalArgumentException.class, () -> view.unsafeWrite("missing", 1L));
+    }
+
+    @Test
+    void unsafeWrite_WrongType_ThrowsException()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        assertThrows(IllegalArgumentException.class, () -> view.unsafeWrite("count", "not a number"));
+        assertThrows(IllegalArgumentException.class, () -> view.unsafeWrite("flag", 1L));
+        assertThrows(IllegalArgumentException.class, () -> view.unsafeWrite("label", 1L));
+    }
+
+    @Test
+    void unsafeRemove_AssignedProperty_RevertsToDefault()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        view.unsafeRemove("count");
+        view.unsafeRemove("label");
+
+        assertEquals(7L, view.readObj("count"));
+        assertFalse(view.contains("label"));
+    }
+
+    @Test
+    void multivaluedProperty_StoresList()
+    {
+        AspectObjectMapImpl source = new AspectObjectMapImpl(entity1, aspectDef);
+        source.unsafeWrite("tags", List.of("a", "b"));
+
+        hierarchy.put(entity1, source);
+
+        assertEquals(List.of("a", "b"), hierarchy.get(entity1).readObj("tags"));
+    }
+
+    @Test
+    void remove_ExistingEntity_ReturnsValuesAndRemovesRow()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        hierarchy.put(entity2, aspect(entity2, 2L, 2.0, true, "two"));
+
+        Aspect removed = hierarchy.remove(entity1);
+
+        assertEquals(1L, removed.readObj("count"));
+        assertEquals(1, hierarchy.size());
+        assertFalse(hierarchy.containsKey(entity1));
+        assertNull(hierarchy.get(entity1));
+        assertEquals("two", hierarchy.get(entity2).readObj("label"));
+        assertNull(hierarchy.remove(entity1));
+    }
+
+    @Test
+    void view_EntityRemoved_ThrowsException()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+        hierarchy.remove(entity1);
+
+        assertThrows(IllegalStateException.class, () -> view.readObj("count"));
+    }
+
+    @Test
+    void remove_ManyEntities_CompactsAndPreservesOrderAndViews()
+    {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Entity e = new EntityImpl();
+            entities.add(e);
+            hierarchy.put(e, aspect(e, (long) i, i / 2.0, i % 2 == 0, "label" + (i % 3)));
+        }
+        Entity survivor = entities.get(99);
+        Aspect survivorView = hierarchy.get(survivor);
+
+        for (int i = 0; i < 90; i++) {
+            hierarchy.remove(entities.get(i));
+        }
+
+        assertEquals(10, hierarchy.size());
+        List<Entity> keys = new ArrayList<>(hierarchy.keySet());
+        assertEquals(entities.subList(90, 100), keys);
+        for (int i = 90; i < 100; i++) {
+            Aspect a = hierarchy.get(entities.get(i));
+            assertEquals((long) i, a.readObj("count"));
+            assertEquals(i / 2.0, a.readObj("ratio"));
+            assertEquals(i % 2 == 0, a.readObj("flag"));
+            assertEquals("label" + (i % 3), a.readObj("label"));
+        }
+        assertEquals(99L, survivorView.readObj("count"));
+    }
+
+    @Test
+    void put_IndexFullWithRemovedRows_ReclaimsRowsAndKeepsValues()
+    {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Entity e = new EntityImpl();
+            entities.add(e);
+            hierarchy.put(e, aspect(e, (long) i, null, null, "label" + i));
+        }
+        // Too few removals to compact, so the next put reclaims them as the index fills
+        for (int i = 0; i < 16; i += 4) {
+            hierarchy.remove(entities.get(i));
+        }
+        Aspect view = hierarchy.get(entities.get(15));
+        List<Entity> expected = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            if (i % 4 != 0) {
+                expected.add(entities.get(i));
+            }
+        }
+
+        Entity added = new EntityImpl();
+        hierarchy.put(added, aspect(added, 99L, null, null, "added"));
+        expected.add(added);
+
+        assertEquals(expected, new ArrayList<>(hierarchy.keySet()));
+        for (Entity e : expected) {
+            long count = e == added ? 99L : entities.indexOf(e);
+            assertEquals(count, hierarchy.get(e).readObj("count"));
+            assertEquals(e == added ? "added" : "label" + count, hierarchy.get(e).readObj("label"));
+        }
+        assertEquals(15L, view.readObj("count"));
+    }
+
+    @Test
+    void entrySet_Iterator_VisitsAndRemovesEntries()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        hierarchy.put(entity2, aspect(entity2, 2L, 2.0, true, "two"));
+
+        Iterator<Map.Entry<Entity, Aspect>> it = hierarchy.entrySet().iterator();
+        Map.Entry<Entity, Aspect> first = it.next();
+        assertSame(entity1, first.getKey());
+        assertEquals(1L, first.getValue().readObj("count"));
+        it.remove();
+        Map.Entry<Entity, Aspect> second = it.next();
+        assertSame(entity2, second.getKey());
+        assertFalse(it.hasNext());
+
+        assertEquals(1, hierarchy.size());
+        assertFalse(hierarchy.containsKey(entity1));
+    }
+
+    @Test
+    void clear_PopulatedHierarchy_RemovesAll()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        hierarchy.put(entity2, aspect(entity2, 2L, 2.0, true, "two"));
+
+        hierarchy.clear();
+
+        assertTrue(hierarchy.isEmpty());
+        assertNull(hierarchy.get(entity1));
+        hierarchy.put(entity1, new AspectObjectMapImpl(entity1, aspectDef));
+        assertEquals(7L, hierarchy.get(entity1).readObj("count"));
+        assertFalse(hierarchy.get(entity1).contains("label"));
+    }
+
+    @Test
+    void add_Aspect_UsesAspectEntity()
+    {
+        hierarchy.add(aspect(entity1, 1L, 1.0, false, "one"));
+
+        assertTrue(hierarchy.containsKey(entity1));
+    }
+
+    @Test
+    void readWritePrimitives_TypedColumns_RoundTrip()
+    {
+        hierarchy.put(entity1, aspect(entity1, 1L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+
+        view.writeLong("count", 123L);
+        view.writeDouble("ratio", 2.5);
+        view.writeBoolean("flag", true);
+
+        assertEquals(123L, view.readLong("count"));
+        assertEquals(2.5, view.readDouble("ratio"));
+        assertTrue(view.readBoolean("flag"));
+        assertEquals(123L, view.readObj("count"));
+    }
+
+    @Test
+    void readLong_UnassignedWithDefault_ReturnsDefault()
+    {
+        hierarchy.put(entity1, new AspectObjectMapImpl(entity1, aspectDef));
+
+        assertEquals(7L, hierarchy.get(entity1).readLong("count"));
+    }
+
+    @Test
+    void readLong_NullValue_ThrowsException()
+    {
+        hierarchy.put(entity1, aspect(entity1, null, null, null, null));
+        Aspect view = hierarchy.get(entity1);
+
+        assertThrows(NullPointerException.class, () -> view.readLong("count"));
+        assertThrows(NullPointerException.class, () -> view.readBoolean("flag"));
+    }
+
+    @Test
+    void accessor_ColumnarView_ReadsAndWritesThroughColumns()
+    {
+        hierarchy.put(entity1, aspect(entity1, 5L, 2.5, false, "one"));
+        hierarchy.put(entity2, new AspectObjectMapImpl(entity2, aspectDef));
+        Aspect view1 = hierarchy.get(entity1);
+        Aspect view2 = hierarchy.get(entity2);
+        PropertyAccessor count = aspectDef.accessor("count");
+        PropertyAccessor ratio = aspectDef.accessor("ratio");
+        PropertyAccessor flag = aspectDef.accessor("flag");
+
+        assertEquals(5L, count.readLong(view1));
+        assertEquals(7L, count.readLong(view2));
+        assertEquals("one", aspectDef.accessor("label").read(view1));
+        count.writeLong(view2, 11L);
+        ratio.writeDouble(view1, 0.25);
+        flag.writeBoolean(view1, true);
+
+        assertEquals(11L, view2.readLong("count"));
+        assertEquals(0.25, ratio.readDouble(view1));
+        assertTrue(flag.readBoolean(view1));
+        hierarchy.remove(entity1);
+        assertThrows(IllegalStateException.class, () -> count.readLong(view1));
+    }
+
+    @Test
+    void readLong_SteadyState_AllocatesNothing()
+    {
+        Object bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean b
+            && b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled(),
+            "Thread allocation measurement is not available");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        hierarchy.put(entity1, aspect(entity1, 1_000_000L, 1.0, false, "one"));
+        Aspect view = hierarchy.get(entity1);
+        PropertyAccessor accessor = aspectDef.accessor("count");
+        int reads = 100_000;
+        // Warm up through the same method that is measured, so the measured call
+        // runs code that has already been loaded and compiled
+        for (int i = 0; i < 5; i++) {
+            readAll(accessor, view, reads);
+        }
+
+        // Keep the least of a few measurements, so a one-off allocation by the runtime
+        // itself, such as a late compilation, does not count against the reads
+        long allocated = Long.MAX_VALUE;
+        for (int i = 0; i < 3 && allocated > 0; i++) {
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            long sum = readAll(accessor, view, reads);
+            allocated = Math.min(allocated, threadBean.getCurrentThreadAllocatedBytes() - before);
+            assertEquals(reads * 1_000_000L, sum);
+        }
+
+        assertEquals(0L, allocated, "Allocated " + allocated + " bytes for " + reads + " reads");
+    }
+
+    private static long readAll(PropertyAccessor accessor, Aspect view, int reads)
+    {
+        long sum = 0;
+        for (int i = 0; i < reads; i++) {
+            sum += accessor.readLong(view);
+        }
+        return sum;
+    }
+
+    @Test
+    void scanRange_IntegerColumn_MatchesValuesAndDefaults()
+    {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Entity entity = new EntityImpl();
+            entities.add(entity);
+            hierarchy.put(entity, aspect(entity, (long) i, i / 2.0, null, null));
+        }
+        Entity nullCount = new EntityImpl();
+        hierarchy.put(nullCount, aspect(nullCount, null, null, null, null));
+        Entity defaultCount = new EntityImpl();
+        hierarchy.put(defaultCount, new AspectObjectMapImpl(defaultCount, aspectDef));
+        hierarchy.remove(entities.get(100));
+
+        assertEquals(List.of(entities.get(5), entities.get(6), entities.get(7), defaultCount),
+            hierarchy.scanRange("count", 5L, 7L, false));
+        List<Entity> expected = new ArrayList<>(entities.subList(64, 150));
+        expected.remove(entities.get(100));
+        assertEquals(expected, hierarchy.scanRange("count", 64L, 149L, true));
+        assertEquals(List.of(entities.get(199)), hierarchy.scanRange("ratio", 99.5, Double.POSITIVE_INFINITY, false));
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.scanRange("label", 0L, 1L, false));
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.scanRange("count", 0.0, 1.0, false));
+    }
+
+    @Test
+    void spliterator_AfterRemovals_SplitsAndSkipsRemovedRows()
+    {
+        List<Entity> kept = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Entity e = new EntityImpl();
+            hierarchy.put(e, aspect(e, (long) i, null, null, null));
+            if (i % 2 == 0) {
+                kept.add(e);
+            }
+        }
+        Spliterator<Entity> sized = hierarchy.keySet().spliterator();
+        assertTrue(sized.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(200, sized.getExactSizeIfKnown());
+        assertEquals(100, sized.trySplit().getExactSizeIfKnown());
+
+        hierarchy.keySet().retainAll(kept);
+
+        assertEquals(kept, hierarchy.keySet().parallelStream().toList());
+        assertEquals(kept, hierarchy.entrySet().parallelStream().map(Map.Entry::getKey).toList());
+        long sum = hierarchy.values().parallelStream().mapToLong(a -> a.readLong("count")).sum();
+        assertEquals(9900L, sum);
+    }
+}
@@ -0,0 +1,286 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.impl.basic.CompactEntityTreeHierarchyImpl.CompactNodeImpl;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactEntityTreeHierarchyImplTest
+{
+    private CheapFactory factory;
+    private CatalogImpl catalog;
+    private CompactEntityTreeHierarchyImpl tree;
+
+    @BeforeEach
+    void setUp()
+    {
+        factory = new CheapFactory();
+        catalog = new CatalogImpl();
+        tree = factory.createCompactEntityTreeHierarchy(catalog, "files", 1L, true);
+    }
+
+    private Node dir(Node parent, String name)
+    {
+        Node node = factory.createTreeNode(new EntityImpl(), parent);
+        parent.put(name, node);
+        return node;
+    }
+
+    private Node file(Node parent, String name)
+    {
+        Node node = factory.createTreeLeafNode(new EntityImpl(), parent);
+        parent.put(name, node);
+        return node;
+    }
+
+    @Test
+    void createCompactEntityTreeHierarchy_RegistersTreeWithCompactRoot()
+    {
+        assertSame(tree, catalog.hierarchy("files"));
+        assertEquals(1L, tree.version());
+        assertInstanceOf(CompactNodeImpl.class, tree.root());
+        assertTrue(tree.isPathIndexed());
+        assertTrue(tree.root().isLeaf());
+    }
+
+    @Test
+    void put_ManyChildren_KeepsInsertionOrderAcrossInlineLimit()
+    {
+        Node root = tree.root();
+        Map<String, Node> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            expected.put("c" + i, file(root, "c" + i));
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(root.keySet()));
+        }
+
+        assertEquals(expected, root);
+        assertSame(expected.get("c13"), root.get("c13"));
+        assertNull(root.get("missing"));
+    }
+
+    @Test
+    void remove_InlineChild_ShiftsRemainingChildren()
+    {
+        Node root = tree.root();
+        Node a = file(root, "a");
+        file(root, "b");
+        file(root, "c");
+
+        assertSame(a, root.remove("a"));
+
+        assertEquals(List.of("b", "c"), new ArrayList<>(root.keySet()));
+        assertNull(root.remove("a"));
+        root.remove("b");
+        root.remove("c");
+        assertTrue(root.isLeaf());
+    }
+
+    @Test
+    void createTreeNode_CompactParent_CreatesCompactChild()
+    {
+        Node child = dir(tree.root(), "a");
+
+        assertInstanceOf(CompactNodeImpl.class, child);
+        assertSame(tree.root(), child.getParent());
+    }
+
+    @Test
+    void resolve_IndexedTree_FindsNodesByFullPath()
+    {
+        Node a = dir(tree.root(), "a");
+        Node b = dir(a, "b");
+        Node c = file(b, "c.txt");
+
+        assertSame(tree.root(), tree.resolve(""));
+        assertSame(a, tree.resolve("a"));
+        assertSame(b, tree.resolve("a/b"));
+        assertSame(c, tree.resolve("a/b/c.txt"));
+        assertNull(tree.resolve("a/x"));
+    }
+
+    @Test
+    void resolve_SubtreeBuiltBeforeAttaching_IndexesWholeSubtree()
+    {
+        Node detached = new CompactNodeImpl(null, tree.root());
+        Node leaf = file(detached, "leaf");
+
+        tree.root().put("sub", detached);
+
+        assertSame(detached, tree.resolve("sub"));
+        assertSame(leaf, tree.resolve("sub/leaf"));
+    }
+
+    @Test
+    void remove_IndexedSubtree_RemovesAllDescendantPaths()
+    {
+        Node a = dir(tree.root(), "a");
+        Node b = dir(a, "b");
+        file(b, "c");
+
+        tree.root().remove("a");
+
+        assertNull(tree.resolve("a"));
+        assertNull(tree.resolve("a/b"));
+        assertNull(tree.resolve("a/b/c"));
+    }
+
+    @Test
+    void iteratorRemove_IndexedTree_RemovesPaths()
+    {
+        Node root = tree.root();
+        for (int i = 0; i < 12; i++) {
+            file(root, "f" + i);
+        }
+
+        Iterator<Map.Entry<String, Node>> it = root.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey().endsWith("1")) {
+                it.remove();
+            }
+        }
+
+        assertEquals(10, root.size());
+        assertNull(tree.resolve("f1"));
+        assertNull(tree.resolve("f11"));
+        assertNotNull(tree.resolve("f10"));
+    }
+
+    @Test
+    void put_ReplacingChild_ReindexesPath()
+    {
+        Node old = dir(tree.root(), "a");
+        file(old, "x");
+        Node replacement = factory.createTreeNode(new EntityImpl(), tree.root());
+
+        assertSame(old, tree.root().put("a", replacement));
+
+        assertSame(replacement, tree.resolve("a"));
+        assertNull(tree.resolve("a/x"));
+    }
+
+    @Test
+    void enablePathIndex_ExistingTree_IndexesAndResolveMatchesWalk()
+    {
+        tree.disablePathIndex();
+        Node a = dir(tree.root(), "a");
+        Node b = file(a, "b");
+        assertFalse(tree.isPathIndexed());
+        assertSame(b, tree.resolve("a/b"));
+
+        tree.enablePathIndex();
+
+        assertTrue(tree.isPathIndexed());
+        assertSame(b, tree.resolve("a/b"));
+    }
+
+    @Test
+    void subtree_Path_StreamsNodeAndDescendants()
+    {
+        Node a = dir(tree.root(), "a");
+        Node b = file(a, "b");
+        Node c = dir(a, "c");
+        dir(tree.root(), "z");
+
+        assertEquals(List.of(a, b, c), tree.subtree("a", false).toList());
+        assertEquals(Set.of(a, b, c), tree.subtree("a", true).collect(Collectors.toSet()));
+        assertEquals(0, tree.subtree("missing", false).count());
+    }
+
+    @Test
+    void setRoot_IndexedTree_MovesIndexToNewRoot()
+    {
+        dir(tree.root(), "old");
+        CompactNodeImpl newRoot = new CompactNodeImpl(null);
+        file(newRoot, "new");
+
+        tree.setRoot(newRoot);
+
+        assertNull(tree.resolve("old"));
+        assertNotNull(tree.resolve("new"));
+        assertThrows(IllegalStateException.class, () -> tree.setRoot(new EntityTreeHierarchyImpl.NodeImpl(null)));
+    }
+
+    @Test
+    void resolve_PlainTree_WalksFromRoot()
+    {
+        EntityTreeHierarchyImpl plain = (EntityTreeHierarchyImpl) catalog.createEntityTree("plain", 0L);
+        Entity entity = new EntityImpl();
+        Node a = factory.createTreeNode(null, plain.root());
+        plain.root().put("a", a);
+        a.put("b", factory.createTreeLeafNode(entity, a));
+
+        assertSame(entity, plain.resolve("a/b").value());
+        assertNull(plain.resolve("a/b/c"));
+        assertSame(plain.root(), plain.resolve(""));
+    }
+
+    @Test
+    void subtreeSize_AddAndRemove_MaintainedOnEveryAncestor()
+    {
+        Node root = tree.root();
+        Node a = dir(root, "a");
+        Node b = dir(a, "b");
+        for (int i = 0; i < 10; i++) {
+            file(b, "f" + i);
+        }
+        assertEquals(13, root.subtreeSize());
+        assertEquals(12, a.subtreeSize());
+        assertEquals(11, b.subtreeSize());
+
+        b.remove("f0");
+        assertEquals(12, root.subtreeSize());
+
+        a.clear();
+        assertEquals(2, root.subtreeSize());
+        assertEquals(1, a.subtreeSize());
+    }
+
+    @Test
+    void subtreeSize_GraftedSubtree_AddsItsSize()
+    {
+        CompactNodeImpl detached = new CompactNodeImpl(null, tree.root());
+        Node inner = dir(detached, "inner");
+        file(inner, "x");
+        file(inner, "y");
+
+        tree.root().put("g", detached);
+        assertEquals(5, tree.root().subtreeSize());
+
+        tree.root().put("g", factory.createTreeLeafNode(null, tree.root()));
+        assertEquals(2, tree.root().subtreeSize());
+    }
+
+    @Test
+    void subtreePage_Offsets_MatchPreOrderTraversal()
+    {
+        Node root = tree.root();
+        for (int i = 0; i < 5; i++) {
+            Node d = dir(root, "d" + i);
+            for (int j = 0; j < 12; j++) {
+                Node e = dir(d, "e" + j);
+                file(e, "f");
+            }
+        }
+        List<Node> all = tree.nodes(false).toList();
+        assertEquals(all.size(), root.subtreeSize());
+
+        for (int offset = 0; offset < all.size(); offset += 7) {
+            int end = Math.min(offset + 10, all.size());
+            assertEquals(all.subList(offset, end), root.subtreePage(offset, 10), "offset " + offset);
+        }
+        assertTrue(root.subtreePage(all.size(), 10).isEmpty());
+        assertTrue(root.subtreePage(0, 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> root.subtreePage(-1, 10));
+    }
+}
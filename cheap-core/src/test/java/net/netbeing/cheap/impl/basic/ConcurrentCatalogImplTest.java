@@ -0,0 +1,244 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentCatalogImplTest
+{
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 2000;
+
+    private final ConcurrentCatalogImpl catalog = new ConcurrentCatalogImpl();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run the task on every thread at once and wait for all of them.
+     */
+    private void runConcurrently(Callable<?> task) throws Exception
+    {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void createHierarchies_Always_CreatesConcurrentImplementations()
+    {
+        AspectDef def = new MutableAspectDefImpl("person");
+
+        assertInstanceOf(ConcurrentAspectMapHierarchyImpl.class, catalog.createAspectMap(def, 0L));
+        assertInstanceOf(ConcurrentEntityListHierarchyImpl.class, catalog.createEntityList("list", 0L));
+        assertInstanceOf(ConcurrentEntitySetHierarchyImpl.class, catalog.createEntitySet("set", 0L));
+        assertInstanceOf(ConcurrentEntityDirectoryHierarchyImpl.class, catalog.createEntityDirectory("dir", 0L));
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", null, 0L);
+        assertInstanceOf(ConcurrentEntityTreeHierarchyImpl.class, tree);
+        assertInstanceOf(ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl.class, tree.root());
+    }
+
+    @Test
+    void createAspectMap_Columnar_Throws()
+    {
+        AspectDef def = new MutableAspectDefImpl("person");
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> catalog.createAspectMap(def, 0L, AspectMapStorage.COLUMNAR));
+    }
+
+    @Test
+    void hierarchies_IterateWhileAdding_DoesNotThrow() throws Exception
+    {
+        AtomicInteger names = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < 200; i++) {
+                catalog.createEntitySet("set" + names.incrementAndGet(), 0L);
+                int count = 0;
+                for (Hierarchy ignored : catalog.hierarchies()) {
+                    count++;
+                }
+                assertTrue(count > 0);
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * 200, names.get());
+        for (int i = 1; i <= names.get(); i++) {
+            assertNotNull(catalog.hierarchy("set" + i));
+        }
+    }
+
+    @Test
+    void addHierarchy_SameNameConcurrently_KeepsExactlyOne() throws Exception
+    {
+        AspectDef def = new MutableAspectDefImpl("shared");
+        AtomicInteger failures = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                catalog.addHierarchy(new ConcurrentAspectMapHierarchyImpl(catalog, def, 0L));
+            } catch (UnsupportedOperationException e) {
+                failures.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(THREADS - 1, failures.get());
+        assertTrue(catalog.containsAspects("shared"));
+    }
+
+    @Test
+    void removeHierarchy_ConcurrentWithAdds_KeepsMapsInStep() throws Exception
+    {
+        AspectDef def = new MutableAspectDefImpl("shared");
+        runConcurrently(() -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                try {
+                    catalog.addHierarchy(new ConcurrentAspectMapHierarchyImpl(catalog, def, 0L));
+                } catch (UnsupportedOperationException e) {
+                    catalog.removeHierarchy("shared");
+                }
+            }
+            return null;
+        });
+
+        assertEquals(catalog.hierarchy("shared") != null, catalog.containsAspects("shared"));
+    }
+
+    @Test
+    void aspectMap_ConcurrentPuts_KeepsAllAspects() throws Exception
+    {
+        AspectDef def = new MutableAspectDefImpl("person");
+        AspectMapHierarchy aspects = catalog.createAspectMap(def, 0L);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                Entity e = new EntityImpl();
+                aspects.put(e, new AspectObjectMapImpl(e, def));
+                assertNotNull(aspects.aspect(e.globalId()));
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * PER_THREAD, aspects.size());
+    }
+
+    @Test
+    void entitySet_ConcurrentAdds_KeepsAllEntities() throws Exception
+    {
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        List<Entity> shared = new ArrayList<>();
+        for (int i = 0; i < PER_THREAD; i++) {
+            shared.add(new EntityImpl());
+        }
+
+        runConcurrently(() -> {
+            for (Entity e : shared) {
+                set.add(e);
+            }
+            for (int i = 0; i < PER_THREAD; i++) {
+                set.add(new EntityImpl());
+            }
+            return null;
+        });
+
+        assertEquals(PER_THREAD + THREADS * PER_THREAD, set.size());
+        for (Entity e : shared) {
+            assertTrue(set.containsEntity(e.globalId()));
+        }
+    }
+
+    @Test
+    void entityList_ConcurrentAddsAndReads_KeepsAllEntities() throws Exception
+    {
+        EntityListHierarchy list = catalog.createEntityList("list", 0L);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 500; i++) {
+                list.add(new EntityImpl());
+                for (Entity e : list) {
+                    assertNotNull(e);
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * 500, list.size());
+    }
+
+    @Test
+    void entityDirectory_ConcurrentMerge_IsAtomic() throws Exception
+    {
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        Entity entity = new EntityImpl();
+        AtomicInteger created = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                String key = "k" + i;
+                dir.computeIfAbsent(key, k -> {
+                    created.incrementAndGet();
+                    return entity;
+                });
+            }
+            return null;
+        });
+
+        assertEquals(100, created.get());
+        assertEquals(100, dir.size());
+    }
+
+    @Test
+    void treeNode_ConcurrentChildAdds_KeepsAllChildren() throws Exception
+    {
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", null, 0L);
+        EntityTreeHierarchy.Node root = tree.root();
+        AtomicInteger names = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 200; i++) {
+                root.put("c" + names.incrementAndGet(),
+                    new ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl(new EntityImpl(), root));
+                for (EntityTreeHierarchy.Node child : root.values()) {
+                    assertSame(root, child.getParent());
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * 200, root.size());
+    }
+}
@@ -0,0 +1,58 @@
+package net.netbeing.cheap.impl.basic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentVectorListTest
+{
+    @Test
+    void iterator_ListChangedWhileIterating_IteratesSnapshot()
+    {
+        ConcurrentVectorList<Integer> list = new ConcurrentVectorList<>();
+        list.addAll(List.of(1, 2, 3));
+
+        Iterator<Integer> it = list.iterator();
+        list.add(4);
+        list.set(0, 9);
+        List<Integer> seen = new ArrayList<>();
+        it.forEachRemaining(seen::add);
+
+        assertEquals(List.of(1, 2, 3), seen);
+        assertEquals(List.of(9, 2, 3, 4), list);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            Iterator<Integer> removing = list.iterator();
+            removing.next();
+            removing.remove();
+        });
+    }
+
+    @Test
+    void mutations_Always_MatchArrayList()
+    {
+        ConcurrentVectorList<Integer> list = new ConcurrentVectorList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+            expected.add(i);
+        }
+
+        list.add(50, -1);
+        expected.add(50, -1);
+        list.remove(Integer.valueOf(7));
+        expected.remove(Integer.valueOf(7));
+        list.removeIf(i -> i % 10 == 3);
+        expected.removeIf(i -> i % 10 == 3);
+        list.subList(20, 30).clear();
+        expected.subList(20, 30).clear();
+        list.sort((a, b) -> b - a);
+        expected.sort((a, b) -> b - a);
+
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+    }
+}
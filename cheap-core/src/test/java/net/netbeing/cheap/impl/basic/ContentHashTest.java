@@ -0,0 +1,451 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyType;
+import net.netbeing.cheap.util.CheapHasher;
+import net.netbeing.cheap.util.EntityHashTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest
+{
+    private MutableAspectDefImpl aspectDef;
+    private List<Entity> entities;
+
+    @BeforeEach
+    void setUp()
+    {
+        aspectDef = new MutableAspectDefImpl("person", new UUID(1, 1));
+        aspectDef.add(new PropertyDefBuilder().setName("name").setType(PropertyType.String).build());
+        aspectDef.add(new PropertyDefBuilder().setName("age").setType(PropertyType.Integer).build());
+        entities = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            entities.add(new EntityImpl());
+        }
+    }
+
+    private Aspect person(Entity entity, String name, long age)
+    {
+        Aspect aspect = new AspectObjectMapImpl(entity, aspectDef);
+        aspect.unsafeWrite("name", name);
+        aspect.unsafeWrite("age", age);
+        return aspect;
+    }
+
+    /** Builds a tree the slow way, for comparison with maintained ones. */
+    private static EntityHashTree rebuild(Map<Entity, Aspect> map)
+    {
+        EntityHashTree tree = new EntityHashTree();
+        map.forEach((e, a) -> tree.add(e.globalId(), a == null ? CheapHasher.hashNull() : a.hash()));
+        return tree;
+    }
+
+    @Test
+    void aspectHash_SameContent_SameHashRegardlessOfEntity()
+    {
+        Aspect a = person(entities.get(0), "Ann", 30);
+        Aspect b = person(entities.get(1), "Ann", 30);
+
+        assertEquals(a.hash(), b.hash());
+        a.unsafeWrite("age", 31L);
+        assertNotEquals(a.hash(), b.hash());
+        b.unsafeWrite("age", null);
+        assertNotEquals(a.hash(), b.hash());
+    }
+
+    @Test
+    void hashTree_MaintainedThroughMutations_MatchesRebuiltTree()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        AspectMapHierarchy map = catalog.createAspectMap(aspectDef, 0L);
+        for (int i = 0; i < 100; i++) {
+            map.put(entities.get(i), person(entities.get(i), "p" + i, i));
+        }
+        EntityHashTree tree = map.hashTree();
+        assertSame(tree, map.hashTree());
+        assertEquals(rebuild(map).root(), tree.root());
+
+        // Adds, replacements and removals through the map and its views
+        for (int i = 100; i < 200; i++) {
+            map.put(entities.get(i), person(entities.get(i), "p" + i, i));
+        }
+        map.put(entities.get(3), person(entities.get(3), "changed", 3));
+        map.remove(entities.get(4));
+        map.entrySet().iterator().next().setValue(person(entities.get(0), "set", 0));
+        Iterator<Entity> keys = map.keySet().iterator();
+        keys.next();
+        keys.next();
+        keys.remove();
+        map.values().removeIf(a -> a.readObj("name").equals("p50"));
+        assertEquals(rebuild(map).root(), tree.root());
+        assertEquals(map.size(), tree.size());
+
+        // An in-place change shows the next time the tree is read
+        Aspect aspect = map.get(entities.get(7));
+        long before = tree.root();
+        aspect.unsafeWrite("age", 99L);
+        assertNotEquals(before, map.hashTree().root());
+        assertEquals(rebuild(map).root(), tree.root());
+        map.put(entities.get(7), aspect);
+        assertEquals(rebuild(map).root(), tree.root());
+
+        map.clear();
+        assertEquals(0L, tree.root());
+    }
+
+    @Test
+    void hashTree_AspectInTwoMaps_BothSeeInPlaceChanges()
+    {
+        AspectMapHierarchy first = new CatalogImpl().createAspectMap(aspectDef, 0L);
+        AspectMapHierarchy second = new CatalogImpl().createAspectMap(aspectDef, 0L);
+        Aspect aspect = person(entities.get(0), "Ann", 30);
+        first.hashTree();
+        second.hashTree();
+        first.put(entities.get(0), aspect);
+        second.put(entities.get(0), aspect);
+
+        aspect.unsafeWrite("age", 31L);
+
+        assertEquals(rebuild(first).root(), first.hashTree().root());
+        assertEquals(rebuild(second).root(), second.hashTree().root());
+        first.remove(entities.get(0));
+        aspect.unsafeWrite("age", 32L);
+        assertEquals(rebuild(second).root(), second.hashTree().root());
+    }
+
+    @Test
+    void changes_AspectChangedInPlace_Recorded()
+    {
+        AspectMapHierarchy map = new CatalogImpl().createAspectMap(aspectDef, 0L);
+        Aspect aspect = person(entities.get(0), "Ann", 30);
+        map.put(entities.get(0), aspect);
+        map.put(entities.get(1), person(entities.get(1), "Bob", 40));
+        map.changes().drain();
+
+        aspect.unsafeWrite("age", 31L);
+
+        assertFalse(map.changes().isWhole());
+        assertEquals(Set.of(entities.get(0)), map.changes().updated());
+        map.remove(entities.get(0));
+        map.changes().drain();
+        aspect.unsafeWrite("age", 32L);
+        assertTrue(map.changes().isEmpty());
+    }
+
+    @Test
+    void hashTree_SetAndDirectory_MaintainedThroughMutations()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        set.addAll(entities.subList(0, 10));
+        for (int i = 0; i < 10; i++) {
+            dir.put("e" + i, entities.get(i));
+        }
+        EntityHashTree setTree = set.hashTree();
+        EntityHashTree dirTree = dir.hashTree();
+
+        set.add(entities.get(20));
+        set.remove(entities.get(0));
+        set.removeIf(e -> e == entities.get(5));
+        dir.put("e1", entities.get(30));
+        dir.remove("e2");
+        dir.entrySet().iterator().next().setValue(entities.get(31));
+        dir.values().removeIf(e -> e == entities.get(6));
+
+        assertSame(setTree, set.hashTree());
+        assertSame(dirTree, dir.hashTree());
+        EntitySetHierarchy freshSet = new CatalogImpl().createEntitySet("set", 0L);
+        freshSet.addAll(set);
+        EntityDirectoryHierarchy freshDir = new CatalogImpl().createEntityDirectory("dir", 0L);
+        freshDir.putAll(dir);
+        assertEquals(freshSet.contentHash(), set.contentHash());
+        assertEquals(freshDir.contentHash(), dir.contentHash());
+        set.clear();
+        dir.clear();
+        assertEquals(0L, set.contentHash());
+        assertEquals(0L, dir.contentHash());
+    }
+
+    @Test
+    void contentHash_ListChangedThroughViews_Recomputed()
+    {
+        EntityListHierarchy list = new CatalogImpl().createEntityList("list", 0L);
+        list.addAll(entities.subList(0, 10));
+        List<Entity> expected = new ArrayList<>(entities.subList(0, 10));
+        assertEquals(hashOf(expected), list.contentHash());
+
+        Iterator<Entity> it = list.iterator();
+        it.next();
+        it.remove();
+        expected.removeFirst();
+        assertEquals(hashOf(expected), list.contentHash());
+
+        list.subList(2, 4).set(0, entities.get(50));
+        expected.set(2, entities.get(50));
+        assertEquals(hashOf(expected), list.contentHash());
+
+        list.subList(1, 5).subList(0, 2).clear();
+        expected.subList(1, 3).clear();
+        assertEquals(hashOf(expected), list.contentHash());
+
+        list.listIterator(1).add(entities.get(60));
+        expected.add(1, entities.get(60));
+        assertEquals(hashOf(expected), list.contentHash());
+    }
+
+    private static long hashOf(List<Entity> expected)
+    {
+        CheapHasher hasher = new CheapHasher();
+        hasher.update((long) expected.size());
+        for (Entity entity : expected) {
+            hasher.update(entity.globalId());
+        }
+        return hasher.getHash();
+    }
+
+    @Test
+    void contentHash_TreeChangedBelowRoot_Recomputed()
+    {
+        EntityTreeHierarchy tree = new CatalogImpl().createEntityTree("tree", 0L);
+        EntityTreeHierarchy.Node dir = new EntityTreeHierarchyImpl.NodeImpl(entities.get(0), tree.root());
+        tree.root().put("dir", dir);
+        dir.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(entities.get(1)));
+        dir.put("sub", new EntityTreeHierarchyImpl.NodeImpl(entities.get(2), dir));
+        long hash = tree.contentHash();
+        assertEquals(hash, tree.contentHash());
+
+        dir.get("leaf").setValue(entities.get(3));
+        assertNotEquals(hash, tree.contentHash());
+        dir.get("leaf").setValue(entities.get(1));
+        assertEquals(hash, tree.contentHash());
+
+        dir.get("sub").put("deep", new EntityTreeHierarchyImpl.NodeImpl(entities.get(4), dir.get("sub")));
+        long deeper = tree.contentHash();
+        assertNotEquals(hash, deeper);
+        dir.get("sub").keySet().remove("deep");
+        assertEquals(hash, tree.contentHash());
+
+        Iterator<EntityTreeHierarchy.Node> children = dir.values().iterator();
+        children.next();
+        children.remove();
+        assertNotEquals(hash, tree.contentHash());
+        dir.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(entities.get(1)));
+        assertEquals(hash, tree.contentHash());
+    }
+
+    @Test
+    void catalogHash_SameContentDifferentOrder_Equal()
+    {
+        CatalogImpl first = new CatalogImpl();
+        CatalogImpl second = new CatalogImpl();
+        AspectMapHierarchy a = first.createAspectMap(aspectDef, 0L);
+        AspectMapHierarchy b = second.createAspectMap(aspectDef, 5L);
+        EntitySetHierarchy setA = first.createEntitySet("set", 0L);
+        EntitySetHierarchy setB = second.createEntitySet("set", 0L);
+        for (int i = 0; i < 50; i++) {
+            a.put(entities.get(i), person(entities.get(i), "p" + i, i));
+            b.put(entities.get(49 - i), person(entities.get(49 - i), "p" + (49 - i), 49 - i));
+            setA.add(entities.get(i));
+            setB.add(entities.get(49 - i));
+        }
+
+        assertEquals(a.hash(), b.hash());
+        assertEquals(first.hash(), second.hash());
+
+        b.put(entities.get(10), person(entities.get(10), "other", 10));
+        assertNotEquals(first.hash(), second.hash());
+        assertArrayEquals(new int[] {EntityHashTree.bucketOf(entities.get(10).globalId())},
+            a.hashTree().diff(b.hashTree()));
+    }
+
+    private static long sumOfHierarchyHashes(CatalogImpl catalog)
+    {
+        long sum = 0L;
+        for (Hierarchy hierarchy : catalog.hierarchies()) {
+            sum += hierarchy.hash();
+        }
+        return sum;
+    }
+
+    @Test
+    void catalogHash_HierarchiesChanged_MatchesSumOfHierarchyHashes()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        AspectDef fixedDef = new ImmutableAspectDefImpl("fixed", Map.of("name",
+            new PropertyDefBuilder().setName("name").setType(PropertyType.String).build()));
+        AspectMapHierarchy fixed = catalog.createAspectMap(fixedDef, 0L);
+        AspectMapHierarchy people = catalog.createAspectMap(aspectDef, 0L);
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        EntityListHierarchy list = catalog.createEntityList("list", 0L);
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", 0L);
+        Aspect ann = new AspectObjectMapImpl(entities.get(0), fixedDef);
+        ann.unsafeWrite("name", "Ann");
+        fixed.put(entities.get(0), ann);
+        people.put(entities.get(1), person(entities.get(1), "Bob", 40));
+        set.addAll(entities.subList(0, 5));
+        dir.put("a", entities.get(0));
+        list.addAll(entities.subList(0, 5));
+        EntityTreeHierarchy.Node sub = new EntityTreeHierarchyImpl.NodeImpl(entities.get(0), tree.root());
+        tree.root().put("sub", sub);
+        assertEquals(sumOfHierarchyHashes(catalog), catalog.hash());
+        assertTrue(((ReportingHierarchy) fixed).reportsChanges());
+        assertFalse(((ReportingHierarchy) people).reportsChanges());
+
+        ann.unsafeWrite("name", "Anne");
+        long hash = catalog.hash();
+        assertEquals(sumOfHierarchyHashes(catalog), hash);
+        people.get(entities.get(1)).unsafeWrite("age", 41L);
+        assertNotEquals(hash, hash = catalog.hash());
+        assertEquals(sumOfHierarchyHashes(catalog), hash);
+        sub.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(entities.get(2)));
+        assertNotEquals(hash, hash = catalog.hash());
+        assertEquals(sumOfHierarchyHashes(catalog), hash);
+        Iterator<Entity> it = list.iterator();
+        it.next();
+        it.remove();
+        assertNotEquals(hash, hash = catalog.hash());
+        set.remove(entities.get(0));
+        dir.remove("a");
+        assertNotEquals(hash, hash = catalog.hash());
+        assertEquals(sumOfHierarchyHashes(catalog), hash);
+
+        EntitySetHierarchy other = catalog.createEntitySet("other", 0L);
+        other.add(entities.get(9));
+        assertEquals(sumOfHierarchyHashes(catalog), catalog.hash());
+        catalog.removeHierarchy("other");
+        assertEquals(hash, catalog.hash());
+        catalog.removeHierarchy("set");
+        assertEquals(hash - set.hash(), catalog.hash());
+        assertEquals(sumOfHierarchyHashes(catalog), catalog.hash());
+    }
+
+    @Test
+    void catalogHash_ReportingHierarchy_RehashedOnlyAfterReport()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        int[] hashes = new int[2];
+        EntitySetHierarchyImpl reporting = new EntitySetHierarchyImpl(catalog, "reporting", 0L) {
+            @Override
+            public long contentHash()
+            {
+                hashes[0]++;
+                return super.contentHash();
+            }
+        };
+        EntitySetHierarchyImpl silent = new EntitySetHierarchyImpl(catalog, "silent", 0L) {
+            @Override
+            public long contentHash()
+            {
+                hashes[1]++;
+                return super.contentHash();
+            }
+
+            @Override
+            public boolean reportsChanges()
+            {
+                return false;
+            }
+        };
+        catalog.addHierarchy(reporting);
+        catalog.addHierarchy(silent);
+
+        long hash = catalog.hash();
+        assertEquals(hash, catalog.hash());
+        assertArrayEquals(new int[] {1, 2}, hashes);
+
+        reporting.add(entities.get(0));
+        assertNotEquals(hash, catalog.hash());
+        assertArrayEquals(new int[] {2, 3}, hashes);
+        CatalogImpl.hierarchyChanged(catalog, "reporting");
+        catalog.hash();
+        assertArrayEquals(new int[] {3, 4}, hashes);
+    }
+
+    @Test
+    void catalogHash_DeferredHierarchy_LoadedOnce()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        int[] loads = new int[1];
+        EntityListHierarchy list = (EntityListHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_LIST, "list", 0L, 2L,
+            target -> {
+                loads[0]++;
+                ((EntityListHierarchy) target).addAll(entities.subList(0, 2));
+            });
+
+        long hash = catalog.hash();
+        assertEquals(1, loads[0]);
+        assertEquals(hash, catalog.hash());
+        assertTrue(((ReportingHierarchy) list).reportsChanges());
+        list.add(entities.get(2));
+        assertNotEquals(hash, catalog.hash());
+        assertEquals(sumOfHierarchyHashes(catalog), catalog.hash());
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void contentHash_EntityHierarchies_FollowTheirOrderingRules()
+    {
+        CatalogImpl catalog = new CatalogImpl();
+        EntityListHierarchy list1 = catalog.createEntityList("l1", 0L);
+        EntityListHierarchy list2 = catalog.createEntityList("l2", 0L);
+        list1.addAll(entities.subList(0, 3));
+        list2.addAll(entities.subList(0, 3));
+        assertEquals(list1.contentHash(), list2.contentHash());
+        assertNotEquals(list1.hash(), list2.hash());
+        Collections.swap(list2, 0, 1);
+        assertNotEquals(list1.contentHash(), list2.contentHash());
+
+        EntityDirectoryHierarchy dir1 = catalog.createEntityDirectory("d1", 0L);
+        EntityDirectoryHierarchy dir2 = catalog.createEntityDirectory("d2", 0L);
+        dir1.put("a", entities.get(0));
+        dir1.put("b", entities.get(1));
+        dir2.put("b", entities.get(1));
+        dir2.put("a", entities.get(0));
+        assertEquals(dir1.contentHash(), dir2.contentHash());
+        dir2.put("a", entities.get(1));
+        assertNotEquals(dir1.contentHash(), dir2.contentHash());
+
+        EntityTreeHierarchy tree1 = catalog.createEntityTree("t1", 0L);
+        EntityTreeHierarchy tree2 = catalog.createEntityTree("t2", 0L);
+        tree1.root().put("x", new EntityTreeHierarchyImpl.NodeImpl(entities.get(0), tree1.root()));
+        tree1.root().put("y", new EntityTreeHierarchyImpl.NodeImpl(entities.get(1), tree1.root()));
+        tree2.root().put("y", new EntityTreeHierarchyImpl.NodeImpl(entities.get(1), tree2.root()));
+        tree2.root().put("x", new EntityTreeHierarchyImpl.NodeImpl(entities.get(0), tree2.root()));
+        assertEquals(tree1.contentHash(), tree2.contentHash());
+        tree2.root().get("x").put("z", new EntityTreeHierarchyImpl.NodeImpl(entities.get(2), tree2.root().get("x")));
+        assertNotEquals(tree1.contentHash(), tree2.contentHash());
+    }
+
+    @Test
+    void aspectDefChange_ChangesHierarchyHash()
+    {
+        AspectDef otherDef = new MutableAspectDefImpl("person", new UUID(2, 2));
+        CatalogImpl catalog = new CatalogImpl();
+        AspectMapHierarchy a = catalog.createAspectMap(aspectDef, 0L);
+        AspectMapHierarchy b = new CatalogImpl().createAspectMap(otherDef, 0L);
+
+        assertEquals(a.hashTree().root(), b.hashTree().root());
+        assertNotEquals(a.hash(), b.hash());
+    }
+}
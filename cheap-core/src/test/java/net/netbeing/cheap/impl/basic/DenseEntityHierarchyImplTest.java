@@ -0,0 +1,194 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.HierarchyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DenseEntityHierarchyImplTest
+{
+    private CheapFactory factory;
+    private CatalogImpl catalog;
+    private List<Entity> entities;
+
+    @BeforeEach
+    void setUp()
+    {
+        factory = new CheapFactory();
+        catalog = new CatalogImpl();
+        entities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entities.add(new EntityImpl());
+        }
+    }
+
+    @Test
+    void createDenseEntityListHierarchy_SharesCatalogDictionary()
+    {
+        DenseEntityListHierarchyImpl list = factory.createDenseEntityListHierarchy(catalog, "list", 2L);
+        DenseEntitySetHierarchyImpl set = factory.createDenseEntitySetHierarchy(catalog, "set", 3L);
+
+        assertSame(list, catalog.hierarchy("list"));
+        assertSame(set, catalog.hierarchy("set"));
+        assertEquals(HierarchyType.ENTITY_LIST, list.type());
+        assertEquals(HierarchyType.ENTITY_SET, set.type());
+        assertSame(catalog.entityDictionary(), list.dictionary());
+        assertSame(catalog.entityDictionary(), set.dictionary());
+    }
+
+    @Test
+    void list_Mutations_BehaveLikeArrayList()
+    {
+        DenseEntityListHierarchyImpl list = factory.createDenseEntityListHierarchy(catalog, "list", 0L);
+        List<Entity> expected = new ArrayList<>();
+        for (Entity e : entities) {
+            list.add(e);
+            expected.add(e);
+        }
+        list.add(entities.get(3));
+        expected.add(entities.get(3));
+        list.add(null);
+        expected.add(null);
+        list.add(2, entities.get(9));
+        expected.add(2, entities.get(9));
+        list.remove(5);
+        expected.remove(5);
+        list.set(0, entities.get(8));
+        expected.set(0, entities.get(8));
+        list.subList(1, 3).clear();
+        expected.subList(1, 3).clear();
+
+        assertEquals(expected, list);
+        assertEquals(expected.indexOf(entities.get(3)), list.indexOf(entities.get(3)));
+        assertEquals(expected.lastIndexOf(entities.get(3)), list.lastIndexOf(entities.get(3)));
+        assertEquals(expected.indexOf(null), list.indexOf(null));
+        assertEquals(-1, list.indexOf(new EntityImpl()));
+        assertEquals(expected, list.parallelStream().toList());
+    }
+
+    @Test
+    void set_AddRemoveAndContains_UseLocalIds()
+    {
+        DenseEntitySetHierarchyImpl set = factory.createDenseEntitySetHierarchy(catalog, "set", 0L);
+
+        assertTrue(set.add(entities.get(0)));
+        assertTrue(set.add(entities.get(1)));
+        assertFalse(set.add(new EntityImpl(entities.get(0).globalId())));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(entities.get(1)));
+        assertTrue(set.containsEntity(entities.get(0).globalId()));
+        assertFalse(set.contains(entities.get(2)));
+        assertFalse(set.containsEntity(entities.get(2).globalId()));
+        assertThrows(NullPointerException.class, () -> set.add(null));
+
+        assertTrue(set.remove(entities.get(0)));
+        assertFalse(set.remove(entities.get(0)));
+        assertEquals(Set.of(entities.get(1)), new HashSet<>(set));
+    }
+
+    @Test
+    void set_BulkOperationsWithDenseSet_MatchHashSetResults()
+    {
+        DenseEntitySetHierarchyImpl a = factory.createDenseEntitySetHierarchy(catalog, "a", 0L);
+        DenseEntitySetHierarchyImpl b = factory.createDenseEntitySetHierarchy(catalog, "b", 0L);
+        a.addAll(entities.subList(0, 6));
+        b.addAll(entities.subList(4, 10));
+
+        Set<Entity> union = new HashSet<>(entities);
+        Set<Entity> intersection = new HashSet<>(entities.subList(4, 6));
+        Set<Entity> difference = new HashSet<>(entities.subList(0, 4));
+
+        DenseEntitySetHierarchyImpl u = factory.createDenseEntitySetHierarchy(catalog, "u", 0L);
+        u.addAll(a);
+        assertTrue(u.addAll(b));
+        assertEquals(union, u);
+        assertTrue(u.containsAll(a));
+        assertFalse(a.containsAll(b));
+
+        DenseEntitySetHierarchyImpl i = factory.createDenseEntitySetHierarchy(catalog, "i", 0L);
+        i.addAll(a);
+        assertTrue(i.retainAll(b));
+        assertEquals(intersection, i);
+        assertEquals(2, i.size());
+
+        DenseEntitySetHierarchyImpl d = factory.createDenseEntitySetHierarchy(catalog, "d", 0L);
+        d.addAll(a);
+        assertTrue(d.removeAll(b));
+        assertFalse(d.removeAll(b));
+        assertEquals(difference, d);
+        assertTrue(d.retainAll(Arrays.asList(entities.get(0), entities.get(1))));
+        assertEquals(Set.of(entities.get(0), entities.get(1)), d);
+    }
+
+    @Test
+    void set_IteratorRemove_RemovesAndIteratesInIdOrder()
+    {
+        DenseEntitySetHierarchyImpl set = factory.createDenseEntitySetHierarchy(catalog, "set", 0L);
+        entities.forEach(catalog.entityDictionary()::intern);
+        for (int i = entities.size() - 1; i >= 0; i--) {
+            set.add(entities.get(i));
+        }
+
+        assertEquals(entities, new ArrayList<>(set));
+        Iterator<Entity> it = set.iterator();
+        it.next();
+        it.remove();
+        assertEquals(entities.subList(1, 10), new ArrayList<>(set));
+    }
+
+    @Test
+    void setAlgebra_MaterializedAsHierarchies_MatchHashSetResults()
+    {
+        DenseEntitySetHierarchyImpl a = factory.createDenseEntitySetHierarchy(catalog, "a", 0L);
+        DenseEntitySetHierarchyImpl b = factory.createDenseEntitySetHierarchy(catalog, "b", 0L);
+        a.addAll(entities.subList(0, 6));
+        b.addAll(entities.subList(4, 10));
+
+        DenseEntitySetHierarchyImpl union = factory.createDenseEntitySetHierarchy(catalog, "union", 1L, a.union(b));
+        DenseEntitySetHierarchyImpl both =
+            factory.createDenseEntitySetHierarchy(catalog, "both", 1L, a.intersection(b));
+        DenseEntitySetHierarchyImpl onlyA =
+            factory.createDenseEntitySetHierarchy(catalog, "onlyA", 1L, a.difference(b));
+
+        assertSame(both, catalog.hierarchy("both"));
+        assertEquals(new HashSet<>(entities), union);
+        assertEquals(new HashSet<>(entities.subList(4, 6)), both);
+        assertEquals(new HashSet<>(entities.subList(0, 4)), onlyA);
+        assertEquals(2, a.intersectionSize(b));
+
+        // Materialized hierarchies do not share state with their operands
+        both.clear();
+        assertEquals(6, a.size());
+        EntityBitmap copy = a.bitmap();
+        copy.clear();
+        assertEquals(6, a.size());
+    }
+
+    @Test
+    void setAlgebra_DifferentDictionaries_Throws()
+    {
+        DenseEntitySetHierarchyImpl a = factory.createDenseEntitySetHierarchy(catalog, "a", 0L);
+        DenseEntitySetHierarchyImpl other = factory.createDenseEntitySetHierarchy(new CatalogImpl(), "b", 0L);
+
+        assertThrows(IllegalArgumentException.class, () -> a.union(other));
+        assertThrows(IllegalArgumentException.class, () -> a.intersectionSize(other));
+        assertThrows(IllegalArgumentException.class,
+            () -> factory.createDenseEntitySetHierarchy(catalog, "c", 0L, EntityBitmap.of(0)));
+    }
+
+    @Test
+    void entityDictionary_ConcurrentCatalog_Unsupported()
+    {
+        assertThrows(UnsupportedOperationException.class, () -> new ConcurrentCatalogImpl().entityDictionary());
+    }
+}
@@ -0,0 +1,156 @@
+package net.netbeing.cheap.impl.basic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityBitmapTest
+{
+    private static BitSet toBitSet(EntityBitmap bitmap)
+    {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    /**
+     * Fills a bitmap and a BitSet with the same ids: a dense chunk, a sparse chunk
+     * and a chunk that is dense only when {@code heavy} is set.
+     */
+    private static EntityBitmap random(Random random, BitSet expected, boolean heavy)
+    {
+        EntityBitmap bitmap = new EntityBitmap();
+        for (int i = 0; i < 30000; i++) {
+            int id = random.nextInt(65536);
+            bitmap.add(id);
+            expected.set(id);
+        }
+        for (int i = 0; i < 500; i++) {
+            int id = 65536 * 3 + random.nextInt(65536);
+            bitmap.add(id);
+            expected.set(id);
+        }
+        for (int i = 0; i < (heavy ? 20000 : 1000); i++) {
+            int id = 65536 * 5 + random.nextInt(65536);
+            bitmap.add(id);
+            expected.set(id);
+        }
+        return bitmap;
+    }
+
+    @Test
+    void add_SparseAndDenseChunks_MatchesBitSet()
+    {
+        BitSet expected = new BitSet();
+        EntityBitmap bitmap = random(new Random(1), expected, true);
+
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        assertEquals(expected, toBitSet(bitmap));
+        assertEquals(expected.length() - 1, bitmap.last());
+        for (int id = 0; id < 7 * 65536; id += 97) {
+            assertEquals(expected.get(id), bitmap.contains(id), "id " + id);
+            assertEquals(expected.nextSetBit(id), bitmap.nextSetBit(id), "next from " + id);
+        }
+    }
+
+    @Test
+    void remove_BelowArrayThreshold_KeepsContents()
+    {
+        EntityBitmap bitmap = new EntityBitmap();
+        BitSet expected = new BitSet();
+        for (int id = 0; id < EntityBitmap.ARRAY_MAX + 10; id++) {
+            bitmap.add(id * 3);
+            expected.set(id * 3);
+        }
+        for (int id = 0; id < EntityBitmap.ARRAY_MAX + 10; id += 2) {
+            assertTrue(bitmap.remove(id * 3));
+            expected.clear(id * 3);
+        }
+        assertFalse(bitmap.remove(0));
+        assertFalse(bitmap.remove(-1));
+
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        assertEquals(expected, toBitSet(bitmap));
+        assertTrue(bitmap.add(0));
+        assertFalse(bitmap.add(0));
+    }
+
+    @Test
+    void setAlgebra_MixedChunkLayouts_MatchesBitSet()
+    {
+        Random random = new Random(42);
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        EntityBitmap a = random(random, expectedA, true);
+        EntityBitmap b = random(random, expectedB, false);
+
+        BitSet union = (BitSet) expectedA.clone();
+        union.or(expectedB);
+        BitSet intersection = (BitSet) expectedA.clone();
+        intersection.and(expectedB);
+        BitSet difference = (BitSet) expectedA.clone();
+        difference.andNot(expectedB);
+        BitSet reverse = (BitSet) expectedB.clone();
+        reverse.andNot(expectedA);
+
+        assertEquals(union, toBitSet(EntityBitmap.or(a, b)));
+        assertEquals(intersection, toBitSet(EntityBitmap.and(a, b)));
+        assertEquals(difference, toBitSet(EntityBitmap.andNot(a, b)));
+        assertEquals(reverse, toBitSet(EntityBitmap.andNot(b, a)));
+        assertEquals(intersection.cardinality(), EntityBitmap.andCardinality(a, b));
+        assertEquals(union.cardinality(), EntityBitmap.or(b, a).cardinality());
+
+        // The operands are left unchanged
+        assertEquals(expectedA, toBitSet(a));
+        assertEquals(expectedB, toBitSet(b));
+    }
+
+    @Test
+    void inPlaceOperations_MatchStaticResults()
+    {
+        Random random = new Random(7);
+        EntityBitmap a = random(random, new BitSet(), true);
+        EntityBitmap b = random(random, new BitSet(), false);
+
+        EntityBitmap or = a.copy();
+        or.or(b);
+        EntityBitmap and = a.copy();
+        and.and(b);
+        EntityBitmap andNot = a.copy();
+        andNot.andNot(b);
+
+        assertEquals(EntityBitmap.or(a, b), or);
+        assertEquals(EntityBitmap.and(a, b), and);
+        assertEquals(EntityBitmap.andNot(a, b), andNot);
+        assertEquals(EntityBitmap.or(a, b).hashCode(), or.hashCode());
+        assertTrue(or.containsAll(a));
+        assertTrue(or.containsAll(b));
+        assertFalse(and.containsAll(a));
+        assertNotEquals(a, b);
+
+        // In-place operations on a copy leave the original alone
+        and.clear();
+        assertTrue(and.isEmpty());
+        assertEquals(EntityBitmap.and(a, b), EntityBitmap.and(b, a));
+    }
+
+    @Test
+    void of_SmallSet_ToStringAndIteration()
+    {
+        EntityBitmap bitmap = EntityBitmap.of(70000, 3, 1, 3);
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+
+        assertEquals(List.of(1, 3, 70000), ids);
+        assertEquals("{1, 3, 70000}", bitmap.toString());
+        assertEquals(-1, bitmap.nextSetBit(70001));
+        assertEquals(-1, new EntityBitmap().last());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-5));
+        assertThrows(IndexOutOfBoundsException.class, () -> bitmap.nextSetBit(-1));
+    }
+}
@@ -0,0 +1,57 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityDictionaryTest
+{
+    private final EntityDictionary dictionary = new EntityDictionary();
+
+    @Test
+    void intern_NewEntities_AssignsDenseIdsInOrder()
+    {
+        for (int i = 0; i < 100; i++) {
+            Entity e = new EntityImpl();
+            assertEquals(i, dictionary.intern(e));
+            assertSame(e, dictionary.entity(i));
+        }
+        assertEquals(100, dictionary.size());
+    }
+
+    @Test
+    void intern_EqualEntity_ReturnsSameIdAndFirstInstance()
+    {
+        UUID id = UUID.randomUUID();
+        Entity first = new EntityImpl(id);
+        int local = dictionary.intern(first);
+
+        assertEquals(local, dictionary.intern(new EntityImpl(id)));
+        assertSame(first, dictionary.entity(local));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void idOf_UnknownEntity_ReturnsMinusOne()
+    {
+        Entity e = new EntityImpl();
+        dictionary.intern(e);
+
+        assertEquals(0, dictionary.idOf(e));
+        assertEquals(0, dictionary.idOf(e.globalId()));
+        assertEquals(-1, dictionary.idOf(new EntityImpl()));
+        assertEquals(-1, dictionary.idOf(UUID.randomUUID()));
+        assertEquals(-1, dictionary.idOf((Object) null));
+        assertEquals(-1, dictionary.idOf("not an entity"));
+    }
+
+    @Test
+    void entity_OutOfRange_Throws()
+    {
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.entity(0));
+        assertThrows(NullPointerException.class, () -> dictionary.intern(null));
+    }
+}
@@ -6,9 +6,12 @@ import net.netbeing.cheap.model.HierarchyType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -333,4 +336,71 @@ class EntityDirectoryHierarchyImplTest
         assertEquals(1, entityDirectory.size());
         assertSame(entity1, entityDirectory.get("entity1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void containsEntity_SharedEntity_TracksAllNames()
+    {
+        entityDirectory.put("a", entity1);
+        entityDirectory.put("b", entity1);
+
+        entityDirectory.remove("a");
+        assertTrue(entityDirectory.containsEntity(entity1.globalId()));
+        assertTrue(entityDirectory.containsValue(entity1));
+
+        entityDirectory.remove("b");
+        assertFalse(entityDirectory.containsEntity(entity1.globalId()));
+        assertFalse(entityDirectory.containsValue(entity1));
+    }
+
+    @Test
+    void containsValue_AfterViewMutations_StaysConsistent()
+    {
+        entityDirectory.put("a", entity1);
+        entityDirectory.put("b", entity2);
+        entityDirectory.put("c", entity3);
+
+        entityDirectory.keySet().remove("a");
+        entityDirectory.entrySet().iterator().next().setValue(entity1);
+        entityDirectory.values().removeIf(e -> e == entity3);
+        entityDirectory.merge("d", entity2, (x, y) -> x);
+
+        assertEquals(Map.of("b", entity1, "d", entity2), entityDirectory);
+        assertTrue(entityDirectory.containsValue(entity1));
+        assertTrue(entityDirectory.containsValue(entity2));
+        assertFalse(entityDirectory.containsValue(entity3));
+        assertFalse(entityDirectory.containsEntity(entity3.globalId()));
+    }
+
+    @Test
+    void parallelStream_Views_SplitEvenlyAndSeeEveryEntry()
+    {
+        for (int i = 0; i < 100; i++) {
+            entityDirectory.put("e" + i, new EntityImpl());
+        }
+
+        Spliterator<String> s = entityDirectory.keySet().spliterator();
+        assertEquals(100, s.getExactSizeIfKnown());
+        assertEquals(50, s.trySplit().getExactSizeIfKnown());
+        assertEquals(new ArrayList<>(entityDirectory.keySet()), entityDirectory.keySet().parallelStream().toList());
+        assertEquals(new ArrayList<>(entityDirectory.values()), entityDirectory.values().parallelStream().toList());
+        assertEquals(100, entityDirectory.entrySet().parallelStream().count());
+    }
+
+    @Test
+    void spliterator_ChangedBeforeTraversal_BindsLate()
+    {
+        entityDirectory.put("a", new EntityImpl());
+        Spliterator<String> s = entityDirectory.keySet().spliterator();
+        entityDirectory.put("b", new EntityImpl());
+        entityDirectory.put("c", new EntityImpl());
+
+        List<String> seen = new ArrayList<>();
+        assertTrue(s.tryAdvance(seen::add));
+        assertEquals(2, s.getExactSizeIfKnown());
+        Spliterator<String> prefix = s.trySplit();
+        prefix.forEachRemaining(seen::add);
+        s.forEachRemaining(seen::add);
+
+        assertEquals(List.of("a", "b", "c"), seen);
+    }
+}
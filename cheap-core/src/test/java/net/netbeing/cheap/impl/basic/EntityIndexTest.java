@@ -0,0 +1,266 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityIndexTest
+{
+    private final EntityIndex<String> index = new EntityIndex<>();
+
+    @Test
+    void put_NewEntity_ReturnsNullAndIsFound()
+    {
+        Entity e = new EntityImpl();
+
+        assertNull(index.put(e, "a"));
+
+        assertEquals(1, index.size());
+        assertEquals("a", index.get(e));
+        assertTrue(index.containsKey(e));
+    }
+
+    @Test
+    void put_ExistingEntity_ReplacesValueAndKeepsOriginalKey()
+    {
+        UUID id = UUID.randomUUID();
+        Entity first = new EntityImpl(id);
+        index.put(first, "a");
+
+        assertEquals("a", index.put(new EntityImpl(id), "b"));
+
+        assertEquals(1, index.size());
+        assertEquals("b", index.get(first));
+        assertSame(first, index.keySet().iterator().next());
+    }
+
+    @Test
+    void getById_RegisteredId_ReturnsValueAndEntity()
+    {
+        Entity e = new EntityImpl();
+        index.put(e, "a");
+
+        assertEquals("a", index.getById(e.globalId()));
+        assertSame(e, index.entityById(e.globalId()));
+        assertTrue(index.containsId(e.globalId()));
+        assertNull(index.getById(UUID.randomUUID()));
+        assertFalse(index.containsId(UUID.randomUUID()));
+    }
+
+    @Test
+    void get_NonEntityKey_ReturnsNull()
+    {
+        Entity e = new EntityImpl();
+        index.put(e, "a");
+
+        assertNull(index.get(e.globalId()));
+        assertFalse(index.containsKey("a"));
+    }
+
+    @Test
+    void nullKey_PutGetRemove_WorksCorrectly()
+    {
+        Entity e = new EntityImpl();
+        index.put(e, "a");
+        index.put(null, "n");
+
+        assertEquals(2, index.size());
+        assertTrue(index.containsKey(null));
+        assertEquals("n", index.get(null));
+        assertEquals(List.of("a", "n"), new ArrayList<>(index.values()));
+
+        assertEquals("n", index.remove(null));
+        assertFalse(index.containsKey(null));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void iteration_AfterRemovals_PreservesInsertionOrder()
+    {
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Entity e = new EntityImpl();
+            entities.add(e);
+            index.put(e, "v" + i);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            index.remove(entities.get(i));
+        }
+        // Enough new entries to force reclaiming the removed ones
+        for (int i = 100; i < 200; i++) {
+            Entity e = new EntityImpl();
+            entities.add(e);
+            index.put(e, "v" + i);
+        }
+
+        List<Entity> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            if (i >= 100 || i % 3 != 0) {
+                expected.add(entities.get(i));
+            }
+        }
+        assertEquals(expected, new ArrayList<>(index.keySet()));
+        for (Entity e : expected) {
+            assertEquals("v" + entities.indexOf(e), index.getById(e.globalId()));
+        }
+    }
+
+    @Test
+    void randomOperations_MatchLinkedHashMap()
+    {
+        Random random = new Random(42);
+        List<Entity> pool = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pool.add(new EntityImpl());
+        }
+        Map<Entity, String> expected = new LinkedHashMap<>();
+
+        for (int step = 0; step < 20000; step++) {
+            Entity e = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(e), index.remove(e));
+            } else {
+                String v = "v" + step;
+                assertEquals(expected.put(e, v), index.put(e, v));
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(index.entrySet()));
+        assertEquals(expected, index);
+        assertEquals(expected.hashCode(), index.hashCode());
+    }
+
+    @Test
+    void iteratorRemove_AllEntries_EmptiesIndex()
+    {
+        for (int i = 0; i < 20; i++) {
+            index.put(new EntityImpl(), "v" + i);
+        }
+
+        Iterator<Entity> it = index.keySet().iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+            count++;
+        }
+
+        assertEquals(20, count);
+        assertTrue(index.isEmpty());
+        assertFalse(index.keySet().iterator().hasNext());
+    }
+
+    @Test
+    void entrySetValue_LiveEntry_UpdatesIndex()
+    {
+        Entity e = new EntityImpl();
+        index.put(e, "a");
+
+        Map.Entry<Entity, String> entry = index.entrySet().iterator().next();
+        assertEquals("a", entry.setValue("b"));
+
+        assertEquals("b", index.get(e));
+    }
+
+    @Test
+    void iterator_ConcurrentPut_Throws()
+    {
+        index.put(new EntityImpl(), "a");
+        index.put(new EntityImpl(), "b");
+
+        Iterator<String> it = index.values().iterator();
+        it.next();
+        index.put(new EntityImpl(), "c");
+
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+
+    @Test
+    void clear_Populated_RemovesEverything()
+    {
+        Entity e = new EntityImpl();
+        index.put(e, "a");
+        index.put(null, "n");
+
+        index.clear();
+
+        assertTrue(index.isEmpty());
+        assertFalse(index.containsId(e.globalId()));
+        assertFalse(index.containsKey(null));
+        assertEquals(new HashMap<>(), index);
+    }
+
+    @Test
+    void lazyEntity_LookupById_FindsEntity()
+    {
+        Entity lazy = new EntityLazyIdImpl();
+        index.put(lazy, "a");
+
+        assertEquals("a", index.getById(lazy.globalId()));
+        assertEquals("a", index.get(new EntityImpl(lazy.globalId())));
+    }
+
+    @Test
+    void spliterator_NoHoles_IsSizedAndSplitsEvenly()
+    {
+        for (int i = 0; i < 100; i++) {
+            index.put(new EntityImpl(), "v" + i);
+        }
+
+        Spliterator<Entity> s = index.keySet().spliterator();
+        assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(100, s.getExactSizeIfKnown());
+        Spliterator<Entity> prefix = s.trySplit();
+        assertNotNull(prefix);
+        assertEquals(50, prefix.getExactSizeIfKnown());
+        assertEquals(50, s.getExactSizeIfKnown());
+
+        List<Entity> seen = new ArrayList<>();
+        prefix.forEachRemaining(seen::add);
+        s.forEachRemaining(seen::add);
+        assertEquals(new ArrayList<>(index.keySet()), seen);
+    }
+
+    @Test
+    void spliterator_WithHoles_SkipsRemovedEntries()
+    {
+        List<Entity> kept = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Entity e = new EntityImpl();
+            index.put(e, "v" + i);
+            if (i % 3 == 0) {
+                kept.add(e);
+            }
+        }
+        index.keySet().retainAll(kept);
+
+        assertFalse(index.keySet().spliterator().hasCharacteristics(Spliterator.SIZED));
+        assertEquals(kept, index.keySet().parallelStream().toList());
+        assertEquals(kept.size(), index.values().parallelStream().count());
+        assertEquals(kept, index.entrySet().parallelStream().map(Map.Entry::getKey).toList());
+    }
+
+    @Test
+    void spliterator_ModifiedDuringTraversal_ThrowsConcurrentModification()
+    {
+        index.put(new EntityImpl(), "a");
+        index.put(new EntityImpl(), "b");
+        Spliterator<String> s = index.values().spliterator();
+
+        assertThrows(ConcurrentModificationException.class,
+            () -> s.forEachRemaining(v -> index.put(new EntityImpl(), "c")));
+    }
+}
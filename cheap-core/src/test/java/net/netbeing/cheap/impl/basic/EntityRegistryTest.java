@@ -0,0 +1,186 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityRegistryTest
+{
+    private final EntityRegistry registry = new EntityRegistry();
+
+    @Test
+    void register_NewEntity_ReturnsNullAndIsFound()
+    {
+        Entity e = new EntityImpl();
+
+        assertNull(registry.register(e));
+        assertSame(e, registry.get(e.globalId()));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void register_SameId_ReturnsPrevious()
+    {
+        UUID id = UUID.randomUUID();
+        Entity first = new EntityImpl(id);
+        Entity second = new EntityImpl(id);
+
+        registry.register(first);
+
+        assertSame(first, registry.register(second));
+        assertSame(second, registry.get(id));
+    }
+
+    @Test
+    void get_UnknownId_ReturnsNull()
+    {
+        assertNull(registry.get(UUID.randomUUID()));
+    }
+
+    @Test
+    void getOrRegister_Existing_ReturnsExisting()
+    {
+        Entity e = new EntityImpl();
+        registry.register(e);
+
+        assertSame(e, registry.getOrRegister(e.globalId(), _ -> fail("Should not create")));
+    }
+
+    @Test
+    void getOrRegister_Missing_CreatesAndRegisters()
+    {
+        UUID id = UUID.randomUUID();
+
+        Entity e = registry.getOrRegister(id, EntityImpl::new);
+
+        assertEquals(id, e.globalId());
+        assertSame(e, registry.get(id));
+    }
+
+    @Test
+    void getOrRegister_Concurrent_AllCallersSeeSameEntity() throws Exception
+    {
+        UUID id = UUID.randomUUID();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Entity>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return registry.getOrRegister(id, EntityImpl::new);
+                }));
+            }
+            start.countDown();
+            Entity first = futures.getFirst().get(10, TimeUnit.SECONDS);
+            for (Future<Entity> f : futures) {
+                assertSame(first, f.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrRegister_ConcurrentDistinctIds_RegistersAll() throws Exception
+    {
+        int threads = 8;
+        int perThread = 1000;
+        Set<Entity> keep = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < perThread; j++) {
+                        keep.add(registry.getOrRegister(UUID.randomUUID(), EntityImpl::new));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, registry.size());
+        for (Entity e : keep) {
+            assertSame(e, registry.get(e.globalId()));
+        }
+    }
+
+    @Test
+    void resolveAll_MixedIds_ReturnsOnlyRegisteredInOrder()
+    {
+        Entity a = new EntityImpl();
+        Entity b = new EntityImpl();
+        registry.register(a);
+        registry.register(b);
+        UUID missing = UUID.randomUUID();
+
+        Map<UUID, Entity> result = registry.resolveAll(List.of(b.globalId(), missing, a.globalId()));
+
+        assertEquals(List.of(b.globalId(), a.globalId()), List.copyOf(result.keySet()));
+        assertSame(a, result.get(a.globalId()));
+        assertSame(b, result.get(b.globalId()));
+    }
+
+    @Test
+    void unregister_Registered_RemovesEntity()
+    {
+        Entity e = new EntityImpl();
+        registry.register(e);
+
+        assertSame(e, registry.unregister(e.globalId()));
+        assertNull(registry.get(e.globalId()));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void register_CollectedEntity_IsPurged()
+    {
+        UUID id = UUID.randomUUID();
+        registry.getOrRegister(id, EntityImpl::new);
+        WeakReference<Entity> ref = registry.reference(id);
+
+        // Simulate collection of the entity deterministically.
+        ref.clear();
+        assertTrue(ref.enqueue());
+
+        assertNull(registry.get(id));
+        assertEquals(0, registry.size());
+        assertNull(registry.reference(id));
+    }
+
+    @Test
+    void register_CollectedThenReRegistered_KeepsNewEntry()
+    {
+        UUID id = UUID.randomUUID();
+        registry.getOrRegister(id, EntityImpl::new);
+        WeakReference<Entity> stale = registry.reference(id);
+        stale.clear();
+        Entity replacement = new EntityImpl(id);
+        registry.register(replacement);
+
+        stale.enqueue();
+
+        assertEquals(1, registry.size());
+        assertSame(replacement, registry.get(id));
+    }
+}
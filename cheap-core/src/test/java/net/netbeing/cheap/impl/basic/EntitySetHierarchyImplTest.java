@@ -368,4 +368,16 @@ class EntitySetHierarchyImplTest
         assertEquals(1, entitySet.size());
         assertTrue(entitySet.contains(entity1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void containsEntity_ById_ReflectsMembership()
+    {
+        entitySet.add(entity1);
+
+        assertTrue(entitySet.containsEntity(entity1.globalId()));
+        assertFalse(entitySet.containsEntity(entity2.globalId()));
+
+        entitySet.remove(entity1);
+        assertFalse(entitySet.containsEntity(entity1.globalId()));
+    }
+}
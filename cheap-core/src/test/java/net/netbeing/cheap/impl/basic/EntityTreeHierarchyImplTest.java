@@ -7,6 +7,8 @@ import net.netbeing.cheap.model.HierarchyType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -420,4 +422,60 @@ class EntityTreeHierarchyImplTest
             assertNotNull(root.get(key));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void nodes_Sequential_VisitsInPreOrder()
+    {
+        EntityTreeHierarchyImpl tree = (EntityTreeHierarchyImpl) entityTree;
+        EntityTreeHierarchy.Node root = tree.root();
+        EntityTreeHierarchy.Node child1 = new EntityTreeHierarchyImpl.NodeImpl(childEntity1, root);
+        EntityTreeHierarchy.Node child2 = new EntityTreeHierarchyImpl.NodeImpl(childEntity2, root);
+        root.put("a", child1);
+        root.put("b", child2);
+        child1.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(leafEntity, child1));
+
+        List<Entity> visited = tree.nodes(false).map(EntityTreeHierarchy.Node::value).toList();
+
+        assertEquals(List.of(rootEntity, childEntity1, leafEntity, childEntity2), visited);
+    }
+
+    @Test
+    void nodes_Parallel_VisitsEveryNodeOnce()
+    {
+        EntityTreeHierarchyImpl tree = (EntityTreeHierarchyImpl) entityTree;
+        Set<Entity> expected = new HashSet<>();
+        expected.add(rootEntity);
+        for (int i = 0; i < 20; i++) {
+            Entity e = new EntityImpl();
+            expected.add(e);
+            EntityTreeHierarchy.Node branch = new EntityTreeHierarchyImpl.NodeImpl(e, tree.root());
+            tree.root().put("b" + i, branch);
+            for (int j = 0; j < 50; j++) {
+                Entity leaf = new EntityImpl();
+                expected.add(leaf);
+                branch.put("l" + j, new EntityTreeHierarchyImpl.LeafNodeImpl(leaf, branch));
+            }
+        }
+
+        List<Entity> visited = tree.nodes(true).map(EntityTreeHierarchy.Node::value).toList();
+
+        assertEquals(expected.size(), visited.size());
+        assertEquals(expected, new HashSet<>(visited));
+    }
+
+    @Test
+    void subtreePage_PlainNodes_WalksSubtreeSizes()
+    {
+        EntityTreeHierarchy.Node root = entityTree.root();
+        EntityTreeHierarchy.Node child1 = new EntityTreeHierarchyImpl.NodeImpl(childEntity1, root);
+        EntityTreeHierarchy.Node child2 = new EntityTreeHierarchyImpl.NodeImpl(childEntity2, root);
+        root.put("a", child1);
+        root.put("b", child2);
+        child1.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(leafEntity, child1));
+
+        assertEquals(4, root.subtreeSize());
+        assertEquals(2, child1.subtreeSize());
+        assertEquals(List.of(child1, child1.get("leaf")), root.subtreePage(1, 2));
+        assertEquals(List.of(child2), root.subtreePage(3, 5));
+    }
+}
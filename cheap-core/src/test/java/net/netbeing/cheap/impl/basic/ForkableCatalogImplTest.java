@@ -0,0 +1,246 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Catalog;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForkableCatalogImplTest
+{
+    private final ForkableCatalogImpl catalog = new ForkableCatalogImpl();
+    private final AspectDef def = new MutableAspectDefImpl("person");
+
+    @Test
+    void createHierarchies_Always_CreatesForkableImplementations()
+    {
+        assertInstanceOf(ForkableAspectMapHierarchyImpl.class, catalog.createAspectMap(def, 0L));
+        assertInstanceOf(ForkableEntityListHierarchyImpl.class, catalog.createEntityList("list", 0L));
+        assertInstanceOf(ForkableEntitySetHierarchyImpl.class, catalog.createEntitySet("set", 0L));
+        assertInstanceOf(ForkableEntityDirectoryHierarchyImpl.class, catalog.createEntityDirectory("dir", 0L));
+        assertInstanceOf(ForkableEntityTreeHierarchyImpl.class, catalog.createEntityTree("tree", null, 0L));
+        assertThrows(UnsupportedOperationException.class,
+            () -> catalog.createAspectMap(new MutableAspectDefImpl("other"), 0L, AspectMapStorage.COLUMNAR));
+    }
+
+    @Test
+    void derive_Species_SetsUpstream()
+    {
+        ForkableCatalogImpl fork = catalog.derive(CatalogSpecies.FORK);
+        ForkableCatalogImpl saveAs = catalog.derive(CatalogSpecies.SINK);
+
+        assertEquals(CatalogSpecies.FORK, fork.species());
+        assertEquals(catalog.globalId(), fork.upstream());
+        assertNotEquals(catalog.globalId(), fork.globalId());
+        assertEquals(CatalogSpecies.SINK, saveAs.species());
+        assertNull(saveAs.upstream());
+    }
+
+    @Test
+    void derive_ModifyEither_ChangesAreIsolated()
+    {
+        Entity a = new EntityImpl();
+        Entity b = new EntityImpl();
+        Entity c = new EntityImpl();
+        AspectMapHierarchy aspects = catalog.createAspectMap(def, 0L);
+        aspects.put(a, new AspectObjectMapImpl(a, def));
+        EntityListHierarchy list = catalog.createEntityList("list", 0L);
+        list.add(a);
+        EntitySetHierarchy set = catalog.createEntitySet("set", 0L);
+        set.add(a);
+        EntityDirectoryHierarchy dir = catalog.createEntityDirectory("dir", 0L);
+        dir.put("a", a);
+
+        ForkableCatalogImpl fork = catalog.derive(CatalogSpecies.CLONE);
+        AspectMapHierarchy forkAspects = fork.aspects(def);
+        EntityListHierarchy forkList = (EntityListHierarchy) fork.hierarchy("list");
+        EntitySetHierarchy forkSet = (EntitySetHierarchy) fork.hierarchy("set");
+        EntityDirectoryHierarchy forkDir = (EntityDirectoryHierarchy) fork.hierarchy("dir");
+
+        forkAspects.put(b, new AspectObjectMapImpl(b, def));
+        forkList.add(b);
+        forkSet.remove(a);
+        forkDir.put("b", b);
+        aspects.remove(a);
+        list.set(0, c);
+        set.add(c);
+        dir.put("c", c);
+
+        assertSame(fork, forkAspects.catalog());
+        assertEquals(Set.of(b, a), forkAspects.keySet());
+        assertEquals(List.of(a, b), forkList);
+        assertTrue(forkSet.isEmpty());
+        assertEquals(Set.of("a", "b"), forkDir.keySet());
+        assertTrue(aspects.isEmpty());
+        assertEquals(List.of(c), list);
+        assertEquals(Set.of(a, c), set);
+        assertEquals(Set.of("a", "c"), dir.keySet());
+    }
+
+    @Test
+    void derive_Tree_ChangesAreIsolated()
+    {
+        Entity a = new EntityImpl();
+        Entity b = new EntityImpl();
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", null, 0L);
+        tree.root().put("dir", new EntityTreeHierarchyImpl.NodeImpl(null));
+        tree.root().get("dir").put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(a));
+
+        ForkableCatalogImpl fork = catalog.derive(CatalogSpecies.FORK);
+        EntityTreeHierarchy forkTree = (EntityTreeHierarchy) fork.hierarchy("tree");
+        Node forkDir = forkTree.root().get("dir");
+        forkDir.get("leaf").setValue(b);
+        forkDir.put("more", new EntityTreeHierarchyImpl.NodeImpl(b));
+
+        Node dir = tree.root().get("dir");
+        assertEquals(a, dir.get("leaf").value());
+        assertEquals(Set.of("leaf"), dir.keySet());
+        assertEquals(b, forkTree.root().get("dir").get("leaf").value());
+        assertEquals(Set.of("leaf", "more"), forkDir.keySet());
+        assertSame(forkTree.root(), forkDir.getParent());
+    }
+
+    @Test
+    void treeNode_RemovedFromTree_Throws()
+    {
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", null, 0L);
+        tree.root().put("dir", new EntityTreeHierarchyImpl.NodeImpl(null));
+        Node dir = tree.root().get("dir");
+
+        Node removed = tree.root().remove("dir");
+
+        assertNotNull(removed);
+        assertThrows(IllegalStateException.class, dir::size);
+    }
+
+    @Test
+    void treeNode_LeafNode_RejectsChildren()
+    {
+        EntityTreeHierarchy tree = catalog.createEntityTree("tree", null, 0L);
+        tree.root().put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(new EntityImpl()));
+        Node leaf = tree.root().get("leaf");
+
+        assertTrue(leaf.isLeaf());
+        assertThrows(UnsupportedOperationException.class, () -> leaf.put("x", new EntityTreeHierarchyImpl.NodeImpl(null)));
+    }
+
+    @Test
+    void derive_FromPlainCatalog_CopiesContents()
+    {
+        Catalog plain = new CatalogImpl();
+        Entity a = new EntityImpl();
+        plain.createAspectMap(def, 0L).put(a, new AspectObjectMapImpl(a, def));
+        plain.createEntityList("list", 0L).add(a);
+        EntityTreeHierarchy tree = plain.createEntityTree("tree", null, 0L);
+        tree.root().put("x", new EntityTreeHierarchyImpl.NodeImpl(a));
+
+        ForkableCatalogImpl fork = ForkableCatalogImpl.derive(plain, CatalogSpecies.FORK);
+
+        assertEquals(plain.globalId(), fork.upstream());
+        assertInstanceOf(ForkableAspectMapHierarchyImpl.class, fork.aspects(def));
+        assertTrue(fork.aspects(def).containsKey(a));
+        assertEquals(List.of(a), fork.hierarchy("list"));
+        assertEquals(a, ((EntityTreeHierarchy) fork.hierarchy("tree")).root().get("x").value());
+        assertTrue(fork.containsAspects("person"));
+    }
+
+    private static MutableAspectDefImpl namedDef()
+    {
+        MutableAspectDefImpl named = new MutableAspectDefImpl("named");
+        named.add(new PropertyDefBuilder().setName("p").setType(PropertyType.String).build());
+        return named;
+    }
+
+    @Test
+    void derive_WriteSharedAspect_OnlyWriterSeesIt()
+    {
+        MutableAspectDefImpl named = namedDef();
+        Entity e = new EntityImpl();
+        AspectMapHierarchy parent = catalog.createAspectMap(named, 0L);
+        Aspect aspect = new AspectObjectMapImpl(e, named);
+        aspect.write("p", "original");
+        parent.put(e, aspect);
+
+        AspectMapHierarchy forked = catalog.derive(CatalogSpecies.FORK).aspects(named);
+        forked.get(e).write("p", "forkEdit");
+        parent.get(e).write("p", "parentEdit");
+
+        assertEquals("forkEdit", forked.get(e).readObj("p"));
+        assertEquals("parentEdit", parent.get(e).readObj("p"));
+        assertEquals("original", aspect.readObj("p"));
+        for (Aspect value : forked.values()) {
+            value.write("p", "iterEdit");
+        }
+        assertEquals("parentEdit", parent.get(e).readObj("p"));
+        assertEquals("iterEdit", forked.get(e).readObj("p"));
+    }
+
+    @Test
+    void derive_AspectPutAfterFork_ReturnedAsIs()
+    {
+        Entity e = new EntityImpl();
+        AspectMapHierarchy forked = catalog.derive(CatalogSpecies.FORK).createAspectMap(def, 0L);
+        Aspect aspect = new AspectObjectMapImpl(e, def);
+        forked.put(e, aspect);
+
+        assertSame(aspect, forked.get(e));
+    }
+
+    @Test
+    void derive_FromPlainCatalog_CopiesAspectsOnceThenForksCheaply()
+    {
+        MutableAspectDefImpl named = namedDef();
+        Catalog plain = new CatalogImpl();
+        Entity e = new EntityImpl();
+        Aspect aspect = new AspectObjectMapImpl(e, named);
+        aspect.write("p", "original");
+        plain.createAspectMap(named, 0L).put(e, aspect);
+
+        ForkableCatalogImpl saveAs = ForkableCatalogImpl.derive(plain, CatalogSpecies.SINK);
+        aspect.write("p", "plainEdit");
+
+        assertNotSame(aspect, saveAs.aspects(named).get(e));
+        assertEquals("original", saveAs.aspects(named).get(e).readObj("p"));
+        for (Hierarchy hierarchy : saveAs.hierarchies()) {
+            assertInstanceOf(ForkableHierarchy.class, hierarchy);
+        }
+        ForkableCatalogImpl again = saveAs.derive(CatalogSpecies.SINK);
+        again.aspects(named).get(e).write("p", "againEdit");
+        assertEquals("original", saveAs.aspects(named).get(e).readObj("p"));
+    }
+
+    @Test
+    void forkableList_InsertAndRemoveInMiddle_MatchesList()
+    {
+        ForkableList<Integer> list = new ForkableList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        ForkableList<Integer> fork = list.fork();
+
+        fork.add(50, -1);
+        fork.remove(0);
+
+        assertEquals(100, list.size());
+        assertEquals(0, list.getFirst());
+        assertEquals(100, fork.size());
+        assertEquals(1, fork.getFirst());
+        assertEquals(-1, fork.get(49));
+        assertEquals(99, fork.getLast());
+    }
+}
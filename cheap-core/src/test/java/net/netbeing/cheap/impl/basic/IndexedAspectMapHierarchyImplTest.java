@@ -0,0 +1,248 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedAspectMapHierarchyImplTest
+{
+    private static final ZonedDateTime BASE = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private AspectDef aspectDef;
+    private CatalogImpl catalog;
+    private IndexedAspectMapHierarchyImpl hierarchy;
+    private final List<Entity> entities = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("name", new PropertyDefImpl("name", PropertyType.String, null, false, true, true, true, false));
+        props.put("size", new PropertyDefImpl("size", PropertyType.Integer, null, false, true, true, true, false));
+        props.put("modifiedTime", new PropertyDefImpl("modifiedTime", PropertyType.DateTime, null, false, true, true, true, false));
+        props.put("tags", new PropertyDefImpl("tags", PropertyType.String, null, false, true, true, true, true));
+        props.put("data", new PropertyDefImpl("data", PropertyType.BLOB, null, false, true, true, true, false));
+        aspectDef = new ImmutableAspectDefImpl("file" + System.nanoTime(), props);
+
+        catalog = new CatalogImpl();
+        hierarchy = new CheapFactory().createIndexedAspectMapHierarchy(catalog, aspectDef, 0L);
+
+        for (int i = 0; i < 10; i++) {
+            Entity entity = new EntityImpl();
+            entities.add(entity);
+            hierarchy.put(entity, aspect(entity, i));
+        }
+    }
+
+    private Aspect aspect(Entity entity, int i)
+    {
+        AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+        aspect.unsafeWrite("name", "file" + (i % 3));
+        aspect.unsafeWrite("size", (long) i * 100);
+        aspect.unsafeWrite("modifiedTime", BASE.plusDays(i));
+        aspect.unsafeWrite("tags", List.of("t" + (i % 2), "all"));
+        return aspect;
+    }
+
+    @Test
+    void createIndexedAspectMapHierarchy_RegistersInCatalog()
+    {
+        assertSame(hierarchy, catalog.aspects(aspectDef));
+        assertTrue(hierarchy.indexedProperties().isEmpty());
+    }
+
+    @Test
+    void createIndex_UnknownProperty_Throws()
+    {
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.createIndex("missing", PropertyIndexType.HASH));
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.createIndex("data", PropertyIndexType.HASH));
+    }
+
+    @Test
+    void createIndex_ExistingWithOtherType_Throws()
+    {
+        hierarchy.createIndex("name", PropertyIndexType.HASH);
+        hierarchy.createIndex("name", PropertyIndexType.HASH);
+        assertThrows(IllegalStateException.class, () -> hierarchy.createIndex("name", PropertyIndexType.SORTED));
+        assertEquals(PropertyIndexType.HASH, hierarchy.indexType("name"));
+    }
+
+    @Test
+    void findEqual_HashIndex_BuildsFromExistingAspects()
+    {
+        hierarchy.createIndex("name", PropertyIndexType.HASH);
+
+        assertEquals(Set.of(entities.get(0), entities.get(3), entities.get(6), entities.get(9)),
+            hierarchy.findEqual("name", "file0"));
+        assertTrue(hierarchy.findEqual("name", "nope").isEmpty());
+        assertTrue(hierarchy.findEqual("name", null).isEmpty());
+    }
+
+    @Test
+    void findEqual_NotIndexed_Throws()
+    {
+        assertThrows(IllegalStateException.class, () -> hierarchy.findEqual("name", "file0"));
+    }
+
+    @Test
+    void findRange_SortedDateTime_ReturnsEntitiesInValueOrder()
+    {
+        hierarchy.createIndex("modifiedTime", PropertyIndexType.SORTED);
+
+        Set<Entity> after = hierarchy.findRange("modifiedTime", BASE.plusDays(6), false, null, false);
+        assertEquals(List.of(entities.get(7), entities.get(8), entities.get(9)), new ArrayList<>(after));
+
+        Set<Entity> between = hierarchy.findRange("modifiedTime", BASE.plusDays(2), true, BASE.plusDays(4), true);
+        assertEquals(List.of(entities.get(2), entities.get(3), entities.get(4)), new ArrayList<>(between));
+
+        assertTrue(hierarchy.findRange("modifiedTime", BASE.plusDays(5), true, BASE.plusDays(4), true).isEmpty());
+        assertTrue(hierarchy.findRange("modifiedTime", BASE.plusDays(5), false, BASE.plusDays(5), true).isEmpty());
+        assertEquals(Set.of(entities.get(5)),
+            hierarchy.findRange("modifiedTime", BASE.plusDays(5), true, BASE.plusDays(5), true));
+    }
+
+    @Test
+    void findRange_HashIndex_Throws()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.HASH);
+        assertThrows(UnsupportedOperationException.class, () -> hierarchy.findRange("size", 0L, true, 10L, true));
+    }
+
+    @Test
+    void findRange_IncomparableBound_Throws()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.SORTED);
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.findRange("size", "x", true, null, false));
+    }
+
+    @Test
+    void put_ReplaceAndRemove_MaintainIndexes()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.SORTED);
+        Entity entity = entities.get(1);
+
+        AspectObjectMapImpl replacement = new AspectObjectMapImpl(entity, aspectDef);
+        replacement.unsafeWrite("size", 5000L);
+        hierarchy.put(entity, replacement);
+        assertTrue(hierarchy.findEqual("size", 100L).isEmpty());
+        assertEquals(Set.of(entity), hierarchy.findRange("size", 1000L, true, null, false));
+
+        hierarchy.remove(entity);
+        assertTrue(hierarchy.findEqual("size", 5000L).isEmpty());
+
+        Entity added = new EntityImpl();
+        hierarchy.add(aspect(added, 42));
+        assertEquals(Set.of(added), hierarchy.findEqual("size", 4200L));
+
+        hierarchy.clear();
+        assertTrue(hierarchy.findRange("size", null, false, null, false).isEmpty());
+    }
+
+    @Test
+    void unsafeWrite_ThroughMapView_UpdatesIndex()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.SORTED);
+        hierarchy.createIndex("name", PropertyIndexType.HASH);
+        Entity entity = entities.get(2);
+
+        Aspect view = hierarchy.get(entity);
+        view.unsafeWrite("size", 9999L);
+        view.writeLong("size", 7777L);
+        view.unsafeWrite("name", "renamed");
+
+        assertEquals(Set.of(entity), hierarchy.findEqual("size", 7777L));
+        assertTrue(hierarchy.findEqual("size", 9999L).isEmpty());
+        assertTrue(hierarchy.findEqual("size", 200L).isEmpty());
+        assertEquals(Set.of(entity), hierarchy.findEqual("name", "renamed"));
+        assertFalse(hierarchy.findEqual("name", "file2").contains(entity));
+
+        view.unsafeRemove("name");
+        assertTrue(hierarchy.findEqual("name", "renamed").isEmpty());
+    }
+
+    @Test
+    void unsafeWrite_AfterRemoval_DoesNotTouchIndex()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.HASH);
+        Entity entity = entities.get(3);
+        Aspect view = hierarchy.get(entity);
+        hierarchy.remove(entity);
+
+        view.unsafeWrite("size", 1L);
+        assertTrue(hierarchy.findEqual("size", 1L).isEmpty());
+    }
+
+    @Test
+    void reindex_AfterBypassingWrite_RestoresIndex()
+    {
+        Entity entity = entities.get(4);
+        AspectObjectMapImpl original = new AspectObjectMapImpl(entity, aspectDef);
+        original.unsafeWrite("size", 1L);
+        hierarchy.put(entity, original);
+        hierarchy.createIndex("size", PropertyIndexType.HASH);
+
+        original.unsafeWrite("size", 2L);
+        assertEquals(Set.of(entity), hierarchy.findEqual("size", 1L));
+
+        hierarchy.reindex();
+        assertTrue(hierarchy.findEqual("size", 1L).isEmpty());
+        assertEquals(Set.of(entity), hierarchy.findEqual("size", 2L));
+    }
+
+    @Test
+    void findEqual_Multivalued_IndexesEachElement()
+    {
+        hierarchy.createIndex("tags", PropertyIndexType.HASH);
+
+        assertEquals(10, hierarchy.findEqual("tags", "all").size());
+        assertEquals(5, hierarchy.findEqual("tags", "t1").size());
+
+        hierarchy.get(entities.get(1)).unsafeWrite("tags", List.of("t0"));
+        assertEquals(9, hierarchy.findEqual("tags", "all").size());
+        assertEquals(6, hierarchy.findEqual("tags", "t0").size());
+    }
+
+    @Test
+    void entrySetIterator_Remove_UpdatesIndex()
+    {
+        hierarchy.createIndex("name", PropertyIndexType.HASH);
+        Iterator<Map.Entry<Entity, Aspect>> it = hierarchy.entrySet().iterator();
+        while (it.hasNext()) {
+            if ("file1".equals(it.next().getValue().unsafeReadObj("name"))) {
+                it.remove();
+            }
+        }
+        assertTrue(hierarchy.findEqual("name", "file1").isEmpty());
+        assertEquals(7, hierarchy.size());
+    }
+
+    @Test
+    void put_ViewFromSameMap_DoesNotDoubleWrap()
+    {
+        hierarchy.createIndex("size", PropertyIndexType.HASH);
+        Entity entity = entities.get(5);
+        Aspect view = hierarchy.get(entity);
+        hierarchy.put(entity, view);
+
+        hierarchy.get(entity).unsafeWrite("size", 123L);
+        assertEquals(123L, (Long) hierarchy.get(entity).unsafeReadObj("size"));
+        assertEquals(Set.of(entity), hierarchy.findEqual("size", 123L));
+        assertSame(hierarchy.get(entity), hierarchy.aspect(entity.globalId()));
+    }
+}
@@ -0,0 +1,207 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.util.CheapException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyHierarchyTest
+{
+    private CatalogImpl catalog;
+    private Entity entity1;
+    private Entity entity2;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp()
+    {
+        catalog = new CatalogImpl();
+        entity1 = new EntityImpl();
+        entity2 = new EntityImpl();
+        loads = new AtomicInteger();
+    }
+
+    private HierarchyLoader counting(HierarchyLoader loader)
+    {
+        return target -> {
+            loads.incrementAndGet();
+            loader.load(target);
+        };
+    }
+
+    @Test
+    void deferHierarchy_EntityList_ExposesMetadataWithoutLoading()
+    {
+        Hierarchy deferred = catalog.deferHierarchy(HierarchyType.ENTITY_LIST, "list", 4L, 2L,
+            counting(target -> ((EntityListHierarchy) target).addAll(List.of(entity1, entity2))));
+
+        assertSame(deferred, catalog.hierarchy("list"));
+        assertEquals("list", deferred.name());
+        assertEquals(HierarchyType.ENTITY_LIST, deferred.type());
+        assertEquals(4L, deferred.version());
+        assertEquals(2, ((EntityListHierarchy) deferred).size());
+        assertEquals(2L, ((LazyHierarchy) deferred).expectedSize());
+        assertFalse(((LazyHierarchy) deferred).isLoaded());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void deferHierarchy_EntityList_LoadsOnceOnFirstAccess()
+    {
+        EntityListHierarchy list = (EntityListHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_LIST, "list", 0L, 2L,
+            counting(target -> ((EntityListHierarchy) target).addAll(List.of(entity1, entity2))));
+
+        assertEquals(entity2, list.get(1));
+        list.add(entity1);
+
+        assertEquals(List.of(entity1, entity2, entity1), new ArrayList<>(list));
+        assertEquals(3, list.size());
+        assertEquals(1, loads.get());
+        assertTrue(((LazyHierarchy) list).isLoaded());
+    }
+
+    @Test
+    void deferHierarchy_EntitySet_LoadsOnAccess()
+    {
+        EntitySetHierarchy set = (EntitySetHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_SET, "set", 0L, -1L,
+            counting(target -> ((EntitySetHierarchy) target).add(entity1)));
+
+        assertTrue(set.containsEntity(entity1.globalId()));
+        assertFalse(set.contains(entity2));
+        assertEquals(1, set.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void deferHierarchy_UnknownSize_LoadsToAnswerSize()
+    {
+        EntitySetHierarchy set = (EntitySetHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_SET, "set", 0L, -1L,
+            counting(target -> ((EntitySetHierarchy) target).add(entity1)));
+
+        assertEquals(1, set.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void deferHierarchy_EntityDirectory_LoadsOnAccess()
+    {
+        EntityDirectoryHierarchy dir = (EntityDirectoryHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_DIR, "dir", 0L, 1L,
+            counting(target -> ((EntityDirectoryHierarchy) target).put("a", entity1)));
+
+        assertFalse(dir.isEmpty());
+        assertEquals(0, loads.get());
+        assertSame(entity1, dir.get("a"));
+        assertTrue(dir.containsEntity(entity1.globalId()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void deferHierarchy_EntityTree_LoadsWhenRootRequested()
+    {
+        EntityTreeHierarchy tree = (EntityTreeHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_TREE, "tree", 0L, 2L,
+            counting(target -> ((EntityTreeHierarchy) target).root().put("child", new EntityTreeHierarchyImpl.NodeImpl(entity1))));
+
+        assertEquals(0, loads.get());
+        assertSame(entity1, tree.root().get("child").value());
+        assertSame(tree.root(), tree.root());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void deferHierarchy_AspectMap_Throws()
+    {
+        assertThrows(IllegalArgumentException.class,
+            () -> catalog.deferHierarchy(HierarchyType.ASPECT_MAP, "aspects", 0L, 0L, target -> {}));
+    }
+
+    @Test
+    void deferAspectMap_UsesCatalogStorage()
+    {
+        AspectDef aspectDef = new MutableAspectDefImpl("lazy" + System.nanoTime());
+        catalog.aspectMapStorage(AspectMapStorage.COLUMNAR);
+        AspectMapHierarchy aspects = catalog.deferAspectMap(aspectDef, 1L, 1L,
+            counting(target -> ((AspectMapHierarchy) target).put(entity1, new AspectObjectMapImpl(entity1, aspectDef))));
+
+        assertSame(aspects, catalog.aspects(aspectDef));
+        assertTrue(catalog.containsAspects(aspectDef.name()));
+        assertSame(aspectDef, aspects.aspectDef());
+        assertEquals(1, aspects.size());
+        assertEquals(0, loads.get());
+
+        Aspect aspect = aspects.aspect(entity1.globalId());
+
+        assertNotNull(aspect);
+        assertInstanceOf(ColumnarAspectMapHierarchyImpl.class, ((LazyAspectMapHierarchyImpl) aspects).loaded());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void load_LoaderFails_RetriesOnNextAccess()
+    {
+        AtomicInteger attempts = new AtomicInteger();
+        EntitySetHierarchy set = (EntitySetHierarchy) catalog.deferHierarchy(HierarchyType.ENTITY_SET, "set", 0L, 1L,
+            target -> {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new CheapException("unavailable");
+                }
+                ((EntitySetHierarchy) target).add(entity1);
+            });
+
+        assertThrows(CheapException.class, () -> set.contains(entity1));
+        assertFalse(((LazyHierarchy) set).isLoaded());
+        assertTrue(set.contains(entity1));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void load_ConcurrentAccess_LoadsOnce() throws InterruptedException
+    {
+        ConcurrentCatalogImpl concurrent = new ConcurrentCatalogImpl(UUID.randomUUID(), CatalogSpecies.SINK, null, 0L);
+        CountDownLatch start = new CountDownLatch(1);
+        EntitySetHierarchy set = (EntitySetHierarchy) concurrent.deferHierarchy(HierarchyType.ENTITY_SET, "set", 0L, 1L,
+            counting(target -> ((EntitySetHierarchy) target).add(entity1)));
+
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger found = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (set.contains(entity1)) {
+                    found.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8, found.get());
+        assertEquals(1, loads.get());
+    }
+}
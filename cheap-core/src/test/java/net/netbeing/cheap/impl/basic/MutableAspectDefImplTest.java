@@ -434,4 +434,41 @@ class MutableAspectDefImplTest
         // Property order affects hash value, so hashes should be different
         assertNotEquals(aspectDef1.hash(), aspectDef2.hash());
     }
-}
\ No newline at end of file
+
+    @Test
+    void slotOf_AddedProperties_AssignsSlotsInOrder()
+    {
+        MutableAspectDefImpl aspectDef = new MutableAspectDefImpl("testAspect");
+        aspectDef.add(propDef1);
+        aspectDef.add(propDef2);
+
+        assertEquals(0, aspectDef.slotOf("prop1"));
+        assertEquals(1, aspectDef.slotOf("prop2"));
+        assertEquals(-1, aspectDef.slotOf("prop3"));
+        assertEquals(2, aspectDef.slotCount());
+        assertSame(propDef2, aspectDef.slotPropertyDef(1));
+    }
+
+    @Test
+    void slotOf_RemovedAndReaddedProperty_GetsFreshSlot()
+    {
+        MutableAspectDefImpl aspectDef = new MutableAspectDefImpl("testAspect");
+        aspectDef.add(propDef1);
+        aspectDef.add(propDef2);
+
+        aspectDef.remove(propDef1);
+        aspectDef.add(propDef3);
+
+        assertEquals(-1, aspectDef.slotOf("prop1"));
+        assertNull(aspectDef.slotPropertyDef(0));
+        assertEquals(1, aspectDef.slotOf("prop2"));
+        assertEquals(2, aspectDef.slotOf("prop3"));
+        assertEquals(3, aspectDef.slotCount());
+
+        aspectDef.add(propDef1);
+        assertEquals(3, aspectDef.slotOf("prop1"));
+        assertSame(propDef1, aspectDef.slotPropertyDef(3));
+        assertNull(aspectDef.slotPropertyDef(0));
+        assertEquals(4, aspectDef.slotCount());
+    }
+}
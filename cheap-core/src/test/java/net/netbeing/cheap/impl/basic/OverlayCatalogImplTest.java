@@ -0,0 +1,247 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.CatalogSpecies;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.EntityDirectoryHierarchy;
+import net.netbeing.cheap.model.EntityListHierarchy;
+import net.netbeing.cheap.model.EntitySetHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy;
+import net.netbeing.cheap.model.EntityTreeHierarchy.Node;
+import net.netbeing.cheap.model.Hierarchy;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverlayCatalogImplTest
+{
+    private final CatalogImpl upstream = new CatalogImpl();
+    private final AspectDef def = new MutableAspectDefImpl("person");
+    private final Entity a = new EntityImpl();
+    private final Entity b = new EntityImpl();
+    private final Entity c = new EntityImpl();
+
+    @Test
+    void constructor_Always_RecordsUpstream()
+    {
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.CLONE);
+
+        assertEquals(upstream.globalId(), overlay.upstream());
+        assertSame(upstream, overlay.upstreamCatalog());
+        assertThrows(IllegalArgumentException.class, () -> new OverlayCatalogImpl(upstream, CatalogSpecies.SINK));
+    }
+
+    @Test
+    void aspectMap_LocalChanges_ShadowUpstream()
+    {
+        AspectMapHierarchy up = upstream.createAspectMap(def, 0L);
+        up.put(a, new AspectObjectMapImpl(a, def));
+        up.put(b, new AspectObjectMapImpl(b, def));
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.MIRROR);
+
+        AspectMapHierarchy aspects = overlay.aspects(def);
+        aspects.remove(a);
+        aspects.put(c, new AspectObjectMapImpl(c, def));
+
+        assertSame(overlay, aspects.catalog());
+        assertEquals(Set.of(b, c), aspects.keySet());
+        assertEquals(2, aspects.size());
+        assertNull(aspects.get(a));
+        assertEquals(Set.of(a, b), up.keySet());
+        assertTrue(overlay.containsAspects("person"));
+    }
+
+    @Test
+    void aspectMap_UpstreamChange_VisibleUnlessShadowed()
+    {
+        AspectMapHierarchy up = upstream.createAspectMap(def, 0L);
+        up.put(a, new AspectObjectMapImpl(a, def));
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.MIRROR);
+        AspectMapHierarchy aspects = overlay.aspects(def);
+        aspects.remove(a);
+
+        up.put(b, new AspectObjectMapImpl(b, def));
+
+        assertEquals(Set.of(b), aspects.keySet());
+    }
+
+    @Test
+    void aspectMap_WriteInPlace_CopiedIntoOverlay()
+    {
+        MutableAspectDefImpl named = new MutableAspectDefImpl("named");
+        named.add(new PropertyDefBuilder().setName("p").setType(PropertyType.String).build());
+        Aspect aspect = new AspectObjectMapImpl(a, named);
+        aspect.write("p", "original");
+        upstream.createAspectMap(named, 0L).put(a, aspect);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.CLONE);
+        AspectMapHierarchy aspects = overlay.aspects(named);
+
+        aspects.get(a).write("p", "cloneEdit");
+
+        assertEquals("original", aspect.readObj("p"));
+        assertEquals("cloneEdit", aspects.get(a).readObj("p"));
+
+        OverlayCatalogImpl other = new OverlayCatalogImpl(upstream, CatalogSpecies.CLONE);
+        for (Aspect value : other.aspects(named).values()) {
+            value.write("p", "iterEdit");
+        }
+        assertEquals("original", aspect.readObj("p"));
+        assertEquals("iterEdit", other.aspects(named).get(a).readObj("p"));
+    }
+
+    @Test
+    void removeHierarchy_Upstream_HiddenUntilReAdded()
+    {
+        upstream.createAspectMap(def, 0L).put(a, new AspectObjectMapImpl(a, def));
+        upstream.createEntitySet("set", 0L).add(a);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.FORK);
+
+        assertNotNull(overlay.removeHierarchy("person"));
+        assertNotNull(overlay.removeHierarchy("set"));
+
+        assertNull(overlay.hierarchy("set"));
+        assertFalse(overlay.containsAspects("person"));
+        assertFalse(overlay.hierarchies().iterator().hasNext());
+        assertFalse(overlay.aspectDefs().iterator().hasNext());
+        assertNotNull(upstream.hierarchy("set"));
+        assertTrue(upstream.containsAspects("person"));
+
+        overlay.createEntitySet("set", 0L);
+        assertTrue(((EntitySetHierarchy) overlay.hierarchy("set")).isEmpty());
+    }
+
+    @Test
+    void overlayMap_IteratorRemove_WritesTombstone()
+    {
+        OverlayMap<String, Integer> map = new OverlayMap<>(Map.of("x", 1, "y", 2));
+        map.put("z", 3);
+
+        Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> e = it.next();
+            if (e.getKey().equals("x") || e.getKey().equals("z")) {
+                it.remove();
+            } else {
+                e.setValue(20);
+            }
+        }
+
+        assertEquals(Map.of("y", 20), map);
+        assertEquals(2, map.localChanges());
+    }
+
+    @Test
+    void overlayMap_Clear_HidesUpstream()
+    {
+        OverlayMap<String, Integer> map = new OverlayMap<>(Map.of("x", 1));
+
+        map.clear();
+        map.put("y", 2);
+
+        assertEquals(Map.of("y", 2), map);
+    }
+
+    @Test
+    void entitySet_RemoveAndReAdd_MatchesExpected()
+    {
+        EntitySetHierarchy up = upstream.createEntitySet("set", 0L);
+        up.add(a);
+        up.add(b);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.CACHE);
+        EntitySetHierarchy set = (EntitySetHierarchy) overlay.hierarchy("set");
+
+        assertTrue(set.remove(a));
+        assertFalse(set.remove(a));
+        assertTrue(set.add(c));
+        assertTrue(set.add(a));
+
+        assertEquals(Set.of(a, b, c), set);
+        assertEquals(Set.of(a, b), up);
+    }
+
+    @Test
+    void entityList_FirstWrite_CopiesOnce()
+    {
+        EntityListHierarchy up = upstream.createEntityList("list", 0L);
+        up.add(a);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.CLONE);
+        EntityListHierarchy list = (EntityListHierarchy) overlay.hierarchy("list");
+
+        up.add(b);
+        assertEquals(List.of(a, b), list);
+        list.add(c);
+        up.clear();
+
+        assertEquals(List.of(a, b, c), list);
+    }
+
+    @Test
+    void entityDirectory_LocalChanges_ShadowUpstream()
+    {
+        EntityDirectoryHierarchy up = upstream.createEntityDirectory("dir", 0L);
+        up.put("a", a);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.FORK);
+        EntityDirectoryHierarchy dir = (EntityDirectoryHierarchy) overlay.hierarchy("dir");
+
+        dir.put("a", b);
+        dir.put("c", c);
+
+        assertEquals(Map.of("a", b, "c", c), dir);
+        assertEquals(Map.of("a", a), up);
+    }
+
+    @Test
+    void entityTree_NestedChanges_KeptLocally()
+    {
+        EntityTreeHierarchy up = upstream.createEntityTree("tree", null, 0L);
+        Node upDir = new EntityTreeHierarchyImpl.NodeImpl(a, up.root());
+        up.root().put("dir", upDir);
+        upDir.put("leaf", new EntityTreeHierarchyImpl.LeafNodeImpl(a, upDir));
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.FORK);
+        EntityTreeHierarchy tree = (EntityTreeHierarchy) overlay.hierarchy("tree");
+
+        tree.root().get("dir").get("leaf").setValue(b);
+        tree.root().get("dir").put("new", new EntityTreeHierarchyImpl.NodeImpl(c));
+        tree.root().remove("missing");
+
+        Node dir = tree.root().get("dir");
+        assertEquals(b, dir.get("leaf").value());
+        assertEquals(Set.of("leaf", "new"), dir.keySet());
+        assertSame(tree.root(), dir.getParent());
+        assertEquals(a, upDir.get("leaf").value());
+        assertEquals(Set.of("leaf"), upDir.keySet());
+    }
+
+    @Test
+    void hierarchies_MergesLayersWithoutDuplicates()
+    {
+        upstream.createAspectMap(def, 0L);
+        upstream.createEntitySet("set", 0L);
+        OverlayCatalogImpl overlay = new OverlayCatalogImpl(upstream, CatalogSpecies.MIRROR);
+        overlay.hierarchy("set");
+        overlay.createEntityList("list", 0L);
+        AspectDef other = new MutableAspectDefImpl("other");
+        overlay.createAspectMap(other, 0L);
+
+        List<String> names = new ArrayList<>();
+        for (Hierarchy h : overlay.hierarchies()) {
+            assertSame(overlay, h.catalog());
+            names.add(h.name());
+        }
+        List<AspectDef> defs = new ArrayList<>();
+        overlay.aspectDefs().forEach(defs::add);
+
+        assertEquals(List.of("person", "set", "list", "other"), names);
+        assertEquals(Set.of(def, other), Set.copyOf(defs));
+        assertEquals(2, defs.size());
+    }
+}
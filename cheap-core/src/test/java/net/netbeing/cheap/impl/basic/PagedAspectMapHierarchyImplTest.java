@@ -0,0 +1,280 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.HierarchyType;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedAspectMapHierarchyImplTest
+{
+    private AspectDef aspectDef;
+    private CatalogImpl catalog;
+    private PagedAspectMapHierarchyImpl hierarchy;
+    private CountingSource source;
+
+    /** In-memory source that counts loads. */
+    private static class CountingSource implements AspectSource
+    {
+        final Map<Entity, Aspect> store = new LinkedHashMap<>();
+        final Map<Entity, Integer> loads = new HashMap<>();
+        int batches;
+
+        @Override
+        public @NotNull Collection<Entity> entities()
+        {
+            return new ArrayList<>(store.keySet());
+        }
+
+        @Override
+        public Aspect loadAspect(@NotNull Entity entity)
+        {
+            loads.merge(entity, 1, Integer::sum);
+            return store.get(entity);
+        }
+
+        @Override
+        public @NotNull Map<Entity, Aspect> loadAspects(@NotNull Collection<Entity> entities)
+        {
+            batches++;
+            return AspectSource.super.loadAspects(entities);
+        }
+
+        int totalLoads()
+        {
+            return loads.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("count", new PropertyDefImpl("count", PropertyType.Integer, null, false, true, true, true, false));
+        props.put("label", new PropertyDefImpl("label", PropertyType.String, null, false, true, true, true, false));
+        aspectDef = new ImmutableAspectDefImpl("paged" + System.nanoTime(), props);
+
+        catalog = new CatalogImpl();
+        hierarchy = (PagedAspectMapHierarchyImpl) catalog.createAspectMap(aspectDef, 2L, AspectMapStorage.PAGED);
+
+        source = new CountingSource();
+        for (int i = 0; i < 100; i++) {
+            Entity entity = new EntityImpl();
+            source.store.put(entity, aspect(entity, i));
+        }
+    }
+
+    private Aspect aspect(Entity entity, long count)
+    {
+        AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+        aspect.unsafeWrite("count", count);
+        aspect.unsafeWrite("label", "label" + count);
+        return aspect;
+    }
+
+    private List<Entity> entities()
+    {
+        return new ArrayList<>(source.store.keySet());
+    }
+
+    @Test
+    void createAspectMap_Paged_CreatesPagedHierarchy()
+    {
+        assertEquals(aspectDef.name(), hierarchy.name());
+        assertEquals(HierarchyType.ASPECT_MAP, hierarchy.type());
+        assertEquals(2L, hierarchy.version());
+        assertSame(catalog, hierarchy.catalog());
+        assertSame(hierarchy, catalog.aspects(aspectDef));
+        assertNull(hierarchy.source());
+        assertTrue(hierarchy.isEmpty());
+    }
+
+    @Test
+    void put_WithoutSource_BehavesLikeInMemoryMap()
+    {
+        Entity entity = new EntityImpl();
+        Aspect a = aspect(entity, 1);
+
+        assertNull(hierarchy.put(entity, a));
+        assertSame(a, hierarchy.get(entity));
+        assertSame(a, hierarchy.aspect(entity.globalId()));
+        assertEquals(1, hierarchy.size());
+        assertEquals(0, hierarchy.missCount());
+        assertThrows(IllegalStateException.class, hierarchy::unpin);
+    }
+
+    @Test
+    void attach_Source_AddsKeysWithoutLoading()
+    {
+        hierarchy.attach(source);
+
+        assertEquals(100, hierarchy.size());
+        assertTrue(hierarchy.containsKey(entities().get(42)));
+        assertEquals(entities(), new ArrayList<>(hierarchy.keySet()));
+        assertEquals(0, source.totalLoads());
+        assertThrows(IllegalStateException.class, () -> hierarchy.attach(source));
+    }
+
+    @Test
+    void get_Miss_LoadsOnceThenHits()
+    {
+        hierarchy.attach(source);
+        Entity entity = entities().get(7);
+
+        Aspect first = hierarchy.get(entity);
+        Aspect second = hierarchy.get(entity);
+
+        assertEquals(7L, first.readObj("count"));
+        assertEquals(7L, second.readObj("count"));
+        assertEquals(1, source.loads.get(entity));
+        assertEquals(1, hierarchy.missCount());
+        assertEquals(1, hierarchy.hitCount());
+    }
+
+    @Test
+    void get_UnknownEntity_DoesNotLoad()
+    {
+        hierarchy.attach(source);
+
+        assertNull(hierarchy.get(new EntityImpl()));
+        assertNull(hierarchy.get("not an entity"));
+        assertEquals(0, source.totalLoads());
+    }
+
+    @Test
+    void entrySet_FullScan_StaysWithinMaximumWeight()
+    {
+        hierarchy.maximumWeight(20);
+        hierarchy.attach(source);
+
+        int visited = 0;
+        for (Map.Entry<Entity, Aspect> entry : hierarchy.entrySet()) {
+            assertEquals(source.store.get(entry.getKey()).readObj("count"), entry.getValue().readObj("count"));
+            visited++;
+        }
+
+        assertEquals(100, visited);
+        assertEquals(100, source.totalLoads());
+        assertEquals(2, source.batches);
+        assertTrue(hierarchy.residentWeight() <= 20);
+        assertTrue(hierarchy.evictionCount() >= 90);
+    }
+
+    @Test
+    void put_OverSourceAspect_IsPinnedUntilUnpinned()
+    {
+        hierarchy.maximumWeight(4);
+        hierarchy.attach(source);
+        Entity entity = entities().getFirst();
+        Aspect local = aspect(entity, 1000);
+
+        hierarchy.put(entity, local);
+        for (Entity other : entities()) {
+            hierarchy.get(other);
+        }
+
+        assertSame(local, hierarchy.get(entity));
+        assertEquals(0, source.loads.getOrDefault(entity, 0));
+        assertEquals(List.of(entity), new ArrayList<>(hierarchy.pinnedEntities()));
+
+        source.store.put(entity, local);
+        hierarchy.unpin();
+
+        assertTrue(hierarchy.pinnedEntities().isEmpty());
+        assertEquals(1000L, hierarchy.get(entity).readObj("count"));
+    }
+
+    @Test
+    void get_WriteInPlace_PinnedUntilUnpinned()
+    {
+        hierarchy.maximumWeight(4);
+        hierarchy.attach(source);
+        hierarchy.changes().clear();
+        Entity entity = entities().getFirst();
+
+        hierarchy.get(entity).write("label", "edited");
+        for (Entity other : entities()) {
+            hierarchy.get(other);
+        }
+
+        assertEquals("edited", hierarchy.get(entity).readObj("label"));
+        assertEquals(1, source.loads.get(entity));
+        assertEquals(List.of(entity), new ArrayList<>(hierarchy.pinnedEntities()));
+        assertEquals(Set.of(entity), hierarchy.changes().updated());
+
+        hierarchy.unpin();
+        Aspect again = hierarchy.get(entity);
+        again.write("label", "again");
+
+        assertEquals(List.of(entity), new ArrayList<>(hierarchy.pinnedEntities()));
+        assertEquals("again", hierarchy.get(entity).readObj("label"));
+    }
+
+    @Test
+    void get_ReadOnly_DoesNotPin()
+    {
+        hierarchy.attach(source);
+
+        for (Aspect aspect : hierarchy.values()) {
+            aspect.readObj("label");
+        }
+
+        assertTrue(hierarchy.pinnedEntities().isEmpty());
+    }
+
+    @Test
+    void remove_SourceEntity_IsNotReloaded()
+    {
+        hierarchy.attach(source);
+        Entity entity = entities().get(3);
+
+        hierarchy.remove(entity);
+
+        assertFalse(hierarchy.containsKey(entity));
+        assertNull(hierarchy.get(entity));
+        assertEquals(99, hierarchy.size());
+        assertEquals(0, source.totalLoads());
+        assertTrue(source.store.containsKey(entity));
+    }
+
+    @Test
+    void iteratorRemove_DuringScan_RemovesEntries()
+    {
+        hierarchy.attach(source);
+
+        hierarchy.entrySet().removeIf(e -> (Long) e.getValue().readObj("count") % 2 == 0);
+
+        assertEquals(50, hierarchy.size());
+        for (Aspect a : hierarchy.values()) {
+            assertEquals(1L, (Long) a.readObj("count") % 2);
+        }
+    }
+
+    @Test
+    void createAspectMap_FactoryDefaultPaged_UsesPagedStorage()
+    {
+        CheapFactory factory = new CheapFactory();
+        factory.setDefaultAspectMapStorage(AspectMapStorage.PAGED);
+
+        AspectMapHierarchy created = factory.createCatalog().createAspectMap(aspectDef, 0L);
+
+        assertInstanceOf(PagedAspectMapHierarchyImpl.class, created);
+        assertInstanceOf(PagedAspectMapImpl.class, factory.createAspectMap(aspectDef));
+    }
+}
@@ -0,0 +1,106 @@
+package net.netbeing.cheap.impl.basic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentHashMapTest
+{
+    /**
+     * Key whose hash code is chosen by the test, to force collisions.
+     */
+    private record Key(int hash, String name)
+    {
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    @Test
+    void with_RandomOperations_MatchesHashMap()
+    {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                expected.put(key, i);
+                map = map.with(key, i);
+            }
+        }
+
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.entrySet().stream().count());
+    }
+
+    @Test
+    void with_OldVersion_IsUnchanged()
+    {
+        PersistentHashMap<String, Integer> v1 = PersistentHashMap.<String, Integer>empty().with("a", 1).with("b", 2);
+
+        PersistentHashMap<String, Integer> v2 = v1.with("a", 10).without("b").with("c", 3);
+
+        assertEquals(Map.of("a", 1, "b", 2), v1);
+        assertEquals(Map.of("a", 10, "c", 3), v2);
+    }
+
+    @Test
+    void with_SameValue_ReturnsSameMap()
+    {
+        Integer one = 1;
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().with("a", one);
+
+        assertSame(map, map.with("a", one));
+        assertSame(map, map.without("missing"));
+    }
+
+    @Test
+    void with_CollidingHashes_KeepsAllEntries()
+    {
+        PersistentHashMap<Key, String> map = PersistentHashMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.with(new Key(7, "k" + i), "v" + i);
+        }
+        map = map.with(new Key(7 + 32, "other"), "x");
+
+        assertEquals(11, map.size());
+        assertEquals("v3", map.get(new Key(7, "k3")));
+        assertEquals("x", map.get(new Key(7 + 32, "other")));
+
+        for (int i = 0; i < 10; i++) {
+            map = map.without(new Key(7, "k" + i));
+        }
+        assertEquals(Map.of(new Key(7 + 32, "other"), "x"), map);
+    }
+
+    @Test
+    void with_NullKeyAndValue_Supported()
+    {
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().with(null, "n").with("a", null);
+
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(null));
+        assertTrue(map.containsKey("a"));
+        assertEquals("n", map.get(null));
+        assertFalse(map.without(null).containsKey(null));
+    }
+
+    @Test
+    void put_Always_Throws()
+    {
+        PersistentHashMap<String, String> map = PersistentHashMap.empty();
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put("a", "b"));
+    }
+}
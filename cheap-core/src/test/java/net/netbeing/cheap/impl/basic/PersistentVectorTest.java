@@ -0,0 +1,72 @@
+package net.netbeing.cheap.impl.basic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentVectorTest
+{
+    @Test
+    void plus_ManyElements_AllReadable()
+    {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 40000; i++) {
+            vector = vector.plus(i);
+        }
+
+        assertEquals(40000, vector.size());
+        for (int i = 0; i < 40000; i++) {
+            assertEquals(i, vector.get(i));
+        }
+    }
+
+    @Test
+    void minus_ToEmpty_MatchesList()
+    {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            vector = vector.plus(i);
+            expected.add(i);
+        }
+
+        while (!expected.isEmpty()) {
+            expected.removeLast();
+            vector = vector.minus();
+            if (expected.size() % 31 == 0) {
+                assertEquals(expected, vector);
+            }
+        }
+        assertTrue(vector.isEmpty());
+        assertThrows(NoSuchElementException.class, vector::minus);
+    }
+
+    @Test
+    void withSet_OldVersion_IsUnchanged()
+    {
+        PersistentVector<String> v1 = PersistentVector.empty();
+        for (int i = 0; i < 100; i++) {
+            v1 = v1.plus("v" + i);
+        }
+
+        PersistentVector<String> v2 = v1.withSet(3, "x").withSet(99, "y");
+
+        assertEquals("v3", v1.get(3));
+        assertEquals("v99", v1.get(99));
+        assertEquals("x", v2.get(3));
+        assertEquals("y", v2.get(99));
+    }
+
+    @Test
+    void get_OutOfRange_Throws()
+    {
+        PersistentVector<String> vector = PersistentVector.<String>empty().plus("a");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.withSet(-1, "b"));
+    }
+}
@@ -0,0 +1,109 @@
+package net.netbeing.cheap.impl.basic;
+
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyAccessor;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyAccessorImplTest
+{
+    private Entity entity;
+    private ImmutableAspectDefImpl aspectDef;
+    private PropertyDef nameDef;
+    private PropertyDef countDef;
+    private PropertyDef readOnlyDef;
+
+    @BeforeEach
+    void setUp()
+    {
+        entity = new EntityImpl();
+        nameDef = new PropertyDefBuilder().setName("name").setType(PropertyType.String).build();
+        countDef = new PropertyDefBuilder().setName("count").setType(PropertyType.Integer).setIsNullable(false).build();
+        readOnlyDef = new PropertyDefBuilder().setName("readOnly").setType(PropertyType.String).setIsWritable(false).build();
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("name", nameDef);
+        props.put("count", countDef);
+        props.put("readOnly", readOnlyDef);
+        aspectDef = new ImmutableAspectDefImpl("accessorTest", props);
+    }
+
+    @Test
+    void accessor_KnownProperty_ResolvesDefs()
+    {
+        PropertyAccessor accessor = aspectDef.accessor("name");
+
+        assertSame(aspectDef, accessor.aspectDef());
+        assertSame(nameDef, accessor.propertyDef());
+        assertTrue(accessor.isReadable());
+        assertTrue(accessor.isWritable());
+    }
+
+    @Test
+    void accessor_UnknownProperty_ThrowsException()
+    {
+        assertThrows(IllegalArgumentException.class, () -> aspectDef.accessor("missing"));
+    }
+
+    @Test
+    void readWrite_ObjectArrayAspect_UsesSlots()
+    {
+        AspectObjectArrayImpl aspect = new AspectObjectArrayImpl(entity, aspectDef);
+        PropertyAccessor accessor = aspectDef.accessor("count");
+
+        accessor.write(aspect, 12L);
+
+        assertEquals(12L, accessor.read(aspect));
+        assertEquals(12L, aspect.unsafeReadSlot(aspectDef.slotOf("count")));
+        assertEquals(12L, aspect.readObj("count"));
+    }
+
+    @Test
+    void readWrite_ObjectMapAspect_FallsBackToNames()
+    {
+        AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+        PropertyAccessor accessor = aspectDef.accessor("name");
+
+        accessor.write(aspect, "mapped");
+
+        assertEquals("mapped", accessor.read(aspect));
+        assertEquals("mapped", aspect.readObj("name"));
+    }
+
+    @Test
+    void write_ReadOnlyProperty_ThrowsException()
+    {
+        AspectObjectArrayImpl aspect = new AspectObjectArrayImpl(entity, aspectDef);
+        PropertyAccessor accessor = aspectDef.accessor("readOnly");
+
+        assertFalse(accessor.isWritable());
+        assertThrows(UnsupportedOperationException.class, () -> accessor.write(aspect, "x"));
+    }
+
+    @Test
+    void write_NullToNonNullable_ThrowsException()
+    {
+        AspectObjectArrayImpl aspect = new AspectObjectArrayImpl(entity, aspectDef);
+        PropertyAccessor accessor = aspectDef.accessor("count");
+
+        assertThrows(NullPointerException.class, () -> accessor.write(aspect, null));
+    }
+
+    @Test
+    void read_AspectOfOtherDef_FallsBackToNames()
+    {
+        MutableAspectDefImpl otherDef = new MutableAspectDefImpl("other");
+        otherDef.add(readOnlyDef);
+        otherDef.add(nameDef);
+        AspectObjectArrayImpl other = new AspectObjectArrayImpl(entity, otherDef);
+        other.unsafeWrite("name", "other-name");
+
+        assertEquals("other-name", aspectDef.accessor("name").read(other));
+    }
+}
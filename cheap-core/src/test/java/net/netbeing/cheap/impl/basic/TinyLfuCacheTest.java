@@ -0,0 +1,98 @@
+package net.netbeing.cheap.impl.basic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest
+{
+    @Test
+    void get_AfterPut_CountsHitsAndMisses()
+    {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, v -> 1);
+        assertNull(cache.get("a"));
+        cache.put("a", "A");
+
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.weight());
+    }
+
+    @Test
+    void put_OverWeight_EvictsToMaximum()
+    {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(50, v -> 2);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        assertTrue(cache.weight() <= 50);
+        assertEquals(25, cache.size());
+        assertEquals(75, cache.evictionCount());
+    }
+
+    @Test
+    void put_HeavierThanMaximum_IsNotCached()
+    {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, String::length);
+        cache.put("big", "this value is too heavy");
+
+        assertNull(cache.peek("big"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void put_ScanOfColdKeys_KeepsFrequentlyUsedKeys()
+    {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100, v -> 1);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+        }
+        for (int i = 1000; i < 3000; i++) {
+            if (cache.get(i) == null) {
+                cache.put(i, i);
+            }
+        }
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.peek(i) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "hot keys retained: " + retained);
+        assertTrue(cache.weight() <= 100);
+    }
+
+    @Test
+    void maximumWeight_Reduced_EvictsDownToNewMaximum()
+    {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100, v -> 1);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+
+        cache.maximumWeight(10);
+
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.weight());
+    }
+
+    @Test
+    void remove_ResidentKey_ReleasesWeightWithoutEviction()
+    {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, String::length);
+        cache.put("a", "abc");
+        cache.get("a");
+
+        assertEquals("abc", cache.remove("a"));
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.evictionCount());
+        assertNull(cache.remove("a"));
+    }
+}
@@ -6,6 +6,7 @@ import net.netbeing.cheap.impl.basic.EntityImpl;
 import net.netbeing.cheap.impl.basic.PropertyImpl;
 import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyAccessor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -331,4 +332,43 @@ class MutablePojoAspectTest
         assertEquals('b', charValue);
     }
 
-}
\ No newline at end of file
+    @Test
+    void accessor_ReadAndWrite_UsesPojo()
+    {
+        mutablePojoAspect = new MutablePojoAspect<>(testEntity, def, pojo1);
+        PropertyAccessor stringAccessor = def.accessor("string");
+        PropertyAccessor intAccessor = def.accessor("integerPrimitive");
+
+        assertEquals("foo", stringAccessor.read(mutablePojoAspect));
+        assertEquals(1, intAccessor.read(mutablePojoAspect));
+
+        stringAccessor.write(mutablePojoAspect, "baz");
+        intAccessor.write(mutablePojoAspect, 42);
+
+        assertEquals("baz", pojo1.getString());
+        assertEquals(42, pojo1.getIntegerPrimitive());
+    }
+
+    @Test
+    void accessor_WriteNullToPrimitive_ThrowsException()
+    {
+        mutablePojoAspect = new MutablePojoAspect<>(testEntity, def, pojo1);
+        PropertyAccessor intAccessor = def.accessor("integerPrimitive");
+
+        assertThrows(NullPointerException.class, () -> intAccessor.write(mutablePojoAspect, null));
+    }
+
+    @Test
+    void writePrimitives_PrimitiveSetters_UpdatePojo()
+    {
+        mutablePojoAspect = new MutablePojoAspect<>(testEntity, def, pojo1);
+
+        mutablePojoAspect.writeLong("integerPrimitive", 77L);
+        mutablePojoAspect.writeBoolean("booleanPrimitive", false);
+
+        assertEquals(77, pojo1.getIntegerPrimitive());
+        assertFalse(pojo1.isBooleanPrimitive());
+        assertEquals(77L, mutablePojoAspect.readLong("integerPrimitive"));
+        assertFalse(mutablePojoAspect.readBoolean("booleanPrimitive"));
+    }
+}
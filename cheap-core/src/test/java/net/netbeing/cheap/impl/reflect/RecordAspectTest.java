@@ -5,6 +5,7 @@ import net.netbeing.cheap.impl.basic.EntityImpl;
 import net.netbeing.cheap.model.Catalog;
 import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.Property;
+import net.netbeing.cheap.model.PropertyAccessor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -362,4 +363,63 @@ class RecordAspectTest
         assertTrue(exception.getMessage().contains("is not writable"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void accessor_Read_ReturnsRecordValue()
+    {
+        recordAspect = new RecordAspect<>(testEntity, def, record1);
+        PropertyAccessor stringAccessor = def.accessor("string");
+        PropertyAccessor intAccessor = def.accessor("integerPrimitive");
+
+        assertTrue(stringAccessor.isReadable());
+        assertFalse(stringAccessor.isWritable());
+        assertEquals("foo", stringAccessor.read(recordAspect));
+        assertEquals(1, intAccessor.read(recordAspect));
+    }
+
+    @Test
+    void accessor_Write_ThrowsUnsupportedOperation()
+    {
+        recordAspect = new RecordAspect<>(testEntity, def, record1);
+        PropertyAccessor accessor = def.accessor("string");
+
+        assertThrows(UnsupportedOperationException.class, () -> accessor.write(recordAspect, "bar"));
+    }
+
+    @Test
+    void accessor_UnknownProperty_ThrowsException()
+    {
+        assertThrows(IllegalArgumentException.class, () -> def.accessor("missing"));
+    }
+
+    @Test
+    void readPrimitives_PrimitiveComponents_ReturnsValues()
+    {
+        recordAspect = new RecordAspect<>(testEntity, def, record1);
+
+        assertEquals(1L, recordAspect.readLong("integerPrimitive"));
+        assertEquals(10L, recordAspect.readLong("bytePrimitive"));
+        assertEquals(100L, recordAspect.readLong("shortPrimitive"));
+        assertEquals(1000L, recordAspect.readLong("longPrimitive"));
+        assertEquals(10.5, recordAspect.readDouble("floatPrimitive"));
+        assertEquals(100.25, recordAspect.readDouble("doublePrimitive"));
+        assertTrue(recordAspect.readBoolean("booleanPrimitive"));
+    }
+
+    @Test
+    void readLong_BoxedComponent_Unboxes()
+    {
+        recordAspect = new RecordAspect<>(testEntity, def, record1);
+
+        assertEquals(2L, recordAspect.readLong("integer"));
+    }
+
+    @Test
+    void accessor_ReadPrimitives_ReturnsValues()
+    {
+        recordAspect = new RecordAspect<>(testEntity, def, record1);
+
+        assertEquals(1000L, def.accessor("longPrimitive").readLong(recordAspect));
+        assertEquals(100.25, def.accessor("doublePrimitive").readDouble(recordAspect));
+        assertTrue(def.accessor("booleanPrimitive").readBoolean(recordAspect));
+    }
+}
@@ -0,0 +1,170 @@
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.impl.basic.AspectObjectMapImpl;
+import net.netbeing.cheap.impl.basic.CatalogImpl;
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.impl.basic.ImmutableAspectDefImpl;
+import net.netbeing.cheap.impl.basic.IndexedAspectMapHierarchyImpl;
+import net.netbeing.cheap.impl.basic.PropertyDefImpl;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AspectJoinTest
+{
+    private static final int COUNT = 100;
+
+    private CatalogImpl catalog;
+    private AspectMapHierarchy mapA;
+    private IndexedAspectMapHierarchyImpl mapB;
+    private AspectMapHierarchy mapC;
+    private final List<Entity> entities = new ArrayList<>();
+
+    private static AspectDef def(String name, String propName)
+    {
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put(propName, new PropertyDefImpl(propName, PropertyType.Integer, null, false, true, true, true, false));
+        return new ImmutableAspectDefImpl(name + System.nanoTime(), props);
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        catalog = new CatalogImpl();
+        AspectDef defA = def("a", "x");
+        AspectDef defB = def("b", "y");
+        AspectDef defC = def("c", "z");
+        mapA = catalog.createAspectMap(defA, 0L);
+        mapB = new CheapFactory().createIndexedAspectMapHierarchy(catalog, defB, 0L);
+        mapB.createIndex("y", PropertyIndexType.SORTED);
+        mapC = catalog.createAspectMap(defC, 0L, AspectMapStorage.COLUMNAR);
+
+        for (int i = 0; i < COUNT; i++) {
+            Entity entity = new EntityImpl();
+            entities.add(entity);
+            AspectObjectMapImpl a = new AspectObjectMapImpl(entity, defA);
+            a.unsafeWrite("x", (long) (i % 2));
+            mapA.put(entity, a);
+            // Only every third entity has a B aspect
+            if (i % 3 == 0) {
+                AspectObjectMapImpl b = new AspectObjectMapImpl(entity, defB);
+                b.unsafeWrite("y", (long) i);
+                mapB.put(entity, b);
+            }
+            AspectObjectMapImpl c = new AspectObjectMapImpl(entity, defC);
+            c.unsafeWrite("z", (long) (COUNT - i));
+            mapC.put(entity, c);
+        }
+    }
+
+    @Test
+    void execute_TwoInputs_ReturnsEntitiesMatchingBoth()
+    {
+        AspectJoin join = AspectJoin.builder()
+            .join(mapA, Filter.eq("x", 1))
+            .join(mapB, Filter.gt("y", 50))
+            .build();
+
+        List<JoinRow> rows = join.execute();
+
+        List<Entity> expected = new ArrayList<>();
+        for (int i = 51; i < COUNT; i++) {
+            if (i % 2 == 1 && i % 3 == 0) {
+                expected.add(entities.get(i));
+            }
+        }
+        assertEquals(expected, rows.stream().map(JoinRow::entity).toList());
+        for (JoinRow row : rows) {
+            assertSame(mapA.aspectDef(), row.aspect(0).def());
+            assertSame(mapB.aspectDef(), row.aspect(1).def());
+            assertEquals(row.entity(), row.aspect(1).entity());
+        }
+    }
+
+    @Test
+    void driver_SelectiveIndexedInput_DrivesJoin()
+    {
+        AspectJoin join = AspectJoin.builder()
+            .join(mapA)
+            .join(mapC, Filter.le("z", 10))
+            .join(mapB, Filter.eq("y", 93))
+            .build();
+
+        assertEquals(2, join.driver());
+        List<JoinRow> rows = join.execute();
+        assertEquals(1, rows.size());
+        assertEquals(entities.get(93), rows.getFirst().entity());
+        assertEquals(7L, rows.getFirst().aspect(1).readLong("z"));
+    }
+
+    @Test
+    void driver_ColumnScanSmallerThanMap_DrivesJoin()
+    {
+        AspectJoin join = AspectJoin.builder()
+            .join(mapA)
+            .join(mapC, Filter.le("z", 10))
+            .build();
+
+        assertEquals(1, join.driver());
+        assertEquals(10, join.execute().size());
+    }
+
+    @Test
+    void stream_Limit_StopsEarly()
+    {
+        AspectJoin join = AspectJoin.builder().join(mapA).join(mapC).build();
+        assertEquals(List.of(entities.get(0), entities.get(1)),
+            join.stream().limit(2).map(JoinRow::entity).toList());
+    }
+
+    @Test
+    void execute_Parallel_MatchesSequential()
+    {
+        AspectMapHierarchy big = new CatalogImpl().createAspectMap(mapA.aspectDef(), 0L);
+        AspectMapHierarchy other = new CatalogImpl().createAspectMap(mapC.aspectDef(), 0L);
+        for (int i = 0; i < AspectQuery.PARALLEL_THRESHOLD * 2; i++) {
+            Entity entity = new EntityImpl();
+            AspectObjectMapImpl a = new AspectObjectMapImpl(entity, mapA.aspectDef());
+            a.unsafeWrite("x", (long) (i % 5));
+            big.put(entity, a);
+            if (i % 2 == 0) {
+                AspectObjectMapImpl c = new AspectObjectMapImpl(entity, mapC.aspectDef());
+                c.unsafeWrite("z", (long) i);
+                other.put(entity, c);
+            }
+        }
+
+        AspectJoin.Builder builder = AspectJoin.builder().join(big, Filter.eq("x", 0)).join(other);
+        List<Entity> sequential = builder.build().execute().stream().map(JoinRow::entity).toList();
+        List<Entity> parallel = builder.parallel(true).build().execute().stream().map(JoinRow::entity).toList();
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void execute_NoInputs_Throws()
+    {
+        assertThrows(IllegalStateException.class, () -> AspectJoin.builder().build().execute());
+    }
+
+    @Test
+    void execute_UnknownProperty_Throws()
+    {
+        AspectJoin join = AspectJoin.builder().join(mapA, Filter.eq("y", 1)).build();
+        assertThrows(IllegalArgumentException.class, join::execute);
+    }
+}
@@ -0,0 +1,245 @@
+package net.netbeing.cheap.query;
+
+import net.netbeing.cheap.impl.basic.AspectObjectMapImpl;
+import net.netbeing.cheap.impl.basic.CatalogImpl;
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.impl.basic.ImmutableAspectDefImpl;
+import net.netbeing.cheap.impl.basic.IndexedAspectMapHierarchyImpl;
+import net.netbeing.cheap.impl.basic.PropertyDefImpl;
+import net.netbeing.cheap.model.Aspect;
+import net.netbeing.cheap.model.AspectDef;
+import net.netbeing.cheap.model.AspectMap;
+import net.netbeing.cheap.model.AspectMapHierarchy;
+import net.netbeing.cheap.model.AspectMapStorage;
+import net.netbeing.cheap.model.Entity;
+import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.model.PropertyIndexType;
+import net.netbeing.cheap.model.PropertyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AspectQueryTest
+{
+    private static final ZonedDateTime BASE = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private AspectDef aspectDef;
+    private CatalogImpl catalog;
+    private final List<Entity> entities = new ArrayList<>();
+    private final List<Aspect> aspects = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        Map<String, PropertyDef> props = new LinkedHashMap<>();
+        props.put("name", new PropertyDefImpl("name", PropertyType.String, null, false, true, true, true, false));
+        props.put("size", new PropertyDefImpl("size", PropertyType.Integer, null, false, true, true, true, false));
+        props.put("ratio", new PropertyDefImpl("ratio", PropertyType.Float, null, false, true, true, true, false));
+        props.put("modifiedTime", new PropertyDefImpl("modifiedTime", PropertyType.DateTime, null, false, true, true, true, false));
+        props.put("tags", new PropertyDefImpl("tags", PropertyType.String, null, false, true, true, true, true));
+        aspectDef = new ImmutableAspectDefImpl("file" + System.nanoTime(), props);
+        catalog = new CatalogImpl();
+
+        for (int i = 0; i < 20; i++) {
+            Entity entity = new EntityImpl();
+            AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+            aspect.unsafeWrite("name", "file" + (i % 4));
+            aspect.unsafeWrite("size", i == 19 ? null : (long) i * 10);
+            aspect.unsafeWrite("ratio", i / 4.0);
+            aspect.unsafeWrite("modifiedTime", BASE.plusDays(i));
+            aspect.unsafeWrite("tags", List.of("t" + (i % 2)));
+            entities.add(entity);
+            aspects.add(aspect);
+        }
+    }
+
+    private AspectMapHierarchy fill(AspectMapHierarchy map)
+    {
+        for (Aspect aspect : aspects) {
+            map.put(aspect.entity(), aspect);
+        }
+        return map;
+    }
+
+    private static List<Entity> entitiesOf(List<QueryRow> rows)
+    {
+        return rows.stream().map(QueryRow::entity).toList();
+    }
+
+    @Test
+    void execute_NoFilter_ReturnsEveryAspectInOrder()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L));
+        List<QueryRow> rows = AspectQuery.builder().build().execute(map);
+
+        assertEquals(entities, entitiesOf(rows));
+        assertEquals(List.of("name", "size", "ratio", "modifiedTime", "tags"), rows.getFirst().projection());
+    }
+
+    @Test
+    void execute_PredicateTree_AppliesSqlNullSemantics()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L));
+
+        List<QueryRow> rows = AspectQuery.builder()
+            .where(Filter.or(Filter.and(Filter.eq("name", "file1"), Filter.ge("size", 50)), Filter.isNull("size")))
+            .build().execute(map);
+        assertEquals(List.of(entities.get(5), entities.get(9), entities.get(13), entities.get(17), entities.get(19)),
+            entitiesOf(rows));
+
+        assertEquals(18, AspectQuery.builder().where(Filter.ne("size", 0)).build().execute(map).size());
+        assertEquals(19, AspectQuery.builder().where(Filter.notNull("size")).build().execute(map).size());
+        assertEquals(10, AspectQuery.builder().where(Filter.eq("tags", "t1")).build().execute(map).size());
+        assertEquals(3, AspectQuery.builder().where(Filter.between("ratio", 1, 1.5)).build().execute(map).size());
+        assertTrue(AspectQuery.builder().where(Filter.lt("name", 5)).build().execute(map).isEmpty());
+    }
+
+    @Test
+    void execute_ProjectionOrderingAndLimit_ReturnsTopRows()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L));
+        List<QueryRow> rows = AspectQuery.builder()
+            .select("name", "size")
+            .orderBy("size", true)
+            .limit(3)
+            .build().execute(map);
+
+        assertEquals(List.of(entities.get(18), entities.get(17), entities.get(16)), entitiesOf(rows));
+        assertEquals(Map.of("name", "file2", "size", 180L), rows.getFirst().values());
+        assertEquals(List.of("name", "size"), new ArrayList<>(rows.getFirst().values().keySet()));
+
+        List<QueryRow> ascending = AspectQuery.builder().orderBy("size").build().execute(map);
+        assertEquals(entities.get(0), ascending.getFirst().entity());
+        assertEquals(entities.get(19), ascending.getLast().entity());
+
+        List<QueryRow> byName = AspectQuery.builder().orderBy("name").limit(6).build().execute(map);
+        assertEquals(List.of(entities.get(0), entities.get(4), entities.get(8), entities.get(12), entities.get(16),
+            entities.get(1)), entitiesOf(byName));
+    }
+
+    @Test
+    void execute_UnknownProperty_Throws()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L));
+        assertThrows(IllegalArgumentException.class,
+            () -> AspectQuery.builder().where(Filter.eq("missing", 1)).build().execute(map));
+        assertThrows(IllegalArgumentException.class, () -> AspectQuery.builder().select("missing").build().execute(map));
+        assertThrows(IllegalArgumentException.class, () -> AspectQuery.builder().orderBy("missing").build().execute(map));
+    }
+
+    @Test
+    void execute_StringDateTimeValue_IsCoerced()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L));
+        List<QueryRow> rows = AspectQuery.builder()
+            .where(Filter.gt("modifiedTime", BASE.plusDays(17).toString()))
+            .build().execute(map);
+
+        assertEquals(List.of(entities.get(18), entities.get(19)), entitiesOf(rows));
+    }
+
+    @Test
+    void execute_IndexedHierarchy_UsesIndexes()
+    {
+        IndexedAspectMapHierarchyImpl map = new CheapFactory().createIndexedAspectMapHierarchy(catalog, aspectDef, 0L);
+        fill(map);
+        map.createIndex("name", PropertyIndexType.HASH);
+        map.createIndex("modifiedTime", PropertyIndexType.SORTED);
+        map.createIndex("size", PropertyIndexType.SORTED);
+
+        AspectQuery byName = AspectQuery.builder().where(Filter.and(Filter.gt("size", 40), Filter.eq("name", "file2"))).build();
+        assertEquals(AccessPath.INDEX, byName.accessPath(map));
+        assertEquals(List.of(entities.get(6), entities.get(10), entities.get(14), entities.get(18)),
+            entitiesOf(byName.execute(map)));
+
+        AspectQuery byTime = AspectQuery.builder()
+            .where(Filter.and(Filter.gt("modifiedTime", BASE.plusDays(10)), Filter.le("modifiedTime", BASE.plusDays(12))))
+            .build();
+        assertEquals(AccessPath.INDEX, byTime.accessPath(map));
+        assertEquals(List.of(entities.get(11), entities.get(12)), entitiesOf(byTime.execute(map)));
+
+        AspectQuery bySize = AspectQuery.builder().where(Filter.between("size", 25, 45)).build();
+        assertEquals(AccessPath.INDEX, bySize.accessPath(map));
+        assertEquals(List.of(entities.get(3), entities.get(4)), entitiesOf(bySize.execute(map)));
+
+        AspectQuery fractional = AspectQuery.builder().where(Filter.lt("size", 25.5)).build();
+        assertEquals(AccessPath.SCAN, fractional.accessPath(map));
+        assertEquals(3, fractional.execute(map).size());
+
+        AspectQuery unindexed = AspectQuery.builder().where(Filter.eq("ratio", 1.0)).build();
+        assertEquals(AccessPath.SCAN, unindexed.accessPath(map));
+        assertEquals(List.of(entities.get(4)), entitiesOf(unindexed.execute(map)));
+    }
+
+    @Test
+    void execute_ColumnarHierarchy_ScansNumericColumns()
+    {
+        AspectMapHierarchy map = fill(catalog.createAspectMap(aspectDef, 0L, AspectMapStorage.COLUMNAR));
+
+        AspectQuery bySize = AspectQuery.builder().where(Filter.and(Filter.gt("size", 25.5), Filter.lt("size", 60))).build();
+        assertEquals(AccessPath.COLUMN_SCAN, bySize.accessPath(map));
+        assertEquals(List.of(entities.get(3), entities.get(4), entities.get(5)), entitiesOf(bySize.execute(map)));
+
+        AspectQuery byRatio = AspectQuery.builder().where(Filter.and(Filter.gt("ratio", 4), Filter.eq("name", "file3"))).build();
+        assertEquals(AccessPath.COLUMN_SCAN, byRatio.accessPath(map));
+        assertEquals(List.of(entities.get(19)), entitiesOf(byRatio.execute(map)));
+
+        AspectQuery empty = AspectQuery.builder().where(Filter.and(Filter.gt("size", 50), Filter.lt("size", 40))).build();
+        assertTrue(empty.execute(map).isEmpty());
+
+        assertEquals(AccessPath.SCAN, AspectQuery.builder().where(Filter.eq("name", "file3")).build().accessPath(map));
+    }
+
+    @Test
+    void execute_ParallelScan_MatchesSequentialScan()
+    {
+        AspectMapHierarchy objects = catalog.createAspectMap(aspectDef, 0L);
+        AspectMapHierarchy columns = new CatalogImpl().createAspectMap(aspectDef, 0L, AspectMapStorage.COLUMNAR);
+        for (int i = 0; i < AspectQuery.PARALLEL_THRESHOLD * 2; i++) {
+            Entity entity = new EntityImpl();
+            AspectObjectMapImpl aspect = new AspectObjectMapImpl(entity, aspectDef);
+            aspect.unsafeWrite("name", "file" + (i % 7));
+            aspect.unsafeWrite("size", (long) i);
+            objects.put(entity, aspect);
+            columns.put(entity, aspect);
+        }
+
+        for (AspectMap map : List.of(objects, columns)) {
+            AspectQuery.Builder builder = AspectQuery.builder()
+                .where(Filter.and(Filter.eq("name", "file3"), Filter.ge("size", 1000)));
+            List<QueryRow> sequential = builder.build().execute(map);
+            List<QueryRow> parallel = builder.parallel(true).build().execute(map);
+            assertEquals(entitiesOf(sequential), entitiesOf(parallel));
+            assertFalse(parallel.isEmpty());
+        }
+    }
+
+    @Test
+    void execute_MultipleMaps_ConcatenatesThenLimits()
+    {
+        AspectMapHierarchy first = catalog.createAspectMap(aspectDef, 0L);
+        AspectMapHierarchy second = new CatalogImpl().createAspectMap(aspectDef, 0L, AspectMapStorage.COLUMNAR);
+        for (int i = 0; i < aspects.size(); i++) {
+            (i < 10 ? first : second).put(entities.get(i), aspects.get(i));
+        }
+
+        AspectQuery query = AspectQuery.builder().where(Filter.eq("name", "file1")).build();
+        assertEquals(List.of(entities.get(1), entities.get(5), entities.get(9), entities.get(13), entities.get(17)),
+            entitiesOf(query.execute(first, second)));
+
+        AspectQuery limited = AspectQuery.builder().where(Filter.eq("name", "file1")).limit(2).build();
+        assertEquals(List.of(entities.get(1), entities.get(5)), entitiesOf(limited.execute(first, second)));
+
+        AspectQuery ordered = AspectQuery.builder().orderBy("size", true).limit(2).build();
+        assertEquals(List.of(entities.get(18), entities.get(17)), entitiesOf(ordered.execute(List.of(first, second))));
+    }
+}
@@ -0,0 +1,93 @@
+package net.netbeing.cheap.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeSetTest
+{
+    @Test
+    void updateAndRemove_LastChangeWins()
+    {
+        ChangeSet<String> changes = new ChangeSet<>();
+        assertTrue(changes.isEmpty());
+
+        changes.update("a");
+        changes.update("b");
+        changes.remove("a");
+        changes.remove("c");
+        changes.update("c");
+
+        assertFalse(changes.isEmpty());
+        assertFalse(changes.isWhole());
+        assertEquals(List.of("b", "c"), List.copyOf(changes.updated()));
+        assertEquals(Set.of("a"), changes.removed());
+    }
+
+    @Test
+    void markWhole_StopsRecording()
+    {
+        ChangeSet<String> changes = new ChangeSet<>();
+        changes.update("a");
+        changes.markWhole();
+        changes.update("b");
+        changes.remove("c");
+
+        assertTrue(changes.isWhole());
+        assertFalse(changes.isEmpty());
+        assertTrue(changes.updated().isEmpty());
+        assertTrue(changes.removed().isEmpty());
+    }
+
+    @Test
+    void drain_MovesChangesAndResets()
+    {
+        ChangeSet<String> changes = new ChangeSet<>();
+        changes.update("a");
+        changes.remove("b");
+
+        ChangeSet<String> drained = changes.drain();
+
+        assertTrue(changes.isEmpty());
+        assertEquals(Set.of("a"), drained.updated());
+        assertEquals(Set.of("b"), drained.removed());
+
+        changes.markWhole();
+        assertTrue(changes.drain().isWhole());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void restore_NewerChangesTakePrecedence()
+    {
+        ChangeSet<String> changes = new ChangeSet<>();
+        changes.update("a");
+        changes.update("b");
+        changes.remove("c");
+        ChangeSet<String> drained = changes.drain();
+
+        changes.remove("a");
+        changes.update("c");
+        changes.restore(drained);
+
+        assertEquals(Set.of("c", "b"), changes.updated());
+        assertEquals(Set.of("a"), changes.removed());
+    }
+
+    @Test
+    void restore_WholeDrain_MarksWhole()
+    {
+        ChangeSet<String> changes = new ChangeSet<>();
+        changes.markWhole();
+        ChangeSet<String> drained = changes.drain();
+        changes.update("a");
+
+        changes.restore(drained);
+
+        assertTrue(changes.isWhole());
+        assertTrue(changes.updated().isEmpty());
+    }
+}
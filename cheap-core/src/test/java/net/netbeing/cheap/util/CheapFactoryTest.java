@@ -3,6 +3,8 @@ package net.netbeing.cheap.util;
 import net.netbeing.cheap.impl.basic.CachingEntityMultiCatalogImpl;
 import net.netbeing.cheap.impl.basic.CachingEntityOneCatalogImpl;
 import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.ConcurrentCatalogImpl;
+import net.netbeing.cheap.impl.basic.ConcurrentEntityTreeHierarchyImpl;
 import net.netbeing.cheap.impl.basic.LocalEntityMultiCatalogImpl;
 import net.netbeing.cheap.impl.basic.LocalEntityOneCatalogImpl;
 import net.netbeing.cheap.model.*;
@@ -557,4 +559,21 @@ class CheapFactoryTest
         assertThrows(NullPointerException.class, () -> 
             factory.createPropertyDef(null, PropertyType.String));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentCatalogCreation()
+    {
+        CheapFactory concurrentFactory = new CheapFactory();
+        assertEquals(CatalogConcurrency.UNSYNCHRONIZED, concurrentFactory.getDefaultCatalogConcurrency());
+        assertFalse(concurrentFactory.createCatalog() instanceof ConcurrentCatalogImpl);
+
+        concurrentFactory.setDefaultCatalogConcurrency(CatalogConcurrency.CONCURRENT);
+        Catalog catalog = concurrentFactory.createCatalog();
+        assertInstanceOf(ConcurrentCatalogImpl.class, catalog);
+
+        EntityTreeHierarchy tree = concurrentFactory.createEntityTreeHierarchy(catalog, "tree", null, 0L);
+        assertInstanceOf(ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl.class, tree.root());
+        EntityTreeHierarchy.Node child = concurrentFactory.createTreeNode(null, tree.root());
+        assertInstanceOf(ConcurrentEntityTreeHierarchyImpl.ConcurrentNodeImpl.class, child);
+    }
+}
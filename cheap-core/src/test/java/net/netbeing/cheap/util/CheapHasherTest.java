@@ -2,14 +2,27 @@ package net.netbeing.cheap.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.foreign.MemorySegment;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Unit tests for the CheapHasher class.
@@ -816,4 +829,178 @@ class CheapHasherTest
         assertNotEquals(nullHash1, CheapHasher.hash(seed, 0L));
         assertNotEquals(nullHash1, CheapHasher.hash(seed, false));
     }
+
+    @Test
+    void testHashStringMatchesUtf8Bytes()
+    {
+        List<String> strings = List.of("", "plain ascii", "caf\u00e9", "\u65e5\u672c\u8a9e",
+            "emoji \ud83d\ude00!", "lone \ud83d high", "lone \ude00 low", "trailing \ud83d");
+        for (String s : strings) {
+            assertEquals(CheapHasher.hash(s.getBytes(StandardCharsets.UTF_8)), CheapHasher.hash(s), s);
+        }
+
+        Random random = new Random(3);
+        for (int n = 0; n < 200; n++) {
+            char[] chars = new char[random.nextInt(40)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            String s = new String(chars);
+            assertEquals(CheapHasher.hash(s.getBytes(StandardCharsets.UTF_8)), CheapHasher.hash(s));
+        }
+    }
+
+    @Test
+    void testDefaultAlgorithmIsFnv1a()
+    {
+        assertEquals(CheapHasher.Algorithm.FNV1A, new CheapHasher().getAlgorithm());
+        assertEquals(CheapHasher.hash("abc"), new CheapHasher().update("abc").getHash());
+        assertEquals(CheapHasher.hash(42L, 7L), new CheapHasher(42L).update(7L).getHash());
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testStreamingInputsMatchByteArray() throws IOException
+    {
+        for (CheapHasher.Algorithm algorithm : CheapHasher.Algorithm.values()) {
+            for (int length : new int[] {0, 1, 7, 8, 9, 63, 8192, 8193, 20000}) {
+                byte[] bytes = randomBytes(length);
+                long expected = new CheapHasher(algorithm).update(bytes).getHash();
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect(length + 3).position(3);
+                buffer.put(bytes).position(3);
+                assertEquals(expected, new CheapHasher(algorithm).update(buffer).getHash(), algorithm + " " + length);
+                assertFalse(buffer.hasRemaining());
+
+                // A stream that returns short reads
+                InputStream in = new FilterInputStream(new ByteArrayInputStream(bytes))
+                {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException
+                    {
+                        return super.read(b, off, Math.min(len, 5));
+                    }
+                };
+                assertEquals(expected, new CheapHasher(algorithm).update(in).getHash(), algorithm + " " + length);
+                assertEquals(expected, new CheapHasher(algorithm).update(MemorySegment.ofArray(bytes)).getHash());
+            }
+        }
+    }
+
+    @Test
+    void testWordwiseHashesDifferFromFnv1a()
+    {
+        CheapHasher wordwise = new CheapHasher(CheapHasher.Algorithm.WORDWISE);
+        long seed = wordwise.getHash();
+
+        assertNotEquals(CheapHasher.hash("hello"), wordwise.update("hello").getHash());
+        wordwise.reset();
+        assertEquals(seed, wordwise.getHash());
+        assertNotEquals(new CheapHasher(CheapHasher.Algorithm.WORDWISE).update("hello").getHash(),
+            new CheapHasher(CheapHasher.Algorithm.WORDWISE).update("hellp").getHash());
+    }
+
+    @Test
+    void testWordwiseDistinguishesValues()
+    {
+        List<Object> values = List.of("", "a", "a\0", "\0", "abcd", "abcdabcd", 0L, 1L, 1.5, -0.0, true, false,
+            new BigInteger("12345678901234567890"), new BigDecimal("1.50"), new BigDecimal("1.5"),
+            URI.create("http://example.com"), new UUID(1, 2), new UUID(2, 1), new byte[] {1, 2, 3});
+        Set<Long> hashes = new HashSet<>();
+        for (Object value : values) {
+            CheapHasher hasher = new CheapHasher(CheapHasher.Algorithm.WORDWISE);
+            switch (value) {
+                case String v -> hasher.update(v);
+                case Long v -> hasher.update((long) v);
+                case Double v -> hasher.update((double) v);
+                case Boolean v -> hasher.update((boolean) v);
+                case BigInteger v -> hasher.update(v);
+                case BigDecimal v -> hasher.update(v);
+                case URI v -> hasher.update(v);
+                case UUID v -> hasher.update(v);
+                case byte[] v -> hasher.update(v);
+                default -> fail("unexpected " + value);
+            }
+            assertTrue(hashes.add(hasher.getHash()), "collision for " + value);
+        }
+        long nullHash = new CheapHasher(CheapHasher.Algorithm.WORDWISE).update((String) null).getHash();
+        assertFalse(hashes.contains(nullHash));
+        assertEquals(nullHash, new CheapHasher(CheapHasher.Algorithm.WORDWISE).update((UUID) null).getHash());
+    }
+
+    @Test
+    void testStructuredValuesHashByTheirParts()
+    {
+        for (CheapHasher.Algorithm algorithm : CheapHasher.Algorithm.values()) {
+            List<Object> values = List.of(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(),
+                BigInteger.ONE.shiftLeft(63), BigInteger.ONE.shiftLeft(63).negate(), BigInteger.ONE.shiftLeft(64),
+                new BigInteger("123456789012345678901234567890"), new BigInteger("-123456789012345678901234567890"),
+                new BigDecimal("1.0"), new BigDecimal("1.00"), new BigDecimal("10"), new BigDecimal("1E+1"),
+                ZonedDateTime.parse("2025-01-15T10:30:00Z"), ZonedDateTime.parse("2025-01-15T10:30:00.5Z"),
+                ZonedDateTime.parse("2025-01-15T10:30:00Z").withZoneSameInstant(ZoneId.of("Europe/Paris")),
+                ZonedDateTime.parse("2025-01-15T11:30:00+01:00"),
+                URI.create("https://example.com/path"), URI.create("https://example.com/path#top"),
+                URI.create("mailto:a@example.com"), URI.create("path/only"));
+            Set<Long> hashes = new HashSet<>();
+            for (Object value : values) {
+                assertTrue(hashes.add(new CheapHasher(algorithm).updateValue(value).getHash()),
+                    algorithm + " collision for " + value);
+            }
+        }
+
+        // Equal values built differently hash the same
+        assertEquals(CheapHasher.hash(new BigInteger("18446744073709551616")),
+            CheapHasher.hash(BigInteger.TWO.pow(64)));
+        assertEquals(CheapHasher.hash(new BigDecimal("123.450")),
+            CheapHasher.hash(BigDecimal.valueOf(123450, 3)));
+        assertEquals(CheapHasher.hash(ZonedDateTime.parse("2025-01-15T10:30:00+01:00[Europe/Paris]")),
+            CheapHasher.hash(ZonedDateTime.parse("2025-01-15T09:30:00Z").withZoneSameInstant(ZoneId.of("Europe/Paris"))));
+        assertEquals(CheapHasher.hash(URI.create("https://example.com/b?c=d#e")),
+            CheapHasher.hash(URI.create("https://example.com/a").resolve("b?c=d#e")));
+    }
+
+    @Test
+    void testStructuredValuesHashWithoutAllocating()
+    {
+        Object bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean b
+            && b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled(),
+            "Thread allocation measurement is not available");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Object[] values = {new BigInteger("123456789012345678901234567890"), BigInteger.valueOf(-42),
+            ZonedDateTime.parse("2025-01-15T10:30:00+01:00[Europe/Paris]"), URI.create("https://example.com/a?b=c#d")};
+        for (CheapHasher.Algorithm algorithm : CheapHasher.Algorithm.values()) {
+            CheapHasher hasher = new CheapHasher(algorithm);
+            // Warm up through the same method that is measured
+            for (int i = 0; i < 5; i++) {
+                hashAll(hasher, values, 10_000);
+            }
+
+            // Keep the least of a few measurements, so a one-off allocation by the runtime
+            // itself does not count against the hashing
+            long allocated = Long.MAX_VALUE;
+            for (int i = 0; i < 3 && allocated > 0; i++) {
+                long before = threadBean.getCurrentThreadAllocatedBytes();
+                hashAll(hasher, values, 10_000);
+                allocated = Math.min(allocated, threadBean.getCurrentThreadAllocatedBytes() - before);
+            }
+
+            assertEquals(0L, allocated, algorithm + " allocated " + allocated + " bytes");
+        }
+    }
+
+    private static void hashAll(CheapHasher hasher, Object[] values, int rounds)
+    {
+        for (int i = 0; i < rounds; i++) {
+            for (Object value : values) {
+                hasher.updateValue(value);
+            }
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package net.netbeing.cheap.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityHashTreeTest
+{
+    private static List<UUID> ids(int n)
+    {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(IdGenerator.timeOrdered().newId());
+        }
+        return ids;
+    }
+
+    @Test
+    void root_SameEntriesAnyOrder_Equal()
+    {
+        List<UUID> ids = ids(1000);
+        EntityHashTree a = new EntityHashTree();
+        EntityHashTree b = new EntityHashTree();
+        for (int i = 0; i < ids.size(); i++) {
+            a.add(ids.get(i), i);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(5));
+        for (int i : order) {
+            b.add(ids.get(i), i);
+        }
+
+        assertEquals(a.root(), b.root());
+        assertEquals(1000, b.size());
+        assertArrayEquals(new int[0], a.diff(b));
+        assertEquals(0L, new EntityHashTree().root());
+    }
+
+    @Test
+    void removeAndReplace_RestoreEarlierRoots()
+    {
+        List<UUID> ids = ids(100);
+        EntityHashTree tree = new EntityHashTree();
+        ids.forEach(id -> tree.add(id, 1L));
+        long root = tree.root();
+
+        tree.add(null, 7L);
+        assertNotEquals(root, tree.root());
+        tree.remove(null, 7L);
+        assertEquals(root, tree.root());
+
+        tree.replace(ids.get(5), 1L, 2L);
+        assertNotEquals(root, tree.root());
+        tree.replace(ids.get(5), 2L, 1L);
+        assertEquals(root, tree.root());
+
+        ids.forEach(id -> tree.remove(id, 1L));
+        assertEquals(0L, tree.root());
+        assertEquals(0, tree.size());
+    }
+
+    @Test
+    void diff_ChangedEntries_ReportsTheirBuckets()
+    {
+        List<UUID> ids = ids(5000);
+        EntityHashTree a = new EntityHashTree();
+        EntityHashTree b = new EntityHashTree();
+        ids.forEach(id -> a.add(id, 0L));
+        ids.forEach(id -> b.add(id, 0L));
+
+        b.replace(ids.get(10), 0L, 1L);
+        b.remove(ids.get(20), 0L);
+        UUID extra = UUID.randomUUID();
+        b.add(extra, 0L);
+
+        int[] expected = {EntityHashTree.bucketOf(ids.get(10)), EntityHashTree.bucketOf(ids.get(20)),
+            EntityHashTree.bucketOf(extra)};
+        int[] diff = a.diff(b);
+        java.util.Arrays.sort(expected);
+        assertArrayEquals(java.util.Arrays.stream(expected).distinct().toArray(), diff);
+        for (int bucket : diff) {
+            assertNotEquals(a.bucketHash(bucket), b.bucketHash(bucket));
+        }
+    }
+
+    @Test
+    void bucketOf_TimeOrderedIds_SpreadAcrossBuckets()
+    {
+        boolean[] seen = new boolean[EntityHashTree.BUCKETS];
+        int distinct = 0;
+        for (UUID id : ids(20000)) {
+            int bucket = EntityHashTree.bucketOf(id);
+            if (!seen[bucket]) {
+                seen[bucket] = true;
+                distinct++;
+            }
+        }
+        // 20000 random draws over 4096 buckets leave fewer than 1% empty
+        assertTrue(distinct > EntityHashTree.BUCKETS * 0.98, "only " + distinct + " buckets used");
+    }
+}
@@ -0,0 +1,84 @@
+package net.netbeing.cheap.util;
+
+import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.EntityImpl;
+import net.netbeing.cheap.model.LocalEntityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest
+{
+    private static int compareUnsigned(UUID a, UUID b)
+    {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @Test
+    void newId_Version7Layout_EncodesCurrentTime()
+    {
+        long before = System.currentTimeMillis();
+        UUID id = IdGenerator.timeOrdered().newId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long timestamp = TimeOrderedIdGenerator.timestamp(id);
+        assertTrue(timestamp >= before && timestamp <= after + 1, "timestamp " + timestamp);
+    }
+
+    @Test
+    void newId_SameThread_StrictlyIncreasing()
+    {
+        IdGenerator generator = IdGenerator.timeOrdered();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(generator.newId());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(compareUnsigned(ids.get(i - 1), ids.get(i)) < 0, "at " + i);
+        }
+    }
+
+    @Test
+    void newId_ManyThreads_AllDistinct()
+    {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 200_000).parallel().forEach(i -> ids.add(IdGenerator.timeOrdered().newId()));
+
+        assertEquals(200_000, ids.size());
+    }
+
+    @Test
+    void timestamp_RandomUuid_Throws()
+    {
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIdGenerator.timestamp(UUID.randomUUID()));
+        assertEquals(4, IdGenerator.random().newId().version());
+    }
+
+    @Test
+    void factory_CustomGenerator_UsedForNewObjects()
+    {
+        CheapFactory factory = new CheapFactory();
+        assertSame(IdGenerator.timeOrdered(), factory.getIdGenerator());
+        assertEquals(7, factory.createEntity().globalId().version());
+        assertEquals(7, new EntityImpl().globalId().version());
+
+        UUID fixed = new UUID(0, 42);
+        factory.setIdGenerator(() -> fixed);
+        assertEquals(fixed, factory.createEntity().globalId());
+        assertEquals(fixed, factory.createAndRegisterEntity().globalId());
+        assertEquals(fixed, factory.createCatalog().globalId());
+        assertEquals(fixed, factory.createMutableAspectDef("thing").globalId());
+        assertEquals(fixed, factory.createLocalEntity(LocalEntityType.MULTI_CATALOG, factory.createCatalog()).globalId());
+        assertThrows(NullPointerException.class, () -> factory.setIdGenerator(null));
+    }
+}
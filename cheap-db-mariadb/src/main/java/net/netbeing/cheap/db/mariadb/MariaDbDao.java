@@ -33,8 +33,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -406,7 +406,7 @@ public class MariaDbDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntitySetContent(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy) throws SQLException
+    protected void saveEntitySetEntries(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         final String catalogId = hierarchy.catalog().globalId().toString();
         String sql = "INSERT INTO hierarchy_entity_set (catalog_id, hierarchy_name, entity_id, set_order) " +
@@ -416,8 +416,8 @@ public class MariaDbDao extends AbstractCheapDao
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, catalogId);
             stmt.setString(2, hierarchy.name());
-            int order = 0;
-            for (Entity entity : hierarchy) {
+            int order = firstOrder;
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
                 stmt.setString(3, entity.globalId().toString());
                 stmt.setInt(4, order++);
@@ -428,7 +428,7 @@ public class MariaDbDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntityDirectoryContent(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy) throws SQLException
+    protected void saveEntityDirectoryEntries(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy, @NotNull Collection<String> keys, int firstOrder) throws SQLException
     {
         final String catalogId = hierarchy.catalog().globalId().toString();
         String sql = "INSERT INTO hierarchy_entity_directory (catalog_id, hierarchy_name, entity_key, entity_id, dir_order) " +
@@ -439,12 +439,13 @@ public class MariaDbDao extends AbstractCheapDao
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, catalogId);
             stmt.setString(2, hierarchy.name());
-            int order = 0;
-            for (Map.Entry<String,Entity> entry : hierarchy.entrySet()) {
-                if (entry.getValue() != null) {
-                    //saveEntity(conn, entry.getValue());
-                    stmt.setString(3, entry.getKey());
-                    stmt.setString(4, entry.getValue().globalId().toString());
+            int order = firstOrder;
+            for (String key : keys) {
+                Entity entity = hierarchy.get(key);
+                if (entity != null) {
+                    //saveEntity(conn, entity);
+                    stmt.setString(3, key);
+                    stmt.setString(4, entity.globalId().toString());
                     stmt.setInt(5, order++);
                     stmt.addBatch();
                 }
@@ -464,7 +465,7 @@ public class MariaDbDao extends AbstractCheapDao
                               String nodeKey, String nodePath, UUID parentNodeId, int order) throws SQLException
     {
         final String catalogId = hierarchy.catalog().globalId().toString();
-        UUID nodeId = UUID.randomUUID();
+        UUID nodeId = adapter.getFactory().getIdGenerator().newId();
         UUID entityId = node.value() == null ? null : node.value().globalId();
 
         String sql = "INSERT INTO hierarchy_entity_tree_node " +
@@ -514,7 +515,7 @@ public class MariaDbDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveAspectMapContentToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy) throws SQLException
+    protected void saveAspectMapEntriesToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         final String catalogId = hierarchy.catalog().globalId().toString();
         String aspectSql = "INSERT INTO aspect (entity_id, aspect_def_id, catalog_id, hierarchy_name) " +
@@ -536,12 +537,11 @@ public class MariaDbDao extends AbstractCheapDao
             aspectStmt.setString(3, catalogId);
             mapStmt.setString(1, catalogId);
             mapStmt.setString(4, aspectDefId);
-            int order = 0;
-            for (Map.Entry<Entity,Aspect> entry : hierarchy.entrySet()) {
-                Entity entity = entry.getKey();
+            int order = firstOrder;
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
 
-                Aspect aspect = entry.getValue();
+                Aspect aspect = hierarchy.get(entity);
                 if (aspect != null) {
                     // Save aspect
                     aspectStmt.setString(1, entity.globalId().toString());
@@ -856,9 +856,7 @@ public class MariaDbDao extends AbstractCheapDao
     @Override
     protected void loadEntityTreeContent(Connection conn, EntityTreeHierarchy hierarchy) throws SQLException
     {
-        // Load all tree nodes into a map for efficient parent-child relationship building
-        Map<UUID, NodeRecord> nodeMap = new HashMap<>();
-        UUID rootNodeId = null;
+        List<TreeNodeRow> rows = new ArrayList<>();
 
         String sql = "SELECT node_id, parent_node_id, node_key, entity_id " +
             "FROM hierarchy_entity_tree_node " +
@@ -879,52 +877,14 @@ public class MariaDbDao extends AbstractCheapDao
                     UUID entityId = entityIdStr != null ? UUID.fromString(entityIdStr) : null;
 
                     Entity entity = entityId != null ? adapter.getFactory().getOrRegisterNewEntity(entityId) : null;
-                    EntityTreeHierarchy.Node node = adapter.getFactory().createTreeNode(entity);
-
-                    NodeRecord nodeRec = new NodeRecord(nodeId, parentNodeId, nodeKey, node);
-                    nodeMap.put(nodeId, nodeRec);
-
-                    // Root node has no parent
-                    if (parentNodeId == null) {
-                        rootNodeId = nodeId;
-                    }
+                    rows.add(new TreeNodeRow(nodeId, parentNodeId, nodeKey, entity));
                 }
             }
         }
 
-        // Build the tree structure by adding children to their parents
-        for (NodeRecord nodeRec : nodeMap.values()) {
-            if (nodeRec.parentNodeId != null) {
-                NodeRecord parentRecord = nodeMap.get(nodeRec.parentNodeId);
-                if (parentRecord != null) {
-                    parentRecord.node.put(nodeRec.nodeKey, nodeRec.node);
-                }
-            }
-        }
-
-        // Populate the root node of the hierarchy
-        if (rootNodeId != null) {
-            NodeRecord rootRecord = nodeMap.get(rootNodeId);
-            if (rootRecord != null) {
-                EntityTreeHierarchy.Node hierarchyRoot = hierarchy.root();
-                // Copy all children from loaded root to hierarchy root
-                hierarchyRoot.putAll(rootRecord.node);
-                // Set the entity value if present
-                if (rootRecord.node.value() != null) {
-                    hierarchyRoot.setValue(rootRecord.node.value());
-                }
-            }
-        }
+        populateEntityTree(hierarchy, rows);
     }
 
-    // Helper class to hold node information during tree reconstruction
-    private record NodeRecord(
-        UUID nodeId,
-        UUID parentNodeId,
-        String nodeKey,
-        EntityTreeHierarchy.Node node
-    ) {}
-
     @Override
     protected void loadAspectMapContent(Connection conn, AspectMapHierarchy hierarchy) throws SQLException
     {
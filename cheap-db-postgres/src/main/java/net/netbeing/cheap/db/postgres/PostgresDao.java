@@ -32,12 +32,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -259,16 +260,7 @@ public class PostgresDao extends AbstractCheapDao
     @Override
     public void saveCatalog(@NotNull Catalog catalog) throws SQLException
     {
-        try (Connection conn = adapter.getConnection()) {
-            conn.setAutoCommit(false);
-            try {
-                saveCatalog(conn, catalog);
-                conn.commit();
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            }
-        }
+        super.saveCatalog(Objects.requireNonNull(catalog, "catalog"));
     }
 
     @Override
@@ -419,15 +411,15 @@ public class PostgresDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntitySetContent(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy) throws SQLException
+    protected void saveEntitySetEntries(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         String sql = "INSERT INTO hierarchy_entity_set (catalog_id, hierarchy_name, entity_id, set_order) " +
             "VALUES (?, ?, ?, ?) " +
             "ON CONFLICT (catalog_id, hierarchy_name, entity_id) DO UPDATE SET " +
             "set_order = EXCLUDED.set_order";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            int order = 0;
-            for (Entity entity : hierarchy) {
+            int order = firstOrder;
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
                 stmt.setObject(1, hierarchy.catalog().globalId());
                 stmt.setString(2, hierarchy.name());
@@ -440,7 +432,7 @@ public class PostgresDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntityDirectoryContent(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy) throws SQLException
+    protected void saveEntityDirectoryEntries(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy, @NotNull Collection<String> keys, int firstOrder) throws SQLException
     {
         String sql = "INSERT INTO hierarchy_entity_directory (catalog_id, hierarchy_name, entity_key, entity_id, dir_order) " +
             "VALUES (?, ?, ?, ?, ?) " +
@@ -448,14 +440,14 @@ public class PostgresDao extends AbstractCheapDao
             "entity_id = EXCLUDED.entity_id, " +
             "dir_order = EXCLUDED.dir_order";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            int order = 0;
-            for (Map.Entry<String,Entity> entry : hierarchy.entrySet()) {
-                Entity entity = entry.getValue();
+            int order = firstOrder;
+            for (String key : keys) {
+                Entity entity = hierarchy.get(key);
                 if (entity != null) {
                     //saveEntity(conn, entity);
                     stmt.setObject(1, hierarchy.catalog().globalId());
                     stmt.setString(2, hierarchy.name());
-                    stmt.setString(3, entry.getKey());
+                    stmt.setString(3, key);
                     stmt.setObject(4, entity.globalId());
                     stmt.setInt(5, order++);
                     stmt.addBatch();
@@ -475,7 +467,7 @@ public class PostgresDao extends AbstractCheapDao
     private void saveTreeNode(Connection conn, EntityTreeHierarchy hierarchy, EntityTreeHierarchy.Node node,
                               String nodeKey, String nodePath, UUID parentNodeId, int order) throws SQLException
     {
-        UUID nodeId = UUID.randomUUID();
+        UUID nodeId = adapter.getFactory().getIdGenerator().newId();
         UUID entityId = node.value() == null ? null : node.value().globalId();
 
         String sql = "INSERT INTO hierarchy_entity_tree_node " +
@@ -525,7 +517,7 @@ public class PostgresDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveAspectMapContentToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy) throws SQLException
+    protected void saveAspectMapEntriesToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         String aspectSql = "INSERT INTO aspect (entity_id, aspect_def_id, catalog_id, hierarchy_name) " +
             "VALUES (?, ?, ?, ?) " +
@@ -539,18 +531,17 @@ public class PostgresDao extends AbstractCheapDao
 
         UUID aspectDefId = hierarchy.aspectDef().globalId();
 
-        int order = 0;
+        int order = firstOrder;
         try (PreparedStatement aspectStmt = conn.prepareStatement(aspectSql);
              PreparedStatement mapStmt = conn.prepareStatement(hierarchyMapSql)) {
 
             aspectStmt.setObject(2, aspectDefId);
             mapStmt.setObject(4, aspectDefId);
 
-            for (Map.Entry<Entity,Aspect> entry : hierarchy.entrySet()) {
-                Entity entity = entry.getKey();
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
 
-                Aspect aspect = entry.getValue();
+                Aspect aspect = hierarchy.get(entity);
                 if (aspect != null) {
                     // Save aspect
                     aspectStmt.setObject(1, entity.globalId());
@@ -826,7 +817,7 @@ public class PostgresDao extends AbstractCheapDao
             }
             case ENTITY_TREE -> {
                 Entity rootEntity = adapter.getFactory().createEntity();
-                EntityTreeHierarchy hierarchy = adapter.getFactory().createEntityTreeHierarchy(catalog, hierarchyName, null, 0L);
+                EntityTreeHierarchy hierarchy = createEntityTreeForLoad(catalog, hierarchyName);
                 hierarchy.root().setValue(rootEntity);
                 loadEntityTreeContent(conn, hierarchy);
                 return hierarchy;
@@ -897,9 +888,7 @@ public class PostgresDao extends AbstractCheapDao
     @Override
     protected void loadEntityTreeContent(Connection conn, EntityTreeHierarchy hierarchy) throws SQLException
     {
-        // Load all tree nodes into a map for efficient parent-child relationship building
-        Map<UUID, NodeRecord> nodeMap = new HashMap<>();
-        UUID rootNodeId = null;
+        List<TreeNodeRow> rows = new ArrayList<>();
 
         String sql = "SELECT node_id, parent_node_id, node_key, entity_id " +
             "FROM hierarchy_entity_tree_node " +
@@ -917,52 +906,14 @@ public class PostgresDao extends AbstractCheapDao
                     UUID entityId = rs.getObject("entity_id", UUID.class);
 
                     Entity entity = entityId != null ? adapter.getFactory().getOrRegisterNewEntity(entityId) : null;
-                    EntityTreeHierarchy.Node node = adapter.getFactory().createTreeNode(entity);
-
-                    NodeRecord nodeRec = new NodeRecord(nodeId, parentNodeId, nodeKey, node);
-                    nodeMap.put(nodeId, nodeRec);
-
-                    // Root node has no parent
-                    if (parentNodeId == null) {
-                        rootNodeId = nodeId;
-                    }
+                    rows.add(new TreeNodeRow(nodeId, parentNodeId, nodeKey, entity));
                 }
             }
         }
 
-        // Build the tree structure by adding children to their parents
-        for (NodeRecord nodeRec : nodeMap.values()) {
-            if (nodeRec.parentNodeId != null) {
-                NodeRecord parentRecord = nodeMap.get(nodeRec.parentNodeId);
-                if (parentRecord != null) {
-                    parentRecord.node.put(nodeRec.nodeKey, nodeRec.node);
-                }
-            }
-        }
-
-        // Populate the root node of the hierarchy
-        if (rootNodeId != null) {
-            NodeRecord rootRecord = nodeMap.get(rootNodeId);
-            if (rootRecord != null) {
-                EntityTreeHierarchy.Node hierarchyRoot = hierarchy.root();
-                // Copy all children from loaded root to hierarchy root
-                hierarchyRoot.putAll(rootRecord.node);
-                // Set the entity value if present
-                if (rootRecord.node.value() != null) {
-                    hierarchyRoot.setValue(rootRecord.node.value());
-                }
-            }
-        }
+        populateEntityTree(hierarchy, rows);
     }
 
-    // Helper class to hold node information during tree reconstruction
-    private record NodeRecord(
-        UUID nodeId,
-        UUID parentNodeId,
-        String nodeKey,
-        EntityTreeHierarchy.Node node
-    ) {}
-
     @Override
     protected void loadAspectMapContent(Connection conn, AspectMapHierarchy hierarchy) throws SQLException
     {
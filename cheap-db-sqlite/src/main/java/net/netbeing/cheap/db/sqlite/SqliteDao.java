@@ -32,8 +32,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -332,15 +332,15 @@ public class SqliteDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntitySetContent(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy) throws SQLException
+    protected void saveEntitySetEntries(@NotNull Connection conn, @NotNull EntitySetHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         String sql = "INSERT INTO hierarchy_entity_set (catalog_id, hierarchy_name, entity_id, set_order) " +
             "VALUES (?, ?, ?, ?) " +
             "ON CONFLICT (catalog_id, hierarchy_name, entity_id) DO UPDATE SET " +
             "set_order = excluded.set_order";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            int order = 0;
-            for (Entity entity : hierarchy) {
+            int order = firstOrder;
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
                 stmt.setString(1, hierarchy.catalog().globalId().toString());
                 stmt.setString(2, hierarchy.name());
@@ -353,7 +353,7 @@ public class SqliteDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveEntityDirectoryContent(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy) throws SQLException
+    protected void saveEntityDirectoryEntries(@NotNull Connection conn, @NotNull EntityDirectoryHierarchy hierarchy, @NotNull Collection<String> keys, int firstOrder) throws SQLException
     {
         String sql = "INSERT INTO hierarchy_entity_directory (catalog_id, hierarchy_name, entity_key, entity_id, dir_order) " +
             "VALUES (?, ?, ?, ?, ?) " +
@@ -361,14 +361,14 @@ public class SqliteDao extends AbstractCheapDao
             "entity_id = excluded.entity_id, " +
             "dir_order = excluded.dir_order";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            int order = 0;
-            for (Map.Entry<String,Entity> entry : hierarchy.entrySet()) {
-                Entity entity = entry.getValue();
+            int order = firstOrder;
+            for (String key : keys) {
+                Entity entity = hierarchy.get(key);
                 if (entity != null) {
                     //saveEntity(conn, entity);
                     stmt.setString(1, hierarchy.catalog().globalId().toString());
                     stmt.setString(2, hierarchy.name());
-                    stmt.setString(3, entry.getKey());
+                    stmt.setString(3, key);
                     stmt.setString(4, entity.globalId().toString());
                     stmt.setInt(5, order++);
                     stmt.addBatch();
@@ -388,7 +388,7 @@ public class SqliteDao extends AbstractCheapDao
     private void saveTreeNode(Connection conn, EntityTreeHierarchy hierarchy, EntityTreeHierarchy.Node node,
                               String nodeKey, String nodePath, String parentNodeId, int order) throws SQLException
     {
-        String nodeId = UUID.randomUUID().toString();
+        String nodeId = adapter.getFactory().getIdGenerator().newId().toString();
         String entityId = node.value() == null ? null : node.value().globalId().toString();
 
         String sql = "INSERT INTO hierarchy_entity_tree_node " +
@@ -438,7 +438,7 @@ public class SqliteDao extends AbstractCheapDao
     }
 
     @Override
-    protected void saveAspectMapContentToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy) throws SQLException
+    protected void saveAspectMapEntriesToDefaultTables(@NotNull Connection conn, @NotNull AspectMapHierarchy hierarchy, @NotNull Collection<Entity> entities, int firstOrder) throws SQLException
     {
         String aspectSql = "INSERT INTO aspect (entity_id, aspect_def_id, catalog_id, hierarchy_name) " +
             "VALUES (?, ?, ?, ?) " +
@@ -461,12 +461,11 @@ public class SqliteDao extends AbstractCheapDao
             mapStmt.setString(4, aspectDefId);
             mapStmt.setString(1, hierarchy.catalog().globalId().toString());
             mapStmt.setString(2, hierarchy.name());
-            int order = 0;
-            for (Map.Entry<Entity,Aspect> entry : hierarchy.entrySet()) {
-                Entity entity = entry.getKey();
+            int order = firstOrder;
+            for (Entity entity : entities) {
                 //saveEntity(conn, entity);
 
-                Aspect aspect = entry.getValue();
+                Aspect aspect = hierarchy.get(entity);
                 if (aspect != null) {
                     // Save aspect
                     aspectStmt.setString(1, entity.globalId().toString());
@@ -793,9 +792,7 @@ public class SqliteDao extends AbstractCheapDao
     @Override
     protected void loadEntityTreeContent(Connection conn, EntityTreeHierarchy hierarchy) throws SQLException
     {
-        // Load all tree nodes into a map for efficient parent-child relationship building
-        Map<String, NodeRecord> nodeMap = new HashMap<>();
-        String rootNodeId = null;
+        List<TreeNodeRow> rows = new ArrayList<>();
 
         String sql = "SELECT node_id, parent_node_id, node_key, entity_id " +
             "FROM hierarchy_entity_tree_node " +
@@ -813,52 +810,14 @@ public class SqliteDao extends AbstractCheapDao
                     String entityIdStr = rs.getString("entity_id");
 
                     Entity entity = entityIdStr != null ? adapter.getFactory().getOrRegisterNewEntity(UUID.fromString(entityIdStr)) : null;
-                    EntityTreeHierarchy.Node node = adapter.getFactory().createTreeNode(entity);
-
-                    NodeRecord nodeRecord = new NodeRecord(nodeId, parentNodeId, nodeKey, node);
-                    nodeMap.put(nodeId, nodeRecord);
-
-                    // Root node has no parent
-                    if (parentNodeId == null) {
-                        rootNodeId = nodeId;
-                    }
-                }
-            }
-        }
-
-        // Build the tree structure by adding children to their parents
-        for (NodeRecord nodeRecord : nodeMap.values()) {
-            if (nodeRecord.parentNodeId != null) {
-                NodeRecord parentRecord = nodeMap.get(nodeRecord.parentNodeId);
-                if (parentRecord != null) {
-                    parentRecord.node.put(nodeRecord.nodeKey, nodeRecord.node);
+                    rows.add(new TreeNodeRow(nodeId, parentNodeId, nodeKey, entity));
                 }
             }
         }
 
-        // Populate the root node of the hierarchy
-        if (rootNodeId != null) {
-            NodeRecord rootRecord = nodeMap.get(rootNodeId);
-            if (rootRecord != null) {
-                EntityTreeHierarchy.Node hierarchyRoot = hierarchy.root();
-                // Copy all children from loaded root to hierarchy root
-                hierarchyRoot.putAll(rootRecord.node);
-                // Set the entity value if present
-                if (rootRecord.node.value() != null) {
-                    hierarchyRoot.setValue(rootRecord.node.value());
-                }
-            }
-        }
+        populateEntityTree(hierarchy, rows);
     }
 
-    // Helper class to hold node information during tree reconstruction
-    private record NodeRecord(
-        String nodeId,
-        String parentNodeId,
-        String nodeKey,
-        EntityTreeHierarchy.Node node
-    ) {}
-
     @Override
     protected void loadAspectMapContent(Connection conn, AspectMapHierarchy hierarchy) throws SQLException
     {
@@ -19,6 +19,8 @@ package net.netbeing.cheap.db.sqlite;
 import net.netbeing.cheap.db.AspectTableMapping;
 import net.netbeing.cheap.model.*;
 import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.impl.basic.CompactEntityTreeHierarchyImpl;
+import net.netbeing.cheap.impl.basic.LazyHierarchy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +28,8 @@ import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
@@ -38,10 +42,12 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -222,6 +228,76 @@ class SqliteDaoTest
         assertTrue(loadedEntitySet.contains(entity3));
     }
 
+    @Test
+    void testLoadCatalogWithLazyHierarchies() throws SQLException
+    {
+        UUID catalogId = UUID.randomUUID();
+        Catalog originalCatalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        EntitySetHierarchy set = factory.createEntitySetHierarchy(originalCatalog, "entities");
+        Entity entity1 = factory.createEntity(UUID.randomUUID());
+        Entity entity2 = factory.createEntity(UUID.randomUUID());
+        set.add(entity1);
+        set.add(entity2);
+        EntityListHierarchy list = factory.createEntityListHierarchy(originalCatalog, "list");
+        list.add(entity2);
+        sqliteDao.saveCatalog(originalCatalog);
+
+        sqliteDao.setLazyHierarchyLoading(true);
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+
+        LazyHierarchy lazySet = (LazyHierarchy) loadedCatalog.hierarchy("entities");
+        LazyHierarchy lazyList = (LazyHierarchy) loadedCatalog.hierarchy("list");
+        assertEquals(HierarchyType.ENTITY_SET, lazySet.type());
+        assertEquals(2, lazySet.expectedSize());
+        assertEquals(2, ((EntitySetHierarchy) lazySet).size());
+        assertFalse(lazySet.isLoaded());
+
+        assertTrue(((EntitySetHierarchy) lazySet).contains(entity1));
+        assertTrue(lazySet.isLoaded());
+        assertFalse(lazyList.isLoaded());
+        assertEquals(List.of(entity2), lazyList);
+    }
+
+    @Test
+    void testSaveCatalogLoadsLazyHierarchiesThroughSaveConnection() throws SQLException
+    {
+        UUID catalogId = UUID.randomUUID();
+        Catalog originalCatalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        EntitySetHierarchy set = factory.createEntitySetHierarchy(originalCatalog, "entities");
+        Entity entity1 = factory.createEntity(UUID.randomUUID());
+        Entity entity2 = factory.createEntity(UUID.randomUUID());
+        set.add(entity1);
+        set.add(entity2);
+        EntityListHierarchy list = factory.createEntityListHierarchy(originalCatalog, "list");
+        list.add(entity2);
+        sqliteDao.saveCatalog(originalCatalog);
+
+        AtomicInteger connections = new AtomicInteger();
+        DataSource counting = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {DataSource.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    connections.incrementAndGet();
+                }
+                try {
+                    return method.invoke(dataSource, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        SqliteDao lazyDao = new SqliteDao(new SqliteAdapter(counting, factory));
+        lazyDao.setLazyHierarchyLoading(true);
+        Catalog loadedCatalog = lazyDao.loadCatalog(catalogId);
+        connections.set(0);
+
+        lazyDao.saveCatalog(loadedCatalog);
+
+        assertEquals(1, connections.get());
+        assertTrue(((LazyHierarchy) loadedCatalog.hierarchy("entities")).isLoaded());
+        Catalog reloaded = sqliteDao.loadCatalog(catalogId);
+        assertEquals(2, ((EntitySetHierarchy) reloaded.hierarchy("entities")).size());
+        assertEquals(List.of(entity2), reloaded.hierarchy("list"));
+    }
+
     @Test
     void testSaveAndLoadCatalogWithEntityDirectoryHierarchy() throws SQLException
     {
@@ -259,6 +335,33 @@ class SqliteDaoTest
         assertEquals(entity2.globalId(), loadedDirectory.get("key2").globalId());
     }
 
+    @Test
+    void testSaveAndLoadCatalogWithEntityTreeHierarchy() throws SQLException
+    {
+        UUID catalogId = UUID.randomUUID();
+        Catalog originalCatalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        EntityTreeHierarchy tree = factory.createEntityTreeHierarchy(originalCatalog, "tree", null, 0L);
+        Entity entity1 = factory.createEntity(UUID.randomUUID());
+        Entity entity2 = factory.createEntity(UUID.randomUUID());
+        EntityTreeHierarchy.Node folder = factory.createTreeNode(entity1, tree.root());
+        tree.root().put("folder", folder);
+        folder.put("file", factory.createTreeNode(entity2, folder));
+
+        sqliteDao.saveCatalog(originalCatalog);
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+
+        // Loaded trees are compact, so their subtree sizes are maintained
+        EntityTreeHierarchy loadedTree = (EntityTreeHierarchy) loadedCatalog.hierarchy("tree");
+        EntityTreeHierarchy.Node loadedFolder = loadedTree.root().get("folder");
+        assertInstanceOf(CompactEntityTreeHierarchyImpl.CompactNodeImpl.class, loadedFolder);
+        assertEquals(entity1.globalId(), loadedFolder.value().globalId());
+        assertEquals(entity2.globalId(), loadedFolder.get("file").value().globalId());
+        assertEquals(3, loadedTree.root().subtreeSize());
+
+        loadedFolder.put("more", factory.createTreeNode(entity1, loadedFolder));
+        assertEquals(4, loadedTree.root().subtreeSize());
+    }
+
     @Test
     void testSaveAndLoadCatalogWithAspectMapHierarchy() throws SQLException
     {
@@ -1277,6 +1380,162 @@ class SqliteDaoTest
         assertEquals("beta", loadedPropNames.get(3));
     }
 
+    private int countRows(String sql, String... params) throws SQLException
+    {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            try (var rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    @Test
+    void testSaveChangesWritesSetAndDirectoryDeltas() throws SQLException
+    {
+        UUID catalogId = UUID.randomUUID();
+        Catalog catalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        EntitySetHierarchy set = factory.createEntitySetHierarchy(catalog, "entities");
+        EntityDirectoryHierarchy dir = factory.createEntityDirectoryHierarchy(catalog, "directory");
+        Entity entity1 = factory.createEntity(UUID.randomUUID());
+        Entity entity2 = factory.createEntity(UUID.randomUUID());
+        Entity entity3 = factory.createEntity(UUID.randomUUID());
+        set.add(entity1);
+        set.add(entity2);
+        dir.put("key1", entity1);
+        dir.put("key2", entity2);
+        sqliteDao.saveCatalog(catalog);
+        assertTrue(set.changes().isEmpty());
+
+        set.remove(entity1);
+        set.add(entity3);
+        dir.remove("key1");
+        dir.put("key2", entity3);
+        dir.put("key3", entity1);
+        sqliteDao.saveChanges(catalog);
+        assertTrue(set.changes().isEmpty());
+        assertTrue(dir.changes().isEmpty());
+
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+        EntitySetHierarchy loadedSet = (EntitySetHierarchy) loadedCatalog.hierarchy("entities");
+        EntityDirectoryHierarchy loadedDir = (EntityDirectoryHierarchy) loadedCatalog.hierarchy("directory");
+        assertEquals(2, loadedSet.size());
+        assertFalse(loadedSet.contains(entity1));
+        assertTrue(loadedSet.contains(entity2));
+        assertTrue(loadedSet.contains(entity3));
+        assertEquals(2, loadedDir.size());
+        assertNull(loadedDir.get("key1"));
+        assertEquals(entity3.globalId(), loadedDir.get("key2").globalId());
+        assertEquals(entity1.globalId(), loadedDir.get("key3").globalId());
+        assertTrue(loadedSet.changes().isEmpty());
+    }
+
+    @Test
+    void testSaveChangesRemovesAndUpdatesAspects() throws SQLException
+    {
+        PropertyDef nameProp = factory.createPropertyDef("name", PropertyType.String);
+        AspectDef personDef = factory.createImmutableAspectDef("person", Map.of("name", nameProp));
+        UUID catalogId = UUID.randomUUID();
+        Catalog catalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        catalog.extend(personDef);
+        AspectMapHierarchy hierarchy = (AspectMapHierarchy) catalog.hierarchy("person");
+
+        Entity person1 = factory.createEntity(UUID.randomUUID());
+        Entity person2 = factory.createEntity(UUID.randomUUID());
+        Aspect aspect1 = factory.createPropertyMapAspect(person1, personDef);
+        aspect1.put(factory.createProperty(nameProp, "Ann"));
+        Aspect aspect2 = factory.createPropertyMapAspect(person2, personDef);
+        aspect2.put(factory.createProperty(nameProp, "Bob"));
+        hierarchy.put(person1, aspect1);
+        hierarchy.put(person2, aspect2);
+        sqliteDao.saveCatalog(catalog);
+
+        hierarchy.remove(person1);
+        Aspect renamed = factory.createPropertyMapAspect(person2, personDef);
+        renamed.put(factory.createProperty(nameProp, "Rob"));
+        hierarchy.put(person2, renamed);
+        sqliteDao.saveChanges(catalog);
+
+        String person1Id = person1.globalId().toString();
+        assertEquals(0, countRows("SELECT COUNT(*) FROM aspect WHERE entity_id = ?", person1Id));
+        assertEquals(0, countRows("SELECT COUNT(*) FROM property_value WHERE entity_id = ?", person1Id));
+        assertEquals(0, countRows("SELECT COUNT(*) FROM hierarchy_aspect_map WHERE entity_id = ?", person1Id));
+
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+        AspectMapHierarchy loadedHierarchy = (AspectMapHierarchy) loadedCatalog.hierarchy("person");
+        assertEquals(1, loadedHierarchy.size());
+        assertEquals("Rob", loadedHierarchy.get(person2).readObj("name"));
+    }
+
+    @Test
+    void testSaveChangesKeepsOrderOfUpdatedEntries() throws SQLException
+    {
+        PropertyDef nameProp = factory.createPropertyDef("name", PropertyType.String);
+        AspectDef personDef = factory.createImmutableAspectDef("person", Map.of("name", nameProp));
+        UUID catalogId = UUID.randomUUID();
+        Catalog catalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        catalog.extend(personDef);
+        AspectMapHierarchy hierarchy = (AspectMapHierarchy) catalog.hierarchy("person");
+        EntityDirectoryHierarchy dir = factory.createEntityDirectoryHierarchy(catalog, "directory");
+
+        List<Entity> people = new ArrayList<>();
+        for (String name : List.of("Ann", "Bob", "Cat")) {
+            Entity person = factory.createEntity(UUID.randomUUID());
+            Aspect aspect = factory.createPropertyMapAspect(person, personDef);
+            aspect.put(factory.createProperty(nameProp, name));
+            hierarchy.put(person, aspect);
+            dir.put(name, person);
+            people.add(person);
+        }
+        sqliteDao.saveCatalog(catalog);
+
+        Aspect renamed = factory.createPropertyMapAspect(people.get(1), personDef);
+        renamed.put(factory.createProperty(nameProp, "Rob"));
+        hierarchy.put(people.get(1), renamed);
+        dir.put("Bob", people.getFirst());
+        Entity dan = factory.createEntity(UUID.randomUUID());
+        dir.put("Dan", dan);
+        sqliteDao.saveChanges(catalog);
+
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+        AspectMapHierarchy loadedHierarchy = (AspectMapHierarchy) loadedCatalog.hierarchy("person");
+        EntityDirectoryHierarchy loadedDir = (EntityDirectoryHierarchy) loadedCatalog.hierarchy("directory");
+        assertEquals(people, List.copyOf(loadedHierarchy.keySet()));
+        assertEquals("Rob", loadedHierarchy.get(people.get(1)).readObj("name"));
+        assertEquals(List.of("Ann", "Bob", "Cat", "Dan"), List.copyOf(loadedDir.keySet()));
+        assertEquals(people.getFirst().globalId(), loadedDir.get("Bob").globalId());
+    }
+
+    @Test
+    void testSaveChangesRewritesChangedListAfterLoad() throws SQLException
+    {
+        UUID catalogId = UUID.randomUUID();
+        Catalog catalog = factory.createCatalog(catalogId, CatalogSpecies.SINK, null, null, 0L);
+        EntityListHierarchy list = factory.createEntityListHierarchy(catalog, "list");
+        EntitySetHierarchy set = factory.createEntitySetHierarchy(catalog, "entities");
+        Entity entity1 = factory.createEntity(UUID.randomUUID());
+        Entity entity2 = factory.createEntity(UUID.randomUUID());
+        list.add(entity1);
+        list.add(entity2);
+        set.add(entity1);
+        sqliteDao.saveCatalog(catalog);
+
+        Catalog loadedCatalog = sqliteDao.loadCatalog(catalogId);
+        EntityListHierarchy loadedList = (EntityListHierarchy) loadedCatalog.hierarchy("list");
+        assertTrue(loadedList.changes().isEmpty());
+        loadedList.remove(entity1);
+        sqliteDao.saveChanges(loadedCatalog);
+
+        assertEquals(1, countRows("SELECT COUNT(*) FROM hierarchy_entity_list WHERE catalog_id = ?", catalogId.toString()));
+        assertEquals(1, countRows("SELECT COUNT(*) FROM hierarchy_entity_set WHERE catalog_id = ?", catalogId.toString()));
+        Catalog reloaded = sqliteDao.loadCatalog(catalogId);
+        assertEquals(List.of(entity2), reloaded.hierarchy("list"));
+    }
+
     @SuppressWarnings("DataFlowIssue")
     private String loadResourceFile(String resourcePath) throws IOException, URISyntaxException
     {
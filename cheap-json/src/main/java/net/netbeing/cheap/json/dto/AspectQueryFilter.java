@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025. David Noha
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.netbeing.cheap.json.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO for a server-side filter in an aspect query. Comparison filters have an
+ * op of "eq", "ne", "lt", "le", "gt" or "ge", a property and a value; "isNull"
+ * and "notNull" filters have only a property. "and" and "or" filters combine
+ * their nested filters, and a "not" filter negates its single nested filter.
+ */
+public record AspectQueryFilter(
+    @JsonProperty("op") String op,
+    @JsonProperty("property") String property,
+    @JsonProperty("value") Object value,
+    @JsonProperty("filters") List<AspectQueryFilter> filters
+)
+{
+}
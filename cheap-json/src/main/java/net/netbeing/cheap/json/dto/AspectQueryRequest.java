@@ -22,11 +22,19 @@ import java.util.Set;
 import java.util.UUID;
 
 /**
- * Request DTO for querying aspects.
+ * Request DTO for querying aspects. If a filter or limit is given, only the
+ * matching aspects are returned, and an empty set of entity IDs queries every
+ * entity in each requested AspectDef's hierarchy.
  */
 public record AspectQueryRequest(
     @JsonProperty("entityIds") Set<UUID> entityIds,
-    @JsonProperty("aspectDefNames") Set<String> aspectDefNames
+    @JsonProperty("aspectDefNames") Set<String> aspectDefNames,
+    @JsonProperty("filter") AspectQueryFilter filter,
+    @JsonProperty("limit") Integer limit
 )
 {
+    public AspectQueryRequest(Set<UUID> entityIds, Set<String> aspectDefNames)
+    {
+        this(entityIds, aspectDefNames, null, null);
+    }
 }
@@ -16,7 +16,9 @@
 
 package net.netbeing.cheap.rest.config;
 
+import net.netbeing.cheap.db.AbstractCheapDao;
 import net.netbeing.cheap.db.CheapDao;
+import net.netbeing.cheap.db.WriteBehindDao;
 import net.netbeing.cheap.db.mariadb.MariaDbAdapter;
 import net.netbeing.cheap.db.mariadb.MariaDbDao;
 import net.netbeing.cheap.db.postgres.PostgresAdapter;
@@ -29,8 +31,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Configuration class for creating Cheap DAO beans based on the selected database type.
@@ -59,6 +65,62 @@ public class CheapDaoConfig
         return new CheapFactory();
     }
 
+    /**
+     * Enables lazy hierarchy loading on the DAO if {@code cheap.lazy-loading.enabled}
+     * is true, so that loading a catalog only reads hierarchy metadata and each
+     * hierarchy is loaded on first access. If {@code cheap.lazy-loading.prefetch-threads}
+     * is positive, that many daemon threads prefetch hierarchies in the background.
+     *
+     * @param dao the DAO to configure
+     * @param environment the Spring environment
+     * @return the same DAO
+     */
+    static <D extends AbstractCheapDao> D withLazyLoading(D dao, Environment environment)
+    {
+        if (!environment.getProperty("cheap.lazy-loading.enabled", Boolean.class, false)) {
+            return dao;
+        }
+        int prefetchThreads = environment.getProperty("cheap.lazy-loading.prefetch-threads", Integer.class, 0);
+        logger.info("Enabling lazy hierarchy loading ({} prefetch threads)", prefetchThreads);
+        dao.setLazyHierarchyLoading(true);
+        if (prefetchThreads > 0) {
+            AtomicInteger threadCount = new AtomicInteger();
+            dao.setHierarchyPrefetchExecutor(Executors.newFixedThreadPool(prefetchThreads, r -> {
+                Thread thread = new Thread(r, "cheap-prefetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        return dao;
+    }
+
+    /**
+     * Wraps the DAO in a WriteBehindDao if {@code cheap.write-behind.enabled} is true,
+     * so that saves of CACHE catalogs are queued and flushed in batches. The batch
+     * size, queue bound and maximum delay are read from
+     * {@code cheap.write-behind.batch-size}, {@code cheap.write-behind.max-pending}
+     * and {@code cheap.write-behind.max-delay-ms}.
+     *
+     * @param dao the DAO to wrap
+     * @param environment the Spring environment
+     * @return the DAO, wrapped if write-behind is enabled
+     */
+    static CheapDao withWriteBehind(CheapDao dao, Environment environment)
+    {
+        if (!environment.getProperty("cheap.write-behind.enabled", Boolean.class, false)) {
+            return dao;
+        }
+        int batchSize = environment.getProperty("cheap.write-behind.batch-size", Integer.class,
+            WriteBehindDao.DEFAULT_BATCH_SIZE);
+        int maxPending = environment.getProperty("cheap.write-behind.max-pending", Integer.class,
+            WriteBehindDao.DEFAULT_MAX_PENDING);
+        long maxDelayMs = environment.getProperty("cheap.write-behind.max-delay-ms", Long.class,
+            WriteBehindDao.DEFAULT_MAX_DELAY.toMillis());
+        logger.info("Enabling write-behind for CACHE catalogs (batch size {}, max pending {}, max delay {} ms)",
+            batchSize, maxPending, maxDelayMs);
+        return new WriteBehindDao(dao, batchSize, maxPending, Duration.ofMillis(maxDelayMs));
+    }
+
     /**
      * PostgreSQL-specific configuration.
      */
@@ -73,14 +135,15 @@ public class CheapDaoConfig
          * 
          * @param dataSource the Spring-managed DataSource
          * @param factory the CheapFactory for object creation
-         * @return a configured PostgresDao instance
+         * @param environment the Spring environment, for lazy loading and write-behind settings
+         * @return a configured PostgresDao instance, wrapped for write-behind if enabled
          */
         @Bean
-        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory)
+        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory, Environment environment)
         {
             logger.info("Creating PostgresDao bean");
             PostgresAdapter adapter = new PostgresAdapter(dataSource, factory);
-            return new PostgresDao(adapter);
+            return withWriteBehind(withLazyLoading(new PostgresDao(adapter), environment), environment);
         }
     }
 
@@ -98,14 +161,15 @@ public class CheapDaoConfig
          * 
          * @param dataSource the Spring-managed DataSource
          * @param factory the CheapFactory for object creation
-         * @return a configured SqliteDao instance
+         * @param environment the Spring environment, for lazy loading and write-behind settings
+         * @return a configured SqliteDao instance, wrapped for write-behind if enabled
          */
         @Bean
-        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory)
+        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory, Environment environment)
         {
             logger.info("Creating SqliteDao bean");
             SqliteAdapter adapter = new SqliteAdapter(dataSource, factory);
-            return new SqliteDao(adapter);
+            return withWriteBehind(withLazyLoading(new SqliteDao(adapter), environment), environment);
         }
     }
 
@@ -123,14 +187,15 @@ public class CheapDaoConfig
          * 
          * @param dataSource the Spring-managed DataSource
          * @param factory the CheapFactory for object creation
-         * @return a configured MariaDbDao instance
+         * @param environment the Spring environment, for lazy loading and write-behind settings
+         * @return a configured MariaDbDao instance, wrapped for write-behind if enabled
          */
         @Bean
-        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory)
+        public CheapDao cheapDao(DataSource dataSource, CheapFactory factory, Environment environment)
         {
             logger.info("Creating MariaDbDao bean");
             MariaDbAdapter adapter = new MariaDbAdapter(dataSource, factory);
-            return new MariaDbDao(adapter);
+            return withWriteBehind(withLazyLoading(new MariaDbDao(adapter), environment), environment);
         }
     }
 }
@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -139,13 +140,16 @@ public class AspectController
         @PathVariable UUID catalogId,
         @RequestBody AspectQueryRequest request)
     {
+        Set<UUID> entityIds = request.entityIds() != null ? request.entityIds() : Set.of();
         logger.info("Received request to query {} entities for {} AspectDefs in catalog {}",
-            request.entityIds().size(), request.aspectDefNames().size(), catalogId);
+            entityIds.size(), request.aspectDefNames().size(), catalogId);
 
         return aspectService.queryAspects(
                 catalogId,
-                request.entityIds(),
-                request.aspectDefNames()
+                entityIds,
+                request.aspectDefNames(),
+                request.filter(),
+                request.limit()
             )
             .map(results -> new AspectQueryResponse(catalogId, results));
     }
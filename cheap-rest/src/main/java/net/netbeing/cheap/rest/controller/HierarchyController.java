@@ -93,6 +93,7 @@ public class HierarchyController
      * @param page the page number (default: 0) - ignored for EntityTree
      * @param size the page size (default: from config) - ignored for EntityTree
      * @return Mono emitting hierarchy contents with appropriate structure
+     * @see #getTreeNodes(UUID, String, int, Integer)
      */
     @GetMapping("/{hierarchyName}")
     @SuppressWarnings("java:S1452")
@@ -226,6 +227,64 @@ public class HierarchyController
             ));
     }
 
+    /**
+     * Gets a page of the nodes of an EntityTree hierarchy, in depth-first pre-order
+     * starting with the root, as the IDs of their entities. Unlike getting the
+     * hierarchy itself, which returns the whole tree, this only visits the nodes
+     * before and on the requested page. Nodes without an entity are returned as null.
+     *
+     * @param catalogId the catalog ID
+     * @param hierarchyName the hierarchy name
+     * @param page the page number (default: 0)
+     * @param size the page size (default: from config)
+     * @return Mono emitting the page of entity IDs
+     */
+    @GetMapping("/{hierarchyName}/nodes")
+    public Mono<EntityListResponse> getTreeNodes(
+        @PathVariable UUID catalogId,
+        @PathVariable String hierarchyName,
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(required = false) Integer size)
+    {
+        logger.info("Received request to get nodes of tree {} from catalog {}", hierarchyName, catalogId);
+
+        return hierarchyService.getHierarchy(catalogId, hierarchyName)
+            .flatMap(hierarchy -> hierarchy instanceof EntityTreeHierarchy entityTree
+                ? handleEntityTreePage(catalogId, hierarchyName, entityTree, page, size)
+                : Mono.error(new ValidationException("Hierarchy '" + hierarchyName + "' is not an EntityTree")));
+    }
+
+    private Mono<EntityListResponse> handleEntityTreePage(
+        UUID catalogId, String hierarchyName, EntityTreeHierarchy hierarchy, int page, Integer size)
+    {
+        int pageSize = size != null ? size : defaultPageSize;
+
+        // Validate page size
+        if (pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Page size " + pageSize + " exceeds maximum of " + maxPageSize);
+        }
+
+        return Mono.zip(
+                hierarchyService.getEntityTreePage(hierarchy, page, pageSize),
+                hierarchyService.countHierarchyItems(hierarchy)
+            )
+            .map(tuple -> {
+                var content = tuple.getT1();
+                long totalElements = tuple.getT2();
+                int totalPages = (int) Math.ceil((double) totalElements / pageSize);
+
+                return new EntityListResponse(
+                    catalogId,
+                    hierarchyName,
+                    content,
+                    page,
+                    pageSize,
+                    totalElements,
+                    totalPages
+                );
+            });
+    }
+
     private Mono<AspectMapResponse> handleAspectMap(
         UUID catalogId, String hierarchyName, AspectMapHierarchy hierarchy, int page, Integer size)
     {
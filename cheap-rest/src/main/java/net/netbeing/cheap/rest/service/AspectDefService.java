@@ -93,9 +93,9 @@ public class AspectDefService
         // Create the AspectMap hierarchy for this AspectDef
         catalog.createAspectMap(aspectDef, 0L);
 
-        // Save the catalog (which includes the new AspectDef and hierarchy)
+        // Save the changes (the new AspectDef and its hierarchy)
         try {
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             if (logger.isInfoEnabled()) {
                 logger.info("Successfully created AspectDef {} in catalog {}", aspectDef.name(), catalogId);
             }
@@ -18,6 +18,7 @@ package net.netbeing.cheap.rest.service;
 
 import net.netbeing.cheap.db.CheapDao;
 import net.netbeing.cheap.impl.basic.CheapFactory;
+import net.netbeing.cheap.json.dto.AspectQueryFilter;
 import net.netbeing.cheap.json.dto.UpsertAspectsResponse.AspectResult;
 import net.netbeing.cheap.model.Aspect;
 import net.netbeing.cheap.model.AspectDef;
@@ -26,6 +27,9 @@ import net.netbeing.cheap.model.AspectMapHierarchy;
 import net.netbeing.cheap.model.Catalog;
 import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.PropertyDef;
+import net.netbeing.cheap.query.AspectQuery;
+import net.netbeing.cheap.query.Filter;
+import net.netbeing.cheap.query.QueryRow;
 import net.netbeing.cheap.rest.exception.ResourceNotFoundException;
 import net.netbeing.cheap.rest.exception.UnprocessableEntityException;
 import net.netbeing.cheap.rest.exception.ValidationException;
@@ -41,6 +45,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -108,9 +113,15 @@ public class AspectService
         // Process each aspect
         Map<UUID, AspectResult> results = processAspectsForUpsert(aspectDefName, aspectsByEntity, aspectDef, aspectMap);
 
-        // Save the catalog with all changes
+        // Save the upserted aspects
+        List<Entity> written = new ArrayList<>();
+        for (AspectResult result : results.values()) {
+            if (result.success()) {
+                written.add(factory.getOrRegisterNewEntity(result.entityId()));
+            }
+        }
         try {
-            dao.saveCatalog(catalog);
+            dao.saveAspects(catalog, Map.of(aspectDef, written));
             logger.info("Successfully upserted aspects in catalog {}", catalogId);
         } catch (SQLException e) {
             logger.error("Failed to save catalog with upserted aspects");
@@ -233,10 +244,36 @@ public class AspectService
     public List<AspectMap> queryAspects(@NotNull UUID catalogId,
                                         @NotNull Set<UUID> entityIds,
                                         @NotNull Set<String> aspectDefNames)
+    {
+        return queryAspects(catalogId, entityIds, aspectDefNames, null, null);
+    }
+
+    /**
+     * Queries aspects for multiple entities, filtering them on the server. The
+     * filter is applied to each requested AspectDef, so it may only refer to
+     * properties they all define. With a filter or limit, an empty set of
+     * entity IDs queries every entity in each AspectDef's hierarchy.
+     *
+     * @param catalogId      the catalog ID
+     * @param entityIds      the set of entity IDs to query
+     * @param aspectDefNames the set of AspectDef names to retrieve
+     * @param filter         the filter aspects must match, or null for none
+     * @param limit          the maximum number of aspects per AspectDef, or null for no limit
+     * @return list of AspectMaps, mapping entity id to aspect
+     * @throws ResourceNotFoundException if catalog is not found
+     * @throws ValidationException if the filter or limit is invalid
+     */
+    @Transactional(readOnly = true)
+    public List<AspectMap> queryAspects(@NotNull UUID catalogId,
+                                        @NotNull Set<UUID> entityIds,
+                                        @NotNull Set<String> aspectDefNames,
+                                        AspectQueryFilter filter,
+                                        Integer limit)
     {
         logger.info("Querying aspects for {} entities in catalog {}", entityIds.size(), catalogId);
 
         Catalog catalog = catalogService.getCatalog(catalogId);
+        AspectQuery query = (filter != null || limit != null) ? buildQuery(filter, limit) : null;
 
         // lookup AspectDefs to query
         List<AspectDef> aspectDefsToQuery = new ArrayList<>(aspectDefNames.size());
@@ -253,11 +290,19 @@ public class AspectService
             AspectMapHierarchy hierarchy = catalog.aspects(aspectDef);
             AspectMap aspectMap = factory.createAspectMap(aspectDef);
 
-            for (UUID entityId : entityIds) {
-                Entity entity = factory.createEntity(entityId);
-                Aspect aspect = hierarchy.get(entity);
-                if (aspect != null) {
-                    aspectMap.put(entity, aspect);
+            if (query != null && entityIds.isEmpty()) {
+                collectMatches(query, hierarchy, aspectMap);
+            } else {
+                for (UUID entityId : entityIds) {
+                    Aspect aspect = hierarchy.aspect(entityId);
+                    if (aspect != null) {
+                        aspectMap.put(factory.createEntity(entityId), aspect);
+                    }
+                }
+                if (query != null) {
+                    AspectMap requested = aspectMap;
+                    aspectMap = factory.createAspectMap(aspectDef);
+                    collectMatches(query, requested, aspectMap);
                 }
             }
 
@@ -268,4 +313,80 @@ public class AspectService
 
         return results;
     }
+
+    private static void collectMatches(AspectQuery query, AspectMap source, AspectMap target)
+    {
+        List<QueryRow> rows;
+        try {
+            rows = query.execute(source);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid aspect query: " + e.getMessage());
+        }
+        for (QueryRow row : rows) {
+            target.put(row.entity(), row.aspect());
+        }
+    }
+
+    private static AspectQuery buildQuery(AspectQueryFilter filter, Integer limit)
+    {
+        AspectQuery.Builder builder = AspectQuery.builder();
+        if (filter != null) {
+            builder.where(toFilter(filter));
+        }
+        if (limit != null) {
+            if (limit < 0) {
+                throw new ValidationException("Query limit may not be negative");
+            }
+            builder.limit(limit);
+        }
+        return builder.build();
+    }
+
+    private static Filter toFilter(AspectQueryFilter dto)
+    {
+        String op = dto.op();
+        if (op == null) {
+            throw new ValidationException("Query filter requires an op");
+        }
+        return switch (op) {
+            case "and" -> new Filter.And(toFilters(dto.filters()));
+            case "or" -> new Filter.Or(toFilters(dto.filters()));
+            case "not" -> {
+                List<Filter> nested = toFilters(dto.filters());
+                if (nested.size() != 1) {
+                    throw new ValidationException("A not filter requires exactly one nested filter");
+                }
+                yield Filter.not(nested.getFirst());
+            }
+            case "isNull" -> Filter.isNull(requireProperty(dto));
+            case "notNull" -> Filter.notNull(requireProperty(dto));
+            case "eq", "ne", "lt", "le", "gt", "ge" -> {
+                if (dto.value() == null) {
+                    throw new ValidationException("A " + op + " filter requires a value");
+                }
+                yield new Filter.Comparison(requireProperty(dto), Filter.Operator.valueOf(op.toUpperCase(Locale.ROOT)),
+                    dto.value());
+            }
+            default -> throw new ValidationException("Unknown query filter op: " + op);
+        };
+    }
+
+    private static List<Filter> toFilters(List<AspectQueryFilter> dtos)
+    {
+        List<Filter> filters = new ArrayList<>();
+        if (dtos != null) {
+            for (AspectQueryFilter dto : dtos) {
+                filters.add(toFilter(dto));
+            }
+        }
+        return filters;
+    }
+
+    private static String requireProperty(AspectQueryFilter dto)
+    {
+        if (dto.property() == null) {
+            throw new ValidationException("A " + dto.op() + " filter requires a property");
+        }
+        return dto.property();
+    }
 }
@@ -111,7 +111,7 @@ public class CatalogService
         validateSpeciesUpstream(species, upstream);
 
         // Create a new catalog with a new UUID
-        UUID catalogId = UUID.randomUUID();
+        UUID catalogId = factory.getIdGenerator().newId();
         URI catalogURI = URI.create(baseCatalogURL.toString() + "/" + catalogId);
         Catalog catalog = factory.createCatalog(catalogId, species, catalogURI, upstream, 0L);
 
@@ -170,6 +170,23 @@ public class HierarchyService
         return hierarchy.root();
     }
 
+    /**
+     * Gets a page of the nodes of an EntityTree hierarchy, in depth-first pre-order
+     * starting with the root, as the IDs of their entities. Nodes without an entity
+     * are returned as null.
+     *
+     * @param hierarchy the EntityTree hierarchy
+     * @param page the page number
+     * @param size the page size
+     * @return paginated list of entity IDs
+     */
+    public List<UUID> getEntityTreePage(EntityTreeHierarchy hierarchy, int page, int size)
+    {
+        return hierarchy.root().subtreePage((long) page * size, size).stream()
+            .map(node -> node.value() == null ? null : node.value().globalId())
+            .toList();
+    }
+
     /**
      * Gets paginated contents of an AspectMap hierarchy.
      *
@@ -209,6 +226,7 @@ public class HierarchyService
             case EntitySetHierarchy set -> set.size();
             case EntityDirectoryHierarchy dir -> dir.size();
             case AspectMapHierarchy map -> map.size();
+            case EntityTreeHierarchy tree -> tree.root().subtreeSize();
             default -> 0;
         };
     }
@@ -231,8 +249,8 @@ public class HierarchyService
             // Delegate to CatalogService to create and add the hierarchy
             catalogService.createAndAddHierarchy(catalog, hierarchyDef);
 
-            // Save the updated catalog
-            dao.saveCatalog(catalog);
+            // Save the new hierarchy
+            dao.saveChanges(catalog);
 
             logger.info("Successfully created hierarchy {} in catalog {}", hierarchyDef.name(), catalogId);
             return hierarchyDef.name();
@@ -285,7 +303,7 @@ public class HierarchyService
                 );
             };
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully added {} entity IDs to hierarchy {}", count, hierarchyName);
             return count;
         } catch (SQLException e) {
@@ -339,7 +357,7 @@ public class HierarchyService
                 );
             };
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully removed {} entity IDs from hierarchy {}", count, hierarchyName);
             return count;
         } catch (SQLException e) {
@@ -380,7 +398,7 @@ public class HierarchyService
                 directory.put(entry.getKey(), entity);
             }
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully added {} entries to directory {}", entries.size(), hierarchyName);
             return entries.size();
         } catch (SQLException e) {
@@ -419,7 +437,7 @@ public class HierarchyService
                 }
             }
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully removed {} entries from directory {}", removed, hierarchyName);
             return removed;
         } catch (SQLException e) {
@@ -466,7 +484,7 @@ public class HierarchyService
                 }
             }
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully removed {} entries from directory {}", removed, hierarchyName);
             return removed;
         } catch (SQLException e) {
@@ -518,7 +536,7 @@ public class HierarchyService
                 parent.put(entry.getKey(), child);
             }
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully added {} nodes to tree {}", nodes.size(), hierarchyName);
             return nodes.size();
         } catch (SQLException e) {
@@ -582,17 +600,17 @@ public class HierarchyService
                     EntityTreeHierarchy.Node node = parent.get(childName);
                     if (node != null) {
                         // Count nodes before removal (node + all descendants)
-                        int nodeCount = countTreeNodes(node);
+                        long nodeCount = node.subtreeSize();
 
                         // Remove the node (this cascades to descendants)
                         if (parent.remove(childName) != null) {
-                            totalRemoved += nodeCount;
+                            totalRemoved += (int) nodeCount;
                         }
                     }
                 }
             }
 
-            dao.saveCatalog(catalog);
+            dao.saveChanges(catalog);
             logger.info("Successfully removed {} nodes (including descendants) from tree {}", totalRemoved, hierarchyName);
             return totalRemoved;
         } catch (SQLException e) {
@@ -601,18 +619,6 @@ public class HierarchyService
         }
     }
 
-    /**
-     * Counts the number of nodes in a tree (node + all descendants).
-     */
-    private int countTreeNodes(EntityTreeHierarchy.Node node)
-    {
-        int count = 1; // Count this node
-        for (EntityTreeHierarchy.Node child : node.values()) {
-            count += countTreeNodes(child);
-        }
-        return count;
-    }
-
     /**
      * Finds a node by path in the tree.
      *
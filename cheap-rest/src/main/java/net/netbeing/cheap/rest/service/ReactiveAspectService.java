@@ -16,6 +16,7 @@
 
 package net.netbeing.cheap.rest.service;
 
+import net.netbeing.cheap.json.dto.AspectQueryFilter;
 import net.netbeing.cheap.json.dto.UpsertAspectsResponse.AspectResult;
 import net.netbeing.cheap.model.AspectMap;
 import org.jetbrains.annotations.NotNull;
@@ -81,4 +82,25 @@ public class ReactiveAspectService
         return Mono.fromCallable(() -> aspectService.queryAspects(catalogId, entityIds, aspectDefNames))
             .subscribeOn(jdbcScheduler);
     }
+
+    /**
+     * Queries aspects for multiple entities reactively, filtering them on the server.
+     *
+     * @param catalogId      the catalog ID
+     * @param entityIds      the set of entity IDs to query (empty = all, when filtering)
+     * @param aspectDefNames the set of AspectDef names to retrieve
+     * @param filter         the filter aspects must match, or null for none
+     * @param limit          the maximum number of aspects per AspectDef, or null for no limit
+     * @return Mono emitting the list of matching AspectMaps
+     */
+    public Mono<List<AspectMap>> queryAspects(
+        @NotNull UUID catalogId,
+        @NotNull Set<UUID> entityIds,
+        Set<String> aspectDefNames,
+        AspectQueryFilter filter,
+        Integer limit)
+    {
+        return Mono.fromCallable(() -> aspectService.queryAspects(catalogId, entityIds, aspectDefNames, filter, limit))
+            .subscribeOn(jdbcScheduler);
+    }
 }
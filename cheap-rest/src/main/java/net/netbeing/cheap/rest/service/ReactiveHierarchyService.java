@@ -120,6 +120,20 @@ public class ReactiveHierarchyService
             .subscribeOn(jdbcScheduler);
     }
 
+    /**
+     * Gets a page of the nodes of an EntityTree hierarchy reactively.
+     *
+     * @param hierarchy the EntityTree hierarchy
+     * @param page the page number
+     * @param size the page size
+     * @return Mono emitting paginated list of entity IDs, in depth-first pre-order
+     */
+    public Mono<List<UUID>> getEntityTreePage(EntityTreeHierarchy hierarchy, int page, int size)
+    {
+        return Mono.fromCallable(() -> hierarchyService.getEntityTreePage(hierarchy, page, size))
+            .subscribeOn(jdbcScheduler);
+    }
+
     /**
      * Gets paginated contents of an AspectMap hierarchy reactively.
      *
@@ -668,6 +668,43 @@ class HierarchyControllerHttpTest extends BaseControllerHttpTest
         assertThat(responseNode.get("message").asText()).contains("Added 2 node(s)");
     }
 
+    @Test
+    void testGetTreeNodesPage() throws Exception
+    {
+        String addRequest = loadJson("hierarchy/add-tree-nodes-request.json");
+        webTestClient.post()
+            .uri("/api/catalog/" + catalogId + "/hierarchies/categories/nodes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(addRequest)
+            .exchange()
+            .expectStatus().isOk();
+
+        // Second page of two: the root comes first, so this holds the second folder
+        String responseJson = webTestClient.get()
+            .uri("/api/catalog/" + catalogId + "/hierarchies/categories/nodes?page=1&size=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        JsonNode responseNode = objectMapper.readTree(responseJson);
+        assertThat(responseNode.get("hierarchyName").asText()).isEqualTo("categories");
+        assertThat(responseNode.get("entityIds").size()).isEqualTo(1);
+        assertThat(responseNode.get("totalElements").asLong()).isEqualTo(3);
+        assertThat(responseNode.get("totalPages").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void testGetTreeNodesOfWrongHierarchyTypeReturns400()
+    {
+        webTestClient.get()
+            .uri("/api/catalog/" + catalogId + "/hierarchies/people/nodes")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
     @Test
     void testAddTreeNodesToWrongHierarchyTypeReturns400() throws Exception
     {
@@ -16,6 +16,7 @@
 
 package net.netbeing.cheap.rest.service;
 
+import net.netbeing.cheap.json.dto.AspectQueryFilter;
 import net.netbeing.cheap.json.dto.UpsertAspectsResponse.AspectResult;
 import net.netbeing.cheap.model.Aspect;
 import net.netbeing.cheap.model.AspectMap;
@@ -25,6 +26,7 @@ import net.netbeing.cheap.model.Entity;
 import net.netbeing.cheap.model.MutableAspectDef;
 import net.netbeing.cheap.model.PropertyType;
 import net.netbeing.cheap.rest.TestStartEndLogger;
+import net.netbeing.cheap.rest.exception.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -264,4 +267,40 @@ class AspectServiceTest extends BaseServiceTest
         assertTrue(resultMap.containsKey(entity1));
         assertFalse(resultMap.containsKey(entity2));
     }
+
+    @Test
+    void testQueryAspectsWithFilter()
+    {
+        UUID entityId1 = UUID.randomUUID();
+        UUID entityId2 = UUID.randomUUID();
+        UUID entityId3 = UUID.randomUUID();
+
+        Map<UUID, Map<String, Object>> aspectsByEntity = new HashMap<>();
+        aspectsByEntity.put(entityId1, Map.of("name", "John", "age", 30));
+        aspectsByEntity.put(entityId2, Map.of("name", "Jane", "age", 28));
+        aspectsByEntity.put(entityId3, Map.of("name", "Jim", "age", 45));
+        aspectService.upsertAspects(catalogId, aspectDefName, aspectsByEntity);
+
+        Set<String> aspectDefNames = Set.of(aspectDefName);
+        AspectQueryFilter olderThan29 = new AspectQueryFilter("gt", "age", 29, null);
+
+        // An empty set of entity ids queries the whole hierarchy when filtering
+        List<AspectMap> results = aspectService.queryAspects(catalogId, Set.of(), aspectDefNames, olderThan29, null);
+        assertEquals(1, results.size());
+        assertEquals(Set.of(entityId1, entityId3),
+            results.getFirst().keySet().stream().map(Entity::globalId).collect(Collectors.toSet()));
+
+        // Otherwise only the requested entities are filtered
+        AspectQueryFilter notJim = new AspectQueryFilter("not", null, null,
+            List.of(new AspectQueryFilter("eq", "name", "Jim", null)));
+        AspectQueryFilter both = new AspectQueryFilter("and", null, null, List.of(olderThan29, notJim));
+        results = aspectService.queryAspects(catalogId, Set.of(entityId1, entityId2, entityId3), aspectDefNames, both, null);
+        assertEquals(1, results.getFirst().size());
+        assertNotNull(results.getFirst().aspect(entityId1));
+
+        assertThrows(ValidationException.class, () -> aspectService.queryAspects(catalogId, Set.of(), aspectDefNames,
+            new AspectQueryFilter("eq", "missing", 1, null), null));
+        assertThrows(ValidationException.class, () -> aspectService.queryAspects(catalogId, Set.of(), aspectDefNames,
+            new AspectQueryFilter("like", "name", "J%", null), null));
+    }
 }
@@ -580,6 +580,31 @@ class HierarchyServiceTest extends BaseServiceTest
         assertTrue(root.containsKey("folder2"));
     }
 
+    @Test
+    void testCountAndPageTreeNodes() throws Exception
+    {
+        HierarchyDef treeHierarchyDef = factory.createHierarchyDef("myTree", HierarchyType.ENTITY_TREE);
+        hierarchyService.createHierarchy(catalogId, treeHierarchyDef);
+
+        UUID folderId = UUID.randomUUID();
+        UUID fileId = UUID.randomUUID();
+        UUID otherId = UUID.randomUUID();
+        Map<String, UUID> nodes = new LinkedHashMap<>();
+        nodes.put("folder", folderId);
+        nodes.put("other", otherId);
+        hierarchyService.addTreeNodes(catalogId, "myTree", "/", nodes);
+        hierarchyService.addTreeNodes(catalogId, "myTree", "/folder", Map.of("file", fileId));
+
+        Catalog catalog = catalogService.getCatalog(catalogId);
+        EntityTreeHierarchy treeHierarchy = (EntityTreeHierarchy) catalog.hierarchy("myTree");
+
+        assertEquals(4, hierarchyService.countHierarchyItems(treeHierarchy));
+        // Pre-order: root (no entity), folder, folder/file, other
+        assertEquals(Arrays.asList(null, folderId), hierarchyService.getEntityTreePage(treeHierarchy, 0, 2));
+        assertEquals(List.of(fileId, otherId), hierarchyService.getEntityTreePage(treeHierarchy, 1, 2));
+        assertEquals(List.of(otherId), hierarchyService.getEntityTreePage(treeHierarchy, 1, 3));
+    }
+
     @Test
     void testAddTreeNodesToNonexistentParentThrows() throws Exception
     {